@@ -104,6 +104,17 @@ public class DiscountCurve extends YieldAndDiscountCurve {
     return rSensitivity;
   }
 
+  @Override
+  public void addInterestRateParameterSensitivity(final double time, final double rateBar, final double[] parameterBar) {
+    // Implementation note: if time = 0, the rate is ill-defined: 0 sensitivity
+    if (Math.abs(time) < SMALL_TIME) {
+      return;
+    }
+    // r = -ln(df) / t
+    final double dfBar = -rateBar / (time * getDiscountFactor(time));
+    _curve.addYValueParameterSensitivity(time, dfBar, parameterBar);
+  }
+
   @Override
   public int getNumberOfParameters() {
     return _curve.size();
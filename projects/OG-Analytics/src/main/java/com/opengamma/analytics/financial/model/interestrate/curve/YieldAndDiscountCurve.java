@@ -84,6 +84,24 @@ public abstract class YieldAndDiscountCurve implements InterestRateModel<Double>
    */
   public abstract double[] getInterestRateParameterSensitivity(final double time);
 
+  /**
+   * Adds the sensitivity of the continuously compounded interest rate at a given time with respect to the parameters defining the curve,
+   * multiplied by the sensitivity of some quantity to that rate, to the sensitivities of the quantity to the parameters. This is the adjoint
+   * form of {@link #getInterestRateParameterSensitivity(double)}, used to accumulate the parameter sensitivities of many points in one array.
+   * <p>
+   * The default implementation uses {@link #getInterestRateParameterSensitivity(double)}; curves for which each rate depends on a few
+   * parameters only override it.
+   * @param time The time.
+   * @param rateBar The sensitivity of the quantity to the rate.
+   * @param parameterBar The sensitivities of the quantity to the parameters, incremented in place. Of length the number of parameters.
+   */
+  public void addInterestRateParameterSensitivity(final double time, final double rateBar, final double[] parameterBar) {
+    final double[] sensitivity = getInterestRateParameterSensitivity(time);
+    for (int loopp = 0; loopp < sensitivity.length; loopp++) {
+      parameterBar[loopp] += rateBar * sensitivity[loopp];
+    }
+  }
+
   /**
    * Return the number of parameters for the definition of the curve.
    * @return The number of parameters.
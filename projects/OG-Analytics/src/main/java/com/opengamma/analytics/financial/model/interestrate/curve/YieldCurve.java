@@ -81,6 +81,11 @@ public class YieldCurve extends YieldAndDiscountCurve {
     return ArrayUtils.toPrimitive(_curve.getYValueParameterSensitivity(t));
   }
 
+  @Override
+  public void addInterestRateParameterSensitivity(final double time, final double rateBar, final double[] parameterBar) {
+    _curve.addYValueParameterSensitivity(time, rateBar, parameterBar);
+  }
+
   @Override
   public int getNumberOfParameters() {
     return _curve.size();
@@ -10,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.statistics.distribution.FastNormalDistribution;
 import com.opengamma.analytics.math.statistics.distribution.NormalDistribution;
 import com.opengamma.analytics.math.statistics.distribution.ProbabilityDistribution;
 import com.opengamma.lang.annotation.ExternalFunction;
@@ -119,6 +120,116 @@ public abstract class BlackFormulaRepository {
     return sum;
   }
 
+  /**
+   * The <b>forward</b> prices of an array of options using the Black formula.
+   * See {@link #priceAndGreeks(double[], double[], double[], double[], boolean[], double[], double[], double[], double[], double[])}.
+   * @param forwards The forward values of the underlying
+   * @param strikes The strikes
+   * @param timesToExpiry The times-to-expiry
+   * @param lognormalVols The log-normal volatilities
+   * @param isCall True for calls, false for puts
+   * @return The <b>forward</b> prices
+   */
+  public static double[] price(final double[] forwards, final double[] strikes, final double[] timesToExpiry, final double[] lognormalVols,
+      final boolean[] isCall) {
+    ArgumentChecker.notNull(forwards, "forwards");
+    final double[] price = new double[forwards.length];
+    priceAndGreeks(forwards, strikes, timesToExpiry, lognormalVols, isCall, price, null, null, null, null);
+    return price;
+  }
+
+  /**
+   * The <b>forward</b> prices and the driftless greeks of an array of options using the Black formula, in one pass.
+   * <p>
+   * The inputs are arrays of the same length, element i describing the option i. The results are written in the arrays provided; a null array
+   * is not computed. For each option, d1, d2 and the normal distribution terms are computed once and shared by the price and the greeks.
+   * <p>
+   * The results are those of {@link #price(double, double, double, double, boolean)}, {@link #delta(double, double, double, double, boolean)},
+   * {@link #dualDelta(double, double, double, double, boolean)}, {@link #gamma(double, double, double, double)} and
+   * {@link #vega(double, double, double, double)} for each option, up to the accuracy of the normal distribution: the cumulative distribution
+   * is computed with {@link FastNormalDistribution}. The options with zero or very large inputs are priced by the scalar formulas, which also
+   * reject the invalid inputs.
+   * @param forwards The forward values of the underlying
+   * @param strikes The strikes
+   * @param timesToExpiry The times-to-expiry
+   * @param lognormalVols The log-normal volatilities
+   * @param isCall True for calls, false for puts
+   * @param price The array for the <b>forward</b> prices, can be null
+   * @param delta The array for the forward deltas, can be null
+   * @param dualDelta The array for the dual deltas, can be null
+   * @param gamma The array for the forward gammas, can be null
+   * @param vega The array for the forward vegas, can be null
+   */
+  public static void priceAndGreeks(final double[] forwards, final double[] strikes, final double[] timesToExpiry, final double[] lognormalVols,
+      final boolean[] isCall, final double[] price, final double[] delta, final double[] dualDelta, final double[] gamma, final double[] vega) {
+    ArgumentChecker.notNull(forwards, "forwards");
+    ArgumentChecker.notNull(strikes, "strikes");
+    ArgumentChecker.notNull(timesToExpiry, "timesToExpiry");
+    ArgumentChecker.notNull(lognormalVols, "lognormalVols");
+    ArgumentChecker.notNull(isCall, "isCall");
+    final int n = forwards.length;
+    ArgumentChecker.isTrue(strikes.length == n && timesToExpiry.length == n && lognormalVols.length == n && isCall.length == n,
+        "input arrays must have the same length");
+    ArgumentChecker.isTrue((price == null || price.length >= n) && (delta == null || delta.length >= n) && (dualDelta == null || dualDelta.length >= n)
+        && (gamma == null || gamma.length >= n) && (vega == null || vega.length >= n), "result arrays shorter than the input arrays");
+    final boolean needD1 = price != null || delta != null;
+    final boolean needD2 = price != null || dualDelta != null;
+    final boolean needDensity = gamma != null || vega != null;
+    for (int i = 0; i < n; i++) {
+      final double forward = forwards[i];
+      final double strike = strikes[i];
+      final double rootT = Math.sqrt(timesToExpiry[i]);
+      final double sigmaRootT = lognormalVols[i] * rootT;
+      // Written so that NaN inputs fail the test
+      if (!(forward > 0. && forward <= LARGE && strike > 0. && strike <= LARGE && sigmaRootT >= SMALL && sigmaRootT <= LARGE)) {
+        priceAndGreeksScalar(forward, strike, timesToExpiry[i], lognormalVols[i], isCall[i], i, price, delta, dualDelta, gamma, vega);
+        continue;
+      }
+      final double sign = isCall[i] ? 1. : -1.;
+      final double d1 = (Math.abs(forward - strike) < SMALL ? 0. : Math.log(forward / strike) / sigmaRootT) + 0.5 * sigmaRootT;
+      final double d2 = d1 - sigmaRootT;
+      final double nF = needD1 ? FastNormalDistribution.getCDF(sign * d1) : 0.;
+      final double nS = needD2 ? FastNormalDistribution.getCDF(sign * d2) : 0.;
+      if (price != null) {
+        price[i] = Math.max(0., sign * (forward * nF - strike * nS));
+      }
+      if (delta != null) {
+        delta[i] = sign * nF;
+      }
+      if (dualDelta != null) {
+        dualDelta[i] = -sign * nS;
+      }
+      if (needDensity) {
+        final double nVal = FastNormalDistribution.getPDF(d1);
+        if (gamma != null) {
+          gamma[i] = nVal / forward / sigmaRootT;
+        }
+        if (vega != null) {
+          vega[i] = forward * rootT * nVal;
+        }
+      }
+    }
+  }
+
+  private static void priceAndGreeksScalar(final double forward, final double strike, final double timeToExpiry, final double lognormalVol,
+      final boolean isCall, final int i, final double[] price, final double[] delta, final double[] dualDelta, final double[] gamma, final double[] vega) {
+    if (price != null) {
+      price[i] = price(forward, strike, timeToExpiry, lognormalVol, isCall);
+    }
+    if (delta != null) {
+      delta[i] = delta(forward, strike, timeToExpiry, lognormalVol, isCall);
+    }
+    if (dualDelta != null) {
+      dualDelta[i] = dualDelta(forward, strike, timeToExpiry, lognormalVol, isCall);
+    }
+    if (gamma != null) {
+      gamma[i] = gamma(forward, strike, timeToExpiry, lognormalVol);
+    }
+    if (vega != null) {
+      vega[i] = vega(forward, strike, timeToExpiry, lognormalVol);
+    }
+  }
+
   /**
    * The forward (i.e. driftless) delta
    * @param forward The forward value of the underlying
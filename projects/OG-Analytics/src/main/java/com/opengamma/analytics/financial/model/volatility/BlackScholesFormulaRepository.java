@@ -7,6 +7,7 @@ package com.opengamma.analytics.financial.model.volatility;
 
 import org.apache.commons.lang.Validate;
 
+import com.opengamma.analytics.math.statistics.distribution.FastNormalDistribution;
 import com.opengamma.analytics.math.statistics.distribution.NormalDistribution;
 import com.opengamma.analytics.math.statistics.distribution.ProbabilityDistribution;
 import com.opengamma.lang.annotation.ExternalFunction;
@@ -108,6 +109,133 @@ public abstract class BlackScholesFormulaRepository {
     return Double.isNaN(res) ? 0. : Math.max(res, 0.);
   }
 
+  /**
+   * The <b>spot</b> prices of an array of options.
+   * See {@link #priceAndGreeks(double[], double[], double[], double[], double[], double[], boolean[], double[], double[], double[], double[], double[])}.
+   * @param spots The spot values of the underlying
+   * @param strikes The strikes
+   * @param timesToExpiry The times-to-expiry
+   * @param lognormalVols The log-normal volatilities
+   * @param interestRates The interest rates
+   * @param costsOfCarry The cost-of-carry rates
+   * @param isCall True for calls, false for puts
+   * @return The <b>spot</b> prices
+   */
+  public static double[] price(final double[] spots, final double[] strikes, final double[] timesToExpiry, final double[] lognormalVols, final double[] interestRates,
+      final double[] costsOfCarry, final boolean[] isCall) {
+    ArgumentChecker.notNull(spots, "spots");
+    final double[] price = new double[spots.length];
+    priceAndGreeks(spots, strikes, timesToExpiry, lognormalVols, interestRates, costsOfCarry, isCall, price, null, null, null, null);
+    return price;
+  }
+
+  /**
+   * The <b>spot</b> prices and greeks of an array of options, in one pass.
+   * <p>
+   * The inputs are arrays of the same length, element i describing the option i. The results are written in the arrays provided; a null array
+   * is not computed. For each option, d1, d2, the discount and carry factors and the normal distribution terms are computed once and shared by the
+   * price and the greeks.
+   * <p>
+   * The results are those of {@link #price}, {@link #delta}, {@link #dualDelta}, {@link #gamma} and {@link #vega} for each option, up to the accuracy
+   * of the normal distribution: the cumulative distribution is computed with {@link FastNormalDistribution}. The options with zero or very large
+   * inputs are priced by the scalar formulas, which also reject the invalid inputs.
+   * @param spots The spot values of the underlying
+   * @param strikes The strikes
+   * @param timesToExpiry The times-to-expiry
+   * @param lognormalVols The log-normal volatilities
+   * @param interestRates The interest rates
+   * @param costsOfCarry The cost-of-carry rates
+   * @param isCall True for calls, false for puts
+   * @param price The array for the <b>spot</b> prices, can be null
+   * @param delta The array for the spot deltas, can be null
+   * @param dualDelta The array for the dual deltas, can be null
+   * @param gamma The array for the spot gammas, can be null
+   * @param vega The array for the spot vegas, can be null
+   */
+  public static void priceAndGreeks(final double[] spots, final double[] strikes, final double[] timesToExpiry, final double[] lognormalVols,
+      final double[] interestRates, final double[] costsOfCarry, final boolean[] isCall, final double[] price, final double[] delta, final double[] dualDelta,
+      final double[] gamma, final double[] vega) {
+    ArgumentChecker.notNull(spots, "spots");
+    ArgumentChecker.notNull(strikes, "strikes");
+    ArgumentChecker.notNull(timesToExpiry, "timesToExpiry");
+    ArgumentChecker.notNull(lognormalVols, "lognormalVols");
+    ArgumentChecker.notNull(interestRates, "interestRates");
+    ArgumentChecker.notNull(costsOfCarry, "costsOfCarry");
+    ArgumentChecker.notNull(isCall, "isCall");
+    final int n = spots.length;
+    ArgumentChecker.isTrue(strikes.length == n && timesToExpiry.length == n && lognormalVols.length == n && interestRates.length == n && costsOfCarry.length == n
+        && isCall.length == n, "input arrays must have the same length");
+    ArgumentChecker.isTrue((price == null || price.length >= n) && (delta == null || delta.length >= n) && (dualDelta == null || dualDelta.length >= n)
+        && (gamma == null || gamma.length >= n) && (vega == null || vega.length >= n), "result arrays shorter than the input arrays");
+    final boolean needD1 = price != null || delta != null;
+    final boolean needD2 = price != null || dualDelta != null;
+    final boolean needCoef = delta != null || gamma != null || vega != null;
+    final boolean needDensity = gamma != null || vega != null;
+    for (int i = 0; i < n; i++) {
+      final double spot = spots[i];
+      final double strike = strikes[i];
+      final double timeToExpiry = timesToExpiry[i];
+      final double lognormalVol = lognormalVols[i];
+      final double interestRate = interestRates[i];
+      final double costOfCarry = costsOfCarry[i];
+      final double rootT = Math.sqrt(timeToExpiry);
+      final double sigmaRootT = lognormalVol * rootT;
+      // Written so that NaN inputs fail the test
+      if (!(spot > 0. && spot <= LARGE && strike > 0. && strike <= LARGE && spot <= LARGE * strike && spot >= SMALL * strike && strike <= LARGE * spot
+          && timeToExpiry <= LARGE && sigmaRootT >= SMALL && sigmaRootT <= LARGE && Math.abs(interestRate) <= LARGE && Math.abs(costOfCarry) <= LARGE
+          && Math.abs(costOfCarry - interestRate) <= LARGE)) {
+        priceAndGreeksScalar(spot, strike, timeToExpiry, lognormalVol, interestRate, costOfCarry, isCall[i], i, price, delta, dualDelta, gamma, vega);
+        continue;
+      }
+      final double sign = isCall[i] ? 1. : -1.;
+      final double d1 = (Math.abs(spot - strike) < SMALL ? 0. : Math.log(spot / strike) / sigmaRootT) + costOfCarry * rootT / lognormalVol + 0.5 * sigmaRootT;
+      final double d2 = d1 - sigmaRootT;
+      final double nD1 = needD1 ? FastNormalDistribution.getCDF(sign * d1) : 0.;
+      final double nD2 = needD2 ? FastNormalDistribution.getCDF(sign * d2) : 0.;
+      final double coef = needCoef ? (Math.abs(costOfCarry - interestRate) < SMALL ? 1. : Math.exp((costOfCarry - interestRate) * timeToExpiry)) : 0.;
+      if (price != null) {
+        final double discount = Math.abs(interestRate) < SMALL ? 1. : Math.exp(-interestRate * timeToExpiry);
+        final double res = sign * discount * (Math.exp(costOfCarry * timeToExpiry) * spot * nD1 - strike * nD2);
+        price[i] = Double.isNaN(res) ? 0. : Math.max(res, 0.);
+      }
+      if (delta != null) {
+        delta[i] = nD1 < SMALL ? 0. : sign * coef * nD1;
+      }
+      if (dualDelta != null) {
+        dualDelta[i] = nD2 < SMALL ? 0. : -sign * Math.exp(-interestRate * timeToExpiry) * nD2;
+      }
+      if (needDensity) {
+        final double nVal = FastNormalDistribution.getPDF(d1);
+        if (gamma != null) {
+          gamma[i] = nVal < SMALL ? 0. : coef * nVal / spot / sigmaRootT;
+        }
+        if (vega != null) {
+          vega[i] = nVal < SMALL ? 0. : coef * nVal * spot * rootT;
+        }
+      }
+    }
+  }
+
+  private static void priceAndGreeksScalar(final double spot, final double strike, final double timeToExpiry, final double lognormalVol, final double interestRate,
+      final double costOfCarry, final boolean isCall, final int i, final double[] price, final double[] delta, final double[] dualDelta, final double[] gamma,
+      final double[] vega) {
+    if (price != null) {
+      price[i] = price(spot, strike, timeToExpiry, lognormalVol, interestRate, costOfCarry, isCall);
+    }
+    if (delta != null) {
+      delta[i] = delta(spot, strike, timeToExpiry, lognormalVol, interestRate, costOfCarry, isCall);
+    }
+    if (dualDelta != null) {
+      dualDelta[i] = dualDelta(spot, strike, timeToExpiry, lognormalVol, interestRate, costOfCarry, isCall);
+    }
+    if (gamma != null) {
+      gamma[i] = gamma(spot, strike, timeToExpiry, lognormalVol, interestRate, costOfCarry);
+    }
+    if (vega != null) {
+      vega[i] = vega(spot, strike, timeToExpiry, lognormalVol, interestRate, costOfCarry);
+    }
+  }
+
   /**
   * The spot delta
   * @param spot The spot value of the underlying
@@ -5,6 +5,8 @@
  */
 package com.opengamma.analytics.financial.montecarlo.provider;
 
+import java.util.concurrent.ForkJoinPool;
+
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
 import com.opengamma.analytics.financial.model.interestrate.G2ppPiecewiseConstantModel;
 import com.opengamma.analytics.financial.model.interestrate.definition.G2ppPiecewiseConstantParameters;
@@ -17,6 +19,7 @@ import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionCommons;
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionResult;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
+import com.opengamma.analytics.math.random.RandomNumberStreams;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.MultipleCurrencyAmount;
 
@@ -59,6 +62,17 @@ public class G2ppMonteCarloMethod extends MonteCarloMethod {
     super(numberGenerator, nbPath);
   }
 
+  /**
+   * Constructor with one random number stream per block of paths. The blocks are run in the fork-join pool if one is provided.
+   * The result does not depend on the number of threads.
+   * @param numberStreams The random number streams.
+   * @param nbPath The number of paths.
+   * @param pool The fork-join pool, null to run the blocks in the calling thread.
+   */
+  public G2ppMonteCarloMethod(final RandomNumberStreams numberStreams, final int nbPath, final ForkJoinPool pool) {
+    super(numberStreams, nbPath, pool);
+  }
+
   /**
    * Computes the present value in the G2++ two factors model by Monte-Carlo.
    * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The Monte Carlo is run on each block and the average of each
@@ -69,8 +83,8 @@ public class G2ppMonteCarloMethod extends MonteCarloMethod {
    * @return The present value.
    */
   public MultipleCurrencyAmount presentValue(final InstrumentDerivative instrument, final Currency ccy, final G2ppProviderInterface g2Data) {
-    MulticurveProviderInterface multicurves = g2Data.getMulticurveProvider();
-    G2ppPiecewiseConstantParameters parameters = g2Data.getG2ppParameters();
+    final MulticurveProviderInterface multicurves = g2Data.getMulticurveProvider();
+    final G2ppPiecewiseConstantParameters parameters = g2Data.getG2ppParameters();
     final DecisionSchedule decision = instrument.accept(DC, multicurves);
     final double[] decisionTime = decision.getDecisionTime();
     final double[][] impactTime = decision.getImpactTime();
@@ -119,45 +133,26 @@ public class G2ppMonteCarloMethod extends MonteCarloMethod {
     final CholeskyDecompositionCommons cd = new CholeskyDecompositionCommons();
     final CholeskyDecompositionResult cdr = cd.evaluate(new DoubleMatrix2D(cov));
     final double[][] covCD = cdr.getL().getData();
-    final int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    final int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
-    }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
     final double[][] impactAmount = decision.getImpactAmount();
-    double pv = 0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      final double[][] x = getNormalArray(2 * nbJump, nbPath2[loopblock]);
-      final double[][] y = new double[2 * nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < 2 * nbJump; i++) {
-          for (int j = 0; j < 2 * nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
+    double pv = evaluateBlocks(BLOCK_SIZE, 2 * nbJump, new BlockEvaluator() {
+      @Override
+      public double evaluate(final double[][] x, final int nbPath) {
+        final double[][] y = new double[2 * nbJump][nbPath]; // jump/path
+        for (int looppath = 0; looppath < nbPath; looppath++) {
+          for (int i = 0; i < 2 * nbJump; i++) {
+            for (int j = 0; j < 2 * nbJump; j++) {
+              y[i][looppath] += x[j][looppath] * covCD[i][j];
+            }
           }
         }
+        final Double[][][] pD = pathGeneratorDiscount(pDI, y, h, tau2);
+        return instrument.accept(MCC, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPath;
       }
-      final Double[][][] pD = pathGeneratorDiscount(pDI, y, h, tau2);
-      pv += instrument.accept(MCC, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPath2[loopblock];
-    }
+    });
     pv *= pDN / getNbPath(); // Multiply by the numeraire.
     return MultipleCurrencyAmount.of(ccy, pv);
   }
 
-  /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
-   * @param nbPath The number of paths.
-   * @return The array of variables.
-   */
-  private double[][] getNormalArray(final int nbJump, final int nbPath) {
-    final double[][] result = new double[nbJump][nbPath];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
-    }
-    return result;
-  }
-
   /**
    * Construct the discount factors on the simulated paths from the random variables and the model constants.
    * @param initDiscountFactor The initial discount factors. jump/cf
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
 import com.opengamma.analytics.financial.model.interestrate.HullWhiteOneFactorPiecewiseConstantInterestRateModel;
@@ -25,7 +26,9 @@ import com.opengamma.analytics.financial.provider.sensitivity.multicurve.Multipl
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionCommons;
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionResult;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.random.BrownianBridge;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
+import com.opengamma.analytics.math.random.RandomNumberStreams;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.MultipleCurrencyAmount;
 import com.opengamma.util.tuple.DoublesPair;
@@ -69,6 +72,17 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     super(numberGenerator, nbPath);
   }
 
+  /**
+   * Constructor with one random number stream per block of paths. The blocks are run in the fork-join pool if one is provided.
+   * The result does not depend on the number of threads.
+   * @param numberStreams The random number streams.
+   * @param nbPath The number of paths.
+   * @param pool The fork-join pool, null to run the blocks in the calling thread.
+   */
+  public HullWhiteMonteCarloMethod(final RandomNumberStreams numberStreams, final int nbPath, final ForkJoinPool pool) {
+    super(numberStreams, nbPath, pool);
+  }
+
   /**
    * Computes the present value in the Hull-White one factor model by Monte-Carlo.
    * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The Monte Carlo is run on each block and the average of each
@@ -136,27 +150,16 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         covCD[loopjump + nbZero][loopjump2 + nbZero] = covCD2[loopjump][loopjump2];
       }
     }
-    final int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    final int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
-    }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
+    final BrownianBridge bridge = isQuasiRandom() ? new BrownianBridge(gamma) : null;
     final double[][] impactAmount = decision.getImpactAmount();
-    double pv = 0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      final double[][] x = getNormalArray(nbJump, nbPath2[loopblock]);
-      final double[][] y = new double[nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < nbJump; i++) {
-          for (int j = 0; j < nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
-          }
-        }
+    double pv = evaluateBlocks(BLOCK_SIZE, nbJump, new BlockEvaluator() {
+      @Override
+      public double evaluate(final double[][] x, final int nbPath) {
+        final double[][] y = correlate(x, covCD, bridge, nbPath);
+        final Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
+        return instrument.accept(MCC, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPath;
       }
-      final Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
-      pv += instrument.accept(MCC, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPath2[loopblock];
-    }
+    });
     pv *= pDN / getNbPath(); // Multiply by the numeraire.
     return MultipleCurrencyAmount.of(ccy, pv);
   }
@@ -228,12 +231,11 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         covCD[loopjump + nbZero][loopjump2 + nbZero] = covCD2[loopjump][loopjump2];
       }
     }
-    final int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
+    final int nbBlock = getNbBlock(BLOCK_SIZE);
     final int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
+    for (int i = 0; i < nbBlock; i++) {
+      nbPath2[i] = getNbPathBlock(BLOCK_SIZE, i);
     }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
     final double[][] impactAmount = decision.getImpactAmount();
     double pv = 0;
     final double[] pvBlock = new double[nbBlock];
@@ -252,16 +254,11 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       pDIBar[loopjump] = new double[impactAmount[loopjump].length];
     }
+    final BrownianBridge bridge = isQuasiRandom() ? new BrownianBridge(gamma) : null;
+    final double[][] x = new double[nbJump][BLOCK_SIZE];
     for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      final double[][] x = getNormalArray(nbJump, nbPath2[loopblock]);
-      final double[][] y = new double[nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < nbJump; i++) {
-          for (int j = 0; j < nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
-          }
-        }
-      }
+      fillNormalArray(x, loopblock, nbPath2[loopblock]);
+      final double[][] y = correlate(x, covCD, bridge, nbPath2[loopblock]);
       final Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
       final MonteCarloDiscountFactorDerivativeDataBundle mcdDB = new MonteCarloDiscountFactorDerivativeDataBundle(pD, impactAmount);
       pvBlock[loopblock] = instrument.accept(MCDC, mcdDB) * nbPath2[loopblock];
@@ -321,17 +318,40 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
   }
 
   /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
+   * Correlates independent normally distributed variables with the lower triangular Cholesky decomposition of the covariance.
+   * When a Brownian bridge is provided, it is used instead of the Cholesky decomposition; the covariance between jumps i and j is
+   * gamma[min(i,j)] so that the correlated variables are a Brownian motion with the gammas as times.
+   * @param x The independent variables. jump/path. Only the first nbPath columns are used.
+   * @param covCD The Cholesky decomposition of the covariance.
+   * @param bridge The Brownian bridge on the gammas. Null to use the Cholesky decomposition.
    * @param nbPath The number of paths.
-   * @return The array of variables.
+   * @return The correlated variables. jump/path
    */
-  private double[][] getNormalArray(final int nbJump, final int nbPath) {
-    final double[][] result = new double[nbJump][nbPath];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
+  private static double[][] correlate(final double[][] x, final double[][] covCD, final BrownianBridge bridge, final int nbPath) {
+    final int nbJump = covCD.length;
+    final double[][] y = new double[nbJump][nbPath];
+    if (bridge != null) {
+      final double[] z = new double[nbJump];
+      final double[] w = new double[nbJump];
+      for (int looppath = 0; looppath < nbPath; looppath++) {
+        for (int i = 0; i < nbJump; i++) {
+          z[i] = x[i][looppath];
+        }
+        bridge.path(z, w);
+        for (int i = 0; i < nbJump; i++) {
+          y[i][looppath] = w[i];
+        }
+      }
+      return y;
+    }
+    for (int looppath = 0; looppath < nbPath; looppath++) {
+      for (int i = 0; i < nbJump; i++) {
+        for (int j = 0; j < nbJump; j++) {
+          y[i][looppath] += x[j][looppath] * covCD[i][j];
+        }
+      }
     }
-    return result;
+    return y;
   }
 
   /**
@@ -6,6 +6,7 @@
 package com.opengamma.analytics.financial.montecarlo.provider;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
 import com.opengamma.analytics.financial.model.interestrate.definition.LiborMarketModelDisplacedDiffusionParameters;
@@ -16,7 +17,9 @@ import com.opengamma.analytics.financial.provider.description.interestrate.Multi
 import com.opengamma.analytics.math.matrix.CommonsMatrixAlgebra;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.analytics.math.random.BrownianBridge;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
+import com.opengamma.analytics.math.random.RandomNumberStreams;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.MultipleCurrencyAmount;
 
@@ -68,6 +71,19 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
     _maxJump = maxJump;
   }
 
+  /**
+   * Constructor with one random number stream per block of paths. The blocks are run in the fork-join pool if one is provided.
+   * The result does not depend on the number of threads.
+   * @param numberStreams The random number streams. Generate Normally distributed numbers.
+   * @param nbPath The number of paths.
+   * @param maxJump The maximum length of a jump in the path generation.
+   * @param pool The fork-join pool, null to run the blocks in the calling thread.
+   */
+  public LiborMarketModelMonteCarloMethod(final RandomNumberStreams numberStreams, final int nbPath, final double maxJump, final ForkJoinPool pool) {
+    super(numberStreams, nbPath, pool);
+    _maxJump = maxJump;
+  }
+
   public MultipleCurrencyAmount presentValue(final InstrumentDerivative instrument, final Currency ccy, final LiborMarketModelDisplacedDiffusionProvider lmmData) {
     final MulticurveProviderInterface multicurves = lmmData.getMulticurveProvider();
     final LiborMarketModelDisplacedDiffusionParameters parameters = lmmData.getLMMParameters();
@@ -86,24 +102,53 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
       initL[loopper] = (dfL[loopper] / dfL[loopper + 1] - 1.0) / deltaLMM[loopper];
     }
 
-    final int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    final int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
+    final double[][] jumpIn = jumpTimes(decision.getDecisionTime());
+    int nbJumpIn = 0;
+    for (final double[] jumpTimes : jumpIn) {
+      nbJumpIn += jumpTimes.length - 1;
     }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-
-    double price = 0.0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      final double[][] initLPath = new double[nbPeriodLMM][nbPath2[loopblock]];
-      for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
-        for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-          initLPath[loopper][looppath] = initL[loopper];
+    final int nbFactor = parameters.getNbFactor();
+    final BrownianBridge bridge;
+    if (isQuasiRandom()) {
+      final double[] bridgeTime = new double[nbJumpIn];
+      int loopin = 0;
+      for (final double[] jumpTimes : jumpIn) {
+        for (int loopt = 1; loopt < jumpTimes.length; loopt++) {
+          bridgeTime[loopin++] = jumpTimes[loopt];
         }
       }
-      final double[][][] pathIbor = pathgeneratorlibor(decision.getDecisionTime(), initLPath, parameters);
-      price += instrument.accept(MCC, new MonteCarloIborRateDataBundle(pathIbor, deltaLMM, decision.getImpactAmount(), impactIndex));
+      bridge = new BrownianBridge(bridgeTime);
+    } else {
+      bridge = null;
     }
+    double price = evaluateBlocks(BLOCK_SIZE, nbJumpIn * nbFactor, new BlockEvaluator() {
+      @Override
+      public double evaluate(final double[][] normals, final int nbPath) {
+        if (bridge != null) {
+          // The bridge gives, for each factor, the Brownian increments on each jump from the quasi-random variables.
+          final double[] z = new double[bridge.getSize()];
+          for (int looppath = 0; looppath < nbPath; looppath++) {
+            for (int loopfact = 0; loopfact < nbFactor; loopfact++) {
+              for (int loopin = 0; loopin < z.length; loopin++) {
+                z[loopin] = normals[loopin * nbFactor + loopfact][looppath];
+              }
+              bridge.increments(z, z);
+              for (int loopin = 0; loopin < z.length; loopin++) {
+                normals[loopin * nbFactor + loopfact][looppath] = z[loopin];
+              }
+            }
+          }
+        }
+        final double[][] initLPath = new double[nbPeriodLMM][nbPath];
+        for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
+          for (int looppath = 0; looppath < nbPath; looppath++) {
+            initLPath[loopper][looppath] = initL[loopper];
+          }
+        }
+        final double[][][] pathIbor = pathgeneratorlibor(jumpIn, initLPath, parameters, normals);
+        return instrument.accept(MCC, new MonteCarloIborRateDataBundle(pathIbor, deltaLMM, decision.getImpactAmount(), impactIndex));
+      }
+    });
     price *= multicurves.getDiscountFactor(ccy, parameters.getIborTime()[parameters.getIborTime().length - 1]) / getNbPath();
     return MultipleCurrencyAmount.of(ccy, price);
   }
@@ -123,9 +168,13 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
    * Create one step in the LMM diffusion. The step is done through several jump times. The diffusion is approximated with a predictor-corrector approach.
    * @param jumpTime The jump times.
    * @param initIbor Rate at the start of the period. Size: nbPeriodLMM x nbPath.
+   * @param lmm The LMM parameters.
+   * @param normals The independent normal variables. Size: (nbJumpIn x nbFactorLMM) x nbPath.
+   * @param firstRow The row of the normal variables used for the first jump.
    * @return The Ibor rates at the end of the jump period. Size: nbPeriodLMM x nbPath.
    */
-  private double[][] stepPC(final double[] jumpTime, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm) {
+  private double[][] stepPC(final double[] jumpTime, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm, final double[][] normals,
+      final int firstRow) {
     final double amr = lmm.getMeanReversion();
     final double[] iborTime = lmm.getIborTime();
     final double[] almm = lmm.getDisplacement();
@@ -164,7 +213,7 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
       }
       final DoubleMatrix2D salpha2 = new DoubleMatrix2D(salpha2Array);
       // Random seed
-      final double[][] dw = getNormalArray(nbFactorLMM, nbPath);
+      final double[][] dw = Arrays.copyOfRange(normals, firstRow + loopjump * nbFactorLMM, firstRow + (loopjump + 1) * nbFactorLMM);
       // Common figures
       final double[] dr1 = new double[nI];
       for (int loopn = 0; loopn < nI; loopn++) {
@@ -213,57 +262,57 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
   }
 
   /**
-   *
+   * Computes the intermediary jump times between the mandatory jumps. The gap between two jumps is at most the maximum jump length.
    * @param jumpTime The time of the mandatory jumps.
-   * @param initIbor The Ibor rates at the start. nbPeriodLMM x nbPath
-   * @param lmm The LMM parameters.
-   * @return The paths. Size: nbJump x nbPeriodLMM x nbPath
+   * @return For each mandatory jump, the start time and the intermediary jump times up to the mandatory jump time.
    */
-  private double[][][] pathgeneratorlibor(final double[] jumpTime, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm) {
-    final int nbPeriod = initIbor.length;
-    final int nbPath = initIbor[0].length;
+  private double[][] jumpTimes(final double[] jumpTime) {
     final int nbJump = jumpTime.length;
-    double[][] initTmp = new double[nbPeriod][nbPath];
-    for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
-      System.arraycopy(initIbor[loop1], 0, initTmp[loop1], 0, nbPath);
-    }
     final double[] jumpTimeA = new double[nbJump + 1];
     jumpTimeA[0] = 0;
     System.arraycopy(jumpTime, 0, jumpTimeA, 1, nbJump);
-    final double[][][] result = new double[nbJump][nbPeriod][nbPath];
-    // TODO: add intermediary jump dates if necessary
+    final double[][] jumpIn = new double[nbJump][];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      // Intermediary jumps
-      double[] jumpIn;
       if (jumpTimeA[loopjump + 1] - jumpTimeA[loopjump] < _maxJump) {
-        jumpIn = new double[] {jumpTimeA[loopjump], jumpTimeA[loopjump + 1]};
+        jumpIn[loopjump] = new double[] {jumpTimeA[loopjump], jumpTimeA[loopjump + 1]};
       } else {
         final double jump = jumpTimeA[loopjump + 1] - jumpTimeA[loopjump];
         final int nbJumpIn = (int) Math.ceil(jump / _maxJump);
-        jumpIn = new double[nbJumpIn + 1];
-        jumpIn[0] = jumpTimeA[loopjump];
+        jumpIn[loopjump] = new double[nbJumpIn + 1];
+        jumpIn[loopjump][0] = jumpTimeA[loopjump];
         for (int loopJumpIn = 1; loopJumpIn <= nbJumpIn; loopJumpIn++) {
-          jumpIn[loopJumpIn] = jumpTimeA[loopjump] + loopJumpIn * jump / nbJumpIn;
+          jumpIn[loopjump][loopJumpIn] = jumpTimeA[loopjump] + loopJumpIn * jump / nbJumpIn;
         }
       }
-      initTmp = stepPC(jumpIn, initTmp, lmm);
-      for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
-        System.arraycopy(initTmp[loop1], 0, result[loopjump][loop1], 0, nbPath);
-      }
     }
-    return result;
+    return jumpIn;
   }
 
   /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
-   * @param nbPath The number of paths.
-   * @return The array of variables.
+   *
+   * @param jumpIn The start time and the intermediary jump times for each mandatory jump. See {@link #jumpTimes(double[])}.
+   * @param initIbor The Ibor rates at the start. nbPeriodLMM x nbPath
+   * @param lmm The LMM parameters.
+   * @param normals The independent normal variables, nbFactorLMM rows for each intermediary jump. Only the first nbPath columns are used.
+   * @return The paths. Size: nbJump x nbPeriodLMM x nbPath
    */
-  private double[][] getNormalArray(final int nbJump, final int nbPath) {
-    final double[][] result = new double[nbJump][nbPath];
+  private double[][][] pathgeneratorlibor(final double[][] jumpIn, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm, final double[][] normals) {
+    final int nbPeriod = initIbor.length;
+    final int nbPath = initIbor[0].length;
+    final int nbJump = jumpIn.length;
+    final int nbFactor = lmm.getNbFactor();
+    double[][] initTmp = new double[nbPeriod][nbPath];
+    for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
+      System.arraycopy(initIbor[loop1], 0, initTmp[loop1], 0, nbPath);
+    }
+    final double[][][] result = new double[nbJump][nbPeriod][nbPath];
+    int row = 0;
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
+      initTmp = stepPC(jumpIn[loopjump], initTmp, lmm, normals, row);
+      row += (jumpIn[loopjump].length - 1) * nbFactor;
+      for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
+        System.arraycopy(initTmp[loop1], 0, result[loopjump][loop1], 0, nbPath);
+      }
     }
     return result;
   }
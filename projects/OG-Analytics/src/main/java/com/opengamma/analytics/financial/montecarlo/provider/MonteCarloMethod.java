@@ -1,21 +1,45 @@
 /**
  * Copyright (C) 2011 - present by OpenGamma Inc. and the OpenGamma group of companies
- * 
+ *
  * Please see distribution for license.
  */
 package com.opengamma.analytics.financial.montecarlo.provider;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.opengamma.analytics.math.random.NormalRandomNumberGenerator;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
+import com.opengamma.analytics.math.random.RandomNumberStreams;
+import com.opengamma.analytics.math.random.SobolRandomNumberGenerator;
+import com.opengamma.analytics.math.random.SobolRandomNumberStreams;
+import com.opengamma.util.ArgumentChecker;
 
 /**
  * Generic Monte-Carlo pricing method.
+ * <p>
+ * The paths are simulated by blocks. The method can be constructed either with a single random number generator, in which case the
+ * blocks are simulated one after the other from that generator, or with a family of random number streams, in which case each block
+ * draws its random numbers from its own stream. In the latter case the blocks can be run in parallel in a fork-join pool and the
+ * result does not depend on the number of threads: the block results are always added in the block order.
+ * <p>
+ * The random numbers can be pseudo-random or quasi-random (Sobol sequence). With quasi-random numbers each path is one point of the
+ * low discrepancy sequence and the subclasses construct the paths with a Brownian bridge where the model allows it.
  */
 public abstract class MonteCarloMethod {
 
   /**
-   * The random number generator.
+   * The random number generator. Null when the method is constructed with random number streams.
    */
   private final RandomNumberGenerator _numberGenerator;
+  /**
+   * The random number streams, one per block. Null when the method is constructed with a single generator.
+   */
+  private final RandomNumberStreams _numberStreams;
+  /**
+   * The fork-join pool used to run the blocks. Null to run the blocks in the calling thread.
+   */
+  private final ForkJoinPool _pool;
   /**
    * The number of paths.
    */
@@ -28,17 +52,49 @@ public abstract class MonteCarloMethod {
    */
   public MonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath) {
     _numberGenerator = numberGenerator;
+    _numberStreams = null;
+    _pool = null;
+    _nbPath = nbPath;
+  }
+
+  /**
+   * Constructor with one random number stream per block.
+   * @param numberStreams The random number streams, not null.
+   * @param nbPath The number of paths.
+   * @param pool The fork-join pool used to run the blocks, null to run them in the calling thread.
+   */
+  public MonteCarloMethod(RandomNumberStreams numberStreams, int nbPath, ForkJoinPool pool) {
+    ArgumentChecker.notNull(numberStreams, "random number streams");
+    _numberGenerator = null;
+    _numberStreams = numberStreams;
+    _pool = pool;
     _nbPath = nbPath;
   }
 
   /**
    * Gets the _numberGenerator field.
-   * @return the _numberGenerator
+   * @return the _numberGenerator, null when the method uses random number streams
    */
   public RandomNumberGenerator getNumberGenerator() {
     return _numberGenerator;
   }
 
+  /**
+   * Gets the _numberStreams field.
+   * @return the _numberStreams, null when the method uses a single random number generator
+   */
+  public RandomNumberStreams getNumberStreams() {
+    return _numberStreams;
+  }
+
+  /**
+   * Gets the _pool field.
+   * @return the _pool, null when the blocks are run in the calling thread
+   */
+  public ForkJoinPool getPool() {
+    return _pool;
+  }
+
   /**
    * Gets the _nbPath field.
    * @return the _nbPath
@@ -47,4 +103,153 @@ public abstract class MonteCarloMethod {
     return _nbPath;
   }
 
+  /**
+   * Returns true if the normal variables are quasi-random. The first dimensions of each path are then more uniformly distributed than
+   * the last ones and the paths should be constructed with a {@link com.opengamma.analytics.math.random.BrownianBridge}.
+   * @return True if the normal variables are quasi-random.
+   */
+  protected boolean isQuasiRandom() {
+    return (_numberGenerator instanceof SobolRandomNumberGenerator) || (_numberStreams instanceof SobolRandomNumberStreams);
+  }
+
+  /**
+   * Returns the number of blocks used to simulate all the paths.
+   * @param blockSize The maximum number of paths in one block.
+   * @return The number of blocks.
+   */
+  protected int getNbBlock(final int blockSize) {
+    return (int) Math.round(Math.ceil(_nbPath / ((double) blockSize)));
+  }
+
+  /**
+   * Returns the number of paths in a given block. All the blocks are full except the last one.
+   * @param blockSize The maximum number of paths in one block.
+   * @param blockIndex The block index.
+   * @return The number of paths.
+   */
+  protected int getNbPathBlock(final int blockSize, final int blockIndex) {
+    return Math.min(blockSize, _nbPath - blockIndex * blockSize);
+  }
+
+  /**
+   * Fills the first nbPath columns of an array with independent normally distributed variables.
+   * The rows are filled one after the other. With a single generator the numbers are the continuation of the generator sequence;
+   * with random number streams they are the start of the block stream. With a quasi-random generator the columns are filled one after
+   * the other, each column being one point of the low discrepancy sequence.
+   * @param normals The array to fill. dimension/path.
+   * @param blockIndex The block index.
+   * @param nbPath The number of paths in the block.
+   */
+  protected void fillNormalArray(final double[][] normals, final int blockIndex, final int nbPath) {
+    final RandomNumberGenerator generator = (_numberStreams == null) ? _numberGenerator : _numberStreams.getStream(blockIndex);
+    if (generator instanceof SobolRandomNumberGenerator) {
+      // One low discrepancy point per path
+      final SobolRandomNumberGenerator sobol = (SobolRandomNumberGenerator) generator;
+      final double[] point = new double[normals.length];
+      for (int looppath = 0; looppath < nbPath; looppath++) {
+        sobol.fill(point);
+        for (int loopdim = 0; loopdim < normals.length; loopdim++) {
+          normals[loopdim][looppath] = point[loopdim];
+        }
+      }
+    } else if (generator instanceof NormalRandomNumberGenerator) {
+      final NormalRandomNumberGenerator normal = (NormalRandomNumberGenerator) generator;
+      for (final double[] row : normals) {
+        normal.fill(row, 0, nbPath);
+      }
+    } else {
+      for (final double[] row : normals) {
+        System.arraycopy(generator.getVector(nbPath), 0, row, 0, nbPath);
+      }
+    }
+  }
+
+  /**
+   * Simulates all the blocks and returns the sum of the block values.
+   * <p>
+   * Each block receives an array of independent normal variables of size dimension x blockSize of which only the first nbPath columns
+   * are meaningful. The array is reused between blocks and must not be kept by the evaluator. When a fork-join pool is available and
+   * the method uses random number streams, the blocks are run in parallel; the block values are then added in the block order, so
+   * the result is the same as in the calling thread.
+   * @param blockSize The maximum number of paths in one block.
+   * @param dimension The number of normal variables per path.
+   * @param evaluator The block evaluator.
+   * @return The sum of the block values.
+   */
+  protected double evaluateBlocks(final int blockSize, final int dimension, final BlockEvaluator evaluator) {
+    final int nbBlock = getNbBlock(blockSize);
+    final double[] values = new double[nbBlock];
+    final BlockTask task = new BlockTask(blockSize, dimension, evaluator, values, 0, nbBlock);
+    if (_numberStreams != null && _pool != null && nbBlock > 1) {
+      _pool.invoke(task);
+    } else {
+      task.compute();
+    }
+    double sum = 0.0;
+    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
+      sum += values[loopblock];
+    }
+    return sum;
+  }
+
+  /**
+   * The valuation of one block of paths.
+   */
+  protected interface BlockEvaluator {
+
+    /**
+     * Computes the value of one block of paths.
+     * @param normals The independent normal variables. dimension/path. Only the first nbPath columns are used. Can be modified.
+     * @param nbPath The number of paths in the block.
+     * @return The block value.
+     */
+    double evaluate(double[][] normals, int nbPath);
+
+  }
+
+  /**
+   * Task simulating a range of blocks. The range is split in two until it is small enough; each leaf allocates one array of normal
+   * variables and reuses it for all its blocks.
+   */
+  private final class BlockTask extends RecursiveAction {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    private final int _blockSize;
+    private final int _dimension;
+    private final BlockEvaluator _evaluator;
+    private final double[] _values;
+    private final int _from;
+    private final int _to;
+
+    BlockTask(final int blockSize, final int dimension, final BlockEvaluator evaluator, final double[] values, final int from, final int to) {
+      _blockSize = blockSize;
+      _dimension = dimension;
+      _evaluator = evaluator;
+      _values = values;
+      _from = from;
+      _to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (_pool != null && _to - _from > 1 && inForkJoinPool()) {
+        final int threshold = Math.max(1, _values.length / (4 * _pool.getParallelism()));
+        if (_to - _from > threshold) {
+          final int middle = (_from + _to) >>> 1;
+          invokeAll(new BlockTask(_blockSize, _dimension, _evaluator, _values, _from, middle), new BlockTask(_blockSize, _dimension, _evaluator, _values, middle, _to));
+          return;
+        }
+      }
+      final double[][] normals = new double[_dimension][_blockSize];
+      for (int loopblock = _from; loopblock < _to; loopblock++) {
+        final int nbPath = getNbPathBlock(_blockSize, loopblock);
+        fillNormalArray(normals, loopblock, nbPath);
+        _values[loopblock] = _evaluator.evaluate(normals, nbPath);
+      }
+    }
+
+  }
+
 }
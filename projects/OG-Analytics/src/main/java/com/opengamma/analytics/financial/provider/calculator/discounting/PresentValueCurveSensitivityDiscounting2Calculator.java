@@ -5,9 +5,13 @@
  */
 package com.opengamma.analytics.financial.provider.calculator.discounting;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivativeVisitorAdapter;
 import com.opengamma.analytics.financial.interestrate.annuity.derivative.Annuity;
 import com.opengamma.analytics.financial.interestrate.annuity.derivative.AnnuityCouponFixed;
+import com.opengamma.analytics.financial.interestrate.annuity.derivative.AnnuityCouponIborRatchet;
 import com.opengamma.analytics.financial.interestrate.payments.derivative.CouponONArithmeticAverage;
 import com.opengamma.analytics.financial.interestrate.payments.derivative.CouponONArithmeticAverageSpread;
 import com.opengamma.analytics.financial.interestrate.payments.derivative.Payment;
@@ -71,11 +75,11 @@ public final class PresentValueCurveSensitivityDiscounting2Calculator extends In
   public MultipleCurrencyMulticurveSensitivity visitGenericAnnuity(final Annuity<? extends Payment> annuity, final ParameterProviderInterface multicurve) {
     ArgumentChecker.notNull(annuity, "Annuity");
     ArgumentChecker.notNull(multicurve, "multicurve");
-    MultipleCurrencyMulticurveSensitivity cs = annuity.getNthPayment(0).accept(this, multicurve);
-    for (int loopp = 1; loopp < annuity.getNumberOfPayments(); loopp++) {
-      cs = cs.plus(annuity.getNthPayment(loopp).accept(this, multicurve));
+    final List<MultipleCurrencyMulticurveSensitivity> cs = new ArrayList<>(annuity.getNumberOfPayments());
+    for (int loopp = 0; loopp < annuity.getNumberOfPayments(); loopp++) {
+      cs.add(annuity.getNthPayment(loopp).accept(this, multicurve));
     }
-    return cs;
+    return MultipleCurrencyMulticurveSensitivity.plus(cs);
   }
 
   @Override
@@ -87,9 +91,10 @@ public final class PresentValueCurveSensitivityDiscounting2Calculator extends In
 
   @Override
   public MultipleCurrencyMulticurveSensitivity visitSwap(final Swap<?, ?> swap, final ParameterProviderInterface multicurve) {
-    final MultipleCurrencyMulticurveSensitivity sensitivity1 = swap.getFirstLeg().accept(this, multicurve);
-    final MultipleCurrencyMulticurveSensitivity sensitivity2 = swap.getSecondLeg().accept(this, multicurve);
-    return sensitivity1.plus(sensitivity2);
+    final LegSensitivities legs = new LegSensitivities();
+    swap.getFirstLeg().accept(legs, multicurve);
+    swap.getSecondLeg().accept(legs, multicurve);
+    return MultipleCurrencyMulticurveSensitivity.plus(legs.getSensitivities());
   }
 
   @Override
@@ -97,4 +102,37 @@ public final class PresentValueCurveSensitivityDiscounting2Calculator extends In
     return visitSwap(swap, multicurve);
   }
 
+  /**
+   * Collects the sensitivities of the payments of the legs of a swap, so that the payments of all the legs are accumulated once for the swap rather than
+   * once per leg and again for the swap. A leg whose sensitivity is not the sum of its payments, such as a ratchet annuity, is visited as a whole.
+   */
+  private final class LegSensitivities extends InstrumentDerivativeVisitorAdapter<ParameterProviderInterface, Void> {
+
+    private final List<MultipleCurrencyMulticurveSensitivity> _sensitivities = new ArrayList<>();
+
+    public List<MultipleCurrencyMulticurveSensitivity> getSensitivities() {
+      return _sensitivities;
+    }
+
+    @Override
+    public Void visitGenericAnnuity(final Annuity<? extends Payment> annuity, final ParameterProviderInterface multicurve) {
+      for (int loopp = 0; loopp < annuity.getNumberOfPayments(); loopp++) {
+        _sensitivities.add(annuity.getNthPayment(loopp).accept(PresentValueCurveSensitivityDiscounting2Calculator.this, multicurve));
+      }
+      return null;
+    }
+
+    @Override
+    public Void visitFixedCouponAnnuity(final AnnuityCouponFixed annuity, final ParameterProviderInterface multicurve) {
+      return visitGenericAnnuity(annuity, multicurve);
+    }
+
+    @Override
+    public Void visitAnnuityCouponIborRatchet(final AnnuityCouponIborRatchet annuity, final ParameterProviderInterface multicurve) {
+      _sensitivities.add(annuity.accept(PresentValueCurveSensitivityDiscounting2Calculator.this, multicurve));
+      return null;
+    }
+
+  }
+
 }
@@ -5,6 +5,9 @@
  */
 package com.opengamma.analytics.financial.provider.calculator.discounting;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.opengamma.analytics.financial.forex.derivative.Forex;
 import com.opengamma.analytics.financial.forex.derivative.ForexSwap;
 import com.opengamma.analytics.financial.forex.provider.ForexDiscountingMethod;
@@ -12,6 +15,7 @@ import com.opengamma.analytics.financial.forex.provider.ForexSwapDiscountingMeth
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivativeVisitorAdapter;
 import com.opengamma.analytics.financial.interestrate.annuity.derivative.Annuity;
 import com.opengamma.analytics.financial.interestrate.annuity.derivative.AnnuityCouponFixed;
+import com.opengamma.analytics.financial.interestrate.annuity.derivative.AnnuityCouponIborRatchet;
 import com.opengamma.analytics.financial.interestrate.cash.derivative.Cash;
 import com.opengamma.analytics.financial.interestrate.cash.derivative.DepositIbor;
 import com.opengamma.analytics.financial.interestrate.cash.provider.CashDiscountingMethod;
@@ -285,11 +289,11 @@ public final class PresentValueCurveSensitivityDiscountingCalculator
   public MultipleCurrencyMulticurveSensitivity visitGenericAnnuity(final Annuity<? extends Payment> annuity, final ParameterProviderInterface multicurve) {
     ArgumentChecker.notNull(annuity, "Annuity");
     ArgumentChecker.notNull(multicurve, "multicurve");
-    MultipleCurrencyMulticurveSensitivity cs = annuity.getNthPayment(0).accept(this, multicurve);
-    for (int loopp = 1; loopp < annuity.getNumberOfPayments(); loopp++) {
-      cs = cs.plus(annuity.getNthPayment(loopp).accept(this, multicurve));
+    final List<MultipleCurrencyMulticurveSensitivity> cs = new ArrayList<>(annuity.getNumberOfPayments());
+    for (int loopp = 0; loopp < annuity.getNumberOfPayments(); loopp++) {
+      cs.add(annuity.getNthPayment(loopp).accept(this, multicurve));
     }
-    return cs;
+    return MultipleCurrencyMulticurveSensitivity.plus(cs);
   }
 
   @Override
@@ -301,9 +305,10 @@ public final class PresentValueCurveSensitivityDiscountingCalculator
 
   @Override
   public MultipleCurrencyMulticurveSensitivity visitSwap(final Swap<?, ?> swap, final ParameterProviderInterface multicurve) {
-    final MultipleCurrencyMulticurveSensitivity sensitivity1 = swap.getFirstLeg().accept(this, multicurve);
-    final MultipleCurrencyMulticurveSensitivity sensitivity2 = swap.getSecondLeg().accept(this, multicurve);
-    return sensitivity1.plus(sensitivity2);
+    final LegSensitivities legs = new LegSensitivities();
+    swap.getFirstLeg().accept(legs, multicurve);
+    swap.getSecondLeg().accept(legs, multicurve);
+    return MultipleCurrencyMulticurveSensitivity.plus(legs.getSensitivities());
   }
 
   @Override
@@ -314,11 +319,11 @@ public final class PresentValueCurveSensitivityDiscountingCalculator
   @Override
   public MultipleCurrencyMulticurveSensitivity visitSwapMultileg(final SwapMultileg swap, final ParameterProviderInterface multicurve) {
     final int nbLegs = swap.getLegs().length;
-    MultipleCurrencyMulticurveSensitivity pvcs = swap.getLegs()[0].accept(this, multicurve);
-    for (int loopleg = 1; loopleg < nbLegs; loopleg++) {
-      pvcs = pvcs.plus(swap.getLegs()[loopleg].accept(this, multicurve));
+    final LegSensitivities legs = new LegSensitivities();
+    for (int loopleg = 0; loopleg < nbLegs; loopleg++) {
+      swap.getLegs()[loopleg].accept(legs, multicurve);
     }
-    return pvcs;
+    return MultipleCurrencyMulticurveSensitivity.plus(legs.getSensitivities());
   }
 
   // -----     Futures     ------
@@ -350,4 +355,37 @@ public final class PresentValueCurveSensitivityDiscountingCalculator
     return METHOD_FOREX_SWAP.presentValueCurveSensitivity(derivative, multicurves.getMulticurveProvider());
   }
 
+  /**
+   * Collects the sensitivities of the payments of the legs of a swap, so that the payments of all the legs are accumulated once for the swap rather than
+   * once per leg and again for the swap. A leg whose sensitivity is not the sum of its payments, such as a ratchet annuity, is visited as a whole.
+   */
+  private final class LegSensitivities extends InstrumentDerivativeVisitorAdapter<ParameterProviderInterface, Void> {
+
+    private final List<MultipleCurrencyMulticurveSensitivity> _sensitivities = new ArrayList<>();
+
+    public List<MultipleCurrencyMulticurveSensitivity> getSensitivities() {
+      return _sensitivities;
+    }
+
+    @Override
+    public Void visitGenericAnnuity(final Annuity<? extends Payment> annuity, final ParameterProviderInterface multicurve) {
+      for (int loopp = 0; loopp < annuity.getNumberOfPayments(); loopp++) {
+        _sensitivities.add(annuity.getNthPayment(loopp).accept(PresentValueCurveSensitivityDiscountingCalculator.this, multicurve));
+      }
+      return null;
+    }
+
+    @Override
+    public Void visitFixedCouponAnnuity(final AnnuityCouponFixed annuity, final ParameterProviderInterface multicurve) {
+      return visitGenericAnnuity(annuity, multicurve);
+    }
+
+    @Override
+    public Void visitAnnuityCouponIborRatchet(final AnnuityCouponIborRatchet annuity, final ParameterProviderInterface multicurve) {
+      _sensitivities.add(annuity.accept(PresentValueCurveSensitivityDiscountingCalculator.this, multicurve));
+      return null;
+    }
+
+  }
+
 }
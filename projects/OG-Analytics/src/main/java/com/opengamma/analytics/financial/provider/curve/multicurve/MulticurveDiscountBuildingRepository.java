@@ -8,14 +8,27 @@ package com.opengamma.analytics.financial.provider.curve.multicurve;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Multimap;
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.analytics.financial.curve.interestrate.generator.GeneratorYDCurve;
 import com.opengamma.analytics.financial.instrument.index.IborIndex;
 import com.opengamma.analytics.financial.instrument.index.IndexON;
@@ -36,6 +49,7 @@ import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.matrix.MatrixAlgebra;
 import com.opengamma.analytics.math.rootfinding.newton.BroydenVectorRootFinder;
+import com.opengamma.analytics.math.rootfinding.newton.NewtonVectorRootFinderResult;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.tuple.ObjectsPair;
@@ -48,6 +62,10 @@ import com.opengamma.util.tuple.Pairs;
 // TODO: REVIEW: Embed in a better object.
 public class MulticurveDiscountBuildingRepository {
 
+  /**
+   * The logger.
+   */
+  private static final Logger s_logger = LoggerFactory.getLogger(MulticurveDiscountBuildingRepository.class);
   /**
    * The absolute tolerance for the root finder.
    */
@@ -121,10 +139,10 @@ public class MulticurveDiscountBuildingRepository {
    * @param blockBundle
    * @param sensitivityCalculator The parameter sensitivity calculator for the value on which the calibration is done
   (usually ParSpreadMarketQuoteDiscountingProviderCalculator (recommended) or converted present value).
-   * @return The part of the inverse Jacobian matrix associated to each curve. Only the part for the curve in the current unit (not the previous units).
-   * The Jacobian matrix is the transition matrix between the curve parameters and the par spread.
+   * @return The Jacobian matrix of the unit instruments values with respect to the unit curves parameters. The part of the inverse Jacobian matrix
+   * associated to each curve of the unit is added to the block bundle.
    */
-  private void updateBlockBundle(final InstrumentDerivative[] instruments, final MulticurveProviderDiscount multicurves, final List<String> currentCurvesList,
+  private DoubleMatrix2D updateBlockBundle(final InstrumentDerivative[] instruments, final MulticurveProviderDiscount multicurves, final List<String> currentCurvesList,
       final CurveBuildingBlockBundle blockBundle, final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator) {
     // Sensitivity calculator
     final ParameterSensitivityMulticurveUnderlyingMatrixCalculator parameterSensitivityCalculator = new ParameterSensitivityMulticurveUnderlyingMatrixCalculator(sensitivityCalculator);
@@ -250,6 +268,16 @@ public class MulticurveDiscountBuildingRepository {
       blockBundle.add(name, blockOut, pDmCurveMatrix);
       loopc++;
     }
+    return new DoubleMatrix2D(direct);
+  }
+
+  /**
+   * Checks if the instruments are calibrated, i.e. if the calibration function is within the absolute tolerance of the root finder.
+   * @param values The calibration function values.
+   * @return True if the instruments are calibrated.
+   */
+  private boolean isCalibrated(final DoubleMatrix1D values) {
+    return Math.sqrt(MATRIX_ALGEBRA.getInnerProduct(values, values)) < _toleranceAbs;
   }
 
   /**
@@ -341,6 +369,32 @@ public class MulticurveDiscountBuildingRepository {
       final LinkedHashMap<String, Currency> discountingMap, final LinkedHashMap<String, IborIndex[]> forwardIborMap, final LinkedHashMap<String, IndexON[]> forwardONMap,
       final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator,
       final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator) {
+    return makeCurvesFromDerivatives(curveBundles, knownData, knownBlockBundle, discountingMap, forwardIborMap, forwardONMap, calculator, sensitivityCalculator, null);
+  }
+
+  /**
+   * Build a block of curves with a known CurveBuildingBlockBundle, incrementally from the previous calibration of the same curves.
+   * <p>
+   * For each unit of curves, if the instruments are still calibrated by the parameters of the previous calibration, the unit is not solved again and,
+   * when nothing it depends on has changed, its curve building blocks are reused. Otherwise the root finder starts from the previous parameters with the
+   * Jacobian at those parameters as initial estimate, which is then updated by rank-one (Broyden) updates. The units without a previous calibration are
+   * calibrated from the starting points of the curve bundles. The number of iterations and the time spent on each unit are available from the state.
+   * @param curveBundles The bundles of curve data used in construction.
+   * @param knownData The known data (fx rates, other curves, model parameters, ...)
+   * @param knownBlockBundle The already build CurveBuildingBlockBundle.
+   * @param discountingMap The discounting curves names map.
+   * @param forwardIborMap The forward curves names map.
+   * @param forwardONMap The forward curves names map.
+   * @param calculator The calculator of the value on which the calibration is done (usually ParSpreadMarketQuoteCalculator (recommended) or converted present value).
+   * @param sensitivityCalculator The parameter sensitivity calculator.
+   * @param state The state of the previous calibration, updated with the new calibration. Null to calibrate all the units from their starting points.
+   * @return A pair with the calibrated yield curve bundle (including the known data) and the CurveBuildingBlockBundle with the relevant inverse Jacobian Matrix.
+   */
+  public Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> makeCurvesFromDerivatives(final MultiCurveBundle<GeneratorYDCurve>[] curveBundles,
+      final MulticurveProviderDiscount knownData, final CurveBuildingBlockBundle knownBlockBundle,
+      final LinkedHashMap<String, Currency> discountingMap, final LinkedHashMap<String, IborIndex[]> forwardIborMap, final LinkedHashMap<String, IndexON[]> forwardONMap,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator, final MulticurveDiscountBuildingState state) {
     ArgumentChecker.notNull(curveBundles, "curve bundles");
     ArgumentChecker.notNull(knownData, "known data");
     ArgumentChecker.notNull(discountingMap, "discounting map");
@@ -352,6 +406,8 @@ public class MulticurveDiscountBuildingRepository {
     MulticurveProviderDiscount knownSoFarData = knownData.copy();
     final CurveBuildingBlockBundle totalBundle = new CurveBuildingBlockBundle();
     totalBundle.addAll(knownBlockBundle);
+    // True when the curves or blocks used by the next unit are different from the previous calibration
+    boolean upstreamChanged = (state == null) || state.start(knownData, knownBlockBundle);
 
     final List<InstrumentDerivative> instrumentsSoFar = new ArrayList<>();
     final LinkedHashMap<String, GeneratorYDCurve> generatorsSoFar = new LinkedHashMap<>();
@@ -384,12 +440,253 @@ public class MulticurveDiscountBuildingRepository {
         generatorsSoFar.put(curveName, tmp);
         unitMap.put(curveName, Pairs.of(startUnit + startCurve[iCurve], nbIns[iCurve]));
       }
-      knownSoFarData = makeUnit(instrumentsUnit, parametersGuess, knownSoFarData,
-          discountingMap, forwardIborMap, forwardONMap, gen, calculator, sensitivityCalculator);
-      updateBlockBundle(instrumentsUnit, knownSoFarData, curveBundle.getNames(), totalBundle, sensitivityCalculator);
+      if (state == null) {
+        knownSoFarData = makeUnit(instrumentsUnit, parametersGuess, knownSoFarData,
+            discountingMap, forwardIborMap, forwardONMap, gen, calculator, sensitivityCalculator);
+        updateBlockBundle(instrumentsUnit, knownSoFarData, curveBundle.getNames(), totalBundle, sensitivityCalculator);
+      } else {
+        final long startTime = System.nanoTime();
+        final GeneratorMulticurveProviderDiscount generator = new GeneratorMulticurveProviderDiscount(knownSoFarData, discountingMap, forwardIborMap, forwardONMap, gen);
+        final MulticurveDiscountBuildingData data = new MulticurveDiscountBuildingData(instrumentsUnit, generator);
+        final Function1D<DoubleMatrix1D, DoubleMatrix1D> curveCalculator = new MulticurveDiscountFinderFunction(calculator, data);
+        final MulticurveDiscountBuildingState.UnitState previous = state.getUnit(iUnits, curveBundle.getNames(), nbInsUnit);
+        DoubleMatrix1D parameters = new DoubleMatrix1D(parametersGuess);
+        boolean solved = true;
+        if (previous != null) {
+          parameters = new DoubleMatrix1D(previous.getParameters());
+          solved = !isCalibrated(curveCalculator.evaluate(parameters));
+        }
+        int nbIterations = 0;
+        int nbJacobianEvaluations = 0;
+        if (solved) {
+          final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianCalculator = new MulticurveDiscountFinderJacobian(
+              new ParameterSensitivityMulticurveUnderlyingMatrixCalculator(sensitivityCalculator), data);
+          final NewtonVectorRootFinderResult result = _rootFinder.findRoot(curveCalculator, jacobianCalculator, parameters,
+              (previous == null) ? null : previous.getJacobian());
+          parameters = result.getRoot();
+          nbIterations = result.getNbIterations();
+          nbJacobianEvaluations = result.getNbJacobianEvaluations();
+        }
+        knownSoFarData = generator.evaluate(parameters);
+        final DoubleMatrix2D jacobian;
+        if (solved || upstreamChanged) {
+          jacobian = updateBlockBundle(instrumentsUnit, knownSoFarData, curveBundle.getNames(), totalBundle, sensitivityCalculator);
+        } else {
+          // Neither the unit nor the curves and blocks it depends on have changed: the previous blocks are still valid
+          for (final Map.Entry<String, Pair<CurveBuildingBlock, DoubleMatrix2D>> entry : previous.getBlocks().entrySet()) {
+            totalBundle.add(entry.getKey(), entry.getValue().getFirst(), entry.getValue().getSecond());
+          }
+          jacobian = previous.getJacobian();
+        }
+        upstreamChanged |= solved;
+        final LinkedHashMap<String, Pair<CurveBuildingBlock, DoubleMatrix2D>> blocks = new LinkedHashMap<>();
+        for (final String name : curveBundle.getNames()) {
+          blocks.put(name, totalBundle.getBlock(name));
+        }
+        final MulticurveDiscountBuildingState.UnitReport report = new MulticurveDiscountBuildingState.UnitReport(curveBundle.getNames(), solved, nbIterations,
+            nbJacobianEvaluations, System.nanoTime() - startTime);
+        s_logger.debug("Calibrated unit {}: {}", iUnits, report);
+        state.setUnit(iUnits, new MulticurveDiscountBuildingState.UnitState(curveBundle.getNames(), parameters.getData(), jacobian, blocks), report);
+      }
       startUnit = startUnit + nbInsUnit;
     }
+    if (state != null) {
+      state.truncate(nbUnits);
+    }
     return ObjectsPair.of(knownSoFarData, totalBundle);
   }
 
+  /**
+   * Build a block of curves with a known CurveBuildingBlockBundle, calibrating the independent units of curves concurrently.
+   * <p>
+   * A unit depends on an earlier unit if its instruments are sensitive to the curves of the earlier unit or if its curves are built on them; the
+   * dependencies are found with all the curves at their starting points. A unit is calibrated as soon as the units it depends on are calibrated,
+   * with the known data and the curves of those units (directly or indirectly). Once all the units are calibrated, the curve building blocks are
+   * computed in the units order with all the curves, so that the curves and the blocks are the same as those of the sequential build: the curves
+   * of independent units appear in the blocks, with zero sensitivities.
+   * @param curveBundles The bundles of curve data used in construction.
+   * @param knownData The known data (fx rates, other curves, model parameters, ...)
+   * @param knownBlockBundle The already build CurveBuildingBlockBundle.
+   * @param discountingMap The discounting curves names map.
+   * @param forwardIborMap The forward curves names map.
+   * @param forwardONMap The forward curves names map.
+   * @param calculator The calculator of the value on which the calibration is done (usually ParSpreadMarketQuoteCalculator (recommended) or converted present value).
+   * @param sensitivityCalculator The parameter sensitivity calculator.
+   * @param executor The executor on which the units are calibrated.
+   * @return A pair with the calibrated yield curve bundle (including the known data) and the CurveBuildingBlockBundle with the relevant inverse Jacobian Matrix.
+   */
+  public Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> makeCurvesFromDerivativesConcurrently(final MultiCurveBundle<GeneratorYDCurve>[] curveBundles,
+      final MulticurveProviderDiscount knownData, final CurveBuildingBlockBundle knownBlockBundle,
+      final LinkedHashMap<String, Currency> discountingMap, final LinkedHashMap<String, IborIndex[]> forwardIborMap, final LinkedHashMap<String, IndexON[]> forwardONMap,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator, final ExecutorService executor) {
+    ArgumentChecker.notNull(curveBundles, "curve bundles");
+    ArgumentChecker.notNull(knownData, "known data");
+    ArgumentChecker.notNull(knownBlockBundle, "known block bundle");
+    ArgumentChecker.notNull(discountingMap, "discounting map");
+    ArgumentChecker.notNull(forwardIborMap, "forward ibor map");
+    ArgumentChecker.notNull(forwardONMap, "forward overnight map");
+    ArgumentChecker.notNull(calculator, "calculator");
+    ArgumentChecker.notNull(sensitivityCalculator, "sensitivity calculator");
+    ArgumentChecker.notNull(executor, "executor");
+    final int nbUnits = curveBundles.length;
+    final InstrumentDerivative[][] instruments = new InstrumentDerivative[nbUnits][];
+    final double[][] parametersGuess = new double[nbUnits][];
+    final List<LinkedHashMap<String, GeneratorYDCurve>> generators = new ArrayList<>();
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      final List<InstrumentDerivative> instrumentsUnit = new ArrayList<>();
+      final List<Double> parametersUnit = new ArrayList<>();
+      final LinkedHashMap<String, GeneratorYDCurve> gen = new LinkedHashMap<>();
+      for (int iCurve = 0; iCurve < curveBundles[iUnits].size(); iCurve++) {
+        final SingleCurveBundle<GeneratorYDCurve> singleCurve = curveBundles[iUnits].getCurveBundle(iCurve);
+        final InstrumentDerivative[] derivatives = singleCurve.getDerivatives();
+        instrumentsUnit.addAll(Arrays.asList(derivatives));
+        for (final double parameter : singleCurve.getStartingPoint()) {
+          parametersUnit.add(parameter);
+        }
+        gen.put(singleCurve.getCurveName(), singleCurve.getCurveGenerator().finalGenerator(derivatives));
+      }
+      instruments[iUnits] = instrumentsUnit.toArray(new InstrumentDerivative[instrumentsUnit.size()]);
+      parametersGuess[iUnits] = new double[parametersUnit.size()];
+      for (int loopp = 0; loopp < parametersGuess[iUnits].length; loopp++) {
+        parametersGuess[iUnits][loopp] = parametersUnit.get(loopp);
+      }
+      generators.add(gen);
+    }
+    final List<TreeSet<Integer>> ancestors = getUnitAncestors(instruments, parametersGuess, generators, knownData, discountingMap, forwardIborMap, forwardONMap,
+        sensitivityCalculator);
+    // The units depending on each unit and the number of units each unit waits for
+    final List<List<Integer>> dependents = new ArrayList<>();
+    final int[] nbWaiting = new int[nbUnits];
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      dependents.add(new ArrayList<Integer>());
+    }
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      for (final Integer ancestor : ancestors.get(iUnits)) {
+        dependents.get(ancestor).add(iUnits);
+        nbWaiting[iUnits]++;
+      }
+    }
+    // Calibrated curves of each unit, with the curves used in the calibration
+    final MulticurveProviderDiscount[] unitData = new MulticurveProviderDiscount[nbUnits];
+    final List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      final int unit = iUnits;
+      tasks.add(new Callable<Integer>() {
+        @SuppressWarnings("synthetic-access")
+        @Override
+        public Integer call() {
+          final MulticurveProviderDiscount unitKnownData = knownData.copy();
+          for (final Integer ancestor : ancestors.get(unit)) {
+            unitKnownData.setAll(unitData[ancestor]);
+          }
+          unitData[unit] = makeUnit(instruments[unit], parametersGuess[unit], unitKnownData, discountingMap, forwardIborMap, forwardONMap,
+              generators.get(unit), calculator, sensitivityCalculator);
+          return unit;
+        }
+      });
+    }
+    final CompletionService<Integer> completionService = new ExecutorCompletionService<>(executor);
+    final List<Future<Integer>> futures = new ArrayList<>();
+    try {
+      for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+        if (nbWaiting[iUnits] == 0) {
+          futures.add(completionService.submit(tasks.get(iUnits)));
+        }
+      }
+      for (int nbDone = 0; nbDone < nbUnits; nbDone++) {
+        final int unit = completionService.take().get();
+        for (final Integer dependent : dependents.get(unit)) {
+          nbWaiting[dependent]--;
+          if (nbWaiting[dependent] == 0) {
+            futures.add(completionService.submit(tasks.get(dependent)));
+          }
+        }
+      }
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted while calibrating curves", ex);
+    } catch (final ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new OpenGammaRuntimeException("Error while calibrating curves", ex.getCause());
+    } finally {
+      for (final Future<Integer> future : futures) {
+        future.cancel(true);
+      }
+    }
+    // Merge in the units order, independently of the order of completion, with the blocks computed as in the sequential build
+    final MulticurveProviderDiscount multicurves = knownData.copy();
+    final CurveBuildingBlockBundle totalBundle = new CurveBuildingBlockBundle();
+    totalBundle.addAll(knownBlockBundle);
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      multicurves.setAll(unitData[iUnits]);
+      updateBlockBundle(instruments[iUnits], multicurves, new ArrayList<>(generators.get(iUnits).keySet()), totalBundle, sensitivityCalculator);
+    }
+    return ObjectsPair.of(multicurves, totalBundle);
+  }
+
+  /**
+   * Gets, for each unit of curves, the earlier units it depends on directly or indirectly. A unit depends on an earlier unit if the instruments of the
+   * unit are sensitive to the curves of the earlier unit or if the curves of the unit are built on them. The sensitivities are computed with all the curves
+   * at their starting points.
+   * @param instruments The instruments of each unit.
+   * @param parametersGuess The starting points of each unit.
+   * @param generators The curve generators of each unit.
+   * @param knownData The known data.
+   * @param discountingMap The discounting curves names map.
+   * @param forwardIborMap The forward curves names map.
+   * @param forwardONMap The forward curves names map.
+   * @param sensitivityCalculator The parameter sensitivity calculator.
+   * @return The indexes of the units each unit depends on, in increasing order.
+   */
+  private static List<TreeSet<Integer>> getUnitAncestors(final InstrumentDerivative[][] instruments, final double[][] parametersGuess,
+      final List<LinkedHashMap<String, GeneratorYDCurve>> generators, final MulticurveProviderDiscount knownData,
+      final LinkedHashMap<String, Currency> discountingMap, final LinkedHashMap<String, IborIndex[]> forwardIborMap, final LinkedHashMap<String, IndexON[]> forwardONMap,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator) {
+    final int nbUnits = instruments.length;
+    final Map<String, Integer> unitByCurve = new HashMap<>();
+    MulticurveProviderDiscount guessData = knownData;
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      final GeneratorMulticurveProviderDiscount generator = new GeneratorMulticurveProviderDiscount(guessData, discountingMap, forwardIborMap, forwardONMap,
+          generators.get(iUnits));
+      guessData = generator.evaluate(new DoubleMatrix1D(parametersGuess[iUnits]));
+      for (final String name : generators.get(iUnits).keySet()) {
+        unitByCurve.put(name, iUnits);
+      }
+    }
+    final Set<String> allNames = guessData.getAllNames();
+    final List<TreeSet<Integer>> ancestors = new ArrayList<>();
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      final Set<String> names = new HashSet<>();
+      for (final InstrumentDerivative instrument : instruments[iUnits]) {
+        final MulticurveSensitivity sensitivity = instrument.accept(sensitivityCalculator, guessData);
+        names.addAll(sensitivity.getYieldDiscountingSensitivities().keySet());
+        names.addAll(sensitivity.getForwardSensitivities().keySet());
+      }
+      final List<String> underlying = new ArrayList<>(generators.get(iUnits).keySet());
+      while (!underlying.isEmpty()) {
+        final String name = underlying.remove(underlying.size() - 1);
+        if (allNames.contains(name)) {
+          for (final String underlyingName : guessData.getUnderlyingCurvesNames(name)) {
+            if (names.add(underlyingName)) {
+              underlying.add(underlyingName);
+            }
+          }
+        }
+      }
+      final TreeSet<Integer> unitAncestors = new TreeSet<>();
+      for (final String name : names) {
+        final Integer unit = unitByCurve.get(name);
+        if (unit != null && unit < iUnits) {
+          unitAncestors.add(unit);
+          unitAncestors.addAll(ancestors.get(unit));
+        }
+      }
+      ancestors.add(unitAncestors);
+    }
+    return ancestors;
+  }
+
 }
@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.provider.curve.multicurve;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opengamma.analytics.financial.provider.curve.CurveBuildingBlock;
+import com.opengamma.analytics.financial.provider.curve.CurveBuildingBlockBundle;
+import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderDiscount;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * The state kept between successive calibrations of the same curves by {@link MulticurveDiscountBuildingRepository}. It allows an incremental calibration
+ * when the market quotes change little from one calibration to the next, e.g. for intraday rebuilds.
+ * <p>
+ * For each unit of curves the state keeps the calibrated parameters, the Jacobian of the calibration function at those parameters and the curve building
+ * blocks of the unit. In the next calibration a unit whose instruments are still calibrated by the previous parameters is not solved again; otherwise the
+ * root finder starts from the previous parameters and Jacobian. The state also reports, for the last calibration, the work done on each unit.
+ * <p>
+ * The state is not thread safe. One state should be used for each sequence of calibrations of the same curves.
+ */
+public class MulticurveDiscountBuildingState {
+
+  /**
+   * The state of each unit, in the calibration order.
+   */
+  private final List<UnitState> _units = new ArrayList<>();
+  /**
+   * The reports of the last calibration, in the calibration order.
+   */
+  private final List<UnitReport> _reports = new ArrayList<>();
+  /**
+   * The known data of the last calibration.
+   */
+  private MulticurveProviderDiscount _knownData;
+  /**
+   * The known curve building blocks of the last calibration.
+   */
+  private CurveBuildingBlockBundle _knownBlockBundle;
+
+  /**
+   * Gets the reports of the last calibration, one for each unit of curves in the calibration order.
+   * @return The reports, unmodifiable.
+   */
+  public List<UnitReport> getReports() {
+    return Collections.unmodifiableList(_reports);
+  }
+
+  /**
+   * Forgets the previous calibrations. The next calibration starts from the starting points of the curve bundles.
+   */
+  public void reset() {
+    _units.clear();
+    _reports.clear();
+    _knownData = null;
+    _knownBlockBundle = null;
+  }
+
+  /**
+   * Starts a new calibration.
+   * @param knownData The known data of the new calibration.
+   * @param knownBlockBundle The known curve building blocks of the new calibration.
+   * @return True if the known data or building blocks are different from the previous calibration.
+   */
+  boolean start(final MulticurveProviderDiscount knownData, final CurveBuildingBlockBundle knownBlockBundle) {
+    final boolean changed = !(knownData.equals(_knownData) && knownBlockBundle.equals(_knownBlockBundle));
+    // Copies as the caller may change the data before the next calibration
+    _knownData = knownData.copy();
+    _knownBlockBundle = new CurveBuildingBlockBundle();
+    _knownBlockBundle.addAll(knownBlockBundle);
+    _reports.clear();
+    return changed;
+  }
+
+  /**
+   * Gets the state of a unit from the previous calibration.
+   * @param index The index of the unit.
+   * @param curveNames The names of the curves of the unit.
+   * @param nbParameters The number of parameters of the unit.
+   * @return The state, null if there is no state for the unit or if the unit had different curves or number of parameters.
+   */
+  UnitState getUnit(final int index, final List<String> curveNames, final int nbParameters) {
+    if (index >= _units.size()) {
+      return null;
+    }
+    final UnitState unit = _units.get(index);
+    if (!unit.getCurveNames().equals(curveNames) || unit.getParameters().length != nbParameters) {
+      return null;
+    }
+    return unit;
+  }
+
+  /**
+   * Sets the state of a unit and adds the report of its calibration.
+   * @param index The index of the unit. The units are set in the calibration order.
+   * @param unit The state.
+   * @param report The report.
+   */
+  void setUnit(final int index, final UnitState unit, final UnitReport report) {
+    if (index < _units.size()) {
+      _units.set(index, unit);
+    } else {
+      _units.add(unit);
+    }
+    _reports.add(report);
+  }
+
+  /**
+   * Removes the states of the units after a given number of units.
+   * @param nbUnits The number of units to keep.
+   */
+  void truncate(final int nbUnits) {
+    while (_units.size() > nbUnits) {
+      _units.remove(_units.size() - 1);
+    }
+  }
+
+  /**
+   * The state of a unit of curves after its calibration.
+   */
+  static final class UnitState {
+    private final List<String> _curveNames;
+    private final double[] _parameters;
+    private final DoubleMatrix2D _jacobian;
+    private final Map<String, Pair<CurveBuildingBlock, DoubleMatrix2D>> _blocks;
+
+    UnitState(final List<String> curveNames, final double[] parameters, final DoubleMatrix2D jacobian, final Map<String, Pair<CurveBuildingBlock, DoubleMatrix2D>> blocks) {
+      _curveNames = new ArrayList<>(curveNames);
+      _parameters = parameters.clone();
+      _jacobian = jacobian;
+      _blocks = new LinkedHashMap<>(blocks);
+    }
+
+    List<String> getCurveNames() {
+      return _curveNames;
+    }
+
+    double[] getParameters() {
+      return _parameters.clone();
+    }
+
+    DoubleMatrix2D getJacobian() {
+      return _jacobian;
+    }
+
+    Map<String, Pair<CurveBuildingBlock, DoubleMatrix2D>> getBlocks() {
+      return _blocks;
+    }
+  }
+
+  /**
+   * The work done to calibrate one unit of curves.
+   */
+  public static final class UnitReport {
+    private final List<String> _curveNames;
+    private final boolean _solved;
+    private final int _nbIterations;
+    private final int _nbJacobianEvaluations;
+    private final long _timeNanos;
+
+    /**
+     * Constructor.
+     * @param curveNames The names of the curves of the unit, not null.
+     * @param solved True if the root finder was used, false if the previous parameters were still calibrated.
+     * @param nbIterations The number of root finder iterations.
+     * @param nbJacobianEvaluations The number of full Jacobian computations by the root finder.
+     * @param timeNanos The time spent on the unit, in nanoseconds, including the curve building blocks.
+     */
+    public UnitReport(final List<String> curveNames, final boolean solved, final int nbIterations, final int nbJacobianEvaluations, final long timeNanos) {
+      ArgumentChecker.notNull(curveNames, "curve names");
+      _curveNames = Collections.unmodifiableList(new ArrayList<>(curveNames));
+      _solved = solved;
+      _nbIterations = nbIterations;
+      _nbJacobianEvaluations = nbJacobianEvaluations;
+      _timeNanos = timeNanos;
+    }
+
+    /**
+     * Gets the names of the curves of the unit.
+     * @return The names.
+     */
+    public List<String> getCurveNames() {
+      return _curveNames;
+    }
+
+    /**
+     * Returns true if the root finder was used; false if the instruments were still calibrated by the previous parameters.
+     * @return True if the unit was solved.
+     */
+    public boolean isSolved() {
+      return _solved;
+    }
+
+    /**
+     * Gets the number of root finder iterations.
+     * @return The number of iterations.
+     */
+    public int getNbIterations() {
+      return _nbIterations;
+    }
+
+    /**
+     * Gets the number of full Jacobian computations by the root finder.
+     * @return The number of Jacobian computations.
+     */
+    public int getNbJacobianEvaluations() {
+      return _nbJacobianEvaluations;
+    }
+
+    /**
+     * Gets the time spent on the unit, in nanoseconds, including the computation of the curve building blocks.
+     * @return The time.
+     */
+    public long getTimeNanos() {
+      return _timeNanos;
+    }
+
+    @Override
+    public String toString() {
+      return "UnitReport[curves=" + _curveNames + ", solved=" + _solved + ", iterations=" + _nbIterations + ", jacobians=" + _nbJacobianEvaluations
+          + ", time=" + (_timeNanos / 1000) + "us]";
+    }
+  }
+
+}
@@ -583,10 +583,7 @@ public class InflationIssuerProviderDiscount implements InflationIssuerProviderI
     final double[] result = new double[nbParameters];
     if (pointSensitivity != null && !pointSensitivity.isEmpty()) {
       for (final DoublesPair timeAndS : pointSensitivity) {
-        final double[] sensi1Point = curve.getInterestRateParameterSensitivity(timeAndS.getFirst());
-        for (int loopparam = 0; loopparam < nbParameters; loopparam++) {
-          result[loopparam] += timeAndS.getSecond() * sensi1Point[loopparam];
-        }
+        curve.addInterestRateParameterSensitivity(timeAndS.getFirst(), timeAndS.getSecond(), result);
       }
     }
     return result;
@@ -607,10 +604,7 @@ public class InflationIssuerProviderDiscount implements InflationIssuerProviderI
     final double[] result = new double[nbParameters];
     if (pointSensitivity != null && pointSensitivity.size() > 0) {
       for (final DoublesPair timeAndS : pointSensitivity) {
-        final double[] sensi1Point = curve.getInterestRateParameterSensitivity(timeAndS.getFirst());
-        for (int loopparam = 0; loopparam < nbParameters; loopparam++) {
-          result[loopparam] += timeAndS.getSecond() * sensi1Point[loopparam];
-        }
+        curve.addInterestRateParameterSensitivity(timeAndS.getFirst(), timeAndS.getSecond(), result);
       }
     }
     return result;
@@ -219,10 +219,7 @@ public class IssuerProvider implements IssuerProviderInterface {
     final double[] result = new double[nbParameters];
     if (pointSensitivity != null && !pointSensitivity.isEmpty()) {
       for (final DoublesPair timeAndS : pointSensitivity) {
-        final double[] sensi1Point = curve.getInterestRateParameterSensitivity(timeAndS.getFirst());
-        for (int loopparam = 0; loopparam < nbParameters; loopparam++) {
-          result[loopparam] += timeAndS.getSecond() * sensi1Point[loopparam];
-        }
+        curve.addInterestRateParameterSensitivity(timeAndS.getFirst(), timeAndS.getSecond(), result);
       }
     }
     return result;
@@ -249,12 +246,8 @@ public class IssuerProvider implements IssuerProviderInterface {
         final double dfForwardEnd = curve.getDiscountFactor(endTime);
         final double dFwddyStart = timeAndS.derivativeToYieldStart(dfForwardStart, dfForwardEnd);
         final double dFwddyEnd = timeAndS.derivativeToYieldEnd(dfForwardStart, dfForwardEnd);
-        final double[] sensiPtStart = curve.getInterestRateParameterSensitivity(startTime);
-        final double[] sensiPtEnd = curve.getInterestRateParameterSensitivity(endTime);
-        for (int loopparam = 0; loopparam < nbParameters; loopparam++) {
-          result[loopparam] += dFwddyStart * sensiPtStart[loopparam] * forwardBar;
-          result[loopparam] += dFwddyEnd * sensiPtEnd[loopparam] * forwardBar;
-        }
+        curve.addInterestRateParameterSensitivity(startTime, dFwddyStart * forwardBar, result);
+        curve.addInterestRateParameterSensitivity(endTime, dFwddyEnd * forwardBar, result);
       }
     }
     return result;
@@ -141,6 +141,14 @@ public class MulticurveProviderDiscount implements MulticurveProviderInterface,
     return new MulticurveProviderDiscount(discountingCurves, forwardIborCurves, forwardONCurves, fxMatrix);
   }
 
+  /**
+   * Returns a read-only snapshot of the provider for fast repeated lookups. Later changes to this provider are not reflected in the snapshot.
+   * @return The snapshot
+   */
+  public MulticurveProviderDiscountFrozen freeze() {
+    return new MulticurveProviderDiscountFrozen(this);
+  }
+
   /**
    * Adds all curves to a single map containing (curve name, curve) elements.
    */
@@ -179,10 +187,7 @@ public class MulticurveProviderDiscount implements MulticurveProviderInterface,
     final double[] result = new double[nbParameters];
     if (pointSensitivity != null && pointSensitivity.size() > 0) {
       for (final DoublesPair timeAndS : pointSensitivity) {
-        final double[] sensi1Point = curve.getInterestRateParameterSensitivity(timeAndS.getFirst());
-        for (int loopparam = 0; loopparam < nbParameters; loopparam++) {
-          result[loopparam] += timeAndS.getSecond() * sensi1Point[loopparam];
-        }
+        curve.addInterestRateParameterSensitivity(timeAndS.getFirst(), timeAndS.getSecond(), result);
       }
     }
     return result;
@@ -206,12 +211,8 @@ public class MulticurveProviderDiscount implements MulticurveProviderInterface,
         final double dfForwardEnd = curve.getDiscountFactor(endTime);
         final double dFwddyStart = timeAndS.derivativeToYieldStart(dfForwardStart, dfForwardEnd);
         final double dFwddyEnd = timeAndS.derivativeToYieldEnd(dfForwardStart, dfForwardEnd);
-        final double[] sensiPtStart = curve.getInterestRateParameterSensitivity(startTime);
-        final double[] sensiPtEnd = curve.getInterestRateParameterSensitivity(endTime);
-        for (int loopparam = 0; loopparam < nbParameters; loopparam++) {
-          result[loopparam] += dFwddyStart * sensiPtStart[loopparam] * forwardBar;
-          result[loopparam] += dFwddyEnd * sensiPtEnd[loopparam] * forwardBar;
-        }
+        curve.addInterestRateParameterSensitivity(startTime, dFwddyStart * forwardBar, result);
+        curve.addInterestRateParameterSensitivity(endTime, dFwddyEnd * forwardBar, result);
       }
     }
     return result;
@@ -0,0 +1,411 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.provider.description.interestrate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.opengamma.analytics.financial.forex.method.FXMatrix;
+import com.opengamma.analytics.financial.instrument.index.IborIndex;
+import com.opengamma.analytics.financial.instrument.index.IndexON;
+import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
+import com.opengamma.analytics.financial.provider.sensitivity.multicurve.ForwardSensitivity;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.money.Currency;
+import com.opengamma.util.tuple.DoublesPair;
+
+/**
+ * Read-only snapshot of a {@link MulticurveProviderDiscount} optimised for repeated lookups, for example when pricing a large portfolio against a
+ * single market.
+ * <p>
+ * The curves are resolved once into flat arrays when the snapshot is created. Currencies and indexes are matched against small key arrays, by
+ * identity first, rather than through hash maps, and a curve used for more than one currency or index is held once. Callers pricing many
+ * instruments can resolve a curve to an integer handle with {@link #getCurveIndex(Currency)}, {@link #getCurveIndex(IborIndex)} or
+ * {@link #getCurveIndex(IndexON)} and then use the primitive {@link #getDiscountFactor(int, double)} and
+ * {@link #getSimplyCompoundForwardRate(int, double, double, double)} methods.
+ * <p>
+ * Discount factors are memoised per curve; payment and fixing dates repeat heavily across the trades in a book so most lookups are served from the
+ * cache without evaluating or interpolating the curve. The cache is direct mapped with a fixed size and is safe for concurrent use by several
+ * pricing threads.
+ */
+public class MulticurveProviderDiscountFrozen implements MulticurveProviderInterface {
+
+  /**
+   * The number of cached discount factors for each curve, a power of two.
+   */
+  private static final int CACHE_SIZE = 1024;
+
+  /**
+   * The provider the snapshot was taken from, used for the less frequent lookups and the sensitivities.
+   */
+  private final MulticurveProviderDiscount _underlying;
+  /**
+   * The distinct curves.
+   */
+  private final YieldAndDiscountCurve[] _curves;
+  /**
+   * The discount factor cache for each curve.
+   */
+  private final DiscountFactorCache[] _caches;
+  /**
+   * The currencies with discounting curves.
+   */
+  private final Currency[] _currencies;
+  /**
+   * The index into {@link #_curves} of the discounting curve for each currency.
+   */
+  private final int[] _currencyCurves;
+  /**
+   * The Ibor indexes with forward curves.
+   */
+  private final IborIndex[] _iborIndexes;
+  /**
+   * The index into {@link #_curves} of the forward curve for each Ibor index.
+   */
+  private final int[] _iborCurves;
+  /**
+   * The overnight indexes with forward curves.
+   */
+  private final IndexON[] _onIndexes;
+  /**
+   * The index into {@link #_curves} of the forward curve for each overnight index.
+   */
+  private final int[] _onCurves;
+
+  /**
+   * Creates a snapshot of a provider. The provider is copied so later changes to it are not reflected in the snapshot.
+   * @param provider The provider, not null
+   */
+  public MulticurveProviderDiscountFrozen(final MulticurveProviderDiscount provider) {
+    ArgumentChecker.notNull(provider, "provider");
+    _underlying = provider.copy();
+    final List<YieldAndDiscountCurve> curves = new ArrayList<>();
+    final Map<Currency, YieldAndDiscountCurve> discountingCurves = _underlying.getDiscountingCurves();
+    _currencies = discountingCurves.keySet().toArray(new Currency[discountingCurves.size()]);
+    _currencyCurves = resolve(_currencies, discountingCurves, curves);
+    final Map<IborIndex, YieldAndDiscountCurve> forwardIborCurves = _underlying.getForwardIborCurves();
+    _iborIndexes = forwardIborCurves.keySet().toArray(new IborIndex[forwardIborCurves.size()]);
+    _iborCurves = resolve(_iborIndexes, forwardIborCurves, curves);
+    final Map<IndexON, YieldAndDiscountCurve> forwardONCurves = _underlying.getForwardONCurves();
+    _onIndexes = forwardONCurves.keySet().toArray(new IndexON[forwardONCurves.size()]);
+    _onCurves = resolve(_onIndexes, forwardONCurves, curves);
+    _curves = curves.toArray(new YieldAndDiscountCurve[curves.size()]);
+    _caches = new DiscountFactorCache[_curves.length];
+    for (int i = 0; i < _caches.length; i++) {
+      _caches[i] = new DiscountFactorCache();
+    }
+  }
+
+  private static <K> int[] resolve(final K[] keys, final Map<K, YieldAndDiscountCurve> map, final List<YieldAndDiscountCurve> curves) {
+    final int[] result = new int[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      final YieldAndDiscountCurve curve = map.get(keys[i]);
+      int index = -1;
+      for (int j = 0; j < curves.size(); j++) {
+        if (curves.get(j) == curve) {
+          index = j;
+          break;
+        }
+      }
+      if (index < 0) {
+        index = curves.size();
+        curves.add(curve);
+      }
+      result[i] = index;
+    }
+    return result;
+  }
+
+  private static int find(final Object[] keys, final Object key) {
+    // The same index and currency instances are normally shared by all of the instruments so try identity first
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == key) {
+        return i;
+      }
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the provider the snapshot was taken from.
+   * @return The provider
+   */
+  public MulticurveProviderDiscount getUnderlying() {
+    return _underlying;
+  }
+
+  /**
+   * Returns the handle of the discounting curve for a currency.
+   * @param ccy The currency
+   * @return The curve handle
+   * @throws IllegalArgumentException if there is no discounting curve for the currency
+   */
+  public int getCurveIndex(final Currency ccy) {
+    final int i = find(_currencies, ccy);
+    if (i < 0) {
+      throw new IllegalArgumentException("Currency discounting curve not found: " + ccy);
+    }
+    return _currencyCurves[i];
+  }
+
+  /**
+   * Returns the handle of the forward curve for an Ibor index.
+   * @param index The Ibor index
+   * @return The curve handle
+   * @throws IllegalArgumentException if there is no forward curve for the index
+   */
+  public int getCurveIndex(final IborIndex index) {
+    final int i = find(_iborIndexes, index);
+    if (i < 0) {
+      throw new IllegalArgumentException("Forward curve not found: " + index);
+    }
+    return _iborCurves[i];
+  }
+
+  /**
+   * Returns the handle of the forward curve for an overnight index.
+   * @param index The overnight index
+   * @return The curve handle
+   * @throws IllegalArgumentException if there is no forward curve for the index
+   */
+  public int getCurveIndex(final IndexON index) {
+    final int i = find(_onIndexes, index);
+    if (i < 0) {
+      throw new IllegalArgumentException("Forward ON curve not found: " + index);
+    }
+    return _onCurves[i];
+  }
+
+  /**
+   * Returns the curve for a handle.
+   * @param curveIndex The curve handle
+   * @return The curve
+   */
+  public YieldAndDiscountCurve getCurve(final int curveIndex) {
+    return _curves[curveIndex];
+  }
+
+  /**
+   * Returns the discount factor from a curve at a given time.
+   * @param curveIndex The curve handle
+   * @param time The time
+   * @return The discount factor
+   */
+  public double getDiscountFactor(final int curveIndex, final double time) {
+    return _caches[curveIndex].getDiscountFactor(_curves[curveIndex], time);
+  }
+
+  /**
+   * Returns the forward rate, simply compounded, between two times from the pseudo-discount factors of a curve.
+   * @param curveIndex The curve handle
+   * @param startTime The start time
+   * @param endTime The end time
+   * @param accrualFactor The accrual factor
+   * @return The forward rate
+   */
+  public double getSimplyCompoundForwardRate(final int curveIndex, final double startTime, final double endTime, final double accrualFactor) {
+    return (getDiscountFactor(curveIndex, startTime) / getDiscountFactor(curveIndex, endTime) - 1) / accrualFactor;
+  }
+
+  @Override
+  public MulticurveProviderInterface getMulticurveProvider() {
+    return this;
+  }
+
+  /**
+   * Returns a mutable copy of the underlying provider.
+   * @return The copy
+   */
+  @Override
+  public MulticurveProviderDiscount copy() {
+    return _underlying.copy();
+  }
+
+  @Override
+  public double getDiscountFactor(final Currency ccy, final Double time) {
+    return getDiscountFactor(getCurveIndex(ccy), time.doubleValue());
+  }
+
+  @Override
+  public double getInvestmentFactor(final IborIndex index, final double startTime, final double endTime, final double accrualFactor) {
+    final int curve = getCurveIndex(index);
+    return getDiscountFactor(curve, startTime) / getDiscountFactor(curve, endTime);
+  }
+
+  @Override
+  public double getSimplyCompoundForwardRate(final IborIndex index, final double startTime, final double endTime, final double accrualFactor) {
+    return getSimplyCompoundForwardRate(getCurveIndex(index), startTime, endTime, accrualFactor);
+  }
+
+  @Override
+  public double getSimplyCompoundForwardRate(final IborIndex index, final double startTime, final double endTime) {
+    ArgumentChecker.isFalse(startTime == endTime, "Start time should be different from end time");
+    return getSimplyCompoundForwardRate(getCurveIndex(index), startTime, endTime, endTime - startTime);
+  }
+
+  @Override
+  public double getAnnuallyCompoundForwardRate(final IborIndex index, final double startTime, final double endTime, final double accrualFactor) {
+    ArgumentChecker.isFalse(accrualFactor == 0.0, "The accrual factor can't be null");
+    return Math.pow(getInvestmentFactor(index, startTime, endTime, accrualFactor), 1 / accrualFactor) - 1;
+  }
+
+  @Override
+  public double getAnnuallyCompoundForwardRate(final IborIndex index, final double startTime, final double endTime) {
+    ArgumentChecker.isFalse(startTime == endTime, "Start time should be different from end time");
+    return getAnnuallyCompoundForwardRate(index, startTime, endTime, endTime - startTime);
+  }
+
+  @Override
+  public double getInvestmentFactor(final IndexON index, final double startTime, final double endTime, final double accrualFactor) {
+    final int curve = getCurveIndex(index);
+    return getDiscountFactor(curve, startTime) / getDiscountFactor(curve, endTime);
+  }
+
+  @Override
+  public double getSimplyCompoundForwardRate(final IndexON index, final double startTime, final double endTime, final double accrualFactor) {
+    return getSimplyCompoundForwardRate(getCurveIndex(index), startTime, endTime, accrualFactor);
+  }
+
+  @Override
+  public double getSimplyCompoundForwardRate(final IndexON index, final double startTime, final double endTime) {
+    ArgumentChecker.isFalse(startTime == endTime, "Start time should be different from end time");
+    return getSimplyCompoundForwardRate(getCurveIndex(index), startTime, endTime, endTime - startTime);
+  }
+
+  @Override
+  public double getAnnuallyCompoundForwardRate(final IndexON index, final double startTime, final double endTime, final double accrualFactor) {
+    ArgumentChecker.isFalse(accrualFactor == 0.0, "The accrual factor can't be null");
+    return Math.pow(getInvestmentFactor(index, startTime, endTime, accrualFactor), 1 / accrualFactor) - 1;
+  }
+
+  @Override
+  public double getAnnuallyCompoundForwardRate(final IndexON index, final double startTime, final double endTime) {
+    ArgumentChecker.isFalse(startTime == endTime, "Start time should be different from end time");
+    return getAnnuallyCompoundForwardRate(index, startTime, endTime, endTime - startTime);
+  }
+
+  @Override
+  public double getFxRate(final Currency ccy1, final Currency ccy2) {
+    return _underlying.getFxRate(ccy1, ccy2);
+  }
+
+  @Override
+  public FXMatrix getFxRates() {
+    return _underlying.getFxRates();
+  }
+
+  @Override
+  public double[] parameterSensitivity(final String name, final List<DoublesPair> pointSensitivity) {
+    return _underlying.parameterSensitivity(name, pointSensitivity);
+  }
+
+  @Override
+  public double[] parameterForwardSensitivity(final String name, final List<ForwardSensitivity> pointSensitivity) {
+    return _underlying.parameterForwardSensitivity(name, pointSensitivity);
+  }
+
+  @Override
+  public Integer getNumberOfParameters(final String name) {
+    return _underlying.getNumberOfParameters(name);
+  }
+
+  @Override
+  public List<String> getUnderlyingCurvesNames(final String name) {
+    return _underlying.getUnderlyingCurvesNames(name);
+  }
+
+  @Override
+  public String getName(final Currency ccy) {
+    return _curves[getCurveIndex(ccy)].getName();
+  }
+
+  @Override
+  public Set<Currency> getCurrencies() {
+    return _underlying.getCurrencies();
+  }
+
+  @Override
+  public String getName(final IborIndex index) {
+    return _curves[getCurveIndex(index)].getName();
+  }
+
+  @Override
+  public Set<IborIndex> getIndexesIbor() {
+    return _underlying.getIndexesIbor();
+  }
+
+  @Override
+  public String getName(final IndexON index) {
+    return _curves[getCurveIndex(index)].getName();
+  }
+
+  @Override
+  public Set<IndexON> getIndexesON() {
+    return _underlying.getIndexesON();
+  }
+
+  @Override
+  public Set<String> getAllNames() {
+    return _underlying.getAllNames();
+  }
+
+  @Override
+  public Set<String> getAllCurveNames() {
+    return _underlying.getAllCurveNames();
+  }
+
+  @Override
+  public String toString() {
+    return "Frozen" + _underlying.toString();
+  }
+
+  /**
+   * Cached discount factor for a single time. Instances are immutable so they can be published through the cache array without locking.
+   */
+  private static final class CachedDiscountFactor {
+
+    private final double _time;
+    private final double _discountFactor;
+
+    private CachedDiscountFactor(final double time, final double discountFactor) {
+      _time = time;
+      _discountFactor = discountFactor;
+    }
+
+  }
+
+  /**
+   * Direct mapped cache of the discount factors from one curve. Racing threads may both evaluate the curve and overwrite each other's entries but
+   * will only ever read a value that was correct for its time.
+   */
+  private static final class DiscountFactorCache {
+
+    private final CachedDiscountFactor[] _entries = new CachedDiscountFactor[CACHE_SIZE];
+
+    private double getDiscountFactor(final YieldAndDiscountCurve curve, final double time) {
+      final long bits = Double.doubleToLongBits(time);
+      int hash = (int) (bits ^ (bits >>> 32));
+      hash ^= (hash >>> 16);
+      final int slot = hash & (CACHE_SIZE - 1);
+      final CachedDiscountFactor entry = _entries[slot];
+      if ((entry != null) && (entry._time == time)) {
+        return entry._discountFactor;
+      }
+      final double discountFactor = curve.getDiscountFactor(time);
+      _entries[slot] = new CachedDiscountFactor(time, discountFactor);
+      return discountFactor;
+    }
+
+  }
+
+}
@@ -151,10 +151,7 @@ public class MulticurveProviderForward implements MulticurveProviderInterface {
     final double[] result = new double[nbParameters];
     if (pointSensitivity != null && pointSensitivity.size() > 0) {
       for (final DoublesPair timeAndS : pointSensitivity) {
-        final double[] sensi1Point = curve.getInterestRateParameterSensitivity(timeAndS.getFirst());
-        for (int loopparam = 0; loopparam < nbParameters; loopparam++) {
-          result[loopparam] += timeAndS.getSecond() * sensi1Point[loopparam];
-        }
+        curve.addInterestRateParameterSensitivity(timeAndS.getFirst(), timeAndS.getSecond(), result);
       }
     }
     return result;
@@ -178,12 +175,8 @@ public class MulticurveProviderForward implements MulticurveProviderInterface {
           final double dfForwardEnd = curve.getDiscountFactor(endTime);
           final double dFwddyStart = -startTime * dfForwardStart / (dfForwardEnd * accrualFactor);
           final double dFwddyEnd = endTime * dfForwardStart / (dfForwardEnd * accrualFactor);
-          final double[] sensiPtStart = curve.getInterestRateParameterSensitivity(startTime);
-          final double[] sensiPtEnd = curve.getInterestRateParameterSensitivity(endTime);
-          for (int loopparam = 0; loopparam < nbParameters; loopparam++) {
-            result[loopparam] += dFwddyStart * sensiPtStart[loopparam] * forwardBar;
-            result[loopparam] += dFwddyEnd * sensiPtEnd[loopparam] * forwardBar;
-          }
+          curve.addInterestRateParameterSensitivity(startTime, dFwddyStart * forwardBar, result);
+          curve.addInterestRateParameterSensitivity(endTime, dFwddyEnd * forwardBar, result);
         }
       }
       return result;
@@ -194,11 +187,8 @@ public class MulticurveProviderForward implements MulticurveProviderInterface {
     final double[] result = new double[nbParameters];
     if (pointSensitivity != null && pointSensitivity.size() > 0) {
       for (final ForwardSensitivity timeAndS : pointSensitivity) {
-        final Double[] sensiPtStart = curve.getYValueParameterSensitivity(timeAndS.getStartTime());
         // Implementation note: the forward rate are indexed by the start date.
-        for (int loopparam = 0; loopparam < nbParameters; loopparam++) {
-          result[loopparam] += timeAndS.getValue() * sensiPtStart[loopparam];
-        }
+        curve.addYValueParameterSensitivity(timeAndS.getStartTime(), timeAndS.getValue(), result);
       }
     }
     return result;
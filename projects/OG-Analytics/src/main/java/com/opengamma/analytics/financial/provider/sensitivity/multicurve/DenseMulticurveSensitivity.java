@@ -0,0 +1,685 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.provider.sensitivity.multicurve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.DoublesPair;
+
+/**
+ * Mutable, dense form of a {@link MulticurveSensitivity} for accumulating the point sensitivities of many cash flows or instruments.
+ * <p>
+ * Curves are given an index when first seen. The sensitivities to each curve are held in parallel primitive arrays which grow as needed, so adding,
+ * scaling and cleaning happen in place without creating a pair object per point. A block that is known to be sorted with no duplicated times is
+ * combined with another such block by a linear merge. The discounting sensitivities are keyed by time and the forward sensitivities by start time,
+ * end time and accrual factor, with the same ordering and summation as {@link MulticurveSensitivity#cleaned()}; cleaned forward sensitivities are
+ * simply compounded.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class DenseMulticurveSensitivity {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  /**
+   * The index of each curve name.
+   */
+  private final Map<String, Integer> _curveIndex = new HashMap<>();
+  /**
+   * The curve names, by index.
+   */
+  private final List<String> _curveNames = new ArrayList<>();
+  /**
+   * The discounting sensitivities, by curve index. An element is null if there are no discounting sensitivities to the curve.
+   */
+  private final List<YieldBlock> _yield = new ArrayList<>();
+  /**
+   * The forward sensitivities, by curve index. An element is null if there are no forward sensitivities to the curve.
+   */
+  private final List<ForwardBlock> _forward = new ArrayList<>();
+
+  /**
+   * Creates an empty sensitivity.
+   */
+  public DenseMulticurveSensitivity() {
+  }
+
+  /**
+   * Creates a dense sensitivity from a multi-curve sensitivity.
+   * @param sensitivity The sensitivity, not null
+   * @return The dense sensitivity
+   */
+  public static DenseMulticurveSensitivity of(final MulticurveSensitivity sensitivity) {
+    return new DenseMulticurveSensitivity().plus(sensitivity);
+  }
+
+  /**
+   * Gets the number of curves seen.
+   * @return The number of curves
+   */
+  public int getNumberOfCurves() {
+    return _curveNames.size();
+  }
+
+  /**
+   * Gets the name of a curve.
+   * @param curveIndex The curve index
+   * @return The curve name
+   */
+  public String getCurveName(final int curveIndex) {
+    return _curveNames.get(curveIndex);
+  }
+
+  /**
+   * Gets the index of a curve, allocating one if the curve has not been seen before.
+   * @param curveName The curve name, not null
+   * @return The curve index
+   */
+  public int getCurveIndex(final String curveName) {
+    final Integer index = _curveIndex.get(curveName);
+    if (index != null) {
+      return index;
+    }
+    ArgumentChecker.notNull(curveName, "curve name");
+    final int newIndex = _curveNames.size();
+    _curveIndex.put(curveName, newIndex);
+    _curveNames.add(curveName);
+    _yield.add(null);
+    _forward.add(null);
+    return newIndex;
+  }
+
+  private YieldBlock yieldBlock(final int curveIndex) {
+    YieldBlock block = _yield.get(curveIndex);
+    if (block == null) {
+      block = new YieldBlock(INITIAL_CAPACITY);
+      _yield.set(curveIndex, block);
+    }
+    return block;
+  }
+
+  private ForwardBlock forwardBlock(final int curveIndex) {
+    ForwardBlock block = _forward.get(curveIndex);
+    if (block == null) {
+      block = new ForwardBlock(INITIAL_CAPACITY);
+      _forward.set(curveIndex, block);
+    }
+    return block;
+  }
+
+  /**
+   * Gets the number of discounting sensitivities to a curve.
+   * @param curveIndex The curve index
+   * @return The number of sensitivities
+   */
+  public int getYieldDiscountingSize(final int curveIndex) {
+    final YieldBlock block = _yield.get(curveIndex);
+    return (block != null) ? block._size : 0;
+  }
+
+  /**
+   * Gets the time of a discounting sensitivity.
+   * @param curveIndex The curve index
+   * @param point The index of the sensitivity, less than {@link #getYieldDiscountingSize(int)}
+   * @return The time
+   */
+  public double getYieldDiscountingTime(final int curveIndex, final int point) {
+    return _yield.get(curveIndex)._times[point];
+  }
+
+  /**
+   * Gets the value of a discounting sensitivity.
+   * @param curveIndex The curve index
+   * @param point The index of the sensitivity, less than {@link #getYieldDiscountingSize(int)}
+   * @return The value
+   */
+  public double getYieldDiscountingValue(final int curveIndex, final int point) {
+    return _yield.get(curveIndex)._values[point];
+  }
+
+  /**
+   * Gets the number of forward sensitivities to a curve.
+   * @param curveIndex The curve index
+   * @return The number of sensitivities
+   */
+  public int getForwardSize(final int curveIndex) {
+    final ForwardBlock block = _forward.get(curveIndex);
+    return (block != null) ? block._size : 0;
+  }
+
+  /**
+   * Adds a discounting sensitivity.
+   * @param curveIndex The curve index
+   * @param time The time
+   * @param value The sensitivity value
+   * @return This sensitivity
+   */
+  public DenseMulticurveSensitivity addYieldDiscounting(final int curveIndex, final double time, final double value) {
+    yieldBlock(curveIndex).add(time, value);
+    return this;
+  }
+
+  /**
+   * Adds a discounting sensitivity.
+   * @param curveName The curve name, not null
+   * @param time The time
+   * @param value The sensitivity value
+   * @return This sensitivity
+   */
+  public DenseMulticurveSensitivity addYieldDiscounting(final String curveName, final double time, final double value) {
+    return addYieldDiscounting(getCurveIndex(curveName), time, value);
+  }
+
+  /**
+   * Adds a forward sensitivity.
+   * @param curveName The curve name, not null
+   * @param sensitivity The forward sensitivity, not null
+   * @return This sensitivity
+   */
+  public DenseMulticurveSensitivity addForward(final String curveName, final ForwardSensitivity sensitivity) {
+    forwardBlock(getCurveIndex(curveName)).add(sensitivity);
+    return this;
+  }
+
+  /**
+   * Adds a multi-curve sensitivity to this one, in place.
+   * @param sensitivity The sensitivity to add, not null
+   * @return This sensitivity
+   */
+  public DenseMulticurveSensitivity plus(final MulticurveSensitivity sensitivity) {
+    ArgumentChecker.notNull(sensitivity, "sensitivity");
+    for (final Map.Entry<String, List<DoublesPair>> entry : sensitivity.getYieldDiscountingSensitivities().entrySet()) {
+      final YieldBlock block = yieldBlock(getCurveIndex(entry.getKey()));
+      final List<DoublesPair> points = entry.getValue();
+      block.ensureCapacity(block._size + points.size());
+      for (final DoublesPair point : points) {
+        block.add(point.getFirstDouble(), point.getSecondDouble());
+      }
+    }
+    for (final Map.Entry<String, List<ForwardSensitivity>> entry : sensitivity.getForwardSensitivities().entrySet()) {
+      final ForwardBlock block = forwardBlock(getCurveIndex(entry.getKey()));
+      final List<ForwardSensitivity> points = entry.getValue();
+      block.ensureCapacity(block._size + points.size());
+      for (final ForwardSensitivity point : points) {
+        block.add(point);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Adds another dense sensitivity to this one, in place. Blocks that are both cleaned are combined by a merge so the result remains cleaned.
+   * @param other The sensitivity to add, not null
+   * @return This sensitivity
+   */
+  public DenseMulticurveSensitivity plus(final DenseMulticurveSensitivity other) {
+    ArgumentChecker.notNull(other, "sensitivity");
+    for (int i = 0; i < other._curveNames.size(); i++) {
+      final int curveIndex = getCurveIndex(other._curveNames.get(i));
+      final YieldBlock otherYield = other._yield.get(i);
+      if (otherYield != null) {
+        yieldBlock(curveIndex).plus(otherYield);
+      }
+      final ForwardBlock otherForward = other._forward.get(i);
+      if (otherForward != null) {
+        forwardBlock(curveIndex).plus(otherForward);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Multiplies all of the sensitivities by a common factor, in place.
+   * @param factor The multiplicative factor
+   * @return This sensitivity
+   */
+  public DenseMulticurveSensitivity multiplyBy(final double factor) {
+    for (final YieldBlock block : _yield) {
+      if (block != null) {
+        block.multiplyBy(factor);
+      }
+    }
+    for (final ForwardBlock block : _forward) {
+      if (block != null) {
+        block.multiplyBy(factor);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Sorts the sensitivities and adds the values at duplicated points, in place.
+   * @return This sensitivity
+   */
+  public DenseMulticurveSensitivity clean() {
+    for (final YieldBlock block : _yield) {
+      if (block != null) {
+        block.clean();
+      }
+    }
+    for (final ForwardBlock block : _forward) {
+      if (block != null) {
+        block.clean();
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Sorts the sensitivities and adds the values at duplicated points, in place. Totals with an absolute value not above the tolerance are removed.
+   * @param tolerance The tolerance
+   * @return This sensitivity
+   */
+  public DenseMulticurveSensitivity clean(final double tolerance) {
+    for (final YieldBlock block : _yield) {
+      if (block != null) {
+        block.clean();
+        block.removeBelow(tolerance);
+      }
+    }
+    for (final ForwardBlock block : _forward) {
+      if (block != null) {
+        block.clean();
+        block.removeBelow(tolerance);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Creates the equivalent multi-curve sensitivity. The points are listed in the order held, so the result is cleaned if this is.
+   * @return The sensitivity
+   */
+  public MulticurveSensitivity toMulticurveSensitivity() {
+    final Map<String, List<DoublesPair>> resultDsc = new HashMap<>();
+    final Map<String, List<ForwardSensitivity>> resultFwd = new HashMap<>();
+    for (int i = 0; i < _curveNames.size(); i++) {
+      final YieldBlock yield = _yield.get(i);
+      if (yield != null) {
+        final List<DoublesPair> points = new ArrayList<>(yield._size);
+        for (int j = 0; j < yield._size; j++) {
+          points.add(DoublesPair.of(yield._times[j], yield._values[j]));
+        }
+        resultDsc.put(_curveNames.get(i), points);
+      }
+      final ForwardBlock forward = _forward.get(i);
+      if (forward != null) {
+        final List<ForwardSensitivity> points = new ArrayList<>(forward._size);
+        for (int j = 0; j < forward._size; j++) {
+          points.add(forward.get(j));
+        }
+        resultFwd.put(_curveNames.get(i), points);
+      }
+    }
+    return MulticurveSensitivity.of(resultDsc, resultFwd);
+  }
+
+  @Override
+  public String toString() {
+    return toMulticurveSensitivity().toString();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Stable merge sort of a permutation of the points in a block.
+   * @param block The block
+   * @return The permutation which sorts the block
+   */
+  private static int[] sortOrder(final Block block) {
+    int[] order = new int[block._size];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    int[] work = new int[order.length];
+    for (int width = 1; width < order.length; width <<= 1) {
+      for (int lo = 0; lo < order.length; lo += width << 1) {
+        final int mid = Math.min(lo + width, order.length);
+        final int hi = Math.min(lo + (width << 1), order.length);
+        int a = lo;
+        int b = mid;
+        int k = lo;
+        while ((a < mid) && (b < hi)) {
+          work[k++] = (block.compare(order[b], order[a]) < 0) ? order[b++] : order[a++];
+        }
+        while (a < mid) {
+          work[k++] = order[a++];
+        }
+        while (b < hi) {
+          work[k++] = order[b++];
+        }
+      }
+      final int[] swap = order;
+      order = work;
+      work = swap;
+    }
+    return order;
+  }
+
+  /**
+   * Points for one curve held in parallel arrays.
+   */
+  private abstract static class Block {
+
+    int _size;
+
+    /**
+     * Whether the points are known to be sorted with no duplicates.
+     */
+    boolean _clean = true;
+
+    double[] _values;
+
+    Block(final int capacity) {
+      _values = new double[capacity];
+    }
+
+    abstract int compare(int i, int j);
+
+    /**
+     * Compares a point in this block with a point in another block of the same type.
+     */
+    abstract int compare(int i, Block other, int j);
+
+    abstract void resize(int capacity);
+
+    /**
+     * Copies the key of a point from a block of the same type, which may be this one.
+     */
+    abstract void copyKey(Block from, int i, int to);
+
+    abstract Block newBlock(int capacity);
+
+    /**
+     * Called after the block has been cleaned.
+     */
+    void cleaned() {
+    }
+
+    void ensureCapacity(final int capacity) {
+      if (capacity > _values.length) {
+        final int newCapacity = Math.max(capacity, _values.length << 1);
+        _values = Arrays.copyOf(_values, newCapacity);
+        resize(newCapacity);
+      }
+    }
+
+    /**
+     * Allocates a point at the end of the block and returns its index. The caller must set the key and then call {@link #appended}.
+     */
+    int append(final double value) {
+      ensureCapacity(_size + 1);
+      _values[_size] = value;
+      return _size++;
+    }
+
+    void appended(final int i) {
+      if (_clean && (i > 0) && (compare(i - 1, i) >= 0)) {
+        _clean = false;
+      }
+    }
+
+    void multiplyBy(final double factor) {
+      for (int i = 0; i < _size; i++) {
+        _values[i] *= factor;
+      }
+    }
+
+    void plus(final Block other) {
+      final int n = other._size;
+      if (n == 0) {
+        return;
+      }
+      if (_clean && other._clean && (_size > 0)) {
+        if (other == this) {
+          multiplyBy(2);
+        } else {
+          merge(other);
+        }
+      } else {
+        ensureCapacity(_size + n);
+        for (int i = 0; i < n; i++) {
+          copyKey(other, i, _size);
+          _values[_size++] = other._values[i];
+        }
+        _clean = false;
+      }
+    }
+
+    /**
+     * Merges a cleaned block into this cleaned block. The merge runs backwards from the end of the combined length so no buffer is needed; any gap
+     * left by points with equal keys is closed at the end.
+     */
+    private void merge(final Block other) {
+      ensureCapacity(_size + other._size);
+      final int total = _size + other._size;
+      int a = _size - 1;
+      int b = other._size - 1;
+      int k = total - 1;
+      while (b >= 0) {
+        if (a >= 0) {
+          final int c = compare(a, other, b);
+          if (c > 0) {
+            copyKey(this, a, k);
+            _values[k--] = _values[a--];
+          } else if (c < 0) {
+            copyKey(other, b, k);
+            _values[k--] = other._values[b--];
+          } else {
+            copyKey(this, a, k);
+            _values[k--] = _values[a--] + other._values[b--];
+          }
+        } else {
+          copyKey(other, b, k);
+          _values[k--] = other._values[b--];
+        }
+      }
+      final int gap = k - a;
+      if (gap > 0) {
+        for (int i = k + 1; i < total; i++) {
+          copyKey(this, i, i - gap);
+          _values[i - gap] = _values[i];
+        }
+      }
+      _size = total - gap;
+    }
+
+    /**
+     * Sorts the points and sums the values at duplicated keys, in list order.
+     */
+    void clean() {
+      if (!_clean) {
+        final int[] order = sortOrder(this);
+        final Block source = copy();
+        _size = 0;
+        for (int i = 0; i < order.length; i++) {
+          final int j = order[i];
+          if ((_size > 0) && (source.compare(order[i - 1], j) == 0)) {
+            _values[_size - 1] += source._values[j];
+          } else {
+            copyKey(source, j, _size);
+            _values[_size++] = source._values[j];
+          }
+        }
+        _clean = true;
+      }
+      cleaned();
+    }
+
+    void removeBelow(final double tolerance) {
+      int n = 0;
+      for (int i = 0; i < _size; i++) {
+        if (Math.abs(_values[i]) > tolerance) {
+          if (n != i) {
+            copyKey(this, i, n);
+            _values[n] = _values[i];
+          }
+          n++;
+        }
+      }
+      _size = n;
+    }
+
+    private Block copy() {
+      final Block copy = newBlock(_size);
+      for (int i = 0; i < _size; i++) {
+        copy.copyKey(this, i, i);
+        copy._values[i] = _values[i];
+      }
+      copy._size = _size;
+      copy._clean = _clean;
+      return copy;
+    }
+
+  }
+
+  /**
+   * Discounting sensitivities to one curve, keyed by time.
+   */
+  private static final class YieldBlock extends Block {
+
+    private double[] _times;
+
+    private YieldBlock(final int capacity) {
+      super(capacity);
+      _times = new double[capacity];
+    }
+
+    private void add(final double time, final double value) {
+      final int i = append(value);
+      _times[i] = time;
+      appended(i);
+    }
+
+    @Override
+    int compare(final int i, final int j) {
+      return Double.compare(_times[i], _times[j]);
+    }
+
+    @Override
+    int compare(final int i, final Block other, final int j) {
+      return Double.compare(_times[i], ((YieldBlock) other)._times[j]);
+    }
+
+    @Override
+    void resize(final int capacity) {
+      _times = Arrays.copyOf(_times, capacity);
+    }
+
+    @Override
+    void copyKey(final Block from, final int i, final int to) {
+      _times[to] = ((YieldBlock) from)._times[i];
+    }
+
+    @Override
+    Block newBlock(final int capacity) {
+      return new YieldBlock(capacity);
+    }
+
+  }
+
+  /**
+   * Forward sensitivities to one curve, keyed by start time, end time and accrual factor.
+   */
+  private static final class ForwardBlock extends Block {
+
+    private double[] _startTimes;
+    private double[] _endTimes;
+    private double[] _accrualFactors;
+    /**
+     * Whether each point is annually rather than simply compounded.
+     */
+    private boolean[] _annually;
+
+    private ForwardBlock(final int capacity) {
+      super(capacity);
+      _startTimes = new double[capacity];
+      _endTimes = new double[capacity];
+      _accrualFactors = new double[capacity];
+      _annually = new boolean[capacity];
+    }
+
+    private void add(final ForwardSensitivity sensitivity) {
+      final boolean annually;
+      if (sensitivity instanceof SimplyCompoundedForwardSensitivity) {
+        annually = false;
+      } else if (sensitivity instanceof AnnuallyCompoundedForwardSensitivity) {
+        annually = true;
+      } else {
+        throw new IllegalArgumentException("Unsupported forward sensitivity " + sensitivity.getClass());
+      }
+      final int i = append(sensitivity.getValue());
+      _startTimes[i] = sensitivity.getStartTime();
+      _endTimes[i] = sensitivity.getEndTime();
+      _accrualFactors[i] = sensitivity.getAccrualFactor();
+      _annually[i] = annually;
+      appended(i);
+    }
+
+    private ForwardSensitivity get(final int i) {
+      if (_annually[i]) {
+        return new AnnuallyCompoundedForwardSensitivity(_startTimes[i], _endTimes[i], _accrualFactors[i], _values[i]);
+      }
+      return new SimplyCompoundedForwardSensitivity(_startTimes[i], _endTimes[i], _accrualFactors[i], _values[i]);
+    }
+
+    private static int compare(final ForwardBlock a, final int i, final ForwardBlock b, final int j) {
+      int c = Double.compare(a._startTimes[i], b._startTimes[j]);
+      if (c != 0) {
+        return c;
+      }
+      c = Double.compare(a._endTimes[i], b._endTimes[j]);
+      if (c != 0) {
+        return c;
+      }
+      return Double.compare(a._accrualFactors[i], b._accrualFactors[j]);
+    }
+
+    @Override
+    int compare(final int i, final int j) {
+      return compare(this, i, this, j);
+    }
+
+    @Override
+    int compare(final int i, final Block other, final int j) {
+      return compare(this, i, (ForwardBlock) other, j);
+    }
+
+    @Override
+    void resize(final int capacity) {
+      _startTimes = Arrays.copyOf(_startTimes, capacity);
+      _endTimes = Arrays.copyOf(_endTimes, capacity);
+      _accrualFactors = Arrays.copyOf(_accrualFactors, capacity);
+      _annually = Arrays.copyOf(_annually, capacity);
+    }
+
+    @Override
+    void copyKey(final Block from, final int i, final int to) {
+      final ForwardBlock block = (ForwardBlock) from;
+      _startTimes[to] = block._startTimes[i];
+      _endTimes[to] = block._endTimes[i];
+      _accrualFactors[to] = block._accrualFactors[i];
+      _annually[to] = block._annually[i];
+    }
+
+    @Override
+    Block newBlock(final int capacity) {
+      return new ForwardBlock(capacity);
+    }
+
+    @Override
+    void cleaned() {
+      // As for MulticurveSensitivity.cleaned(), the totals are simply compounded sensitivities
+      Arrays.fill(_annually, 0, _size, false);
+    }
+
+  }
+
+}
@@ -146,9 +146,7 @@ public class MulticurveSensitivity {
    * @return The cleaned sensitivity.
    */
   public MulticurveSensitivity cleaned() {
-    final Map<String, List<DoublesPair>> resultDsc = MulticurveSensitivityUtils.cleaned(_sensitivityYieldDiscounting);
-    final Map<String, List<ForwardSensitivity>> resultFwd = MulticurveSensitivityUtils.cleanedFwd(_sensitivityForward);
-    return new MulticurveSensitivity(resultDsc, resultFwd);
+    return DenseMulticurveSensitivity.of(this).clean().toMulticurveSensitivity();
   }
 
   /**
@@ -157,9 +155,7 @@ public class MulticurveSensitivity {
    * @return The cleaned sensitivity.
    */
   public MulticurveSensitivity cleaned(final double tolerance) {
-    final Map<String, List<DoublesPair>> resultDsc = MulticurveSensitivityUtils.cleaned(_sensitivityYieldDiscounting, tolerance);
-    final Map<String, List<ForwardSensitivity>> resultFwd = MulticurveSensitivityUtils.cleanedFwd(_sensitivityForward, tolerance);
-    return new MulticurveSensitivity(resultDsc, resultFwd);
+    return DenseMulticurveSensitivity.of(this).clean(tolerance).toMulticurveSensitivity();
   }
 
   @Override
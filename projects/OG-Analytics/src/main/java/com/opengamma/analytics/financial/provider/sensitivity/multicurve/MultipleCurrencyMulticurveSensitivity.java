@@ -5,6 +5,8 @@
  */
 package com.opengamma.analytics.financial.provider.sensitivity.multicurve;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -115,6 +117,37 @@ public class MultipleCurrencyMulticurveSensitivity {
     return result;
   }
 
+  /**
+   * Create a new multiple currency sensitivity by adding a list of multiple currency sensitivities.
+   * The result is the same as adding them in order with {@link #plus(MultipleCurrencyMulticurveSensitivity)} but the points for each currency are
+   * accumulated once into a {@link DenseMulticurveSensitivity} rather than the lists being copied at each step.
+   * @param sensitivities The multiple currency sensitivities. Not null or empty.
+   * @return The new multiple currency sensitivity.
+   */
+  public static MultipleCurrencyMulticurveSensitivity plus(final List<MultipleCurrencyMulticurveSensitivity> sensitivities) {
+    ArgumentChecker.notEmpty(sensitivities, "Sensitivities");
+    if (sensitivities.size() == 1) {
+      return sensitivities.get(0);
+    }
+    final Map<Currency, DenseMulticurveSensitivity> dense = new HashMap<>();
+    // Adding a sensitivity places its points before the existing ones so accumulate from the last
+    for (int loopsens = sensitivities.size() - 1; loopsens >= 0; loopsens--) {
+      for (final Map.Entry<Currency, MulticurveSensitivity> entry : sensitivities.get(loopsens)._sensitivity.entrySet()) {
+        DenseMulticurveSensitivity sensitivity = dense.get(entry.getKey());
+        if (sensitivity == null) {
+          sensitivity = new DenseMulticurveSensitivity();
+          dense.put(entry.getKey(), sensitivity);
+        }
+        sensitivity.plus(entry.getValue());
+      }
+    }
+    final TreeMap<Currency, MulticurveSensitivity> map = new TreeMap<>();
+    for (final Map.Entry<Currency, DenseMulticurveSensitivity> entry : dense.entrySet()) {
+      map.put(entry.getKey(), entry.getValue().toMulticurveSensitivity());
+    }
+    return new MultipleCurrencyMulticurveSensitivity(map);
+  }
+
   /**
    * Create a new multiple currency sensitivity by multiplying all the sensitivities in a multiple currency sensitivity by a common factor.
    * @param factor The multiplicative factor.
@@ -44,6 +44,24 @@ public abstract class DoublesCurve extends Curve<Double, Double> implements Seri
    */
   public abstract Double[] getYValueParameterSensitivity(Double x);
 
+  /**
+   * Adds the sensitivity of the Y value with respect to the curve parameters, multiplied by the sensitivity of some quantity
+   * to the Y value, to the sensitivities of the quantity to the curve parameters.
+   * <p>
+   * This is the adjoint form of {@link #getYValueParameterSensitivity(Double)}. The default implementation uses that method;
+   * curves with a cheaper calculation override it.
+   * 
+   * @param x  the value at which the parameter sensitivity is computed
+   * @param yBar  the sensitivity of the quantity to the Y value
+   * @param parameterBar  the sensitivities of the quantity to the curve parameters, incremented in place, not null
+   */
+  public void addYValueParameterSensitivity(final double x, final double yBar, final double[] parameterBar) {
+    final Double[] sensitivity = getYValueParameterSensitivity(x);
+    for (int i = 0; i < sensitivity.length; i++) {
+      parameterBar[i] += yBar * sensitivity[i];
+    }
+  }
+
   /**
    * Compute the first derivative of the curve, $\frac{dy}{dx}$.
    * 
@@ -147,6 +147,19 @@ public final class DoublesCurveInterpolatedAnchor extends InterpolatedDoublesCur
     return sensitivity;
   }
 
+  @Override
+  public void addYValueParameterSensitivity(final double x, final double yBar, final double[] parameterBar) {
+    ArgumentChecker.notNull(parameterBar, "parameterBar");
+    final double[] sensitivityWithAnchor = new double[super.size()];
+    super.addYValueParameterSensitivity(x, yBar, sensitivityWithAnchor);
+    for (int i = 0; i < _anchorIndex; i++) {
+      parameterBar[i] += sensitivityWithAnchor[i];
+    }
+    for (int i = _anchorIndex + 1; i < sensitivityWithAnchor.length; i++) {
+      parameterBar[i - 1] += sensitivityWithAnchor[i];
+    }
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public boolean equals(Object obj) {
@@ -537,13 +537,32 @@ public class InterpolatedDoublesCurve extends ArraysDoublesCurve {
   @Override
   public Double getYValue(final Double x) {
     ArgumentChecker.notNull(x, "x");
-    return _interpolator.interpolate(_dataBundle, x);
+    return _interpolator.interpolate(_dataBundle, x.doubleValue());
+  }
+
+  /**
+   * Gets the <i>y</i> values for a set of <i>x</i> values. The <i>x</i> values should be in ascending order so the interpolator can evaluate them in a
+   * single pass over the curve's data.
+   * @param x The <i>x</i> values, in ascending order, not null
+   * @return The <i>y</i> values
+   */
+  public double[] getYValues(final double[] x) {
+    ArgumentChecker.notNull(x, "x");
+    final double[] y = new double[x.length];
+    _interpolator.interpolate(_dataBundle, x, y);
+    return y;
   }
 
   @Override
   public Double[] getYValueParameterSensitivity(final Double x) {
     ArgumentChecker.notNull(x, "x");
-    return ArrayUtils.toObject(_interpolator.getNodeSensitivitiesForValue(_dataBundle, x));
+    return ArrayUtils.toObject(_interpolator.getNodeSensitivitiesForValue(_dataBundle, x.doubleValue()));
+  }
+
+  @Override
+  public void addYValueParameterSensitivity(final double x, final double yBar, final double[] parameterBar) {
+    ArgumentChecker.notNull(parameterBar, "parameterBar");
+    _interpolator.addNodeSensitivitiesForValue(_dataBundle, x, yBar, parameterBar);
   }
 
   public Interpolator1D getInterpolator() {
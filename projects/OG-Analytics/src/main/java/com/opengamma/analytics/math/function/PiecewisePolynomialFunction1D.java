@@ -60,6 +60,44 @@ public class PiecewisePolynomialFunction1D {
     return new DoubleMatrix1D(res);
   }
 
+  /**
+   * Evaluates the first piecewise polynomial at a range of keys. For keys in ascending order the knots are walked once rather than searched for each key.
+   * Keys out of order give the same results but without that benefit.
+   * @param pp PiecewisePolynomialResult
+   * @param xKeys The keys, in ascending order
+   * @param fromIndex The index of the first key to evaluate
+   * @param toIndex The index after the last key to evaluate
+   * @param result Receives the values at the same indices as the keys
+   */
+  public void evaluate(final PiecewisePolynomialResult pp, final double[] xKeys, final int fromIndex, final int toIndex, final double[] result) {
+    ArgumentChecker.notNull(pp, "pp");
+    ArgumentChecker.notNull(xKeys, "xKeys");
+    ArgumentChecker.notNull(result, "result");
+
+    final double[] knots = pp.getKnots().getData();
+    final int lastInterval = knots.length - 2;
+    final double[][] coefMatrix = pp.getCoefMatrix().getData();
+    final int dim = pp.getDimensions();
+
+    int indicator = 0;
+    for (int i = fromIndex; i < toIndex; ++i) {
+      final double xKey = xKeys[i];
+      ArgumentChecker.isFalse(Double.isNaN(xKey), "xKeys containing NaN");
+      ArgumentChecker.isFalse(Double.isInfinite(xKey), "xKeys containing Infinity");
+      if (xKey < knots[indicator]) {
+        indicator = Math.min(FunctionUtils.getLowerBoundIndex(knots, xKey), lastInterval);
+      } else {
+        while (indicator < lastInterval && knots[indicator + 1] <= xKey) {
+          ++indicator;
+        }
+      }
+      final double res = getValue(coefMatrix[dim * indicator], xKey, knots[indicator]);
+      ArgumentChecker.isFalse(Double.isInfinite(res), "Too large input");
+      ArgumentChecker.isFalse(Double.isNaN(res), "Too large input");
+      result[i] = res;
+    }
+  }
+
   /**
    * @param pp PiecewisePolynomialResult
    * @param xKeys 
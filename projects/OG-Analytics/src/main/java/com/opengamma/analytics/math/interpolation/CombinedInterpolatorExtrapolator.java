@@ -67,8 +67,13 @@ public class CombinedInterpolatorExtrapolator extends Interpolator1D {
   //TODO  fail earlier if there's no extrapolators?
   @Override
   public Double interpolate(final Interpolator1DDataBundle data, final Double value) {
-    Validate.notNull(data, "data");
     Validate.notNull(value, "value");
+    return interpolate(data, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
+    Validate.notNull(data, "data");
     if (value < data.firstKey()) {
       if (_leftExtrapolator != null) {
         return _leftExtrapolator.interpolate(data, value);
@@ -81,6 +86,26 @@ public class CombinedInterpolatorExtrapolator extends Interpolator1D {
     return _interpolator.interpolate(data, value);
   }
 
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] sortedValues, final int fromIndex, final int toIndex, final double[] result) {
+    final double first = data.firstKey();
+    final double last = data.lastKey();
+    int i = fromIndex;
+    while ((i < toIndex) && (sortedValues[i] < first)) {
+      result[i] = interpolate(data, sortedValues[i]);
+      i++;
+    }
+    // Pass the run of values within the data to the interpolator in one batch
+    int j = i;
+    while ((j < toIndex) && (sortedValues[j] >= first) && (sortedValues[j] <= last)) {
+      j++;
+    }
+    _interpolator.interpolate(data, sortedValues, i, j, result);
+    for (; j < toIndex; j++) {
+      result[j] = interpolate(data, sortedValues[j]);
+    }
+  }
+
   @Override
   public double firstDerivative(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(data, "data");
@@ -99,8 +124,13 @@ public class CombinedInterpolatorExtrapolator extends Interpolator1D {
 
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
-    Validate.notNull(data, "data");
     Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
+    Validate.notNull(data, "data");
     if (value < data.firstKey()) {
       if (_leftExtrapolator != null) {
         return _leftExtrapolator.getNodeSensitivitiesForValue(data, value);
@@ -113,6 +143,23 @@ public class CombinedInterpolatorExtrapolator extends Interpolator1D {
     return _interpolator.getNodeSensitivitiesForValue(data, value);
   }
 
+  @Override
+  public void addNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value, final double valueBar, final double[] nodeBar) {
+    Validate.notNull(data, "data");
+    if (value < data.firstKey()) {
+      if (_leftExtrapolator != null) {
+        _leftExtrapolator.addNodeSensitivitiesForValue(data, value, valueBar, nodeBar);
+        return;
+      }
+    } else if (value > data.lastKey()) {
+      if (_rightExtrapolator != null) {
+        _rightExtrapolator.addNodeSensitivitiesForValue(data, value, valueBar, nodeBar);
+        return;
+      }
+    }
+    _interpolator.addNodeSensitivitiesForValue(data, value, valueBar, nodeBar);
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("Interpolator[interpolator=");
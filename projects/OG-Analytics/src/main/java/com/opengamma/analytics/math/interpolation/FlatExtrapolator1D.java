@@ -64,4 +64,17 @@ public class FlatExtrapolator1D extends Interpolator1D {
     }
     throw new IllegalArgumentException("Value " + value + " was within data range");
   }
+
+  @Override
+  public void addNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value, final double valueBar, final double[] nodeBar) {
+    Validate.notNull(data, "data");
+    if (value < data.firstKey()) {
+      nodeBar[0] += valueBar;
+      return;
+    } else if (value > data.lastKey()) {
+      nodeBar[data.size() - 1] += valueBar;
+      return;
+    }
+    throw new IllegalArgumentException("Value " + value + " was within data range");
+  }
 }
@@ -6,6 +6,7 @@
 package com.opengamma.analytics.math.interpolation;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.SortedMap;
 
@@ -15,6 +16,8 @@ import org.apache.commons.lang.Validate;
 import com.opengamma.analytics.math.differentiation.FiniteDifferenceType;
 import com.opengamma.analytics.math.differentiation.ScalarFirstOrderDifferentiator;
 import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.interpolation.data.ArrayInterpolator1DDataBundle;
+import com.opengamma.analytics.math.interpolation.data.Interpolator1DCubicSplineDataBundle;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 
 /**
@@ -28,6 +31,119 @@ public abstract class Interpolator1D implements Interpolator<Interpolator1DDataB
   @Override
   public abstract Double interpolate(Interpolator1DDataBundle data, Double value);
 
+  /**
+   * Computes the interpolated value without boxing.
+   * <p>
+   * Note: this delegates to {@link #interpolate(Interpolator1DDataBundle, Double)} - this method is expected to be overridden for concrete classes
+   * used on performance critical paths, with the boxed form implemented in terms of it.
+   * @param data Interpolation data
+   * @param value The value for which the interpolation is computed
+   * @return The interpolated value
+   */
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
+    return interpolate(data, Double.valueOf(value));
+  }
+
+  /**
+   * Computes the interpolated values at a number of points. The points are expected to be in ascending order; implementations can then locate each
+   * one by advancing from the position of the previous one rather than searching the data again. Points out of order give the same results but
+   * without that benefit.
+   * @param data Interpolation data
+   * @param sortedValues The values for which the interpolation is computed, in ascending order
+   * @param result Receives the interpolated values at the same indices as the values, at least as long as the values
+   */
+  public void interpolate(final Interpolator1DDataBundle data, final double[] sortedValues, final double[] result) {
+    Validate.notNull(data, "data");
+    Validate.notNull(sortedValues, "values");
+    Validate.notNull(result, "result");
+    Validate.isTrue(result.length >= sortedValues.length, "result array too short");
+    interpolate(data, sortedValues, 0, sortedValues.length, result);
+  }
+
+  /**
+   * Computes the interpolated values for a range of points. This is the batch operation to override in concrete classes; the default evaluates each
+   * point in turn using {@link #interpolate(Interpolator1DDataBundle, double)}.
+   * @param data Interpolation data, not null
+   * @param sortedValues The values for which the interpolation is computed, in ascending order, not null
+   * @param fromIndex The index of the first value to interpolate
+   * @param toIndex The index after the last value to interpolate
+   * @param result Receives the interpolated values at the same indices as the values, not null
+   */
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] sortedValues, final int fromIndex, final int toIndex, final double[] result) {
+    for (int i = fromIndex; i < toIndex; i++) {
+      result[i] = interpolate(data, sortedValues[i]);
+    }
+  }
+
+  /**
+   * Tests whether the keys and values of a data bundle are held in arrays, which {@link Interpolator1DDataBundle#getKeys()} and
+   * {@link Interpolator1DDataBundle#getValues()} return without copying. Other bundles, such as those backed by a map, build new arrays on each
+   * call so the array searches below should not be used with them.
+   * @param data The data bundle
+   * @return True if the bundle is backed by arrays
+   */
+  protected static boolean isArrayBacked(final Interpolator1DDataBundle data) {
+    if (data instanceof ArrayInterpolator1DDataBundle) {
+      return true;
+    }
+    if (data instanceof Interpolator1DCubicSplineDataBundle) {
+      return isArrayBacked(((Interpolator1DCubicSplineDataBundle) data).getUnderlyingData());
+    }
+    return false;
+  }
+
+  /**
+   * Finds the index of the largest key that is less than or equal to the value. This is the same as
+   * {@link Interpolator1DDataBundle#getLowerBoundIndex(Double)} for bundles backed by the array of keys.
+   * @param keys The keys, in ascending order
+   * @param value The value
+   * @return The index
+   * @throws IllegalArgumentException if the value is outside the range of the keys
+   */
+  protected static int getLowerBoundIndex(final double[] keys, final double value) {
+    final int n = keys.length;
+    if (value < keys[0]) {
+      throw new IllegalArgumentException("Could not get lower bound index for " + value + ": lowest x-value is " + keys[0]);
+    }
+    if (value > keys[n - 1]) {
+      throw new IllegalArgumentException("Could not get lower bound index for " + value + ": highest x-value is " + keys[n - 1]);
+    }
+    int index = Arrays.binarySearch(keys, value);
+    if (index >= 0) {
+      return index;
+    }
+    index = -(index + 1) - 1;
+    if (value == -0. && index < n - 1 && keys[index + 1] == 0.) {
+      ++index;
+    }
+    return index;
+  }
+
+  /**
+   * Finds the index of the largest key that is less than or equal to the value, starting from a previous result. When called for values in ascending
+   * order this walks the keys once.
+   * @param keys The keys, in ascending order
+   * @param value The value
+   * @param previous The index returned for the previous value
+   * @return The index
+   * @throws IllegalArgumentException if the value is outside the range of the keys
+   */
+  protected static int getLowerBoundIndex(final double[] keys, final double value, final int previous) {
+    if (value < keys[previous]) {
+      // Out of order; search from scratch
+      return getLowerBoundIndex(keys, value);
+    }
+    final int last = keys.length - 1;
+    if (value > keys[last]) {
+      throw new IllegalArgumentException("Could not get lower bound index for " + value + ": highest x-value is " + keys[last]);
+    }
+    int index = previous;
+    while ((index < last) && (keys[index + 1] <= value)) {
+      index++;
+    }
+    return index;
+  }
+
   /**
    * Computes the gradient of the interpolant at the value.
    * <p>
@@ -104,6 +220,39 @@ public abstract class Interpolator1D implements Interpolator<Interpolator1DDataB
    */
   public abstract double[] getNodeSensitivitiesForValue(Interpolator1DDataBundle data, Double value);
 
+  /**
+   * Computes the sensitivities of the interpolated value to the input data y without boxing the value.
+   * <p>
+   * Note: this delegates to {@link #getNodeSensitivitiesForValue(Interpolator1DDataBundle, Double)} - this method is expected to be overridden for
+   * concrete classes used on performance critical paths.
+   * @param data The interpolation data.
+   * @param value The value for which the interpolation is computed.
+   * @return The sensitivity.
+   */
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
+    return getNodeSensitivitiesForValue(data, Double.valueOf(value));
+  }
+
+  /**
+   * Adds the sensitivities of the interpolated value to the input data y, multiplied by the sensitivity of some quantity to the interpolated value,
+   * to an array of sensitivities of that quantity to the input data y. This is the adjoint (reverse mode) form of
+   * {@link #getNodeSensitivitiesForValue(Interpolator1DDataBundle, double)}: the sensitivities to the nodes of any number of interpolated values
+   * are accumulated in one array without creating an array per value.
+   * <p>
+   * Note: this delegates to {@link #getNodeSensitivitiesForValue(Interpolator1DDataBundle, double)} - this method is expected to be overridden for
+   * concrete classes for which only a few nodes contribute to each interpolated value.
+   * @param data The interpolation data.
+   * @param value The value for which the interpolation is computed.
+   * @param valueBar The sensitivity of the quantity to the interpolated value.
+   * @param nodeBar The sensitivities of the quantity to the input data y, incremented in place. At least as long as the data.
+   */
+  public void addNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value, final double valueBar, final double[] nodeBar) {
+    final double[] sensitivity = getNodeSensitivitiesForValue(data, value);
+    for (int i = 0; i < sensitivity.length; i++) {
+      nodeBar[i] += valueBar * sensitivity[i];
+    }
+  }
+
   /**
    * Computes the sensitivities of the interpolated value to the input data y by using central finite difference approximation.
    * @param data The interpolation data.
@@ -25,16 +25,49 @@ public class LinearInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "Value to be interpolated must not be null");
+    return interpolate(model, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle model, final double value) {
     Validate.notNull(model, "Data bundle must not be null");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final double x1 = boundedValues.getLowerBoundKey();
-    final double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
+    if (!isArrayBacked(model)) {
+      final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
+      final double y1 = boundedValues.getLowerBoundValue();
+      if (boundedValues.getLowerBoundIndex() == model.size() - 1) {
+        return y1;
+      }
+      final double x1 = boundedValues.getLowerBoundKey();
+      return y1 + (value - x1) / (boundedValues.getHigherBoundKey() - x1) * (boundedValues.getHigherBoundValue() - y1);
+    }
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    return interpolateAt(x, y, getLowerBoundIndex(x, value), value);
+  }
+
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle model, final double[] sortedValues, final int fromIndex, final int toIndex, final double[] result) {
+    if (!isArrayBacked(model)) {
+      super.interpolate(model, sortedValues, fromIndex, toIndex, result);
+      return;
+    }
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    int index = 0;
+    for (int i = fromIndex; i < toIndex; i++) {
+      final double value = sortedValues[i];
+      index = getLowerBoundIndex(x, value, index);
+      result[i] = interpolateAt(x, y, index, value);
+    }
+  }
+
+  private static double interpolateAt(final double[] x, final double[] y, final int index, final double value) {
+    final double y1 = y[index];
+    if (index == x.length - 1) {
       return y1;
     }
-    final double x2 = boundedValues.getHigherBoundKey();
-    final double y2 = boundedValues.getHigherBoundValue();
-    return y1 + (value - x1) / (x2 - x1) * (y2 - y1);
+    final double x1 = x[index];
+    return y1 + (value - x1) / (x[index + 1] - x1) * (y[index + 1] - y1);
   }
 
   @Override
@@ -48,10 +81,12 @@ public class LinearInterpolator1D extends Interpolator1D {
       if (value > model.lastKey()) {
         throw new MathException("Value of " + value + " after last key. Use exstrapolator");
       }
-      final double[] x = model.getKeys();
-      final double[] y = model.getValues();
-      final int n = x.length;
-      return n == 1 ? 0.0 : (y[n - 1] - y[n - 2]) / (x[n - 1] - x[n - 2]);
+      if (model.size() == 1) {
+        return 0.0;
+      }
+      // The key before the last, found without copying the keys of the bundle
+      final double xPrevious = model.getLowerBoundKey(Math.nextAfter(model.lastKey(), Double.NEGATIVE_INFINITY));
+      return (model.lastValue() - model.get(xPrevious)) / (model.lastKey() - xPrevious);
     }
     final double x2 = boundedValues.getHigherBoundKey();
     final double y2 = boundedValues.getHigherBoundValue();
@@ -60,25 +95,48 @@ public class LinearInterpolator1D extends Interpolator1D {
 
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
+    Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data");
-    final int n = data.size();
-    final double[] result = new double[n];
-    final InterpolationBoundedValues boundedValues = data.getBoundedValues(value);
-    if (boundedValues.getHigherBoundKey() == null) {
-      result[n - 1] = 1.0;
-      return result;
-    }
-    final int index = data.getLowerBoundIndex(value);
-    final double x1 = boundedValues.getLowerBoundKey();
-    final double x2 = boundedValues.getHigherBoundKey();
-    final double dx = x2 - x1;
-    final double a = (x2 - value) / dx;
-    final double b = 1 - a;
-    result[index] = a;
-    result[index + 1] = b;
+    final double[] result = new double[data.size()];
+    addNodeSensitivitiesForValue(data, value, 1.0, result);
     return result;
   }
 
+  @Override
+  public void addNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value, final double valueBar, final double[] nodeBar) {
+    Validate.notNull(data, "data");
+    final int index;
+    final double x1;
+    final double x2;
+    if (isArrayBacked(data)) {
+      final double[] x = data.getKeys();
+      index = getLowerBoundIndex(x, value);
+      if (index == x.length - 1) {
+        nodeBar[index] += valueBar;
+        return;
+      }
+      x1 = x[index];
+      x2 = x[index + 1];
+    } else {
+      final InterpolationBoundedValues boundedValues = data.getBoundedValues(value);
+      index = boundedValues.getLowerBoundIndex();
+      if (boundedValues.getHigherBoundKey() == null) {
+        nodeBar[data.size() - 1] += valueBar;
+        return;
+      }
+      x1 = boundedValues.getLowerBoundKey();
+      x2 = boundedValues.getHigherBoundKey();
+    }
+    final double a = (x2 - value) / (x2 - x1);
+    nodeBar[index] += valueBar * a;
+    nodeBar[index + 1] += valueBar * (1 - a);
+  }
+
   @Override
   public Interpolator1DDataBundle getDataBundle(final double[] x, final double[] y) {
     return new ArrayInterpolator1DDataBundle(x, y);
@@ -28,16 +28,49 @@ public class LogLinearInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "value");
+    return interpolate(model, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle model, final double value) {
     Validate.notNull(model, "data bundle");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final Double x1 = boundedValues.getLowerBoundKey();
-    final Double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
+    if (!isArrayBacked(model)) {
+      final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
+      final double y1 = boundedValues.getLowerBoundValue();
+      if (boundedValues.getLowerBoundIndex() == model.size() - 1) {
+        return y1;
+      }
+      final double x1 = boundedValues.getLowerBoundKey();
+      return Math.pow(boundedValues.getHigherBoundValue() / y1, (value - x1) / (boundedValues.getHigherBoundKey() - x1)) * y1;
+    }
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    return interpolateAt(x, y, getLowerBoundIndex(x, value), value);
+  }
+
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle model, final double[] sortedValues, final int fromIndex, final int toIndex, final double[] result) {
+    if (!isArrayBacked(model)) {
+      super.interpolate(model, sortedValues, fromIndex, toIndex, result);
+      return;
+    }
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    int index = 0;
+    for (int i = fromIndex; i < toIndex; i++) {
+      final double value = sortedValues[i];
+      index = getLowerBoundIndex(x, value, index);
+      result[i] = interpolateAt(x, y, index, value);
+    }
+  }
+
+  private static double interpolateAt(final double[] x, final double[] y, final int index, final double value) {
+    final double y1 = y[index];
+    if (index == x.length - 1) {
       return y1;
     }
-    final Double x2 = boundedValues.getHigherBoundKey();
-    final Double y2 = boundedValues.getHigherBoundValue();
-    return Math.pow(y2 / y1, (value - x1) / (x2 - x1)) * y1;
+    final double x1 = x[index];
+    return Math.pow(y[index + 1] / y1, (value - x1) / (x[index + 1] - x1)) * y1;
   }
 
   @Override
@@ -66,7 +99,55 @@ public class LogLinearInterpolator1D extends Interpolator1D {
   }
 
   @Override
-  public double[] getNodeSensitivitiesForValue(Interpolator1DDataBundle data, Double value) {
-    return getFiniteDifferenceSensitivities(data, value);
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
+    Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
+    Validate.notNull(data, "data bundle");
+    final double[] result = new double[data.size()];
+    addNodeSensitivitiesForValue(data, value, 1.0, result);
+    return result;
+  }
+
+  @Override
+  public void addNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value, final double valueBar, final double[] nodeBar) {
+    Validate.notNull(data, "data bundle");
+    final int index;
+    final double x1;
+    final double x2;
+    final double y1;
+    final double y2;
+    if (isArrayBacked(data)) {
+      final double[] x = data.getKeys();
+      final double[] y = data.getValues();
+      index = getLowerBoundIndex(x, value);
+      if (index == x.length - 1) {
+        nodeBar[index] += valueBar;
+        return;
+      }
+      x1 = x[index];
+      x2 = x[index + 1];
+      y1 = y[index];
+      y2 = y[index + 1];
+    } else {
+      final InterpolationBoundedValues boundedValues = data.getBoundedValues(value);
+      index = boundedValues.getLowerBoundIndex();
+      if (boundedValues.getHigherBoundKey() == null) {
+        nodeBar[data.size() - 1] += valueBar;
+        return;
+      }
+      x1 = boundedValues.getLowerBoundKey();
+      x2 = boundedValues.getHigherBoundKey();
+      y1 = boundedValues.getLowerBoundValue();
+      y2 = boundedValues.getHigherBoundValue();
+    }
+    // y = y1^(1-w) * y2^w, so dy/dy1 = (1-w) * y / y1 and dy/dy2 = w * y / y2
+    final double w = (value - x1) / (x2 - x1);
+    final double yBar = valueBar * Math.pow(y2 / y1, w) * y1;
+    nodeBar[index] += yBar * (1 - w) / y1;
+    nodeBar[index + 1] += yBar * w / y2;
   }
 }
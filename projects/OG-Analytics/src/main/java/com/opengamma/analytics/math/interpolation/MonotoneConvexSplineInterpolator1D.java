@@ -34,6 +34,11 @@ public class MonotoneConvexSplineInterpolator1D extends PiecewisePolynomialInter
   @Override
   public Double interpolate(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(value, "value");
+    return interpolate(data, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data bundle");
     Validate.isTrue(data instanceof Interpolator1DPiecewisePoynomialWithExtraKnotsDataBundle);
     final Interpolator1DPiecewisePoynomialWithExtraKnotsDataBundle polyData = (Interpolator1DPiecewisePoynomialWithExtraKnotsDataBundle) data;
@@ -41,6 +46,12 @@ public class MonotoneConvexSplineInterpolator1D extends PiecewisePolynomialInter
     return res.getEntry(0);
   }
 
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] sortedValues, final int fromIndex, final int toIndex, final double[] result) {
+    Validate.isTrue(data instanceof Interpolator1DPiecewisePoynomialWithExtraKnotsDataBundle);
+    FUNC.evaluate(((Interpolator1DPiecewisePoynomialWithExtraKnotsDataBundle) data).getPiecewisePolynomialResult(), sortedValues, fromIndex, toIndex, result);
+  }
+
   @Override
   public double firstDerivative(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(value, "value");
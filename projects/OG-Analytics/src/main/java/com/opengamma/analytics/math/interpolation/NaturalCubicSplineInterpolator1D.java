@@ -9,6 +9,7 @@ import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.MathException;
 import com.opengamma.analytics.math.interpolation.data.ArrayInterpolator1DDataBundle;
+import com.opengamma.analytics.math.interpolation.data.InterpolationBoundedValues;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DCubicSplineDataBundle;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 
@@ -30,24 +31,66 @@ public class NaturalCubicSplineInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(value, "value");
+    return interpolate(data, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data bundle");
     Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
-    Interpolator1DCubicSplineDataBundle splineData = (Interpolator1DCubicSplineDataBundle) data;
-    final int low = data.getLowerBoundIndex(value);
-    final int high = low + 1;
-    final int n = data.size() - 1;
+    final Interpolator1DCubicSplineDataBundle splineData = (Interpolator1DCubicSplineDataBundle) data;
+    if (!isArrayBacked(data)) {
+      final InterpolationBoundedValues boundedValues = data.getBoundedValues(value);
+      final int low = boundedValues.getLowerBoundIndex();
+      if (low == data.size() - 1) {
+        return boundedValues.getLowerBoundValue();
+      }
+      final double[] y2 = splineData.getSecondDerivatives();
+      final double xLow = boundedValues.getLowerBoundKey();
+      final double xHigh = boundedValues.getHigherBoundKey();
+      final double delta = xHigh - xLow;
+      if (Math.abs(delta) < _eps) {
+        throw new MathException("x data points were not distinct");
+      }
+      final double a = (xHigh - value) / delta;
+      final double b = (value - xLow) / delta;
+      return a * boundedValues.getLowerBoundValue() + b * boundedValues.getHigherBoundValue() + (a * (a * a - 1) * y2[low] + b * (b * b - 1) * y2[low + 1]) *
+          delta * delta / 6.;
+    }
+    final double[] xData = data.getKeys();
+    return interpolateAt(xData, data.getValues(), splineData.getSecondDerivatives(), getLowerBoundIndex(xData, value), value);
+  }
+
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] sortedValues, final int fromIndex, final int toIndex, final double[] result) {
+    Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
+    if (!isArrayBacked(data)) {
+      super.interpolate(data, sortedValues, fromIndex, toIndex, result);
+      return;
+    }
     final double[] xData = data.getKeys();
     final double[] yData = data.getValues();
-    if (data.getLowerBoundIndex(value) == n) {
+    final double[] y2 = ((Interpolator1DCubicSplineDataBundle) data).getSecondDerivatives();
+    int low = 0;
+    for (int i = fromIndex; i < toIndex; i++) {
+      final double value = sortedValues[i];
+      low = getLowerBoundIndex(xData, value, low);
+      result[i] = interpolateAt(xData, yData, y2, low, value);
+    }
+  }
+
+  private double interpolateAt(final double[] xData, final double[] yData, final double[] y2, final int low, final double value) {
+    final int n = xData.length - 1;
+    if (low == n) {
       return yData[n];
     }
+    final int high = low + 1;
     final double delta = xData[high] - xData[low];
     if (Math.abs(delta) < _eps) {
       throw new MathException("x data points were not distinct");
     }
     final double a = (xData[high] - value) / delta;
     final double b = (value - xData[low]) / delta;
-    final double[] y2 = splineData.getSecondDerivatives();
     return a * yData[low] + b * yData[high] + (a * (a * a - 1) * y2[low] + b * (b * b - 1) * y2[high]) * delta * delta / 6.;
   }
 
@@ -81,21 +124,43 @@ public class NaturalCubicSplineInterpolator1D extends Interpolator1D {
 
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
+    Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data");
     Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
-    Interpolator1DCubicSplineDataBundle cubicData = (Interpolator1DCubicSplineDataBundle) data;
+    final Interpolator1DCubicSplineDataBundle cubicData = (Interpolator1DCubicSplineDataBundle) data;
     final int n = cubicData.size();
     final double[] result = new double[n];
-    if (cubicData.getLowerBoundIndex(value) == n - 1) {
-      result[n - 1] = 1.0;
-      return result;
+    final int low;
+    final double xLow;
+    final double xHigh;
+    if (isArrayBacked(cubicData)) {
+      final double[] xData = cubicData.getKeys();
+      low = getLowerBoundIndex(xData, value);
+      if (low == n - 1) {
+        result[n - 1] = 1.0;
+        return result;
+      }
+      xLow = xData[low];
+      xHigh = xData[low + 1];
+    } else {
+      final InterpolationBoundedValues boundedValues = cubicData.getBoundedValues(value);
+      low = boundedValues.getLowerBoundIndex();
+      if (low == n - 1) {
+        result[n - 1] = 1.0;
+        return result;
+      }
+      xLow = boundedValues.getLowerBoundKey();
+      xHigh = boundedValues.getHigherBoundKey();
     }
-    final double[] xData = cubicData.getKeys();
-    final int low = cubicData.getLowerBoundIndex(value);
     final int high = low + 1;
-    final double delta = xData[high] - xData[low];
-    final double a = (xData[high] - value) / delta;
-    final double b = (value - xData[low]) / delta;
+    final double delta = xHigh - xLow;
+    final double a = (xHigh - value) / delta;
+    final double b = (value - xLow) / delta;
     final double c = a * (a * a - 1) * delta * delta / 6.;
     final double d = b * (b * b - 1) * delta * delta / 6.;
     final double[][] y2Sensitivities = cubicData.getSecondDerivativesSensitivities();
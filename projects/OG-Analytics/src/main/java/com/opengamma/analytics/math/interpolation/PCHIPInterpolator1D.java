@@ -29,6 +29,11 @@ public class PCHIPInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(value, "value");
+    return interpolate(data, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data bundle");
     Validate.isTrue(data instanceof Interpolator1DPiecewisePoynomialDataBundle);
     final Interpolator1DPiecewisePoynomialDataBundle polyData = (Interpolator1DPiecewisePoynomialDataBundle) data;
@@ -36,6 +41,12 @@ public class PCHIPInterpolator1D extends Interpolator1D {
     return res.getEntry(0);
   }
 
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] sortedValues, final int fromIndex, final int toIndex, final double[] result) {
+    Validate.isTrue(data instanceof Interpolator1DPiecewisePoynomialDataBundle);
+    FUNC.evaluate(((Interpolator1DPiecewisePoynomialDataBundle) data).getPiecewisePolynomialResultsWithSensitivity(), sortedValues, fromIndex, toIndex, result);
+  }
+
   @Override
   public double firstDerivative(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(value, "value");
@@ -153,6 +153,14 @@ public class Interpolator1DCubicSplineDataBundle implements Interpolator1DDataBu
     return _underlyingData.size();
   }
 
+  /**
+   * Gets the data bundle holding the keys and values.
+   * @return The underlying data bundle
+   */
+  public Interpolator1DDataBundle getUnderlyingData() {
+    return _underlyingData;
+  }
+
   public double[] getSecondDerivatives() {
     if (_secondDerivatives == null) {
       _secondDerivatives = calculateSecondDerivative();
@@ -11,6 +11,8 @@ import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 
 /**
  * OpenGamma implementation of the Cholesky decomposition and its differentiation.
+ * <p>
+ * The factor is computed row by row (Cholesky-Banachiewicz), so that all the inner loops run along contiguous rows.
  */
 public class CholeskyDecompositionOpenGamma extends Decomposition<CholeskyDecompositionResult> {
 
@@ -56,19 +58,26 @@ public class CholeskyDecompositionOpenGamma extends Decomposition<CholeskyDecomp
         l[looprow][loopcol] = matrixData[looprow][loopcol];
       }
     }
-    // The decomposition
-    for (int loopcol = 0; loopcol < nbCol; loopcol++) {
-      Validate.isTrue(l[loopcol][loopcol] > positivityThreshold, "Matrix not positive");
-      l[loopcol][loopcol] = Math.sqrt(l[loopcol][loopcol]); // Pivot
-      double lInverse = 1.0 / l[loopcol][loopcol];
-      for (int looprow = loopcol + 1; looprow < nbRow; looprow++) { // Current column
-        l[looprow][loopcol] *= lInverse;
-      }
-      for (int j = loopcol + 1; j < nbRow; j++) { // Other columns
-        for (int i = j; i < nbRow; i++) {
-          l[i][j] -= l[i][loopcol] * l[j][loopcol];
+    // The decomposition, row by row so that the inner products run along the rows of l. The terms are subtracted in the same
+    // order as in the column by column elimination, so the result does not depend on the order of the loops.
+    final double[] lInverse = new double[nbRow];
+    for (int looprow = 0; looprow < nbRow; looprow++) {
+      final double[] row = l[looprow];
+      for (int loopcol = 0; loopcol < looprow; loopcol++) {
+        final double[] pivotRow = l[loopcol];
+        double value = row[loopcol];
+        for (int k = 0; k < loopcol; k++) {
+          value -= row[k] * pivotRow[k];
         }
+        row[loopcol] = value * lInverse[loopcol];
+      }
+      double diagonal = row[looprow];
+      for (int k = 0; k < looprow; k++) {
+        diagonal -= row[k] * row[k];
       }
+      Validate.isTrue(diagonal > positivityThreshold, "Matrix not positive");
+      row[looprow] = Math.sqrt(diagonal); // Pivot
+      lInverse[looprow] = 1.0 / row[looprow];
     }
     return new CholeskyDecompositionOpenGammaResult(l);
   }
@@ -14,6 +14,8 @@ import java.util.Map;
 public final class DecompositionFactory {
   /** Commons LU decomposition */
   public static final String LU_COMMONS_NAME = "LU_COMMONS";
+  /** OpenGamma LU decomposition */
+  public static final String LU_OG_NAME = "LU_OG";
   /** Commons QR decomposition */
   public static final String QR_COMMONS_NAME = "QR_COMMONS";
   /** Colt SV decomposition */
@@ -22,6 +24,8 @@ public final class DecompositionFactory {
   public static final String SV_COMMONS_NAME = "SV_COMMONS";
   /** {@link LUDecompositionCommons} */
   public static final Decomposition<?> LU_COMMONS = new LUDecompositionCommons();
+  /** {@link LUDecompositionOpenGamma} */
+  public static final Decomposition<?> LU_OG = new LUDecompositionOpenGamma();
   /** {@link QRDecompositionCommons} */
   public static final Decomposition<?> QR_COMMONS = new QRDecompositionCommons();
   /** {@link SVDecompositionColt} */
@@ -34,11 +38,13 @@ public final class DecompositionFactory {
   static {
     s_staticInstances = new HashMap<>();
     s_staticInstances.put(LU_COMMONS_NAME, LU_COMMONS);
+    s_staticInstances.put(LU_OG_NAME, LU_OG);
     s_staticInstances.put(QR_COMMONS_NAME, QR_COMMONS);
     s_staticInstances.put(SV_COLT_NAME, SV_COLT);
     s_staticInstances.put(SV_COMMONS_NAME, SV_COMMONS);
     s_instanceNames = new HashMap<>();
     s_instanceNames.put(LU_COMMONS.getClass(), LU_COMMONS_NAME);
+    s_instanceNames.put(LU_OG.getClass(), LU_OG_NAME);
     s_instanceNames.put(QR_COMMONS.getClass(), QR_COMMONS_NAME);
     s_instanceNames.put(SV_COLT.getClass(), SV_COLT_NAME);
     s_instanceNames.put(SV_COMMONS.getClass(), SV_COMMONS_NAME);
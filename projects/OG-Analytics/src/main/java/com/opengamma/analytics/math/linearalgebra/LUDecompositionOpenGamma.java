@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * OpenGamma implementation of the LU decomposition with partial (row) pivoting.
+ * <p>
+ * The matrix is copied once into a contiguous row-major array in which the decomposition is done in place; the result works on the same array.
+ * The elimination is done row by row (right-looking), so the inner loops run along contiguous rows. For large matrices the update of the
+ * remaining rows at each step can be done in parallel on a fork-join pool.
+ */
+public class LUDecompositionOpenGamma extends Decomposition<LUDecompositionResult> {
+
+  /** Serialization version. */
+  private static final long serialVersionUID = 1L;
+  /**
+   * The default threshold under which a pivot is considered as zero and the matrix singular.
+   */
+  public static final double DEFAULT_SINGULARITY_THRESHOLD = 1.0E-11;
+  /**
+   * The default number of multiply-adds in a step above which the step is done in parallel.
+   */
+  public static final long DEFAULT_PARALLEL_THRESHOLD = 1L << 16;
+
+  /**
+   * The singularity threshold.
+   */
+  private final double _singularityThreshold;
+  /**
+   * The number of multiply-adds in a step above which the step is done in parallel.
+   */
+  private final long _parallelThreshold;
+  /**
+   * The pool for the parallel steps, null for a sequential decomposition.
+   */
+  private final transient ForkJoinPool _pool;
+
+  /**
+   * Creates a sequential decomposition with the default singularity threshold.
+   */
+  public LUDecompositionOpenGamma() {
+    this(DEFAULT_SINGULARITY_THRESHOLD, DEFAULT_PARALLEL_THRESHOLD, null);
+  }
+
+  /**
+   * Creates a decomposition.
+   * @param singularityThreshold The threshold under which a pivot is considered as zero, not negative.
+   * @param parallelThreshold The number of multiply-adds in a step above which the step is done in parallel.
+   * @param pool The pool for the parallel steps, null for a sequential decomposition.
+   */
+  public LUDecompositionOpenGamma(final double singularityThreshold, final long parallelThreshold, final ForkJoinPool pool) {
+    ArgumentChecker.notNegative(singularityThreshold, "singularity threshold");
+    _singularityThreshold = singularityThreshold;
+    _parallelThreshold = parallelThreshold;
+    _pool = pool;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public LUDecompositionResult evaluate(final DoubleMatrix2D x) {
+    final int n = x == null ? 0 : x.getNumberOfRows();
+    final double[] lu = copy(x);
+    final int[] pivot = new int[n];
+    final double sign = decompose(lu, n, pivot);
+    Validate.isTrue(sign != 0.0, "Matrix is singular; could not perform LU decomposition");
+    return new LUDecompositionOpenGammaResult(lu, n, pivot, determinant(lu, n, sign));
+  }
+
+  /**
+   * Computes the determinant of a matrix with the decomposition, without creating the result. A singular matrix has a determinant of zero.
+   * @param x The matrix, not null and square.
+   * @return The determinant.
+   */
+  public double getDeterminant(final DoubleMatrix2D x) {
+    final int n = x == null ? 0 : x.getNumberOfRows();
+    final double[] lu = copy(x);
+    final double sign = decompose(lu, n, new int[n]);
+    return sign == 0.0 ? 0.0 : determinant(lu, n, sign);
+  }
+
+  /**
+   * Copies a square matrix into a contiguous row-major array.
+   * @param x The matrix.
+   * @return The copy.
+   */
+  private static double[] copy(final DoubleMatrix2D x) {
+    Validate.notNull(x, "Matrix null");
+    final int n = x.getNumberOfRows();
+    Validate.isTrue(n == x.getNumberOfColumns(), "Matrix not square");
+    final double[][] data = x.getData();
+    final double[] lu = new double[n * n];
+    for (int looprow = 0; looprow < n; looprow++) {
+      System.arraycopy(data[looprow], 0, lu, looprow * n, n);
+    }
+    return lu;
+  }
+
+  /**
+   * Decomposes a matrix in place.
+   * @param lu The matrix, row-major, replaced by the decomposition.
+   * @param n The matrix size.
+   * @param pivot The array filled with the row permutation.
+   * @return The sign of the permutation, or zero if a pivot is under the singularity threshold.
+   */
+  private double decompose(final double[] lu, final int n, final int[] pivot) {
+    for (int looprow = 0; looprow < n; looprow++) {
+      pivot[looprow] = looprow;
+    }
+    boolean even = true;
+    final double[] tmp = new double[n];
+    for (int k = 0; k < n; k++) {
+      int p = k;
+      double max = Math.abs(lu[k * n + k]);
+      for (int looprow = k + 1; looprow < n; looprow++) {
+        final double value = Math.abs(lu[looprow * n + k]);
+        if (value > max) {
+          max = value;
+          p = looprow;
+        }
+      }
+      if (max <= _singularityThreshold) {
+        return 0.0;
+      }
+      if (p != k) {
+        System.arraycopy(lu, p * n, tmp, 0, n);
+        System.arraycopy(lu, k * n, lu, p * n, n);
+        System.arraycopy(tmp, 0, lu, k * n, n);
+        final int swap = pivot[p];
+        pivot[p] = pivot[k];
+        pivot[k] = swap;
+        even = !even;
+      }
+      final int nbRemaining = n - k - 1;
+      if (_pool != null && (long) nbRemaining * nbRemaining > _parallelThreshold) {
+        _pool.invoke(new EliminationTask(lu, n, k, k + 1, n));
+      } else {
+        eliminate(lu, n, k, k + 1, n);
+      }
+    }
+    return even ? 1.0 : -1.0;
+  }
+
+  private static double determinant(final double[] lu, final int n, final double sign) {
+    double determinant = sign;
+    for (int loopdiag = 0; loopdiag < n; loopdiag++) {
+      determinant *= lu[loopdiag * n + loopdiag];
+    }
+    return determinant;
+  }
+
+  /**
+   * Eliminates the column k from a range of rows below the pivot row k.
+   * @param lu The decomposition in progress, row-major.
+   * @param n The matrix size.
+   * @param k The pivot index.
+   * @param fromRow The first row, inclusive.
+   * @param toRow The last row, exclusive.
+   */
+  private static void eliminate(final double[] lu, final int n, final int k, final int fromRow, final int toRow) {
+    final int pivotRow = k * n;
+    final double pivotInverse = 1.0 / lu[pivotRow + k];
+    for (int looprow = fromRow; looprow < toRow; looprow++) {
+      final int row = looprow * n;
+      final double l = lu[row + k] * pivotInverse;
+      lu[row + k] = l;
+      if (l != 0.0) {
+        for (int loopcol = k + 1; loopcol < n; loopcol++) {
+          lu[row + loopcol] -= l * lu[pivotRow + loopcol];
+        }
+      }
+    }
+  }
+
+  /**
+   * Eliminates the pivot column from a range of rows, splitting the range between the threads of the pool.
+   */
+  private static final class EliminationTask extends RecursiveAction {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+    /** The minimum number of rows in a task. */
+    private static final int MIN_ROWS = 16;
+
+    private final double[] _lu;
+    private final int _n;
+    private final int _k;
+    private final int _fromRow;
+    private final int _toRow;
+
+    EliminationTask(final double[] lu, final int n, final int k, final int fromRow, final int toRow) {
+      _lu = lu;
+      _n = n;
+      _k = k;
+      _fromRow = fromRow;
+      _toRow = toRow;
+    }
+
+    @Override
+    protected void compute() {
+      if (_toRow - _fromRow > MIN_ROWS) {
+        final int middle = (_fromRow + _toRow) >>> 1;
+        invokeAll(new EliminationTask(_lu, _n, _k, _fromRow, middle), new EliminationTask(_lu, _n, _k, middle, _toRow));
+        return;
+      }
+      eliminate(_lu, _n, _k, _fromRow, _toRow);
+    }
+
+  }
+
+}
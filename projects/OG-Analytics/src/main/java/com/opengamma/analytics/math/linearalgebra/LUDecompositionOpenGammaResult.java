@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ * Results of the OpenGamma implementation of the LU decomposition ({@link LUDecompositionOpenGamma}).
+ * <p>
+ * The L and U factors are stored together in one row-major array, L having an implicit unit diagonal. The matrices returned by
+ * {@link #getL()}, {@link #getU()} and {@link #getP()} are built on demand; the solve methods work directly on the array.
+ */
+public class LUDecompositionOpenGammaResult implements LUDecompositionResult {
+
+  /**
+   * The L and U factors, row-major.
+   */
+  private final double[] _lu;
+  /**
+   * The matrix size.
+   */
+  private final int _n;
+  /**
+   * The pivot permutation: row i of PA is the row pivot[i] of A.
+   */
+  private final int[] _pivot;
+  /**
+   * The determinant.
+   */
+  private final double _determinant;
+
+  /**
+   * Constructor. The arrays are used directly and not copied.
+   * @param lu The L and U factors, row-major.
+   * @param n The matrix size.
+   * @param pivot The pivot permutation.
+   * @param determinant The determinant.
+   */
+  LUDecompositionOpenGammaResult(final double[] lu, final int n, final int[] pivot, final double determinant) {
+    _lu = lu;
+    _n = n;
+    _pivot = pivot;
+    _determinant = determinant;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getL() {
+    final double[][] l = new double[_n][_n];
+    for (int looprow = 0; looprow < _n; looprow++) {
+      System.arraycopy(_lu, looprow * _n, l[looprow], 0, looprow);
+      l[looprow][looprow] = 1.0;
+    }
+    return new DoubleMatrix2D(l);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getU() {
+    final double[][] u = new double[_n][_n];
+    for (int looprow = 0; looprow < _n; looprow++) {
+      System.arraycopy(_lu, looprow * _n + looprow, u[looprow], looprow, _n - looprow);
+    }
+    return new DoubleMatrix2D(u);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getP() {
+    final double[][] p = new double[_n][_n];
+    for (int looprow = 0; looprow < _n; looprow++) {
+      p[looprow][_pivot[looprow]] = 1.0;
+    }
+    return new DoubleMatrix2D(p);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int[] getPivot() {
+    return _pivot.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getDeterminant() {
+    return _determinant;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix1D solve(final DoubleMatrix1D b) {
+    Validate.notNull(b);
+    return new DoubleMatrix1D(solve(b.getData()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double[] solve(final double[] b) {
+    Validate.notNull(b);
+    Validate.isTrue(b.length == _n, "Vector size does not match the matrix size");
+    final double[] x = new double[_n];
+    for (int looprow = 0; looprow < _n; looprow++) {
+      x[looprow] = b[_pivot[looprow]];
+    }
+    // Forward substitution with L (unit diagonal)
+    for (int looprow = 1; looprow < _n; looprow++) {
+      final int row = looprow * _n;
+      double sum = x[looprow];
+      for (int loopcol = 0; loopcol < looprow; loopcol++) {
+        sum -= _lu[row + loopcol] * x[loopcol];
+      }
+      x[looprow] = sum;
+    }
+    // Back substitution with U
+    for (int looprow = _n - 1; looprow >= 0; looprow--) {
+      final int row = looprow * _n;
+      double sum = x[looprow];
+      for (int loopcol = looprow + 1; loopcol < _n; loopcol++) {
+        sum -= _lu[row + loopcol] * x[loopcol];
+      }
+      x[looprow] = sum / _lu[row + looprow];
+    }
+    return x;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D solve(final DoubleMatrix2D b) {
+    Validate.notNull(b);
+    Validate.isTrue(b.getNumberOfRows() == _n, "Matrix row size does not match the matrix size");
+    final int m = b.getNumberOfColumns();
+    final double[][] bData = b.getData();
+    final DoubleMatrix2D result = new DoubleMatrix2D(_n, m);
+    final double[][] x = result.getData();
+    for (int looprow = 0; looprow < _n; looprow++) {
+      System.arraycopy(bData[_pivot[looprow]], 0, x[looprow], 0, m);
+    }
+    // The right hand sides are updated row by row, so that the inner loops run along the rows of the result
+    for (int looprow = 1; looprow < _n; looprow++) {
+      final int row = looprow * _n;
+      final double[] xRow = x[looprow];
+      for (int loopk = 0; loopk < looprow; loopk++) {
+        final double l = _lu[row + loopk];
+        if (l != 0.0) {
+          final double[] xk = x[loopk];
+          for (int loopcol = 0; loopcol < m; loopcol++) {
+            xRow[loopcol] -= l * xk[loopcol];
+          }
+        }
+      }
+    }
+    for (int looprow = _n - 1; looprow >= 0; looprow--) {
+      final int row = looprow * _n;
+      final double[] xRow = x[looprow];
+      for (int loopk = looprow + 1; loopk < _n; loopk++) {
+        final double u = _lu[row + loopk];
+        if (u != 0.0) {
+          final double[] xk = x[loopk];
+          for (int loopcol = 0; loopcol < m; loopcol++) {
+            xRow[loopcol] -= u * xk[loopcol];
+          }
+        }
+      }
+      final double diagonalInverse = 1.0 / _lu[row + looprow];
+      for (int loopcol = 0; loopcol < m; loopcol++) {
+        xRow[loopcol] *= diagonalInverse;
+      }
+    }
+    return result;
+  }
+
+}
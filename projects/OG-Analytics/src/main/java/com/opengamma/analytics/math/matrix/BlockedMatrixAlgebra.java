@@ -0,0 +1,402 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.linearalgebra.LUDecompositionOpenGamma;
+import com.opengamma.analytics.math.linearalgebra.LUDecompositionResult;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Dense matrix algebra for large matrices, e.g. covariance matrices.
+ * <p>
+ * The products of two matrices, the transpose and $A^T A$ are computed by blocks, so that the blocks of the operands stay in cache while they are used;
+ * the right operand of a product is first copied in a contiguous row-major array. The inverse and the determinant use the row-major LU decomposition
+ * {@link LUDecompositionOpenGamma}. When the number of multiply-adds is above a threshold, the rows of the result are split between the threads
+ * of a fork-join pool.
+ * <p>
+ * The elements of the products are accumulated in the same order as in {@link OGMatrixAlgebra}, so the results are identical to the results of
+ * {@link OGMatrixAlgebra}, whatever the block size and the number of threads. The other operations are inherited from {@link OGMatrixAlgebra}.
+ */
+public class BlockedMatrixAlgebra extends OGMatrixAlgebra {
+
+  /**
+   * The default block size.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 64;
+  /**
+   * The default number of multiply-adds above which an operation is split between threads.
+   */
+  public static final long DEFAULT_PARALLEL_THRESHOLD = 1L << 21;
+
+  /**
+   * The block size.
+   */
+  private final int _blockSize;
+  /**
+   * The number of multiply-adds above which an operation is split between threads.
+   */
+  private final long _parallelThreshold;
+  /**
+   * The pool, null for sequential computations.
+   */
+  private final ForkJoinPool _pool;
+  /**
+   * The LU decomposition used for the inverse and the determinant.
+   */
+  private final LUDecompositionOpenGamma _luDecomposition;
+
+  /**
+   * Creates an instance with the default block size and parallel threshold, using a pool shared by the instances created with this constructor.
+   */
+  public BlockedMatrixAlgebra() {
+    this(DEFAULT_BLOCK_SIZE, DEFAULT_PARALLEL_THRESHOLD, DefaultPoolHolder.POOL);
+  }
+
+  /**
+   * Creates an instance.
+   * @param blockSize The block size, strictly positive.
+   * @param parallelThreshold The number of multiply-adds above which an operation is split between threads.
+   * @param pool The pool, null for sequential computations.
+   */
+  public BlockedMatrixAlgebra(final int blockSize, final long parallelThreshold, final ForkJoinPool pool) {
+    ArgumentChecker.isTrue(blockSize > 0, "block size must be strictly positive; have {}", blockSize);
+    _blockSize = blockSize;
+    _parallelThreshold = parallelThreshold;
+    _pool = pool;
+    _luDecomposition = new LUDecompositionOpenGamma(LUDecompositionOpenGamma.DEFAULT_SINGULARITY_THRESHOLD, LUDecompositionOpenGamma.DEFAULT_PARALLEL_THRESHOLD, pool);
+  }
+
+  /**
+   * Gets the block size.
+   * @return The block size.
+   */
+  public int getBlockSize() {
+    return _blockSize;
+  }
+
+  /**
+   * Gets the number of multiply-adds above which an operation is split between threads.
+   * @return The threshold.
+   */
+  public long getParallelThreshold() {
+    return _parallelThreshold;
+  }
+
+  /**
+   * {@inheritDoc} The determinant is computed with a LU decomposition; as for the Commons algebra, it is zero if the matrix is singular.
+   * @throws IllegalArgumentException If the matrix is not a square {@link DoubleMatrix2D}
+   */
+  @Override
+  public double getDeterminant(final Matrix<?> m) {
+    Validate.notNull(m, "m");
+    if (m instanceof DoubleMatrix2D) {
+      return _luDecomposition.getDeterminant((DoubleMatrix2D) m);
+    }
+    throw new IllegalArgumentException("Can only find determinant of DoubleMatrix2D; have " + m.getClass());
+  }
+
+  /**
+   * {@inheritDoc} The inverse is computed with a LU decomposition.
+   * @throws IllegalArgumentException If the matrix is not a square {@link DoubleMatrix2D} or if it is singular
+   */
+  @Override
+  public DoubleMatrix2D getInverse(final Matrix<?> m) {
+    Validate.notNull(m, "m");
+    if (m instanceof IdentityMatrix) {
+      return (IdentityMatrix) m;
+    }
+    if (m instanceof DoubleMatrix2D) {
+      final LUDecompositionResult lu = _luDecomposition.evaluate((DoubleMatrix2D) m);
+      return lu.solve(new IdentityMatrix(((DoubleMatrix2D) m).getNumberOfRows()));
+    }
+    throw new IllegalArgumentException("Can only find inverse of DoubleMatrix2D; have " + m.getClass());
+  }
+
+  /**
+   * {@inheritDoc} For a {@link DoubleMatrix2D}, this is the maximum over the columns of the sum of the absolute values.
+   */
+  @Override
+  public double getNorm1(final Matrix<?> m) {
+    Validate.notNull(m, "m");
+    if (m instanceof DoubleMatrix1D) {
+      final double[] a = ((DoubleMatrix1D) m).getData();
+      double sum = 0.0;
+      for (final double element : a) {
+        sum += Math.abs(element);
+      }
+      return sum;
+    } else if (m instanceof DoubleMatrix2D) {
+      final double[][] data = ((DoubleMatrix2D) m).getData();
+      final int cols = ((DoubleMatrix2D) m).getNumberOfColumns();
+      final double[] sums = new double[cols];
+      for (final double[] row : data) {
+        for (int j = 0; j < cols; j++) {
+          sums[j] += Math.abs(row[j]);
+        }
+      }
+      double max = 0.0;
+      for (final double sum : sums) {
+        max = Math.max(max, sum);
+      }
+      return max;
+    }
+    throw new IllegalArgumentException("Can only find norm1 of DoubleMatrix1D or DoubleMatrix2D; have " + m.getClass());
+  }
+
+  /**
+   * {@inheritDoc} For a {@link DoubleMatrix2D}, this is the maximum over the rows of the sum of the absolute values.
+   */
+  @Override
+  public double getNormInfinity(final Matrix<?> m) {
+    Validate.notNull(m, "m");
+    if (m instanceof DoubleMatrix1D) {
+      final double[] a = ((DoubleMatrix1D) m).getData();
+      double max = 0.0;
+      for (final double element : a) {
+        max = Math.max(max, Math.abs(element));
+      }
+      return max;
+    } else if (m instanceof DoubleMatrix2D) {
+      final double[][] data = ((DoubleMatrix2D) m).getData();
+      double max = 0.0;
+      for (final double[] row : data) {
+        double sum = 0.0;
+        for (final double element : row) {
+          sum += Math.abs(element);
+        }
+        max = Math.max(max, sum);
+      }
+      return max;
+    }
+    throw new IllegalArgumentException("Can only find normInfinity of DoubleMatrix1D or DoubleMatrix2D; have " + m.getClass());
+  }
+
+  /**
+   * {@inheritDoc} The power is computed by repeated squaring; a negative power is the power of the inverse.
+   */
+  @Override
+  public DoubleMatrix2D getPower(final Matrix<?> m, final int p) {
+    Validate.notNull(m, "m");
+    if (m instanceof DoubleMatrix2D) {
+      final DoubleMatrix2D matrix = (DoubleMatrix2D) m;
+      final int n = matrix.getNumberOfRows();
+      Validate.isTrue(n == matrix.getNumberOfColumns(), "Matrix not square");
+      if (p == 0) {
+        return new IdentityMatrix(n);
+      }
+      DoubleMatrix2D square = p > 0 ? matrix : getInverse(matrix);
+      DoubleMatrix2D result = null;
+      // Negated so that Integer.MIN_VALUE is handled
+      int remaining = p > 0 ? -p : p;
+      while (true) {
+        if ((remaining & 1) != 0) {
+          result = result == null ? new DoubleMatrix2D(square.getData()) : (DoubleMatrix2D) multiply(result, square);
+        }
+        remaining /= 2;
+        if (remaining == 0) {
+          return result;
+        }
+        square = (DoubleMatrix2D) multiply(square, square);
+      }
+    }
+    throw new IllegalArgumentException("Can only find powers of DoubleMatrix2D; have " + m.getClass());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getTranspose(final Matrix<?> m) {
+    Validate.notNull(m, "m");
+    if (m instanceof IdentityMatrix || !(m instanceof DoubleMatrix2D)) {
+      return super.getTranspose(m);
+    }
+    final double[][] data = ((DoubleMatrix2D) m).getData();
+    final int rows = data.length;
+    final int cols = data[0].length;
+    final DoubleMatrix2D result = new DoubleMatrix2D(cols, rows);
+    final double[][] res = result.getData();
+    for (int ii = 0; ii < rows; ii += _blockSize) {
+      final int iEnd = Math.min(ii + _blockSize, rows);
+      for (int jj = 0; jj < cols; jj += _blockSize) {
+        final int jEnd = Math.min(jj + _blockSize, cols);
+        for (int i = ii; i < iEnd; i++) {
+          final double[] row = data[i];
+          for (int j = jj; j < jEnd; j++) {
+            res[j][i] = row[j];
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc} The product of two {@link DoubleMatrix2D} is computed by blocks; the other combinations are computed by {@link OGMatrixAlgebra}.
+   */
+  @Override
+  public Matrix<?> multiply(final Matrix<?> m1, final Matrix<?> m2) {
+    Validate.notNull(m1, "m1");
+    Validate.notNull(m2, "m2");
+    if (m1 instanceof DoubleMatrix2D && m2 instanceof DoubleMatrix2D && !(m1 instanceof IdentityMatrix) && !(m2 instanceof IdentityMatrix)
+        && m1.getNumberOfElements() > 0 && m2.getNumberOfElements() > 0) {
+      return multiply((DoubleMatrix2D) m1, (DoubleMatrix2D) m2);
+    }
+    return super.multiply(m1, m2);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D matrixTransposeMultiplyMatrix(final DoubleMatrix2D a) {
+    ArgumentChecker.notNull(a, "a");
+    final int n = a.getNumberOfRows();
+    final int m = a.getNumberOfColumns();
+    final double[][] aData = a.getData();
+    final DoubleMatrix2D result = new DoubleMatrix2D(m, m);
+    final double[][] res = result.getData();
+    final int blockSize = _blockSize;
+    // Upper triangle, row i of the result accumulated over the rows of a, then mirrored
+    run(new RowKernel() {
+      @Override
+      public void compute(final int fromRow, final int toRow) {
+        for (int kk = 0; kk < n; kk += blockSize) {
+          final int kEnd = Math.min(kk + blockSize, n);
+          for (int i = fromRow; i < toRow; i++) {
+            final double[] resRow = res[i];
+            for (int k = kk; k < kEnd; k++) {
+              final double[] aRow = aData[k];
+              final double aki = aRow[i];
+              for (int j = i; j < m; j++) {
+                resRow[j] += aki * aRow[j];
+              }
+            }
+          }
+        }
+      }
+    }, m, (long) n * m * m / 2);
+    for (int i = 0; i < m; i++) {
+      for (int j = i + 1; j < m; j++) {
+        res[j][i] = res[i][j];
+      }
+    }
+    return result;
+  }
+
+  private DoubleMatrix2D multiply(final DoubleMatrix2D m1, final DoubleMatrix2D m2) {
+    final int m = m1.getNumberOfRows();
+    final int p = m1.getNumberOfColumns();
+    final int n = m2.getNumberOfColumns();
+    Validate.isTrue(p == m2.getNumberOfRows(), "Matrix size mismatch");
+    final double[][] aData = m1.getData();
+    final double[][] bData = m2.getData();
+    // Contiguous row-major copy of the right operand
+    final double[] b = new double[p * n];
+    for (int k = 0; k < p; k++) {
+      System.arraycopy(bData[k], 0, b, k * n, n);
+    }
+    final DoubleMatrix2D result = new DoubleMatrix2D(m, n);
+    final double[][] res = result.getData();
+    final int blockSize = _blockSize;
+    run(new RowKernel() {
+      @Override
+      public void compute(final int fromRow, final int toRow) {
+        for (int ii = fromRow; ii < toRow; ii += blockSize) {
+          final int iEnd = Math.min(ii + blockSize, toRow);
+          for (int kk = 0; kk < p; kk += blockSize) {
+            final int kEnd = Math.min(kk + blockSize, p);
+            for (int jj = 0; jj < n; jj += blockSize) {
+              final int jEnd = Math.min(jj + blockSize, n);
+              for (int i = ii; i < iEnd; i++) {
+                final double[] aRow = aData[i];
+                final double[] resRow = res[i];
+                for (int k = kk; k < kEnd; k++) {
+                  final double aik = aRow[k];
+                  final int bRow = k * n;
+                  for (int j = jj; j < jEnd; j++) {
+                    resRow[j] += aik * b[bRow + j];
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+    }, m, (long) m * n * p);
+    return result;
+  }
+
+  /**
+   * Runs a kernel on all the rows of a result, in parallel if the pool is set and the work is large enough.
+   * @param kernel The kernel.
+   * @param nbRows The number of rows.
+   * @param work The number of multiply-adds.
+   */
+  private void run(final RowKernel kernel, final int nbRows, final long work) {
+    if (_pool != null && work >= _parallelThreshold && nbRows > _blockSize) {
+      _pool.invoke(new RowTask(kernel, 0, nbRows, _blockSize));
+    } else {
+      kernel.compute(0, nbRows);
+    }
+  }
+
+  /**
+   * Computes the rows of a result in a range. The rows are independent, so different ranges can be computed by different threads.
+   */
+  private interface RowKernel {
+
+    void compute(int fromRow, int toRow);
+
+  }
+
+  /**
+   * Splits the rows of a result between the threads of a pool.
+   */
+  private static final class RowTask extends RecursiveAction {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    private final RowKernel _kernel;
+    private final int _fromRow;
+    private final int _toRow;
+    private final int _minRows;
+
+    RowTask(final RowKernel kernel, final int fromRow, final int toRow, final int minRows) {
+      _kernel = kernel;
+      _fromRow = fromRow;
+      _toRow = toRow;
+      _minRows = minRows;
+    }
+
+    @Override
+    protected void compute() {
+      if (_toRow - _fromRow > _minRows) {
+        final int middle = (_fromRow + _toRow) >>> 1;
+        invokeAll(new RowTask(_kernel, _fromRow, middle, _minRows), new RowTask(_kernel, middle, _toRow, _minRows));
+        return;
+      }
+      _kernel.compute(_fromRow, _toRow);
+    }
+
+  }
+
+  /**
+   * Holds the pool shared by the instances created with the default constructor, created on first use.
+   */
+  private static final class DefaultPoolHolder {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+
+  }
+
+}
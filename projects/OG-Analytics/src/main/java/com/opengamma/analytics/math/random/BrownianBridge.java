@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Brownian bridge construction of a Brownian motion on a set of times from independent standard normal variables.
+ * <p>
+ * The first variable gives the value at the last time, the second the value at the middle time conditionally on the last one, and so on
+ * by bisection. The large scale structure of the path is thus driven by the first variables, which is the order required by
+ * low discrepancy sequences (see {@link SobolRandomNumberGenerator}). The times are in variance units: a Brownian motion with a
+ * deterministic time dependent volatility can be obtained by using the integrated variance as time.
+ * <p>
+ * Reference: Jaeckel, P. Monte Carlo methods in finance, Wiley, 2002, Section 10.8.
+ */
+public class BrownianBridge {
+
+  /**
+   * The times.
+   */
+  private final double[] _times;
+  /**
+   * The order in which the path points are constructed.
+   */
+  private final int[] _bridgeIndex;
+  /**
+   * The index of the point to the left of the constructed point, plus one (0 for the origin).
+   */
+  private final int[] _leftIndex;
+  /**
+   * The index of the point to the right of the constructed point.
+   */
+  private final int[] _rightIndex;
+  /**
+   * The weight of the left point.
+   */
+  private final double[] _leftWeight;
+  /**
+   * The weight of the right point.
+   */
+  private final double[] _rightWeight;
+  /**
+   * The standard deviation of the constructed point conditionally on its neighbours.
+   */
+  private final double[] _stdDev;
+
+  /**
+   * Constructor.
+   * @param times The times, non-negative and non-decreasing, not null and not empty.
+   */
+  public BrownianBridge(final double[] times) {
+    ArgumentChecker.notEmpty(times, "times");
+    final int n = times.length;
+    ArgumentChecker.isTrue(times[0] >= 0, "Times must be non-negative");
+    for (int i = 1; i < n; i++) {
+      ArgumentChecker.isTrue(times[i] >= times[i - 1], "Times must be non-decreasing");
+    }
+    _times = times.clone();
+    _bridgeIndex = new int[n];
+    _leftIndex = new int[n];
+    _rightIndex = new int[n];
+    _leftWeight = new double[n];
+    _rightWeight = new double[n];
+    _stdDev = new double[n];
+    final boolean[] constructed = new boolean[n];
+    constructed[n - 1] = true;
+    _bridgeIndex[0] = n - 1;
+    _stdDev[0] = Math.sqrt(_times[n - 1]);
+    int j = 0;
+    for (int i = 1; i < n; i++) {
+      // Find the next interval [j, k] of points not yet constructed; k is constructed
+      while (constructed[j]) {
+        j++;
+      }
+      int k = j;
+      while (!constructed[k]) {
+        k++;
+      }
+      final int l = j + ((k - 1 - j) >> 1);
+      constructed[l] = true;
+      _bridgeIndex[i] = l;
+      _leftIndex[i] = j;
+      _rightIndex[i] = k;
+      final double tLeft = (j == 0) ? 0.0 : _times[j - 1];
+      final double dt = _times[k] - tLeft;
+      if (dt > 0) {
+        _leftWeight[i] = (_times[k] - _times[l]) / dt;
+        _rightWeight[i] = (_times[l] - tLeft) / dt;
+        _stdDev[i] = Math.sqrt((_times[l] - tLeft) * (_times[k] - _times[l]) / dt);
+      } else {
+        // No variance between the neighbours: the point is equal to its left neighbour
+        _leftWeight[i] = 1.0;
+      }
+      j = k + 1;
+      if (j >= n) {
+        j = 0;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of times.
+   * @return The number of times.
+   */
+  public int getSize() {
+    return _times.length;
+  }
+
+  /**
+   * Constructs the Brownian motion at the times.
+   * @param normals The independent standard normal variables, in construction order, not null. Only the first {@link #getSize()} are used.
+   * @param path The array filled with the values of the Brownian motion at each time, not null.
+   */
+  public void path(final double[] normals, final double[] path) {
+    final int n = _times.length;
+    ArgumentChecker.isTrue(normals.length >= n && path.length >= n, "Arrays too small for {} times", n);
+    path[n - 1] = _stdDev[0] * normals[0];
+    for (int i = 1; i < n; i++) {
+      final int j = _leftIndex[i];
+      final int k = _rightIndex[i];
+      final int l = _bridgeIndex[i];
+      final double left = (j == 0) ? 0.0 : path[j - 1];
+      path[l] = _leftWeight[i] * left + _rightWeight[i] * path[k] + _stdDev[i] * normals[i];
+    }
+  }
+
+  /**
+   * Constructs the standardised increments of the Brownian motion, (W(t_i) - W(t_(i-1))) / sqrt(t_i - t_(i-1)) with t_(-1) = 0.
+   * The increments are independent standard normal variables, and are set to 0 when two times are equal.
+   * @param normals The independent standard normal variables, in construction order, not null. Only the first {@link #getSize()} are used.
+   * @param increments The array filled with the standardised increments, not null. Can be the same array as normals.
+   */
+  public void increments(final double[] normals, final double[] increments) {
+    final int n = _times.length;
+    final double[] path = new double[n];
+    path(normals, path);
+    double previousTime = 0.0;
+    double previousValue = 0.0;
+    for (int i = 0; i < n; i++) {
+      final double dt = _times[i] - previousTime;
+      increments[i] = (dt > 0) ? (path[i] - previousValue) / Math.sqrt(dt) : 0.0;
+      previousTime = _times[i];
+      previousValue = path[i];
+    }
+  }
+
+}
@@ -43,6 +43,21 @@ public class NormalRandomNumberGenerator implements RandomNumberGenerator {
     return result;
   }
 
+  /**
+   * Fills part of an existing array with random numbers, avoiding the allocation of {@link #getVector}.
+   * The numbers are drawn in the same sequence as a call to {@link #getVector} of the same length.
+   * @param result The array to fill, not null
+   * @param fromIndex The first index to fill, inclusive
+   * @param toIndex The last index to fill, exclusive
+   */
+  public void fill(final double[] result, final int fromIndex, final int toIndex) {
+    ArgumentChecker.notNull(result, "result");
+    ArgumentChecker.isTrue((fromIndex >= 0) && (fromIndex <= toIndex) && (toIndex <= result.length), "Invalid range {} to {}", fromIndex, toIndex);
+    for (int i = fromIndex; i < toIndex; i++) {
+      result[i] = _normal.nextRandom();
+    }
+  }
+
   @Override
   public List<double[]> getVectors(final int dimension, final int n) {
     if (dimension < 0) {
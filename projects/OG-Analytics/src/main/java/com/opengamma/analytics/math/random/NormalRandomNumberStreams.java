@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import org.apache.commons.math.random.MersenneTwister;
+
+import cern.jet.random.engine.RandomEngine;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Independent streams of normally distributed random numbers.
+ * <p>
+ * Each stream is a Mersenne twister seeded from the master seed and the stream index. The seeds are decorrelated by a 64-bit mixing
+ * function so that consecutive indices do not produce related initial states, and all 64 bits of the mixed seed are used to initialise
+ * the twister so that distinct streams do not collide on a 32-bit seed.
+ */
+public class NormalRandomNumberStreams implements RandomNumberStreams {
+
+  /**
+   * The master seed.
+   */
+  private final long _seed;
+  /**
+   * The mean of the distribution.
+   */
+  private final double _mean;
+  /**
+   * The standard deviation of the distribution.
+   */
+  private final double _sigma;
+
+  /**
+   * Creates streams of standard normal random numbers.
+   * @param seed The master seed
+   */
+  public NormalRandomNumberStreams(final long seed) {
+    this(seed, 0.0, 1.0);
+  }
+
+  /**
+   * Creates streams of normal random numbers.
+   * @param seed The master seed
+   * @param mean The mean of the distribution
+   * @param sigma The standard deviation of the distribution, greater than zero
+   */
+  public NormalRandomNumberStreams(final long seed, final double mean, final double sigma) {
+    ArgumentChecker.notNegativeOrZero(sigma, "standard deviation");
+    _seed = seed;
+    _mean = mean;
+    _sigma = sigma;
+  }
+
+  @Override
+  public NormalRandomNumberGenerator getStream(final int index) {
+    ArgumentChecker.notNegative(index, "index");
+    return new NormalRandomNumberGenerator(_mean, _sigma, new MersenneTwisterEngine(seed(index)));
+  }
+
+  /**
+   * Computes the seed of a stream by mixing the master seed and the index (SplitMix64 finaliser).
+   * @param index The stream index
+   * @return The seed
+   */
+  private long seed(final int index) {
+    long z = _seed + (index + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Gets the master seed.
+   * @return The seed
+   */
+  public long getSeed() {
+    return _seed;
+  }
+
+  /**
+   * A Mersenne twister engine seeded with a 64-bit value. Colt's own twister only accepts a 32-bit seed.
+   */
+  private static final class MersenneTwisterEngine extends RandomEngine {
+
+    private static final long serialVersionUID = 1L;
+
+    private final MersenneTwister _twister;
+
+    private MersenneTwisterEngine(final long seed) {
+      _twister = new MersenneTwister(seed);
+    }
+
+    @Override
+    public int nextInt() {
+      return _twister.nextInt();
+    }
+
+    /**
+     * Returns a 64-bit uniform number in (0, 1), as {@link cern.jet.random.engine.MersenneTwister64} does.
+     * @return The number
+     */
+    @Override
+    public double raw() {
+      return nextDouble();
+    }
+
+  }
+
+}
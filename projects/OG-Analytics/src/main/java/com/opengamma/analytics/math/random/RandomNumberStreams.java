@@ -0,0 +1,24 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+/**
+ * A family of independent random number generators, identified by an index.
+ * <p>
+ * The stream returned for a given index must always produce the same sequence of numbers, independently of which other streams
+ * have been requested and in which order. This allows work to be split between threads while keeping the results reproducible.
+ */
+public interface RandomNumberStreams {
+
+  /**
+   * Returns a new generator for the stream with the given index.
+   * Each call returns a generator positioned at the start of the stream.
+   * @param index The stream index, not negative
+   * @return The generator, not null
+   */
+  RandomNumberGenerator getStream(int index);
+
+}
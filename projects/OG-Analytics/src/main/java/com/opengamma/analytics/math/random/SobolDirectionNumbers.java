@@ -0,0 +1,297 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * The primitive polynomials and initial direction numbers defining a Sobol sequence.
+ * <p>
+ * The first dimension is always the van der Corput sequence in base 2 and has no polynomial. Each other dimension j is defined by a
+ * primitive polynomial modulo 2 of degree s, x^s + a_1 x^(s-1) + ... + a_(s-1) x + 1, coded as the integer a with bits a_1 ... a_(s-1),
+ * and by s odd initial direction numbers m_k &lt; 2^k.
+ * <p>
+ * The direction numbers can be generated, in which case the primitive polynomials are taken in increasing order of degree and the
+ * initial direction numbers are drawn from a fixed pseudo-random sequence (see Jaeckel, Monte Carlo methods in finance, 2002). They can
+ * also be read in the format of the files published by Joe and Kuo (<i>Constructing Sobol sequences with better two-dimensional
+ * projections</i>, SIAM J. Sci. Comput. 30, 2008), which have better uniformity in high dimensions.
+ */
+public final class SobolDirectionNumbers {
+
+  /**
+   * The maximal degree of the polynomials. Sufficient for more than 10 million dimensions.
+   */
+  private static final int MAX_DEGREE = 31;
+  /**
+   * The seed used for the generated initial direction numbers.
+   */
+  private static final long SEED = 0x5DEECE66DL;
+
+  /**
+   * The degree of the polynomial for each dimension.
+   */
+  private final int[] _degree;
+  /**
+   * The coded polynomial coefficients for each dimension.
+   */
+  private final int[] _polynomial;
+  /**
+   * The initial direction numbers for each dimension.
+   */
+  private final int[][] _initialNumbers;
+
+  /**
+   * Constructor.
+   * @param degree The degree of the polynomial for each dimension.
+   * @param polynomial The coded polynomial coefficients for each dimension.
+   * @param initialNumbers The initial direction numbers for each dimension.
+   */
+  private SobolDirectionNumbers(final int[] degree, final int[] polynomial, final int[][] initialNumbers) {
+    _degree = degree;
+    _polynomial = polynomial;
+    _initialNumbers = initialNumbers;
+  }
+
+  /**
+   * Generates direction numbers for a given number of dimensions.
+   * @param dimension The number of dimensions, strictly positive.
+   * @return The direction numbers.
+   */
+  public static SobolDirectionNumbers generate(final int dimension) {
+    ArgumentChecker.notNegativeOrZero(dimension, "dimension");
+    final int[] degree = new int[dimension];
+    final int[] polynomial = new int[dimension];
+    final int[][] initialNumbers = new int[dimension][];
+    initialNumbers[0] = new int[0];
+    long state = SEED;
+    int loopdim = 1;
+    for (int s = 1; s <= MAX_DEGREE && loopdim < dimension; s++) {
+      final long[] factors = primeFactors((1L << s) - 1);
+      for (int a = 0; a < (1 << (s - 1)) && loopdim < dimension; a++) {
+        final long p = (1L << s) | ((long) a << 1) | 1L;
+        if (isPrimitive(p, s, factors)) {
+          degree[loopdim] = s;
+          polynomial[loopdim] = a;
+          initialNumbers[loopdim] = new int[s];
+          for (int k = 1; k <= s; k++) {
+            state = next(state);
+            // Odd and lower than 2^k
+            initialNumbers[loopdim][k - 1] = (int) (((state >>> 33) & ((1L << (k - 1)) - 1)) << 1) | 1;
+          }
+          loopdim++;
+        }
+      }
+    }
+    return new SobolDirectionNumbers(degree, polynomial, initialNumbers);
+  }
+
+  /**
+   * Reads direction numbers in the format of Joe and Kuo. The first line is a header; each other line contains the dimension
+   * (starting at 2), the degree s, the coded polynomial a and the s initial direction numbers, separated by white spaces.
+   * @param reader The reader, not null. Not closed by this method.
+   * @param dimension The number of dimensions to read, strictly positive.
+   * @return The direction numbers.
+   */
+  public static SobolDirectionNumbers read(final Reader reader, final int dimension) {
+    ArgumentChecker.notNull(reader, "reader");
+    ArgumentChecker.notNegativeOrZero(dimension, "dimension");
+    final int[] degree = new int[dimension];
+    final int[] polynomial = new int[dimension];
+    final int[][] initialNumbers = new int[dimension][];
+    initialNumbers[0] = new int[0];
+    final BufferedReader buffered = new BufferedReader(reader);
+    try {
+      String line = buffered.readLine(); // Header
+      int loopdim = 1;
+      while (loopdim < dimension && (line = buffered.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty()) {
+          continue;
+        }
+        final String[] tokens = line.split("\\s+");
+        ArgumentChecker.isTrue(tokens.length >= 3, "Invalid direction numbers line: {}", line);
+        final int s = Integer.parseInt(tokens[1]);
+        ArgumentChecker.isTrue(tokens.length == 3 + s, "Invalid direction numbers line: {}", line);
+        degree[loopdim] = s;
+        polynomial[loopdim] = Integer.parseInt(tokens[2]);
+        initialNumbers[loopdim] = new int[s];
+        for (int k = 0; k < s; k++) {
+          initialNumbers[loopdim][k] = Integer.parseInt(tokens[3 + k]);
+        }
+        loopdim++;
+      }
+      ArgumentChecker.isTrue(loopdim == dimension, "Only {} dimensions available, {} requested", loopdim, dimension);
+    } catch (final IOException ex) {
+      throw new OpenGammaRuntimeException("Unable to read Sobol direction numbers", ex);
+    }
+    return new SobolDirectionNumbers(degree, polynomial, initialNumbers);
+  }
+
+  /**
+   * Gets the number of dimensions.
+   * @return The number of dimensions.
+   */
+  public int getDimension() {
+    return _degree.length;
+  }
+
+  /**
+   * Gets the degree of the polynomial of a dimension. The degree of the first dimension is 0.
+   * @param dimension The dimension index, starting at 0.
+   * @return The degree.
+   */
+  public int getDegree(final int dimension) {
+    return _degree[dimension];
+  }
+
+  /**
+   * Gets the coded polynomial coefficients of a dimension.
+   * @param dimension The dimension index, starting at 0.
+   * @return The coefficients a_1 ... a_(s-1) as the bits of an integer.
+   */
+  public int getPolynomial(final int dimension) {
+    return _polynomial[dimension];
+  }
+
+  /**
+   * Gets the initial direction numbers m_1 ... m_s of a dimension.
+   * @param dimension The dimension index, starting at 0.
+   * @return The initial direction numbers.
+   */
+  public int[] getInitialNumbers(final int dimension) {
+    return _initialNumbers[dimension].clone();
+  }
+
+  /**
+   * Computes the direction integers of a dimension, scaled to the given number of bits.
+   * @param dimension The dimension index, starting at 0.
+   * @param nbBits The number of bits.
+   * @return The direction integers v_1 ... v_nbBits.
+   */
+  long[] directionIntegers(final int dimension, final int nbBits) {
+    final long[] v = new long[nbBits];
+    if (dimension == 0) {
+      for (int k = 0; k < nbBits; k++) {
+        v[k] = 1L << (nbBits - 1 - k);
+      }
+      return v;
+    }
+    final int s = _degree[dimension];
+    final int a = _polynomial[dimension];
+    final int[] m = _initialNumbers[dimension];
+    for (int k = 0; k < Math.min(s, nbBits); k++) {
+      v[k] = ((long) m[k]) << (nbBits - 1 - k);
+    }
+    for (int k = s; k < nbBits; k++) {
+      v[k] = v[k - s] ^ (v[k - s] >>> s);
+      for (int i = 1; i < s; i++) {
+        if (((a >>> (s - 1 - i)) & 1) == 1) {
+          v[k] ^= v[k - i];
+        }
+      }
+    }
+    return v;
+  }
+
+  /**
+   * Tests if a polynomial modulo 2 is primitive, i.e. if x has order 2^s-1 in the quotient field.
+   * @param p The polynomial, coefficients as bits.
+   * @param s The degree.
+   * @param factors The distinct prime factors of 2^s-1.
+   * @return True if the polynomial is primitive.
+   */
+  private static boolean isPrimitive(final long p, final int s, final long[] factors) {
+    final long order = (1L << s) - 1;
+    if (s == 1) {
+      return true;
+    }
+    if (power(2L, order, p, s) != 1L) {
+      return false;
+    }
+    for (final long q : factors) {
+      if (power(2L, order / q, p, s) == 1L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes base^e modulo p, for polynomials modulo 2.
+   */
+  private static long power(final long base, final long e, final long p, final int s) {
+    long result = 1L;
+    long b = base;
+    long n = e;
+    while (n > 0) {
+      if ((n & 1L) == 1L) {
+        result = multiply(result, b, p, s);
+      }
+      b = multiply(b, b, p, s);
+      n >>>= 1;
+    }
+    return result;
+  }
+
+  /**
+   * Computes a*b modulo p, for polynomials modulo 2 of degree lower than s.
+   */
+  private static long multiply(final long a, final long b, final long p, final int s) {
+    long result = 0L;
+    long x = a;
+    long y = b;
+    while (y != 0) {
+      if ((y & 1L) == 1L) {
+        result ^= x;
+      }
+      y >>>= 1;
+      x <<= 1;
+      if (((x >>> s) & 1L) == 1L) {
+        x ^= p;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes the distinct prime factors of a number by trial division.
+   */
+  private static long[] primeFactors(final long n) {
+    final List<Long> factors = new ArrayList<>();
+    long m = n;
+    for (long q = 2; q * q <= m; q++) {
+      if (m % q == 0) {
+        factors.add(q);
+        while (m % q == 0) {
+          m /= q;
+        }
+      }
+    }
+    if (m > 1) {
+      factors.add(m);
+    }
+    final long[] result = new long[factors.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = factors.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * The next state of a 64-bit linear congruential generator.
+   */
+  private static long next(final long state) {
+    return state * 6364136223846793005L + 1442695040888963407L;
+  }
+
+}
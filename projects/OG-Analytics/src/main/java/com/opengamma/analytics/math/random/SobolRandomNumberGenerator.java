@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.opengamma.analytics.math.statistics.distribution.NormalDistribution;
+import com.opengamma.analytics.math.statistics.distribution.ProbabilityDistribution;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Quasi-random generator of standard normally distributed vectors, obtained by applying the inverse normal cumulative distribution to
+ * the points of a Sobol sequence.
+ * <p>
+ * Contrary to a pseudo-random generator, the coordinates of a vector are not interchangeable: each call to {@link #getVector} returns
+ * the next point of the sequence and the first coordinates are the most uniformly distributed. The vector should therefore contain all
+ * the random variables of one path, the most important ones first (see {@link BrownianBridge}). As the sequence moves to the next point
+ * before each vector, the origin of the sequence is never used.
+ */
+public class SobolRandomNumberGenerator implements RandomNumberGenerator {
+
+  /**
+   * The standard normal distribution.
+   */
+  private static final ProbabilityDistribution<Double> NORMAL = new NormalDistribution(0, 1);
+
+  /**
+   * The underlying Sobol sequence.
+   */
+  private final SobolSequence _sequence;
+  /**
+   * The buffer for the uniform points.
+   */
+  private final double[] _uniform;
+
+  /**
+   * Creates a generator with generated direction numbers.
+   * @param dimension The maximal dimension of the vectors, strictly positive.
+   */
+  public SobolRandomNumberGenerator(final int dimension) {
+    this(new SobolSequence(dimension));
+  }
+
+  /**
+   * Creates a generator from a Sobol sequence. The generator starts from the current position of the sequence, which is then modified
+   * by the generator.
+   * @param sequence The sequence, not null.
+   */
+  public SobolRandomNumberGenerator(final SobolSequence sequence) {
+    ArgumentChecker.notNull(sequence, "sequence");
+    _sequence = sequence;
+    _uniform = new double[sequence.getDimension()];
+  }
+
+  /**
+   * Gets the maximal dimension of the vectors.
+   * @return The dimension.
+   */
+  public int getDimension() {
+    return _sequence.getDimension();
+  }
+
+  @Override
+  public double[] getVector(final int dimension) {
+    final double[] result = new double[dimension];
+    fill(result);
+    return result;
+  }
+
+  /**
+   * Moves to the next point of the sequence and fills an existing array with its coordinates, avoiding the allocation of
+   * {@link #getVector}.
+   * @param result The array to fill, not null. Its length must not exceed the dimension of the generator.
+   */
+  public void fill(final double[] result) {
+    ArgumentChecker.notNull(result, "result");
+    ArgumentChecker.isTrue(result.length <= _uniform.length, "Dimension {} larger than the generator dimension {}", result.length, _uniform.length);
+    _sequence.nextPoint(_uniform);
+    for (int i = 0; i < result.length; i++) {
+      result[i] = NORMAL.getInverseCDF(_uniform[i]);
+    }
+  }
+
+  @Override
+  public List<double[]> getVectors(final int dimension, final int n) {
+    ArgumentChecker.notNegative(dimension, "dimension");
+    ArgumentChecker.notNegative(n, "n");
+    final List<double[]> result = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      result.add(getVector(dimension));
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Disjoint consecutive parts of a Sobol sequence, used as quasi-random streams of standard normal vectors.
+ * <p>
+ * The stream with index i starts after the first i x pointsPerStream points of the sequence (ignoring the origin). When the number of
+ * vectors drawn from each stream is equal to the number of points per stream, the union of the streams is the start of the sequence.
+ */
+public class SobolRandomNumberStreams implements RandomNumberStreams {
+
+  /**
+   * The sequence at its origin. Copied for each stream.
+   */
+  private final SobolSequence _sequence;
+  /**
+   * The number of points in each stream.
+   */
+  private final int _pointsPerStream;
+
+  /**
+   * Creates streams from a sequence with generated direction numbers.
+   * @param dimension The maximal dimension of the vectors, strictly positive.
+   * @param pointsPerStream The number of points in each stream, strictly positive.
+   */
+  public SobolRandomNumberStreams(final int dimension, final int pointsPerStream) {
+    this(SobolDirectionNumbers.generate(dimension), pointsPerStream);
+  }
+
+  /**
+   * Creates streams from direction numbers.
+   * @param directionNumbers The direction numbers, not null.
+   * @param pointsPerStream The number of points in each stream, strictly positive.
+   */
+  public SobolRandomNumberStreams(final SobolDirectionNumbers directionNumbers, final int pointsPerStream) {
+    ArgumentChecker.notNegativeOrZero(pointsPerStream, "points per stream");
+    _sequence = new SobolSequence(directionNumbers);
+    _pointsPerStream = pointsPerStream;
+  }
+
+  @Override
+  public SobolRandomNumberGenerator getStream(final int index) {
+    ArgumentChecker.notNegative(index, "index");
+    final SobolSequence sequence = _sequence.copy();
+    sequence.skipTo(((long) index) * _pointsPerStream);
+    return new SobolRandomNumberGenerator(sequence);
+  }
+
+  /**
+   * Gets the number of points in each stream.
+   * @return The number of points.
+   */
+  public int getPointsPerStream() {
+    return _pointsPerStream;
+  }
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Sobol low discrepancy sequence of points in the unit hypercube.
+ * <p>
+ * The points are generated in Gray code order (Antonov and Saleev), each new point being obtained from the previous one by a single
+ * exclusive or per dimension. The sequence can be positioned at any index in a time proportional to the number of bits, which allows
+ * disjoint parts of the sequence to be used in parallel.
+ * <p>
+ * The first point of the sequence (index 0) is the origin.
+ */
+public class SobolSequence {
+
+  /**
+   * The number of bits of the points. The sequence has 2^32 points.
+   */
+  private static final int NB_BITS = 32;
+  /**
+   * The scale from integer to double.
+   */
+  private static final double SCALE = 1.0 / (1L << NB_BITS);
+
+  /**
+   * The direction integers. dimension/bit.
+   */
+  private final long[][] _direction;
+  /**
+   * The current point, as integers.
+   */
+  private final long[] _x;
+  /**
+   * The index of the current point.
+   */
+  private long _index;
+
+  /**
+   * Creates a sequence with generated direction numbers.
+   * @param dimension The number of dimensions, strictly positive.
+   */
+  public SobolSequence(final int dimension) {
+    this(SobolDirectionNumbers.generate(dimension));
+  }
+
+  /**
+   * Creates a sequence from direction numbers. The sequence has the dimension of the direction numbers.
+   * @param directionNumbers The direction numbers, not null.
+   */
+  public SobolSequence(final SobolDirectionNumbers directionNumbers) {
+    ArgumentChecker.notNull(directionNumbers, "direction numbers");
+    final int dimension = directionNumbers.getDimension();
+    _direction = new long[dimension][];
+    for (int loopdim = 0; loopdim < dimension; loopdim++) {
+      _direction[loopdim] = directionNumbers.directionIntegers(loopdim, NB_BITS);
+    }
+    _x = new long[dimension];
+    _index = 0;
+  }
+
+  /**
+   * Copy constructor. The copy shares the direction integers and is positioned at the same index.
+   * @param sequence The sequence to copy.
+   */
+  private SobolSequence(final SobolSequence sequence) {
+    _direction = sequence._direction;
+    _x = sequence._x.clone();
+    _index = sequence._index;
+  }
+
+  /**
+   * Returns a copy of the sequence, positioned at the same index. The direction integers are shared.
+   * @return The copy.
+   */
+  public SobolSequence copy() {
+    return new SobolSequence(this);
+  }
+
+  /**
+   * Gets the number of dimensions.
+   * @return The number of dimensions.
+   */
+  public int getDimension() {
+    return _direction.length;
+  }
+
+  /**
+   * Gets the index of the current point, i.e. the number of points generated since the origin.
+   * @return The index.
+   */
+  public long getIndex() {
+    return _index;
+  }
+
+  /**
+   * Positions the sequence at a given index. The next call to {@link #nextPoint} returns the point with index + 1.
+   * @param index The index, between 0 and 2^32-1.
+   */
+  public void skipTo(final long index) {
+    ArgumentChecker.isTrue(index >= 0 && index < (1L << NB_BITS), "Index {} out of range", index);
+    final long gray = index ^ (index >>> 1);
+    for (int loopdim = 0; loopdim < _x.length; loopdim++) {
+      long x = 0;
+      for (int loopbit = 0; loopbit < NB_BITS; loopbit++) {
+        if (((gray >>> loopbit) & 1L) == 1L) {
+          x ^= _direction[loopdim][loopbit];
+        }
+      }
+      _x[loopdim] = x;
+    }
+    _index = index;
+  }
+
+  /**
+   * Moves to the next point and copies its first coordinates in an array.
+   * @param point The array to fill. Its length must not exceed the dimension of the sequence.
+   */
+  public void nextPoint(final double[] point) {
+    ArgumentChecker.isTrue(point.length <= _x.length, "Point dimension {} larger than the sequence dimension {}", point.length, _x.length);
+    ArgumentChecker.isTrue(_index < (1L << NB_BITS) - 1, "Sobol sequence exhausted");
+    // The direction to use is given by the position of the rightmost zero bit of the current index
+    final int c = Long.numberOfTrailingZeros(~_index);
+    for (int loopdim = 0; loopdim < _x.length; loopdim++) {
+      _x[loopdim] ^= _direction[loopdim][c];
+    }
+    _index++;
+    for (int loopdim = 0; loopdim < point.length; loopdim++) {
+      point[loopdim] = _x[loopdim] * SCALE;
+    }
+  }
+
+  /**
+   * Moves to the next point and returns it.
+   * @return The point, of the dimension of the sequence.
+   */
+  public double[] nextPoint() {
+    final double[] point = new double[_x.length];
+    nextPoint(point);
+    return point;
+  }
+
+}
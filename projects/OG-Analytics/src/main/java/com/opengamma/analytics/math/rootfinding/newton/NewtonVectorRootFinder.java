@@ -59,55 +59,88 @@ public class NewtonVectorRootFinder extends VectorRootFinder {
   * @param startPosition where to start the root finder for. Note if multiple roots exist which one if found (if at all) will depend on startPosition 
   * @return the vector root of the collection of functions 
    */
+  public DoubleMatrix1D getRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction, final DoubleMatrix1D startPosition) {
+    return findRoot(function, jacobianFunction, startPosition, null).getRoot();
+  }
 
+  /**
+   * Finds the root starting from a known estimate of the matrix used by the root finder (the Jacobian, or its inverse for the root finders working with the
+   * inverse Jacobian) instead of initializing it at the start position. This is intended for sequences of similar problems, where the matrix at the previous
+   * root is a good estimate: the estimate is then only updated by the update function. The Jacobian function is used if the estimate fails to produce a step.
+   *@param function a vector function (i.e. vector to vector) 
+   *@param jacobianFunction calculates the Jacobian
+   *@param startPosition where to start the root finder for
+   *@param initialEstimate the initial estimate of the matrix, null to initialize it at the start position
+   *@return the root, with the final estimate of the matrix and the number of iterations
+   */
   @SuppressWarnings("synthetic-access")
-  public DoubleMatrix1D getRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction, final DoubleMatrix1D startPosition) {
+  public NewtonVectorRootFinderResult findRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction,
+      final DoubleMatrix1D startPosition, final DoubleMatrix2D initialEstimate) {
     checkInputs(function, startPosition);
+    ArgumentChecker.notNull(jacobianFunction, "Jacobian function");
+    final int[] nbJacobian = new int[1];
+    final Function1D<DoubleMatrix1D, DoubleMatrix2D> countingJacobianFunction = new Function1D<DoubleMatrix1D, DoubleMatrix2D>() {
+      @Override
+      public DoubleMatrix2D evaluate(final DoubleMatrix1D x) {
+        nbJacobian[0]++;
+        return jacobianFunction.evaluate(x);
+      }
+    };
 
     final DataBundle data = new DataBundle();
     final DoubleMatrix1D y = function.evaluate(startPosition);
     data.setX(startPosition);
     data.setY(y);
     data.setG0(_algebra.getInnerProduct(y, y));
-    DoubleMatrix2D estimate = _initializationFunction.getInitializedMatrix(jacobianFunction, startPosition);
+    DoubleMatrix2D estimate = (initialEstimate == null) ? _initializationFunction.getInitializedMatrix(countingJacobianFunction, startPosition) : initialEstimate;
 
     if (!getNextPosition(function, estimate, data)) {
       if (isConverged(data)) {
-        return data.getX(); // this can happen if the starting position is the root
+        return new NewtonVectorRootFinderResult(data.getX(), estimate, 0, nbJacobian[0]); // this can happen if the starting position is the root
+      }
+      if (initialEstimate == null) {
+        throw new MathException("Cannot work with this starting position. Please choose another point");
+      }
+      // The estimate provided may be too far from the Jacobian at the start position
+      estimate = _initializationFunction.getInitializedMatrix(countingJacobianFunction, startPosition);
+      if (!getNextPosition(function, estimate, data)) {
+        throw new MathException("Cannot work with this starting position. Please choose another point");
       }
-      throw new MathException("Cannot work with this starting position. Please choose another point");
     }
 
     int count = 0;
+    int nbSteps = 1;
     int jacReconCount = 1;
     while (!isConverged(data)) {
       // Want to reset the Jacobian every so often even if backtracking is working
       if ((jacReconCount) % FULL_RECALC_FREQ == 0) {
-        estimate = _initializationFunction.getInitializedMatrix(jacobianFunction, data.getX());
+        estimate = _initializationFunction.getInitializedMatrix(countingJacobianFunction, data.getX());
         jacReconCount = 1;
       } else {
-        estimate = _updateFunction.getUpdatedMatrix(jacobianFunction, data.getX(), data.getDeltaX(), data.getDeltaY(), estimate);
+        estimate = _updateFunction.getUpdatedMatrix(countingJacobianFunction, data.getX(), data.getDeltaX(), data.getDeltaY(), estimate);
         jacReconCount++;
       }
       // if backtracking fails, could be that Jacobian estimate has drifted too far
       if (!getNextPosition(function, estimate, data)) {
-        estimate = _initializationFunction.getInitializedMatrix(jacobianFunction, data.getX());
+        estimate = _initializationFunction.getInitializedMatrix(countingJacobianFunction, data.getX());
         jacReconCount = 1;
         if (!getNextPosition(function, estimate, data)) {
           if (isConverged(data)) {
-            return data.getX(); //non-standard exit. Cannot find an improvement from this position, so provided we are close enough to the root, exit.
+            //non-standard exit. Cannot find an improvement from this position, so provided we are close enough to the root, exit.
+            return new NewtonVectorRootFinderResult(data.getX(), estimate, nbSteps, nbJacobian[0]);
           }
           String msg = "Failed to converge in backtracking, even after a Jacobian recalculation." + getErrorMessage(data, jacobianFunction);
           s_logger.info(msg);
           throw new MathException(msg);
         }
       }
+      nbSteps++;
       count++;
       if (count > _maxSteps) {
         throw new MathException("Failed to converge - maximum iterations of " + _maxSteps + " reached." + getErrorMessage(data, jacobianFunction));
       }
     }
-    return data.getX();
+    return new NewtonVectorRootFinderResult(data.getX(), estimate, nbSteps, nbJacobian[0]);
   }
 
   private String getErrorMessage(final DataBundle data, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction) {
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.rootfinding.newton;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * The result of a Newton-Raphson style root finding: the root, the last estimate of the matrix used by the root finder (the Jacobian or its inverse)
+ * and the work done to find the root.
+ */
+public class NewtonVectorRootFinderResult {
+
+  /**
+   * The root.
+   */
+  private final DoubleMatrix1D _root;
+  /**
+   * The last estimate of the matrix used by the root finder.
+   */
+  private final DoubleMatrix2D _estimate;
+  /**
+   * The number of iterations.
+   */
+  private final int _nbIterations;
+  /**
+   * The number of evaluations of the Jacobian function.
+   */
+  private final int _nbJacobianEvaluations;
+
+  /**
+   * Constructor.
+   * @param root The root, not null.
+   * @param estimate The last estimate of the matrix used by the root finder, not null.
+   * @param nbIterations The number of iterations.
+   * @param nbJacobianEvaluations The number of evaluations of the Jacobian function.
+   */
+  public NewtonVectorRootFinderResult(final DoubleMatrix1D root, final DoubleMatrix2D estimate, final int nbIterations, final int nbJacobianEvaluations) {
+    ArgumentChecker.notNull(root, "root");
+    ArgumentChecker.notNull(estimate, "estimate");
+    _root = root;
+    _estimate = estimate;
+    _nbIterations = nbIterations;
+    _nbJacobianEvaluations = nbJacobianEvaluations;
+  }
+
+  /**
+   * Gets the root.
+   * @return The root.
+   */
+  public DoubleMatrix1D getRoot() {
+    return _root;
+  }
+
+  /**
+   * Gets the last estimate of the matrix used by the root finder: the Jacobian, or its inverse for the root finders working with the inverse Jacobian.
+   * It can be used as initial estimate for a similar problem.
+   * @return The estimate.
+   */
+  public DoubleMatrix2D getEstimate() {
+    return _estimate;
+  }
+
+  /**
+   * Gets the number of iterations, i.e. the number of steps taken from the start position.
+   * @return The number of iterations.
+   */
+  public int getNbIterations() {
+    return _nbIterations;
+  }
+
+  /**
+   * Gets the number of evaluations of the Jacobian function.
+   * @return The number of evaluations.
+   */
+  public int getNbJacobianEvaluations() {
+    return _nbJacobianEvaluations;
+  }
+
+}
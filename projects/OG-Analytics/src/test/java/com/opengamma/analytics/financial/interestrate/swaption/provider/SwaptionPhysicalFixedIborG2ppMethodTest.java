@@ -7,6 +7,8 @@ package com.opengamma.analytics.financial.interestrate.swaption.provider;
 
 import static org.testng.AssertJUnit.assertEquals;
 
+import java.util.concurrent.ForkJoinPool;
+
 import org.testng.annotations.Test;
 import org.threeten.bp.Period;
 import org.threeten.bp.ZonedDateTime;
@@ -35,6 +37,7 @@ import com.opengamma.analytics.financial.provider.description.interestrate.G2ppP
 import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderDiscount;
 import com.opengamma.analytics.financial.schedule.ScheduleCalculator;
 import com.opengamma.analytics.math.random.NormalRandomNumberGenerator;
+import com.opengamma.analytics.math.random.NormalRandomNumberStreams;
 import com.opengamma.financial.convention.calendar.Calendar;
 import com.opengamma.financial.convention.daycount.DayCount;
 import com.opengamma.financial.convention.daycount.DayCounts;
@@ -166,6 +169,27 @@ public class SwaptionPhysicalFixedIborG2ppMethodTest {
     assertEquals("Swaption physical - G2++ - present value - approximation vs Monte Carlo", pvApproximation.getAmount(CUR), pvMC.getAmount(CUR), 2.5E+4);
   }
 
+  @Test
+  /**
+   * Test the present value by Monte Carlo with one random number stream per block: the result does not depend on the number of threads.
+   */
+  public void presentValueMonteCarloParallel() {
+    final int nbPath = 12500;
+    final NormalRandomNumberStreams streams = new NormalRandomNumberStreams(1234L);
+    final double pvSequential = new G2ppMonteCarloMethod(streams, nbPath, null).presentValue(SWAPTION_LONG_PAYER, CUR, G2PP_MULTICURVES).getAmount(CUR);
+    final MultipleCurrencyAmount pvApproximation = METHOD_G2PP_APPROXIMATION.presentValue(SWAPTION_LONG_PAYER, G2PP_MULTICURVES);
+    assertEquals("Swaption physical - G2++ - Monte Carlo parallel", pvApproximation.getAmount(CUR), pvSequential, 2.5E+4);
+    for (final int nbThread : new int[] {1, 4 }) {
+      final ForkJoinPool pool = new ForkJoinPool(nbThread);
+      try {
+        final double pvParallel = new G2ppMonteCarloMethod(streams, nbPath, pool).presentValue(SWAPTION_LONG_PAYER, CUR, G2PP_MULTICURVES).getAmount(CUR);
+        assertEquals("Swaption physical - G2++ - Monte Carlo parallel", pvSequential, pvParallel, 0.0);
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+
   @Test(enabled = false)
   /**
    * Test the present value by approximation vs Monte Carlo: convergence.
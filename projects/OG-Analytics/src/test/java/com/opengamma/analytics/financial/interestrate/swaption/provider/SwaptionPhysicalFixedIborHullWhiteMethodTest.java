@@ -8,6 +8,7 @@ package com.opengamma.analytics.financial.interestrate.swaption.provider;
 import static org.testng.AssertJUnit.assertEquals;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import org.testng.annotations.Test;
 import org.threeten.bp.Period;
@@ -50,6 +51,9 @@ import com.opengamma.analytics.financial.provider.sensitivity.parameter.Paramete
 import com.opengamma.analytics.financial.schedule.ScheduleCalculator;
 import com.opengamma.analytics.financial.util.AssertSensitivityObjects;
 import com.opengamma.analytics.math.random.NormalRandomNumberGenerator;
+import com.opengamma.analytics.math.random.NormalRandomNumberStreams;
+import com.opengamma.analytics.math.random.SobolRandomNumberGenerator;
+import com.opengamma.analytics.math.random.SobolRandomNumberStreams;
 import com.opengamma.analytics.math.statistics.distribution.NormalDistribution;
 import com.opengamma.analytics.math.statistics.distribution.ProbabilityDistribution;
 import com.opengamma.financial.convention.calendar.Calendar;
@@ -271,6 +275,67 @@ public class SwaptionPhysicalFixedIborHullWhiteMethodTest {
     assertEquals("Swaption physical - Hull-White - Monte Carlo - payer/receiver/swap parity", pvReceiverLongMC.getAmount(EUR) + pvPayerShortMC.getAmount(EUR), pvSwap.getAmount(EUR), 1.0E+5);
   }
 
+  @Test
+  /**
+   * Test the present value by Monte Carlo with one random number stream per block: the result does not depend on the number of threads.
+   */
+  public void presentValueMonteCarloParallel() {
+    final NormalRandomNumberStreams streams = new NormalRandomNumberStreams(1234L);
+    final double pvSequential = new HullWhiteMonteCarloMethod(streams, NB_PATH, null).presentValue(SWAPTION_LONG_PAYER, EUR, HW_MULTICURVES).getAmount(EUR);
+    final MultipleCurrencyAmount pvExplicit = METHOD_HW.presentValue(SWAPTION_LONG_PAYER, HW_MULTICURVES);
+    assertEquals("Swaption physical - Hull-White - Monte Carlo parallel", pvExplicit.getAmount(EUR), pvSequential, 1.0E+4);
+    for (final int nbThread : new int[] {1, 4 }) {
+      final ForkJoinPool pool = new ForkJoinPool(nbThread);
+      try {
+        final double pvParallel = new HullWhiteMonteCarloMethod(streams, NB_PATH, pool).presentValue(SWAPTION_LONG_PAYER, EUR, HW_MULTICURVES).getAmount(EUR);
+        assertEquals("Swaption physical - Hull-White - Monte Carlo parallel", pvSequential, pvParallel, 0.0);
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+
+  @Test
+  /**
+   * Test the present value by quasi Monte Carlo (Sobol sequence and Brownian bridge).
+   */
+  public void presentValueMonteCarloSobol() {
+    final int nbPath = 4096;
+    final MultipleCurrencyAmount pvExplicit = METHOD_HW.presentValue(SWAPTION_LONG_PAYER, HW_MULTICURVES);
+    final double pvSobol = new HullWhiteMonteCarloMethod(new SobolRandomNumberGenerator(10), nbPath).presentValue(SWAPTION_LONG_PAYER, EUR, HW_MULTICURVES).getAmount(EUR);
+    assertEquals("Swaption physical - Hull-White - Monte Carlo Sobol", pvExplicit.getAmount(EUR), pvSobol, 5.0E+3);
+    // Streams of the size of the blocks use the same points as the sequence
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final double pvStreams = new HullWhiteMonteCarloMethod(new SobolRandomNumberStreams(10, 1000), nbPath, pool).presentValue(SWAPTION_LONG_PAYER, EUR, HW_MULTICURVES).getAmount(EUR);
+      assertEquals("Swaption physical - Hull-White - Monte Carlo Sobol", pvSobol, pvStreams, 0.0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test(enabled = false)
+  /**
+   * Compares the convergence of the Monte Carlo with pseudo-random and quasi-random numbers. In normal testing, "enabled = false".
+   */
+  public void presentValueMonteCarloConvergence() {
+    final double pvExplicit = METHOD_HW.presentValue(SWAPTION_LONG_PAYER, HW_MULTICURVES).getAmount(EUR);
+    final int[] nbPath = new int[] {1000, 4000, 16000, 64000, 256000 };
+    final int nbRun = 10;
+    for (final int element : nbPath) {
+      // Root mean square error over independent runs for the pseudo-random numbers
+      double errorPseudo = 0.0;
+      for (int looprun = 0; looprun < nbRun; looprun++) {
+        final HullWhiteMonteCarloMethod methodPseudo = new HullWhiteMonteCarloMethod(new NormalRandomNumberStreams(looprun), element, null);
+        final double error = methodPseudo.presentValue(SWAPTION_LONG_PAYER, EUR, HW_MULTICURVES).getAmount(EUR) - pvExplicit;
+        errorPseudo += error * error;
+      }
+      errorPseudo = Math.sqrt(errorPseudo / nbRun);
+      final double errorSobol = new HullWhiteMonteCarloMethod(new SobolRandomNumberGenerator(10), element).presentValue(SWAPTION_LONG_PAYER, EUR, HW_MULTICURVES).getAmount(EUR) - pvExplicit;
+      System.out.println("Hull-White swaption Monte Carlo with " + element + " paths - error pseudo-random (rms): " + errorPseudo + " - error Sobol: " + errorSobol);
+    }
+  }
+
   @Test
   /**
    * Tests the Hull-White parameters sensitivity for the explicit formula.
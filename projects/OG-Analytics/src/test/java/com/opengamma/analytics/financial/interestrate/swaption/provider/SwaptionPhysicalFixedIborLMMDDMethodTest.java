@@ -8,6 +8,7 @@ package com.opengamma.analytics.financial.interestrate.swaption.provider;
 import static org.testng.AssertJUnit.assertEquals;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.testng.annotations.Test;
 import org.threeten.bp.Period;
@@ -69,6 +70,8 @@ import com.opengamma.analytics.financial.provider.sensitivity.parameter.Paramete
 import com.opengamma.analytics.financial.schedule.ScheduleCalculator;
 import com.opengamma.analytics.financial.util.AssertSensitivityObjects;
 import com.opengamma.analytics.math.random.NormalRandomNumberGenerator;
+import com.opengamma.analytics.math.random.NormalRandomNumberStreams;
+import com.opengamma.analytics.math.random.SobolRandomNumberGenerator;
 import com.opengamma.financial.convention.calendar.Calendar;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.MultipleCurrencyAmount;
@@ -173,6 +176,48 @@ public class SwaptionPhysicalFixedIborLMMDDMethodTest {
     assertEquals("Swaption physical - LMM - present value Approximation/Monte Carlo", impliedVolMC, impliedVolApprox, 2.0E-3);
   }
 
+  @Test
+  /**
+   * Test the present value by Monte Carlo with one random number stream per block: the result does not depend on the number of threads.
+   */
+  public void presentValueMCParallel() {
+    final NormalRandomNumberStreams streams = new NormalRandomNumberStreams(1234L);
+    final MultipleCurrencyAmount pvMC = new LiborMarketModelMonteCarloMethod(streams, NB_PATH, 1.0, null).presentValue(SWAPTION_PAYER_LONG, EUR, LMM_MULTICURVES);
+    final MultipleCurrencyAmount pvApprox = METHOD_LMM.presentValue(SWAPTION_PAYER_LONG, LMM_MULTICURVES);
+    final double pvbp = METHOD_SWAP.presentValueBasisPoint(SWAP_RECEIVER, MULTICURVES);
+    final double forward = SWAP_RECEIVER.accept(PRDC, MULTICURVES);
+    final BlackFunctionData data = new BlackFunctionData(forward, pvbp, 0.20);
+    final EuropeanVanillaOption option = new EuropeanVanillaOption(RATE, SWAPTION_PAYER_LONG.getTimeToExpiry(), FIXED_IS_PAYER);
+    final BlackImpliedVolatilityFormula implied = new BlackImpliedVolatilityFormula();
+    assertEquals("Swaption physical - LMM - present value Monte Carlo parallel", implied.getImpliedVolatility(data, option, pvApprox.getAmount(EUR)),
+        implied.getImpliedVolatility(data, option, pvMC.getAmount(EUR)), 5.0E-3);
+    for (final int nbThread : new int[] {1, 4 }) {
+      final ForkJoinPool pool = new ForkJoinPool(nbThread);
+      try {
+        final MultipleCurrencyAmount pvParallel = new LiborMarketModelMonteCarloMethod(streams, NB_PATH, 1.0, pool).presentValue(SWAPTION_PAYER_LONG, EUR, LMM_MULTICURVES);
+        assertEquals("Swaption physical - LMM - present value Monte Carlo parallel", pvMC.getAmount(EUR), pvParallel.getAmount(EUR), 0.0);
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+
+  @Test
+  /**
+   * Test the present value: approximated formula vs quasi Monte Carlo (Sobol sequence and Brownian bridge).
+   */
+  public void presentValueMCSobol() {
+    final MultipleCurrencyAmount pvMC = new LiborMarketModelMonteCarloMethod(new SobolRandomNumberGenerator(100), 4096).presentValue(SWAPTION_PAYER_LONG, EUR, LMM_MULTICURVES);
+    final MultipleCurrencyAmount pvApprox = METHOD_LMM.presentValue(SWAPTION_PAYER_LONG, LMM_MULTICURVES);
+    final double pvbp = METHOD_SWAP.presentValueBasisPoint(SWAP_RECEIVER, MULTICURVES);
+    final double forward = SWAP_RECEIVER.accept(PRDC, MULTICURVES);
+    final BlackFunctionData data = new BlackFunctionData(forward, pvbp, 0.20);
+    final EuropeanVanillaOption option = new EuropeanVanillaOption(RATE, SWAPTION_PAYER_LONG.getTimeToExpiry(), FIXED_IS_PAYER);
+    final BlackImpliedVolatilityFormula implied = new BlackImpliedVolatilityFormula();
+    assertEquals("Swaption physical - LMM - present value Approximation/Monte Carlo Sobol", implied.getImpliedVolatility(data, option, pvApprox.getAmount(EUR)),
+        implied.getImpliedVolatility(data, option, pvMC.getAmount(EUR)), 5.0E-3);
+  }
+
   @Test
   /**
    * Tests long/short parity.
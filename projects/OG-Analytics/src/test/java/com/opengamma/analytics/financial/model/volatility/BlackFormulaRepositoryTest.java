@@ -9261,4 +9261,80 @@ public class BlackFormulaRepositoryTest {
     System.out.println((-d2 * NORMAL.getPDF(d1) / lognormalVol));
 
   }
+
+  /**
+   * The array prices and greeks are compared to the scalar formulas, including on the boundary cases handled by the scalar formulas.
+   */
+  @Test
+  public void arrayPriceAndGreeksTest() {
+    final double[] forwards = {FORWARD, 0., 1.e-12, 1.e14 };
+    final double[] strikes = new double[STRIKES_INPUT.length + 3];
+    System.arraycopy(STRIKES_INPUT, 0, strikes, 0, STRIKES_INPUT.length);
+    strikes[STRIKES_INPUT.length] = 0.;
+    strikes[STRIKES_INPUT.length + 1] = FORWARD;
+    strikes[STRIKES_INPUT.length + 2] = 1.e14;
+    final double[] vols = new double[VOLS.length + 2];
+    System.arraycopy(VOLS, 0, vols, 0, VOLS.length);
+    vols[VOLS.length + 1] = 1.e15;
+    final double[] times = {TIME_TO_EXPIRY, 0., 0.25, 30. };
+    final int n = forwards.length * strikes.length * vols.length * times.length * 2;
+    final double[] f = new double[n];
+    final double[] k = new double[n];
+    final double[] t = new double[n];
+    final double[] v = new double[n];
+    final boolean[] isCall = new boolean[n];
+    int index = 0;
+    for (final double forward : forwards) {
+      for (final double strike : strikes) {
+        for (final double vol : vols) {
+          for (final double time : times) {
+            for (int loopcall = 0; loopcall < 2; loopcall++) {
+              f[index] = forward;
+              k[index] = strike;
+              t[index] = time;
+              v[index] = vol;
+              isCall[index] = loopcall == 0;
+              index++;
+            }
+          }
+        }
+      }
+    }
+    final double[] price = new double[n];
+    final double[] delta = new double[n];
+    final double[] dualDelta = new double[n];
+    final double[] gamma = new double[n];
+    final double[] vega = new double[n];
+    BlackFormulaRepository.priceAndGreeks(f, k, t, v, isCall, price, delta, dualDelta, gamma, vega);
+    final double[] priceOnly = BlackFormulaRepository.price(f, k, t, v, isCall);
+    for (int i = 0; i < n; i++) {
+      final String message = "F=" + f[i] + ", K=" + k[i] + ", T=" + t[i] + ", vol=" + v[i] + ", call=" + isCall[i];
+      assertArrayValue(message, BlackFormulaRepository.price(f[i], k[i], t[i], v[i], isCall[i]), price[i]);
+      assertEquals(message, price[i], priceOnly[i], 0.);
+      assertArrayValue(message, BlackFormulaRepository.delta(f[i], k[i], t[i], v[i], isCall[i]), delta[i]);
+      assertArrayValue(message, BlackFormulaRepository.dualDelta(f[i], k[i], t[i], v[i], isCall[i]), dualDelta[i]);
+      assertArrayValue(message, BlackFormulaRepository.gamma(f[i], k[i], t[i], v[i]), gamma[i]);
+      assertArrayValue(message, BlackFormulaRepository.vega(f[i], k[i], t[i], v[i]), vega[i]);
+    }
+  }
+
+  private static void assertArrayValue(final String message, final double expected, final double actual) {
+    if (Double.isInfinite(expected) || Double.isNaN(expected)) {
+      assertEquals(message, expected, actual);
+    } else {
+      assertEquals(message, expected, actual, 1.e-11 * Math.max(1., Math.abs(expected)));
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void arrayNegativeVolTest() {
+    BlackFormulaRepository.price(new double[] {FORWARD, FORWARD }, new double[] {FORWARD, FORWARD }, new double[] {1., 1. }, new double[] {0.2, -0.2 },
+        new boolean[] {true, true });
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void arrayLengthTest() {
+    BlackFormulaRepository.price(new double[] {FORWARD, FORWARD }, new double[] {FORWARD }, new double[] {1., 1. }, new double[] {0.2, 0.2 },
+        new boolean[] {true, true });
+  }
 }
@@ -5487,4 +5487,86 @@ public class BlackScholesFormulaRepositoryTest {
       public void atest() {
     System.out.println(BlackScholesFormulaRepository.gamma(300, 100, 1., 0., 0.03, -Math.log(300 / 100) / 1.));
   }
+
+  /**
+   * The array prices and greeks are compared to the scalar formulas, including on the boundary cases handled by the scalar formulas.
+   */
+  @Test
+  public void arrayPriceAndGreeksTest() {
+    final double[] spots = {SPOT, 0., 1.e-12, 1.e14 };
+    final double[] strikes = new double[STRIKES_INPUT.length + 2];
+    System.arraycopy(STRIKES_INPUT, 0, strikes, 0, STRIKES_INPUT.length);
+    strikes[STRIKES_INPUT.length + 1] = 1.e14;
+    final double[] vols = {0.1, 0.3, 0.8, 0., 1.e15 };
+    final double[] times = {TIME_TO_EXPIRY, 0., 0.25 };
+    final double[] rates = {-0.01, 0., 1.e-14, 0.062, 1.e14 };
+    final double[] carries = {COST_OF_CARRY, 0., -0.03, -1.e14 };
+    final int n = spots.length * strikes.length * vols.length * times.length * rates.length * carries.length * 2;
+    final double[] s = new double[n];
+    final double[] k = new double[n];
+    final double[] t = new double[n];
+    final double[] v = new double[n];
+    final double[] r = new double[n];
+    final double[] b = new double[n];
+    final boolean[] isCall = new boolean[n];
+    int index = 0;
+    for (final double spot : spots) {
+      for (final double strike : strikes) {
+        for (final double vol : vols) {
+          for (final double time : times) {
+            for (final double rate : rates) {
+              for (final double carry : carries) {
+                for (int loopcall = 0; loopcall < 2; loopcall++) {
+                  s[index] = spot;
+                  k[index] = strike;
+                  t[index] = time;
+                  v[index] = vol;
+                  r[index] = rate;
+                  b[index] = carry;
+                  isCall[index] = loopcall == 0;
+                  index++;
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+    final double[] price = new double[n];
+    final double[] delta = new double[n];
+    final double[] dualDelta = new double[n];
+    final double[] gamma = new double[n];
+    final double[] vega = new double[n];
+    BlackScholesFormulaRepository.priceAndGreeks(s, k, t, v, r, b, isCall, price, delta, dualDelta, gamma, vega);
+    final double[] priceOnly = BlackScholesFormulaRepository.price(s, k, t, v, r, b, isCall);
+    for (int i = 0; i < n; i++) {
+      final String message = "S=" + s[i] + ", K=" + k[i] + ", T=" + t[i] + ", vol=" + v[i] + ", r=" + r[i] + ", b=" + b[i] + ", call=" + isCall[i];
+      assertArrayValue(message, BlackScholesFormulaRepository.price(s[i], k[i], t[i], v[i], r[i], b[i], isCall[i]), price[i]);
+      assertEquals(message, price[i], priceOnly[i], 0.);
+      assertArrayValue(message, BlackScholesFormulaRepository.delta(s[i], k[i], t[i], v[i], r[i], b[i], isCall[i]), delta[i]);
+      assertArrayValue(message, BlackScholesFormulaRepository.dualDelta(s[i], k[i], t[i], v[i], r[i], b[i], isCall[i]), dualDelta[i]);
+      assertArrayValue(message, BlackScholesFormulaRepository.gamma(s[i], k[i], t[i], v[i], r[i], b[i]), gamma[i]);
+      assertArrayValue(message, BlackScholesFormulaRepository.vega(s[i], k[i], t[i], v[i], r[i], b[i]), vega[i]);
+    }
+  }
+
+  private static void assertArrayValue(final String message, final double expected, final double actual) {
+    if (Double.isInfinite(expected) || Double.isNaN(expected)) {
+      assertEquals(message, expected, actual);
+    } else {
+      assertEquals(message, expected, actual, 1.e-11 * Math.max(1., Math.abs(expected)));
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void arrayNegativeSpotTest() {
+    BlackScholesFormulaRepository.price(new double[] {SPOT, -SPOT }, new double[] {SPOT, SPOT }, new double[] {1., 1. }, new double[] {0.2, 0.2 },
+        new double[] {0.01, 0.01 }, new double[] {0.02, 0.02 }, new boolean[] {true, true });
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void arrayLengthTest() {
+    BlackScholesFormulaRepository.price(new double[] {SPOT, SPOT }, new double[] {SPOT, SPOT }, new double[] {1., 1. }, new double[] {0.2, 0.2 },
+        new double[] {0.01 }, new double[] {0.02, 0.02 }, new boolean[] {true, true });
+  }
 }
@@ -6,6 +6,8 @@
 package com.opengamma.analytics.financial.provider.curve;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
 
 import java.io.FileWriter;
 import java.io.IOException;
@@ -14,6 +16,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
@@ -48,6 +52,7 @@ import com.opengamma.analytics.financial.provider.calculator.discounting.ParSpre
 import com.opengamma.analytics.financial.provider.calculator.discounting.PresentValueDiscountingCalculator;
 import com.opengamma.analytics.financial.provider.calculator.generic.LastTimeCalculator;
 import com.opengamma.analytics.financial.provider.curve.multicurve.MulticurveDiscountBuildingRepository;
+import com.opengamma.analytics.financial.provider.curve.multicurve.MulticurveDiscountBuildingState;
 import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderDiscount;
 import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderInterface;
 import com.opengamma.analytics.financial.provider.description.interestrate.ParameterProviderInterface;
@@ -244,6 +249,113 @@ public class MulticurveBuildingDiscountingDiscountSimpleTest {
     }
   }
 
+  /**
+   * Tests the incremental calibration: unchanged quotes are not solved again and a small change of quotes is solved from the previous calibration.
+   */
+  @Test
+  public void curveConstructionIncremental() {
+    final MulticurveDiscountBuildingState state = new MulticurveDiscountBuildingState();
+    final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> first = makeCurvesFromDefinitions(DEFINITIONS_UNITS[0], GENERATORS_UNITS[0], NAMES_UNITS[0], KNOWN_DATA,
+        PSMQC, PSMQCSC, false, state);
+    assertEquals("Incremental calibration: first calibration", CURVES_PAR_SPREAD_MQ_WITHOUT_TODAY_BLOCK.get(0).getFirst(), first.getFirst());
+    assertEquals("Incremental calibration: first calibration", NB_UNITS[0], state.getReports().size());
+    for (final MulticurveDiscountBuildingState.UnitReport report : state.getReports()) {
+      assertTrue("Incremental calibration: first calibration", report.isSolved());
+    }
+    // Same quotes: nothing to solve
+    final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> same = makeCurvesFromDefinitions(DEFINITIONS_UNITS[0], GENERATORS_UNITS[0], NAMES_UNITS[0], KNOWN_DATA,
+        PSMQC, PSMQCSC, false, state);
+    for (final MulticurveDiscountBuildingState.UnitReport report : state.getReports()) {
+      assertFalse("Incremental calibration: same quotes", report.isSolved());
+    }
+    assertEquals("Incremental calibration: same quotes", first.getFirst(), same.getFirst());
+    assertEquals("Incremental calibration: same quotes", first.getSecond(), same.getSecond());
+    // One forward quote moved by 1bp: only the forward unit is solved, from the previous calibration
+    final double[] fwd3QuotesBumped = FWD3_USD_MARKET_QUOTES.clone();
+    fwd3QuotesBumped[3] += 1.0E-4;
+    final InstrumentDefinition<?>[][][] definitionsBumped = new InstrumentDefinition<?>[][][] {DEFINITIONS_UNITS[0][0],
+      new InstrumentDefinition<?>[][] {getDefinitions(fwd3QuotesBumped, FWD3_USD_GENERATORS, FWD3_USD_ATTR) } };
+    final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> bumped = makeCurvesFromDefinitions(definitionsBumped, GENERATORS_UNITS[0], NAMES_UNITS[0], KNOWN_DATA,
+        PSMQC, PSMQCSC, false, state);
+    final List<MulticurveDiscountBuildingState.UnitReport> reportsBumped = state.getReports();
+    assertFalse("Incremental calibration: bumped quote", reportsBumped.get(0).isSolved());
+    assertTrue("Incremental calibration: bumped quote", reportsBumped.get(1).isSolved());
+    curveConstructionTest(definitionsBumped, bumped.getFirst(), false, 0);
+    final MulticurveDiscountBuildingState stateCold = new MulticurveDiscountBuildingState();
+    final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> cold = makeCurvesFromDefinitions(definitionsBumped, GENERATORS_UNITS[0], NAMES_UNITS[0], KNOWN_DATA,
+        PSMQC, PSMQCSC, false, stateCold);
+    assertTrue("Incremental calibration: bumped quote", reportsBumped.get(1).getNbJacobianEvaluations() < stateCold.getReports().get(1).getNbJacobianEvaluations());
+    final double[] times = new double[] {0.1, 0.5, 1.0, 2.5, 5.0, 10.0 };
+    for (final double time : times) {
+      assertEquals("Incremental calibration: bumped quote", cold.getFirst().getCurve(CURVE_NAME_FWD3_USD).getInterestRate(time),
+          bumped.getFirst().getCurve(CURVE_NAME_FWD3_USD).getInterestRate(time), TOLERANCE_CAL);
+    }
+  }
+
+  /**
+   * Tests that the concurrent calibration of the units gives the same curves and blocks as the sequential calibration.
+   */
+  @Test
+  public void curveConstructionConcurrent() {
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> concurrent = CURVE_BUILDING_REPOSITORY.makeCurvesFromDerivativesConcurrently(
+          makeCurveBundles(DEFINITIONS_UNITS[0], GENERATORS_UNITS[0], NAMES_UNITS[0], false), KNOWN_DATA, new CurveBuildingBlockBundle(), DSC_MAP, FWD_IBOR_MAP,
+          FWD_ON_MAP, PSMQC, PSMQCSC, executor);
+      assertEquals("Concurrent calibration", CURVES_PAR_SPREAD_MQ_WITHOUT_TODAY_BLOCK.get(0).getFirst(), concurrent.getFirst());
+      assertEquals("Concurrent calibration", CURVES_PAR_SPREAD_MQ_WITHOUT_TODAY_BLOCK.get(0).getSecond(), concurrent.getSecond());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Tests that the concurrent calibration of independent units gives the same curves and blocks as the sequential calibration. The blocks of the
+   * second unit list the curves of the first one, with zero sensitivities, in both cases.
+   */
+  @SuppressWarnings("unchecked")
+  @Test
+  public void curveConstructionConcurrentIndependentUnits() {
+    final Calendar target = new MondayToFridayCalendar("TARGET");
+    final GeneratorSwapFixedON generatorOisEur = GeneratorSwapFixedONMaster.getInstance().getGenerator("EUR1YEONIA", target);
+    final IndexON indexOnEur = generatorOisEur.getIndex();
+    final GeneratorInstrument<? extends GeneratorAttribute>[] generatorsEur = new GeneratorInstrument<?>[DSC_USD_GENERATORS.length];
+    final double[] quotesEur = new double[DSC_USD_MARKET_QUOTES.length];
+    generatorsEur[0] = new GeneratorDepositON("EUR Deposit ON", Currency.EUR, target, indexOnEur.getDayCount());
+    for (int loopins = 1; loopins < generatorsEur.length; loopins++) {
+      generatorsEur[loopins] = generatorOisEur;
+    }
+    for (int loopins = 0; loopins < quotesEur.length; loopins++) {
+      quotesEur[loopins] = 0.0200 + 0.0010 * loopins;
+    }
+    final String curveNameDscEur = "EUR Dsc";
+    final InstrumentDefinition<?>[][][] definitionsEur = new InstrumentDefinition<?>[][][] {{getDefinitions(quotesEur, generatorsEur, DSC_USD_ATTR) } };
+    // The OIS start at spot, so the USD fixing series used to convert the first unit is not looked at for the EUR swaps
+    final MultiCurveBundle<GeneratorYDCurve>[] curveBundles = new MultiCurveBundle[] {
+      makeCurveBundles(new InstrumentDefinition<?>[][][] {DEFINITIONS_UNITS[0][0] }, new GeneratorYDCurve[][] {GENERATORS_UNITS[0][0] },
+          new String[][] {NAMES_UNITS[0][0] }, false)[0],
+      makeCurveBundles(definitionsEur, new GeneratorYDCurve[][] {GENERATORS_UNITS[0][0] }, new String[][] {{curveNameDscEur } }, false)[0] };
+    final LinkedHashMap<String, Currency> dscMap = new LinkedHashMap<>();
+    dscMap.put(CURVE_NAME_DSC_USD, USD);
+    dscMap.put(curveNameDscEur, Currency.EUR);
+    final LinkedHashMap<String, IndexON[]> fwdOnMap = new LinkedHashMap<>();
+    fwdOnMap.put(CURVE_NAME_DSC_USD, new IndexON[] {INDEX_ON_USD });
+    fwdOnMap.put(curveNameDscEur, new IndexON[] {indexOnEur });
+    final LinkedHashMap<String, IborIndex[]> fwdIborMap = new LinkedHashMap<>();
+    final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> sequential = CURVE_BUILDING_REPOSITORY.makeCurvesFromDerivatives(curveBundles, KNOWN_DATA,
+        new CurveBuildingBlockBundle(), dscMap, fwdIborMap, fwdOnMap, PSMQC, PSMQCSC);
+    assertTrue("Concurrent calibration: independent units", sequential.getSecond().getBlock(curveNameDscEur).getFirst().getAllNames().contains(CURVE_NAME_DSC_USD));
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> concurrent = CURVE_BUILDING_REPOSITORY.makeCurvesFromDerivativesConcurrently(curveBundles,
+          KNOWN_DATA, new CurveBuildingBlockBundle(), dscMap, fwdIborMap, fwdOnMap, PSMQC, PSMQCSC, executor);
+      assertEquals("Concurrent calibration: independent units", sequential.getFirst(), concurrent.getFirst());
+      assertEquals("Concurrent calibration: independent units", sequential.getSecond(), concurrent.getSecond());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   private void curveConstructionTest(final InstrumentDefinition<?>[][][] definitions, final MulticurveProviderDiscount curves, final boolean withToday, final int block) {
     final int nbBlocks = definitions.length;
     for (int loopblock = 0; loopblock < nbBlocks; loopblock++) {
@@ -390,10 +502,23 @@ public class MulticurveBuildingDiscountingDiscountSimpleTest {
     }
   }
 
-  @SuppressWarnings("unchecked")
   private static Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> makeCurvesFromDefinitions(final InstrumentDefinition<?>[][][] definitions, final GeneratorYDCurve[][] curveGenerators,
       final String[][] curveNames, final MulticurveProviderDiscount knownData, final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator,
       final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator, final boolean withToday) {
+    return makeCurvesFromDefinitions(definitions, curveGenerators, curveNames, knownData, calculator, sensitivityCalculator, withToday, null);
+  }
+
+  private static Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> makeCurvesFromDefinitions(final InstrumentDefinition<?>[][][] definitions, final GeneratorYDCurve[][] curveGenerators,
+      final String[][] curveNames, final MulticurveProviderDiscount knownData, final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator, final boolean withToday,
+      final MulticurveDiscountBuildingState state) {
+    return CURVE_BUILDING_REPOSITORY.makeCurvesFromDerivatives(makeCurveBundles(definitions, curveGenerators, curveNames, withToday), knownData,
+        new CurveBuildingBlockBundle(), DSC_MAP, FWD_IBOR_MAP, FWD_ON_MAP, calculator, sensitivityCalculator, state);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static MultiCurveBundle<GeneratorYDCurve>[] makeCurveBundles(final InstrumentDefinition<?>[][][] definitions, final GeneratorYDCurve[][] curveGenerators,
+      final String[][] curveNames, final boolean withToday) {
     final int nUnits = definitions.length;
     final MultiCurveBundle<GeneratorYDCurve>[] curveBundles = new MultiCurveBundle[nUnits];
     for (int i = 0; i < nUnits; i++) {
@@ -412,8 +537,7 @@ public class MulticurveBuildingDiscountingDiscountSimpleTest {
       }
       curveBundles[i] = new MultiCurveBundle<>(singleCurves);
     }
-    return CURVE_BUILDING_REPOSITORY.makeCurvesFromDerivatives(curveBundles, knownData, DSC_MAP, FWD_IBOR_MAP, FWD_ON_MAP, calculator,
-        sensitivityCalculator);
+    return curveBundles;
   }
 
   private static InstrumentDerivative convert(final InstrumentDefinition<?> instrument, final int unit, final boolean withToday) {
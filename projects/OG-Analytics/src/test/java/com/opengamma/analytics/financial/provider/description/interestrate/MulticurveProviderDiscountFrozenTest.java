@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.provider.description.interestrate;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+import org.threeten.bp.Period;
+import org.threeten.bp.ZonedDateTime;
+
+import com.opengamma.analytics.financial.instrument.index.GeneratorSwapFixedIbor;
+import com.opengamma.analytics.financial.instrument.index.GeneratorSwapFixedIborMaster;
+import com.opengamma.analytics.financial.instrument.index.IborIndex;
+import com.opengamma.analytics.financial.instrument.index.IndexON;
+import com.opengamma.analytics.financial.instrument.swap.SwapFixedIborDefinition;
+import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
+import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
+import com.opengamma.analytics.financial.provider.calculator.discounting.PresentValueDiscountingCalculator;
+import com.opengamma.analytics.financial.provider.description.MulticurveProviderDiscountDataSets;
+import com.opengamma.analytics.financial.schedule.ScheduleCalculator;
+import com.opengamma.financial.convention.calendar.Calendar;
+import com.opengamma.util.money.Currency;
+import com.opengamma.util.money.MultipleCurrencyAmount;
+import com.opengamma.util.test.TestGroup;
+import com.opengamma.util.time.DateUtils;
+
+/**
+ * Tests the frozen multi-curve provider against the provider it was created from.
+ */
+@Test(groups = TestGroup.UNIT)
+public class MulticurveProviderDiscountFrozenTest {
+
+  private static final MulticurveProviderDiscount MULTICURVES = MulticurveProviderDiscountDataSets.createMulticurveEurUsd();
+  private static final Calendar CALENDAR_EUR = MulticurveProviderDiscountDataSets.getEURCalendar();
+  private static final Calendar CALENDAR_USD = MulticurveProviderDiscountDataSets.getUSDCalendar();
+  private static final GeneratorSwapFixedIbor EUR1YEURIBOR6M = GeneratorSwapFixedIborMaster.getInstance().getGenerator("EUR1YEURIBOR6M", CALENDAR_EUR);
+  private static final GeneratorSwapFixedIbor USD6MLIBOR3M = GeneratorSwapFixedIborMaster.getInstance().getGenerator("USD6MLIBOR3M", CALENDAR_USD);
+  private static final ZonedDateTime REFERENCE_DATE = DateUtils.getUTCDate(2012, 11, 5);
+
+  private static final PresentValueDiscountingCalculator PVDC = PresentValueDiscountingCalculator.getInstance();
+
+  private static final double[] TIMES = {0.0, 0.01, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 30.0 };
+  private static final double TOLERANCE_DF = 1.0E-15;
+  private static final double TOLERANCE_PV = 1.0E-2;
+
+  /**
+   * Creates a portfolio of payer and receiver swaps with a spread of start dates, tenors and rates.
+   * @param nbSwap The number of swaps
+   * @return The swaps
+   */
+  private static InstrumentDerivative[] portfolio(final int nbSwap) {
+    final InstrumentDerivative[] swaps = new InstrumentDerivative[nbSwap];
+    for (int loopswap = 0; loopswap < nbSwap; loopswap++) {
+      final GeneratorSwapFixedIbor generator = (loopswap % 2 == 0) ? EUR1YEURIBOR6M : USD6MLIBOR3M;
+      final ZonedDateTime settleDate = ScheduleCalculator.getAdjustedDate(REFERENCE_DATE, loopswap % 40, generator.getCalendar());
+      final Period tenor = Period.ofYears(1 + loopswap % 30);
+      final double rate = 0.01 + (loopswap % 25) * 0.001;
+      final SwapFixedIborDefinition swapDefinition = SwapFixedIborDefinition.from(settleDate, tenor, generator, 1.0E6, rate, loopswap % 3 == 0);
+      swaps[loopswap] = swapDefinition.toDerivative(REFERENCE_DATE);
+    }
+    return swaps;
+  }
+
+  /**
+   * Sums the amounts in all currencies, as the portfolio mixes EUR and USD swaps.
+   * @param pv The present value
+   * @return The sum of the amounts
+   */
+  private static double total(final MultipleCurrencyAmount pv) {
+    double total = 0.0;
+    for (final Currency ccy : pv.getCurrencies()) {
+      total += pv.getAmount(ccy);
+    }
+    return total;
+  }
+
+  @Test
+  public void discountFactor() {
+    final MulticurveProviderDiscountFrozen frozen = MULTICURVES.freeze();
+    for (final Currency ccy : MULTICURVES.getCurrencies()) {
+      final int curve = frozen.getCurveIndex(ccy);
+      for (final double time : TIMES) {
+        assertEquals("Frozen provider: discount factor", MULTICURVES.getDiscountFactor(ccy, time), frozen.getDiscountFactor(ccy, time), TOLERANCE_DF);
+        // Second lookup is served from the cache
+        assertEquals("Frozen provider: discount factor", MULTICURVES.getDiscountFactor(ccy, time), frozen.getDiscountFactor(curve, time), TOLERANCE_DF);
+      }
+      assertEquals("Frozen provider: curve name", MULTICURVES.getName(ccy), frozen.getName(ccy));
+    }
+  }
+
+  @Test
+  public void forwardRate() {
+    final MulticurveProviderDiscountFrozen frozen = MULTICURVES.freeze();
+    for (final IborIndex index : MULTICURVES.getIndexesIbor()) {
+      for (int looptime = 1; looptime < TIMES.length; looptime++) {
+        final double start = TIMES[looptime - 1];
+        final double end = TIMES[looptime];
+        assertEquals("Frozen provider: forward rate", MULTICURVES.getSimplyCompoundForwardRate(index, start, end, 0.9 * (end - start)),
+            frozen.getSimplyCompoundForwardRate(index, start, end, 0.9 * (end - start)), TOLERANCE_DF);
+        assertEquals("Frozen provider: forward rate", MULTICURVES.getAnnuallyCompoundForwardRate(index, start, end),
+            frozen.getAnnuallyCompoundForwardRate(index, start, end), TOLERANCE_DF);
+      }
+    }
+    for (final IndexON index : MULTICURVES.getIndexesON()) {
+      for (int looptime = 1; looptime < TIMES.length; looptime++) {
+        final double start = TIMES[looptime - 1];
+        final double end = TIMES[looptime];
+        assertEquals("Frozen provider: forward rate", MULTICURVES.getSimplyCompoundForwardRate(index, start, end),
+            frozen.getSimplyCompoundForwardRate(index, start, end), TOLERANCE_DF);
+        assertEquals("Frozen provider: investment factor", MULTICURVES.getInvestmentFactor(index, start, end, end - start),
+            frozen.getInvestmentFactor(index, start, end, end - start), TOLERANCE_DF);
+      }
+    }
+  }
+
+  @Test
+  public void sharedCurves() {
+    final MulticurveProviderDiscountFrozen frozen = MULTICURVES.freeze();
+    for (final IndexON index : MULTICURVES.getIndexesON()) {
+      final YieldAndDiscountCurve curve = MULTICURVES.getCurve(index);
+      for (final Currency ccy : MULTICURVES.getCurrencies()) {
+        if (MULTICURVES.getCurve(ccy) == curve) {
+          assertEquals("Frozen provider: shared curve", frozen.getCurveIndex(ccy), frozen.getCurveIndex(index));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void snapshot() {
+    final MulticurveProviderDiscount multicurves = MULTICURVES.copy();
+    final MulticurveProviderDiscountFrozen frozen = multicurves.freeze();
+    final double df = frozen.getDiscountFactor(Currency.EUR, 1.0);
+    multicurves.replaceCurve(Currency.EUR, multicurves.getCurve(Currency.USD));
+    assertEquals("Frozen provider: snapshot", df, frozen.getDiscountFactor(Currency.EUR, 1.0), TOLERANCE_DF);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void missingCurrency() {
+    MULTICURVES.freeze().getCurveIndex(Currency.JPY);
+  }
+
+  @Test
+  public void presentValue() {
+    final MulticurveProviderDiscountFrozen frozen = MULTICURVES.freeze();
+    final InstrumentDerivative[] swaps = portfolio(100);
+    for (final InstrumentDerivative swap : swaps) {
+      final MultipleCurrencyAmount expected = swap.accept(PVDC, MULTICURVES);
+      final MultipleCurrencyAmount actual = swap.accept(PVDC, frozen);
+      for (final Currency ccy : expected.getCurrencies()) {
+        assertEquals("Frozen provider: present value", expected.getAmount(ccy), actual.getAmount(ccy), TOLERANCE_PV);
+      }
+    }
+  }
+
+  @Test(enabled = false)
+  /**
+   * Test of performance. In normal testing, "enabled = false".
+   */
+  public void performance() {
+    long startTime, endTime;
+    final int nbTest = 10;
+    final int nbSwap = 10000;
+    final InstrumentDerivative[] swaps = portfolio(nbSwap);
+    double pv = 0.0;
+    startTime = System.currentTimeMillis();
+    for (int looptest = 0; looptest < nbTest; looptest++) {
+      for (final InstrumentDerivative swap : swaps) {
+        pv += total(swap.accept(PVDC, MULTICURVES));
+      }
+    }
+    endTime = System.currentTimeMillis();
+    System.out.println("MulticurveProviderDiscountFrozenTest: " + nbTest + " x " + nbSwap + " swaps PV with provider: " + (endTime - startTime) + " ms");
+    startTime = System.currentTimeMillis();
+    for (int looptest = 0; looptest < nbTest; looptest++) {
+      // A new snapshot each time so the cache is cold at the start of each run
+      final MulticurveProviderDiscountFrozen frozen = MULTICURVES.freeze();
+      for (final InstrumentDerivative swap : swaps) {
+        pv += total(swap.accept(PVDC, frozen));
+      }
+    }
+    endTime = System.currentTimeMillis();
+    System.out.println("MulticurveProviderDiscountFrozenTest: " + nbTest + " x " + nbSwap + " swaps PV with frozen provider: " + (endTime - startTime) + " ms");
+    System.out.println(pv);
+  }
+
+}
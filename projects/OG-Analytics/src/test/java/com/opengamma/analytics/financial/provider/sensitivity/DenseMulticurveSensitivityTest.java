@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.provider.sensitivity;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.financial.provider.sensitivity.multicurve.DenseMulticurveSensitivity;
+import com.opengamma.analytics.financial.provider.sensitivity.multicurve.ForwardSensitivity;
+import com.opengamma.analytics.financial.provider.sensitivity.multicurve.MulticurveSensitivity;
+import com.opengamma.analytics.financial.provider.sensitivity.multicurve.MulticurveSensitivityUtils;
+import com.opengamma.analytics.financial.provider.sensitivity.multicurve.MultipleCurrencyMulticurveSensitivity;
+import com.opengamma.analytics.financial.provider.sensitivity.multicurve.SimplyCompoundedForwardSensitivity;
+import com.opengamma.util.money.Currency;
+import com.opengamma.util.test.TestGroup;
+import com.opengamma.util.tuple.DoublesPair;
+
+/**
+ * Tests the {@link DenseMulticurveSensitivity} class against the list based operations on {@link MulticurveSensitivity}.
+ */
+@Test(groups = TestGroup.UNIT)
+public class DenseMulticurveSensitivityTest {
+
+  private static final String CURVE_NAME_1 = "A";
+  private static final String CURVE_NAME_2 = "B";
+
+  private static final List<DoublesPair> SENSI_DATA_1 = Arrays.asList(new DoublesPair[] {DoublesPair.of(3d, 30d), DoublesPair.of(1d, 10d), DoublesPair.of(3d, -5d),
+    DoublesPair.of(2d, 20d), DoublesPair.of(1d, 1d), DoublesPair.of(4d, 1.0E-12) });
+  private static final List<DoublesPair> SENSI_DATA_2 = Arrays.asList(new DoublesPair[] {DoublesPair.of(2.5d, 40d), DoublesPair.of(1d, 30d), DoublesPair.of(5d, 20d) });
+  private static final List<ForwardSensitivity> SENSI_FWD_1 = new ArrayList<>();
+  static {
+    SENSI_FWD_1.add(new SimplyCompoundedForwardSensitivity(0.75, 1.00, 0.26, 12));
+    SENSI_FWD_1.add(new SimplyCompoundedForwardSensitivity(0.5, 0.75, 0.26, 11));
+    SENSI_FWD_1.add(new SimplyCompoundedForwardSensitivity(0.75, 1.00, 0.25, 3));
+    SENSI_FWD_1.add(new SimplyCompoundedForwardSensitivity(0.75, 1.00, 0.26, -2));
+    SENSI_FWD_1.add(new SimplyCompoundedForwardSensitivity(0.5, 0.75, 0.26, -11));
+  }
+
+  private static MulticurveSensitivity sensitivity1() {
+    final Map<String, List<DoublesPair>> mapDsc = new HashMap<>();
+    mapDsc.put(CURVE_NAME_1, SENSI_DATA_1);
+    final Map<String, List<ForwardSensitivity>> mapFwd = new HashMap<>();
+    mapFwd.put(CURVE_NAME_2, SENSI_FWD_1);
+    return MulticurveSensitivity.of(mapDsc, mapFwd);
+  }
+
+  private static MulticurveSensitivity sensitivity2() {
+    final Map<String, List<DoublesPair>> mapDsc = new HashMap<>();
+    mapDsc.put(CURVE_NAME_1, SENSI_DATA_2);
+    mapDsc.put(CURVE_NAME_2, SENSI_DATA_1);
+    return MulticurveSensitivity.ofYieldDiscounting(mapDsc);
+  }
+
+  @Test
+  public void roundTrip() {
+    final MulticurveSensitivity sensitivity = sensitivity1();
+    assertEquals("DenseMulticurveSensitivity: round trip", sensitivity, DenseMulticurveSensitivity.of(sensitivity).toMulticurveSensitivity());
+  }
+
+  @Test
+  public void cleaned() {
+    final MulticurveSensitivity sensitivity = sensitivity1().plus(sensitivity2());
+    final MulticurveSensitivity expected = MulticurveSensitivity.of(MulticurveSensitivityUtils.cleaned(sensitivity.getYieldDiscountingSensitivities()),
+        MulticurveSensitivityUtils.cleanedFwd(sensitivity.getForwardSensitivities()));
+    assertEquals("DenseMulticurveSensitivity: cleaned", expected, DenseMulticurveSensitivity.of(sensitivity).clean().toMulticurveSensitivity());
+    assertEquals("DenseMulticurveSensitivity: cleaned", expected, sensitivity.cleaned());
+  }
+
+  @Test
+  public void cleanedTolerance() {
+    final MulticurveSensitivity sensitivity = sensitivity1().plus(sensitivity2());
+    final double tolerance = 1.0E-10;
+    final MulticurveSensitivity expected = MulticurveSensitivity.of(MulticurveSensitivityUtils.cleaned(sensitivity.getYieldDiscountingSensitivities(), tolerance),
+        MulticurveSensitivityUtils.cleanedFwd(sensitivity.getForwardSensitivities(), tolerance));
+    assertEquals("DenseMulticurveSensitivity: cleaned", expected, sensitivity.cleaned(tolerance));
+  }
+
+  @Test
+  public void mergeCleaned() {
+    final DenseMulticurveSensitivity dense = DenseMulticurveSensitivity.of(sensitivity1()).clean();
+    dense.plus(DenseMulticurveSensitivity.of(sensitivity2()).clean());
+    // Both sides were cleaned so the merge keeps the result cleaned
+    assertEquals("DenseMulticurveSensitivity: merge", sensitivity1().plus(sensitivity2()).cleaned(), dense.toMulticurveSensitivity());
+    final int curve = dense.getCurveIndex(CURVE_NAME_1);
+    for (int loopt = 1; loopt < dense.getYieldDiscountingSize(curve); loopt++) {
+      assertEquals("DenseMulticurveSensitivity: merge", true, dense.getYieldDiscountingTime(curve, loopt - 1) < dense.getYieldDiscountingTime(curve, loopt));
+    }
+  }
+
+  @Test
+  public void plusSelf() {
+    final DenseMulticurveSensitivity dense = DenseMulticurveSensitivity.of(sensitivity1()).clean();
+    dense.plus(dense);
+    assertEquals("DenseMulticurveSensitivity: plus self", sensitivity1().multipliedBy(2).cleaned(), dense.toMulticurveSensitivity());
+  }
+
+  @Test
+  public void multiplyBy() {
+    final MulticurveSensitivity sensitivity = sensitivity1();
+    assertEquals("DenseMulticurveSensitivity: multiplied by", sensitivity.multipliedBy(3.5), DenseMulticurveSensitivity.of(sensitivity).multiplyBy(3.5).toMulticurveSensitivity());
+  }
+
+  @Test
+  public void multipleCurrencyPlus() {
+    final List<MultipleCurrencyMulticurveSensitivity> list = new ArrayList<>();
+    list.add(MultipleCurrencyMulticurveSensitivity.of(Currency.EUR, sensitivity1()));
+    list.add(MultipleCurrencyMulticurveSensitivity.of(Currency.USD, sensitivity2()));
+    list.add(MultipleCurrencyMulticurveSensitivity.of(Currency.EUR, sensitivity2()));
+    list.add(MultipleCurrencyMulticurveSensitivity.of(Currency.EUR, sensitivity1()).plus(Currency.USD, sensitivity1()));
+    MultipleCurrencyMulticurveSensitivity expected = list.get(0);
+    for (int loops = 1; loops < list.size(); loops++) {
+      expected = expected.plus(list.get(loops));
+    }
+    assertEquals("DenseMulticurveSensitivity: multiple currency plus", expected, MultipleCurrencyMulticurveSensitivity.plus(list));
+  }
+
+}
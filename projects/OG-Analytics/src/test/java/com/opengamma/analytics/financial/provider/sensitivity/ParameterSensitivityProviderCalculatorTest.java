@@ -5,9 +5,12 @@
  */
 package com.opengamma.analytics.financial.provider.sensitivity;
 
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.internal.junit.ArrayAsserts.assertArrayEquals;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -27,6 +30,7 @@ import com.opengamma.analytics.financial.instrument.swap.SwapFixedONDefinition;
 import com.opengamma.analytics.financial.interestrate.annuity.derivative.AnnuityCouponFixed;
 import com.opengamma.analytics.financial.interestrate.payments.derivative.Coupon;
 import com.opengamma.analytics.financial.interestrate.swap.derivative.SwapFixedCoupon;
+import com.opengamma.analytics.financial.model.interestrate.curve.DiscountCurve;
 import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
 import com.opengamma.analytics.financial.model.interestrate.curve.YieldCurve;
 import com.opengamma.analytics.financial.provider.calculator.discounting.PresentValueCurveSensitivityDiscountingCalculator;
@@ -34,9 +38,11 @@ import com.opengamma.analytics.financial.provider.calculator.discounting.Present
 import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderDiscount;
 import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderForward;
 import com.opengamma.analytics.financial.provider.description.interestrate.ParameterProviderInterface;
+import com.opengamma.analytics.financial.provider.sensitivity.multicurve.ForwardSensitivity;
 import com.opengamma.analytics.financial.provider.sensitivity.multicurve.MultipleCurrencyParameterSensitivity;
 import com.opengamma.analytics.financial.provider.sensitivity.multicurve.ParameterSensitivityMulticurveDiscountInterpolatedFDCalculator;
 import com.opengamma.analytics.financial.provider.sensitivity.multicurve.ParameterSensitivityMulticurveForwardInterpolatedFDCalculator;
+import com.opengamma.analytics.financial.provider.sensitivity.multicurve.SimplyCompoundedForwardSensitivity;
 import com.opengamma.analytics.financial.provider.sensitivity.parameter.ParameterSensitivityParameterCalculator;
 import com.opengamma.analytics.financial.util.AssertSensitivityObjects;
 import com.opengamma.analytics.math.curve.DoublesCurve;
@@ -49,6 +55,7 @@ import com.opengamma.financial.convention.calendar.MondayToFridayCalendar;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.test.TestGroup;
 import com.opengamma.util.time.DateUtils;
+import com.opengamma.util.tuple.DoublesPair;
 
 /**
  * Tests related to the computation of parameter sensitivity from point sensitivity.
@@ -79,6 +86,10 @@ public class ParameterSensitivityProviderCalculatorTest {
   private static final double[] YIELD = {0.02, 0.025, 0.03, 0.03, 0.028};
   private static final Interpolator1D INTERPOLATOR_LINEAR = CombinedInterpolatorExtrapolatorFactory.getInterpolator(Interpolator1DFactory.LINEAR, Interpolator1DFactory.LINEAR_EXTRAPOLATOR,
       Interpolator1DFactory.FLAT_EXTRAPOLATOR);
+  private static final Interpolator1D INTERPOLATOR_LOG_LINEAR = CombinedInterpolatorExtrapolatorFactory.getInterpolator(Interpolator1DFactory.LOG_LINEAR,
+      Interpolator1DFactory.FLAT_EXTRAPOLATOR);
+  private static final Interpolator1D INTERPOLATOR_SPLINE = CombinedInterpolatorExtrapolatorFactory.getInterpolator(Interpolator1DFactory.NATURAL_CUBIC_SPLINE,
+      Interpolator1DFactory.FLAT_EXTRAPOLATOR);
   private static final String DSC_NAME = "USD Discounting";
   private static final String FWD3_NAME = "USD Forward 3M";
   private static final YieldAndDiscountCurve DSC = new YieldCurve(DSC_NAME, new InterpolatedDoublesCurve(TIME, YIELD, INTERPOLATOR_LINEAR, true));
@@ -106,6 +117,7 @@ public class ParameterSensitivityProviderCalculatorTest {
   private static final ParameterSensitivityMulticurveForwardInterpolatedFDCalculator PSC_FWD_FD = new ParameterSensitivityMulticurveForwardInterpolatedFDCalculator(PVC, SHIFT);
 
   private static final double TOLERANCE_DELTA = 1.0E+2; // 0.01 currency unit for 1bp on 100m
+  private static final double TOLERANCE_ADJOINT = 1.0E-2;
 
   @Test
   public void parameterSensitivityBlock() {
@@ -141,4 +153,100 @@ public class ParameterSensitivityProviderCalculatorTest {
         TOLERANCE_DELTA);
   }
 
+  /**
+   * The parameter sensitivities are accumulated through the adjoint of the interpolators. They should agree with the sum of the point
+   * sensitivities multiplied by the full rate sensitivity of each point.
+   */
+  @Test
+  public void parameterSensitivityAdjoint() {
+    final double[] df = new double[TIME.length];
+    for (int loopt = 0; loopt < TIME.length; loopt++) {
+      df[loopt] = Math.exp(-TIME[loopt] * YIELD[loopt]);
+    }
+    final YieldAndDiscountCurve[] curves = new YieldAndDiscountCurve[] {DSC,
+      new YieldCurve(DSC_NAME, new InterpolatedDoublesCurve(TIME, YIELD, INTERPOLATOR_LOG_LINEAR, true)),
+      new YieldCurve(DSC_NAME, new InterpolatedDoublesCurve(TIME, YIELD, INTERPOLATOR_SPLINE, true)),
+      new DiscountCurve(DSC_NAME, new InterpolatedDoublesCurve(TIME, df, INTERPOLATOR_LOG_LINEAR, true)) };
+    final List<DoublesPair> pointSensitivity = new ArrayList<>();
+    final List<ForwardSensitivity> forwardSensitivity = new ArrayList<>();
+    for (int loopt = 0; loopt < 23; loopt++) {
+      final double time = 0.1 + 0.3 * loopt; // Including times before the first node and after the last one
+      pointSensitivity.add(DoublesPair.of(time, NOTIONAL * Math.cos(loopt)));
+      forwardSensitivity.add(new SimplyCompoundedForwardSensitivity(time, time + 0.25, 0.25, NOTIONAL * Math.sin(loopt)));
+    }
+    for (final YieldAndDiscountCurve curve : curves) {
+      final MulticurveProviderDiscount multicurve = new MulticurveProviderDiscount();
+      multicurve.setCurve(USD, curve);
+      final int nbParameters = curve.getNumberOfParameters();
+      final double[] expected = new double[nbParameters];
+      for (final DoublesPair point : pointSensitivity) {
+        final double[] sensitivity = curve.getInterestRateParameterSensitivity(point.getFirst());
+        for (int loopp = 0; loopp < nbParameters; loopp++) {
+          expected[loopp] += point.getSecond() * sensitivity[loopp];
+        }
+      }
+      assertArrayEquals("ParameterSensitivity: adjoint", expected, multicurve.parameterSensitivity(DSC_NAME, pointSensitivity), TOLERANCE_ADJOINT);
+      final double[] expectedForward = new double[nbParameters];
+      for (final ForwardSensitivity point : forwardSensitivity) {
+        final double dfStart = curve.getDiscountFactor(point.getStartTime());
+        final double dfEnd = curve.getDiscountFactor(point.getEndTime());
+        final double[] sensitivityStart = curve.getInterestRateParameterSensitivity(point.getStartTime());
+        final double[] sensitivityEnd = curve.getInterestRateParameterSensitivity(point.getEndTime());
+        for (int loopp = 0; loopp < nbParameters; loopp++) {
+          expectedForward[loopp] += (point.derivativeToYieldStart(dfStart, dfEnd) * sensitivityStart[loopp] + point.derivativeToYieldEnd(dfStart, dfEnd) * sensitivityEnd[loopp])
+              * point.getValue();
+        }
+      }
+      assertArrayEquals("ParameterSensitivity: adjoint", expectedForward, multicurve.parameterForwardSensitivity(DSC_NAME, forwardSensitivity), TOLERANCE_ADJOINT);
+    }
+  }
+
+  /**
+   * The log-linear interpolator has analytical node sensitivities. The parameter sensitivities should agree with finite differences.
+   */
+  @Test
+  public void parameterSensitivityLogLinear() {
+    final MulticurveProviderDiscount multicurve = new MulticurveProviderDiscount();
+    multicurve.setCurve(USD, new YieldCurve(DSC_NAME, new InterpolatedDoublesCurve(TIME, YIELD, INTERPOLATOR_LOG_LINEAR, true)));
+    multicurve.setCurve(USDLIBOR3M, new YieldCurve(FWD3_NAME, new InterpolatedDoublesCurve(TIME, YIELD, INTERPOLATOR_LOG_LINEAR, true)));
+    final MultipleCurrencyParameterSensitivity pvpsSwapExact = PSC.calculateSensitivity(SWAP, multicurve, multicurve.getAllNames());
+    final MultipleCurrencyParameterSensitivity pvpsSwapFD = PSC_DSC_FD.calculateSensitivity(SWAP, multicurve);
+    AssertSensitivityObjects.assertEquals("ParameterSensitivityMarketBlockCalculator: swap", pvpsSwapExact, pvpsSwapFD, TOLERANCE_DELTA);
+    assertEquals("ParameterSensitivityMarketBlockCalculator: swap", 2, pvpsSwapExact.getAllNamesCurrency().size());
+  }
+
+  @Test(enabled = false)
+  /**
+   * Test of performance of the adjoint parameter sensitivities against finite differences. In normal testing, "enabled = false".
+   */
+  public void performance() {
+    long startTime, endTime;
+    final int nbTest = 100;
+    final int nbNode = 30;
+    final double[] time = new double[nbNode];
+    final double[] yield = new double[nbNode];
+    for (int loopnode = 0; loopnode < nbNode; loopnode++) {
+      time[loopnode] = 0.25 + loopnode;
+      yield[loopnode] = 0.02 + 0.0005 * loopnode;
+    }
+    final MulticurveProviderDiscount multicurve = new MulticurveProviderDiscount();
+    multicurve.setCurve(USD, new YieldCurve(DSC_NAME, new InterpolatedDoublesCurve(time, yield, INTERPOLATOR_LINEAR, true)));
+    multicurve.setCurve(USDLIBOR3M, new YieldCurve(FWD3_NAME, new InterpolatedDoublesCurve(time, yield, INTERPOLATOR_LINEAR, true)));
+    final SwapFixedCoupon<Coupon> swap = SwapFixedIborDefinition.from(EFFECTIVE_DATE, Period.ofYears(30), USD6MLIBOR3M, NOTIONAL, 0.05, false).toDerivative(REFERENCE_DATE);
+    double sum = 0.0;
+    startTime = System.currentTimeMillis();
+    for (int looptest = 0; looptest < nbTest; looptest++) {
+      sum += PSC.calculateSensitivity(swap, multicurve, multicurve.getAllNames()).getSensitivity(DSC_NAME, USD).getEntry(0);
+    }
+    endTime = System.currentTimeMillis();
+    System.out.println(nbTest + " bucketed sensitivities of a 30Y swap (2 x " + nbNode + " nodes) - adjoint: " + (endTime - startTime) + " ms");
+    startTime = System.currentTimeMillis();
+    for (int looptest = 0; looptest < nbTest; looptest++) {
+      sum += PSC_DSC_FD.calculateSensitivity(swap, multicurve).getSensitivity(DSC_NAME, USD).getEntry(0);
+    }
+    endTime = System.currentTimeMillis();
+    System.out.println(nbTest + " bucketed sensitivities of a 30Y swap (2 x " + nbNode + " nodes) - finite difference: " + (endTime - startTime) + " ms");
+    System.out.println("Sum: " + sum);
+  }
+
 }
@@ -244,4 +244,17 @@ public class InterpolatedDoublesCurveTest extends DoublesCurveTestCase {
     }
   }
 
+  @Test
+  public void testGetYValues() {
+    final InterpolatedDoublesCurve curve = InterpolatedDoublesCurve.from(MAP, PCHIP, NAME1);
+    final double[] x = new double[40];
+    for (int i = 0; i < x.length; i++) {
+      x[i] = i * 0.2;
+    }
+    final double[] y = curve.getYValues(x);
+    for (int i = 0; i < x.length; i++) {
+      assertEquals(y[i], curve.getYValue(x[i]), EPS);
+    }
+  }
+
 }
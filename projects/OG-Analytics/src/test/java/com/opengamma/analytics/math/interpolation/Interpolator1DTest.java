@@ -7,10 +7,14 @@ package com.opengamma.analytics.math.interpolation;
 
 import static org.testng.Assert.assertEquals;
 
+import java.util.TreeMap;
+
 import org.testng.annotations.Test;
 
 import com.opengamma.analytics.math.function.PiecewisePolynomialFunction1D;
+import com.opengamma.analytics.math.interpolation.data.Interpolator1DCubicSplineDataBundle;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
+import com.opengamma.analytics.math.interpolation.data.NavigableMapInterpolator1DDataBundle;
 import com.opengamma.analytics.math.minimization.DoubleRangeLimitTransform;
 import com.opengamma.util.test.TestGroup;
 
@@ -266,4 +270,161 @@ public class Interpolator1DTest {
     }
   }
 
+  /**
+   * Batch interpolation over sorted keys should agree with interpolating each key in turn
+   */
+  @Test
+  public void sortedValuesInterpolatorsTest() {
+    final double[] xValues = new double[] {0.25, 0.5, 1., 2., 3., 5., 7., 10. };
+    final double[] yValues = new double[] {0.999, 0.997, 0.99, 0.975, 0.96, 0.93, 0.9, 0.85 };
+    final Interpolator1D[] interp = new Interpolator1D[] {new LinearInterpolator1D(), new LogLinearInterpolator1D(), new NaturalCubicSplineInterpolator1D(),
+      new PCHIPInterpolator1D(), new MonotoneConvexSplineInterpolator1D(), new StepInterpolator1D(),
+      new CombinedInterpolatorExtrapolator(new LinearInterpolator1D(), new FlatExtrapolator1D(), new LinearExtrapolator1D(new LinearInterpolator1D())) };
+    final int nKeys = 200;
+    final double[] sortedKeys = new double[nKeys];
+    for (int k = 0; k < nKeys; ++k) {
+      sortedKeys[k] = xValues[0] + (xValues[xValues.length - 1] - xValues[0]) * k / (nKeys - 1);
+    }
+    final double[] unsortedKeys = new double[] {7., 0.25, 10., 2.5, 2., 0.3 };
+    for (final Interpolator1D element : interp) {
+      final Interpolator1DDataBundle data = element.getDataBundleFromSortedArrays(xValues, yValues);
+      final double[] result = new double[nKeys];
+      element.interpolate(data, sortedKeys, result);
+      for (int k = 0; k < nKeys; ++k) {
+        assertEquals(result[k], element.interpolate(data, Double.valueOf(sortedKeys[k])), 0);
+      }
+      final double[] unsortedResult = new double[unsortedKeys.length];
+      element.interpolate(data, unsortedKeys, unsortedResult);
+      for (int k = 0; k < unsortedKeys.length; ++k) {
+        assertEquals(unsortedResult[k], element.interpolate(data, Double.valueOf(unsortedKeys[k])), 0);
+      }
+    }
+    // Keys either side of the data go to the extrapolators
+    final Interpolator1D combined = interp[interp.length - 1];
+    final Interpolator1DDataBundle data = combined.getDataBundleFromSortedArrays(xValues, yValues);
+    final double[] keys = new double[] {0., 0.1, 0.25, 4., 10., 11., 12. };
+    final double[] result = new double[keys.length];
+    combined.interpolate(data, keys, result);
+    for (int k = 0; k < keys.length; ++k) {
+      assertEquals(result[k], combined.interpolate(data, Double.valueOf(keys[k])), 0);
+    }
+  }
+
+  /**
+   * Bundles that are not backed by arrays should give the same results as those that are
+   */
+  @Test
+  public void mapBackedDataInterpolatorsTest() {
+    final double[] xValues = new double[] {1., 2., 3., 4., 5., 6. };
+    final double[] yValues = new double[] {1., 1.1, 2., 3., 5.9, 6. };
+    final TreeMap<Double, Double> map = new TreeMap<>();
+    for (int k = 0; k < xValues.length; ++k) {
+      map.put(xValues[k], yValues[k]);
+    }
+    final Interpolator1D[] interp = new Interpolator1D[] {new LinearInterpolator1D(), new LogLinearInterpolator1D(), new NaturalCubicSplineInterpolator1D() };
+    final Interpolator1DDataBundle[] mapData = new Interpolator1DDataBundle[] {new NavigableMapInterpolator1DDataBundle(map),
+      new NavigableMapInterpolator1DDataBundle(map), new Interpolator1DCubicSplineDataBundle(new NavigableMapInterpolator1DDataBundle(map)) };
+    // The map backed bundle only bounds values below the penultimate key
+    final double[] keys = new double[] {1., 1.3, 2., 2.5, 3.7, 4., 4.9 };
+    for (int i = 0; i < interp.length; ++i) {
+      final Interpolator1DDataBundle arrayData = interp[i].getDataBundleFromSortedArrays(xValues, yValues);
+      final double[] result = new double[keys.length];
+      interp[i].interpolate(mapData[i], keys, result);
+      for (int k = 0; k < keys.length; ++k) {
+        assertEquals(interp[i].interpolate(mapData[i], keys[k]), interp[i].interpolate(arrayData, keys[k]), 1e-14);
+        assertEquals(result[k], interp[i].interpolate(arrayData, keys[k]), 1e-14);
+        final double[] expected = interp[i].getNodeSensitivitiesForValue(arrayData, keys[k]);
+        final double[] actual = interp[i].getNodeSensitivitiesForValue(mapData[i], keys[k]);
+        for (int j = 0; j < expected.length; ++j) {
+          assertEquals(actual[j], expected[j], 1e-14);
+        }
+      }
+    }
+    // The slope at the last key comes from the last two nodes
+    final Interpolator1D linear = interp[0];
+    assertEquals(linear.firstDerivative(linear.getDataBundleFromSortedArrays(xValues, yValues), 6.), 0.1, 1e-14);
+  }
+
+  /**
+   * The primitive node sensitivities should agree with the boxed ones
+   */
+  @Test
+  public void primitiveNodeSensitivitiesTest() {
+    final double[] xValues = new double[] {1., 2., 3., 4., 5., 6. };
+    final double[] yValues = new double[] {1., 1.1, 2., 3., 5.9, 6. };
+    final Interpolator1D[] interp = new Interpolator1D[] {new LinearInterpolator1D(), new NaturalCubicSplineInterpolator1D(),
+      new CombinedInterpolatorExtrapolator(new LinearInterpolator1D(), new FlatExtrapolator1D()) };
+    for (final Interpolator1D element : interp) {
+      final Interpolator1DDataBundle data = element.getDataBundleFromSortedArrays(xValues, yValues);
+      for (double x = 1.; x <= 6.; x += 0.25) {
+        final double[] expected = element.getNodeSensitivitiesForValue(data, Double.valueOf(x));
+        final double[] actual = element.getNodeSensitivitiesForValue(data, x);
+        assertEquals(actual.length, expected.length);
+        for (int k = 0; k < expected.length; ++k) {
+          assertEquals(actual[k], expected[k], 0);
+        }
+      }
+    }
+  }
+
+  /**
+   * The adjoint node sensitivities should agree with the node sensitivities multiplied by the value sensitivities
+   */
+  @Test
+  public void addNodeSensitivitiesTest() {
+    final double[] xValues = new double[] {1., 2., 3., 4., 5., 6. };
+    final double[] yValues = new double[] {1., 1.1, 2., 3., 5.9, 6. };
+    final Interpolator1D[] interp = new Interpolator1D[] {new LinearInterpolator1D(), new LogLinearInterpolator1D(), new NaturalCubicSplineInterpolator1D(),
+      new CombinedInterpolatorExtrapolator(new LinearInterpolator1D(), new FlatExtrapolator1D()),
+      new CombinedInterpolatorExtrapolator(new LogLinearInterpolator1D(), new FlatExtrapolator1D(), new LinearExtrapolator1D(new LogLinearInterpolator1D())) };
+    for (int i = 0; i < interp.length; ++i) {
+      final Interpolator1DDataBundle data = interp[i].getDataBundleFromSortedArrays(xValues, yValues);
+      // The combined interpolators also extrapolate on both sides
+      final double xStart = (i < 3) ? 1. : 0.5;
+      final double xEnd = (i < 3) ? 6. : 6.5;
+      final double[] expected = new double[xValues.length];
+      final double[] actual = new double[xValues.length];
+      int k = 0;
+      for (double x = xStart; x <= xEnd; x += 0.125, ++k) {
+        final double valueBar = Math.cos(k);
+        final double[] sensitivity = interp[i].getNodeSensitivitiesForValue(data, Double.valueOf(x));
+        for (int j = 0; j < xValues.length; ++j) {
+          expected[j] += valueBar * sensitivity[j];
+        }
+        interp[i].addNodeSensitivitiesForValue(data, x, valueBar, actual);
+      }
+      for (int j = 0; j < xValues.length; ++j) {
+        assertEquals(actual[j], expected[j], 1.0E-12);
+      }
+    }
+  }
+
+  /**
+   * The log-linear node sensitivities are analytical; they should agree with finite differences
+   */
+  @Test
+  public void logLinearNodeSensitivitiesTest() {
+    final double[] xValues = new double[] {0.25, 0.5, 1., 2., 3., 5., 7., 10. };
+    final double[] yValues = new double[] {0.999, 0.997, 0.99, 0.975, 0.96, 0.93, 0.9, 0.85 };
+    final Interpolator1D interp = new LogLinearInterpolator1D();
+    final Interpolator1DDataBundle data = interp.getDataBundleFromSortedArrays(xValues, yValues);
+    for (double x = 0.25; x <= 10.; x += 0.3) {
+      final double[] analytic = interp.getNodeSensitivitiesForValue(data, x);
+      final double[] fd = interp.getNodeSensitivitiesForValue(data, x, true);
+      for (int j = 0; j < xValues.length; ++j) {
+        assertEquals(analytic[j], fd[j], EPS);
+      }
+    }
+  }
+
+  /**
+   * Keys outside the data are rejected by the batch method as they are by the single key method
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void sortedValuesOutOfRangeTest() {
+    final Interpolator1D interp = new LinearInterpolator1D();
+    final Interpolator1DDataBundle data = interp.getDataBundleFromSortedArrays(new double[] {1., 2., 3. }, new double[] {1., 2., 3. });
+    interp.interpolate(data, new double[] {1.5, 2.5, 3.5 }, new double[3]);
+  }
+
 }
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.matrix.CommonsMatrixAlgebra;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Test.
+ */
+@Test(groups = TestGroup.UNIT)
+public class LUDecompositionOpenGammaTest {
+  private static final MatrixAlgebra ALGEBRA = new CommonsMatrixAlgebra();
+  private static final Decomposition<LUDecompositionResult> LU = new LUDecompositionOpenGamma();
+  private static final Decomposition<LUDecompositionResult> LU_COMMONS = new LUDecompositionCommons();
+  private static final DoubleMatrix2D A = new DoubleMatrix2D(new double[][] {new double[] {1, 2, -1}, new double[] {4, 3, 1}, new double[] {2, 2, 3}});
+  private static final double EPS = 1e-9;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullObjectMatrix() {
+    LU.evaluate((DoubleMatrix2D) null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNotSquare() {
+    LU.evaluate(new DoubleMatrix2D(new double[][] {new double[] {1, 2, 3}, new double[] {4, 5, 6}}));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSingular() {
+    LU.evaluate(new DoubleMatrix2D(new double[][] {new double[] {1, 2}, new double[] {2, 4}}));
+  }
+
+  @Test
+  public void testRecoverOrginal() {
+    final LUDecompositionResult lu = LU.evaluate(A);
+    final DoubleMatrix2D a = (DoubleMatrix2D) ALGEBRA.multiply(lu.getL(), lu.getU());
+    checkEquals((DoubleMatrix2D) ALGEBRA.multiply(lu.getP(), A), a);
+  }
+
+  /**
+   * Tests the pivot, determinant and solutions against the Commons implementation.
+   */
+  @Test
+  public void testCommons() {
+    final LUDecompositionResult lu = LU.evaluate(A);
+    final LUDecompositionResult luCommons = LU_COMMONS.evaluate(A);
+    final int[] pivot = lu.getPivot();
+    final int[] pivotCommons = luCommons.getPivot();
+    for (int i = 0; i < pivot.length; i++) {
+      assertEquals(pivotCommons[i], pivot[i]);
+    }
+    assertEquals(luCommons.getDeterminant(), lu.getDeterminant(), EPS);
+    final double[] b = new double[] {1, -2, 3};
+    final double[] x = lu.solve(b);
+    final double[] xCommons = luCommons.solve(b);
+    for (int i = 0; i < b.length; i++) {
+      assertEquals(xCommons[i], x[i], EPS);
+    }
+    final DoubleMatrix1D x1D = lu.solve(new DoubleMatrix1D(b));
+    for (int i = 0; i < b.length; i++) {
+      assertEquals(xCommons[i], x1D.getEntry(i), EPS);
+    }
+    final DoubleMatrix2D rhs = new DoubleMatrix2D(new double[][] {new double[] {1, 0}, new double[] {-2, 1}, new double[] {3, 5}});
+    checkEquals(luCommons.solve(rhs), lu.solve(rhs));
+  }
+
+  /**
+   * Tests that the parallel decomposition gives the same result as the sequential one.
+   */
+  @Test
+  public void testParallel() {
+    final int n = 150;
+    final Random random = new Random(0);
+    final double[][] data = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        data[i][j] = random.nextDouble() - 0.5;
+      }
+    }
+    final DoubleMatrix2D a = new DoubleMatrix2D(data);
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final LUDecompositionResult lu = LU.evaluate(a);
+      final LUDecompositionResult luParallel = new LUDecompositionOpenGamma(LUDecompositionOpenGamma.DEFAULT_SINGULARITY_THRESHOLD, 0, pool).evaluate(a);
+      checkEquals(lu.getL(), luParallel.getL(), 0.0);
+      checkEquals(lu.getU(), luParallel.getU(), 0.0);
+      assertEquals(lu.getDeterminant(), luParallel.getDeterminant(), 0.0);
+      checkEquals((DoubleMatrix2D) ALGEBRA.multiply(lu.getP(), a), (DoubleMatrix2D) ALGEBRA.multiply(lu.getL(), lu.getU()));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private void checkEquals(final DoubleMatrix2D x, final DoubleMatrix2D y) {
+    checkEquals(x, y, EPS);
+  }
+
+  private void checkEquals(final DoubleMatrix2D x, final DoubleMatrix2D y, final double tolerance) {
+    final int n = x.getNumberOfRows();
+    final int m = x.getNumberOfColumns();
+    assertEquals(n, y.getNumberOfRows());
+    assertEquals(m, y.getNumberOfColumns());
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < m; j++) {
+        assertEquals(x.getEntry(i, j), y.getEntry(i, j), tolerance);
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.matrix;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.util.AssertMatrix;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Test.
+ */
+@Test(groups = TestGroup.UNIT)
+public class BlockedMatrixAlgebraTest {
+  private static final MatrixAlgebra OG = MatrixAlgebraFactory.OG_ALGEBRA;
+  private static final MatrixAlgebra COMMONS = MatrixAlgebraFactory.COMMONS_ALGEBRA;
+  /** Small blocks and no pool, to exercise the partial blocks on small matrices */
+  private static final MatrixAlgebra BLOCKED_SMALL = new BlockedMatrixAlgebra(4, Long.MAX_VALUE, null);
+  private static final MatrixAlgebra BLOCKED = MatrixAlgebraFactory.getMatrixAlgebra(MatrixAlgebraFactory.BLOCKED);
+  private static final DoubleMatrix2D A = randomMatrix(11, 7, 1);
+  private static final DoubleMatrix2D B = randomMatrix(7, 9, 2);
+  private static final DoubleMatrix2D S = randomMatrix(10, 10, 3);
+  private static final double EPS = 1e-10;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testMatrixSizeMismatch() {
+    BLOCKED.multiply(B, A);
+  }
+
+  /**
+   * The products are accumulated in the same order as the OG algebra, so the results are identical.
+   */
+  @Test
+  public void testMultiply() {
+    final DoubleMatrix2D expected = (DoubleMatrix2D) OG.multiply(A, B);
+    AssertMatrix.assertEqualsMatrix(expected, (DoubleMatrix2D) BLOCKED_SMALL.multiply(A, B), 0.0);
+    AssertMatrix.assertEqualsMatrix(expected, (DoubleMatrix2D) BLOCKED.multiply(A, B), 0.0);
+    final DoubleMatrix1D v = new DoubleMatrix1D(new double[] {1, 2, 3, 4, 5, 6, 7});
+    AssertMatrix.assertEqualsVectors((DoubleMatrix1D) OG.multiply(A, v), (DoubleMatrix1D) BLOCKED_SMALL.multiply(A, v), 0.0);
+    AssertMatrix.assertEqualsMatrix(A, (DoubleMatrix2D) BLOCKED_SMALL.multiply(A, new IdentityMatrix(7)), 0.0);
+  }
+
+  @Test
+  public void testMultiplyParallel() {
+    final DoubleMatrix2D a = randomMatrix(130, 90, 4);
+    final DoubleMatrix2D b = randomMatrix(90, 110, 5);
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final MatrixAlgebra parallel = new BlockedMatrixAlgebra(16, 0, pool);
+      AssertMatrix.assertEqualsMatrix((DoubleMatrix2D) OG.multiply(a, b), (DoubleMatrix2D) parallel.multiply(a, b), 0.0);
+      AssertMatrix.assertEqualsMatrix(OG.matrixTransposeMultiplyMatrix(a), parallel.matrixTransposeMultiplyMatrix(a), 0.0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testTranspose() {
+    AssertMatrix.assertEqualsMatrix(OG.getTranspose(A), BLOCKED_SMALL.getTranspose(A), 0.0);
+    AssertMatrix.assertEqualsMatrix(OG.matrixTransposeMultiplyMatrix(A), BLOCKED_SMALL.matrixTransposeMultiplyMatrix(A), 0.0);
+  }
+
+  @Test
+  public void testInverse() {
+    AssertMatrix.assertEqualsMatrix(COMMONS.getInverse(S), BLOCKED_SMALL.getInverse(S), EPS);
+    AssertMatrix.assertEqualsMatrix(new IdentityMatrix(10), (DoubleMatrix2D) OG.multiply(S, BLOCKED_SMALL.getInverse(S)), EPS);
+    assertEquals(COMMONS.getDeterminant(S), BLOCKED_SMALL.getDeterminant(S), EPS);
+  }
+
+  /**
+   * As for the Commons algebra, the determinant of a singular matrix is zero rather than an exception.
+   */
+  @Test
+  public void testSingularDeterminant() {
+    final DoubleMatrix2D singular = new DoubleMatrix2D(new double[][] {new double[] {1, 2, 3}, new double[] {2, 4, 6}, new double[] {1, 0, 1}});
+    assertEquals(COMMONS.getDeterminant(singular), BLOCKED_SMALL.getDeterminant(singular), 0.0);
+    assertEquals(0.0, BLOCKED.getDeterminant(singular), 0.0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSingularInverse() {
+    BLOCKED.getInverse(new DoubleMatrix2D(new double[][] {new double[] {1, 2}, new double[] {2, 4}}));
+  }
+
+  @Test
+  public void testNorms() {
+    assertEquals(COMMONS.getNorm1(A), BLOCKED_SMALL.getNorm1(A), EPS);
+    assertEquals(COMMONS.getNormInfinity(A), BLOCKED_SMALL.getNormInfinity(A), EPS);
+    final DoubleMatrix1D v = new DoubleMatrix1D(new double[] {1, -5, 3});
+    assertEquals(COMMONS.getNorm1(v), BLOCKED_SMALL.getNorm1(v), EPS);
+    assertEquals(COMMONS.getNormInfinity(v), BLOCKED_SMALL.getNormInfinity(v), EPS);
+  }
+
+  @Test
+  public void testPower() {
+    DoubleMatrix2D expected = new IdentityMatrix(10);
+    for (int i = 0; i < 5; i++) {
+      expected = (DoubleMatrix2D) OG.multiply(expected, S);
+    }
+    AssertMatrix.assertEqualsMatrix(expected, BLOCKED_SMALL.getPower(S, 5), EPS);
+    AssertMatrix.assertEqualsMatrix(new IdentityMatrix(10), BLOCKED_SMALL.getPower(S, 0), 0.0);
+    AssertMatrix.assertEqualsMatrix(new IdentityMatrix(10), (DoubleMatrix2D) OG.multiply(BLOCKED_SMALL.getPower(S, -2), BLOCKED_SMALL.getPower(S, 2)), EPS);
+  }
+
+  private static DoubleMatrix2D randomMatrix(final int rows, final int cols, final long seed) {
+    final Random random = new Random(seed);
+    final double[][] data = new double[rows][cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        data[i][j] = random.nextDouble() - 0.5;
+      }
+    }
+    return new DoubleMatrix2D(data);
+  }
+
+}
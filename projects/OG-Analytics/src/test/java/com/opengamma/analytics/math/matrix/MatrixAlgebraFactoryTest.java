@@ -100,8 +100,10 @@ public class MatrixAlgebraFactoryTest {
     assertEquals(MatrixAlgebraFactory.getMatrixAlgebra(MatrixAlgebraFactory.COLT), MatrixAlgebraFactory.COLT_ALGEBRA);
     assertEquals(MatrixAlgebraFactory.getMatrixAlgebra(MatrixAlgebraFactory.COMMONS), MatrixAlgebraFactory.COMMONS_ALGEBRA);
     assertEquals(MatrixAlgebraFactory.getMatrixAlgebra(MatrixAlgebraFactory.OG), MatrixAlgebraFactory.OG_ALGEBRA);
+    assertEquals(MatrixAlgebraFactory.getMatrixAlgebra(MatrixAlgebraFactory.BLOCKED), MatrixAlgebraFactory.BLOCKED_ALGEBRA);
     assertEquals(MatrixAlgebraFactory.getMatrixAlgebraName(MatrixAlgebraFactory.COLT_ALGEBRA), MatrixAlgebraFactory.COLT);
     assertEquals(MatrixAlgebraFactory.getMatrixAlgebraName(MatrixAlgebraFactory.COMMONS_ALGEBRA), MatrixAlgebraFactory.COMMONS);
     assertEquals(MatrixAlgebraFactory.getMatrixAlgebraName(MatrixAlgebraFactory.OG_ALGEBRA), MatrixAlgebraFactory.OG);
+    assertEquals(MatrixAlgebraFactory.getMatrixAlgebraName(MatrixAlgebraFactory.BLOCKED_ALGEBRA), MatrixAlgebraFactory.BLOCKED);
   }
 }
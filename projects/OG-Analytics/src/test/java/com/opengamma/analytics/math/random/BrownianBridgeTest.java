@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link BrownianBridge} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class BrownianBridgeTest {
+
+  private static final double[] TIMES = {0.0, 0.0, 0.5, 1.0, 1.0, 2.5, 3.0, 4.25, 10.0 };
+  private static final double TOLERANCE = 1.0E-14;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDecreasingTimes() {
+    new BrownianBridge(new double[] {1.0, 0.5 });
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeTimes() {
+    new BrownianBridge(new double[] {-1.0, 0.5 });
+  }
+
+  /**
+   * Returns the linear map from the normal variables to the output of the bridge.
+   */
+  private static double[][] matrix(final BrownianBridge bridge, final boolean increments) {
+    final int n = bridge.getSize();
+    final double[][] a = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      final double[] z = new double[n];
+      z[i] = 1.0;
+      final double[] w = new double[n];
+      if (increments) {
+        bridge.increments(z, w);
+      } else {
+        bridge.path(z, w);
+      }
+      for (int j = 0; j < n; j++) {
+        a[j][i] = w[j];
+      }
+    }
+    return a;
+  }
+
+  @Test
+  /**
+   * The covariance of the path is min(t_i, t_j).
+   */
+  public void pathCovariance() {
+    final double[][] a = matrix(new BrownianBridge(TIMES), false);
+    for (int i = 0; i < TIMES.length; i++) {
+      for (int j = 0; j < TIMES.length; j++) {
+        double cov = 0.0;
+        for (int k = 0; k < TIMES.length; k++) {
+          cov += a[i][k] * a[j][k];
+        }
+        assertEquals("Brownian bridge: covariance", Math.min(TIMES[i], TIMES[j]), cov, TOLERANCE);
+      }
+    }
+  }
+
+  @Test
+  /**
+   * The standardised increments are independent standard normals, except for the empty intervals.
+   */
+  public void incrementsCovariance() {
+    final double[][] a = matrix(new BrownianBridge(TIMES), true);
+    for (int i = 0; i < TIMES.length; i++) {
+      final double dt = TIMES[i] - (i == 0 ? 0.0 : TIMES[i - 1]);
+      for (int j = 0; j < TIMES.length; j++) {
+        double cov = 0.0;
+        for (int k = 0; k < TIMES.length; k++) {
+          cov += a[i][k] * a[j][k];
+        }
+        assertEquals("Brownian bridge: increments covariance", (i == j && dt > 0) ? 1.0 : 0.0, cov, TOLERANCE);
+      }
+    }
+  }
+
+  @Test
+  /**
+   * The first normal variable gives the terminal value.
+   */
+  public void terminalValue() {
+    final BrownianBridge bridge = new BrownianBridge(TIMES);
+    final double[] z = new double[TIMES.length];
+    z[0] = 1.5;
+    final double[] w = new double[TIMES.length];
+    bridge.path(z, w);
+    assertEquals("Brownian bridge: terminal value", 1.5 * Math.sqrt(TIMES[TIMES.length - 1]), w[TIMES.length - 1], TOLERANCE);
+    for (int i = 0; i < TIMES.length; i++) {
+      assertEquals("Brownian bridge: linear interpolation", w[TIMES.length - 1] * TIMES[i] / TIMES[TIMES.length - 1], w[i], TOLERANCE);
+    }
+  }
+
+}
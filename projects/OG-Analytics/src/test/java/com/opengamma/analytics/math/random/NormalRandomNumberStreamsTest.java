@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link NormalRandomNumberStreams} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class NormalRandomNumberStreamsTest {
+
+  private static final NormalRandomNumberStreams STREAMS = new NormalRandomNumberStreams(1234L);
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadSigma() {
+    new NormalRandomNumberStreams(1234L, 0, -1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadIndex() {
+    STREAMS.getStream(-1);
+  }
+
+  @Test
+  public void reproducible() {
+    final double[] first = STREAMS.getStream(5).getVector(100);
+    STREAMS.getStream(6).getVector(100);
+    assertEquals(true, Arrays.equals(first, STREAMS.getStream(5).getVector(100)));
+    assertEquals(true, Arrays.equals(first, new NormalRandomNumberStreams(1234L).getStream(5).getVector(100)));
+  }
+
+  @Test
+  public void independent() {
+    assertFalse(Arrays.equals(STREAMS.getStream(0).getVector(100), STREAMS.getStream(1).getVector(100)));
+    assertFalse(Arrays.equals(STREAMS.getStream(0).getVector(100), new NormalRandomNumberStreams(1235L).getStream(0).getVector(100)));
+  }
+
+  @Test
+  public void fill() {
+    final double[] expected = STREAMS.getStream(3).getVector(50);
+    final double[] result = new double[60];
+    STREAMS.getStream(3).fill(result, 5, 55);
+    assertEquals(true, Arrays.equals(expected, Arrays.copyOfRange(result, 5, 55)));
+    assertEquals(0.0, result[4], 0.0);
+    assertEquals(0.0, result[55], 0.0);
+  }
+
+  @Test
+  public void moments() {
+    final double[] x = STREAMS.getStream(0).getVector(100000);
+    double mean = 0.0;
+    double variance = 0.0;
+    for (final double xi : x) {
+      mean += xi;
+      variance += xi * xi;
+    }
+    mean /= x.length;
+    variance = variance / x.length - mean * mean;
+    assertEquals(0.0, mean, 1.0E-2);
+    assertEquals(1.0, variance, 1.0E-2);
+  }
+
+}
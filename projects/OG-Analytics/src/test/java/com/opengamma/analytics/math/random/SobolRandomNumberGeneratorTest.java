@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.statistics.distribution.NormalDistribution;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link SobolRandomNumberGenerator} and {@link SobolRandomNumberStreams} classes.
+ */
+@Test(groups = TestGroup.UNIT)
+public class SobolRandomNumberGeneratorTest {
+
+  private static final NormalDistribution NORMAL = new NormalDistribution(0, 1);
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDimensionTooLarge() {
+    new SobolRandomNumberGenerator(3).getVector(4);
+  }
+
+  @Test
+  public void inverseNormal() {
+    final SobolRandomNumberGenerator generator = new SobolRandomNumberGenerator(5);
+    final SobolSequence sequence = new SobolSequence(5);
+    for (int looppt = 0; looppt < 100; looppt++) {
+      final double[] x = generator.getVector(5);
+      final double[] u = sequence.nextPoint();
+      for (int loopdim = 0; loopdim < 5; loopdim++) {
+        assertEquals("Sobol generator: inverse normal", NORMAL.getInverseCDF(u[loopdim]), x[loopdim], 1.0E-15);
+      }
+    }
+  }
+
+  @Test
+  public void moments() {
+    final List<double[]> x = new SobolRandomNumberGenerator(3).getVectors(3, (1 << 14) - 1);
+    for (int loopdim = 0; loopdim < 3; loopdim++) {
+      double mean = 0.0;
+      double variance = 0.0;
+      for (final double[] point : x) {
+        mean += point[loopdim];
+        variance += point[loopdim] * point[loopdim];
+      }
+      mean /= x.size();
+      variance = variance / x.size() - mean * mean;
+      assertEquals("Sobol generator: mean", 0.0, mean, 1.0E-3);
+      assertEquals("Sobol generator: variance", 1.0, variance, 1.0E-2);
+    }
+  }
+
+  @Test
+  /**
+   * The streams are the consecutive parts of the sequence.
+   */
+  public void streams() {
+    final int pointsPerStream = 100;
+    final SobolRandomNumberStreams streams = new SobolRandomNumberStreams(4, pointsPerStream);
+    final SobolRandomNumberGenerator generator = new SobolRandomNumberGenerator(4);
+    for (int loopstream = 0; loopstream < 3; loopstream++) {
+      final RandomNumberGenerator stream = streams.getStream(loopstream);
+      for (int looppt = 0; looppt < pointsPerStream; looppt++) {
+        assertTrue("Sobol streams", Arrays.equals(generator.getVector(4), stream.getVector(4)));
+      }
+    }
+    assertTrue("Sobol streams", Arrays.equals(streams.getStream(2).getVector(4), streams.getStream(2).getVector(4)));
+  }
+
+}
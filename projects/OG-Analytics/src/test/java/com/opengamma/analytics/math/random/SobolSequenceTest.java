@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link SobolSequence} and {@link SobolDirectionNumbers} classes.
+ */
+@Test(groups = TestGroup.UNIT)
+public class SobolSequenceTest {
+
+  private static final double TOLERANCE = 1.0E-15;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadDimension() {
+    new SobolSequence(0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testPointTooLarge() {
+    new SobolSequence(2).nextPoint(new double[3]);
+  }
+
+  @Test
+  public void firstPoints() {
+    final SobolSequence sequence = new SobolSequence(2);
+    final double[][] expected = { {0.5, 0.5 }, {0.75, 0.25 }, {0.25, 0.75 }, {0.375, 0.375 }, {0.875, 0.875 }, {0.625, 0.125 }, {0.125, 0.625 } };
+    for (final double[] point : expected) {
+      final double[] x = sequence.nextPoint();
+      assertEquals("Sobol sequence: first points", point[0], x[0], TOLERANCE);
+      assertEquals("Sobol sequence: first points", point[1], x[1], TOLERANCE);
+    }
+    assertEquals("Sobol sequence: index", expected.length, sequence.getIndex());
+  }
+
+  @Test
+  /**
+   * Each one dimensional projection of the first 2^m points is a permutation of the points k/2^m.
+   */
+  public void stratification() {
+    final int dimension = 200;
+    final int m = 10;
+    final SobolSequence sequence = new SobolSequence(dimension);
+    final boolean[][] used = new boolean[dimension][1 << m];
+    final double[] point = new double[dimension];
+    for (int loopdim = 0; loopdim < dimension; loopdim++) {
+      used[loopdim][0] = true; // The origin
+    }
+    for (int looppt = 1; looppt < (1 << m); looppt++) {
+      sequence.nextPoint(point);
+      for (int loopdim = 0; loopdim < dimension; loopdim++) {
+        final int k = (int) (point[loopdim] * (1 << m));
+        assertTrue("Sobol sequence: stratification", !used[loopdim][k]);
+        used[loopdim][k] = true;
+      }
+    }
+  }
+
+  @Test
+  public void skipTo() {
+    final int dimension = 50;
+    final SobolSequence sequence = new SobolSequence(dimension);
+    double[] expected = null;
+    for (int looppt = 0; looppt < 1234; looppt++) {
+      expected = sequence.nextPoint();
+    }
+    final SobolSequence skipped = new SobolSequence(dimension);
+    skipped.skipTo(1233);
+    assertTrue("Sobol sequence: skip", Arrays.equals(expected, skipped.nextPoint()));
+    final SobolSequence copy = sequence.copy();
+    assertTrue("Sobol sequence: copy", Arrays.equals(sequence.nextPoint(), copy.nextPoint()));
+  }
+
+  @Test
+  /**
+   * The polynomials are the primitive polynomials by increasing degree, as in Joe and Kuo's files.
+   */
+  public void primitivePolynomials() {
+    final SobolDirectionNumbers directions = SobolDirectionNumbers.generate(14);
+    final int[] degree = {0, 1, 2, 3, 3, 4, 4, 5, 5, 5, 5, 5, 5, 6 };
+    final int[] polynomial = {0, 0, 1, 1, 2, 1, 4, 2, 4, 7, 11, 13, 14, 1 };
+    for (int loopdim = 0; loopdim < degree.length; loopdim++) {
+      assertEquals("Sobol direction numbers: degree", degree[loopdim], directions.getDegree(loopdim));
+      assertEquals("Sobol direction numbers: polynomial", polynomial[loopdim], directions.getPolynomial(loopdim));
+      final int[] m = directions.getInitialNumbers(loopdim);
+      for (int k = 0; k < m.length; k++) {
+        assertEquals("Sobol direction numbers: odd", 1, m[k] % 2);
+        assertTrue("Sobol direction numbers: range", m[k] < (1 << (k + 1)));
+      }
+    }
+    final SobolDirectionNumbers large = SobolDirectionNumbers.generate(1200);
+    final int[] count = new int[15];
+    for (int loopdim = 1; loopdim < large.getDimension(); loopdim++) {
+      count[large.getDegree(loopdim)]++;
+    }
+    // Number of primitive polynomials of degree s is phi(2^s-1)/s
+    final int[] expected = {0, 1, 1, 2, 2, 6, 6, 18, 16, 48, 60, 176, 144, 630 };
+    for (int s = 1; s < expected.length; s++) {
+      assertEquals("Sobol direction numbers: count", expected[s], count[s]);
+    }
+  }
+
+  @Test
+  public void read() {
+    final String file = "d       s       a       m_i\n2       1       0       1\n3       2       1       1 3\n4       3       1       1 3 1\n";
+    final SobolDirectionNumbers directions = SobolDirectionNumbers.read(new StringReader(file), 4);
+    assertEquals("Sobol direction numbers: read", 4, directions.getDimension());
+    assertEquals("Sobol direction numbers: read", 3, directions.getDegree(3));
+    assertEquals("Sobol direction numbers: read", 1, directions.getPolynomial(3));
+    assertTrue("Sobol direction numbers: read", Arrays.equals(new int[] {1, 3, 1 }, directions.getInitialNumbers(3)));
+    final SobolSequence sequence = new SobolSequence(directions);
+    final double[] point = sequence.nextPoint();
+    for (final double x : point) {
+      assertEquals("Sobol sequence: first point", 0.5, x, TOLERANCE);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void readTooShort() {
+    SobolDirectionNumbers.read(new StringReader("d s a m_i\n2 1 0 1\n"), 4);
+  }
+
+}
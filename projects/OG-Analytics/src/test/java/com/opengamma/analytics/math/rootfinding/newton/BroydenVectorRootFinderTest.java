@@ -5,9 +5,13 @@
  */
 package com.opengamma.analytics.math.rootfinding.newton;
 
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
 import org.testng.annotations.Test;
 
 import com.opengamma.analytics.math.linearalgebra.SVDecompositionCommons;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
 import com.opengamma.util.test.TestGroup;
 
 /**
@@ -44,4 +48,20 @@ public class BroydenVectorRootFinderTest extends VectorRootFinderTest {
     assertFunction3D(SV_JACOBIAN_3D, EPS);
     assertYieldCurveBootstrap(DEFAULT, EPS);
   }
+
+  /**
+   * Tests that the root finder can start from a given Jacobian estimate without computing the Jacobian.
+   */
+  @Test
+  public void initialEstimate() {
+    final DoubleMatrix1D x0 = new DoubleMatrix1D(new double[] {0.8, 0.2, -0.7});
+    final NewtonVectorRootFinderResult cold = SV.findRoot(FUNCTION3D, JACOBIAN3D, x0, null);
+    assertTrue(cold.getNbJacobianEvaluations() > 0);
+    final DoubleMatrix1D xNear = new DoubleMatrix1D(new double[] {1.01, 0.01, -0.99});
+    final NewtonVectorRootFinderResult warm = SV.findRoot(FUNCTION3D, JACOBIAN3D, xNear, JACOBIAN3D.evaluate(cold.getRoot()));
+    assertEquals(0, warm.getNbJacobianEvaluations());
+    assertEquals(1.0, warm.getRoot().getEntry(0), EPS);
+    assertEquals(0.0, warm.getRoot().getEntry(1), EPS);
+    assertEquals(-1.0, warm.getRoot().getEntry(2), EPS);
+  }
 }
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.statistics.distribution;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Test.
+ */
+@Test(groups = TestGroup.UNIT)
+public class FastNormalDistributionTest {
+  private static final ProbabilityDistribution<Double> NORMAL = new NormalDistribution(0, 1);
+
+  /**
+   * The cumulative distribution is compared to {@link NormalDistribution} with a relative tolerance, including in the tails.
+   */
+  @Test
+  public void cdf() {
+    for (int i = 0; i <= 7200; i++) {
+      final double x = -36. + 0.01 * i;
+      final double expected = NORMAL.getCDF(x);
+      assertEquals("x = " + x, expected, FastNormalDistribution.getCDF(x), 1.e-12 * expected);
+    }
+    assertEquals(0., FastNormalDistribution.getCDF(-40.), 0.);
+    assertEquals(1., FastNormalDistribution.getCDF(40.), 0.);
+    assertEquals(0., FastNormalDistribution.getCDF(Double.NEGATIVE_INFINITY), 0.);
+    assertEquals(1., FastNormalDistribution.getCDF(Double.POSITIVE_INFINITY), 0.);
+    assertEquals(0.5, FastNormalDistribution.getCDF(0.), 0.);
+  }
+
+  @Test
+  public void symmetry() {
+    for (int i = 0; i <= 800; i++) {
+      final double x = 0.01 * i;
+      assertEquals(1., FastNormalDistribution.getCDF(x) + FastNormalDistribution.getCDF(-x), 1.e-15);
+    }
+  }
+
+  @Test
+  public void pdf() {
+    for (int i = 0; i <= 7400; i++) {
+      final double x = -37. + 0.01 * i;
+      final double expected = NORMAL.getPDF(x);
+      assertEquals("x = " + x, expected, FastNormalDistribution.getPDF(x), 1.e-13 * expected);
+    }
+  }
+
+}
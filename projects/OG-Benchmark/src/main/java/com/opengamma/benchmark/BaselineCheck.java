@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opengamma.OpenGammaRuntimeException;
+
+/**
+ * Compares a JMH result file against a checked-in baseline.
+ * <p>
+ * Both files are in the JMH CSV format (as written with {@code -rf csv}). A benchmark is identified by its name and parameter values. A result is a
+ * regression if it is worse than the baseline by more than the tolerance - slower for time based modes, fewer operations for throughput. Results
+ * with no baseline are reported but do not fail the check; the process exits with a non-zero status if any regression is found.
+ * <p>
+ * Usage: {@code BaselineCheck <baseline.csv> <results.csv> [tolerance]} where the tolerance is a fraction and defaults to 0.1.
+ */
+public final class BaselineCheck {
+
+  /**
+   * The default tolerance; a result more than this fraction worse than the baseline is a regression.
+   */
+  public static final double DEFAULT_TOLERANCE = 0.1;
+
+  private static final String BENCHMARK = "Benchmark";
+  private static final String MODE = "Mode";
+  private static final String SCORE = "Score";
+  private static final String PARAM_PREFIX = "Param: ";
+
+  /**
+   * A single benchmark score.
+   */
+  /* package */static final class Score {
+
+    private final String _mode;
+    private final double _value;
+
+    /* package */Score(final String mode, final double value) {
+      _mode = mode;
+      _value = value;
+    }
+
+    /* package */boolean isThroughput() {
+      return "thrpt".equals(_mode);
+    }
+
+    /* package */double getValue() {
+      return _value;
+    }
+
+  }
+
+  private BaselineCheck() {
+  }
+
+  /**
+   * Splits a line of a CSV file into its fields. Fields may be quoted, with doubled quotes for a literal quote.
+   *
+   * @param line the line, not null
+   * @return the fields, not null
+   */
+  /* package */static List<String> split(final String line) {
+    final List<String> fields = new ArrayList<String>();
+    final StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      final char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"') {
+          if ((i + 1 < line.length()) && (line.charAt(i + 1) == '"')) {
+            field.append('"');
+            i++;
+          } else {
+            quoted = false;
+          }
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /**
+   * Reads the scores from a JMH CSV result file, keyed by benchmark name and parameter values.
+   *
+   * @param file the file to read, not null
+   * @return the scores, not null
+   */
+  /* package */static Map<String, Score> read(final File file) {
+    final Map<String, Score> scores = new LinkedHashMap<String, Score>();
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      String line = reader.readLine();
+      if (line == null) {
+        return scores;
+      }
+      final List<String> header = split(line);
+      final int benchmark = header.indexOf(BENCHMARK);
+      final int mode = header.indexOf(MODE);
+      final int score = header.indexOf(SCORE);
+      if ((benchmark < 0) || (mode < 0) || (score < 0)) {
+        throw new OpenGammaRuntimeException("Not a JMH CSV result file: " + file);
+      }
+      while ((line = reader.readLine()) != null) {
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+        final List<String> fields = split(line);
+        final StringBuilder key = new StringBuilder(fields.get(benchmark));
+        for (int i = 0; i < header.size(); i++) {
+          if (header.get(i).startsWith(PARAM_PREFIX) && (i < fields.size()) && !fields.get(i).isEmpty()) {
+            key.append(' ').append(header.get(i).substring(PARAM_PREFIX.length())).append('=').append(fields.get(i));
+          }
+        }
+        try {
+          scores.put(key.toString(), new Score(fields.get(mode), Double.parseDouble(fields.get(score))));
+        } catch (NumberFormatException e) {
+          throw new OpenGammaRuntimeException("Invalid score for " + key + " in " + file, e);
+        }
+      }
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Couldn't read " + file, e);
+    }
+    return scores;
+  }
+
+  /**
+   * Compares results against a baseline, printing a line for each result.
+   *
+   * @param baseline the baseline scores, not null
+   * @param results the new scores, not null
+   * @param tolerance the fraction by which a result may be worse than the baseline
+   * @return the number of regressions
+   */
+  /* package */static int compare(final Map<String, Score> baseline, final Map<String, Score> results, final double tolerance) {
+    int regressions = 0;
+    for (Map.Entry<String, Score> result : results.entrySet()) {
+      final Score expected = baseline.get(result.getKey());
+      if (expected == null) {
+        System.out.println("NEW        " + result.getKey() + " " + result.getValue().getValue());
+        continue;
+      }
+      final double change;
+      if (result.getValue().isThroughput()) {
+        change = (expected.getValue() - result.getValue().getValue()) / expected.getValue();
+      } else {
+        change = (result.getValue().getValue() - expected.getValue()) / expected.getValue();
+      }
+      final String line = String.format("%s %.4g -> %.4g (%+.1f%%)", result.getKey(), expected.getValue(), result.getValue().getValue(), change * 100);
+      if (change > tolerance) {
+        System.out.println("REGRESSION " + line);
+        regressions++;
+      } else {
+        System.out.println("OK         " + line);
+      }
+    }
+    return regressions;
+  }
+
+  public static void main(final String[] args) { // CSIGNORE
+    if ((args.length < 2) || (args.length > 3)) {
+      System.err.println("Usage: BaselineCheck <baseline.csv> <results.csv> [tolerance]");
+      System.exit(2);
+    }
+    final double tolerance = (args.length > 2) ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+    final int regressions = compare(read(new File(args[0])), read(new File(args[1])), tolerance);
+    if (regressions > 0) {
+      System.err.println(regressions + " benchmark(s) regressed by more than " + (tolerance * 100) + "%");
+      System.exit(1);
+    }
+  }
+
+}
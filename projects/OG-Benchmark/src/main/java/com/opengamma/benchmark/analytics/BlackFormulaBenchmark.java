@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.analytics;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.analytics.financial.model.volatility.BlackFormulaRepository;
+import com.opengamma.analytics.financial.model.volatility.BlackScholesFormulaRepository;
+
+/**
+ * Benchmarks the Black and Black-Scholes formulas on a grid of options, one scalar call per option against one array call for the grid.
+ * <p>
+ * The grid is shaped like a volatility surface: 20 expiries from 1 month to 10 years and strikes from 50% to 150% of the forward, with random
+ * volatilities between 10% and 50%, calls and puts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BlackFormulaBenchmark {
+
+  /**
+   * Number of strikes for each expiry.
+   */
+  @Param({"25", "500" })
+  private int _strikes;
+
+  private double[] _forwards;
+  private double[] _strikeValues;
+  private double[] _times;
+  private double[] _vols;
+  private double[] _rates;
+  private double[] _carries;
+  private boolean[] _isCall;
+  private double[] _price;
+  private double[] _delta;
+  private double[] _dualDelta;
+  private double[] _gamma;
+  private double[] _vega;
+
+  @Setup
+  public void setUp() {
+    final int nbExpiries = 20;
+    final int n = nbExpiries * _strikes;
+    _forwards = new double[n];
+    _strikeValues = new double[n];
+    _times = new double[n];
+    _vols = new double[n];
+    _rates = new double[n];
+    _carries = new double[n];
+    _isCall = new boolean[n];
+    final Random random = new Random(0);
+    int index = 0;
+    for (int i = 0; i < nbExpiries; i++) {
+      final double time = 1. / 12. + (10. - 1. / 12.) * i / (nbExpiries - 1);
+      for (int j = 0; j < _strikes; j++) {
+        _forwards[index] = 100.;
+        _strikeValues[index] = 50. + 100. * j / (_strikes - 1);
+        _times[index] = time;
+        _vols[index] = 0.1 + 0.4 * random.nextDouble();
+        _rates[index] = 0.02;
+        _carries[index] = 0.01;
+        _isCall[index] = (j & 1) == 0;
+        index++;
+      }
+    }
+    _price = new double[n];
+    _delta = new double[n];
+    _dualDelta = new double[n];
+    _gamma = new double[n];
+    _vega = new double[n];
+  }
+
+  @Benchmark
+  public double[] blackPriceScalar() {
+    for (int i = 0; i < _forwards.length; i++) {
+      _price[i] = BlackFormulaRepository.price(_forwards[i], _strikeValues[i], _times[i], _vols[i], _isCall[i]);
+    }
+    return _price;
+  }
+
+  @Benchmark
+  public double[] blackPriceArray() {
+    return BlackFormulaRepository.price(_forwards, _strikeValues, _times, _vols, _isCall);
+  }
+
+  @Benchmark
+  public double[] blackGreeksScalar() {
+    for (int i = 0; i < _forwards.length; i++) {
+      _price[i] = BlackFormulaRepository.price(_forwards[i], _strikeValues[i], _times[i], _vols[i], _isCall[i]);
+      _delta[i] = BlackFormulaRepository.delta(_forwards[i], _strikeValues[i], _times[i], _vols[i], _isCall[i]);
+      _dualDelta[i] = BlackFormulaRepository.dualDelta(_forwards[i], _strikeValues[i], _times[i], _vols[i], _isCall[i]);
+      _gamma[i] = BlackFormulaRepository.gamma(_forwards[i], _strikeValues[i], _times[i], _vols[i]);
+      _vega[i] = BlackFormulaRepository.vega(_forwards[i], _strikeValues[i], _times[i], _vols[i]);
+    }
+    return _vega;
+  }
+
+  @Benchmark
+  public double[] blackGreeksArray() {
+    BlackFormulaRepository.priceAndGreeks(_forwards, _strikeValues, _times, _vols, _isCall, _price, _delta, _dualDelta, _gamma, _vega);
+    return _vega;
+  }
+
+  @Benchmark
+  public double[] blackScholesPriceScalar() {
+    for (int i = 0; i < _forwards.length; i++) {
+      _price[i] = BlackScholesFormulaRepository.price(_forwards[i], _strikeValues[i], _times[i], _vols[i], _rates[i], _carries[i], _isCall[i]);
+    }
+    return _price;
+  }
+
+  @Benchmark
+  public double[] blackScholesPriceArray() {
+    return BlackScholesFormulaRepository.price(_forwards, _strikeValues, _times, _vols, _rates, _carries, _isCall);
+  }
+
+  @Benchmark
+  public double[] blackScholesGreeksScalar() {
+    for (int i = 0; i < _forwards.length; i++) {
+      _price[i] = BlackScholesFormulaRepository.price(_forwards[i], _strikeValues[i], _times[i], _vols[i], _rates[i], _carries[i], _isCall[i]);
+      _delta[i] = BlackScholesFormulaRepository.delta(_forwards[i], _strikeValues[i], _times[i], _vols[i], _rates[i], _carries[i], _isCall[i]);
+      _dualDelta[i] = BlackScholesFormulaRepository.dualDelta(_forwards[i], _strikeValues[i], _times[i], _vols[i], _rates[i], _carries[i], _isCall[i]);
+      _gamma[i] = BlackScholesFormulaRepository.gamma(_forwards[i], _strikeValues[i], _times[i], _vols[i], _rates[i], _carries[i]);
+      _vega[i] = BlackScholesFormulaRepository.vega(_forwards[i], _strikeValues[i], _times[i], _vols[i], _rates[i], _carries[i]);
+    }
+    return _vega;
+  }
+
+  @Benchmark
+  public double[] blackScholesGreeksArray() {
+    BlackScholesFormulaRepository.priceAndGreeks(_forwards, _strikeValues, _times, _vols, _rates, _carries, _isCall, _price, _delta, _dualDelta, _gamma, _vega);
+    return _vega;
+  }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.analytics;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.matrix.Matrix;
+import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.analytics.math.matrix.MatrixAlgebraFactory;
+
+/**
+ * Benchmarks the matrix algebra implementations on covariance sized matrices.
+ * <p>
+ * The matrix is a random covariance matrix $C = X^T X / n$ of n factors, built from 2n observations. The OG algebra has no inverse, so the inverse is
+ * only benchmarked for the other implementations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MatrixAlgebraBenchmark {
+
+  /**
+   * The number of factors.
+   */
+  @Param({"100", "250", "500" })
+  private int _size;
+
+  /**
+   * The algebra, by its name in {@link MatrixAlgebraFactory}.
+   */
+  @Param({MatrixAlgebraFactory.OG, MatrixAlgebraFactory.COMMONS, MatrixAlgebraFactory.COLT, MatrixAlgebraFactory.BLOCKED })
+  private String _algebraName;
+
+  private MatrixAlgebra _algebra;
+  private DoubleMatrix2D _observations;
+  private DoubleMatrix2D _covariance;
+
+  @Setup
+  public void setUp() {
+    _algebra = MatrixAlgebraFactory.getMatrixAlgebra(_algebraName);
+    final Random random = new Random(0);
+    final int nbObservations = 2 * _size;
+    final double[][] data = new double[nbObservations][_size];
+    for (int i = 0; i < nbObservations; i++) {
+      for (int j = 0; j < _size; j++) {
+        data[i][j] = random.nextGaussian();
+      }
+    }
+    _observations = new DoubleMatrix2D(data);
+    _covariance = (DoubleMatrix2D) MatrixAlgebraFactory.OG_ALGEBRA.scale(MatrixAlgebraFactory.OG_ALGEBRA.matrixTransposeMultiplyMatrix(_observations),
+        1.0 / nbObservations);
+  }
+
+  @Benchmark
+  public Matrix<?> multiply() {
+    return _algebra.multiply(_covariance, _covariance);
+  }
+
+  @Benchmark
+  public DoubleMatrix2D transposeMultiply() {
+    return _algebra.matrixTransposeMultiplyMatrix(_observations);
+  }
+
+  @Benchmark
+  public DoubleMatrix2D inverse() {
+    if (_algebra == MatrixAlgebraFactory.OG_ALGEBRA) {
+      return null;
+    }
+    return _algebra.getInverse(_covariance);
+  }
+
+}
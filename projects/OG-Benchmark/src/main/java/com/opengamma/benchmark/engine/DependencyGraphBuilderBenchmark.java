@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyGraphBuilder;
+
+/**
+ * Benchmarks {@link DependencyGraphBuilder} on a {@link SyntheticPortfolio}. Each invocation builds a complete graph with a fresh builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class DependencyGraphBuilderBenchmark {
+
+  /**
+   * Number of positions in the portfolio.
+   */
+  @Param({"100", "1000" })
+  private int _positions;
+
+  /**
+   * Number of functions above the market data leaf for each position.
+   */
+  @Param({"2", "8" })
+  private int _depth;
+
+  private SyntheticPortfolio _portfolio;
+
+  @Setup
+  public void setUp() {
+    _portfolio = new SyntheticPortfolio(_positions, _depth);
+  }
+
+  @Benchmark
+  public DependencyGraph buildGraph() {
+    final DependencyGraphBuilder builder = new DependencyGraphBuilder();
+    _portfolio.configure(builder);
+    builder.addTarget(_portfolio.getRequirements());
+    return builder.getDependencyGraph();
+  }
+
+}
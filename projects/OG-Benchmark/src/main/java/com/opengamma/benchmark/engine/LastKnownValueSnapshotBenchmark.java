@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.marketdata.InMemoryLKVMarketDataProvider;
+import com.opengamma.engine.marketdata.InMemoryLKVMarketDataSnapshot;
+import com.opengamma.engine.marketdata.spec.MarketData;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.map.PersistentHashMap;
+
+/**
+ * Benchmarks taking a cycle snapshot of {@link InMemoryLKVMarketDataProvider}, and the cost of a tick, against the copy of a
+ * {@link ConcurrentHashMap} that the provider used to take.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LastKnownValueSnapshotBenchmark {
+
+  /**
+   * Number of values held.
+   */
+  @Param({"10000", "200000" })
+  private int _values;
+
+  private ValueSpecification[] _specifications;
+  private InMemoryLKVMarketDataProvider _provider;
+  private ConcurrentHashMap<ValueSpecification, Object> _concurrentMap;
+  private PersistentHashMap<ValueSpecification, Object> _persistentMap;
+  private int _tick;
+
+  @Setup
+  public void setUp() {
+    final ValueProperties properties = ValueProperties.with(ValuePropertyNames.FUNCTION, "MarketData").get();
+    _specifications = new ValueSpecification[_values];
+    _provider = new InMemoryLKVMarketDataProvider();
+    _concurrentMap = new ConcurrentHashMap<ValueSpecification, Object>();
+    _persistentMap = PersistentHashMap.empty();
+    for (int i = 0; i < _values; i++) {
+      final ValueSpecification specification = new ValueSpecification("Market_Value", ComputationTargetSpecification.of(UniqueId.of("Ticker", Integer.toString(i))),
+          properties);
+      final Double value = (double) i;
+      _specifications[i] = specification;
+      _provider.addValue(specification, value);
+      _concurrentMap.put(specification, value);
+      _persistentMap = _persistentMap.with(specification, value);
+    }
+  }
+
+  private ValueSpecification nextTick() {
+    final int tick = _tick++;
+    if (_tick == _values) {
+      _tick = 0;
+    }
+    return _specifications[tick];
+  }
+
+  @Benchmark
+  public Map<ValueSpecification, Object> copySnapshot() {
+    return new HashMap<ValueSpecification, Object>(_concurrentMap);
+  }
+
+  @Benchmark
+  public InMemoryLKVMarketDataSnapshot providerSnapshot() {
+    final InMemoryLKVMarketDataSnapshot snapshot = _provider.snapshot(MarketData.live());
+    snapshot.init();
+    return snapshot;
+  }
+
+  @Benchmark
+  public Object concurrentMapTick() {
+    return _concurrentMap.put(nextTick(), _tick);
+  }
+
+  @Benchmark
+  public Object persistentMapTick() {
+    _persistentMap = _persistentMap.with(nextTick(), _tick);
+    return _persistentMap;
+  }
+
+  @Benchmark
+  public void providerTick() {
+    _provider.addValue(nextTick(), _tick);
+  }
+
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.cache.InMemoryViewComputationCacheSource;
+import com.opengamma.engine.cache.ViewComputationCache;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder.NodeBuilder;
+import com.opengamma.engine.depgraph.impl.DependencyGraphImpl;
+import com.opengamma.engine.depgraph.impl.DependencyNodeFunctionImpl;
+import com.opengamma.engine.function.EmptyFunctionParameters;
+import com.opengamma.engine.function.MarketDataSourcingFunction;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.cycle.LiveDataDeltaCalculator;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+
+/**
+ * Benchmarks {@link LiveDataDeltaCalculator#computeDelta} between two cycles, and {@link LiveDataDeltaCalculator#computeChangedNodes} which uses an index
+ * of the graph held with the compilation.
+ * <p>
+ * The graph has one market data node and one pricing node per position, with all of the pricing nodes feeding a single aggregate node. A
+ * configurable fraction of the market data values differ between the two cycles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LiveDataDeltaCalculatorBenchmark {
+
+  /**
+   * Number of positions in the graph.
+   */
+  @Param({"1000", "10000" })
+  private int _positions;
+
+  /**
+   * Percentage of the market data values that changed between the cycles.
+   */
+  @Param({"0", "10", "100" })
+  private int _changedPercent;
+
+  private DependencyGraph _graph;
+  private ViewComputationCache _cache;
+  private ViewComputationCache _previousCache;
+
+  private static ComputationTargetSpecification getTarget(final int index) {
+    return new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Position", Integer.toString(index)));
+  }
+
+  @Setup
+  public void setUp() {
+    final TestDependencyGraphBuilder gb = new TestDependencyGraphBuilder("Default");
+    final NodeBuilder aggregate = gb.addNode(DependencyNodeFunctionImpl.of("Aggregate", EmptyFunctionParameters.INSTANCE), ComputationTargetSpecification.NULL);
+    aggregate.addTerminalOutput("Aggregate");
+    final List<ValueSpecification> marketData = new ArrayList<ValueSpecification>(_positions);
+    for (int i = 0; i < _positions; i++) {
+      final NodeBuilder leaf = gb.addNode(MarketDataSourcingFunction.INSTANCE, getTarget(i));
+      final NodeBuilder position = gb.addNode(DependencyNodeFunctionImpl.of("Price", EmptyFunctionParameters.INSTANCE), getTarget(i));
+      final ValueSpecification value = leaf.addOutput("MarketValue");
+      marketData.add(value);
+      position.addInput(value);
+      aggregate.addInput(position.addOutput("Value"));
+    }
+    _graph = gb.buildGraph();
+    final InMemoryViewComputationCacheSource source = new InMemoryViewComputationCacheSource(OpenGammaFudgeContext.getInstance());
+    _cache = source.getCache(UniqueId.of("Cycle", "1"), "Default");
+    _previousCache = source.getCache(UniqueId.of("Cycle", "0"), "Default");
+    final List<ComputedValue> values = new ArrayList<ComputedValue>(_positions);
+    final List<ComputedValue> previousValues = new ArrayList<ComputedValue>(_positions);
+    for (int i = 0; i < _positions; i++) {
+      final double value = i;
+      previousValues.add(new ComputedValue(marketData.get(i), value));
+      if ((i % 100) < _changedPercent) {
+        values.add(new ComputedValue(marketData.get(i), value + 0.5));
+      } else {
+        values.add(new ComputedValue(marketData.get(i), value));
+      }
+    }
+    _cache.putSharedValues(values);
+    _previousCache.putSharedValues(previousValues);
+  }
+
+  @Benchmark
+  public Set<DependencyNode> computeDelta() {
+    final LiveDataDeltaCalculator calculator = new LiveDataDeltaCalculator(_graph, _cache, _previousCache, Collections.<ValueSpecification>emptySet());
+    calculator.computeDelta();
+    return calculator.getChangedNodes();
+  }
+
+  @Benchmark
+  public Set<DependencyNode> computeChangedNodes() {
+    final LiveDataDeltaCalculator calculator = new LiveDataDeltaCalculator(_graph, _cache, _previousCache, Collections.<ValueSpecification>emptySet());
+    calculator.computeChangedNodes(DependencyGraphImpl.getDependentNodeIndex(_graph));
+    return calculator.getChangedNodes();
+  }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyGraphBuilder;
+import com.opengamma.engine.depgraph.DependencyGraphBuilderFactory;
+import com.opengamma.engine.depgraph.PartitionedDependencyGraphBuilder;
+
+/**
+ * Measures how graph building scales with the number of threads on a large {@link SyntheticPortfolio}.
+ * <p>
+ * The "shared" mode is a single {@link DependencyGraphBuilder} with additional threads, all working on the same resolution caches. The "partitioned"
+ * mode is a {@link PartitionedDependencyGraphBuilder} with one shard per thread. In both cases the calling thread takes part, so the total number
+ * of threads used is the parameter value. The speedup is the single thread time divided by the time at each thread count; run on a machine with at
+ * least 32 cores for the larger values to be meaningful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParallelDependencyGraphBuilderBenchmark {
+
+  /**
+   * Number of positions in the portfolio.
+   */
+  @Param({"10000" })
+  private int _positions;
+
+  /**
+   * Number of functions above the market data leaf for each position.
+   */
+  @Param({"8" })
+  private int _depth;
+
+  /**
+   * Total number of threads building the graph.
+   */
+  @Param({"1", "2", "4", "8", "16", "32" })
+  private int _threads;
+
+  /**
+   * Either "shared" or "partitioned".
+   */
+  @Param({"shared", "partitioned" })
+  private String _mode;
+
+  private SyntheticPortfolio _portfolio;
+  private DependencyGraphBuilderFactory _factory;
+
+  @Setup
+  public void setUp() {
+    _portfolio = new SyntheticPortfolio(_positions, _depth);
+    _factory = new DependencyGraphBuilderFactory();
+    _factory.setMaxAdditionalThreads(_threads - 1);
+    _factory.setMaxAdditionalThreadsPerBuilder(_threads - 1);
+  }
+
+  @Benchmark
+  public DependencyGraph buildGraph() {
+    if ("partitioned".equals(_mode)) {
+      final PartitionedDependencyGraphBuilder builder = _factory.newPartitionedInstance(_threads);
+      _portfolio.configure(builder);
+      builder.addTarget(_portfolio.getRequirements());
+      return builder.getDependencyGraph();
+    } else {
+      final DependencyGraphBuilder builder = _factory.newInstance();
+      _portfolio.configure(builder);
+      builder.addTarget(_portfolio.getRequirements());
+      return builder.getDependencyGraph();
+    }
+  }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.cache.CacheSelectHint;
+import com.opengamma.engine.calcnode.CalculationJob;
+import com.opengamma.engine.calcnode.CalculationJobItem;
+import com.opengamma.engine.calcnode.CalculationJobResult;
+import com.opengamma.engine.calcnode.CalculationJobSpecification;
+import com.opengamma.engine.calcnode.SimpleCalculationNode;
+import com.opengamma.engine.function.EmptyFunctionParameters;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.test.TestCalculationNode;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ExecutionLogMode;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+
+/**
+ * Benchmarks {@link SimpleCalculationNode#executeJob} on a job of independent, trivial function invocations.
+ * <p>
+ * The function does almost no work, so the measurement is dominated by the node's own overheads: input collection from the cache, function
+ * invocation and result posting. The inputs are written to the shared cache once; each invocation re-executes the same job.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SimpleCalculationNodeBenchmark {
+
+  private static final String SCHEME = "Position";
+  private static final String MARKET_VALUE = "MarketValue";
+  private static final String VALUE = "Value";
+
+  /**
+   * Number of items in the job.
+   */
+  @Param({"10", "1000" })
+  private int _jobItems;
+
+  /**
+   * The execution log mode, either "INDICATORS" or "FULL".
+   */
+  @Param({"INDICATORS", "FULL" })
+  private String _logMode;
+
+  private TestCalculationNode _node;
+  private CalculationJob _job;
+
+  @Setup
+  public void setUp() {
+    _node = new TestCalculationNode();
+    final InMemoryFunctionRepository repository = (InMemoryFunctionRepository) _node.getFunctionCompilationService().getFunctionRepositoryFactory()
+        .constructRepository(Instant.now());
+    final SyntheticFunction function = new SyntheticFunction(SCHEME, VALUE, MARKET_VALUE);
+    repository.addFunction(function);
+    _node.getFunctionCompilationService().initialize();
+    final ExecutionLogMode logMode = ExecutionLogMode.valueOf(_logMode);
+    final ValueProperties inputProperties = ValueProperties.with(ValuePropertyNames.FUNCTION, "MarketData").get();
+    final ValueProperties outputProperties = ValueProperties.with(ValuePropertyNames.FUNCTION, function.getUniqueId()).get();
+    final List<CalculationJobItem> items = new ArrayList<CalculationJobItem>(_jobItems);
+    final List<ComputedValue> inputs = new ArrayList<ComputedValue>(_jobItems);
+    for (int i = 0; i < _jobItems; i++) {
+      final ComputationTargetSpecification target = new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of(SCHEME, Integer.toString(i)));
+      final ValueSpecification input = new ValueSpecification(MARKET_VALUE, target, inputProperties);
+      final ValueSpecification output = new ValueSpecification(VALUE, target, outputProperties);
+      inputs.add(new ComputedValue(input, (double) i));
+      items.add(new CalculationJobItem(function.getUniqueId(), EmptyFunctionParameters.INSTANCE, target, Collections.singleton(input), Collections.singleton(output),
+          logMode));
+    }
+    final CalculationJobSpecification jobSpec = new CalculationJobSpecification(UniqueId.of("Benchmark", "ViewProcess"), "Default", Instant.now(), 1L);
+    _job = new CalculationJob(jobSpec, 0L, VersionCorrection.LATEST, null, items, CacheSelectHint.allShared());
+    _node.getCache(jobSpec).putSharedValues(inputs);
+  }
+
+  @TearDown
+  public void tearDown() {
+    _node.stop();
+  }
+
+  @Benchmark
+  public CalculationJobResult executeJob() {
+    return _node.executeJob(_job);
+  }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.engine;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.function.AbstractFunction;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.FunctionExecutionContext;
+import com.opengamma.engine.function.FunctionInputs;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+
+/**
+ * A cheap function on primitive targets used to build synthetic graphs of a known shape.
+ * <p>
+ * The function applies to targets in a single identifier scheme and produces one named output from a set of named inputs on the same target, plus
+ * any inputs on a fixed shared target. Execution sums the numeric inputs so the cost of the graph, rather than the function, dominates.
+ */
+/* package */final class SyntheticFunction extends AbstractFunction.NonCompiledInvoker {
+
+  private final String _scheme;
+  private final String _output;
+  private final Set<String> _inputs;
+  private final ComputationTargetSpecification _sharedTarget;
+  private final String _sharedInput;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param scheme the identifier scheme of the targets this applies to, not null
+   * @param output the output value name, not null
+   * @param inputs the input value names on the same target, not null
+   * @param sharedTarget the shared target an additional input is taken from, null for none
+   * @param sharedInput the input value name on the shared target, null for none
+   */
+  /* package */SyntheticFunction(final String scheme, final String output, final Set<String> inputs, final ComputationTargetSpecification sharedTarget,
+      final String sharedInput) {
+    _scheme = scheme;
+    _output = output;
+    _inputs = inputs;
+    _sharedTarget = sharedTarget;
+    _sharedInput = sharedInput;
+  }
+
+  /* package */SyntheticFunction(final String scheme, final String output, final String input) {
+    this(scheme, output, Collections.singleton(input), null, null);
+  }
+
+  @Override
+  public ComputationTargetType getTargetType() {
+    return ComputationTargetType.PRIMITIVE;
+  }
+
+  @Override
+  public boolean canApplyTo(final FunctionCompilationContext context, final ComputationTarget target) {
+    final UniqueId uid = target.getUniqueId();
+    return (uid != null) && _scheme.equals(uid.getScheme());
+  }
+
+  @Override
+  public Set<ValueSpecification> getResults(final FunctionCompilationContext context, final ComputationTarget target) {
+    return Collections.singleton(new ValueSpecification(_output, target.toSpecification(), createValueProperties().get()));
+  }
+
+  @Override
+  public Set<ValueRequirement> getRequirements(final FunctionCompilationContext context, final ComputationTarget target, final ValueRequirement desiredValue) {
+    final Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
+    final ComputationTargetSpecification targetSpec = target.toSpecification();
+    for (String input : _inputs) {
+      requirements.add(new ValueRequirement(input, targetSpec));
+    }
+    if (_sharedTarget != null) {
+      requirements.add(new ValueRequirement(_sharedInput, _sharedTarget));
+    }
+    return requirements;
+  }
+
+  @Override
+  public Set<ComputedValue> execute(final FunctionExecutionContext executionContext, final FunctionInputs inputs, final ComputationTarget target,
+      final Set<ValueRequirement> desiredValues) {
+    double sum = 0;
+    for (ComputedValue input : inputs.getAllValues()) {
+      if (input.getValue() instanceof Number) {
+        sum += ((Number) input.getValue()).doubleValue();
+      }
+    }
+    final Set<ComputedValue> results = new HashSet<ComputedValue>();
+    for (ValueRequirement desiredValue : desiredValues) {
+      results.add(new ComputedValue(new ValueSpecification(desiredValue.getValueName(), target.toSpecification(), desiredValue.getConstraints()), sum));
+    }
+    return results;
+  }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.ComputationTargetResolver;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.MapComputationTargetResolver;
+import com.opengamma.engine.depgraph.DependencyGraphBuilder;
+import com.opengamma.engine.depgraph.PartitionedDependencyGraphBuilder;
+import com.opengamma.engine.function.CachingFunctionRepositoryCompiler;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.resolver.CompiledFunctionResolver;
+import com.opengamma.engine.function.resolver.DefaultFunctionResolver;
+import com.opengamma.engine.marketdata.availability.FixedMarketDataAvailabilityProvider;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+
+/**
+ * A synthetic portfolio for the graph building benchmarks.
+ * <p>
+ * Each "position" is a primitive target with a chain of functions of the configured depth above a market data leaf. The bottom of every chain
+ * also requires a value from a single shared "curve" target, so the builder has to resolve and share a common sub-graph as it would for a real
+ * portfolio priced off one curve. Function compilation is done once, when the portfolio is created.
+ */
+/* package */final class SyntheticPortfolio {
+
+  private static final String POSITION_SCHEME = "Position";
+  private static final String CURVE_SCHEME = "Curve";
+  private static final String MARKET_VALUE = "MarketValue";
+  private static final String CURVE = "Curve";
+  private static final String CALC_CONFIG = "Default";
+
+  private final FixedMarketDataAvailabilityProvider _availability;
+  private final FunctionCompilationContext _context;
+  private final CompiledFunctionResolver _functionResolver;
+  private final Collection<ValueRequirement> _requirements;
+
+  private static String valueName(final int level) {
+    return "Value" + level;
+  }
+
+  /* package */SyntheticPortfolio(final int positions, final int depth) {
+    final Instant now = Instant.now();
+    final ComputationTargetSpecification curveTarget = new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of(CURVE_SCHEME, "USD"));
+    final InMemoryFunctionRepository repository = new InMemoryFunctionRepository();
+    repository.addFunction(new SyntheticFunction(CURVE_SCHEME, CURVE, MARKET_VALUE));
+    for (int level = 0; level < depth; level++) {
+      if (level == 0) {
+        repository.addFunction(new SyntheticFunction(POSITION_SCHEME, valueName(0), Collections.singleton(MARKET_VALUE), curveTarget, CURVE));
+      } else {
+        repository.addFunction(new SyntheticFunction(POSITION_SCHEME, valueName(level), valueName(level - 1)));
+      }
+    }
+    _availability = new FixedMarketDataAvailabilityProvider();
+    final ValueProperties marketDataProperties = ValueProperties.with(ValuePropertyNames.FUNCTION, "MarketData").get();
+    _availability.addAvailableData(new ValueSpecification(MARKET_VALUE, curveTarget, marketDataProperties));
+    _requirements = new ArrayList<ValueRequirement>(positions);
+    for (int i = 0; i < positions; i++) {
+      final ComputationTargetSpecification position = new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of(POSITION_SCHEME, Integer.toString(i)));
+      _availability.addAvailableData(new ValueSpecification(MARKET_VALUE, position, marketDataProperties));
+      _requirements.add(new ValueRequirement(valueName(depth - 1), position));
+    }
+    _context = new FunctionCompilationContext();
+    final ComputationTargetResolver targetResolver = new MapComputationTargetResolver();
+    _context.setRawComputationTargetResolver(targetResolver);
+    _context.setComputationTargetResolver(targetResolver.atVersionCorrection(VersionCorrection.of(now, now)));
+    final CompiledFunctionService compilationService = new CompiledFunctionService(repository, new CachingFunctionRepositoryCompiler(), _context);
+    compilationService.initialize();
+    _functionResolver = new DefaultFunctionResolver(compilationService).compile(now);
+  }
+
+  /* package */Collection<ValueRequirement> getRequirements() {
+    return _requirements;
+  }
+
+  /* package */void configure(final DependencyGraphBuilder builder) {
+    builder.setMarketDataAvailabilityProvider(_availability);
+    builder.setCompilationContext(_context);
+    builder.setFunctionResolver(_functionResolver);
+    builder.setCalculationConfigurationName(CALC_CONFIG);
+  }
+
+  /* package */void configure(final PartitionedDependencyGraphBuilder builder) {
+    builder.setMarketDataAvailabilityProvider(_availability);
+    builder.setCompilationContext(_context);
+    builder.setFunctionResolver(_functionResolver);
+    builder.setCalculationConfigurationName(CALC_CONFIG);
+  }
+
+}
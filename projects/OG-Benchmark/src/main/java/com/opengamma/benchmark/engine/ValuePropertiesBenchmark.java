@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+
+/**
+ * Benchmarks the {@link ValueProperties} operations used heavily during graph construction.
+ * <p>
+ * The property sets are shaped like those on typical curve and sensitivity outputs: a function identifier, a currency, a handful of single valued
+ * configuration properties and, for requirements, wild-cards and optional properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ValuePropertiesBenchmark {
+
+  /**
+   * Number of additional single valued properties on each set.
+   */
+  @Param({"4", "16" })
+  private int _properties;
+
+  private ValueProperties _specification;
+  private ValueProperties _other;
+  private ValueProperties _requirement;
+  private ValueProperties _unsatisfiedRequirement;
+
+  @Setup
+  public void setUp() {
+    ValueProperties.Builder spec = ValueProperties.with(ValuePropertyNames.FUNCTION, "Function").with(ValuePropertyNames.CURRENCY, "USD");
+    ValueProperties.Builder other = ValueProperties.with(ValuePropertyNames.CURRENCY, "USD", "EUR");
+    ValueProperties.Builder req = ValueProperties.with(ValuePropertyNames.CURRENCY, "USD");
+    for (int i = 0; i < _properties; i++) {
+      spec = spec.with("Property" + i, "Value" + i);
+      other = other.with("Property" + i, "Value" + i, "Alternative" + i);
+      if ((i & 1) == 0) {
+        req = req.with("Property" + i, "Value" + i);
+      } else {
+        req = req.withAny("Property" + i);
+      }
+    }
+    other = other.with("Extra", "Value");
+    req = req.withOptional("Optional");
+    _specification = spec.get();
+    _other = other.get();
+    _requirement = req.get();
+    _unsatisfiedRequirement = _requirement.copy().withoutAny(ValuePropertyNames.CURRENCY).with(ValuePropertyNames.CURRENCY, "GBP").get();
+  }
+
+  @Benchmark
+  public ValueProperties union() {
+    return _specification.union(_other);
+  }
+
+  @Benchmark
+  public ValueProperties compose() {
+    return _specification.compose(_other);
+  }
+
+  @Benchmark
+  public ValueProperties intersect() {
+    return _specification.intersect(_other);
+  }
+
+  @Benchmark
+  public boolean isSatisfiedBy() {
+    return _requirement.isSatisfiedBy(_specification);
+  }
+
+  @Benchmark
+  public boolean isSatisfiedByFailing() {
+    return _unsatisfiedRequirement.isSatisfiedBy(_specification);
+  }
+
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.benchmark.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.fudgemsg.FudgeContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.cache.BinaryDataStoreFactory;
+import com.opengamma.engine.cache.DefaultFudgeMessageStoreFactory;
+import com.opengamma.engine.cache.DefaultViewComputationCache;
+import com.opengamma.engine.cache.DefaultViewComputationCacheSource;
+import com.opengamma.engine.cache.InMemoryBinaryDataStoreFactory;
+import com.opengamma.engine.cache.OffHeapBinaryDataStoreFactory;
+import com.opengamma.engine.cache.StripedIdentifierMap;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Benchmarks {@link DefaultViewComputationCache} writes and reads, including the Fudge encoding of values and identifier lookup.
+ * <p>
+ * Each invocation writes or reads one batch, as a calculation node would for a job. Writes go to a fresh cache each invocation; the
+ * identifier map is shared by all caches from the source, as it is in the engine, so after the first write the identifiers are already allocated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ViewComputationCacheBenchmark {
+
+  /**
+   * Number of values in each batch.
+   */
+  @Param({"100", "1000" })
+  private int _batchSize;
+
+  /**
+   * The binary data store to use, either "heap" or "offheap".
+   */
+  @Param({"heap", "offheap" })
+  private String _store;
+
+  /**
+   * The values to write, either "double" or "vector" (a 40 element double array, typical of curve sensitivities).
+   */
+  @Param({"double", "vector" })
+  private String _valueType;
+
+  private final FudgeContext _fudgeContext = OpenGammaFudgeContext.getInstance();
+  private DefaultViewComputationCacheSource _source;
+  private List<ComputedValue> _values;
+  private List<ValueSpecification> _specifications;
+  private DefaultViewComputationCache _readCache;
+
+  private BinaryDataStoreFactory createBinaryDataStoreFactory() {
+    if ("offheap".equals(_store)) {
+      return new OffHeapBinaryDataStoreFactory();
+    } else {
+      return new InMemoryBinaryDataStoreFactory();
+    }
+  }
+
+  private Object createValue(final int index) {
+    if ("vector".equals(_valueType)) {
+      final double[] vector = new double[40];
+      for (int i = 0; i < vector.length; i++) {
+        vector[i] = index + i * 0.001;
+      }
+      return vector;
+    } else {
+      return index * 0.5;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUpTrial() {
+    _source = new DefaultViewComputationCacheSource(new StripedIdentifierMap(), _fudgeContext, new DefaultFudgeMessageStoreFactory(createBinaryDataStoreFactory(),
+        _fudgeContext), new DefaultFudgeMessageStoreFactory(createBinaryDataStoreFactory(), _fudgeContext));
+    _values = new ArrayList<ComputedValue>(_batchSize);
+    _specifications = new ArrayList<ValueSpecification>(_batchSize);
+    final ValueProperties properties = ValueProperties.with(ValuePropertyNames.FUNCTION, "Benchmark").with(ValuePropertyNames.CURRENCY, "USD").get();
+    for (int i = 0; i < _batchSize; i++) {
+      final ValueSpecification spec = new ValueSpecification("Value", new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Benchmark",
+          Integer.toString(i))), properties);
+      _specifications.add(spec);
+      _values.add(new ComputedValue(spec, createValue(i)));
+    }
+    _readCache = _source.getCache(UniqueId.of("Cycle", "Read"), "Default");
+    _readCache.putSharedValues(_values);
+  }
+
+  /**
+   * A fresh cache for each write. Off-heap stores append rather than overwrite, so reusing one cache across invocations would grow without bound.
+   */
+  @State(Scope.Thread)
+  public static class WriteCache {
+
+    private DefaultViewComputationCacheSource _source;
+    private UniqueId _cycleId;
+    private DefaultViewComputationCache _cache;
+    private int _cycle;
+
+    @Setup(Level.Invocation)
+    public void setUp(final ViewComputationCacheBenchmark benchmark) {
+      _source = benchmark._source;
+      _cycleId = UniqueId.of("Cycle", Integer.toString(_cycle++));
+      _cache = _source.getCache(_cycleId, "Default");
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      _source.releaseCaches(_cycleId);
+    }
+
+  }
+
+  @Benchmark
+  public DefaultViewComputationCache putSharedValues(final WriteCache write) {
+    write._cache.putSharedValues(_values);
+    return write._cache;
+  }
+
+  @Benchmark
+  public DefaultViewComputationCache putPrivateValues(final WriteCache write) {
+    write._cache.putPrivateValues(_values);
+    return write._cache;
+  }
+
+  @Benchmark
+  public Collection<Pair<ValueSpecification, Object>> getValues() {
+    return _readCache.getValues(_specifications);
+  }
+
+  @Benchmark
+  public Object getValue() {
+    return _readCache.getValue(_specifications.get(_batchSize >> 1));
+  }
+
+}
@@ -7,6 +7,8 @@ package com.opengamma.component.factory.engine;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.joda.beans.Bean;
 import org.joda.beans.BeanBuilder;
@@ -59,6 +61,7 @@ import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesResolver;
 import com.opengamma.service.ServiceContext;
 import com.opengamma.service.ThreadLocalServiceContext;
 import com.opengamma.service.VersionCorrectionProvider;
+import com.opengamma.util.NamedThreadPoolFactory;
 
 /**
  * Component factory for the config source.
@@ -195,6 +198,12 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
    */
   @PropertyDefinition
   private RiskFactorsGatherer _riskFactorsGatherer;
+  /**
+   * The number of threads on which the independent units of a curve configuration are calibrated concurrently.
+   * Null or zero, the default, calibrates them sequentially on the calculation node thread.
+   */
+  @PropertyDefinition
+  private Integer _curveCalibrationThreads;
 
   //-------------------------------------------------------------------------
   @Override
@@ -345,6 +354,11 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
     if (getViewProcessor() != null) {
       OpenGammaExecutionContext.setViewProcessor(context, getViewProcessor());
     }
+    if ((getCurveCalibrationThreads() != null) && (getCurveCalibrationThreads() > 0)) {
+      final ExecutorService executor = Executors.newFixedThreadPool(getCurveCalibrationThreads(), new NamedThreadPoolFactory("Curve Calibration", true));
+      repo.registerLifecycleStop(executor, "shutdown");
+      OpenGammaExecutionContext.setCurveCalibrationExecutor(context, executor);
+    }
     final ComponentInfo info = new ComponentInfo(FunctionExecutionContext.class, getClassifier());
     repo.registerComponent(info, context);
   }
@@ -1002,6 +1016,34 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
     return metaBean().riskFactorsGatherer().createProperty(this);
   }
 
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the number of threads on which the independent units of a curve configuration are calibrated concurrently.
+   * Null or zero, the default, calibrates them sequentially on the calculation node thread.
+   * @return the value of the property
+   */
+  public Integer getCurveCalibrationThreads() {
+    return _curveCalibrationThreads;
+  }
+
+  /**
+   * Sets the number of threads on which the independent units of a curve configuration are calibrated concurrently.
+   * Null or zero, the default, calibrates them sequentially on the calculation node thread.
+   * @param curveCalibrationThreads  the new value of the property
+   */
+  public void setCurveCalibrationThreads(Integer curveCalibrationThreads) {
+    this._curveCalibrationThreads = curveCalibrationThreads;
+  }
+
+  /**
+   * Gets the the {@code curveCalibrationThreads} property.
+   * Null or zero, the default, calibrates them sequentially on the calculation node thread.
+   * @return the property, not null
+   */
+  public final Property<Integer> curveCalibrationThreads() {
+    return metaBean().curveCalibrationThreads().createProperty(this);
+  }
+
   //-----------------------------------------------------------------------
   @Override
   public EngineContextsComponentFactory clone() {
@@ -1039,6 +1081,7 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
           JodaBeanUtils.equal(getPermissive(), other.getPermissive()) &&
           JodaBeanUtils.equal(getPnlRequirementsGatherer(), other.getPnlRequirementsGatherer()) &&
           JodaBeanUtils.equal(getRiskFactorsGatherer(), other.getRiskFactorsGatherer()) &&
+          JodaBeanUtils.equal(getCurveCalibrationThreads(), other.getCurveCalibrationThreads()) &&
           super.equals(obj);
     }
     return false;
@@ -1071,6 +1114,7 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
     hash = hash * 31 + JodaBeanUtils.hashCode(getPermissive());
     hash = hash * 31 + JodaBeanUtils.hashCode(getPnlRequirementsGatherer());
     hash = hash * 31 + JodaBeanUtils.hashCode(getRiskFactorsGatherer());
+    hash = hash * 31 + JodaBeanUtils.hashCode(getCurveCalibrationThreads());
     return hash ^ super.hashCode();
   }
 
@@ -1114,6 +1158,7 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
     buf.append("permissive").append('=').append(JodaBeanUtils.toString(getPermissive())).append(',').append(' ');
     buf.append("pnlRequirementsGatherer").append('=').append(JodaBeanUtils.toString(getPnlRequirementsGatherer())).append(',').append(' ');
     buf.append("riskFactorsGatherer").append('=').append(JodaBeanUtils.toString(getRiskFactorsGatherer())).append(',').append(' ');
+    buf.append("curveCalibrationThreads").append('=').append(JodaBeanUtils.toString(getCurveCalibrationThreads())).append(',').append(' ');
   }
 
   //-----------------------------------------------------------------------
@@ -1246,6 +1291,11 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
      */
     private final MetaProperty<RiskFactorsGatherer> _riskFactorsGatherer = DirectMetaProperty.ofReadWrite(
         this, "riskFactorsGatherer", EngineContextsComponentFactory.class, RiskFactorsGatherer.class);
+    /**
+     * The meta-property for the {@code curveCalibrationThreads} property.
+     */
+    private final MetaProperty<Integer> _curveCalibrationThreads = DirectMetaProperty.ofReadWrite(
+        this, "curveCalibrationThreads", EngineContextsComponentFactory.class, Integer.class);
     /**
      * The meta-properties.
      */
@@ -1274,7 +1324,8 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
         "viewProcessor",
         "permissive",
         "pnlRequirementsGatherer",
-        "riskFactorsGatherer");
+        "riskFactorsGatherer",
+        "curveCalibrationThreads");
 
     /**
      * Restricted constructor.
@@ -1333,6 +1384,8 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
           return _pnlRequirementsGatherer;
         case 861249085:  // riskFactorsGatherer
           return _riskFactorsGatherer;
+        case -108685906:  // curveCalibrationThreads
+          return _curveCalibrationThreads;
       }
       return super.metaPropertyGet(propertyName);
     }
@@ -1545,6 +1598,14 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
       return _riskFactorsGatherer;
     }
 
+    /**
+     * The meta-property for the {@code curveCalibrationThreads} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<Integer> curveCalibrationThreads() {
+      return _curveCalibrationThreads;
+    }
+
     //-----------------------------------------------------------------------
     @Override
     protected Object propertyGet(Bean bean, String propertyName, boolean quiet) {
@@ -1597,6 +1658,8 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
           return ((EngineContextsComponentFactory) bean).getPnlRequirementsGatherer();
         case 861249085:  // riskFactorsGatherer
           return ((EngineContextsComponentFactory) bean).getRiskFactorsGatherer();
+        case -108685906:  // curveCalibrationThreads
+          return ((EngineContextsComponentFactory) bean).getCurveCalibrationThreads();
       }
       return super.propertyGet(bean, propertyName, quiet);
     }
@@ -1676,6 +1739,9 @@ public class EngineContextsComponentFactory extends AbstractComponentFactory {
         case 861249085:  // riskFactorsGatherer
           ((EngineContextsComponentFactory) bean).setRiskFactorsGatherer((RiskFactorsGatherer) newValue);
           return;
+        case -108685906:  // curveCalibrationThreads
+          ((EngineContextsComponentFactory) bean).setCurveCalibrationThreads((Integer) newValue);
+          return;
       }
       super.propertySet(bean, propertyName, newValue, quiet);
     }
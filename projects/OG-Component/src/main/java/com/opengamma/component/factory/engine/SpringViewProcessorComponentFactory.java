@@ -29,9 +29,12 @@ import com.opengamma.component.ComponentRepository;
 import com.opengamma.component.factory.AbstractSpringComponentFactory;
 import com.opengamma.component.factory.ComponentInfoAttributes;
 import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
+import com.opengamma.engine.cache.DefaultFudgeMessageStore;
 import com.opengamma.engine.calcnode.CalcNodeSocketConfiguration;
+import com.opengamma.engine.calcnode.JobDispatcher;
 import com.opengamma.engine.calcnode.stats.TotallingNodeStatisticsGatherer;
 import com.opengamma.engine.exec.MultipleNodeExecutorTuner;
+import com.opengamma.engine.exec.PlanBasedGraphExecutor;
 import com.opengamma.engine.exec.stats.TotallingGraphStatisticsGathererProvider;
 import com.opengamma.engine.function.CompiledFunctionService;
 import com.opengamma.engine.function.FunctionCompilationContext;
@@ -137,6 +140,9 @@ public class SpringViewProcessorComponentFactory extends AbstractSpringComponent
     registerSpringLifecycleStop(repo, appContext);
     ViewDefinitionCompiler.setStripedPortfolioRequirements(isCompileViewsWithRequirementStriping());
     ViewDefinitionCompiler.registerMetricsStatic(OpenGammaMetricRegistry.getSummaryInstance(), OpenGammaMetricRegistry.getDetailedInstance(), "ViewDefinitionCompiler");
+    PlanBasedGraphExecutor.registerMetricsStatic(OpenGammaMetricRegistry.getSummaryInstance(), OpenGammaMetricRegistry.getDetailedInstance(), "PlanBasedGraphExecutor");
+    JobDispatcher.registerMetricsStatic(OpenGammaMetricRegistry.getSummaryInstance(), OpenGammaMetricRegistry.getDetailedInstance(), "JobDispatcher");
+    DefaultFudgeMessageStore.registerMetricsStatic(OpenGammaMetricRegistry.getSummaryInstance(), OpenGammaMetricRegistry.getDetailedInstance(), "DefaultFudgeMessageStore");
   }
 
   /**
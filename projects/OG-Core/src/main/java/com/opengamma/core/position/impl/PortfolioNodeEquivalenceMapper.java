@@ -6,7 +6,9 @@
 package com.opengamma.core.position.impl;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -127,4 +129,62 @@ public class PortfolioNodeEquivalenceMapper {
     return result;
   }
 
+  /**
+   * Finds the child of {@code node} whose name matches that of {@code child}, if there is exactly one and it has not already been used.
+   *
+   * @param node the node to search, not null
+   * @param child the node to match the name of, not null
+   * @param used the identifiers of nodes that have already been mapped, not null
+   * @return the matching child, or null if there is not exactly one available
+   */
+  private PortfolioNode findUniqueNameMatch(final PortfolioNode node, final PortfolioNode child, final Collection<UniqueId> used) {
+    PortfolioNode match = null;
+    for (PortfolioNode candidate : node.getChildNodes()) {
+      if (isNameMatch(child, candidate)) {
+        if (match != null) {
+          return null;
+        }
+        match = candidate;
+      }
+    }
+    if ((match == null) || used.contains(match.getUniqueId())) {
+      return null;
+    }
+    return match;
+  }
+
+  private void getChangedNodes(final PortfolioNode a, final PortfolioNode b, final Map<UniqueId, UniqueId> equivalent, final Collection<UniqueId> used, final Map<UniqueId, UniqueId> result) {
+    result.put(a.getUniqueId(), b.getUniqueId());
+    for (PortfolioNode childA : a.getChildNodes()) {
+      if (equivalent.containsKey(childA.getUniqueId()) || (findUniqueNameMatch(a, childA, Collections.<UniqueId>emptySet()) != childA)) {
+        // Already mapped, or the name is ambiguous
+        continue;
+      }
+      final PortfolioNode childB = findUniqueNameMatch(b, childA, used);
+      if (childB != null) {
+        getChangedNodes(childA, childB, equivalent, used, result);
+      }
+    }
+  }
+
+  /**
+   * Maps the nodes from {@code a} that have no equivalent in {@code b}, but occupy the same place in the structure, to their counterparts. This is the case for a node, and all of its ancestors,
+   * when a position is added to or removed from it. The keys of the result are from {@code a}, the values are from {@code b}.
+   * <p>
+   * Nodes are paired from the roots downwards by name, where the name is unique among the siblings in both structures. Nodes already in the {@code equivalent} mapping, and their sub-trees, are not
+   * considered.
+   *
+   * @param a the root node to map from, not null and not containing null
+   * @param b the root node to map to, not null and not containing null
+   * @param equivalent the mapping of equivalent nodes, as returned by {@link #getEquivalentNodes(PortfolioNode,PortfolioNode)}, not null
+   * @return the mapping of changed nodes, not null and not containing null
+   */
+  public Map<UniqueId, UniqueId> getChangedNodes(final PortfolioNode a, final PortfolioNode b, final Map<UniqueId, UniqueId> equivalent) {
+    final Map<UniqueId, UniqueId> result = new HashMap<UniqueId, UniqueId>();
+    if (!equivalent.containsKey(a.getUniqueId()) && isNameMatch(a, b)) {
+      getChangedNodes(a, b, equivalent, new HashSet<UniqueId>(equivalent.values()), result);
+    }
+    return result;
+  }
+
 }
@@ -174,4 +174,33 @@ public class PortfolioNodeEquivalenceMapperTest {
     assertEquals(mapper.getEquivalentNodes(a, b).size(), 0);
   }
 
+  public void testChangedNodes() {
+    final UniqueIdSupplier ids = new UniqueIdSupplier("Node");
+    final PortfolioNodeEquivalenceMapper mapper = new PortfolioNodeEquivalenceMapper();
+    final PortfolioNode a = createNodeA(ids, false, false, 2);
+    final PortfolioNode b = createNodeA(ids, false, false, 3);
+    final Map<UniqueId, UniqueId> equivalent = mapper.getEquivalentNodes(a, b);
+    assertEquals(equivalent.size(), 2);
+    final Map<UniqueId, UniqueId> changed = mapper.getChangedNodes(a, b, equivalent);
+    assertEquals(changed.size(), 2);
+    assertEquals(changed.get(UniqueId.of("Node", "1")), UniqueId.of("Node", "5"));
+    assertEquals(changed.get(UniqueId.of("Node", "2")), UniqueId.of("Node", "6"));
+  }
+
+  public void testChangedNodesIdentical() {
+    final UniqueIdSupplier ids = new UniqueIdSupplier("Node");
+    final PortfolioNodeEquivalenceMapper mapper = new PortfolioNodeEquivalenceMapper();
+    final PortfolioNode a = createNodeA(ids, false, false, 2);
+    final PortfolioNode b = createNodeA(ids, false, false, 2);
+    assertEquals(mapper.getChangedNodes(a, b, mapper.getEquivalentNodes(a, b)).size(), 0);
+  }
+
+  public void testChangedNodesRenamedRoot() {
+    final UniqueIdSupplier ids = new UniqueIdSupplier("Node");
+    final PortfolioNodeEquivalenceMapper mapper = new PortfolioNodeEquivalenceMapper();
+    final PortfolioNode a = createNodeB(ids, false, 2);
+    final PortfolioNode b = createNodeC(ids);
+    assertEquals(mapper.getChangedNodes(a, b, mapper.getEquivalentNodes(a, b)).size(), 0);
+  }
+
 }
@@ -9,6 +9,7 @@ import java.io.ByteArrayOutputStream;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.fudgemsg.FudgeContext;
 import org.fudgemsg.FudgeMsg;
@@ -16,6 +17,10 @@ import org.fudgemsg.wire.EncodedFudgeMsg;
 import org.fudgemsg.wire.FudgeDataOutputStreamWriter;
 import org.fudgemsg.wire.FudgeEncoded;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
 import com.opengamma.util.ArgumentChecker;
 
 /**
@@ -24,6 +29,11 @@ import com.opengamma.util.ArgumentChecker;
  */
 public class DefaultFudgeMessageStore implements FudgeMessageStore {
 
+  private static Timer s_getLatency = new Timer(); // time to read from the binary store (replaced if registerMetrics called)
+  private static Timer s_putLatency = new Timer(); // time to write to the binary store (replaced if registerMetrics called)
+  private static Histogram s_getBytes = new Histogram(new UniformReservoir()); // size of each value read (replaced if registerMetrics called)
+  private static Histogram s_putBytes = new Histogram(new UniformReservoir()); // size of each value written (replaced if registerMetrics called)
+
   private final BinaryDataStore _binaryData;
   private final FudgeContext _fudgeContext;
 
@@ -33,6 +43,20 @@ public class DefaultFudgeMessageStore implements FudgeMessageStore {
     _fudgeContext = fudgeContext;
   }
 
+  /**
+   * Registers the cache access metrics, aggregated over all instances.
+   *
+   * @param summaryRegistry the summary registry, not null
+   * @param detailRegistry the detail registry, not null
+   * @param namePrefix the prefix for the metric names, not null
+   */
+  public static void registerMetricsStatic(final MetricRegistry summaryRegistry, final MetricRegistry detailRegistry, final String namePrefix) {
+    s_getLatency = summaryRegistry.timer(namePrefix + ".get");
+    s_putLatency = summaryRegistry.timer(namePrefix + ".put");
+    s_getBytes = detailRegistry.histogram(namePrefix + ".getBytes");
+    s_putBytes = detailRegistry.histogram(namePrefix + ".putBytes");
+  }
+
   private BinaryDataStore getBinaryData() {
     return _binaryData;
   }
@@ -48,15 +72,24 @@ public class DefaultFudgeMessageStore implements FudgeMessageStore {
 
   @Override
   public FudgeMsg get(long identifier) {
+    final long start = System.nanoTime();
     final byte[] data = getBinaryData().get(identifier);
-    return (data != null) ? new EncodedFudgeMsg(data, getFudgeContext()) : null;
+    s_getLatency.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    if (data == null) {
+      return null;
+    }
+    s_getBytes.update(data.length);
+    return new EncodedFudgeMsg(data, getFudgeContext());
   }
 
   @Override
   public Map<Long, FudgeMsg> get(Collection<Long> identifiers) {
+    final long start = System.nanoTime();
     final Map<Long, byte[]> dataValues = getBinaryData().get(identifiers);
+    s_getLatency.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     final Map<Long, FudgeMsg> resultValues = new HashMap<Long, FudgeMsg>();
     for (Map.Entry<Long, byte[]> data : dataValues.entrySet()) {
+      s_getBytes.update(data.getValue().length);
       resultValues.put(data.getKey(), new EncodedFudgeMsg(data.getValue(), getFudgeContext()));
     }
     return resultValues;
@@ -73,7 +106,10 @@ public class DefaultFudgeMessageStore implements FudgeMessageStore {
       writer.writeFields(dataMessage);
       data = baos.toByteArray();
     }
+    s_putBytes.update(data.length);
+    final long start = System.nanoTime();
     getBinaryData().put(identifier, data);
+    s_putLatency.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
   }
 
   @Override
@@ -95,8 +131,11 @@ public class DefaultFudgeMessageStore implements FudgeMessageStore {
         writer.writeFields(dataMessage.getValue());
         data = baos.toByteArray();
       }
+      s_putBytes.update(data.length);
       dataBytes.put(dataMessage.getKey(), data);
     }
+    final long start = System.nanoTime();
     getBinaryData().put(dataBytes);
+    s_putLatency.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
   }
 }
@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * An implementation of {@link BinaryDataStore} that holds the data outside of the Java heap.
+ * <p>
+ * Values are appended to segments obtained from a {@link OffHeapBinaryDataStoreFactory}, each value prefixed with its
+ * length. A primitive map from identifier to packed segment/offset location is the only on-heap structure, so a cycle
+ * holding several gigabytes of encoded values costs the garbage collector almost nothing. Space is never reclaimed
+ * within a store; overwriting an identifier appends a new copy. This is the normal pattern for a cycle's value cache
+ * where each value is written once. The segments are returned to the factory for reuse when the store is deleted.
+ * <p>
+ * This class is internally synchronized; concurrent reads do not block each other.
+ */
+public class OffHeapBinaryDataStore extends AbstractBinaryDataStore {
+
+  private static final int LENGTH_PREFIX = 4;
+  private static final long MISSING = -1L;
+
+  private final OffHeapBinaryDataStoreFactory _factory;
+  private final List<ByteBuffer> _segments = new ArrayList<ByteBuffer>();
+  private final Long2LongOpenHashMap _index = new Long2LongOpenHashMap();
+  private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+  private ByteBuffer _current;
+  private boolean _deleted;
+
+  public OffHeapBinaryDataStore(final OffHeapBinaryDataStoreFactory factory) {
+    ArgumentChecker.notNull(factory, "factory");
+    _factory = factory;
+    _index.defaultReturnValue(MISSING);
+  }
+
+  private static long location(final int segment, final int offset) {
+    return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  private static int segment(final long location) {
+    return (int) (location >>> 32);
+  }
+
+  private static int offset(final long location) {
+    return (int) location;
+  }
+
+  /**
+   * Reads the value at a location. Must be called while holding the read or write lock.
+   */
+  private byte[] read(final long location) {
+    final ByteBuffer segment = _segments.get(segment(location)).duplicate();
+    final int offset = offset(location);
+    final int length = segment.getInt(offset);
+    final byte[] data = new byte[length];
+    segment.position(offset + LENGTH_PREFIX);
+    segment.get(data);
+    return data;
+  }
+
+  /**
+   * Appends a value, updating the index. Must be called while holding the write lock.
+   */
+  private void write(final long identifier, final byte[] data) {
+    final int required = data.length + LENGTH_PREFIX;
+    if ((_current == null) || (_current.remaining() < required)) {
+      _current = _factory.allocateSegment(required);
+      _segments.add(_current);
+    }
+    final int offset = _current.position();
+    _current.putInt(data.length);
+    _current.put(data);
+    _index.put(identifier, location(_segments.size() - 1, offset));
+  }
+
+  /**
+   * Returns the number of values held.
+   *
+   * @return the number of values
+   */
+  public int size() {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      return _index.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of off-heap bytes reserved by this store.
+   *
+   * @return the reserved size in bytes
+   */
+  public long getReservedBytes() {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      long bytes = 0;
+      for (ByteBuffer segment : _segments) {
+        bytes += segment.capacity();
+      }
+      return bytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // BinaryDataStore
+
+  @Override
+  public byte[] get(final long identifier) {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      final long location = _index.get(identifier);
+      return (location != MISSING) ? read(location) : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Map<Long, byte[]> get(final Collection<Long> identifiers) {
+    final Map<Long, byte[]> result = new HashMap<Long, byte[]>();
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      for (Long identifier : identifiers) {
+        final long location = _index.get(identifier.longValue());
+        if (location != MISSING) {
+          result.put(identifier, read(location));
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    return result;
+  }
+
+  @Override
+  public void put(final long identifier, final byte[] data) {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      if (_deleted) {
+        throw new IllegalStateException("Data store has been deleted");
+      }
+      write(identifier, data);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(final Map<Long, byte[]> data) {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      if (_deleted) {
+        throw new IllegalStateException("Data store has been deleted");
+      }
+      for (Map.Entry<Long, byte[]> entry : data.entrySet()) {
+        write(entry.getKey(), entry.getValue());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void delete() {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      _deleted = true;
+      _index.clear();
+      for (ByteBuffer segment : _segments) {
+        _factory.releaseSegment(segment);
+      }
+      _segments.clear();
+      _current = null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Creates {@link OffHeapBinaryDataStore} instances.
+ * <p>
+ * The factory owns the off-heap segments. Segments are either direct buffers or, if a folder is given, memory-mapped
+ * temporary files. When a data store is deleted at the end of a cycle its segments are returned to a pool here and
+ * handed to the next store that is created, so a steady state engine does not allocate or map new memory every cycle.
+ */
+public class OffHeapBinaryDataStoreFactory implements BinaryDataStoreFactory {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(OffHeapBinaryDataStoreFactory.class);
+
+  /**
+   * The default segment size, 64Mb.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * The default number of free segments to retain for reuse.
+   */
+  public static final int DEFAULT_MAX_POOLED_SEGMENTS = 16;
+
+  private final int _segmentSize;
+  private final int _maxPooledSegments;
+  private final File _mappedFileFolder;
+  private final Queue<ByteBuffer> _pool = new ConcurrentLinkedQueue<ByteBuffer>();
+  private final AtomicInteger _pooled = new AtomicInteger();
+  private final AtomicInteger _fileCount = new AtomicInteger();
+
+  /**
+   * Creates a factory using direct buffers with the default segment size and pool limit.
+   */
+  public OffHeapBinaryDataStoreFactory() {
+    this(DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_POOLED_SEGMENTS, null);
+  }
+
+  /**
+   * Creates a factory.
+   *
+   * @param segmentSize the size of each segment in bytes, values larger than this are given their own segment
+   * @param maxPooledSegments the maximum number of free segments to retain for reuse
+   * @param mappedFileFolder the folder to create memory-mapped segment files in, null to use direct buffers
+   */
+  public OffHeapBinaryDataStoreFactory(final int segmentSize, final int maxPooledSegments, final File mappedFileFolder) {
+    ArgumentChecker.notNegativeOrZero(segmentSize, "segmentSize");
+    ArgumentChecker.notNegative(maxPooledSegments, "maxPooledSegments");
+    _segmentSize = segmentSize;
+    _maxPooledSegments = maxPooledSegments;
+    _mappedFileFolder = mappedFileFolder;
+    if (mappedFileFolder != null) {
+      mappedFileFolder.mkdirs();
+    }
+  }
+
+  public int getSegmentSize() {
+    return _segmentSize;
+  }
+
+  public int getMaxPooledSegments() {
+    return _maxPooledSegments;
+  }
+
+  public File getMappedFileFolder() {
+    return _mappedFileFolder;
+  }
+
+  /**
+   * Returns the number of free segments currently held for reuse.
+   *
+   * @return the pool size
+   */
+  public int getPooledSegmentCount() {
+    return _pooled.get();
+  }
+
+  /**
+   * Obtains a segment of at least the requested size. Standard sized requests are satisfied from the pool if possible.
+   *
+   * @param minimumSize the minimum capacity required
+   * @return the segment, with its position set to zero
+   */
+  /* package */ByteBuffer allocateSegment(final int minimumSize) {
+    if (minimumSize <= _segmentSize) {
+      final ByteBuffer pooled = _pool.poll();
+      if (pooled != null) {
+        _pooled.decrementAndGet();
+        pooled.clear();
+        return pooled;
+      }
+      return createSegment(_segmentSize);
+    } else {
+      return createSegment(minimumSize);
+    }
+  }
+
+  /**
+   * Returns a segment that is no longer in use. Standard sized segments are pooled, up to the limit; anything else is
+   * left for the garbage collector to release.
+   *
+   * @param segment the segment, not null
+   */
+  /* package */void releaseSegment(final ByteBuffer segment) {
+    if (segment.capacity() != _segmentSize) {
+      return;
+    }
+    if (_pooled.incrementAndGet() <= _maxPooledSegments) {
+      _pool.add(segment);
+    } else {
+      _pooled.decrementAndGet();
+    }
+  }
+
+  protected ByteBuffer createSegment(final int size) {
+    if (_mappedFileFolder == null) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    final File file = new File(_mappedFileFolder, "segment-" + System.identityHashCode(this) + "-" + _fileCount.incrementAndGet() + ".bin");
+    s_logger.debug("Mapping {} byte segment from {}", size, file);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(size);
+      final ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      // The mapping remains valid after the file is closed; removing the directory entry means the space is reclaimed
+      // once the buffer is collected
+      if (!file.delete()) {
+        file.deleteOnExit();
+      }
+      return buffer;
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Couldn't map segment file " + file, e);
+    }
+  }
+
+  @Override
+  public BinaryDataStore createDataStore(final ViewComputationCacheKey cacheKey) {
+    return new OffHeapBinaryDataStore(this);
+  }
+
+}
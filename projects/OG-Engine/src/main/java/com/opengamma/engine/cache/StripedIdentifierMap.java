@@ -0,0 +1,256 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * An in-memory implementation of {@link IdentifierMap} intended for heavy concurrent use.
+ * <p>
+ * The specification to identifier direction is split over a number of lock stripes, each an open-addressing map with
+ * primitive {@code long} values. Identifiers are allocated sequentially so the reverse direction is a paged array
+ * indexed directly by identifier; it is read without locking. The bulk operations group requests by stripe so that each
+ * lock is taken at most twice per call rather than once per specification.
+ * <p>
+ * As with {@link InMemoryIdentifierMap} there are no facilities for persistence. This class is internally synchronized.
+ */
+public class StripedIdentifierMap implements IdentifierMap {
+
+  /**
+   * The default number of lock stripes.
+   */
+  public static final int DEFAULT_STRIPES = 64;
+
+  private static final int PAGE_SHIFT = 12;
+  private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+  private static final long MISSING = 0L;
+
+  private static final class Stripe {
+
+    private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+    private final Object2LongOpenHashMap<ValueSpecification> _identifiers = new Object2LongOpenHashMap<ValueSpecification>();
+
+    private Stripe() {
+      _identifiers.defaultReturnValue(MISSING);
+    }
+
+  }
+
+  private final Stripe[] _stripes;
+  private final int _stripeMask;
+  private final Object _pageLock = new Object();
+  private volatile AtomicReferenceArray<ValueSpecification>[] _pages;
+  private long _nextIdentifier = 1L;
+
+  /**
+   * Creates a map with the default number of lock stripes.
+   */
+  public StripedIdentifierMap() {
+    this(DEFAULT_STRIPES);
+  }
+
+  /**
+   * Creates a map.
+   *
+   * @param stripes the number of lock stripes, rounded up to a power of two
+   */
+  @SuppressWarnings("unchecked")
+  public StripedIdentifierMap(final int stripes) {
+    ArgumentChecker.notNegativeOrZero(stripes, "stripes");
+    int size = 1;
+    while (size < stripes) {
+      size <<= 1;
+    }
+    _stripes = new Stripe[size];
+    for (int i = 0; i < size; i++) {
+      _stripes[i] = new Stripe();
+    }
+    _stripeMask = size - 1;
+    _pages = new AtomicReferenceArray[1];
+    _pages[0] = new AtomicReferenceArray<ValueSpecification>(PAGE_SIZE);
+  }
+
+  private int stripeIndex(final ValueSpecification spec) {
+    int h = spec.hashCode();
+    h ^= (h >>> 16);
+    return h & _stripeMask;
+  }
+
+  /**
+   * Allocates a new identifier and publishes the specification in the reverse table. Called while holding the write lock
+   * of the specification's stripe, so the specification cannot be allocated twice.
+   */
+  @SuppressWarnings("unchecked")
+  private long allocate(final ValueSpecification spec) {
+    synchronized (_pageLock) {
+      final long identifier = _nextIdentifier++;
+      final int page = (int) (identifier >>> PAGE_SHIFT);
+      AtomicReferenceArray<ValueSpecification>[] pages = _pages;
+      if (page >= pages.length) {
+        final AtomicReferenceArray<ValueSpecification>[] newPages = new AtomicReferenceArray[pages.length << 1];
+        System.arraycopy(pages, 0, newPages, 0, pages.length);
+        for (int i = pages.length; i < newPages.length; i++) {
+          newPages[i] = new AtomicReferenceArray<ValueSpecification>(PAGE_SIZE);
+        }
+        _pages = newPages;
+        pages = newPages;
+      }
+      pages[page].set((int) identifier & PAGE_MASK, spec);
+      return identifier;
+    }
+  }
+
+  /**
+   * Looks up, or allocates, the identifier for a specification. Must be called while holding the stripe's write lock.
+   */
+  private long getOrAllocate(final Stripe stripe, final ValueSpecification spec) {
+    long identifier = stripe._identifiers.getLong(spec);
+    if (identifier == MISSING) {
+      identifier = allocate(spec);
+      stripe._identifiers.put(spec, identifier);
+    }
+    return identifier;
+  }
+
+  /**
+   * Returns the number of specifications held.
+   *
+   * @return the number of specifications
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe stripe : _stripes) {
+      stripe._lock.readLock().lock();
+      try {
+        size += stripe._identifiers.size();
+      } finally {
+        stripe._lock.readLock().unlock();
+      }
+    }
+    return size;
+  }
+
+  // IdentifierMap
+
+  @Override
+  public long getIdentifier(final ValueSpecification spec) {
+    ArgumentChecker.notNull(spec, "Value specification");
+    final Stripe stripe = _stripes[stripeIndex(spec)];
+    stripe._lock.readLock().lock();
+    try {
+      final long identifier = stripe._identifiers.getLong(spec);
+      if (identifier != MISSING) {
+        return identifier;
+      }
+    } finally {
+      stripe._lock.readLock().unlock();
+    }
+    stripe._lock.writeLock().lock();
+    try {
+      return getOrAllocate(stripe, spec);
+    } finally {
+      stripe._lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Object2LongMap<ValueSpecification> getIdentifiers(final Collection<ValueSpecification> specs) {
+    final Object2LongMap<ValueSpecification> identifiers = new Object2LongOpenHashMap<ValueSpecification>(specs.size());
+    if (specs.size() == 1) {
+      final ValueSpecification spec = specs.iterator().next();
+      identifiers.put(spec, getIdentifier(spec));
+      return identifiers;
+    }
+    @SuppressWarnings("unchecked")
+    final List<ValueSpecification>[] byStripe = new List[_stripes.length];
+    for (ValueSpecification spec : specs) {
+      ArgumentChecker.notNull(spec, "Value specification");
+      final int index = stripeIndex(spec);
+      List<ValueSpecification> list = byStripe[index];
+      if (list == null) {
+        list = new ArrayList<ValueSpecification>();
+        byStripe[index] = list;
+      }
+      list.add(spec);
+    }
+    for (int i = 0; i < byStripe.length; i++) {
+      final List<ValueSpecification> list = byStripe[i];
+      if (list == null) {
+        continue;
+      }
+      final Stripe stripe = _stripes[i];
+      List<ValueSpecification> misses = null;
+      stripe._lock.readLock().lock();
+      try {
+        for (ValueSpecification spec : list) {
+          final long identifier = stripe._identifiers.getLong(spec);
+          if (identifier != MISSING) {
+            identifiers.put(spec, identifier);
+          } else {
+            if (misses == null) {
+              misses = new ArrayList<ValueSpecification>(list.size());
+            }
+            misses.add(spec);
+          }
+        }
+      } finally {
+        stripe._lock.readLock().unlock();
+      }
+      if (misses != null) {
+        stripe._lock.writeLock().lock();
+        try {
+          for (ValueSpecification spec : misses) {
+            identifiers.put(spec, getOrAllocate(stripe, spec));
+          }
+        } finally {
+          stripe._lock.writeLock().unlock();
+        }
+      }
+    }
+    return identifiers;
+  }
+
+  @Override
+  public ValueSpecification getValueSpecification(final long identifier) {
+    if (identifier <= 0) {
+      return null;
+    }
+    final AtomicReferenceArray<ValueSpecification>[] pages = _pages;
+    final long page = identifier >>> PAGE_SHIFT;
+    if (page >= pages.length) {
+      return null;
+    }
+    return pages[(int) page].get((int) identifier & PAGE_MASK);
+  }
+
+  @Override
+  public Long2ObjectMap<ValueSpecification> getValueSpecifications(final LongCollection identifiers) {
+    final Long2ObjectMap<ValueSpecification> specifications = new Long2ObjectOpenHashMap<ValueSpecification>(identifiers.size());
+    final LongIterator itr = identifiers.iterator();
+    while (itr.hasNext()) {
+      final long identifier = itr.nextLong();
+      specifications.put(identifier, getValueSpecification(identifier));
+    }
+    return specifications;
+  }
+
+}
@@ -15,11 +15,20 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
 import com.google.common.collect.MapMaker;
 import com.opengamma.engine.value.ComputedValue;
 import com.opengamma.engine.value.ValueSpecification;
@@ -32,21 +41,37 @@ import com.opengamma.util.tuple.Pairs;
 
 /**
  * A {@link ViewComputationCache} that supports an asynchronous write behind update of the underlying cache.
+ * <p>
+ * Values are posted by the calculation threads to lock-free queues which are drained by a single writer task. The writer coalesces the queued values
+ * into batched {@link ViewComputationCache#putSharedValues} and {@link ViewComputationCache#putPrivateValues} calls of at most {@link #getMaxBatchSize}
+ * values. If a maximum batch latency is set, the writer will wait up to that long for a partial batch to fill before writing it, unless a thread is
+ * blocked in {@link #flush}. Posting threads never block on each other or on the writer.
  */
 public class WriteBehindViewComputationCache implements DeferredViewComputationCache {
 
   private static final Logger s_logger = LoggerFactory.getLogger(WriteBehindViewComputationCache.class);
 
+  /**
+   * The default maximum number of values passed to the underlying in a single call.
+   */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+  private static final AtomicLong s_queueDepth = new AtomicLong();
+  private static Timer s_flushLatency = new Timer(); // time from first value queued to batch written (replaced if registerMetrics called)
+  private static Histogram s_batchSize = new Histogram(new UniformReservoir()); // values per write (replaced if registerMetrics called)
+
   private static final class Entry {
 
     private final ComputedValue _value;
     private final DeferredStatistics _statistics;
     private final PendingLock _owner;
+    private final long _queued;
 
     public Entry(final ComputedValue value, final DeferredStatistics statistics, final PendingLock owner) {
       _value = value;
       _statistics = statistics;
       _owner = owner;
+      _queued = System.nanoTime();
     }
 
     public ComputedValue getValue() {
@@ -61,6 +86,10 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
       return _owner;
     }
 
+    public long getQueued() {
+      return _queued;
+    }
+
   }
 
   private static final class ComputedValueCollection extends AbstractCollection<ComputedValue> {
@@ -102,79 +131,80 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
 
   }
 
+  /**
+   * Count of the outstanding writes posted by a thread. The count is negative once the writer has failed. The callback, if set, is notified when the
+   * count reaches zero or the writer fails.
+   */
   private static final class PendingLock {
 
-    private int _count;
-    private ResultCallback<Void> _callback;
+    private final AtomicInteger _count;
+    private final AtomicReference<ResultCallback<Void>> _callback = new AtomicReference<ResultCallback<Void>>();
 
     public PendingLock(final int count) {
-      _count = count;
+      _count = new AtomicInteger(count);
     }
 
-    public synchronized boolean isZero() {
-      return _count == 0;
+    public boolean isZero() {
+      return _count.get() == 0;
     }
 
-    public synchronized void increment(final int count) {
-      if (_count >= 0) {
-        _count += count;
-      }
+    public void increment(final int count) {
+      int value;
+      do {
+        value = _count.get();
+        if (value < 0) {
+          return;
+        }
+      } while (!_count.compareAndSet(value, value + count));
     }
 
     public void decrement() {
-      ResultCallback<Void> callback = null;
-      synchronized (this) {
-        final int newCount = --_count;
-        assert newCount >= 0;
-        if (newCount == 0) {
-          callback = _callback;
-          _callback = null;
-        }
-      }
-      if (callback != null) {
-        callback.setResult(null);
-      }
+      decrement(1);
     }
 
     public void decrement(final int count) {
-      ResultCallback<Void> callback = null;
-      synchronized (this) {
-        if (_count > 0) {
-          _count -= count;
-          assert _count >= 0;
-          if (_count == 0) {
-            callback = _callback;
-            _callback = null;
-          }
+      int value;
+      int newValue;
+      do {
+        value = _count.get();
+        if (value <= 0) {
+          return;
+        }
+        newValue = value - count;
+        assert newValue >= 0;
+      } while (!_count.compareAndSet(value, newValue));
+      if (newValue == 0) {
+        final ResultCallback<Void> callback = _callback.getAndSet(null);
+        if (callback != null) {
+          callback.setResult(null);
         }
-      }
-      if (callback != null) {
-        callback.setResult(null);
       }
     }
 
     public void fail(final RuntimeException e) {
-      ResultCallback<Void> callback;
-      synchronized (this) {
-        _count = -1;
-        callback = _callback;
-        _callback = null;
-      }
+      _count.set(-1);
+      final ResultCallback<Void> callback = _callback.getAndSet(null);
       if (callback != null) {
         callback.setException(e);
       }
     }
 
     public boolean setCallback(final ResultCallback<Void> callback) {
-      synchronized (this) {
-        if (_count > 0) {
-          _callback = callback;
-          return true;
-        } else if (_count < 0) {
+      if (_count.get() < 0) {
+        return false;
+      }
+      _callback.set(callback);
+      // The count may have changed before the callback was visible; whoever removes the callback is responsible for notifying it
+      final int value = _count.get();
+      if (value == 0) {
+        if (_callback.compareAndSet(callback, null)) {
+          callback.setResult(null);
+        }
+      } else if (value < 0) {
+        if (_callback.compareAndSet(callback, null)) {
           return false;
         }
       }
-      callback.setResult(null);
       return true;
     }
 
@@ -190,7 +220,12 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
   private final Map<ValueSpecification, Object> _buffer = new MapMaker().softValues().makeMap();
   private final Queue<Entry> _pendingPrivateValues;
   private final Queue<Entry> _pendingSharedValues;
+  private final AtomicInteger _queueDepth = new AtomicInteger();
   private final ConcurrentMap<Thread, PendingLock> _pendingWrites = new MapMaker().weakKeys().makeMap();
+  private final AtomicInteger _flushWaiters = new AtomicInteger();
+  private volatile int _maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+  private volatile long _maxBatchLatency;
+  private volatile Thread _lingeringWriter;
 
   private static final int VALUE_WRITER_IDLE = 0;
   private static final int VALUE_WRITER_RUNNING = 1;
@@ -200,15 +235,46 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
   private volatile RuntimeException _valueWriterFault;
   private final Runnable _valueWriterRunnable = new Runnable() {
 
-    private List<Entry> drain(final Queue<Entry> source) {
-      // Make the list bigger than the source queue as writes will probably occur while we're draining it.
-      final List<Entry> dest = new ArrayList<Entry>(source.size() * 2);
-      Entry value = source.poll();
-      while (value != null) {
+    private void drain(final Queue<Entry> source, final List<Entry> dest, final int maxSize) {
+      int count = 0;
+      while (dest.size() < maxSize) {
+        final Entry value = source.poll();
+        if (value == null) {
+          break;
+        }
         dest.add(value);
-        value = source.poll();
+        count++;
+      }
+      if (count > 0) {
+        _queueDepth.addAndGet(-count);
+        s_queueDepth.addAndGet(-count);
+      }
+    }
+
+    /**
+     * Takes the next batch from the queue. If the batch is not full, and a latency bound is set, waits for more values to arrive until either the batch
+     * fills, the oldest value in it reaches the latency bound, or a thread starts waiting in {@link #flush}.
+     */
+    private List<Entry> nextBatch(final Queue<Entry> source) {
+      final int maxSize = getMaxBatchSize();
+      final List<Entry> batch = new ArrayList<Entry>(Math.min(maxSize, Math.max(_queueDepth.get(), 1) * 2));
+      drain(source, batch, maxSize);
+      final long latency = _maxBatchLatency;
+      if ((latency > 0) && !batch.isEmpty() && (batch.size() < maxSize)) {
+        final long deadline = batch.get(0).getQueued() + latency;
+        _lingeringWriter = Thread.currentThread();
+        try {
+          long wait = deadline - System.nanoTime();
+          while ((wait > 0) && (batch.size() < maxSize) && (_flushWaiters.get() == 0)) {
+            LockSupport.parkNanos(this, wait);
+            drain(source, batch, maxSize);
+            wait = deadline - System.nanoTime();
+          }
+        } finally {
+          _lingeringWriter = null;
+        }
       }
-      return dest;
+      return batch;
     }
 
     private void valueWritten(final Entry entry) {
@@ -221,6 +287,8 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
     }
 
     private void valuesWritten(final List<Entry> values) {
+      s_flushLatency.update(System.nanoTime() - values.get(0).getQueued(), TimeUnit.NANOSECONDS);
+      s_batchSize.update(values.size());
       for (final Entry entry : values) {
         valueWritten(entry);
       }
@@ -241,37 +309,30 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
           s_logger.info("Write-behind thread running for {}", getUnderlying());
           do {
             if ((_pendingSharedValues != null) && !_pendingSharedValues.isEmpty()) {
-              values = drain(_pendingSharedValues);
+              values = nextBatch(_pendingSharedValues);
               if (values.size() > 1) {
                 getUnderlying().putSharedValues(new ComputedValueCollection(values));
-                valuesWritten(values);
-                count += values.size();
               } else {
-                final Entry entry = values.get(0);
-                getUnderlying().putSharedValue(entry.getValue());
-                valueWritten(entry);
-                count++;
+                getUnderlying().putSharedValue(values.get(0).getValue());
               }
+              valuesWritten(values);
+              count += values.size();
               values = null;
             }
             if ((_pendingPrivateValues != null) && !_pendingPrivateValues.isEmpty()) {
-              values = drain(_pendingPrivateValues);
+              values = nextBatch(_pendingPrivateValues);
               if (values.size() > 1) {
                 getUnderlying().putPrivateValues(new ComputedValueCollection(values));
-                valuesWritten(values);
-                count += values.size();
               } else {
-                final Entry entry = values.get(0);
-                getUnderlying().putPrivateValue(entry.getValue());
-                valueWritten(entry);
-                count++;
+                getUnderlying().putPrivateValue(values.get(0).getValue());
               }
+              valuesWritten(values);
+              count += values.size();
               values = null;
             }
-          } while (((_pendingSharedValues != null) && !_pendingSharedValues.isEmpty()) || ((_pendingPrivateValues != null) && !_pendingPrivateValues.isEmpty()));
+          } while (isPending());
           _valueWriterActive.set(VALUE_WRITER_IDLE);
-        } while ((((_pendingSharedValues != null) && !_pendingSharedValues.isEmpty()) || ((_pendingPrivateValues != null) && !_pendingPrivateValues.isEmpty())) &&
-            _valueWriterActive.compareAndSet(VALUE_WRITER_IDLE, VALUE_WRITER_RUNNING));
+        } while (isPending() && _valueWriterActive.compareAndSet(VALUE_WRITER_IDLE, VALUE_WRITER_RUNNING));
         s_logger.info("Write-behind thread terminated after {} operations", count);
       } catch (final RuntimeException e) {
         s_logger.warn("Write-behind thread failed after {} operations: {}", count, e.getMessage());
@@ -295,6 +356,25 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
     _pendingSharedValues = useShared ? new ConcurrentLinkedQueue<Entry>() : null;
   }
 
+  /**
+   * Registers the write-behind metrics, aggregated over all instances.
+   *
+   * @param summaryRegistry the summary registry, not null
+   * @param detailRegistry the detail registry, not null
+   * @param namePrefix the prefix for the metric names, not null
+   */
+  public static void registerMetricsStatic(final MetricRegistry summaryRegistry, final MetricRegistry detailRegistry, final String namePrefix) {
+    s_flushLatency = summaryRegistry.timer(namePrefix + ".flushLatency");
+    s_batchSize = detailRegistry.histogram(namePrefix + ".batchSize");
+    detailRegistry.remove(namePrefix + ".queueDepth");
+    detailRegistry.register(namePrefix + ".queueDepth", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return s_queueDepth.get();
+      }
+    });
+  }
+
   protected ViewComputationCache getUnderlying() {
     return _underlying;
   }
@@ -303,6 +383,67 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
     return _executorService;
   }
 
+  /**
+   * Returns the maximum number of values passed to the underlying in a single call.
+   *
+   * @return the maximum batch size
+   */
+  public int getMaxBatchSize() {
+    return _maxBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of values passed to the underlying in a single call.
+   *
+   * @param maxBatchSize the maximum batch size, at least one
+   */
+  public void setMaxBatchSize(final int maxBatchSize) {
+    ArgumentChecker.isTrue(maxBatchSize > 0, "maxBatchSize");
+    _maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Returns the maximum time the writer will hold a partial batch waiting for more values.
+   *
+   * @param unit the time unit of the result, not null
+   * @return the maximum batch latency, zero if partial batches are written immediately
+   */
+  public long getMaxBatchLatency(final TimeUnit unit) {
+    return unit.convert(_maxBatchLatency, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Sets the maximum time the writer will hold a partial batch waiting for more values. A partial batch is always written immediately if a thread is
+   * blocked in {@link #flush}.
+   *
+   * @param maxBatchLatency the maximum batch latency, zero to write partial batches immediately
+   * @param unit the time unit of the latency, not null
+   */
+  public void setMaxBatchLatency(final long maxBatchLatency, final TimeUnit unit) {
+    ArgumentChecker.isTrue(maxBatchLatency >= 0, "maxBatchLatency");
+    _maxBatchLatency = unit.toNanos(maxBatchLatency);
+  }
+
+  /**
+   * Returns the number of values queued for writing to the underlying.
+   *
+   * @return the queue depth
+   */
+  public int getQueueDepth() {
+    return _queueDepth.get();
+  }
+
+  private boolean isPending() {
+    return ((_pendingSharedValues != null) && !_pendingSharedValues.isEmpty()) || ((_pendingPrivateValues != null) && !_pendingPrivateValues.isEmpty());
+  }
+
+  private void enqueue(final Queue<Entry> queue, final Entry entry) {
+    // Count before adding so that the writer never sees the depth go negative
+    _queueDepth.incrementAndGet();
+    s_queueDepth.incrementAndGet();
+    queue.add(entry);
+  }
+
   protected Object getBuffered(final ValueSpecification specification) {
     return _buffer.get(specification);
   }
@@ -336,21 +477,23 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
     }
   }
 
-  private void failAll() {
-    if (_pendingSharedValues != null) {
-      Entry e = _pendingSharedValues.poll();
-      while (e != null) {
-        e.getOwner().fail(_valueWriterFault);
-        e = _pendingSharedValues.poll();
-      }
-    }
-    if (_pendingPrivateValues != null) {
-      Entry e = _pendingPrivateValues.poll();
+  private void failAll(final Queue<Entry> queue) {
+    if (queue != null) {
+      int count = 0;
+      Entry e = queue.poll();
       while (e != null) {
+        count++;
         e.getOwner().fail(_valueWriterFault);
-        e = _pendingPrivateValues.poll();
+        e = queue.poll();
       }
+      _queueDepth.addAndGet(-count);
+      s_queueDepth.addAndGet(-count);
     }
+  }
+
+  private void failAll() {
+    failAll(_pendingSharedValues);
+    failAll(_pendingPrivateValues);
     _buffer.clear();
   }
 
@@ -476,6 +619,7 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
     return getUnderlying().getValues(specifications, filter);
   }
 
+
   /**
    * Starts the background writing thread to pass values to the underlying if it is not already started.
    */
@@ -486,6 +630,20 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
     } else if (_valueWriterActive.get() == VALUE_WRITER_FAILED) {
       // An existing writer has already failed. Catch anything posted by the caller that was after the writing thread terminated or was missed by the thread
       failAll();
+    } else {
+      wakeLingeringWriter(false);
+    }
+  }
+
+  /**
+   * Wakes the writer if it is holding a partial batch and either there is now enough for a full batch or it is being forced.
+   *
+   * @param force true to wake the writer regardless of the queue depth
+   */
+  private void wakeLingeringWriter(final boolean force) {
+    final Thread writer = _lingeringWriter;
+    if ((writer != null) && (force || (_queueDepth.get() >= getMaxBatchSize()))) {
+      LockSupport.unpark(writer);
     }
   }
 
@@ -528,7 +686,7 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
   public void putSharedValue(final ComputedValue value, final DeferredStatistics statistics) {
     putPending(value);
     if (_pendingSharedValues != null) {
-      _pendingSharedValues.add(new Entry(value, statistics, pending(1)));
+      enqueue(_pendingSharedValues, new Entry(value, statistics, pending(1)));
       startWriter();
     } else {
       getUnderlying().putSharedValue(value);
@@ -542,7 +700,7 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
   public void putPrivateValue(final ComputedValue value, final DeferredStatistics statistics) {
     putPending(value);
     if (_pendingPrivateValues != null) {
-      _pendingPrivateValues.add(new Entry(value, statistics, pending(1)));
+      enqueue(_pendingPrivateValues, new Entry(value, statistics, pending(1)));
       startWriter();
     } else {
       getUnderlying().putPrivateValue(value);
@@ -567,7 +725,7 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
       final PendingLock lock = pending(values.size());
       for (final ComputedValue value : values) {
         putPending(value);
-        _pendingSharedValues.add(new Entry(value, statistics, lock));
+        enqueue(_pendingSharedValues, new Entry(value, statistics, lock));
       }
       startWriter();
     } else {
@@ -587,7 +745,7 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
       final PendingLock lock = pending(values.size());
       for (final ComputedValue value : values) {
         putPending(value);
-        _pendingPrivateValues.add(new Entry(value, statistics, lock));
+        enqueue(_pendingPrivateValues, new Entry(value, statistics, lock));
       }
       startWriter();
     } else {
@@ -609,7 +767,7 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
       putPending(value);
       if (filter.isPrivateValue(value.getSpecification())) {
         if (_pendingPrivateValues != null) {
-          _pendingPrivateValues.add(new Entry(value, statistics, lock));
+          enqueue(_pendingPrivateValues, new Entry(value, statistics, lock));
         } else {
           getUnderlying().putPrivateValue(value);
           if (statistics != null) {
@@ -619,7 +777,7 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
         }
       } else {
         if (_pendingSharedValues != null) {
-          _pendingSharedValues.add(new Entry(value, statistics, lock));
+          enqueue(_pendingSharedValues, new Entry(value, statistics, lock));
         } else {
           getUnderlying().putSharedValue(value);
           if (statistics != null) {
@@ -652,13 +810,31 @@ public class WriteBehindViewComputationCache implements DeferredViewComputationC
       s_logger.debug("Writer flushed");
       return;
     }
-    // Block until the writes from this thread have finished or failed
+    // Block until the writes from this thread have finished or failed; the writer must not hold back a partial batch while we wait
     s_logger.debug("Deferring to asynchronous thread");
     final AsynchronousOperation<Void> async = AsynchronousOperation.create(Void.class);
-    if (write.setCallback(async.getCallback())) {
+    final ResultCallback<Void> callback = new ResultCallback<Void>(async.getCallback()) {
+
+      @Override
+      public void setResult(final Void result) {
+        _flushWaiters.decrementAndGet();
+        super.setResult(result);
+      }
+
+      @Override
+      public void setException(final RuntimeException exception) {
+        _flushWaiters.decrementAndGet();
+        super.setException(exception);
+      }
+
+    };
+    _flushWaiters.incrementAndGet();
+    wakeLingeringWriter(true);
+    if (write.setCallback(callback)) {
       // TODO: How far from completion are we? Will it be worth the asynchronous exception overhead or just block?
       async.getResult();
     } else {
+      _flushWaiters.decrementAndGet();
       s_logger.error("Writer already failed at flush: {}", _valueWriterFault.getMessage());
       throw _valueWriterFault;
     }
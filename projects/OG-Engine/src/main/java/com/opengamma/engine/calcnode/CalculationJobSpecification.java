@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.calcnode;
 
+import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.threeten.bp.Instant;
@@ -35,17 +36,27 @@ public final class CalculationJobSpecification {
    * The unique job identifier within the system.
    */
   private final long _jobId;
+  /**
+   * A description of the market data the cycle runs against, for example the snapshot identifier, null if not known.
+   */
+  private final String _marketDataSource;
   
   public CalculationJobSpecification(final UniqueId viewCycleId, final String calcConfigName, final Instant valuationTime, final long jobId) {
+    this(viewCycleId, calcConfigName, valuationTime, jobId, null);
+  }
+
+  public CalculationJobSpecification(final UniqueId viewCycleId, final String calcConfigName, final Instant valuationTime, final long jobId,
+      final String marketDataSource) {
     // TODO kirk 2009-09-25 -- Check Inputs
     _viewCycleId = viewCycleId;
     _calcConfigName = calcConfigName;
     _valuationTime = valuationTime;
     _jobId = jobId;
+    _marketDataSource = marketDataSource;
   }
   
   public CalculationJobSpecification withJobId(final long jobId) {
-    return new CalculationJobSpecification(getViewCycleId(), getCalcConfigName(), getValuationTime(), jobId);
+    return new CalculationJobSpecification(getViewCycleId(), getCalcConfigName(), getValuationTime(), jobId, getMarketDataSource());
   }
 
   /**
@@ -75,6 +86,13 @@ public final class CalculationJobSpecification {
   public long getJobId() {
     return _jobId;
   }
+
+  /**
+   * @return a description of the market data the cycle runs against, null if not known
+   */
+  public String getMarketDataSource() {
+    return _marketDataSource;
+  }
   
   @Override
   public int hashCode() {
@@ -84,6 +102,7 @@ public final class CalculationJobSpecification {
     result = prime * result + (int) (_jobId ^ (_jobId >>> 32));
     result = prime * result + _viewCycleId.hashCode();
     result = prime * result + _valuationTime.hashCode();
+    result = prime * result + ObjectUtils.hashCode(_marketDataSource);
     return result;
   }
 
@@ -111,6 +130,9 @@ public final class CalculationJobSpecification {
     if (!_valuationTime.equals(other._valuationTime)) {
       return false;
     }
+    if (!ObjectUtils.equals(_marketDataSource, other._marketDataSource)) {
+      return false;
+    }
     return true;
   }
 
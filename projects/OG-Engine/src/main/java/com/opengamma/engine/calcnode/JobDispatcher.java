@@ -8,34 +8,43 @@ package com.opengamma.engine.calcnode;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.concurrent.Cancellable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.Lifecycle;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.opengamma.engine.calcnode.stats.CalculationNodeStatisticsGatherer;
 import com.opengamma.engine.calcnode.stats.DiscardingNodeStatisticsGatherer;
 import com.opengamma.engine.function.blacklist.DummyFunctionBlacklistMaintainer;
 import com.opengamma.engine.function.blacklist.FunctionBlacklistMaintainer;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
 import com.opengamma.util.async.Cancelable;
 
 /**
  * Manages a set of JobInvokers and dispatches jobs to them for execution.
  */
-public class JobDispatcher implements JobInvokerRegister {
+public class JobDispatcher implements JobInvokerRegister, Lifecycle {
 
   private static final Logger s_logger = LoggerFactory.getLogger(JobDispatcher.class);
 
   /* package */static final int DEFAULT_MAX_JOB_ATTEMPTS = 2;
   /* package */static final long DEFAULT_MAX_JOB_EXECUTION_QUERY_TIMEOUT = 5000;
   /* package */static final String DEFAULT_JOB_FAILURE_NODE_ID = "NOT EXECUTED";
+  /* package */static final int DEFAULT_MAX_JOB_LOCATIONS = 65536;
+
+  private static Timer s_dispatchWait = new Timer(); // time from job submission to an invoker accepting it (replaced if registerMetrics called)
 
   private final Queue<DispatchableJob> _pending = new LinkedList<DispatchableJob>();
   private final Queue<JobInvoker> _invokers = new ConcurrentLinkedQueue<JobInvoker>();
@@ -58,6 +67,26 @@ public class JobDispatcher implements JobInvokerRegister {
   private ScheduledThreadPoolExecutor _jobTimeoutExecutor;
   private CalculationNodeStatisticsGatherer _statisticsGatherer = new DiscardingNodeStatisticsGatherer();
   private FunctionBlacklistMaintainer _blacklistUpdate = new DummyFunctionBlacklistMaintainer();
+  /**
+   * Maximum number of milliseconds a job will wait for the invoker that ran the jobs it depends on before any other invoker may take it. Zero disables
+   * locality aware dispatch.
+   */
+  private long _localityDelay;
+  private ScheduledThreadPoolExecutor _localityExecutor;
+  private long _localityRetryTime;
+  /**
+   * The invokers that recently ran each job, by job identifier. Only maintained when locality aware dispatch is enabled.
+   */
+  private final Map<Long, JobInvoker> _jobLocations = new LinkedHashMap<Long, JobInvoker>() {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Long, JobInvoker> eldest) {
+      return size() > DEFAULT_MAX_JOB_LOCATIONS;
+    }
+
+  };
 
   public JobDispatcher() {
   }
@@ -72,6 +101,17 @@ public class JobDispatcher implements JobInvokerRegister {
     }
   }
 
+  /**
+   * Registers the dispatch metrics, aggregated over all instances.
+   *
+   * @param summaryRegistry the summary registry, not null
+   * @param detailRegistry the detail registry, not null
+   * @param namePrefix the prefix for the metric names, not null
+   */
+  public static void registerMetricsStatic(final MetricRegistry summaryRegistry, final MetricRegistry detailRegistry, final String namePrefix) {
+    s_dispatchWait = summaryRegistry.timer(namePrefix + ".dispatchWait");
+  }
+
   public int getMaxJobAttempts() {
     return _maxJobAttempts;
   }
@@ -133,6 +173,34 @@ public class JobDispatcher implements JobInvokerRegister {
     return _maxJobExecutionTimeQuery;
   }
 
+  /**
+   * Sets the maximum time, in milliseconds, that a job will be held for the invoker that ran the jobs it depends on. Those nodes will typically
+   * have the job's inputs in their local caches. Once the delay has passed, or if there is no such invoker, any idle invoker may take the job so a
+   * busy node cannot hold up the cycle. Pass 0 to disable locality aware dispatch.
+   *
+   * @param localityDelay time in milliseconds
+   */
+  public synchronized void setLocalityDelay(final long localityDelay) {
+    ArgumentChecker.notNegative(localityDelay, "localityDelay");
+    _localityDelay = localityDelay;
+    if (localityDelay > 0) {
+      if (_localityExecutor == null) {
+        _localityExecutor = new ScheduledThreadPoolExecutor(1, new NamedThreadPoolFactory("JobDispatcher-Locality", true));
+        _localityExecutor.setMaximumPoolSize(1);
+      }
+    } else {
+      _jobLocations.clear();
+    }
+  }
+
+  public long getLocalityDelay() {
+    return _localityDelay;
+  }
+
+  protected ScheduledThreadPoolExecutor getLocalityExecutor() {
+    return _localityExecutor;
+  }
+
   public void setStatisticsGatherer(final CalculationNodeStatisticsGatherer statisticsGatherer) {
     _statisticsGatherer = statisticsGatherer;
   }
@@ -205,6 +273,22 @@ public class JobDispatcher implements JobInvokerRegister {
       s_logger.info("Job {} cancelled", job);
       return true;
     }
+    if (_localityDelay > 0) {
+      final JobInvoker preferred = getPreferredInvoker(job.getJob());
+      // Only worth waiting for an invoker that could run the job but is busy; otherwise dispatch normally now
+      if ((preferred != null) && job.canRunOn(preferred)) {
+        if (invokePreferred(job, preferred)) {
+          return true;
+        }
+        final long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - job.getJobCreationTime());
+        if (waited < _localityDelay) {
+          s_logger.debug("Holding job {} for invoker {}", job, preferred);
+          scheduleRetry(_localityDelay - waited);
+          return false;
+        }
+        s_logger.debug("Invoker {} busy after {}ms; job {} may run elsewhere", new Object[] {preferred, waited, job });
+      }
+    }
     Collection<JobInvoker> retry = null;
     do {
       final Iterator<JobInvoker> iterator = getInvokers().iterator();
@@ -213,9 +297,11 @@ public class JobDispatcher implements JobInvokerRegister {
         if (job.canRunOn(jobInvoker)) {
           if (job.runOn(jobInvoker)) {
             s_logger.debug("Invoker {} accepted job {}", jobInvoker, job);
+            s_dispatchWait.update(job.getDurationNanos(), TimeUnit.NANOSECONDS);
             // put invoker to the end of the list
             iterator.remove();
             getInvokers().add(jobInvoker);
+            recordLocation(job.getJob(), jobInvoker);
             return true;
           } else {
             s_logger.debug("Invoker {} refused to execute job {}", jobInvoker, job);
@@ -241,6 +327,102 @@ public class JobDispatcher implements JobInvokerRegister {
     return false;
   }
 
+  // caller must already own monitor
+  private void recordLocation(final CalculationJob job, final JobInvoker jobInvoker) {
+    if (_localityDelay > 0) {
+      _jobLocations.put(job.getSpecification().getJobId(), jobInvoker);
+      if (job.getTail() != null) {
+        for (CalculationJob tail : job.getTail()) {
+          recordLocation(tail, jobInvoker);
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the invoker that ran most of the jobs the given job depends on.
+   */
+  // caller must already own monitor
+  private JobInvoker getPreferredInvoker(final CalculationJob job) {
+    final long[] required = job.getRequiredJobIds();
+    if ((required == null) || (required.length == 0)) {
+      return null;
+    }
+    JobInvoker preferred = null;
+    int preferredCount = 0;
+    Map<JobInvoker, Integer> counts = null;
+    for (long requiredJobId : required) {
+      final JobInvoker invoker = _jobLocations.get(requiredJobId);
+      if (invoker == null) {
+        continue;
+      }
+      if (preferred == null) {
+        preferred = invoker;
+        preferredCount = 1;
+        continue;
+      }
+      if (counts == null) {
+        counts = new HashMap<JobInvoker, Integer>();
+        counts.put(preferred, preferredCount);
+      }
+      final Integer count = counts.get(invoker);
+      final int newCount = (count != null) ? count + 1 : 1;
+      counts.put(invoker, newCount);
+      if (newCount > preferredCount) {
+        preferred = invoker;
+        preferredCount = newCount;
+      }
+    }
+    if ((preferred != null) && ((preferred.getInvokerId() == null) || !getCapabilityCache().containsKey(preferred))) {
+      // Invoker has gone away
+      return null;
+    }
+    return preferred;
+  }
+
+  // caller must already own monitor
+  private boolean invokePreferred(final DispatchableJob job, final JobInvoker jobInvoker) {
+    if (!getInvokers().contains(jobInvoker)) {
+      // Busy; it will register again when it is available
+      return false;
+    }
+    if (job.runOn(jobInvoker)) {
+      s_logger.debug("Preferred invoker {} accepted job {}", jobInvoker, job);
+      s_dispatchWait.update(job.getDurationNanos(), TimeUnit.NANOSECONDS);
+      getInvokers().remove(jobInvoker);
+      getInvokers().add(jobInvoker);
+      recordLocation(job.getJob(), jobInvoker);
+      return true;
+    }
+    s_logger.debug("Preferred invoker {} refused to execute job {}", jobInvoker, job);
+    getInvokers().remove(jobInvoker);
+    if (jobInvoker.notifyWhenAvailable(this)) {
+      getInvokers().add(jobInvoker);
+    }
+    return false;
+  }
+
+  // caller must already own monitor
+  private void scheduleRetry(final long delay) {
+    final long retryTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+    if ((_localityRetryTime != 0) && (_localityRetryTime - retryTime <= 0)) {
+      // An earlier retry is already scheduled; it will reschedule for this job if necessary
+      return;
+    }
+    _localityRetryTime = retryTime;
+    _localityExecutor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (JobDispatcher.this) {
+          _localityRetryTime = 0;
+          if (!getPending().isEmpty()) {
+            retryPending(0L);
+          }
+        }
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
   protected synchronized void dispatchJobImpl(final DispatchableJob job) {
     if (!invoke(job)) {
       s_logger.debug("Adding job to pending set");
@@ -291,4 +473,34 @@ public class JobDispatcher implements JobInvokerRegister {
     return result;
   }
 
+  // Lifecycle
+
+  @Override
+  public void start() {
+    // No-op
+  }
+
+  /**
+   * Stops the thread used to release jobs held for their preferred invokers. Locality aware dispatch is disabled, and any held jobs are offered to the
+   * available invokers.
+   */
+  @Override
+  public synchronized void stop() {
+    if (_localityExecutor != null) {
+      _localityExecutor.shutdownNow();
+      _localityExecutor = null;
+      _localityRetryTime = 0;
+      _localityDelay = 0;
+      _jobLocations.clear();
+      if (!getPending().isEmpty()) {
+        retryPending(0L);
+      }
+    }
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return _localityExecutor != null;
+  }
+
 }
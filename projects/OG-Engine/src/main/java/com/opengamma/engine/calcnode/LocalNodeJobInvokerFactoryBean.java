@@ -8,6 +8,7 @@ package com.opengamma.engine.calcnode;
 import java.util.Collection;
 
 import com.opengamma.util.SingletonFactoryBean;
+import com.opengamma.util.metric.OpenGammaMetricRegistry;
 
 /**
  * Factory bean for creating a {@link LocalNodeJobInvoker} instance. The local invoker is created with the supplied set of nodes and then registered with the job dispatcher (if supplied).
@@ -40,6 +41,7 @@ public class LocalNodeJobInvokerFactoryBean extends SingletonFactoryBean<LocalNo
   @Override
   protected LocalNodeJobInvoker createObject() {
     final LocalNodeJobInvoker invoker = new LocalNodeJobInvoker();
+    invoker.registerMetrics(OpenGammaMetricRegistry.getSummaryInstance(), OpenGammaMetricRegistry.getDetailedInstance(), "LocalNodeJobInvoker-" + invoker.getInvokerId());
     if (getNodes() != null) {
       invoker.addNodes(getNodes());
     }
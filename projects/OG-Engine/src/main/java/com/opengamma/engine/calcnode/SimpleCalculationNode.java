@@ -16,6 +16,7 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -141,6 +142,8 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
   private final InputSpecificationsWrapper _inputs = new InputSpecificationsWrapper();
   private boolean _writeBehindSharedCache;
   private boolean _writeBehindPrivateCache;
+  private int _writeBehindMaxBatchSize = WriteBehindViewComputationCache.DEFAULT_MAX_BATCH_SIZE;
+  private long _writeBehindMaxBatchLatency;
   private boolean _asynchronousTargetResolve;
   private FunctionBlacklistQuery _blacklistQuery = new DummyFunctionBlacklistQuery();
   private FunctionBlacklistMaintainer _blacklistUpdate = new DummyFunctionBlacklistMaintainer();
@@ -219,6 +222,36 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
     _writeBehindPrivateCache = writeBehind;
   }
 
+  public int getWriteBehindMaxBatchSize() {
+    return _writeBehindMaxBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of values the write-behind cache passes to the underlying cache in a single call.
+   * 
+   * @param maxBatchSize the maximum batch size, at least one
+   */
+  public void setWriteBehindMaxBatchSize(final int maxBatchSize) {
+    ArgumentChecker.isTrue(maxBatchSize > 0, "maxBatchSize");
+    _writeBehindMaxBatchSize = maxBatchSize;
+  }
+
+  public long getWriteBehindMaxBatchLatency() {
+    return _writeBehindMaxBatchLatency;
+  }
+
+  /**
+   * Sets the time, in milliseconds, the write-behind cache may hold a partial batch to coalesce it with later writes. A larger value gives fewer, larger
+   * writes to a remote cache at the cost of the values being visible to other nodes later. Writes are never held back while a job is waiting to flush
+   * them.
+   * 
+   * @param maxBatchLatency the maximum batch latency in milliseconds, zero to write partial batches immediately
+   */
+  public void setWriteBehindMaxBatchLatency(final long maxBatchLatency) {
+    ArgumentChecker.isTrue(maxBatchLatency >= 0, "maxBatchLatency");
+    _writeBehindMaxBatchLatency = maxBatchLatency;
+  }
+
   public boolean isUseAsynchronousTargetResolve() {
     return _asynchronousTargetResolve;
   }
@@ -351,6 +384,7 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
     final CalculationJobSpecification spec = job.getSpecification();
     getFunctionExecutionContext().setValuationTime(spec.getValuationTime());
     getFunctionExecutionContext().setValuationClock(DateUtils.fixedClockUTC(spec.getValuationTime()));
+    getFunctionExecutionContext().setMarketDataSource(spec.getMarketDataSource());
     getFunctionExecutionContext().setComputationTargetResolver(getRawTargetResolver().atVersionCorrection(job.getResolverVersionCorrection()));
     setFunctions(getFunctionCompilationService().compileFunctionRepository(spec.getValuationTime()));
     setCache(getDeferredViewComputationCache(getCache(spec)));
@@ -636,7 +670,11 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
     DeferredViewComputationCache deferred = s_deferredCaches.get(cache);
     if (deferred == null) {
       if (isUseWriteBehindSharedCache() || isUseWriteBehindPrivateCache()) {
-        deferred = new WriteBehindViewComputationCache(cache, getExecutorService(), isUseWriteBehindSharedCache(), isUseWriteBehindPrivateCache());
+        final WriteBehindViewComputationCache writeBehind = new WriteBehindViewComputationCache(cache, getExecutorService(), isUseWriteBehindSharedCache(),
+            isUseWriteBehindPrivateCache());
+        writeBehind.setMaxBatchSize(getWriteBehindMaxBatchSize());
+        writeBehind.setMaxBatchLatency(getWriteBehindMaxBatchLatency(), TimeUnit.MILLISECONDS);
+        deferred = writeBehind;
       } else {
         deferred = new DirectWriteViewComputationCache(cache);
       }
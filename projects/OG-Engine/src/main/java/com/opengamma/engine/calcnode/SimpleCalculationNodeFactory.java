@@ -9,7 +9,9 @@ import java.util.concurrent.ExecutorService;
 
 import org.springframework.beans.factory.InitializingBean;
 
+import com.opengamma.engine.cache.DefaultFudgeMessageStore;
 import com.opengamma.engine.cache.ViewComputationCacheSource;
+import com.opengamma.engine.cache.WriteBehindViewComputationCache;
 import com.opengamma.engine.calcnode.stats.DiscardingInvocationStatisticsGatherer;
 import com.opengamma.engine.calcnode.stats.FunctionInvocationStatisticsGatherer;
 import com.opengamma.engine.function.CompiledFunctionService;
@@ -19,6 +21,7 @@ import com.opengamma.engine.function.blacklist.FunctionBlacklistQuery;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.log.LogBridge;
 import com.opengamma.util.log.ThreadLocalLogEventListener;
+import com.opengamma.util.metric.OpenGammaMetricRegistry;
 
 /**
  * Creates more-or-less identical nodes.
@@ -33,6 +36,8 @@ public class SimpleCalculationNodeFactory implements InitializingBean {
   private String _nodeIdentifier;
   private boolean _useWriteBehindSharedCache;
   private boolean _useWriteBehindPrivateCache;
+  private int _writeBehindMaxBatchSize = WriteBehindViewComputationCache.DEFAULT_MAX_BATCH_SIZE;
+  private long _writeBehindMaxBatchLatency;
   private boolean _useAsynchronousTargetResolve;
   private FunctionBlacklistQuery _blacklistQuery;
   private FunctionBlacklistMaintainer _blacklistUpdate;
@@ -97,6 +102,22 @@ public class SimpleCalculationNodeFactory implements InitializingBean {
     _useWriteBehindPrivateCache = useWriteBehindCache;
   }
 
+  public int getWriteBehindMaxBatchSize() {
+    return _writeBehindMaxBatchSize;
+  }
+
+  public void setWriteBehindMaxBatchSize(final int writeBehindMaxBatchSize) {
+    _writeBehindMaxBatchSize = writeBehindMaxBatchSize;
+  }
+
+  public long getWriteBehindMaxBatchLatency() {
+    return _writeBehindMaxBatchLatency;
+  }
+
+  public void setWriteBehindMaxBatchLatency(final long writeBehindMaxBatchLatency) {
+    _writeBehindMaxBatchLatency = writeBehindMaxBatchLatency;
+  }
+
   public boolean isUseAsynchronousTargetResolve() {
     return _useAsynchronousTargetResolve;
   }
@@ -158,6 +179,8 @@ public class SimpleCalculationNodeFactory implements InitializingBean {
         getStatisticsGatherer(), logListener);
     node.setUseWriteBehindSharedCache(isUseWriteBehindSharedCache());
     node.setUseWriteBehindPrivateCache(isUseWriteBehindPrivateCache());
+    node.setWriteBehindMaxBatchSize(getWriteBehindMaxBatchSize());
+    node.setWriteBehindMaxBatchLatency(getWriteBehindMaxBatchLatency());
     node.setUseAsynchronousTargetResolve(isUseAsynchronousTargetResolve());
     if (getFunctionBlacklistQuery() != null) {
       node.setFunctionBlacklistQuery(getFunctionBlacklistQuery());
@@ -176,6 +199,11 @@ public class SimpleCalculationNodeFactory implements InitializingBean {
     ArgumentChecker.notNull(getViewComputationCache(), "viewComputationCache");
     ArgumentChecker.notNull(getFunctionCompilationService(), "functionCompilationService");
     ArgumentChecker.notNull(getFunctionExecutionContext(), "functionExecutionContext");
+    DefaultFudgeMessageStore.registerMetricsStatic(OpenGammaMetricRegistry.getSummaryInstance(), OpenGammaMetricRegistry.getDetailedInstance(), "DefaultFudgeMessageStore");
+    if (isUseWriteBehindSharedCache() || isUseWriteBehindPrivateCache()) {
+      WriteBehindViewComputationCache.registerMetricsStatic(OpenGammaMetricRegistry.getSummaryInstance(), OpenGammaMetricRegistry.getDetailedInstance(),
+          "WriteBehindViewComputationCache");
+    }
   }
 
 }
@@ -23,6 +23,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.Lifecycle;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.UniformReservoir;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.NamedThreadPoolFactory;
 import com.opengamma.util.async.AsynchronousExecution;
@@ -255,12 +258,31 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
    */
   private final Queue<PartialJobEntry> _partialJobs = new ConcurrentLinkedQueue<PartialJobEntry>();
 
+  /**
+   * The number of jobs in the {@link #_runnableJobs} and {@link #_partialJobs} queues, maintained to avoid their costly size operations.
+   */
+  private final AtomicInteger _queuedJobs = new AtomicInteger();
+
+  private Histogram _queueDepth = new Histogram(new UniformReservoir()); // jobs waiting for a node when one is queued (replaced if registerMetrics called)
+
   private ExecutorService _executorService = createExecutorService();
 
   private static ExecutorService createExecutorService() {
     return NamedThreadPoolFactory.newCachedThreadPool("CalcNode", true);
   }
 
+  /**
+   * Registers the queue metrics of this container. The prefix should identify the container, for example by its invoker identifier, so that
+   * the queues of different containers are not aggregated.
+   *
+   * @param summaryRegistry the summary registry, not null
+   * @param detailRegistry the detail registry, not null
+   * @param namePrefix the prefix for the metric names, not null
+   */
+  public void registerMetrics(final MetricRegistry summaryRegistry, final MetricRegistry detailRegistry, final String namePrefix) {
+    _queueDepth = detailRegistry.histogram(namePrefix + ".queueDepth");
+  }
+
   protected Queue<SimpleCalculationNode> getNodes() {
     return _nodes;
   }
@@ -390,6 +412,7 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
           if (node == null) {
             s_logger.debug("Adding job {} to runnable queue", jobexec.getJob().getSpecification().getJobId());
             _runnableJobs.add(jobexec);
+            _queueDepth.update(_queuedJobs.incrementAndGet());
             return;
           }
         }
@@ -413,6 +436,7 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
         if (node == null) {
           s_logger.debug("Adding job {} to partially run queue", jobexec.getEntry().getJob().getSpecification().getJobId());
           _partialJobs.add(jobexec);
+          _queueDepth.update(_queuedJobs.incrementAndGet());
           return;
         }
       }
@@ -671,6 +695,7 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
           }
         }
       }
+      _queuedJobs.decrementAndGet();
     } while (true);
     s_logger.debug("Finished job execution on {}", node.getNodeId());
     onJobExecutionComplete();
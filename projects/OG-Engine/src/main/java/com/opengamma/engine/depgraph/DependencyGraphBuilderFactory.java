@@ -17,6 +17,7 @@ import org.slf4j.LoggerFactory;
 
 import com.opengamma.engine.function.exclusion.FunctionExclusionGroups;
 import com.opengamma.engine.target.digest.TargetDigests;
+import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.MdcAwareThreadPoolExecutor;
 
 /**
@@ -54,6 +55,7 @@ public class DependencyGraphBuilderFactory {
   private FunctionExclusionGroups _functionExclusionGroups;
   private TargetDigests _targetDigests;
   private ComputationTargetCollapser _computationTargetCollapser;
+  private int _partitions = 1;
   private final Executor _executor = createExecutor();
 
   public DependencyGraphBuilderFactory() {
@@ -122,12 +124,39 @@ public class DependencyGraphBuilderFactory {
     return _computationTargetCollapser;
   }
 
+  /**
+   * Sets the number of shards that a full view compilation partitions the requirements of each calculation configuration between. With more than
+   * one, the compiler builds each calculation configuration with a {@link PartitionedDependencyGraphBuilder} instead of a single builder. The default
+   * is one.
+   * 
+   * @param partitions the number of shards, at least one
+   */
+  public void setPartitions(final int partitions) {
+    ArgumentChecker.isTrue(partitions > 0, "partitions");
+    _partitions = partitions;
+  }
+
+  public int getPartitions() {
+    return _partitions;
+  }
+
   public DependencyGraphBuilder newInstance() {
     final DependencyGraphBuilder builder = new DependencyGraphBuilder(getExecutor(), getRunQueueFactory());
     configureBuilder(builder);
     return builder;
   }
 
+  /**
+   * Creates a builder that partitions its requirements between a number of independent shards, each built on its own thread. See
+   * {@link PartitionedDependencyGraphBuilder} for when this is better than a single builder with additional threads.
+   * 
+   * @param partitions the number of shards, at least one
+   * @return the builder, not null
+   */
+  public PartitionedDependencyGraphBuilder newPartitionedInstance(final int partitions) {
+    return new PartitionedDependencyGraphBuilder(this, partitions);
+  }
+
   protected void configureBuilder(final DependencyGraphBuilder builder) {
     builder.setMaxAdditionalThreads(getMaxAdditionalThreadsPerBuilder());
     builder.setDisableFailureReporting(!isEnableFailureReporting());
@@ -0,0 +1,444 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.engine.depgraph.impl.DependencyGraphImpl;
+import com.opengamma.engine.depgraph.impl.DependencyNodeImpl;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.resolver.CompiledFunctionResolver;
+import com.opengamma.engine.marketdata.availability.MarketDataAvailabilityProvider;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Builds a dependency graph by partitioning the requirements between a number of independent {@link DependencyGraphBuilder} instances and merging the
+ * resulting graphs.
+ * <p>
+ * Each requirement is assigned to a shard by the hash of its target reference so that all requirements on a target are resolved by the same builder.
+ * Each shard has its own resolution caches and is built single threaded, so there is no contention between the threads. The price for this is that
+ * any part of the graph needed by more than one shard (for example a curve used by positions in every shard) is resolved once per shard rather than
+ * once overall; the copies are combined when the shard graphs are merged. This works well for large portfolios where most of the graph is specific to
+ * each position, and badly where most of the work is in a shared sub-graph.
+ * <p>
+ * The merge requires that a value specification is produced by the same function regardless of the shard it was resolved in. This holds if the
+ * function repository resolves deterministically, which is also required for a normal build to produce a consistent graph (see
+ * {@link DependencyGraphBuilder#addTarget(ValueRequirement)}).
+ * <p>
+ * As with {@link DependencyGraphBuilder}, only a single calling thread may call the public methods at any one time.
+ */
+public class PartitionedDependencyGraphBuilder {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(PartitionedDependencyGraphBuilder.class);
+
+  private final DependencyGraphBuilder[] _shards;
+  private final Executor _executor;
+  private String _calculationConfigurationName;
+
+  /**
+   * Creates a new builder with shards from the given factory. The shard builders are configured by the factory but do not start any background
+   * threads of their own; the shards other than the first are built on the factory's executor and so share its additional thread allowance.
+   *
+   * @param factory the factory to create the shard builders from, not null
+   * @param partitions the number of shards, at least one
+   */
+  public PartitionedDependencyGraphBuilder(final DependencyGraphBuilderFactory factory, final int partitions) {
+    ArgumentChecker.notNull(factory, "factory");
+    ArgumentChecker.isTrue(partitions > 0, "partitions");
+    _shards = new DependencyGraphBuilder[partitions];
+    for (int i = 0; i < partitions; i++) {
+      _shards[i] = factory.newInstance();
+      _shards[i].setMaxAdditionalThreads(0);
+    }
+    _executor = factory.getExecutor();
+  }
+
+  /**
+   * Returns the number of shards.
+   *
+   * @return the number of shards
+   */
+  public int getPartitions() {
+    return _shards.length;
+  }
+
+  /**
+   * Returns the shard builders, for testing.
+   *
+   * @return the shards, not null
+   */
+  /* package */DependencyGraphBuilder[] getShards() {
+    return _shards;
+  }
+
+  public String getCalculationConfigurationName() {
+    return _calculationConfigurationName;
+  }
+
+  public void setCalculationConfigurationName(final String calculationConfigurationName) {
+    _calculationConfigurationName = calculationConfigurationName;
+    for (final DependencyGraphBuilder shard : _shards) {
+      shard.setCalculationConfigurationName(calculationConfigurationName);
+    }
+  }
+
+  public void setMarketDataAvailabilityProvider(final MarketDataAvailabilityProvider marketDataAvailabilityProvider) {
+    for (final DependencyGraphBuilder shard : _shards) {
+      shard.setMarketDataAvailabilityProvider(marketDataAvailabilityProvider);
+    }
+  }
+
+  public void setFunctionResolver(final CompiledFunctionResolver functionResolver) {
+    for (final DependencyGraphBuilder shard : _shards) {
+      shard.setFunctionResolver(functionResolver);
+    }
+  }
+
+  public void setCompilationContext(final FunctionCompilationContext compilationContext) {
+    for (final DependencyGraphBuilder shard : _shards) {
+      shard.setCompilationContext(compilationContext);
+    }
+  }
+
+  /**
+   * Sets the listener to receive resolution failures. The shards are built concurrently so the listener must be thread safe.
+   *
+   * @param failureListener the listener to use, or null to create synthetic exceptions
+   */
+  public void setResolutionFailureListener(final ResolutionFailureListener failureListener) {
+    for (final DependencyGraphBuilder shard : _shards) {
+      shard.setResolutionFailureListener(failureListener);
+    }
+  }
+
+  /**
+   * Returns the shard that requirements on the given target are assigned to.
+   *
+   * @param requirement the requirement, not null
+   * @return the shard index
+   */
+  /* package */int getShardIndex(final ValueRequirement requirement) {
+    int hc = requirement.getTargetReference().hashCode();
+    hc ^= (hc >>> 20) ^ (hc >>> 12);
+    hc ^= (hc >>> 7) ^ (hc >>> 4);
+    return (hc & Integer.MAX_VALUE) % _shards.length;
+  }
+
+  /**
+   * Adds a target requirement to the graph. The requirement is queued in its shard; no resolution takes place until {@link #getDependencyGraph} is
+   * called.
+   *
+   * @param requirement requirement to add, not null
+   */
+  public void addTarget(final ValueRequirement requirement) {
+    ArgumentChecker.notNull(requirement, "requirement");
+    _shards[getShardIndex(requirement)].addTarget(requirement);
+  }
+
+  /**
+   * Adds target requirements to the graph. The requirements are queued in their shards; no resolution takes place until {@link #getDependencyGraph} is
+   * called.
+   *
+   * @param requirements requirements to add, not null and not containing nulls
+   */
+  public void addTarget(final Collection<ValueRequirement> requirements) {
+    ArgumentChecker.noNulls(requirements, "requirements");
+    final List<List<ValueRequirement>> partitioned = new ArrayList<List<ValueRequirement>>(_shards.length);
+    for (int i = 0; i < _shards.length; i++) {
+      partitioned.add(new ArrayList<ValueRequirement>(requirements.size() / _shards.length + 1));
+    }
+    for (final ValueRequirement requirement : requirements) {
+      partitioned.get(getShardIndex(requirement)).add(requirement);
+    }
+    for (int i = 0; i < _shards.length; i++) {
+      if (!partitioned.get(i).isEmpty()) {
+        _shards[i].addTarget(partitioned.get(i));
+      }
+    }
+  }
+
+  /**
+   * Cancels the build of all shards.
+   *
+   * @param mayInterruptIfRunning ignored
+   * @return true if the build was cancelled
+   */
+  public boolean cancel(final boolean mayInterruptIfRunning) {
+    for (final DependencyGraphBuilder shard : _shards) {
+      shard.cancel(mayInterruptIfRunning);
+    }
+    return true;
+  }
+
+  /**
+   * Tests if the build of any shard has been cancelled.
+   *
+   * @return true if the build was cancelled
+   */
+  public boolean isCancelled() {
+    for (final DependencyGraphBuilder shard : _shards) {
+      if (shard.isCancelled()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Cancels the shard builds after one has failed so that the executor threads are not left building graphs that will never be used. Shards that
+   * have not started are removed from the executor's queue, those that are running are abandoned by their builders.
+   */
+  private void cancel(final List<FutureTask<DependencyGraph>> tasks) {
+    cancel(true);
+    for (final FutureTask<DependencyGraph> task : tasks) {
+      task.cancel(true);
+    }
+  }
+
+  /**
+   * Builds the shards in parallel and returns the merged graph. The calling thread builds the first shard and then blocks until the others are
+   * complete. If any shard fails, the others are cancelled.
+   *
+   * @return the graph, not null
+   */
+  public DependencyGraph getDependencyGraph() {
+    final List<FutureTask<DependencyGraph>> tasks = new ArrayList<FutureTask<DependencyGraph>>(_shards.length - 1);
+    for (int i = 1; i < _shards.length; i++) {
+      final DependencyGraphBuilder shard = _shards[i];
+      final FutureTask<DependencyGraph> task = new FutureTask<DependencyGraph>(new Callable<DependencyGraph>() {
+        @Override
+        public DependencyGraph call() {
+          return shard.getDependencyGraph();
+        }
+      });
+      tasks.add(task);
+      _executor.execute(task);
+    }
+    final List<DependencyGraph> graphs = new ArrayList<DependencyGraph>(_shards.length);
+    try {
+      graphs.add(_shards[0].getDependencyGraph());
+    } catch (final RuntimeException e) {
+      cancel(tasks);
+      throw e;
+    }
+    for (final FutureTask<DependencyGraph> task : tasks) {
+      try {
+        graphs.add(task.get());
+      } catch (final InterruptedException e) {
+        cancel(tasks);
+        throw new OpenGammaRuntimeException("Interrupted", e);
+      } catch (final ExecutionException e) {
+        cancel(tasks);
+        throw new OpenGammaRuntimeException("Couldn't build dependency graph shard", e.getCause());
+      } catch (final CancellationException e) {
+        cancel(tasks);
+        throw e;
+      }
+    }
+    final long start = System.nanoTime();
+    final DependencyGraph graph = merge(getCalculationConfigurationName(), graphs);
+    s_logger.info("Merged {} shards into graph of {} nodes in {}ms", new Object[] {_shards.length, graph.getSize(), (System.nanoTime() - start) / 1000000 });
+    return graph;
+  }
+
+  /**
+   * Returns a map of the originally requested value requirements to the value specifications that were put into the graph as terminal outputs. Any
+   * unsatisfied requirements will be absent from the map.
+   *
+   * @return the map of requirements to value specifications, not null
+   */
+  public Map<ValueRequirement, ValueSpecification> getValueRequirementMapping() {
+    final Map<ValueRequirement, ValueSpecification> result = new HashMap<ValueRequirement, ValueSpecification>();
+    for (final DependencyGraphBuilder shard : _shards) {
+      result.putAll(shard.getValueRequirementMapping());
+    }
+    return result;
+  }
+
+  /**
+   * Returns the set of exceptions that may have prevented graph construction, combined from all of the shards.
+   *
+   * @return the set of exceptions that were thrown by the building process, null for none
+   */
+  public Map<Throwable, Integer> getExceptions() {
+    Map<Throwable, Integer> result = null;
+    for (final DependencyGraphBuilder shard : _shards) {
+      final Map<Throwable, Integer> exceptions = shard.getExceptions();
+      if (exceptions != null) {
+        if (result == null) {
+          result = new HashMap<Throwable, Integer>();
+        }
+        for (final Map.Entry<Throwable, Integer> exception : exceptions.entrySet()) {
+          final Integer count = result.get(exception.getKey());
+          result.put(exception.getKey(), (count == null) ? exception.getValue() : (count + exception.getValue()));
+        }
+      }
+    }
+    return result;
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * A node in the merged graph, combining the equivalent nodes from the shard graphs.
+   */
+  private static final class MergedNode {
+
+    private final DependencyNode _first;
+    private final Set<ValueSpecification> _outputs = new LinkedHashSet<ValueSpecification>();
+    private final Set<ValueSpecification> _inputs = new LinkedHashSet<ValueSpecification>();
+    private MergedNode _mergedInto;
+    private DependencyNode _node;
+    private boolean _visiting;
+    private boolean _consumed;
+
+    public MergedNode(final DependencyNode node) {
+      _first = node;
+      add(node);
+    }
+
+    public void add(final DependencyNode node) {
+      if (node != _first) {
+        if (!_first.getFunction().equals(node.getFunction()) || !_first.getTarget().equals(node.getTarget())) {
+          throw new OpenGammaRuntimeException("Shards resolved " + node.getOutputValue(0) + " inconsistently - " + _first.getFunction() + " and " + node.getFunction());
+        }
+      }
+      int count = node.getOutputCount();
+      for (int i = 0; i < count; i++) {
+        _outputs.add(node.getOutputValue(i));
+      }
+      count = node.getInputCount();
+      for (int i = 0; i < count; i++) {
+        _inputs.add(node.getInputValue(i));
+      }
+    }
+
+  }
+
+  private static void absorb(final MergedNode into, final MergedNode from, final Map<ValueSpecification, MergedNode> producers) {
+    if (!into._first.getFunction().equals(from._first.getFunction()) || !into._first.getTarget().equals(from._first.getTarget())) {
+      throw new OpenGammaRuntimeException("Shards resolved " + from._first.getOutputValue(0) + " inconsistently - " + into._first.getFunction() + " and " + from._first.getFunction());
+    }
+    into._outputs.addAll(from._outputs);
+    into._inputs.addAll(from._inputs);
+    for (final ValueSpecification output : from._outputs) {
+      producers.put(output, into);
+    }
+    from._mergedInto = into;
+  }
+
+  private static DependencyNode build(final MergedNode merged, final Map<ValueSpecification, MergedNode> producers) {
+    if (merged._node != null) {
+      return merged._node;
+    }
+    if (merged._visiting) {
+      throw new OpenGammaRuntimeException("Merged shard graphs contain a cycle at " + merged._first);
+    }
+    merged._visiting = true;
+    final ValueSpecification[] inputValues = merged._inputs.toArray(new ValueSpecification[merged._inputs.size()]);
+    final DependencyNode[] inputNodes = new DependencyNode[inputValues.length];
+    for (int i = 0; i < inputValues.length; i++) {
+      final MergedNode input = producers.get(inputValues[i]);
+      if (input == null) {
+        throw new OpenGammaRuntimeException("No producer for " + inputValues[i] + " in merged shard graphs");
+      }
+      input._consumed = true;
+      inputNodes[i] = build(input, producers);
+    }
+    merged._node = DependencyNodeImpl.of(merged._first.getFunction(), merged._first.getTarget(), merged._outputs.toArray(new ValueSpecification[merged._outputs.size()]), inputValues,
+        inputNodes);
+    merged._visiting = false;
+    return merged._node;
+  }
+
+  /**
+   * Merges graphs built independently into a single graph. Nodes that produce any common value are combined into a single node producing the union
+   * of their outputs, and consuming the union of their inputs.
+   *
+   * @param calculationConfigurationName the name of the calculation configuration
+   * @param graphs the graphs to merge, not null
+   * @return the merged graph, not null
+   */
+  /* package */static DependencyGraph merge(final String calculationConfigurationName, final Collection<DependencyGraph> graphs) {
+    if (graphs.size() == 1) {
+      return graphs.iterator().next();
+    }
+    int size = 0;
+    for (final DependencyGraph graph : graphs) {
+      size += graph.getSize();
+    }
+    final Map<ValueSpecification, MergedNode> producers = new HashMap<ValueSpecification, MergedNode>(size * 2);
+    final List<MergedNode> mergedNodes = new ArrayList<MergedNode>(size);
+    final Map<ValueSpecification, Set<ValueRequirement>> terminalOutputs = new HashMap<ValueSpecification, Set<ValueRequirement>>();
+    for (final DependencyGraph graph : graphs) {
+      final Iterator<DependencyNode> itr = graph.nodeIterator();
+      while (itr.hasNext()) {
+        final DependencyNode node = itr.next();
+        MergedNode merged = null;
+        final int count = node.getOutputCount();
+        for (int i = 0; i < count; i++) {
+          final MergedNode existing = producers.get(node.getOutputValue(i));
+          if ((existing != null) && (existing != merged)) {
+            if (merged == null) {
+              merged = existing;
+              merged.add(node);
+            } else {
+              absorb(merged, existing, producers);
+            }
+          }
+        }
+        if (merged == null) {
+          merged = new MergedNode(node);
+          mergedNodes.add(merged);
+        }
+        for (final ValueSpecification output : merged._outputs) {
+          producers.put(output, merged);
+        }
+      }
+      for (final Map.Entry<ValueSpecification, Set<ValueRequirement>> terminal : graph.getTerminalOutputs().entrySet()) {
+        final Set<ValueRequirement> requirements = terminalOutputs.get(terminal.getKey());
+        if (requirements == null) {
+          terminalOutputs.put(terminal.getKey(), new LinkedHashSet<ValueRequirement>(terminal.getValue()));
+        } else {
+          requirements.addAll(terminal.getValue());
+        }
+      }
+    }
+    size = 0;
+    for (final MergedNode merged : mergedNodes) {
+      if (merged._mergedInto == null) {
+        build(merged, producers);
+        size++;
+      }
+    }
+    final List<DependencyNode> roots = new ArrayList<DependencyNode>();
+    for (final MergedNode merged : mergedNodes) {
+      if ((merged._mergedInto == null) && !merged._consumed) {
+        roots.add(merged._node);
+      }
+    }
+    return new DependencyGraphImpl(calculationConfigurationName, roots, size, terminalOutputs);
+  }
+
+}
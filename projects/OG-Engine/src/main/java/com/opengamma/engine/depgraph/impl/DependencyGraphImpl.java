@@ -61,6 +61,11 @@ public class DependencyGraphImpl implements DependencyGraph, Serializable {
    */
   private volatile int _hashCode;
 
+  /**
+   * The index of dependent nodes, built when first requested.
+   */
+  private transient volatile DependentNodeIndex _dependentNodeIndex;
+
   /**
    * Creates a new dependency graph for the named configuration with given roots and terminal outputs.
    * 
@@ -250,6 +255,48 @@ public class DependencyGraphImpl implements DependencyGraph, Serializable {
     return marketData;
   }
 
+  /**
+   * Returns the index of the nodes that depend on each node in a graph.
+   * <p>
+   * The index for a {@link DependencyGraphImpl} is built on first use and kept with the graph, so the cost is paid once for each compilation rather than
+   * on each cycle. For other implementations a new index is built on each call.
+   * 
+   * @param graph the graph to query, not null
+   * @return the index, not null
+   */
+  public static DependentNodeIndex getDependentNodeIndex(final DependencyGraph graph) {
+    if (graph instanceof DependencyGraphImpl) {
+      final DependencyGraphImpl graphImpl = (DependencyGraphImpl) graph;
+      DependentNodeIndex index = graphImpl._dependentNodeIndex;
+      if (index == null) {
+        // Building twice from concurrent callers is harmless
+        index = DependentNodeIndex.of(graph);
+        graphImpl._dependentNodeIndex = index;
+      }
+      return index;
+    } else {
+      return DependentNodeIndex.of(graph);
+    }
+  }
+
+  /**
+   * Creates a graph containing part of another graph, for execution against values that are already available.
+   * <p>
+   * The nodes reachable from the given roots are not counted; the caller supplies the number of nodes that will be executed, which is the nodes
+   * reachable from the roots without passing through a value the executor is told is already available. The terminal outputs of the original graph
+   * are shared with the new graph so that any that are produced by the executed nodes are reported as results.
+   * 
+   * @param graph the original graph, not null
+   * @param roots the roots of the part to execute, not null and not containing null
+   * @param size the number of nodes that will be executed
+   * @return the graph, not null
+   */
+  public static DependencyGraph subGraph(final DependencyGraph graph, final Collection<DependencyNode> roots, final int size) {
+    ArgumentChecker.notNull(graph, "graph");
+    ArgumentChecker.noNulls(roots, "roots");
+    return new DependencyGraphImpl(graph.getCalculationConfigurationName(), roots.toArray(new DependencyNode[roots.size()]), size, graph.getTerminalOutputs());
+  }
+
   @Override
   public String toString() {
     return "DependencyGraph[calcConf=" + getCalculationConfigurationName() + ",nodes=" + getSize() + ",terminals=" + getTerminalOutputs().size() + "]";
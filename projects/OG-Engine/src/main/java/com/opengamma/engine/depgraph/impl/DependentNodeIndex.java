@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.function.MarketDataSourcingFunction;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Reverse adjacency index of a dependency graph, giving the nodes that consume the outputs of each node.
+ * <p>
+ * A {@link DependencyNode} only references its inputs, so finding what is affected by a change means walking the whole graph. With this index the
+ * nodes affected by a set of changed nodes can be found in time proportional to the number affected. Use
+ * {@link DependencyGraphImpl#getDependentNodeIndex} to obtain the index for a graph; it is built once and kept with the graph.
+ */
+public final class DependentNodeIndex {
+
+  private static final DependencyNode[] NO_NODES = new DependencyNode[0];
+
+  private final DependencyNode[] _nodes;
+  private final DependencyNode[] _marketDataNodes;
+  private final Map<DependencyNode, DependencyNode[]> _dependents;
+  private final Map<ValueSpecification, DependencyNode> _producers;
+
+  private DependentNodeIndex(final DependencyNode[] nodes, final DependencyNode[] marketDataNodes, final Map<DependencyNode, DependencyNode[]> dependents,
+      final Map<ValueSpecification, DependencyNode> producers) {
+    _nodes = nodes;
+    _marketDataNodes = marketDataNodes;
+    _dependents = dependents;
+    _producers = producers;
+  }
+
+  /**
+   * Builds the index for a graph.
+   *
+   * @param graph the graph to index, not null
+   * @return the index, not null
+   */
+  public static DependentNodeIndex of(final DependencyGraph graph) {
+    ArgumentChecker.notNull(graph, "graph");
+    final int size = graph.getSize();
+    final List<DependencyNode> nodes = new ArrayList<DependencyNode>(size);
+    final List<DependencyNode> marketDataNodes = new ArrayList<DependencyNode>();
+    final Map<DependencyNode, List<DependencyNode>> dependents = Maps.newHashMapWithExpectedSize(size);
+    final Map<ValueSpecification, DependencyNode> producers = Maps.newHashMapWithExpectedSize(size);
+    final Iterator<DependencyNode> itr = graph.nodeIterator();
+    while (itr.hasNext()) {
+      final DependencyNode node = itr.next();
+      nodes.add(node);
+      if (MarketDataSourcingFunction.UNIQUE_ID.equals(node.getFunction().getFunctionId())) {
+        marketDataNodes.add(node);
+      }
+      int count = node.getOutputCount();
+      for (int i = 0; i < count; i++) {
+        producers.put(node.getOutputValue(i), node);
+      }
+      count = node.getInputCount();
+      for (int i = 0; i < count; i++) {
+        final DependencyNode input = node.getInputNode(i);
+        List<DependencyNode> inputDependents = dependents.get(input);
+        if (inputDependents == null) {
+          inputDependents = new ArrayList<DependencyNode>(2);
+          dependents.put(input, inputDependents);
+        } else if (inputDependents.get(inputDependents.size() - 1) == node) {
+          // Node consumes more than one output of the input; other repeats are harmless as the closure is a set
+          continue;
+        }
+        inputDependents.add(node);
+      }
+    }
+    final Map<DependencyNode, DependencyNode[]> dependentArrays = Maps.newHashMapWithExpectedSize(dependents.size());
+    for (final Map.Entry<DependencyNode, List<DependencyNode>> entry : dependents.entrySet()) {
+      dependentArrays.put(entry.getKey(), entry.getValue().toArray(new DependencyNode[entry.getValue().size()]));
+    }
+    return new DependentNodeIndex(nodes.toArray(new DependencyNode[nodes.size()]), marketDataNodes.toArray(new DependencyNode[marketDataNodes.size()]), dependentArrays,
+        producers);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns all of the nodes in the graph.
+   *
+   * @return the nodes, in execution order, not null. The array must not be modified
+   */
+  public DependencyNode[] getNodes() {
+    return _nodes;
+  }
+
+  /**
+   * Returns the nodes in the graph that source market data.
+   *
+   * @return the market data nodes, not null. The array must not be modified
+   */
+  public DependencyNode[] getMarketDataNodes() {
+    return _marketDataNodes;
+  }
+
+  /**
+   * Returns the nodes which consume one or more outputs of a node.
+   *
+   * @param node the node to query, not null
+   * @return the dependent nodes, empty for a root of the graph, not null. The array must not be modified
+   */
+  public DependencyNode[] getDependents(final DependencyNode node) {
+    final DependencyNode[] dependents = _dependents.get(node);
+    return (dependents != null) ? dependents : NO_NODES;
+  }
+
+  /**
+   * Returns the node which produces a value.
+   *
+   * @param value the value to query, not null
+   * @return the producing node, or null if the value is not produced by the graph
+   */
+  public DependencyNode getProducer(final ValueSpecification value) {
+    return _producers.get(value);
+  }
+
+  /**
+   * Returns the given nodes and all of the nodes which depend on them, directly or indirectly.
+   *
+   * @param nodes the nodes to start from, not null
+   * @return the closure, not null
+   */
+  public Set<DependencyNode> getDependentClosure(final Collection<DependencyNode> nodes) {
+    final Set<DependencyNode> closure = new HashSet<DependencyNode>();
+    final Deque<DependencyNode> pending = new ArrayDeque<DependencyNode>();
+    for (final DependencyNode node : nodes) {
+      if (closure.add(node)) {
+        pending.add(node);
+      }
+    }
+    while (!pending.isEmpty()) {
+      for (final DependencyNode dependent : getDependents(pending.poll())) {
+        if (closure.add(dependent)) {
+          pending.add(dependent);
+        }
+      }
+    }
+    return closure;
+  }
+
+  @Override
+  public String toString() {
+    return "DependentNodeIndex[nodes=" + _nodes.length + ", marketData=" + _marketDataNodes.length + "]";
+  }
+
+}
@@ -137,6 +137,25 @@ public class MultipleNodeExecutorFactory extends PlanBasedGraphExecutorFactory i
     return _basePlanner.getMaximumConcurrency();
   }
 
+  /**
+   * Sets the number of calculation nodes that the planner schedules jobs across.
+   * 
+   * @param calculationNodes the number of nodes, or 0 to choose job tails by the concurrency limit
+   * @see MultipleNodeExecutionPlanner#setCalculationNodes
+   */
+  public void setCalculationNodes(final int calculationNodes) {
+    _basePlanner.setCalculationNodes(calculationNodes);
+  }
+
+  /**
+   * Returns the number of calculation nodes that the planner schedules jobs across.
+   * 
+   * @return the number of nodes, or 0 if job tails are chosen by the concurrency limit
+   */
+  public int getCalculationNodes() {
+    return _basePlanner.getCalculationNodes();
+  }
+
   public void setFunctionCosts(final FunctionCosts functionCosts) {
     _basePlanner.setFunctionCosts(functionCosts);
   }
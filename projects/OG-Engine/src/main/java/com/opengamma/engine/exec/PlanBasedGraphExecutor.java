@@ -7,12 +7,16 @@ package com.opengamma.engine.exec;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.exec.plan.GraphExecutionPlan;
 import com.opengamma.engine.exec.plan.GraphExecutionPlanner;
 import com.opengamma.engine.function.FunctionParameters;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.cycle.CycleTimeline;
 import com.opengamma.engine.view.cycle.SingleComputationCycle;
 import com.opengamma.util.ArgumentChecker;
 
@@ -21,6 +25,8 @@ import com.opengamma.util.ArgumentChecker;
  */
 public class PlanBasedGraphExecutor implements DependencyGraphExecutor {
 
+  private static Timer s_planTime = new Timer(); // time to plan each graph (replaced if registerMetrics called)
+
   private final GraphExecutionPlanner _planner;
   private final SingleComputationCycle _cycle;
 
@@ -31,6 +37,17 @@ public class PlanBasedGraphExecutor implements DependencyGraphExecutor {
     _cycle = cycle;
   }
 
+  /**
+   * Registers the planning metrics, aggregated over all instances.
+   *
+   * @param summaryRegistry the summary registry, not null
+   * @param detailRegistry the detail registry, not null
+   * @param namePrefix the prefix for the metric names, not null
+   */
+  public static void registerMetricsStatic(final MetricRegistry summaryRegistry, final MetricRegistry detailRegistry, final String namePrefix) {
+    s_planTime = summaryRegistry.timer(namePrefix + ".plan");
+  }
+
   protected GraphExecutionPlanner getPlanner() {
     return _planner;
   }
@@ -43,7 +60,14 @@ public class PlanBasedGraphExecutor implements DependencyGraphExecutor {
 
   @Override
   public DependencyGraphExecutionFuture execute(final DependencyGraph graph, final Set<ValueSpecification> sharedValues, final Map<ValueSpecification, FunctionParameters> parameters) {
+    final long start = System.nanoTime();
     final GraphExecutionPlan plan = getPlanner().createPlan(graph, getCycle().getViewProcessContext().getExecutionLogModeSource(), getCycle().getFunctionInitId(), sharedValues, parameters);
+    final long end = System.nanoTime();
+    s_planTime.update(end - start, TimeUnit.NANOSECONDS);
+    final CycleTimeline timeline = getCycle().getTimeline();
+    if (timeline != null) {
+      timeline.record("plan", graph.getCalculationConfigurationName(), start, end);
+    }
     final PlanExecutor executor = new PlanExecutor(getCycle(), plan);
     executor.start();
     return executor;
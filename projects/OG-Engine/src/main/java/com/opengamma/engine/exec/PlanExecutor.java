@@ -24,7 +24,9 @@ import com.opengamma.engine.calcnode.JobResultReceiver;
 import com.opengamma.engine.exec.plan.ExecutingGraph;
 import com.opengamma.engine.exec.plan.GraphExecutionPlan;
 import com.opengamma.engine.exec.stats.GraphExecutorStatisticsGatherer;
+import com.opengamma.engine.view.cycle.CycleTimeline;
 import com.opengamma.engine.view.cycle.SingleComputationCycle;
+import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.async.Cancelable;
 
@@ -38,6 +40,7 @@ public class PlanExecutor implements JobResultReceiver, Cancelable, DependencyGr
   private static final class ExecutingJob implements Cancelable {
 
     private final CalculationJob _job;
+    private final long _submitted = System.nanoTime();
     private volatile Cancelable _cancel;
 
     public ExecutingJob(final CalculationJob job) {
@@ -48,6 +51,10 @@ public class PlanExecutor implements JobResultReceiver, Cancelable, DependencyGr
       return _job;
     }
 
+    public long getSubmitted() {
+      return _submitted;
+    }
+
     public void setCancel(final Cancelable cancel) {
       _cancel = cancel;
     }
@@ -89,11 +96,16 @@ public class PlanExecutor implements JobResultReceiver, Cancelable, DependencyGr
     ArgumentChecker.notNull(cycle, "cycle");
     ArgumentChecker.notNull(plan, "plan");
     _cycle = cycle;
-    _graph = plan.createExecution(cycle.getUniqueId(), cycle.getValuationTime(), cycle.getVersionCorrection());
+    _graph = plan.createExecution(cycle.getUniqueId(), cycle.getValuationTime(), cycle.getVersionCorrection(), getMarketDataSource(cycle));
     _state = State.NOT_STARTED;
     plan.reportStatistics(getStatisticsGatherer());
   }
 
+  private static String getMarketDataSource(final SingleComputationCycle cycle) {
+    final ViewCycleExecutionOptions options = cycle.getExecutionOptions();
+    return (options != null) ? options.getMarketDataSpecifications().toString() : null;
+  }
+
   protected SingleComputationCycle getCycle() {
     return _cycle;
   }
@@ -249,6 +261,12 @@ public class PlanExecutor implements JobResultReceiver, Cancelable, DependencyGr
       _nodeCount += result.getResultItems().size();
       _executionTime += result.getDuration();
     }
+    final CycleTimeline timeline = getCycle().getTimeline();
+    if (timeline != null) {
+      final long received = System.nanoTime();
+      timeline.record("job", getGraph().getCalculationConfiguration(), job.getSubmitted(), received);
+      timeline.record("nodeExecute", result.getComputeNodeId(), received - result.getDuration(), received);
+    }
     final ExecutingGraph graph = getGraph();
     _notifyLock.incrementAndGet();
     graph.jobCompleted(result.getSpecification());
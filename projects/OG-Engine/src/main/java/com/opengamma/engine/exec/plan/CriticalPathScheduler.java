@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.exec.plan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Assigns graph fragments to calculation nodes by critical path list scheduling, deciding which fragments become job tails.
+ * <p>
+ * Each fragment is given a priority equal to the estimated cost of the longest path from its start to the end of the graph, including the cost of
+ * passing values between nodes. Fragments whose inputs have been scheduled are taken in priority order and placed on the node that would finish them
+ * earliest. Reading a value produced on another node is part of the time the reading fragment takes to execute, as it is for a calculation node, and
+ * is charged once; values passed between fragments on the same node are free, so the placement trades waiting for a busy node against moving the data.
+ * <p>
+ * A fragment is made a tail of its inputs when it is placed on the same node as all of them and they share an execution identifier. Other fragments
+ * are given a new execution identifier and will be dispatched independently, as in the graph coloring used by {@link MultipleNodeExecutionPlanner}.
+ */
+/* package */final class CriticalPathScheduler {
+
+  private final int _calculationNodes;
+  private final boolean _allowTails;
+  private final Map<GraphFragment, Integer> _index;
+  private final GraphFragment[] _fragments;
+  private final long[] _priority;
+  private final long[] _finish;
+  private final int[] _node;
+  private final int[] _unscheduledInputs;
+  private final long[] _nodeFree;
+  private int _nextExecutionId;
+  private long _makespan;
+
+  /**
+   * Creates a scheduler.
+   *
+   * @param fragments the fragments to schedule, not null
+   * @param calculationNodes the number of calculation nodes to schedule across, more than 0
+   * @param allowTails whether fragments may be made tails of their inputs
+   */
+  public CriticalPathScheduler(final Collection<GraphFragment> fragments, final int calculationNodes, final boolean allowTails) {
+    _calculationNodes = calculationNodes;
+    _allowTails = allowTails;
+    final int count = fragments.size();
+    _index = Maps.newHashMapWithExpectedSize(count);
+    _fragments = fragments.toArray(new GraphFragment[count]);
+    for (int i = 0; i < count; i++) {
+      _index.put(_fragments[i], i);
+    }
+    _priority = new long[count];
+    _finish = new long[count];
+    _node = new int[count];
+    _unscheduledInputs = new int[count];
+    _nodeFree = new long[calculationNodes];
+  }
+
+  /**
+   * Returns the estimated time to execute the fragment, including the cost of reading its inputs but excluding any data it reads from the given node.
+   */
+  private long getCost(final GraphFragment fragment, final int node) {
+    long cost = fragment.getInvocationCost() + fragment.getDataOutputCost() + fragment.getDataInputCost();
+    if (node >= 0) {
+      for (final GraphFragment input : fragment.getInputFragments()) {
+        if (_node[_index.get(input)] == node) {
+          cost -= fragment.getDataInputCost(input);
+        }
+      }
+    }
+    return cost;
+  }
+
+  /**
+   * Calculates the priority of each fragment as the cost of the longest path to the end of the graph, assuming that every value passes between nodes.
+   * The cost of passing a value is already part of the cost of the fragment that reads it.
+   */
+  private void calculatePriorities() {
+    final int count = _fragments.length;
+    final int[] unvisitedOutputs = new int[count];
+    final List<Integer> pending = new ArrayList<Integer>();
+    for (int i = 0; i < count; i++) {
+      unvisitedOutputs[i] = _fragments[i].getOutputFragments().size();
+      if (unvisitedOutputs[i] == 0) {
+        pending.add(i);
+      }
+    }
+    while (!pending.isEmpty()) {
+      final int i = pending.remove(pending.size() - 1);
+      final GraphFragment fragment = _fragments[i];
+      long longest = 0;
+      for (final GraphFragment output : fragment.getOutputFragments()) {
+        final long path = _priority[_index.get(output)];
+        if (path > longest) {
+          longest = path;
+        }
+      }
+      _priority[i] = getCost(fragment, -1) + longest;
+      for (final GraphFragment input : fragment.getInputFragments()) {
+        final int j = _index.get(input);
+        if (--unvisitedOutputs[j] == 0) {
+          pending.add(j);
+        }
+      }
+    }
+  }
+
+  private void place(final int i) {
+    final GraphFragment fragment = _fragments[i];
+    int bestNode = 0;
+    long bestFinish = Long.MAX_VALUE;
+    for (int node = 0; node < _calculationNodes; node++) {
+      long start = _nodeFree[node];
+      for (final GraphFragment input : fragment.getInputFragments()) {
+        final long available = _finish[_index.get(input)];
+        if (available > start) {
+          start = available;
+        }
+      }
+      final long finish = start + getCost(fragment, node);
+      if (finish < bestFinish) {
+        bestNode = node;
+        bestFinish = finish;
+      }
+    }
+    _node[i] = bestNode;
+    _finish[i] = bestFinish;
+    _nodeFree[bestNode] = bestFinish;
+    if (bestFinish > _makespan) {
+      _makespan = bestFinish;
+    }
+    if (_allowTails && !fragment.getInputFragments().isEmpty()) {
+      int executionId = -1;
+      for (final GraphFragment input : fragment.getInputFragments()) {
+        if ((_node[_index.get(input)] != bestNode) || ((executionId >= 0) && (input.getExecutionId() != executionId))) {
+          executionId = -1;
+          break;
+        }
+        executionId = input.getExecutionId();
+      }
+      if (executionId >= 0) {
+        fragment.setExecutionId(executionId);
+        for (final GraphFragment input : fragment.getInputFragments()) {
+          input.addTail(fragment);
+        }
+        return;
+      }
+    }
+    fragment.setExecutionId(_nextExecutionId++);
+  }
+
+  /**
+   * Schedules the fragments, setting the execution identifiers and tails.
+   *
+   * @return the estimated time to execute all of the fragments, in nanoseconds
+   */
+  public long schedule() {
+    calculatePriorities();
+    final PriorityQueue<Integer> ready = new PriorityQueue<Integer>(Math.max(_fragments.length, 1), new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer a, final Integer b) {
+        return Long.compare(_priority[b], _priority[a]);
+      }
+    });
+    Arrays.fill(_node, -1);
+    for (int i = 0; i < _fragments.length; i++) {
+      _unscheduledInputs[i] = _fragments[i].getInputFragments().size();
+      if (_unscheduledInputs[i] == 0) {
+        ready.add(i);
+      }
+    }
+    while (!ready.isEmpty()) {
+      final int i = ready.poll();
+      place(i);
+      for (final GraphFragment output : _fragments[i].getOutputFragments()) {
+        final int j = _index.get(output);
+        if (--_unscheduledInputs[j] == 0) {
+          ready.add(j);
+        }
+      }
+    }
+    return _makespan;
+  }
+
+}
@@ -78,6 +78,7 @@ public class ExecutingGraph {
   private final UniqueId _cycleId;
   private final Instant _valuationTime;
   private final VersionCorrection _resolverVersionCorrection;
+  private final String _marketDataSource;
   private final List<PlannedJob> _executable;
   private final Map<PlannedJob, BlockedJobInfo> _blocked;
   private final Map<CalculationJobSpecification, BlockedJobInfo[]> _executing;
@@ -91,6 +92,20 @@ public class ExecutingGraph {
    * @param resolverVersionCorrection the resolution time stamp, not null
    */
   protected ExecutingGraph(final GraphExecutionPlan plan, final UniqueId cycleId, final Instant valuationTime, final VersionCorrection resolverVersionCorrection) {
+    this(plan, cycleId, valuationTime, resolverVersionCorrection, null);
+  }
+
+  /**
+   * Creates a new execution state.
+   * 
+   * @param plan the owning execution plan, not null
+   * @param cycleId the cycle identifier for job specifications, not null
+   * @param valuationTime the valuation time for job specifications, not null
+   * @param resolverVersionCorrection the resolution time stamp, not null
+   * @param marketDataSource the description of the cycle's market data for job specifications, null if not known
+   */
+  protected ExecutingGraph(final GraphExecutionPlan plan, final UniqueId cycleId, final Instant valuationTime, final VersionCorrection resolverVersionCorrection,
+      final String marketDataSource) {
     ArgumentChecker.notNull(plan, "plan");
     ArgumentChecker.notNull(cycleId, "cycleId");
     ArgumentChecker.notNull(valuationTime, "valuationTime");
@@ -99,6 +114,7 @@ public class ExecutingGraph {
     _cycleId = cycleId;
     _valuationTime = valuationTime;
     _resolverVersionCorrection = resolverVersionCorrection;
+    _marketDataSource = marketDataSource;
     _executable = new ArrayList<PlannedJob>(plan.getLeafJobs());
     _blocked = new HashMap<PlannedJob, BlockedJobInfo>();
     _executing = new HashMap<CalculationJobSpecification, BlockedJobInfo[]>();
@@ -128,6 +144,10 @@ public class ExecutingGraph {
     return _resolverVersionCorrection;
   }
 
+  public String getMarketDataSource() {
+    return _marketDataSource;
+  }
+
   /**
    * Allocates a job specification.
    * 
@@ -136,7 +156,7 @@ public class ExecutingGraph {
   protected CalculationJobSpecification createJobSpecification() {
     // TODO: Should probably inject a job identifier source - if there are multiple view processor host processes then a static one like this
     // won't give us unique identifiers - we need to partition the identifier space amongst the processes that will use a common calc node pool
-    return new CalculationJobSpecification(getCycleId(), getCalculationConfiguration(), getValuationTime(), JobIdSource.getId());
+    return new CalculationJobSpecification(getCycleId(), getCalculationConfiguration(), getValuationTime(), JobIdSource.getId(), getMarketDataSource());
   }
 
   /**
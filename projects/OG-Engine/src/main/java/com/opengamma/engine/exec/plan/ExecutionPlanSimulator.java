@@ -0,0 +1,321 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.exec.plan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.opengamma.engine.cache.CacheSelectHint;
+import com.opengamma.engine.calcnode.CalculationJobItem;
+import com.opengamma.engine.calcnode.stats.FunctionCostsPerConfiguration;
+import com.opengamma.engine.calcnode.stats.FunctionInvocationStatistics;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.function.FunctionParameters;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.impl.ExecutionLogModeSource;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Estimates the time taken to execute a plan on a number of calculation nodes, so that planners can be compared offline.
+ * <p>
+ * The costs of each job item come from recorded function statistics, for example a {@link com.opengamma.engine.calcnode.stats.FunctionCosts} instance
+ * backed by the function costs master of a running system, and the graphs can be any recorded for the view. Jobs are dispatched as by
+ * {@link ExecutingGraph}: leaf jobs are available at the start, other jobs when all of their inputs have completed, and each free node takes the most
+ * recently available job. A tail job is sent with the last of its input jobs to be dispatched and runs on the same node once its inputs have completed.
+ * Each node executes one job at a time. A job takes the invocation cost of its items plus the cost of reading and writing those values that the cache
+ * select hint places in the shared cache.
+ */
+public class ExecutionPlanSimulator {
+
+  private final FunctionCostsPerConfiguration _costs;
+  private final int _calculationNodes;
+
+  /**
+   * Creates a simulator.
+   *
+   * @param costs the recorded function costs for the calculation configuration, not null
+   * @param calculationNodes the number of calculation nodes, more than 0
+   */
+  public ExecutionPlanSimulator(final FunctionCostsPerConfiguration costs, final int calculationNodes) {
+    ArgumentChecker.notNull(costs, "costs");
+    ArgumentChecker.notNegativeOrZero(calculationNodes, "calculationNodes");
+    _costs = costs;
+    _calculationNodes = calculationNodes;
+  }
+
+  /**
+   * The outcome of a simulation.
+   */
+  public static final class Result {
+
+    private final long _executionTime;
+    private final int _jobs;
+    private final long _invocationCost;
+    private final long _sharedDataCost;
+    private final int _calculationNodes;
+
+    private Result(final long executionTime, final int jobs, final long invocationCost, final long sharedDataCost, final int calculationNodes) {
+      _executionTime = executionTime;
+      _jobs = jobs;
+      _invocationCost = invocationCost;
+      _sharedDataCost = sharedDataCost;
+      _calculationNodes = calculationNodes;
+    }
+
+    /**
+     * Returns the estimated time from the start of execution until the last job completes.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getExecutionTime() {
+      return _executionTime;
+    }
+
+    /**
+     * Returns the number of jobs executed.
+     *
+     * @return the number of jobs
+     */
+    public int getJobs() {
+      return _jobs;
+    }
+
+    /**
+     * Returns the total estimated invocation cost of the job items.
+     *
+     * @return the cost in nanoseconds
+     */
+    public long getInvocationCost() {
+      return _invocationCost;
+    }
+
+    /**
+     * Returns the total estimated cost of reading and writing values in the shared cache. This is the data passed between the nodes.
+     *
+     * @return the cost in nanoseconds
+     */
+    public long getSharedDataCost() {
+      return _sharedDataCost;
+    }
+
+    /**
+     * Returns the fraction of the available node time spent executing jobs.
+     *
+     * @return the utilization, between 0 and 1
+     */
+    public double getUtilization() {
+      if (_executionTime == 0) {
+        return 0;
+      }
+      return (double) (_invocationCost + _sharedDataCost) / ((double) _executionTime * (double) _calculationNodes);
+    }
+
+    @Override
+    public String toString() {
+      return "Result[executionTime=" + _executionTime + "ns, jobs=" + _jobs + ", invocationCost=" + _invocationCost + "ns, sharedDataCost=" + _sharedDataCost +
+          "ns, utilization=" + getUtilization() + "]";
+    }
+
+  }
+
+  private static final class Node {
+
+    private final List<PlannedJob> _tails = new LinkedList<PlannedJob>();
+    private boolean _busy;
+
+  }
+
+  private static final class Completion implements Comparable<Completion> {
+
+    private final long _time;
+    private final PlannedJob _job;
+    private final Node _node;
+
+    private Completion(final long time, final PlannedJob job, final Node node) {
+      _time = time;
+      _job = job;
+      _node = node;
+    }
+
+    @Override
+    public int compareTo(final Completion o) {
+      return Long.compare(_time, o._time);
+    }
+
+  }
+
+  private final class Simulation {
+
+    private final Node[] _nodes = new Node[_calculationNodes];
+    private final List<PlannedJob> _executable;
+    private final Map<PlannedJob, Integer> _waitingFor = new HashMap<PlannedJob, Integer>();
+    private final Map<PlannedJob, Integer> _undispatchedTailInputs = new HashMap<PlannedJob, Integer>();
+    private final PriorityQueue<Completion> _completions = new PriorityQueue<Completion>();
+    private long _time;
+    private int _jobs;
+    private long _invocationCost;
+    private long _sharedDataCost;
+
+    private Simulation(final GraphExecutionPlan plan) {
+      for (int i = 0; i < _nodes.length; i++) {
+        _nodes[i] = new Node();
+      }
+      _executable = new ArrayList<PlannedJob>(plan.getLeafJobs());
+    }
+
+    private long getDuration(final PlannedJob job) {
+      final CacheSelectHint hint = job.getCacheSelectHint();
+      long invocation = 0;
+      long data = 0;
+      for (final CalculationJobItem item : job.getItems()) {
+        final FunctionInvocationStatistics statistics = _costs.getStatistics(item.getFunctionUniqueIdentifier());
+        invocation += (long) statistics.getInvocationCost();
+        for (final ValueSpecification input : item.getInputs()) {
+          if (!hint.isPrivateValue(input)) {
+            data += (long) (statistics.getDataInputCost() * GraphFragment.NANOS_PER_BYTE);
+          }
+        }
+        for (final ValueSpecification output : item.getOutputs()) {
+          if (!hint.isPrivateValue(output)) {
+            data += (long) (statistics.getDataOutputCost() * GraphFragment.NANOS_PER_BYTE);
+          }
+        }
+      }
+      _invocationCost += invocation;
+      _sharedDataCost += data;
+      return invocation + data;
+    }
+
+    private boolean isReady(final PlannedJob job) {
+      final Integer waitingFor = _waitingFor.get(job);
+      return (waitingFor == null) ? (job.getInputJobCount() == 0) : (waitingFor == 0);
+    }
+
+    private void start(final PlannedJob job, final Node node) {
+      node._busy = true;
+      _jobs++;
+      _completions.add(new Completion(_time + getDuration(job), job, node));
+      if (job.getTails() != null) {
+        for (final PlannedJob tail : job.getTails()) {
+          Integer undispatched = _undispatchedTailInputs.get(tail);
+          if (undispatched == null) {
+            undispatched = tail.getInputJobCount();
+          }
+          undispatched--;
+          _undispatchedTailInputs.put(tail, undispatched);
+          if (undispatched == 0) {
+            // Sent with the last of its inputs to be dispatched
+            node._tails.add(tail);
+          }
+        }
+      }
+    }
+
+    private boolean startNextJob(final Node node) {
+      final Iterator<PlannedJob> itr = node._tails.iterator();
+      while (itr.hasNext()) {
+        final PlannedJob tail = itr.next();
+        if (isReady(tail)) {
+          itr.remove();
+          start(tail, node);
+          return true;
+        }
+      }
+      final int index = _executable.size() - 1;
+      if (index < 0) {
+        return false;
+      }
+      start(_executable.remove(index), node);
+      return true;
+    }
+
+    private void complete(final Completion completion) {
+      _time = completion._time;
+      completion._node._busy = false;
+      final PlannedJob job = completion._job;
+      if (job.getTails() != null) {
+        for (final PlannedJob tail : job.getTails()) {
+          inputCompleted(tail);
+        }
+      }
+      if (job.getDependents() != null) {
+        for (final PlannedJob dependent : job.getDependents()) {
+          if (inputCompleted(dependent)) {
+            _executable.add(dependent);
+          }
+        }
+      }
+    }
+
+    private boolean inputCompleted(final PlannedJob job) {
+      Integer waitingFor = _waitingFor.get(job);
+      if (waitingFor == null) {
+        waitingFor = job.getInputJobCount();
+      }
+      waitingFor--;
+      _waitingFor.put(job, waitingFor);
+      return waitingFor == 0;
+    }
+
+    private Result run() {
+      do {
+        for (final Node node : _nodes) {
+          if (!node._busy) {
+            startNextJob(node);
+          }
+        }
+        final Completion completion = _completions.poll();
+        if (completion == null) {
+          break;
+        }
+        complete(completion);
+        // Process everything else finishing at the same time before dispatching
+        while (!_completions.isEmpty() && (_completions.peek()._time == _time)) {
+          complete(_completions.poll());
+        }
+      } while (true);
+      return new Result(_time, _jobs, _invocationCost, _sharedDataCost, _calculationNodes);
+    }
+
+  }
+
+  /**
+   * Simulates the execution of a plan.
+   *
+   * @param plan the plan to execute, not null
+   * @return the outcome, not null
+   */
+  public Result simulate(final GraphExecutionPlan plan) {
+    ArgumentChecker.notNull(plan, "plan");
+    return new Simulation(plan).run();
+  }
+
+  /**
+   * Creates a plan for a graph and simulates its execution.
+   *
+   * @param planner the planner to create the plan with, not null
+   * @param graph the graph to plan, not null
+   * @param sharedValues the values that will be in the shared cache before execution, for example the market data, not null
+   * @return the outcome, not null
+   */
+  public Result simulate(final GraphExecutionPlanner planner, final DependencyGraph graph, final Set<ValueSpecification> sharedValues) {
+    ArgumentChecker.notNull(planner, "planner");
+    ArgumentChecker.notNull(graph, "graph");
+    ArgumentChecker.notNull(sharedValues, "sharedValues");
+    // Planners may add to the shared value set
+    return simulate(planner.createPlan(graph, new ExecutionLogModeSource(), 0, new HashSet<ValueSpecification>(sharedValues),
+        Collections.<ValueSpecification, FunctionParameters>emptyMap()));
+  }
+
+}
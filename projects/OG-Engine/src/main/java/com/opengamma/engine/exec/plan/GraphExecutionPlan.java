@@ -128,7 +128,21 @@ public class GraphExecutionPlan implements Serializable {
    * @return the executing graph state, not null, with all "leaf" jobs immediately available for execution
    */
   public ExecutingGraph createExecution(final UniqueId cycleId, final Instant valuationTime, final VersionCorrection resolverVersionCorrection) {
-    return new ExecutingGraph(this, cycleId, valuationTime, resolverVersionCorrection);
+    return createExecution(cycleId, valuationTime, resolverVersionCorrection, null);
+  }
+
+  /**
+   * Creates an execution state from the plan. The state may be used to deliver executable jobs that can be used to evaluate the graph that this plan represents.
+   * 
+   * @param cycleId the view cycle identifier, not null - this will be used to construct job specifications
+   * @param valuationTime the cycle valuation time, not null - this will be used to construct job specifications
+   * @param resolverVersionCorrection the resolution timestamp, not null - this will be embedded in all jobs
+   * @param marketDataSource the description of the cycle's market data, null if not known - this will be used to construct job specifications
+   * @return the executing graph state, not null, with all "leaf" jobs immediately available for execution
+   */
+  public ExecutingGraph createExecution(final UniqueId cycleId, final Instant valuationTime, final VersionCorrection resolverVersionCorrection,
+      final String marketDataSource) {
+    return new ExecutingGraph(this, cycleId, valuationTime, resolverVersionCorrection, marketDataSource);
   }
 
   public void reportStatistics(final GraphExecutorStatisticsGatherer statistics) {
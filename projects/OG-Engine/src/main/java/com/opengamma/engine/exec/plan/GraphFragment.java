@@ -35,7 +35,7 @@ import com.opengamma.engine.view.ExecutionLogMode;
   /**
    * Data input/output rate from shared cache. Assumes 1Gb/s. This needs to be tunable through the executor.
    */
-  private static final double NANOS_PER_BYTE = 1.0;
+  /* package */static final double NANOS_PER_BYTE = 1.0;
 
   /**
    * The nodes that are within this fragment of the graph.
@@ -179,6 +179,25 @@ import com.opengamma.engine.view.ExecutionLogMode;
     return getInvocationCost() + getDataIOCost();
   }
 
+  /**
+   * Returns the part of the data input cost for values produced by one of the input fragments. This cost is avoided if the input fragment executes on
+   * the same node and passes the values privately.
+   * 
+   * @param input the input fragment, not null
+   * @return the cost of the values this fragment reads from the input fragment
+   */
+  public long getDataInputCost(final GraphFragment input) {
+    long cost = 0;
+    final Map<ValueSpecification, Integer> inputValues = getInputValues();
+    for (final ValueSpecification value : input.getOutputValues().keySet()) {
+      final Integer valueCost = inputValues.get(value);
+      if (valueCost != null) {
+        cost += valueCost;
+      }
+    }
+    return cost;
+  }
+
   private Set<ValueSpecification> getPrivateValues() {
     return _privateValues;
   }
@@ -42,6 +42,10 @@ import com.opengamma.util.tuple.Pairs;
  * <p>
  * Job cost estimates are in nanoseconds. These are using the (normalized) time estimate for the function execution and the estimated input/output data volumes using an approximate data rate. The
  * actual jobs produced may take longer to execute because of additional scheduling and housekeeping overheads.
+ * <p>
+ * If the number of calculation nodes is set, the job tails are chosen by critical path list scheduling of the jobs across that many nodes (see
+ * {@link CriticalPathScheduler}) rather than by the graph coloring that honors the concurrency limit. This uses the same cost estimates to minimize the
+ * predicted execution time of the graph and the data passed between nodes.
  */
 public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
 
@@ -53,6 +57,7 @@ public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
   private long _minimumJobCost;
   private long _maximumJobCost = Long.MAX_VALUE;
   private int _maximumConcurrency = Integer.MAX_VALUE;
+  private int _calculationNodes;
   private FunctionCosts _functionCosts = new FunctionCosts();
 
   /**
@@ -163,6 +168,29 @@ public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
     return _maximumConcurrency;
   }
 
+  /**
+   * Sets the number of calculation nodes that jobs are scheduled across.
+   * <p>
+   * This is the number of jobs that can execute at the same time. If set, tails are chosen by scheduling the jobs across the nodes using the function
+   * cost estimates. A concurrency limit of 0 still disables tail execution.
+   * 
+   * @param calculationNodes the number of nodes, or 0 to choose tails by the concurrency limit instead
+   */
+  public void setCalculationNodes(final int calculationNodes) {
+    ArgumentChecker.isTrue(calculationNodes >= 0, "calculationNodes");
+    _calculationNodes = calculationNodes;
+  }
+
+  /**
+   * Returns the number of calculation nodes that jobs are scheduled across.
+   * 
+   * @return the number of nodes, or 0 if tails are chosen by the concurrency limit
+   * @see #setCalculationNodes
+   */
+  public int getCalculationNodes() {
+    return _calculationNodes;
+  }
+
   public void setFunctionCosts(final FunctionCosts functionCosts) {
     ArgumentChecker.notNull(functionCosts, "functionCosts");
     _functionCosts = functionCosts;
@@ -478,7 +506,12 @@ public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
         }
       }
     } while (true);
-    findTailFragments(allFragments);
+    if (getCalculationNodes() > 0) {
+      final long makespan = new CriticalPathScheduler(allFragments, getCalculationNodes(), getMaximumConcurrency() > 0).schedule();
+      s_logger.debug("Estimated execution time of {} jobs across {} nodes is {}ns", new Object[] {allFragments.size(), getCalculationNodes(), makespan });
+    } else {
+      findTailFragments(allFragments);
+    }
     exportPrivateValues(context, allFragments);
     long totalSize = 0;
     long totalInvocationCost = 0;
@@ -25,6 +25,7 @@ import com.opengamma.id.UniqueId;
  *   required string calcConfig;        // the calculation configuration name
  *   required datetime valuationTime;   // the valuation time
  *   required long jobId;               // the job identifier
+ *   optional string marketDataSource;  // the market data the cycle runs against
  * }
  * </pre>
  */
@@ -35,12 +36,16 @@ public class CalculationJobSpecificationFudgeBuilder implements FudgeBuilder<Cal
   private static final String CALCULATION_CONFIGURATION_FIELD_NAME = "calcConfig";
   private static final String VALUATION_TIME_FIELD_NAME = "valuationTime";
   private static final String JOB_ID_FIELD_NAME = "jobId";
+  private static final String MARKET_DATA_SOURCE_FIELD_NAME = "marketDataSource";
 
   public static void buildMessageImpl(final MutableFudgeMsg msg, final CalculationJobSpecification object) {
     msg.add(VIEW_CYCLE_ID_FIELD_NAME, object.getViewCycleId());
     msg.add(CALCULATION_CONFIGURATION_FIELD_NAME, object.getCalcConfigName());
     msg.add(VALUATION_TIME_FIELD_NAME, object.getValuationTime());
     msg.add(JOB_ID_FIELD_NAME, object.getJobId());
+    if (object.getMarketDataSource() != null) {
+      msg.add(MARKET_DATA_SOURCE_FIELD_NAME, object.getMarketDataSource());
+    }
   }
 
   @Override
@@ -55,7 +60,8 @@ public class CalculationJobSpecificationFudgeBuilder implements FudgeBuilder<Cal
     String calcConfigName = msg.getString(CALCULATION_CONFIGURATION_FIELD_NAME);
     Instant valuationTime = msg.getValue(Instant.class, VALUATION_TIME_FIELD_NAME);
     long jobId = msg.getLong(JOB_ID_FIELD_NAME);
-    return new CalculationJobSpecification(viewCycleId, calcConfigName, valuationTime, jobId);
+    String marketDataSource = msg.getString(MARKET_DATA_SOURCE_FIELD_NAME);
+    return new CalculationJobSpecification(viewCycleId, calcConfigName, valuationTime, jobId, marketDataSource);
   }
 
   @Override
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.fudgemsg;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeBuilder;
+import org.fudgemsg.mapping.FudgeBuilderFor;
+import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.view.ColumnarViewCalculationResultModel;
+import com.opengamma.engine.view.ColumnarViewCalculationResultModel.Column;
+import com.opengamma.util.fudgemsg.WriteReplaceHelper;
+
+/**
+ * Fudge message builder for {@link ColumnarViewCalculationResultModel}.
+ * <p>
+ * Each column is written with a bit mask of the rows that have values. A primitive column is written as a single double array field holding the
+ * values of those rows; an object column is written as one field per present value.
+ */
+@FudgeBuilderFor(ColumnarViewCalculationResultModel.class)
+public class ColumnarViewCalculationResultModelFudgeBuilder implements FudgeBuilder<ColumnarViewCalculationResultModel> {
+
+  private static final String NAME_FIELD = "name";
+  private static final String TARGETS_FIELD = "targets";
+  private static final String COLUMN_FIELD = "column";
+  private static final String VALUE_NAME_FIELD = "valueName";
+  private static final String PROPERTIES_FIELD = "properties";
+  private static final String PRESENT_FIELD = "present";
+  private static final String DOUBLES_FIELD = "doubles";
+  private static final String VALUE_FIELD = "value";
+
+  @Override
+  public MutableFudgeMsg buildMessage(final FudgeSerializer serializer, final ColumnarViewCalculationResultModel object) {
+    final MutableFudgeMsg msg = serializer.newMessage();
+    msg.add(NAME_FIELD, object.getCalculationConfigurationName());
+    final MutableFudgeMsg targets = msg.addSubMessage(TARGETS_FIELD, null);
+    final int rows = object.getRowCount();
+    for (int i = 0; i < rows; i++) {
+      serializer.addToMessage(targets, null, null, object.getTarget(i));
+    }
+    final int columns = object.getColumnCount();
+    for (int i = 0; i < columns; i++) {
+      final Column column = object.getColumn(i);
+      final MutableFudgeMsg columnMsg = msg.addSubMessage(COLUMN_FIELD, null);
+      columnMsg.add(VALUE_NAME_FIELD, column.getValueName());
+      serializer.addToMessage(columnMsg, PROPERTIES_FIELD, null, column.getProperties());
+      final BitSet present = column.getPresent();
+      columnMsg.add(PRESENT_FIELD, present.toByteArray());
+      if (column.isDouble()) {
+        final double[] doubles;
+        if (column.isSparse()) {
+          doubles = column.getDoubles();
+        } else {
+          doubles = new double[present.cardinality()];
+          int j = 0;
+          for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+            doubles[j++] = column.getDouble(row);
+          }
+        }
+        columnMsg.add(DOUBLES_FIELD, doubles);
+      } else {
+        for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+          serializer.addToMessageWithClassHeaders(columnMsg, VALUE_FIELD, null, WriteReplaceHelper.writeReplace(column.getValue(row)));
+        }
+      }
+    }
+    return msg;
+  }
+
+  @Override
+  public ColumnarViewCalculationResultModel buildObject(final FudgeDeserializer deserializer, final FudgeMsg msg) {
+    final String name = msg.getString(NAME_FIELD);
+    final FudgeMsg targetsMsg = msg.getMessage(TARGETS_FIELD);
+    final ComputationTargetSpecification[] targets = new ComputationTargetSpecification[targetsMsg.getNumFields()];
+    int i = 0;
+    for (final FudgeField target : targetsMsg) {
+      targets[i++] = deserializer.fieldValueToObject(ComputationTargetSpecification.class, target);
+    }
+    final List<Column> columns = new ArrayList<Column>();
+    for (final FudgeField columnField : msg.getAllByName(COLUMN_FIELD)) {
+      final FudgeMsg columnMsg = (FudgeMsg) columnField.getValue();
+      final String valueName = columnMsg.getString(VALUE_NAME_FIELD);
+      final ValueProperties properties = deserializer.fieldValueToObject(ValueProperties.class, columnMsg.getByName(PROPERTIES_FIELD));
+      final BitSet present = BitSet.valueOf((byte[]) columnMsg.getByName(PRESENT_FIELD).getValue());
+      final FudgeField doubles = columnMsg.getByName(DOUBLES_FIELD);
+      if (doubles != null) {
+        columns.add(Column.ofPresentDoubles(valueName, properties, targets.length, present, (double[]) doubles.getValue()));
+      } else {
+        final List<FudgeField> valueFields = columnMsg.getAllByName(VALUE_FIELD);
+        final Object[] values = new Object[valueFields.size()];
+        int j = 0;
+        for (final FudgeField value : valueFields) {
+          values[j++] = deserializer.fieldValueToObject(value);
+        }
+        columns.add(Column.ofPresentObjects(valueName, properties, targets.length, present, values));
+      }
+    }
+    return new ColumnarViewCalculationResultModel(name, targets, columns.toArray(new Column[columns.size()]));
+  }
+
+}
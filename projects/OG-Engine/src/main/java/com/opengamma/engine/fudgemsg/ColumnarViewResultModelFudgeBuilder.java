@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.fudgemsg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeBuilder;
+import org.fudgemsg.mapping.FudgeBuilderFor;
+import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
+import org.threeten.bp.Duration;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.view.ColumnarViewCalculationResultModel;
+import com.opengamma.engine.view.ColumnarViewResultModel;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+
+/**
+ * Fudge message builder for {@link ColumnarViewResultModel}.
+ */
+@FudgeBuilderFor(ColumnarViewResultModel.class)
+public class ColumnarViewResultModelFudgeBuilder implements FudgeBuilder<ColumnarViewResultModel> {
+
+  private static final String VIEW_PROCESS_ID_FIELD = "viewProcessId";
+  private static final String VIEW_CYCLE_ID_FIELD = "viewCycleId";
+  private static final String CALCULATION_TIME_FIELD = "calculationTime";
+  private static final String CALCULATION_DURATION_FIELD = "calculationDuration";
+  private static final String VERSION_CORRECTION_FIELD = "versionCorrection";
+  private static final String RESULT_FIELD = "result";
+
+  @Override
+  public MutableFudgeMsg buildMessage(final FudgeSerializer serializer, final ColumnarViewResultModel object) {
+    final MutableFudgeMsg msg = serializer.newMessage();
+    msg.add(VIEW_PROCESS_ID_FIELD, object.getViewProcessId());
+    msg.add(VIEW_CYCLE_ID_FIELD, object.getViewCycleId());
+    if (object.getCalculationTime() != null) {
+      msg.add(CALCULATION_TIME_FIELD, object.getCalculationTime());
+    }
+    serializer.addToMessage(msg, CALCULATION_DURATION_FIELD, null, object.getCalculationDuration());
+    serializer.addToMessage(msg, VERSION_CORRECTION_FIELD, null, object.getVersionCorrection());
+    for (final ColumnarViewCalculationResultModel result : object.getCalculationResults()) {
+      serializer.addToMessage(msg, RESULT_FIELD, null, result);
+    }
+    return msg;
+  }
+
+  @Override
+  public ColumnarViewResultModel buildObject(final FudgeDeserializer deserializer, final FudgeMsg msg) {
+    final UniqueId viewProcessId = msg.getValue(UniqueId.class, VIEW_PROCESS_ID_FIELD);
+    final UniqueId viewCycleId = msg.getValue(UniqueId.class, VIEW_CYCLE_ID_FIELD);
+    final FudgeField calculationTimeField = msg.getByName(CALCULATION_TIME_FIELD);
+    final Instant calculationTime = (calculationTimeField != null) ? msg.getFieldValue(Instant.class, calculationTimeField) : null;
+    final FudgeField durationField = msg.getByName(CALCULATION_DURATION_FIELD);
+    final Duration calculationDuration = (durationField != null) ? deserializer.fieldValueToObject(Duration.class, durationField) : null;
+    final FudgeField versionCorrectionField = msg.getByName(VERSION_CORRECTION_FIELD);
+    final VersionCorrection versionCorrection = (versionCorrectionField != null) ? deserializer.fieldValueToObject(VersionCorrection.class, versionCorrectionField) : null;
+    final List<ColumnarViewCalculationResultModel> results = new ArrayList<ColumnarViewCalculationResultModel>();
+    for (final FudgeField result : msg.getAllByName(RESULT_FIELD)) {
+      results.add(deserializer.fieldValueToObject(ColumnarViewCalculationResultModel.class, result));
+    }
+    return new ColumnarViewResultModel(viewProcessId, viewCycleId, calculationTime, calculationDuration, versionCorrection, results);
+  }
+
+}
@@ -45,6 +45,7 @@ public class ExecutionOptionsFudgeBuilder implements FudgeBuilder<ExecutionOptio
   private static final String MARKET_DATA_TIMEOUT_MILLIS_FIELD = "marketDataTimeoutMillis";
   private static final String DEFAULT_EXECUTION_OPTIONS_FIELD = "defaultExecutionOptions";
   private static final String BATCH_FIELD = "batch";
+  private static final String DIRTY_SUBGRAPH_EXECUTION_FIELD = "dirtySubgraphExecution";
 
   private static final Collection<Pair<String, ViewExecutionFlags>> s_flags = Arrays.<Pair<String, ViewExecutionFlags>>asList(
       Pairs.of(AWAIT_MARKET_DATA_FIELD, ViewExecutionFlags.AWAIT_MARKET_DATA),
@@ -55,7 +56,8 @@ public class ExecutionOptionsFudgeBuilder implements FudgeBuilder<ExecutionOptio
       Pairs.of(FETCH_MARKET_DATA_ONLY_FIELD, ViewExecutionFlags.FETCH_MARKET_DATA_ONLY),
       Pairs.of(SKIP_CYCLE_ON_NO_MARKET_DATA_FIELD, ViewExecutionFlags.SKIP_CYCLE_ON_NO_MARKET_DATA),
       Pairs.of(WAIT_FOR_INITIAL_TRIGGER_FIELD, ViewExecutionFlags.WAIT_FOR_INITIAL_TRIGGER),
-      Pairs.of(BATCH_FIELD, ViewExecutionFlags.BATCH));
+      Pairs.of(BATCH_FIELD, ViewExecutionFlags.BATCH),
+      Pairs.of(DIRTY_SUBGRAPH_EXECUTION_FIELD, ViewExecutionFlags.DIRTY_SUBGRAPH_EXECUTION));
 
   @Override
   public MutableFudgeMsg buildMessage(FudgeSerializer serializer, ExecutionOptions object) {
@@ -39,6 +39,10 @@ public class FunctionExecutionContext extends AbstractFunctionContext {
    * The name under which a Clock providing the valuation time will be bound.
    */
   public static final String VALUATION_CLOCK_NAME = "valuationClock";
+  /**
+   * The name under which a description of the market data the cycle runs against will be bound.
+   */
+  public static final String MARKET_DATA_SOURCE_NAME = "marketDataSource";
   /**
    * The name under which an instance of {@link SecuritySource} should be bound.
    */
@@ -115,6 +119,29 @@ public class FunctionExecutionContext extends AbstractFunctionContext {
     put(VALUATION_CLOCK_NAME, snapshotClock);
   }
 
+  /**
+   * Gets a description of the market data the cycle runs against, for example the snapshot identifier. Functions which keep state between cycles can
+   * use it to keep separate state for each source of market data.
+   *
+   * @return the description, null if not in the context
+   */
+  public String getMarketDataSource() {
+    return (String) get(MARKET_DATA_SOURCE_NAME);
+  }
+
+  /**
+   * Sets a description of the market data the cycle runs against.
+   *
+   * @param marketDataSource the description to bind, null if not known
+   */
+  public void setMarketDataSource(final String marketDataSource) {
+    if (marketDataSource != null) {
+      put(MARKET_DATA_SOURCE_NAME, marketDataSource);
+    } else {
+      remove(MARKET_DATA_SOURCE_NAME);
+    }
+  }
+
   /**
    * Gets the source of securities.
    *
@@ -8,6 +8,7 @@ package com.opengamma.engine.function;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -27,6 +28,7 @@ public class InMemoryFunctionRepository implements FunctionRepository {
   private static final Logger s_logger = LoggerFactory.getLogger(InMemoryFunctionRepository.class);
 
   private final Map<String, FunctionDefinition> _functions = new HashMap<String, FunctionDefinition>();
+  private final Map<String, List<String>> _configurationParameters = new HashMap<String, List<String>>();
   private final AtomicInteger _nextIdentifier = new AtomicInteger();
 
   public InMemoryFunctionRepository() {
@@ -78,6 +80,10 @@ public class InMemoryFunctionRepository implements FunctionRepository {
   }
 
   public synchronized void addFunction(FunctionDefinition function) {
+    add(function);
+  }
+
+  private String add(FunctionDefinition function) {
     ArgumentChecker.notNull(function, "Function definition");
     if (function.getUniqueId() == null) {
       if (function instanceof AbstractFunction) {
@@ -89,15 +95,40 @@ public class InMemoryFunctionRepository implements FunctionRepository {
       function = new IdentifiedFunction(function, createId(function.getShortName()));
     }
     _functions.put(function.getUniqueId(), function);
+    _configurationParameters.remove(function.getUniqueId());
+    return function.getUniqueId();
+  }
+
+  /**
+   * Adds a function that was constructed from configuration parameters, recording the parameters so that functions of the same class but
+   * constructed differently can be told apart.
+   *
+   * @param function the function to add, not null
+   * @param parameters the parameters the function was constructed with, not null
+   */
+  public synchronized void addFunction(final FunctionDefinition function, final List<String> parameters) {
+    ArgumentChecker.notNull(parameters, "parameters");
+    _configurationParameters.put(add(function), Collections.unmodifiableList(parameters));
   }
 
   public synchronized void replaceFunction(String functionIdentifier, FunctionDefinition function) {
     ArgumentChecker.notNull(functionIdentifier, "functionIdentifier");
     ArgumentChecker.notNull(function, "function");
     _functions.remove(functionIdentifier);
+    _configurationParameters.remove(functionIdentifier);
     addFunction(function);
   }
 
+  /**
+   * Returns the configuration parameters a function was constructed with.
+   *
+   * @param uniqueId the identifier of the function, not null
+   * @return the parameters, null if the function was not added with any
+   */
+  public synchronized List<String> getConfigurationParameters(final String uniqueId) {
+    return _configurationParameters.get(uniqueId);
+  }
+
   @Override
   public Collection<FunctionDefinition> getAllFunctions() {
     return Collections.unmodifiableCollection(_functions.values());
@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A {@link MarketDataListener} which batches value change notifications before passing them to another listener.
+ * <p>
+ * Changes arriving within a window are merged into a single set of dirty specifications, so a value that ticks many times in the window is
+ * reported once. The first change after a delivery starts the window and the merged set is delivered when it closes. If the set reaches its
+ * maximum size before then it is delivered immediately on the thread reporting the change, which bounds the memory held and stops a burst
+ * from being delayed. Subscription notifications are passed on immediately, after delivering any pending changes ahead of them.
+ * <p>
+ * Batches may be delivered from the timer thread and from a thread reporting changes at the same time. The underlying listener only sees
+ * the union of the changes, so the order of the batches does not matter to it. The timer is supplied by the owner of the listener, so that
+ * the deliveries to one listener are not queued behind those to others.
+ */
+public class CoalescingMarketDataListener implements MarketDataListener {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(CoalescingMarketDataListener.class);
+
+  /**
+   * The default maximum number of dirty specifications held before a batch is delivered early.
+   */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 10000;
+
+  private final MarketDataListener _underlying;
+  private final ScheduledExecutorService _timer;
+  private final long _windowMillis;
+  private final int _maxBatchSize;
+  private final Object _lock = new Object();
+  private final Runnable _deliver = new Runnable() {
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+
+  private Set<ValueSpecification> _pending = new HashSet<ValueSpecification>();
+  private volatile boolean _stopped;
+  private boolean _deliveryScheduled;
+  private ScheduledFuture<?> _delivery;
+
+  /**
+   * Creates an instance with the default maximum batch size.
+   *
+   * @param underlying the listener to pass the batches to, not null
+   * @param timer the executor to deliver the batches at the end of each window from, not null
+   * @param windowMillis the time in milliseconds for which changes are merged, greater than zero
+   */
+  public CoalescingMarketDataListener(final MarketDataListener underlying, final ScheduledExecutorService timer, final long windowMillis) {
+    this(underlying, timer, windowMillis, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param underlying the listener to pass the batches to, not null
+   * @param timer the executor to deliver the batches at the end of each window from, not null
+   * @param windowMillis the time in milliseconds for which changes are merged, greater than zero
+   * @param maxBatchSize the number of dirty specifications at which a batch is delivered before the end of the window, greater than zero
+   */
+  public CoalescingMarketDataListener(final MarketDataListener underlying, final ScheduledExecutorService timer, final long windowMillis, final int maxBatchSize) {
+    ArgumentChecker.notNull(underlying, "underlying");
+    ArgumentChecker.notNull(timer, "timer");
+    ArgumentChecker.notNegativeOrZero(windowMillis, "windowMillis");
+    ArgumentChecker.notNegativeOrZero(maxBatchSize, "maxBatchSize");
+    _underlying = underlying;
+    _timer = timer;
+    _windowMillis = windowMillis;
+    _maxBatchSize = maxBatchSize;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Delivers any pending changes to the underlying listener now.
+   */
+  public void flush() {
+    final Set<ValueSpecification> batch;
+    synchronized (_lock) {
+      _deliveryScheduled = false;
+      _delivery = null;
+      if (_pending.isEmpty()) {
+        return;
+      }
+      batch = _pending;
+      _pending = new HashSet<ValueSpecification>();
+    }
+    deliver(batch);
+  }
+
+  /**
+   * Resumes delivery after {@link #stop}, for example when the listener is added to a replacement market data provider.
+   */
+  public void start() {
+    _stopped = false;
+  }
+
+  /**
+   * Cancels any scheduled delivery and discards the pending changes, for example when the listener is removed from its market data provider.
+   * Changes reported after this, and any batch already taken by a delivery in progress, are discarded until {@link #start} is called.
+   */
+  public void stop() {
+    final ScheduledFuture<?> delivery;
+    synchronized (_lock) {
+      s_logger.debug("Discarding {} pending changes", _pending.size());
+      _stopped = true;
+      _pending = new HashSet<ValueSpecification>();
+      _deliveryScheduled = false;
+      delivery = _delivery;
+      _delivery = null;
+    }
+    if (delivery != null) {
+      delivery.cancel(false);
+    }
+  }
+
+  private void deliver(final Set<ValueSpecification> batch) {
+    if (_stopped) {
+      s_logger.debug("Discarding {} changed specifications after stop", batch.size());
+      return;
+    }
+    s_logger.debug("Delivering {} changed specifications", batch.size());
+    try {
+      _underlying.valuesChanged(batch);
+    } catch (final RuntimeException e) {
+      s_logger.error("Error delivering market data changes to " + _underlying, e);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public void valuesChanged(final Collection<ValueSpecification> specifications) {
+    Set<ValueSpecification> batch = null;
+    boolean schedule = false;
+    synchronized (_lock) {
+      if (_stopped) {
+        return;
+      }
+      _pending.addAll(specifications);
+      if (_pending.size() >= _maxBatchSize) {
+        batch = _pending;
+        _pending = new HashSet<ValueSpecification>();
+      } else if (!_deliveryScheduled) {
+        _deliveryScheduled = true;
+        schedule = true;
+      }
+    }
+    if (batch != null) {
+      deliver(batch);
+    } else if (schedule) {
+      final ScheduledFuture<?> delivery = _timer.schedule(_deliver, _windowMillis, TimeUnit.MILLISECONDS);
+      synchronized (_lock) {
+        if (_deliveryScheduled && (_delivery == null)) {
+          _delivery = delivery;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void subscriptionsSucceeded(final Collection<ValueSpecification> specifications) {
+    flush();
+    _underlying.subscriptionsSucceeded(specifications);
+  }
+
+  @Override
+  public void subscriptionFailed(final ValueSpecification specification, final String msg) {
+    flush();
+    _underlying.subscriptionFailed(specification, msg);
+  }
+
+  @Override
+  public void subscriptionStopped(final ValueSpecification specification) {
+    flush();
+    _underlying.subscriptionStopped(specification);
+  }
+
+  @Override
+  public String toString() {
+    return "CoalescingMarketDataListener[" + _underlying + ", windowMillis=" + _windowMillis + "]";
+  }
+
+}
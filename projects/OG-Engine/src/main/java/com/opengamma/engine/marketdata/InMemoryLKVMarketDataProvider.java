@@ -6,10 +6,8 @@
 package com.opengamma.engine.marketdata;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,15 +17,20 @@ import com.opengamma.engine.marketdata.availability.MarketDataAvailabilityProvid
 import com.opengamma.engine.marketdata.spec.MarketDataSpecification;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.map.PersistentHashMap;
 
 /**
  * An implementation of {@link MarketDataProvider} which maintains an LKV cache of externally-provided values.
+ * <p>
+ * The values are held in a {@link PersistentHashMap}. Each update publishes a new version of the map, so a snapshot is the current version
+ * and costs nothing however many values are held, while updates keep arriving.
  */
 public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider implements MarketDataInjector {
 
   private static final Logger s_logger = LoggerFactory.getLogger(InMemoryLKVMarketDataProvider.class);
 
-  private final Map<ValueSpecification, Object> _lastKnownValues = new ConcurrentHashMap<ValueSpecification, Object>();
+  private final Object _updateLock = new Object();
+  private volatile PersistentHashMap<ValueSpecification, Object> _lastKnownValues = PersistentHashMap.empty();
   private final FixedMarketDataAvailabilityProvider _availability = new FixedMarketDataAvailabilityProvider();
   private final MarketDataPermissionProvider _permissionProvider;
 
@@ -85,7 +88,9 @@ public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider im
   @Override
   public void addValue(final ValueSpecification specification, final Object value) {
     if (value != null) {
-      _lastKnownValues.put(specification, value);
+      synchronized (_updateLock) {
+        _lastKnownValues = _lastKnownValues.with(specification, value);
+      }
     }
     _availability.addAvailableData(specification);
     valueChanged(specification);
@@ -100,7 +105,9 @@ public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider im
   @Override
   public void removeValue(final ValueSpecification specification) {
     _availability.removeAvailableData(specification);
-    _lastKnownValues.remove(specification);
+    synchronized (_updateLock) {
+      _lastKnownValues = _lastKnownValues.without(specification);
+    }
     valueChanged(specification);
   }
 
@@ -111,6 +118,11 @@ public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider im
   }
 
   //-------------------------------------------------------------------------
+  /**
+   * Returns the keys of the values currently held. Later updates are not reflected in the returned set.
+   *
+   * @return the keys, not null
+   */
   public Set<ValueSpecification> getAllValueKeys() {
     return Collections.unmodifiableSet(_lastKnownValues.keySet());
   }
@@ -121,8 +133,13 @@ public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider im
 
   //-------------------------------------------------------------------------
 
+  /**
+   * Returns the current values. The map is immutable, so it is returned without copying.
+   *
+   * @return the values, not null
+   */
   /*package*/Map<ValueSpecification, Object> doSnapshot() {
-    return new HashMap<>(_lastKnownValues);
+    return _lastKnownValues;
   }
 
 }
@@ -0,0 +1,580 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.PublicAPI;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Pairs;
+
+/**
+ * The results of one calculation configuration from a cycle, held as columns rather than as a map of targets to values.
+ * <p>
+ * Each row is a target and each column is a value name and set of properties. Where the compiled view definition is known, the properties are the
+ * constraints of the requirement from the view definition so a column corresponds to a column of the view; otherwise they are the properties of the
+ * resolved value specification. A column containing only {@link Double} values is held as a primitive array; any other column is held as an object
+ * array. Cells with no value are marked absent, and a column with few values holds only those values. Execution logs are not held - listeners that
+ * need them must use the map based {@link ViewCalculationResultModel}.
+ * <p>
+ * Instances are immutable. The arrays returned by the column accessors are the underlying storage and must not be modified.
+ */
+@PublicAPI
+public final class ColumnarViewCalculationResultModel {
+
+  /**
+   * A single column of results.
+   * <p>
+   * A column is dense, with its values indexed by row, or sparse, with the values of only the rows that are present held in row order. A column is
+   * held sparse when fewer than half of its rows have values.
+   */
+  public static final class Column {
+
+    private final String _valueName;
+    private final ValueProperties _properties;
+    private final int _size;
+    private final BitSet _present;
+    private final int[] _rows;
+    private final double[] _doubles;
+    private final Object[] _values;
+
+    private Column(final String valueName, final ValueProperties properties, final int size, final BitSet present, final int[] rows, final double[] doubles,
+        final Object[] values) {
+      ArgumentChecker.notNull(valueName, "valueName");
+      ArgumentChecker.notNull(properties, "properties");
+      ArgumentChecker.notNull(present, "present");
+      _valueName = valueName;
+      _properties = properties;
+      _size = size;
+      _present = present;
+      _rows = rows;
+      _doubles = doubles;
+      _values = values;
+    }
+
+    private static boolean isSparse(final int size, final int count) {
+      return count * 2 < size;
+    }
+
+    private static int[] rows(final BitSet present) {
+      final int[] rows = new int[present.cardinality()];
+      int i = 0;
+      for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+        rows[i++] = row;
+      }
+      return rows;
+    }
+
+    /**
+     * Creates a dense column of primitive values.
+     *
+     * @param valueName the value name, not null
+     * @param properties the value properties, not null
+     * @param present the rows which have a value, not null
+     * @param values the values, indexed by row, not null
+     * @return the column, not null
+     */
+    public static Column ofDoubles(final String valueName, final ValueProperties properties, final BitSet present, final double[] values) {
+      ArgumentChecker.notNull(values, "values");
+      return new Column(valueName, properties, values.length, present, null, values, null);
+    }
+
+    /**
+     * Creates a dense column of arbitrary values.
+     *
+     * @param valueName the value name, not null
+     * @param properties the value properties, not null
+     * @param present the rows which have a value, not null
+     * @param values the values, indexed by row, not null
+     * @return the column, not null
+     */
+    public static Column ofObjects(final String valueName, final ValueProperties properties, final BitSet present, final Object[] values) {
+      ArgumentChecker.notNull(values, "values");
+      return new Column(valueName, properties, values.length, present, null, null, values);
+    }
+
+    /**
+     * Creates a column of primitive values from the values of the rows that are present, holding it sparse if few rows have values.
+     *
+     * @param valueName the value name, not null
+     * @param properties the value properties, not null
+     * @param size the number of rows
+     * @param present the rows which have a value, not null
+     * @param values the values of the present rows, in row order, not null
+     * @return the column, not null
+     */
+    public static Column ofPresentDoubles(final String valueName, final ValueProperties properties, final int size, final BitSet present,
+        final double[] values) {
+      ArgumentChecker.notNull(present, "present");
+      ArgumentChecker.notNull(values, "values");
+      ArgumentChecker.isTrue(values.length == present.cardinality(), "values");
+      if (isSparse(size, values.length)) {
+        return new Column(valueName, properties, size, present, rows(present), values, null);
+      }
+      final double[] dense = new double[size];
+      int i = 0;
+      for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+        dense[row] = values[i++];
+      }
+      return new Column(valueName, properties, size, present, null, dense, null);
+    }
+
+    /**
+     * Creates a column of arbitrary values from the values of the rows that are present, holding it sparse if few rows have values.
+     *
+     * @param valueName the value name, not null
+     * @param properties the value properties, not null
+     * @param size the number of rows
+     * @param present the rows which have a value, not null
+     * @param values the values of the present rows, in row order, not null
+     * @return the column, not null
+     */
+    public static Column ofPresentObjects(final String valueName, final ValueProperties properties, final int size, final BitSet present,
+        final Object[] values) {
+      ArgumentChecker.notNull(present, "present");
+      ArgumentChecker.notNull(values, "values");
+      ArgumentChecker.isTrue(values.length == present.cardinality(), "values");
+      if (isSparse(size, values.length)) {
+        return new Column(valueName, properties, size, present, rows(present), null, values);
+      }
+      final Object[] dense = new Object[size];
+      int i = 0;
+      for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+        dense[row] = values[i++];
+      }
+      return new Column(valueName, properties, size, present, null, null, dense);
+    }
+
+    public String getValueName() {
+      return _valueName;
+    }
+
+    public ValueProperties getProperties() {
+      return _properties;
+    }
+
+    /**
+     * Tests whether the column is held as primitive values.
+     *
+     * @return true if the column is held as primitive values, false if it is held as objects
+     */
+    public boolean isDouble() {
+      return _doubles != null;
+    }
+
+    /**
+     * Tests whether the column is held sparse.
+     *
+     * @return true if only the values of the present rows are held, false if the values are indexed by row
+     */
+    public boolean isSparse() {
+      return _rows != null;
+    }
+
+    /**
+     * Returns the number of rows in the column.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+      return _size;
+    }
+
+    /**
+     * Tests whether there is a value for a row.
+     *
+     * @param row the row index
+     * @return true if there is a value, false otherwise
+     */
+    public boolean isPresent(final int row) {
+      return _present.get(row);
+    }
+
+    /**
+     * Returns the number of rows that have a value.
+     *
+     * @return the number of values
+     */
+    public int getValueCount() {
+      return _present.cardinality();
+    }
+
+    /**
+     * Returns the rows that have a value.
+     *
+     * @return a copy of the set of rows that have a value, not null
+     */
+    public BitSet getPresent() {
+      return (BitSet) _present.clone();
+    }
+
+    private int index(final int row) {
+      return (_rows != null) ? Arrays.binarySearch(_rows, row) : row;
+    }
+
+    /**
+     * Returns the primitive value for a row. The result is undefined if there is no value for the row.
+     *
+     * @param row the row index
+     * @return the value
+     * @throws IllegalStateException if the column is not held as primitive values
+     */
+    public double getDouble(final int row) {
+      if (_doubles == null) {
+        throw new IllegalStateException("Column " + _valueName + " is not a primitive column");
+      }
+      final int index = index(row);
+      return (index >= 0) ? _doubles[index] : Double.NaN;
+    }
+
+    /**
+     * Returns the value for a row, boxing it if the column is held as primitive values.
+     *
+     * @param row the row index
+     * @return the value, or null if there is none
+     */
+    public Object getValue(final int row) {
+      if (!_present.get(row)) {
+        return null;
+      }
+      final int index = index(row);
+      return (_doubles != null) ? (Object) _doubles[index] : _values[index];
+    }
+
+    /**
+     * Returns the underlying primitive values. A dense column's values are indexed by row, with rows without a value holding an undefined value. A
+     * sparse column's values are those of the present rows, in row order.
+     *
+     * @return the values, or null if the column is not held as primitive values
+     */
+    public double[] getDoubles() {
+      return _doubles;
+    }
+
+    /**
+     * Returns the underlying object values. A dense column's values are indexed by row. A sparse column's values are those of the present rows, in
+     * row order.
+     *
+     * @return the values, or null if the column is held as primitive values
+     */
+    public Object[] getValues() {
+      return _values;
+    }
+
+  }
+
+  /**
+   * Accumulates the values for a column, starting with primitive storage and switching to objects if a non-double value is found. Only the values
+   * that are set are held, so a sparse column costs no more than its values.
+   */
+  private static final class ColumnBuilder {
+
+    private final String _valueName;
+    private final ValueProperties _properties;
+    private final BitSet _present = new BitSet();
+    private int[] _rows = new int[8];
+    private double[] _doubles = new double[8];
+    private Object[] _values;
+    private int _count;
+    private boolean _ordered = true;
+
+    public ColumnBuilder(final String valueName, final ValueProperties properties) {
+      _valueName = valueName;
+      _properties = properties;
+    }
+
+    public void set(final int row, final Object value) {
+      if (_doubles != null && !(value instanceof Double)) {
+        _values = new Object[_rows.length];
+        for (int i = 0; i < _count; i++) {
+          _values[i] = _doubles[i];
+        }
+        _doubles = null;
+      }
+      int index;
+      if (_present.get(row)) {
+        index = _count - 1;
+        while (_rows[index] != row) {
+          index--;
+        }
+      } else {
+        if (_count == _rows.length) {
+          final int capacity = _count * 2;
+          _rows = Arrays.copyOf(_rows, capacity);
+          if (_doubles != null) {
+            _doubles = Arrays.copyOf(_doubles, capacity);
+          } else {
+            _values = Arrays.copyOf(_values, capacity);
+          }
+        }
+        if ((_count > 0) && (_rows[_count - 1] > row)) {
+          _ordered = false;
+        }
+        index = _count++;
+        _rows[index] = row;
+        _present.set(row);
+      }
+      if (_doubles != null) {
+        _doubles[index] = (Double) value;
+      } else {
+        _values[index] = value;
+      }
+    }
+
+    public Column build(final int rows) {
+      int[] order = null;
+      if (!_ordered) {
+        // Sort the value positions by row, packing the row above the position so a single primitive sort suffices
+        final long[] keys = new long[_count];
+        for (int i = 0; i < _count; i++) {
+          keys[i] = ((long) _rows[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        order = new int[_count];
+        for (int i = 0; i < _count; i++) {
+          order[i] = (int) keys[i];
+        }
+      }
+      if (_doubles != null) {
+        final double[] values = new double[_count];
+        for (int i = 0; i < _count; i++) {
+          values[i] = _doubles[(order != null) ? order[i] : i];
+        }
+        return Column.ofPresentDoubles(_valueName, _properties, rows, _present, values);
+      } else {
+        final Object[] values = new Object[_count];
+        for (int i = 0; i < _count; i++) {
+          values[i] = _values[(order != null) ? order[i] : i];
+        }
+        return Column.ofPresentObjects(_valueName, _properties, rows, _present, values);
+      }
+    }
+
+  }
+
+  private final String _calculationConfigurationName;
+  private final ComputationTargetSpecification[] _targets;
+  private final Column[] _columns;
+  private final Object2IntOpenHashMap<ComputationTargetSpecification> _rowIndex;
+  private final Object2IntOpenHashMap<Pair<String, ValueProperties>> _columnIndex;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param calculationConfigurationName the calculation configuration name, not null
+   * @param targets the targets, one per row, not null and not containing null
+   * @param columns the columns, not null and not containing null
+   */
+  public ColumnarViewCalculationResultModel(final String calculationConfigurationName, final ComputationTargetSpecification[] targets, final Column[] columns) {
+    ArgumentChecker.notNull(calculationConfigurationName, "calculationConfigurationName");
+    ArgumentChecker.noNulls(targets, "targets");
+    ArgumentChecker.noNulls(columns, "columns");
+    _calculationConfigurationName = calculationConfigurationName;
+    _targets = targets;
+    _columns = columns;
+    _rowIndex = new Object2IntOpenHashMap<ComputationTargetSpecification>(targets.length);
+    _rowIndex.defaultReturnValue(-1);
+    for (int i = 0; i < targets.length; i++) {
+      _rowIndex.put(targets[i], i);
+    }
+    _columnIndex = new Object2IntOpenHashMap<Pair<String, ValueProperties>>(columns.length);
+    _columnIndex.defaultReturnValue(-1);
+    for (int i = 0; i < columns.length; i++) {
+      ArgumentChecker.isTrue(columns[i].size() == targets.length, "column size");
+      _columnIndex.put(Pairs.of(columns[i].getValueName(), columns[i].getProperties()), i);
+    }
+  }
+
+  private static ColumnBuilder getColumn(final Map<Pair<String, ValueProperties>, ColumnBuilder> columns, final String valueName,
+      final ValueProperties properties) {
+    final Pair<String, ValueProperties> key = Pairs.of(valueName, properties);
+    ColumnBuilder column = columns.get(key);
+    if (column == null) {
+      column = new ColumnBuilder(valueName, properties);
+      columns.put(key, column);
+    }
+    return column;
+  }
+
+  /**
+   * Creates a columnar form of a calculation configuration's results.
+   *
+   * @param calculationConfigurationName the calculation configuration name, not null
+   * @param results the results, not null
+   * @param terminalOutputs the requirements satisfied by each terminal output, null to use the value specifications as the column keys
+   * @return the columnar results, not null
+   */
+  public static ColumnarViewCalculationResultModel of(final String calculationConfigurationName, final ViewCalculationResultModel results,
+      final Map<ValueSpecification, Set<ValueRequirement>> terminalOutputs) {
+    final Collection<ComputationTargetSpecification> targetCollection = results.getAllTargets();
+    final ComputationTargetSpecification[] targets = targetCollection.toArray(new ComputationTargetSpecification[targetCollection.size()]);
+    final Map<Pair<String, ValueProperties>, ColumnBuilder> columns = new LinkedHashMap<Pair<String, ValueProperties>, ColumnBuilder>();
+    for (int row = 0; row < targets.length; row++) {
+      final Collection<ComputedValueResult> values = results.getAllValues(targets[row]);
+      if (values == null) {
+        continue;
+      }
+      for (final ComputedValueResult value : values) {
+        final ValueSpecification specification = value.getSpecification();
+        final Set<ValueRequirement> requirements = (terminalOutputs != null) ? terminalOutputs.get(specification) : null;
+        if (requirements == null) {
+          getColumn(columns, specification.getValueName(), specification.getProperties()).set(row, value.getValue());
+        } else {
+          for (final ValueRequirement requirement : requirements) {
+            getColumn(columns, requirement.getValueName(), requirement.getConstraints()).set(row, value.getValue());
+          }
+        }
+      }
+    }
+    return new ColumnarViewCalculationResultModel(calculationConfigurationName, targets, build(columns, targets.length));
+  }
+
+  /**
+   * Creates a columnar form of a calculation configuration's values as read from a computation cache, without first building the map based
+   * results. Rows are allocated to targets in the order they are first encountered.
+   *
+   * @param calculationConfigurationName the calculation configuration name, not null
+   * @param terminalOutputs the requirements satisfied by each terminal output, not null
+   * @param values the values of the terminal outputs, not null. Null values are treated as absent.
+   * @return the columnar results, not null
+   */
+  public static ColumnarViewCalculationResultModel ofValues(final String calculationConfigurationName,
+      final Map<ValueSpecification, Set<ValueRequirement>> terminalOutputs, final Collection<Pair<ValueSpecification, Object>> values) {
+    ArgumentChecker.notNull(terminalOutputs, "terminalOutputs");
+    ArgumentChecker.notNull(values, "values");
+    final Object2IntOpenHashMap<ComputationTargetSpecification> rows = new Object2IntOpenHashMap<ComputationTargetSpecification>();
+    rows.defaultReturnValue(-1);
+    final List<ComputationTargetSpecification> targets = new ArrayList<ComputationTargetSpecification>();
+    final Map<Pair<String, ValueProperties>, ColumnBuilder> columns = new LinkedHashMap<Pair<String, ValueProperties>, ColumnBuilder>();
+    for (final Pair<ValueSpecification, Object> value : values) {
+      if (value.getSecond() == null) {
+        continue;
+      }
+      final ValueSpecification specification = value.getFirst();
+      final ComputationTargetSpecification target = specification.getTargetSpecification();
+      int row = rows.getInt(target);
+      if (row < 0) {
+        row = targets.size();
+        rows.put(target, row);
+        targets.add(target);
+      }
+      final Set<ValueRequirement> requirements = terminalOutputs.get(specification);
+      if (requirements == null) {
+        getColumn(columns, specification.getValueName(), specification.getProperties()).set(row, value.getSecond());
+      } else {
+        for (final ValueRequirement requirement : requirements) {
+          getColumn(columns, requirement.getValueName(), requirement.getConstraints()).set(row, value.getSecond());
+        }
+      }
+    }
+    return new ColumnarViewCalculationResultModel(calculationConfigurationName, targets.toArray(new ComputationTargetSpecification[targets.size()]),
+        build(columns, targets.size()));
+  }
+
+  private static Column[] build(final Map<Pair<String, ValueProperties>, ColumnBuilder> columns, final int rows) {
+    final Column[] built = new Column[columns.size()];
+    int i = 0;
+    for (final ColumnBuilder column : columns.values()) {
+      built[i++] = column.build(rows);
+    }
+    return built;
+  }
+
+  public String getCalculationConfigurationName() {
+    return _calculationConfigurationName;
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return the number of rows
+   */
+  public int getRowCount() {
+    return _targets.length;
+  }
+
+  /**
+   * Returns the target for a row.
+   *
+   * @param row the row index
+   * @return the target, not null
+   */
+  public ComputationTargetSpecification getTarget(final int row) {
+    return _targets[row];
+  }
+
+  /**
+   * Returns the row for a target.
+   *
+   * @param target the target, not null
+   * @return the row index, or -1 if the target has no row
+   */
+  public int getRow(final ComputationTargetSpecification target) {
+    return _rowIndex.getInt(target);
+  }
+
+  /**
+   * Returns the number of columns.
+   *
+   * @return the number of columns
+   */
+  public int getColumnCount() {
+    return _columns.length;
+  }
+
+  /**
+   * Returns a column.
+   *
+   * @param column the column index
+   * @return the column, not null
+   */
+  public Column getColumn(final int column) {
+    return _columns[column];
+  }
+
+  /**
+   * Returns the index of a column.
+   *
+   * @param valueName the value name, not null
+   * @param properties the value properties, not null
+   * @return the column index, or -1 if there is no such column
+   */
+  public int getColumnIndex(final String valueName, final ValueProperties properties) {
+    return _columnIndex.getInt(Pairs.of(valueName, properties));
+  }
+
+  /**
+   * Returns a cell value, boxing it if the column is held as primitive values.
+   *
+   * @param row the row index
+   * @param column the column index
+   * @return the value, or null if there is none
+   */
+  public Object getValue(final int row, final int column) {
+    return _columns[column].getValue(row);
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnarViewCalculationResultModel[" + _calculationConfigurationName + ", " + _targets.length + " rows, " + _columns.length + " columns]";
+  }
+
+}
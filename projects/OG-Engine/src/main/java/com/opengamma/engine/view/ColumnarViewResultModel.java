@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.threeten.bp.Duration;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.compilation.CompiledViewCalculationConfiguration;
+import com.opengamma.engine.view.compilation.CompiledViewDefinition;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.PublicAPI;
+
+/**
+ * The results of one cycle of a view, held as a {@link ColumnarViewCalculationResultModel} for each calculation configuration.
+ * <p>
+ * This is an alternative to {@link ViewComputationResultModel} for consumers of large results that would otherwise iterate over a map entry and
+ * {@link com.opengamma.engine.value.ComputedValueResult} per cell. Market data and execution logs are not included.
+ */
+@PublicAPI
+public final class ColumnarViewResultModel {
+
+  private final UniqueId _viewProcessId;
+  private final UniqueId _viewCycleId;
+  private final Instant _calculationTime;
+  private final Duration _calculationDuration;
+  private final VersionCorrection _versionCorrection;
+  private final Map<String, ColumnarViewCalculationResultModel> _calculationResults;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param viewProcessId the view process identifier, not null
+   * @param viewCycleId the view cycle identifier, not null
+   * @param calculationTime the time the results became available, may be null
+   * @param calculationDuration the time taken to perform the calculation, may be null
+   * @param versionCorrection the resolved version-correction of the cycle, may be null
+   * @param calculationResults the results for each calculation configuration, not null
+   */
+  public ColumnarViewResultModel(final UniqueId viewProcessId, final UniqueId viewCycleId, final Instant calculationTime, final Duration calculationDuration,
+      final VersionCorrection versionCorrection, final Collection<ColumnarViewCalculationResultModel> calculationResults) {
+    ArgumentChecker.notNull(viewProcessId, "viewProcessId");
+    ArgumentChecker.notNull(viewCycleId, "viewCycleId");
+    ArgumentChecker.noNulls(calculationResults, "calculationResults");
+    _viewProcessId = viewProcessId;
+    _viewCycleId = viewCycleId;
+    _calculationTime = calculationTime;
+    _calculationDuration = calculationDuration;
+    _versionCorrection = versionCorrection;
+    _calculationResults = new LinkedHashMap<String, ColumnarViewCalculationResultModel>();
+    for (final ColumnarViewCalculationResultModel calculationResult : calculationResults) {
+      _calculationResults.put(calculationResult.getCalculationConfigurationName(), calculationResult);
+    }
+  }
+
+  /**
+   * Creates a columnar form of a cycle's results.
+   * <p>
+   * If the compiled view definition is given the columns are keyed by the value requirements from the view definition, otherwise by the resolved
+   * value specifications.
+   *
+   * @param results the results, not null
+   * @param compiledViewDefinition the compiled view definition the results were calculated from, null if not known
+   * @return the columnar results, not null
+   */
+  public static ColumnarViewResultModel of(final ViewResultModel results, final CompiledViewDefinition compiledViewDefinition) {
+    ArgumentChecker.notNull(results, "results");
+    final Collection<String> calcConfigNames = results.getCalculationConfigurationNames();
+    final ColumnarViewCalculationResultModel[] calculationResults = new ColumnarViewCalculationResultModel[calcConfigNames.size()];
+    int i = 0;
+    for (final String calcConfigName : calcConfigNames) {
+      Map<ValueSpecification, Set<ValueRequirement>> terminalOutputs = null;
+      if (compiledViewDefinition != null) {
+        final CompiledViewCalculationConfiguration calcConfig = compiledViewDefinition.getCompiledCalculationConfiguration(calcConfigName);
+        if (calcConfig != null) {
+          terminalOutputs = calcConfig.getTerminalOutputSpecifications();
+        }
+      }
+      calculationResults[i++] = ColumnarViewCalculationResultModel.of(calcConfigName, results.getCalculationResult(calcConfigName), terminalOutputs);
+    }
+    return new ColumnarViewResultModel(results.getViewProcessId(), results.getViewCycleId(), results.getCalculationTime(), results.getCalculationDuration(),
+        results.getVersionCorrection(), Arrays.asList(calculationResults));
+  }
+
+  public UniqueId getViewProcessId() {
+    return _viewProcessId;
+  }
+
+  public UniqueId getViewCycleId() {
+    return _viewCycleId;
+  }
+
+  public Instant getCalculationTime() {
+    return _calculationTime;
+  }
+
+  public Duration getCalculationDuration() {
+    return _calculationDuration;
+  }
+
+  public VersionCorrection getVersionCorrection() {
+    return _versionCorrection;
+  }
+
+  /**
+   * Returns all of the calculation configuration names.
+   *
+   * @return the calculation configuration names, not null
+   */
+  public Collection<String> getCalculationConfigurationNames() {
+    return Collections.unmodifiableSet(_calculationResults.keySet());
+  }
+
+  /**
+   * Returns the results for a calculation configuration.
+   *
+   * @param calcConfigurationName the name of the configuration, not null
+   * @return the results, null if the configuration was not found
+   */
+  public ColumnarViewCalculationResultModel getCalculationResult(final String calcConfigurationName) {
+    return _calculationResults.get(calcConfigurationName);
+  }
+
+  /**
+   * Returns the results for all calculation configurations.
+   *
+   * @return the results, not null
+   */
+  public Collection<ColumnarViewCalculationResultModel> getCalculationResults() {
+    return Collections.unmodifiableCollection(_calculationResults.values());
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnarViewResultModel[" + _viewCycleId + ", " + _calculationResults.values() + "]";
+  }
+
+}
@@ -27,6 +27,7 @@ import com.opengamma.engine.marketdata.MarketDataInjector;
 import com.opengamma.engine.resource.EngineResourceReference;
 import com.opengamma.engine.resource.EngineResourceRetainer;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ColumnarViewResultModel;
 import com.opengamma.engine.view.ExecutionLogMode;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDefinition;
@@ -41,6 +42,7 @@ import com.opengamma.engine.view.cycle.ViewCycleMetadata;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.execution.ViewExecutionOptions;
 import com.opengamma.engine.view.impl.ViewProcessorImpl;
+import com.opengamma.engine.view.listener.ColumnarViewResultListener;
 import com.opengamma.engine.view.listener.ViewResultListener;
 import com.opengamma.engine.view.permission.ViewPermissionContext;
 import com.opengamma.engine.view.permission.ViewPermissionProvider;
@@ -114,7 +116,7 @@ public class ViewClientImpl implements ViewClient {
     _user = user;
     _latestCycleRetainer = new EngineResourceRetainer(viewProcessor.getViewCycleManager());
 
-    ViewResultListener mergedViewProcessListener = new ViewResultListener() {
+    ColumnarViewResultListener mergedViewProcessListener = new ColumnarViewResultListener() {
 
       @Override
       public UserPrincipal getUser() {
@@ -182,16 +184,34 @@ public class ViewClientImpl implements ViewClient {
         }
       }
 
+      @Override
+      public boolean isColumnarResultRequired() {
+        ViewResultListener listener = _userResultListener.get();
+        return (listener instanceof ColumnarViewResultListener) && ((ColumnarViewResultListener) listener).isColumnarResultRequired();
+      }
+
       @Override
       public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
+        cycleCompleted(fullResult, null, deltaResult);
+      }
+
+      @Override
+      public void cycleCompleted(ViewComputationResultModel fullResult, ColumnarViewResultModel columnarResult, ViewDeltaResultModel deltaResult) {
         boolean isFirstResult = updateLatestResult(fullResult);
         ViewResultListener listener = _userResultListener.get();
         if (listener != null) {
           ViewResultMode resultMode = getResultMode();
           if (!resultMode.equals(ViewResultMode.NONE)) {
+            if (resultMode == ViewResultMode.DELTA_STREAM && deltaResult == null) {
+              // The stream has no delta to offer so is resynchronising with a full result
+              isFirstResult = true;
+            }
             ViewComputationResultModel userFullResult = isFullResultRequired(resultMode, isFirstResult) ? fullResult : null;
             ViewDeltaResultModel userDeltaResult = isDeltaResultRequired(resultMode, isFirstResult) ? deltaResult : null;
-            if (userFullResult != null || userDeltaResult != null) {
+            if ((userFullResult != null) && (columnarResult != null) && (listener instanceof ColumnarViewResultListener)
+                && ((ColumnarViewResultListener) listener).isColumnarResultRequired()) {
+              ((ColumnarViewResultListener) listener).cycleCompleted(userFullResult, columnarResult, userDeltaResult);
+            } else if (userFullResult != null || userDeltaResult != null) {
               listener.cycleCompleted(userFullResult, userDeltaResult);
             } else if (!isFirstResult || resultMode != ViewResultMode.DELTA_ONLY) {
               // Would expect this if it's the first result and we're in delta only mode, otherwise log a warning
@@ -405,7 +425,13 @@ public class ViewClientImpl implements ViewClient {
 
   @Override
   public void setResultMode(ViewResultMode resultMode) {
-    _resultMode.set(resultMode);
+    _clientLock.lock();
+    try {
+      _resultMode.set(resultMode);
+      updateListenerResultModes();
+    } finally {
+      _clientLock.unlock();
+    }
   }
 
   @Override
@@ -415,7 +441,23 @@ public class ViewClientImpl implements ViewClient {
 
   @Override
   public void setFragmentResultMode(ViewResultMode fragmentResultMode) {
-    _fragmentResultMode.set(fragmentResultMode);
+    _clientLock.lock();
+    try {
+      _fragmentResultMode.set(fragmentResultMode);
+      updateListenerResultModes();
+    } finally {
+      _clientLock.unlock();
+    }
+  }
+
+  /**
+   * Passes the result modes on to the view process, if attached, so that it only calculates deltas and keeps a delta journal while they are wanted.
+   * Caller MUST hold the client lock.
+   */
+  private void updateListenerResultModes() {
+    if (isAttached()) {
+      getViewProcessor().getViewProcessForClient(getUniqueId()).setListenerResultModes(_mergingViewProcessListener, getResultMode(), getFragmentResultMode());
+    }
   }
 
   //-------------------------------------------------------------------------
@@ -647,6 +689,7 @@ public class ViewClientImpl implements ViewClient {
       case FULL_ONLY:
         return true;
       case FULL_THEN_DELTA:
+      case DELTA_STREAM:
         return isFirstResult;
       default:
         return false;
@@ -659,6 +702,7 @@ public class ViewClientImpl implements ViewClient {
       case DELTA_ONLY:
         return true;
       case FULL_THEN_DELTA:
+      case DELTA_STREAM:
         return !isFirstResult;
       default:
         return false;
@@ -30,6 +30,13 @@ public enum ViewResultMode {
    */
   BOTH,
 
+  /**
+   * A full result will be propagated on the first cycle, followed by delta results. If the listener has not consumed the results from several cycles
+   * the deltas for those cycles will be merged. The deltas are read from a journal shared with other clients attached to the view process in this mode,
+   * and a full result is propagated again if the client falls too far behind for them to be available.
+   */
+  DELTA_STREAM,
+
   /**
    * Neither full nor delta results will be propagated to the listener.
    */
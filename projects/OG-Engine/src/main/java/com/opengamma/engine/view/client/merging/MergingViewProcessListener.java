@@ -15,18 +15,22 @@ import org.threeten.bp.Instant;
 import com.google.common.base.Function;
 import com.opengamma.engine.resource.EngineResourceManagerInternal;
 import com.opengamma.engine.resource.EngineResourceRetainer;
+import com.opengamma.engine.view.ColumnarViewResultModel;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDeltaResultModel;
 import com.opengamma.engine.view.compilation.CompiledViewDefinition;
 import com.opengamma.engine.view.cycle.ViewCycleMetadata;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.listener.ClientShutdownCall;
+import com.opengamma.engine.view.listener.ColumnarViewResultListener;
 import com.opengamma.engine.view.listener.CycleCompletedCall;
 import com.opengamma.engine.view.listener.CycleExecutionFailedCall;
 import com.opengamma.engine.view.listener.CycleFragmentCompletedCall;
 import com.opengamma.engine.view.listener.CycleStartedCall;
+import com.opengamma.engine.view.listener.DeltaStreamViewResultListener;
 import com.opengamma.engine.view.listener.ProcessCompletedCall;
 import com.opengamma.engine.view.listener.ProcessTerminatedCall;
+import com.opengamma.engine.view.listener.ViewDeltaJournal;
 import com.opengamma.engine.view.listener.ViewDefinitionCompilationFailedCall;
 import com.opengamma.engine.view.listener.ViewDefinitionCompiledCall;
 import com.opengamma.engine.view.listener.ViewResultListener;
@@ -41,7 +45,7 @@ import com.opengamma.util.ArgumentChecker;
  * view compilation and a number of cycles run, the events released will be the compilation notification, merged events corresponding to the last full cycle, and anything available for any incomplete
  * cycle.
  */
-public class MergingViewProcessListener implements ViewResultListener {
+public class MergingViewProcessListener implements DeltaStreamViewResultListener, ColumnarViewResultListener {
 
   private static final Logger s_logger = LoggerFactory.getLogger(MergingViewProcessListener.class);
 
@@ -139,6 +143,14 @@ public class MergingViewProcessListener implements ViewResultListener {
    * The last cycle completed notification seen. There will be no earlier cycle completion or failure notifications in the queue.
    */
   private Call<CycleCompletedCall> _cycleCompleted;
+  /**
+   * The pending delivery from {@link #_deltaStream}, if there is one. There will be no earlier cycle completion or failure notifications in the queue.
+   */
+  private Call<ViewDeltaJournal.Cursor> _cycleStreamed;
+  /**
+   * The position in the view process's delta journal when results are being streamed, null otherwise.
+   */
+  private ViewDeltaJournal.Cursor _deltaStream;
 
   public MergingViewProcessListener(ViewResultListener underlying, EngineResourceManagerInternal<?> cycleManager) {
     ArgumentChecker.notNull(underlying, "underlying");
@@ -209,6 +221,31 @@ public class MergingViewProcessListener implements ViewResultListener {
     }
   }
 
+  /**
+   * Sets the journal to stream cycle results from. While set, the results passed to {@link #cycleCompleted} are ignored and only used as a trigger; the
+   * underlying listener is instead given whatever has been journalled since the last cycle it received. Any completed cycle already queued is discarded
+   * and the next delivery will be the latest full result.
+   * 
+   * @param journal the journal to stream from, or null to merge the results passed to this listener
+   */
+  @Override
+  public void setDeltaJournal(ViewDeltaJournal journal) {
+    _mergerLock.lock();
+    try {
+      if (_cycleCompleted != null) {
+        removeCall(_cycleCompleted);
+        _cycleCompleted = null;
+      }
+      if (_cycleStreamed != null) {
+        removeCall(_cycleStreamed);
+        _cycleStreamed = null;
+      }
+      _deltaStream = (journal != null) ? journal.newCursor() : null;
+    } finally {
+      _mergerLock.unlock();
+    }
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public UserPrincipal getUser() {
@@ -270,10 +307,22 @@ public class MergingViewProcessListener implements ViewResultListener {
     getUnderlying().cycleStarted(cycleMetadata);
   }
 
+  @Override
+  public boolean isColumnarResultRequired() {
+    return (getUnderlying() instanceof ColumnarViewResultListener) && ((ColumnarViewResultListener) getUnderlying()).isColumnarResultRequired();
+  }
+
   @Override
   public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
+    cycleCompleted(fullResult, null, deltaResult);
+  }
+
+  @Override
+  public void cycleCompleted(ViewComputationResultModel fullResult, ColumnarViewResultModel columnarResult, ViewDeltaResultModel deltaResult) {
+    final ViewDeltaJournal.Cursor deltaStream;
     _mergerLock.lock();
     try {
+      deltaStream = _deltaStream;
       _lastUpdateMillis.set(System.currentTimeMillis());
       if (isLatestResultCycleRetained() && fullResult != null) {
         getCycleRetainer().replaceRetainedCycle(fullResult.getViewCycleId());
@@ -284,14 +333,21 @@ public class MergingViewProcessListener implements ViewResultListener {
           removeCall(_cycleFailed);
           _cycleFailed = null;
         }
-        if (_cycleCompleted != null) {
+        if (deltaStream != null) {
+          // The cursor reads everything outstanding when the queue is drained so only needs to appear once
+          if (_cycleStreamed != null) {
+            putCallToEnd(_cycleStreamed);
+          } else {
+            _cycleStreamed = addCall(deltaStream);
+          }
+        } else if (_cycleCompleted != null) {
           // There's a previous cycle completed call in the queue - move to end
           putCallToEnd(_cycleCompleted);
           // Merge new cycle completed call into old one
-          _cycleCompleted.getFunction().update(fullResult, deltaResult);
+          _cycleCompleted.getFunction().update(fullResult, columnarResult, deltaResult);
         } else {
           // No existing cycle completed call - add new one
-          _cycleCompleted = addCall(new CycleCompletedCall(fullResult, deltaResult));
+          _cycleCompleted = addCall(new CycleCompletedCall(fullResult, columnarResult, deltaResult));
         }
         // Only keep any fragment corresponding to this latest result
         if (_previousCycleFragmentCompleted != null) {
@@ -314,7 +370,13 @@ public class MergingViewProcessListener implements ViewResultListener {
     } finally {
       _mergerLock.unlock();
     }
-    getUnderlying().cycleCompleted(fullResult, deltaResult);
+    if (deltaStream != null) {
+      deltaStream.apply(getUnderlying());
+    } else if ((columnarResult != null) && isColumnarResultRequired()) {
+      ((ColumnarViewResultListener) getUnderlying()).cycleCompleted(fullResult, columnarResult, deltaResult);
+    } else {
+      getUnderlying().cycleCompleted(fullResult, deltaResult);
+    }
   }
 
   @Override
@@ -351,6 +413,11 @@ public class MergingViewProcessListener implements ViewResultListener {
           removeCall(_cycleCompleted);
           _cycleCompleted = null;
         }
+        if (_cycleStreamed != null) {
+          // Remove any pending stream delivery; the cursor hasn't moved so those cycles will be included in the next one
+          removeCall(_cycleStreamed);
+          _cycleStreamed = null;
+        }
         if (_cycleFailed != null) {
           // Remove any previous failure
           removeCall(_cycleFailed);
@@ -438,6 +505,7 @@ public class MergingViewProcessListener implements ViewResultListener {
     _latestCycleStarted = null;
     _cycleFailed = null;
     _cycleCompleted = null;
+    _cycleStreamed = null;
     _previousCycleFragmentCompleted = null;
     _latestCycleFragmentCompleted = null;
   }
@@ -492,6 +560,7 @@ public class MergingViewProcessListener implements ViewResultListener {
     _mergerLock.lock();
     try {
       clearCallQueue();
+      _deltaStream = null;
       getCycleRetainer().replaceRetainedCycle(null);
     } finally {
       _mergerLock.unlock();
@@ -26,6 +26,7 @@ import com.opengamma.core.security.SecurityLink;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.MemoryUtils;
 import com.opengamma.engine.depgraph.DependencyGraphBuilder;
+import com.opengamma.engine.depgraph.PartitionedDependencyGraphBuilder;
 import com.opengamma.engine.target.ComputationTargetReference;
 import com.opengamma.engine.target.ComputationTargetRequirement;
 import com.opengamma.engine.target.ComputationTargetType;
@@ -86,6 +87,7 @@ import com.opengamma.util.tuple.Pairs;
   private final List<MergedOutput> _mergedOutputs;
   private final Set<ValueRequirement> _alreadyAdded;
   private final DependencyGraphBuilder _builder;
+  private final PartitionedDependencyGraphBuilder _partitionedBuilder;
   private final ConcurrentMap<ComputationTargetReference, UniqueId> _resolutions;
   private final boolean _outputAggregates;
   private final boolean _outputPositions;
@@ -100,6 +102,18 @@ import com.opengamma.util.tuple.Pairs;
   public PortfolioCompilerTraversalCallback(final ViewCalculationConfiguration calculationConfiguration, final DependencyGraphBuilder builder,
       final Set<ValueRequirement> alreadyAdded, final ConcurrentMap<ComputationTargetReference, UniqueId> resolutions, final Set<UniqueId> includeEvents,
       final Set<UniqueId> excludeEvents) {
+    this(calculationConfiguration, builder, null, alreadyAdded, resolutions, includeEvents, excludeEvents);
+  }
+
+  public PortfolioCompilerTraversalCallback(final ViewCalculationConfiguration calculationConfiguration, final PartitionedDependencyGraphBuilder builder,
+      final Set<ValueRequirement> alreadyAdded, final ConcurrentMap<ComputationTargetReference, UniqueId> resolutions, final Set<UniqueId> includeEvents,
+      final Set<UniqueId> excludeEvents) {
+    this(calculationConfiguration, null, builder, alreadyAdded, resolutions, includeEvents, excludeEvents);
+  }
+
+  private PortfolioCompilerTraversalCallback(final ViewCalculationConfiguration calculationConfiguration, final DependencyGraphBuilder builder,
+      final PartitionedDependencyGraphBuilder partitionedBuilder, final Set<ValueRequirement> alreadyAdded, final ConcurrentMap<ComputationTargetReference, UniqueId> resolutions,
+      final Set<UniqueId> includeEvents, final Set<UniqueId> excludeEvents) {
     _portfolioRequirementsBySecurityType = calculationConfiguration.getPortfolioRequirementsBySecurityType();
     _mergedOutputs = calculationConfiguration.getMergedOutputs();
     final ResultModelDefinition resultModelDefinition = calculationConfiguration.getViewDefinition().getResultModelDefinition();
@@ -107,6 +121,7 @@ import com.opengamma.util.tuple.Pairs;
     _outputPositions = resultModelDefinition.getPositionOutputMode() != ResultOutputMode.NONE;
     _outputTrades = resultModelDefinition.getTradeOutputMode() != ResultOutputMode.NONE;
     _builder = builder;
+    _partitionedBuilder = partitionedBuilder;
     _alreadyAdded = alreadyAdded;
     _resolutions = resolutions;
     _includeEvents = includeEvents;
@@ -126,7 +141,8 @@ import com.opengamma.util.tuple.Pairs;
   }
 
   /**
-   * Add the specified value requirement to the dep graph builder, triggering graph building by background threads.
+   * Add the specified value requirement to the dep graph builder, triggering graph building by background threads. A partitioned builder only queues the
+   * requirement in its shard until the graph is requested.
    * <p>
    * If supplied, the {@link #_alreadyAdded} set member is used to identify anything that has already been added from the specific requirements of a view or as part of invalidating a previous graph.
    * See the notes in {@link DependencyGraphBuilder} for the hazards of requesting the same value requirement multiple times.
@@ -135,7 +151,11 @@ import com.opengamma.util.tuple.Pairs;
    */
   protected void addValueRequirement(final ValueRequirement valueRequirement) {
     if ((_alreadyAdded == null) || !_alreadyAdded.contains(valueRequirement)) {
-      _builder.addTarget(valueRequirement);
+      if (_builder != null) {
+        _builder.addTarget(valueRequirement);
+      } else {
+        _partitionedBuilder.addTarget(valueRequirement);
+      }
     } else {
       s_logger.debug("Suppressing {} from the incremental requirement set", valueRequirement);
     }
@@ -18,6 +18,7 @@ import com.google.common.collect.Sets;
 import com.opengamma.engine.ComputationTargetResolver;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyGraphBuilder;
+import com.opengamma.engine.depgraph.PartitionedDependencyGraphBuilder;
 import com.opengamma.engine.function.FunctionCompilationContext;
 import com.opengamma.engine.function.resolver.CompiledFunctionResolver;
 import com.opengamma.engine.function.resolver.ComputationTargetResults;
@@ -80,6 +81,23 @@ import com.opengamma.id.VersionCorrection;
     return builder;
   }
 
+  /**
+   * Creates a builder that partitions the requirements of a calculation configuration between a number of shards. The shards are configured in the
+   * same way as the given builder, sharing its compilation context and function resolver.
+   * 
+   * @param builder the builder created for the calculation configuration by {@link #createBuilder}, not null
+   * @param partitions the number of shards, at least one
+   * @return the partitioned builder, not null
+   */
+  public PartitionedDependencyGraphBuilder createPartitionedBuilder(final DependencyGraphBuilder builder, final int partitions) {
+    final PartitionedDependencyGraphBuilder partitioned = _services.getDependencyGraphBuilder().newPartitionedInstance(partitions);
+    partitioned.setCalculationConfigurationName(builder.getCalculationConfigurationName());
+    partitioned.setMarketDataAvailabilityProvider(builder.getMarketDataAvailabilityProvider());
+    partitioned.setFunctionResolver(builder.getFunctionResolver());
+    partitioned.setCompilationContext(builder.getCompilationContext());
+    return partitioned;
+  }
+
   public ViewDefinition getViewDefinition() {
     return _viewDefinition;
   }
@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -44,6 +45,7 @@ import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyGraphBuilder;
 import com.opengamma.engine.depgraph.DependencyNode;
 import com.opengamma.engine.depgraph.Housekeeper;
+import com.opengamma.engine.depgraph.PartitionedDependencyGraphBuilder;
 import com.opengamma.engine.depgraph.impl.DependencyGraphImpl;
 import com.opengamma.engine.depgraph.impl.RootDiscardingSubgrapher;
 import com.opengamma.engine.function.FunctionCompilationContext;
@@ -179,14 +181,24 @@ public final class ViewDefinitionCompiler {
 
     protected abstract void compile(DependencyGraphBuilder builder);
 
+    /**
+     * Adds the requirements for a calculation configuration to its builder and waits for the graph to be built.
+     * 
+     * @param builder the builder for the calculation configuration, not null
+     * @return the graph, not null
+     */
+    protected DependencyGraph build(final DependencyGraphBuilder builder) {
+      compile(builder);
+      return builder.getDependencyGraph();
+    }
+
     protected void compile() {
       final Iterator<DependencyGraphBuilder> builders = getContext().getBuilders().iterator();
       while (builders.hasNext()) {
         final DependencyGraphBuilder builder = builders.next();
-        compile(builder);
         // TODO: Use a heuristic to decide whether to let the graph builds run in parallel, or sequentially. We will force sequential builds for the time being.
         // Wait for the current config's dependency graph to be built before moving to the next view calc config
-        DependencyGraph graph = builder.getDependencyGraph();
+        DependencyGraph graph = build(builder);
         builders.remove();
         graph = DependencyGraphImpl.removeUnnecessaryValues(graph);
         getContext().getGraphs().add(graph);
@@ -344,10 +356,27 @@ public final class ViewDefinitionCompiler {
 
   private static class FullCompilationTask extends CompilationTask {
 
+    private volatile PartitionedDependencyGraphBuilder _partitionedBuilder;
+
     protected FullCompilationTask(final ViewCompilationContext context) {
       super(context);
     }
 
+    private List<ValueRequirement> getTerminalRequirements(final Set<ValueRequirement> specificRequirements) {
+      final List<ValueRequirement> requirements = new ArrayList<ValueRequirement>(specificRequirements.size());
+      final ResultModelDefinition resultModelDefinition = getContext().getViewDefinition().getResultModelDefinition();
+      for (final ValueRequirement requirement : specificRequirements) {
+        final ComputationTargetReference targetReference = requirement.getTargetReference();
+        if (resultModelDefinition.getOutputMode(targetReference.getType()) == ResultOutputMode.NONE) {
+          // We're not including this in the results, so no point it being a terminal output. It will be added
+          // automatically if it is needed for some other terminal output.
+          continue;
+        }
+        requirements.add(requirement);
+      }
+      return requirements;
+    }
+
     @Override
     protected void compile(final DependencyGraphBuilder builder) {
       final ViewCalculationConfiguration config = getContext().getViewDefinition().getCalculationConfiguration(builder.getCalculationConfigurationName());
@@ -355,14 +384,7 @@ public final class ViewDefinitionCompiler {
       if (specificRequirements.isEmpty()) {
         specificRequirements = null;
       } else {
-        final ResultModelDefinition resultModelDefinition = getContext().getViewDefinition().getResultModelDefinition();
-        for (final ValueRequirement requirement : specificRequirements) {
-          final ComputationTargetReference targetReference = requirement.getTargetReference();
-          if (resultModelDefinition.getOutputMode(targetReference.getType()) == ResultOutputMode.NONE) {
-            // We're not including this in the results, so no point it being a terminal output. It will be added
-            // automatically if it is needed for some other terminal output.
-            continue;
-          }
+        for (final ValueRequirement requirement : getTerminalRequirements(specificRequirements)) {
           // Add the specific requirement to the current calc config's dep graph builder
           builder.addTarget(requirement);
         }
@@ -370,6 +392,47 @@ public final class ViewDefinitionCompiler {
       addPortfolioRequirements(builder, specificRequirements, getContext(), config, null, null);
     }
 
+    /**
+     * Builds the graph for a calculation configuration, partitioning the requirements between a number of shards if the dependency graph builder
+     * factory has been configured with more than one.
+     */
+    @Override
+    protected DependencyGraph build(final DependencyGraphBuilder builder) {
+      final int partitions = getContext().getServices().getDependencyGraphBuilder().getPartitions();
+      if (partitions <= 1) {
+        return super.build(builder);
+      }
+      final PartitionedDependencyGraphBuilder partitionedBuilder = getContext().createPartitionedBuilder(builder, partitions);
+      _partitionedBuilder = partitionedBuilder;
+      final ViewCalculationConfiguration config = getContext().getViewDefinition().getCalculationConfiguration(builder.getCalculationConfigurationName());
+      Set<ValueRequirement> specificRequirements = config.getSpecificRequirements();
+      if (specificRequirements.isEmpty()) {
+        specificRequirements = null;
+      } else {
+        partitionedBuilder.addTarget(getTerminalRequirements(specificRequirements));
+      }
+      addPortfolioRequirements(builder, partitionedBuilder, specificRequirements, getContext(), config, null, null);
+      s_logger.info("Building {} in {} partitions", builder.getCalculationConfigurationName(), partitions);
+      final DependencyGraph graph = partitionedBuilder.getDependencyGraph();
+      _partitionedBuilder = null;
+      return graph;
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+      final PartitionedDependencyGraphBuilder partitionedBuilder = _partitionedBuilder;
+      if (partitionedBuilder != null) {
+        partitionedBuilder.cancel(mayInterruptIfRunning);
+      }
+      return super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+      final PartitionedDependencyGraphBuilder partitionedBuilder = _partitionedBuilder;
+      return ((partitionedBuilder != null) && partitionedBuilder.isCancelled()) || super.isCancelled();
+    }
+
     @Override
     protected void compile() {
       s_logger.info("Performing full compilation");
@@ -625,14 +688,30 @@ public final class ViewDefinitionCompiler {
 
   private static void addPortfolioRequirements(final DependencyGraphBuilder builder, final Set<ValueRequirement> alreadyAdded, final ViewCompilationContext context,
       final ViewCalculationConfiguration calcConfig, final Set<UniqueId> includeEvents, final Set<UniqueId> excludeEvents) {
+    addPortfolioRequirements(builder, null, alreadyAdded, context, calcConfig, includeEvents, excludeEvents);
+  }
+
+  /**
+   * Adds the portfolio requirements to a builder. If a partitioned builder is given the requirements are added to that instead and the builder is only
+   * used for its compilation context. Striping is not used with a partitioned builder as it queues the requirements without resolving them until the
+   * graph is requested.
+   */
+  private static void addPortfolioRequirements(final DependencyGraphBuilder builder, final PartitionedDependencyGraphBuilder partitionedBuilder,
+      final Set<ValueRequirement> alreadyAdded, final ViewCompilationContext context, final ViewCalculationConfiguration calcConfig, final Set<UniqueId> includeEvents,
+      final Set<UniqueId> excludeEvents) {
     if (calcConfig.getAllPortfolioRequirements().size() == 0) {
       // No portfolio requirements for this calculation configuration - avoid further processing.
       return;
     }
     final Portfolio portfolio = builder.getCompilationContext().getPortfolio();
-    final PortfolioCompilerTraversalCallback traversalCallback = new PortfolioCompilerTraversalCallback(calcConfig, builder, alreadyAdded, context.getActiveResolutions(), includeEvents, excludeEvents);
+    final PortfolioCompilerTraversalCallback traversalCallback;
+    if (partitionedBuilder != null) {
+      traversalCallback = new PortfolioCompilerTraversalCallback(calcConfig, partitionedBuilder, alreadyAdded, context.getActiveResolutions(), includeEvents, excludeEvents);
+    } else {
+      traversalCallback = new PortfolioCompilerTraversalCallback(calcConfig, builder, alreadyAdded, context.getActiveResolutions(), includeEvents, excludeEvents);
+    }
     final PortfolioNodeTraverser traverser = PortfolioNodeTraverser.parallel(traversalCallback, context.getServices().getExecutorService());
-    if (isStripedPortfolioRequirements()) {
+    if (isStripedPortfolioRequirements() && (partitionedBuilder == null)) {
       final Map<String, Set<Pair<String, ValueProperties>>> requirementsBySecurityType = traversalCallback.getPortfolioRequirementsBySecurityType();
       Map<String, Set<Pair<String, ValueProperties>>> requirementSubSet = Maps.newHashMapWithExpectedSize(requirementsBySecurityType.size());
       traversalCallback.setPortfolioRequirementsBySecurityType(requirementSubSet);
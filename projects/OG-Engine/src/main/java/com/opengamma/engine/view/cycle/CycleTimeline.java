@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cycle;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Records when the phases of a single view cycle happened, for offline analysis of where the cycle time goes.
+ * <p>
+ * Events are the phase name, an optional detail such as the calculation configuration or calculation node, and the start and end times from
+ * {@link System#nanoTime}. Recording an event only appends to a concurrent queue so can be done from any thread on the hot path. The timeline
+ * can be appended to a file as comma separated values with one row per event and times in microseconds from the creation of the timeline.
+ */
+public final class CycleTimeline {
+
+  /**
+   * The header row written to a new file by {@link #appendTo(File)}.
+   */
+  public static final String HEADER = "cycle,phase,detail,startMicros,durationMicros";
+
+  /**
+   * An event in the timeline.
+   */
+  public static final class Event {
+
+    private final String _phase;
+    private final String _detail;
+    private final long _startNanos;
+    private final long _endNanos;
+
+    private Event(final String phase, final String detail, final long startNanos, final long endNanos) {
+      _phase = phase;
+      _detail = detail;
+      _startNanos = startNanos;
+      _endNanos = endNanos;
+    }
+
+    /**
+     * Returns the name of the phase.
+     *
+     * @return the phase, not null
+     */
+    public String getPhase() {
+      return _phase;
+    }
+
+    /**
+     * Returns the detail of the event.
+     *
+     * @return the detail, null if none
+     */
+    public String getDetail() {
+      return _detail;
+    }
+
+    /**
+     * Returns the start of the event.
+     *
+     * @return the {@link System#nanoTime} value at the start
+     */
+    public long getStartNanos() {
+      return _startNanos;
+    }
+
+    /**
+     * Returns the end of the event.
+     *
+     * @return the {@link System#nanoTime} value at the end
+     */
+    public long getEndNanos() {
+      return _endNanos;
+    }
+
+    @Override
+    public String toString() {
+      return _phase + ((_detail != null) ? "[" + _detail + "]" : "") + " " + (_endNanos - _startNanos) + "ns";
+    }
+
+  }
+
+  private final UniqueId _cycleId;
+  private final long _originNanos;
+  private final Queue<Event> _events = new ConcurrentLinkedQueue<Event>();
+
+  /**
+   * Creates a timeline starting now.
+   *
+   * @param cycleId the identifier of the cycle, not null
+   */
+  public CycleTimeline(final UniqueId cycleId) {
+    this(cycleId, System.nanoTime());
+  }
+
+  /**
+   * Creates a timeline starting at a given time, for example when work on the cycle started before it was created.
+   *
+   * @param cycleId the identifier of the cycle, not null
+   * @param originNanos the {@link System#nanoTime} value that event times are written relative to
+   */
+  public CycleTimeline(final UniqueId cycleId, final long originNanos) {
+    ArgumentChecker.notNull(cycleId, "cycleId");
+    _cycleId = cycleId;
+    _originNanos = originNanos;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the identifier of the cycle.
+   *
+   * @return the identifier, not null
+   */
+  public UniqueId getCycleId() {
+    return _cycleId;
+  }
+
+  /**
+   * Records an event.
+   *
+   * @param phase the name of the phase, not null
+   * @param detail the detail of the event, null if none
+   * @param startNanos the {@link System#nanoTime} value at the start of the event
+   * @param endNanos the {@link System#nanoTime} value at the end of the event
+   */
+  public void record(final String phase, final String detail, final long startNanos, final long endNanos) {
+    _events.add(new Event(phase, detail, startNanos, endNanos));
+  }
+
+  /**
+   * Records an event that ends now.
+   *
+   * @param phase the name of the phase, not null
+   * @param detail the detail of the event, null if none
+   * @param startNanos the {@link System#nanoTime} value at the start of the event
+   */
+  public void record(final String phase, final String detail, final long startNanos) {
+    record(phase, detail, startNanos, System.nanoTime());
+  }
+
+  /**
+   * Returns the events recorded so far, in order of their start.
+   *
+   * @return the events, not null
+   */
+  public List<Event> getEvents() {
+    final List<Event> events = new ArrayList<Event>(_events);
+    Collections.sort(events, new Comparator<Event>() {
+      @Override
+      public int compare(final Event a, final Event b) {
+        return Long.compare(a.getStartNanos() - _originNanos, b.getStartNanos() - _originNanos);
+      }
+    });
+    return events;
+  }
+
+  //-------------------------------------------------------------------------
+  private static void writeField(final Writer writer, final String value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    if ((value.indexOf(',') < 0) && (value.indexOf('"') < 0) && (value.indexOf('\n') < 0)) {
+      writer.write(value);
+    } else {
+      writer.write('"');
+      writer.write(value.replace("\"", "\"\""));
+      writer.write('"');
+    }
+  }
+
+  /**
+   * Writes the events as comma separated values, without the header row.
+   *
+   * @param writer the writer to write to, not null
+   * @throws IOException if the writer fails
+   */
+  public void write(final Writer writer) throws IOException {
+    ArgumentChecker.notNull(writer, "writer");
+    final String cycleId = _cycleId.toString();
+    for (final Event event : getEvents()) {
+      writeField(writer, cycleId);
+      writer.write(',');
+      writeField(writer, event.getPhase());
+      writer.write(',');
+      writeField(writer, event.getDetail());
+      writer.write(',');
+      writer.write(Long.toString(TimeUnit.NANOSECONDS.toMicros(event.getStartNanos() - _originNanos)));
+      writer.write(',');
+      writer.write(Long.toString(TimeUnit.NANOSECONDS.toMicros(event.getEndNanos() - event.getStartNanos())));
+      writer.write('\n');
+    }
+  }
+
+  /**
+   * Appends the events to a file, writing the header row first if the file is new or empty.
+   *
+   * @param file the file to append to, not null
+   * @throws IOException if the file cannot be written
+   */
+  public void appendTo(final File file) throws IOException {
+    ArgumentChecker.notNull(file, "file");
+    final boolean header = !file.exists() || (file.length() == 0);
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+      if (header) {
+        writer.write(HEADER);
+        writer.write('\n');
+      }
+      write(writer);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CycleTimeline[" + _cycleId + ", " + _events.size() + " events]";
+  }
+
+}
@@ -5,6 +5,8 @@
  */
 package com.opengamma.engine.view.cycle;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -14,6 +16,7 @@ import com.opengamma.engine.cache.CacheSelectHint;
 import com.opengamma.engine.cache.ViewComputationCache;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.depgraph.impl.DependentNodeIndex;
 import com.opengamma.engine.function.MarketDataSourcingFunction;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.util.ArgumentChecker;
@@ -29,10 +32,11 @@ public class LiveDataDeltaCalculator {
   private final ViewComputationCache _previousCache;
   private final Set<ValueSpecification> _changedSpecifications;
 
-  private final Set<DependencyNode> _changedNodes = new HashSet<DependencyNode>();
+  private Set<DependencyNode> _changedNodes = new HashSet<DependencyNode>();
   private final Set<DependencyNode> _unchangedNodes = new HashSet<DependencyNode>();
 
   private boolean _done; // = false
+  private boolean _unchangedNodesKnown; // = false
 
   /**
    * For the delta calculation to be meaningful, the caches should be populated with LiveData inputs required to compute the given dependency graph. See {@link DependencyNode#getRequiredLiveData()}
@@ -65,6 +69,9 @@ public class LiveDataDeltaCalculator {
     if (!_done) {
       throw new IllegalStateException("Call computeDelta() first");
     }
+    if (!_unchangedNodesKnown) {
+      throw new IllegalStateException("Unchanged nodes are not determined by computeChangedNodes()");
+    }
     return _unchangedNodes;
   }
 
@@ -77,6 +84,47 @@ public class LiveDataDeltaCalculator {
       computeDelta(_graph.getRootNode(i));
     }
     _done = true;
+    _unchangedNodesKnown = true;
+  }
+
+  /**
+   * Determines the changed nodes from an index of the graph, without visiting the nodes that have not changed.
+   * <p>
+   * The changed nodes are the same as those found by {@link #computeDelta()}: the market data nodes whose values differ, the non-leaf nodes producing a
+   * dirty specification, and everything that depends on those. The unchanged nodes are not determined.
+   * 
+   * @param index the index of the graph passed to the constructor, not null
+   */
+  public void computeChangedNodes(final DependentNodeIndex index) {
+    ArgumentChecker.notNull(index, "index");
+    if (_done) {
+      throw new IllegalStateException("Cannot determine delta twice");
+    }
+    final Collection<DependencyNode> changed = new ArrayList<DependencyNode>();
+    for (final DependencyNode node : index.getMarketDataNodes()) {
+      if (node.getInputCount() == 0) {
+        final int count = node.getOutputCount();
+        for (int i = 0; i < count; i++) {
+          final ValueSpecification liveData = node.getOutputValue(i);
+          final Object oldValue = _previousCache.getValue(liveData, CacheSelectHint.allShared());
+          final Object newValue = _cache.getValue(liveData, CacheSelectHint.allShared());
+          if (!ObjectUtils.equals(oldValue, newValue)) {
+            changed.add(node);
+            break;
+          }
+        }
+      }
+    }
+    if (_changedSpecifications != null) {
+      for (final ValueSpecification dirty : _changedSpecifications) {
+        final DependencyNode node = index.getProducer(dirty);
+        if ((node != null) && (node.getInputCount() > 0)) {
+          changed.add(node);
+        }
+      }
+    }
+    _changedNodes = index.getDependentClosure(changed);
+    _done = true;
   }
 
   private boolean computeDelta(final DependencyNode node) {
@@ -27,9 +27,11 @@ import org.threeten.bp.Duration;
 import org.threeten.bp.Instant;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.opengamma.DataNotFoundException;
 import com.opengamma.engine.ComputationTargetResolver;
 import com.opengamma.engine.cache.MissingInput;
+import com.opengamma.engine.cache.CacheSelectHint;
 import com.opengamma.engine.cache.MissingOutput;
 import com.opengamma.engine.cache.ViewComputationCache;
 import com.opengamma.engine.calcnode.CalculationJob;
@@ -41,6 +43,7 @@ import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyGraphExplorer;
 import com.opengamma.engine.depgraph.DependencyNode;
 import com.opengamma.engine.depgraph.impl.DependencyGraphImpl;
+import com.opengamma.engine.depgraph.impl.DependentNodeIndex;
 import com.opengamma.engine.exec.DefaultAggregatedExecutionLog;
 import com.opengamma.engine.exec.DependencyNodeJobExecutionResult;
 import com.opengamma.engine.exec.DependencyNodeJobExecutionResultCache;
@@ -55,8 +58,11 @@ import com.opengamma.engine.marketdata.manipulator.DistinctMarketDataSelector;
 import com.opengamma.engine.resource.EngineResource;
 import com.opengamma.engine.value.ComputedValue;
 import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.AggregatedExecutionLog;
+import com.opengamma.engine.view.ColumnarViewCalculationResultModel;
+import com.opengamma.engine.view.ColumnarViewResultModel;
 import com.opengamma.engine.view.ExecutionLogMode;
 import com.opengamma.engine.view.ResultModelDefinition;
 import com.opengamma.engine.view.ResultOutputMode;
@@ -77,6 +83,7 @@ import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.log.LogLevel;
 import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Pairs;
 
 /**
  * Holds all data and actions for a single computation pass. The view cycle may be executed at most once.
@@ -106,6 +113,7 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
   private final CompiledViewDefinitionWithGraphs _compiledViewDefinition;
   private final ViewCycleExecutionOptions _executionOptions;
   private final VersionCorrection _versionCorrection;
+  private final boolean _dirtySubgraphExecution;
 
   private final ComputationResultListener _cycleFragmentResultListener;
 
@@ -113,16 +121,38 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
 
   private volatile Instant _startTime;
   private volatile Instant _endTime;
+  private volatile boolean _executionSuppressed;
 
   private final Map<String, DependencyNodeJobExecutionResultCache> _jobResultCachesByCalculationConfiguration = new ConcurrentHashMap<String, DependencyNodeJobExecutionResultCache>();
   private final Map<String, ViewComputationCache> _cachesByCalculationConfiguration = new HashMap<String, ViewComputationCache>();
+  private final Map<String, Pair<DependencyGraph, Set<ValueSpecification>>> _executionSubgraphs = new ConcurrentHashMap<String, Pair<DependencyGraph, Set<ValueSpecification>>>();
   private volatile SingleComputationCycleExecutor _executor;
+  private volatile CycleTimeline _timeline;
 
   // Output
   private final InMemoryViewComputationResultModel _resultModel;
 
   public SingleComputationCycle(final UniqueId cycleId, final String name, final ComputationResultListener cycleFragmentResultListener, final ViewProcessContext viewProcessContext,
       final CompiledViewDefinitionWithGraphs compiledViewDefinition, final ViewCycleExecutionOptions executionOptions, final VersionCorrection versionCorrection) {
+    this(cycleId, name, cycleFragmentResultListener, viewProcessContext, compiledViewDefinition, executionOptions, versionCorrection, false);
+  }
+
+  /**
+   * Creates a cycle.
+   * 
+   * @param cycleId the identifier of the cycle, not null
+   * @param name the name of the cycle
+   * @param cycleFragmentResultListener the listener to receive result fragments, not null
+   * @param viewProcessContext the context of the view process, not null
+   * @param compiledViewDefinition the compiled view definition to execute, not null
+   * @param executionOptions the execution options for the cycle, not null
+   * @param versionCorrection the resolved version/correction, not null
+   * @param dirtySubgraphExecution true to execute only the part of each graph affected by changes when performing a delta cycle, false to plan against the
+   *          whole graph. See {@link com.opengamma.engine.view.execution.ViewExecutionFlags#DIRTY_SUBGRAPH_EXECUTION}.
+   */
+  public SingleComputationCycle(final UniqueId cycleId, final String name, final ComputationResultListener cycleFragmentResultListener, final ViewProcessContext viewProcessContext,
+      final CompiledViewDefinitionWithGraphs compiledViewDefinition, final ViewCycleExecutionOptions executionOptions, final VersionCorrection versionCorrection,
+      final boolean dirtySubgraphExecution) {
     ArgumentChecker.notNull(cycleId, "cycleId");
     ArgumentChecker.notNull(cycleFragmentResultListener, "cycleFragmentResultListener");
     ArgumentChecker.notNull(viewProcessContext, "viewProcessContext");
@@ -136,6 +166,7 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     _cycleFragmentResultListener = cycleFragmentResultListener;
     _executionOptions = executionOptions;
     _versionCorrection = versionCorrection;
+    _dirtySubgraphExecution = dirtySubgraphExecution;
     _resultModel = constructTemplateResultModel();
   }
 
@@ -218,6 +249,24 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     return _versionCorrection;
   }
 
+  /**
+   * Sets the timeline to record the phases of this cycle in.
+   *
+   * @param timeline the timeline, null to not record one
+   */
+  public void setTimeline(final CycleTimeline timeline) {
+    _timeline = timeline;
+  }
+
+  /**
+   * Returns the timeline the phases of this cycle are recorded in.
+   *
+   * @return the timeline, null if one is not being recorded
+   */
+  public CycleTimeline getTimeline() {
+    return _timeline;
+  }
+
   protected ExecutionLogModeSource getLogModeSource() {
     return _viewProcessContext.getExecutionLogModeSource();
   }
@@ -262,6 +311,45 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     return _resultModel;
   }
 
+  /**
+   * Builds the columnar form of the cycle's results by reading the terminal outputs directly from the computation caches, rather than by converting
+   * the map based result model. This must be called before the cycle is released.
+   * 
+   * @return the columnar results, not null
+   */
+  public ColumnarViewResultModel getColumnarResultModel() {
+    final ResultModelDefinition resultModelDefinition = getViewDefinition().getResultModelDefinition();
+    final Collection<ColumnarViewCalculationResultModel> calculationResults = new ArrayList<>();
+    for (final CompiledViewCalculationConfiguration compiledCalcConfig : getCompiledViewDefinition().getCompiledCalculationConfigurations()) {
+      final String calcConfigName = compiledCalcConfig.getName();
+      final Map<ValueSpecification, Set<ValueRequirement>> terminalOutputs = compiledCalcConfig.getTerminalOutputSpecifications();
+      final Collection<Pair<ValueSpecification, Object>> values;
+      if (_executionSuppressed) {
+        values = new ArrayList<>(terminalOutputs.size());
+        for (final ValueSpecification valueSpec : terminalOutputs.keySet()) {
+          values.add(Pairs.<ValueSpecification, Object>of(valueSpec, MissingOutput.SUPPRESSED));
+        }
+      } else {
+        final ViewComputationCache cache = getComputationCache(calcConfigName);
+        if (cache == null) {
+          continue;
+        }
+        final DependencyGraph depGraph = getDependencyGraph(calcConfigName);
+        final Collection<ValueSpecification> outputs = new ArrayList<>(terminalOutputs.size());
+        for (final ValueSpecification valueSpec : terminalOutputs.keySet()) {
+          if (resultModelDefinition.shouldOutputResult(valueSpec, depGraph)) {
+            outputs.add(valueSpec);
+          }
+        }
+        values = cache.getValues(outputs, CacheSelectHint.allShared());
+      }
+      calculationResults.add(ColumnarViewCalculationResultModel.ofValues(calcConfigName, terminalOutputs, values));
+    }
+    final InMemoryViewComputationResultModel resultModel = getResultModel();
+    return new ColumnarViewResultModel(getViewProcessId(), getUniqueId(), resultModel.getCalculationTime(), resultModel.getCalculationDuration(),
+        getVersionCorrection(), calculationResults);
+  }
+
   @Override
   public ComputationCacheResponse queryComputationCaches(final ComputationCycleQuery query) {
     ArgumentChecker.notNull(query, "query");
@@ -323,6 +411,7 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     _state = ViewCycleState.EXECUTING;
     createAllCaches();
     if (!prepareInputs(marketDataSnapshot, suppressExecutionOnNoMarketData)) {
+      _executionSuppressed = true;
       generateSuppressedOutputs();
       return false;
     }
@@ -559,11 +648,24 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       final DependencyNodeJobExecutionResultCache previousJobExecutionResultCache = previousCycle.getJobExecutionResultCache(calcConfig);
       final LiveDataDeltaCalculator deltaCalculator = new LiveDataDeltaCalculator(depGraph, cache, previousCache, parameterDelta.getValueSpecifications(calcConfig, previousViewDefinition,
           viewDefinition));
-      deltaCalculator.computeDelta();
+      final DependentNodeIndex index;
+      final Iterable<DependencyNode> unchangedNodes;
+      final Collection<DependencyNode> notReused;
+      if (_dirtySubgraphExecution) {
+        index = DependencyGraphImpl.getDependentNodeIndex(depGraph);
+        deltaCalculator.computeChangedNodes(index);
+        unchangedNodes = unchangedNodes(index, deltaCalculator.getChangedNodes());
+        notReused = new ArrayList<DependencyNode>();
+      } else {
+        index = null;
+        deltaCalculator.computeDelta();
+        unchangedNodes = deltaCalculator.getUnchangedNodes();
+        notReused = null;
+      }
       s_logger.info("Computed delta for calculation configuration '{}'. {} nodes out of {} require recomputation.", calcConfig, deltaCalculator.getChangedNodes().size(), depGraph.getSize());
       final Collection<ValueSpecification> specsToCopy = new LinkedList<>();
       final Collection<ComputedValue> errors = new LinkedList<>();
-      for (final DependencyNode unchangedNode : deltaCalculator.getUnchangedNodes()) {
+      for (final DependencyNode unchangedNode : unchangedNodes) {
         if (MarketDataSourcingFunction.UNIQUE_ID.equals(unchangedNode.getFunction().getFunctionId())) {
           // Market data is already in the cache, so don't need to copy it across again
           continue;
@@ -571,11 +673,17 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
         final DependencyNodeJobExecutionResult previousExecutionResult = previousJobExecutionResultCache.get(unchangedNode);
         if (previousExecutionResult == null) {
           // Nothing to reuse
+          if (notReused != null) {
+            notReused.add(unchangedNode);
+          }
           continue;
         }
         if (getLogModeSource().getLogMode(calcConfig, unchangedNode.getOutputValue(0)) == ExecutionLogMode.FULL &&
             previousExecutionResult.getJobResultItem().getExecutionLog().getEvents() == null) {
           // Need to rerun calculation to collect logs, so cannot reuse
+          if (notReused != null) {
+            notReused.add(unchangedNode);
+          }
           continue;
         }
         final int outputs = unchangedNode.getOutputCount();
@@ -612,6 +720,9 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       if (!errors.isEmpty()) {
         cache.putSharedValues(errors);
       }
+      if (index != null) {
+        _executionSubgraphs.put(calcConfig, createExecutionSubgraph(depGraph, index, deltaCalculator.getChangedNodes(), notReused));
+      }
     }
     if (!fragmentResultModel.getAllResults().isEmpty()) {
       fragmentResultModel.setCalculationTime(Instant.now());
@@ -619,6 +730,91 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     }
   }
 
+  private static Iterable<DependencyNode> unchangedNodes(final DependentNodeIndex index, final Set<DependencyNode> changedNodes) {
+    final DependencyNode[] nodes = index.getNodes();
+    final Collection<DependencyNode> unchanged = new ArrayList<DependencyNode>(nodes.length - changedNodes.size());
+    for (final DependencyNode node : nodes) {
+      if (!changedNodes.contains(node)) {
+        unchanged.add(node);
+      }
+    }
+    return unchanged;
+  }
+
+  private static boolean isExecuted(final DependencyNode node, final DependentNodeIndex index, final Set<DependencyNode> executed, final Map<DependencyNode, Boolean> notReused) {
+    final Boolean known = notReused.get(node);
+    if (known != null) {
+      return known;
+    }
+    // A node whose value was not reused is only executed if it is a root, or a node that is executed needs its value
+    final DependencyNode[] dependents = index.getDependents(node);
+    boolean result = dependents.length == 0;
+    notReused.put(node, Boolean.FALSE);
+    for (final DependencyNode dependent : dependents) {
+      if (executed.contains(dependent) || (notReused.containsKey(dependent) && isExecuted(dependent, index, executed, notReused))) {
+        result = true;
+        break;
+      }
+    }
+    notReused.put(node, result);
+    return result;
+  }
+
+  /**
+   * Creates the part of a graph to execute for a delta cycle, and the values it consumes from the rest of the graph.
+   * <p>
+   * This is the part of the graph that the execution planner would visit if given the whole graph and the reused values. The changed nodes are always
+   * executed. An unchanged node whose previous value could not be reused is only executed if a node that is executed consumes it, or if it is a root.
+   * 
+   * @param graph the whole graph, not null
+   * @param index the index of the graph, not null
+   * @param changedNodes the nodes affected by the changes, not null
+   * @param notReused the unchanged nodes whose previous values could not be reused, not null
+   * @return the graph to execute and the values from outside it that it consumes, not null
+   */
+  private static Pair<DependencyGraph, Set<ValueSpecification>> createExecutionSubgraph(final DependencyGraph graph, final DependentNodeIndex index,
+      final Set<DependencyNode> changedNodes, final Collection<DependencyNode> notReused) {
+    final Set<DependencyNode> executed = Sets.newHashSetWithExpectedSize(changedNodes.size() + notReused.size());
+    for (final DependencyNode node : changedNodes) {
+      // Market data is supplied by the snapshot and never executed
+      if (!MarketDataSourcingFunction.UNIQUE_ID.equals(node.getFunction().getFunctionId())) {
+        executed.add(node);
+      }
+    }
+    if (!notReused.isEmpty()) {
+      final Map<DependencyNode, Boolean> notReusedExecuted = Maps.newHashMapWithExpectedSize(notReused.size());
+      for (final DependencyNode node : notReused) {
+        notReusedExecuted.put(node, null);
+      }
+      for (final DependencyNode node : notReused) {
+        if (isExecuted(node, index, executed, notReusedExecuted)) {
+          executed.add(node);
+        }
+      }
+    }
+    final Collection<DependencyNode> roots = new ArrayList<DependencyNode>();
+    final Set<ValueSpecification> inputs = new HashSet<ValueSpecification>();
+    for (final DependencyNode node : executed) {
+      boolean root = true;
+      for (final DependencyNode dependent : index.getDependents(node)) {
+        if (executed.contains(dependent)) {
+          root = false;
+          break;
+        }
+      }
+      if (root) {
+        roots.add(node);
+      }
+      final int count = node.getInputCount();
+      for (int i = 0; i < count; i++) {
+        if (!executed.contains(node.getInputNode(i))) {
+          inputs.add(node.getInputValue(i));
+        }
+      }
+    }
+    return Pairs.of(DependencyGraphImpl.subGraph(graph, roots, executed.size()), inputs);
+  }
+
   private void completeResultModel() {
     getResultModel().setCalculationTime(Instant.now());
     getResultModel().setCalculationDuration(getDuration());
@@ -642,19 +838,44 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     return getCompiledViewDefinition().getDependencyGraphExplorer(calcConfName).getWholeGraph();
   }
 
+  /**
+   * Returns the graph to execute for the given calculation configuration. This is the whole graph unless only the part affected by changes is to be executed
+   * as part of a delta cycle.
+   * 
+   * @param calcConfName calculation configuration name
+   * @return the graph to execute
+   */
+  protected DependencyGraph getExecutionGraph(final String calcConfName) {
+    final Pair<DependencyGraph, Set<ValueSpecification>> subgraph = _executionSubgraphs.get(calcConfName);
+    if (subgraph != null) {
+      return subgraph.getFirst();
+    } else {
+      return getDependencyGraph(calcConfName);
+    }
+  }
+
   /**
    * Returns the set of values already calculated and in the shared cache at execution of the graph, or that have been blacklisted. This will control the subset of the graph that is used to create the
    * jobs.
+   * <p>
+   * When only part of the graph is being executed the set is limited to the values that part consumes rather than everything in the shared cache.
    * 
    * @param calcConfName the calculation configuration name to query
    * @return the values in the shared cache, not null
    */
   protected Set<ValueSpecification> getSharedValues(final String calcConfName) {
-    // Get the market data
-    final Set<ValueSpecification> sharedValues = new HashSet<ValueSpecification>(getCompiledViewDefinition().getCompiledCalculationConfiguration(calcConfName).getMarketDataRequirements());
-    // Add anything kept as part of a delta cycle
     final DependencyNodeJobExecutionResultCache jobCache = getJobExecutionResultCache(calcConfName);
-    sharedValues.addAll(jobCache.getExecutedData());
+    final Pair<DependencyGraph, Set<ValueSpecification>> subgraph = _executionSubgraphs.get(calcConfName);
+    final Set<ValueSpecification> sharedValues;
+    if (subgraph != null) {
+      // The inputs to the subgraph are the market data and reused values it consumes
+      sharedValues = new HashSet<ValueSpecification>(subgraph.getSecond());
+    } else {
+      // Get the market data
+      sharedValues = new HashSet<ValueSpecification>(getCompiledViewDefinition().getCompiledCalculationConfiguration(calcConfName).getMarketDataRequirements());
+      // Add anything kept as part of a delta cycle
+      sharedValues.addAll(jobCache.getExecutedData());
+    }
     // Handle blacklisted nodes
     final FunctionBlacklistQuery blacklist = getViewProcessContext().getFunctionCompilationService().getFunctionCompilationContext().getGraphExecutionBlacklist();
     if (!blacklist.isEmpty()) {
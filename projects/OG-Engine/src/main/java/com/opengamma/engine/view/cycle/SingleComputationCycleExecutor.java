@@ -171,7 +171,7 @@ import com.opengamma.util.tuple.Pair;
     final DependencyGraphExecutor executor = getCycle().getViewProcessContext().getDependencyGraphExecutorFactory().createExecutor(getCycle());
     for (final String calcConfigurationName : getCycle().getAllCalculationConfigurationNames()) {
       s_logger.info("Executing plans for calculation configuration {}", calcConfigurationName);
-      final DependencyGraph depGraph = getCycle().getDependencyGraph(calcConfigurationName);
+      final DependencyGraph depGraph = getCycle().getExecutionGraph(calcConfigurationName);
       final Set<ValueSpecification> sharedData = getCycle().getSharedValues(calcConfigurationName);
       final Map<ValueSpecification, FunctionParameters> parameters = getCycle().createFunctionParameters(calcConfigurationName);
       s_logger.info("Submitting {} for execution by {}", depGraph, executor);
@@ -127,6 +127,16 @@ public final class ExecutionFlags {
     return this;
   }
 
+  /**
+   * Adds {@link ViewExecutionFlags#DIRTY_SUBGRAPH_EXECUTION}
+   * 
+   * @return this
+   */
+  public ExecutionFlags dirtySubgraphExecution() {
+    _flags.add(ViewExecutionFlags.DIRTY_SUBGRAPH_EXECUTION);
+    return this;
+  }
+
   /**
    * Modes of operation for the {@link #parallelCompilation} flag.
    */
@@ -112,6 +112,16 @@ public enum ViewExecutionFlags {
   /**
    * Indicates that the results should be stored in batch database.
    */
-  BATCH
+  BATCH,
+
+  /**
+   * Indicates whether delta cycles should plan and execute only the nodes affected by changed market data or function parameters. The affected nodes
+   * are found from an index of the graph kept with the compilation, by following the dependents of the changed market data and parameters, and values
+   * from the rest of the graph are carried forward from the previous cycle. The results are the same as a normal delta cycle.
+   * <p>
+   * Only planning and execution follow the size of the change. Preparing the cycle is still linear in the graph: every market data value is compared with
+   * the previous cycle to find the changes, and every unchanged node is listed and its previous results copied into the new cycle.
+   */
+  DIRTY_SUBGRAPH_EXECUTION
 
 }
@@ -6,6 +6,7 @@
 package com.opengamma.engine.view.impl;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -30,6 +31,7 @@ import com.opengamma.engine.management.InternalViewResultListener;
 import com.opengamma.engine.marketdata.MarketDataInjector;
 import com.opengamma.engine.marketdata.MarketDataPermissionProvider;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ColumnarViewResultModel;
 import com.opengamma.engine.view.ViewCalculationConfiguration;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDefinition;
@@ -39,10 +41,14 @@ import com.opengamma.engine.view.ViewProcessState;
 import com.opengamma.engine.view.client.ViewDeltaResultCalculator;
 import com.opengamma.engine.view.client.ViewResultMode;
 import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphs;
+import com.opengamma.engine.view.cycle.SingleComputationCycle;
 import com.opengamma.engine.view.cycle.ViewCycle;
 import com.opengamma.engine.view.cycle.ViewCycleMetadata;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.execution.ViewExecutionOptions;
+import com.opengamma.engine.view.listener.ColumnarViewResultListener;
+import com.opengamma.engine.view.listener.DeltaStreamViewResultListener;
+import com.opengamma.engine.view.listener.ViewDeltaJournal;
 import com.opengamma.engine.view.listener.ViewResultListener;
 import com.opengamma.engine.view.permission.ViewPermissionContext;
 import com.opengamma.engine.view.worker.ViewExecutionDataProvider;
@@ -62,6 +68,11 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
 
   private static final Logger s_logger = LoggerFactory.getLogger(ViewProcess.class);
 
+  /**
+   * The number of cycles a streaming client can fall behind before it is sent a full result instead of merged deltas.
+   */
+  private static final int DELTA_JOURNAL_CAPACITY = 16;
+
   private final UniqueId _viewDefinitionId;
   private final ViewExecutionOptions _executionOptions;
   private final ViewProcessContext _viewProcessContext;
@@ -113,6 +124,17 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
 
   private final AtomicBoolean _mustCalculateDeltas = new AtomicBoolean(false);
 
+  /**
+   * The listeners streaming results from {@link #_deltaJournal}. Only used within the internal lock.
+   */
+  private final Set<DeltaStreamViewResultListener> _deltaStreamListeners = new HashSet<>();
+
+  /**
+   * The recent deltas, shared by all listeners in {@link ViewResultMode#DELTA_STREAM} mode. Null when there are no such listeners. Only used within the
+   * internal lock.
+   */
+  private ViewDeltaJournal _deltaJournal;
+
   private final ChangeListener _viewDefinitionChangeListener;
 
   // BEGIN TEMPORARY -- See ViewProcessorImpl
@@ -453,6 +475,9 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
         // [PLAT-1158] Is the cost of computing the delta going to be high; should we offload that to a slave thread before dispatching to the listeners?
         deltaResult = ViewDeltaResultCalculator.computeDeltaModel(cycle.getCompiledViewDefinition().getViewDefinition(), previousResult, result);
       }
+      if ((result != null) && (_deltaJournal != null)) {
+        _deltaJournal.append(result, deltaResult);
+      }
       listeners = getListenerArray();
       latest = _latestCompiledViewDefinition.get();
     } finally {
@@ -462,13 +487,22 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
     // for completion which was the thing PLAT-1158 was trying to avoid. This is because the contracts for the order in which
     // notifications can be received is unclear and I don't want to risk introducing a change at this moment in time.
     boolean isPermissionCheckDue = isPermissionCheckDue();
+    // Built on demand, once, for all listeners that want it
+    ColumnarViewResultModel columnarResult = null;
     for (final ViewResultListener listener : listeners) {
       try {
         UserPrincipal user = listener.getUser();
         final MarketDataPermissionProvider permissionProvider = latest.getValue();
         final Set<ValueSpecification> marketDataRequirements = latest.getKey().getMarketDataRequirements();
         if (userIsPermitted(isPermissionCheckDue, user, permissionProvider, marketDataRequirements)) {
-          listener.cycleCompleted(result, deltaResult);
+          if ((listener instanceof ColumnarViewResultListener) && ((ColumnarViewResultListener) listener).isColumnarResultRequired()) {
+            if ((columnarResult == null) && (result != null)) {
+              columnarResult = getColumnarResultModel(cycle, result);
+            }
+            ((ColumnarViewResultListener) listener).cycleCompleted(result, columnarResult, deltaResult);
+          } else {
+            listener.cycleCompleted(result, deltaResult);
+          }
         } else {
           listener.cycleExecutionFailed(cycle.getExecutionOptions(), new Exception("User: " + user + " does not have permission for data in this view"));
         }
@@ -481,6 +515,14 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
     }
   }
 
+  private static ColumnarViewResultModel getColumnarResultModel(final ViewCycle cycle, final ViewComputationResultModel result) {
+    if (cycle instanceof SingleComputationCycle) {
+      // Read the columns straight from the computation caches rather than converting the map based results
+      return ((SingleComputationCycle) cycle).getColumnarResultModel();
+    }
+    return ColumnarViewResultModel.of(result, cycle.getCompiledViewDefinition());
+  }
+
   private boolean userIsPermitted(boolean isPermissionCheckDue, UserPrincipal user, MarketDataPermissionProvider permissionProvider, Set<ValueSpecification> marketDataRequirements) {
 
     if (user == null) {
@@ -652,6 +694,8 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
         _internalLock.lock();
         try {
           if (_listeners.put(listener, listenerRequiresDeltas) == null) {
+            // Set before any initial state is pushed so that the stream starts with the latest full result
+            updateDeltaStream(listener, resultMode);
             if (listenerRequiresDeltas) {
               _mustCalculateDeltas.set(true);
             }
@@ -702,7 +746,11 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
 
         if (latestResult != null) {
           if (hasMarketDataPermissions) {
-            listener.cycleCompleted(latestResult, null);
+            if ((listener instanceof ColumnarViewResultListener) && ((ColumnarViewResultListener) listener).isColumnarResultRequired()) {
+              ((ColumnarViewResultListener) listener).cycleCompleted(latestResult, ColumnarViewResultModel.of(latestResult, compiledViewDefinition), null);
+            } else {
+              listener.cycleCompleted(latestResult, null);
+            }
           } else {
             listener.cycleExecutionFailed(latestResult.getViewCycleExecutionOptions(), new Exception("User: " + user + " does not have permission for data in this view"));
           }
@@ -721,12 +769,14 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
       case BOTH:
       case DELTA_ONLY:
       case FULL_THEN_DELTA:
+      case DELTA_STREAM:
         requiresDeltas = true;
     }
     switch (fragmentResultMode) {
       case BOTH:
       case DELTA_ONLY:
       case FULL_THEN_DELTA:
+      case DELTA_STREAM:
         requiresDeltas = true;
     }
     return requiresDeltas;
@@ -759,6 +809,7 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
             }
 
             checkIfDeltasRequired();
+            updateDeltaStream(listener, ViewResultMode.NONE);
           }
         } finally {
           _internalLock.unlock();
@@ -771,6 +822,70 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle, ViewProc
     }
   }
 
+  /**
+   * Changes the result modes of an attached listener. Nothing happens if the listener is not attached.
+   * 
+   * @param listener the listener, not null
+   * @param resultMode the new result mode for the listener, not null
+   * @param fragmentResultMode the new fragment result mode for the listener, not null
+   */
+  public void setListenerResultModes(final ViewResultListener listener, final ViewResultMode resultMode, final ViewResultMode fragmentResultMode) {
+    ArgumentChecker.notNull(listener, "listener");
+    ArgumentChecker.notNull(resultMode, "resultMode");
+    ArgumentChecker.notNull(fragmentResultMode, "fragmentResultMode");
+    _internalLock.lock();
+    try {
+      if (_listeners.containsKey(listener)) {
+        _listeners.put(listener, doesListenerRequireDeltas(resultMode, fragmentResultMode));
+        checkIfDeltasRequired();
+        updateDeltaStream(listener, resultMode);
+      }
+    } finally {
+      _internalLock.unlock();
+    }
+  }
+
+  /**
+   * Gives a listener the delta journal if it is streaming results, creating the journal for the first such listener, or takes it away if it is not.
+   * The journal is discarded when the last streaming listener leaves so that cycles are not journalled for nobody. Caller MUST hold the internal lock.
+   * 
+   * @param listener the listener, not null
+   * @param resultMode the result mode of the listener, {@link ViewResultMode#NONE} if it is being detached
+   */
+  private void updateDeltaStream(final ViewResultListener listener, final ViewResultMode resultMode) {
+    if (!(listener instanceof DeltaStreamViewResultListener)) {
+      return;
+    }
+    final DeltaStreamViewResultListener streamListener = (DeltaStreamViewResultListener) listener;
+    if (resultMode == ViewResultMode.DELTA_STREAM) {
+      if (_deltaStreamListeners.add(streamListener)) {
+        if (_deltaJournal == null) {
+          _deltaJournal = new ViewDeltaJournal(DELTA_JOURNAL_CAPACITY);
+        }
+        streamListener.setDeltaJournal(_deltaJournal);
+      }
+    } else if (_deltaStreamListeners.remove(streamListener)) {
+      streamListener.setDeltaJournal(null);
+      if (_deltaStreamListeners.isEmpty()) {
+        _deltaJournal = null;
+      }
+    }
+  }
+
+  /**
+   * Tests whether the process is keeping a delta journal for streaming listeners.
+   * 
+   * @return true if there is a journal
+   */
+  /* package */boolean isDeltaJournalled() {
+    _internalLock.lock();
+    try {
+      return _deltaJournal != null;
+    } finally {
+      _internalLock.unlock();
+    }
+  }
+
   protected void checkIfDeltasRequired() {
     boolean deltasRequired = false;
     for (Boolean requiresDeltas : _listeners.values()) {
@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.listener;
+
+import com.opengamma.engine.view.ColumnarViewResultModel;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewDeltaResultModel;
+import com.opengamma.util.PublicAPI;
+
+/**
+ * A {@link ViewResultListener} that can receive completed cycle results in columnar form.
+ * <p>
+ * When a listener implementing this interface is attached to a view process and {@link #isColumnarResultRequired()} returns true,
+ * {@link #cycleCompleted(ViewComputationResultModel, ColumnarViewResultModel, ViewDeltaResultModel)} is called instead of
+ * {@link #cycleCompleted(ViewComputationResultModel, ViewDeltaResultModel)}. The columnar model is built once per cycle, directly from the cycle's
+ * computation caches, and shared by all such listeners. Fragment results are still delivered through {@link #cycleFragmentCompleted}.
+ * <p>
+ * A listener that forwards results to another listener, such as a view client, implements this interface and reports whether the listener it
+ * forwards to wants columnar results.
+ */
+@PublicAPI
+public interface ColumnarViewResultListener extends ViewResultListener {
+
+  /**
+   * Tests whether the listener currently wants completed cycle results in columnar form.
+   *
+   * @return true to receive columnar results, false to receive only the map based results
+   */
+  boolean isColumnarResultRequired();
+
+  /**
+   * Called following the successful completion of a computation cycle. The full results may be null depending on the result mode, in which case
+   * the columnar results are also null. The full and delta results will never both be null.
+   *
+   * @param fullResult the entire computation cycle result, possibly null
+   * @param columnarResult the entire computation cycle result in columnar form, null if and only if the full result is null
+   * @param deltaResult the delta result representing only the differences since the previous result, possibly null
+   */
+  void cycleCompleted(ViewComputationResultModel fullResult, ColumnarViewResultModel columnarResult, ViewDeltaResultModel deltaResult);
+
+}
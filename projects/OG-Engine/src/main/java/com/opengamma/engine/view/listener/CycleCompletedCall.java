@@ -8,31 +8,66 @@ package com.opengamma.engine.view.listener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.opengamma.engine.view.ColumnarViewResultModel;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDeltaResultModel;
 
 /**
  * Represents a call to {@link ViewResultListener#cycleCompleted(com.opengamma.engine.view.ViewComputationResultModel, com.opengamma.engine.view.ViewDeltaResultModel)}
+ * or, if the columnar form of the full result is known and the listener wants it,
+ * {@link ColumnarViewResultListener#cycleCompleted(ViewComputationResultModel, ColumnarViewResultModel, ViewDeltaResultModel)}.
+ * <p>
+ * The columnar result follows the full result it was built from. When two full results are merged the columnar result of the latest one is kept.
  */
 public class CycleCompletedCall extends AbstractCompletedResultsCall {
 
   private static final Logger s_logger = LoggerFactory.getLogger(CycleCompletedCall.class);
 
+  private ColumnarViewResultModel _columnarResult;
+
   public CycleCompletedCall(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
     super(fullResult, deltaResult);
   }
 
+  public CycleCompletedCall(ViewComputationResultModel fullResult, ColumnarViewResultModel columnarResult, ViewDeltaResultModel deltaResult) {
+    super(fullResult, deltaResult);
+    _columnarResult = (fullResult != null) ? columnarResult : null;
+  }
+
   public ViewComputationResultModel getFullResult() {
     return getViewComputationResultModel();
   }
 
+  public ColumnarViewResultModel getColumnarResult() {
+    return _columnarResult;
+  }
+
   public ViewDeltaResultModel getDeltaResult() {
     return getViewDeltaResultModel();
   }
 
+  /**
+   * Merges another call's results into this one.
+   * 
+   * @param full the full result, may be null
+   * @param columnar the columnar form of the full result, null if not known
+   * @param delta the delta result, may be null
+   */
+  public void update(ViewComputationResultModel full, ColumnarViewResultModel columnar, ViewDeltaResultModel delta) {
+    final ViewComputationResultModel previous = getFullResult();
+    update(full, delta);
+    if ((full != null) && ((previous == null) || !previous.getCalculationTime().isAfter(full.getCalculationTime()))) {
+      _columnarResult = columnar;
+    }
+  }
+
   @Override
   public Object apply(ViewResultListener listener) {
-    listener.cycleCompleted(getFullResult(), getDeltaResult());
+    if ((_columnarResult != null) && (listener instanceof ColumnarViewResultListener) && ((ColumnarViewResultListener) listener).isColumnarResultRequired()) {
+      ((ColumnarViewResultListener) listener).cycleCompleted(getFullResult(), _columnarResult, getDeltaResult());
+    } else {
+      listener.cycleCompleted(getFullResult(), getDeltaResult());
+    }
     return null;
   }
 
@@ -0,0 +1,23 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.listener;
+
+/**
+ * A {@link ViewResultListener} that can stream completed cycle results from a {@link ViewDeltaJournal}.
+ * <p>
+ * When a listener implementing this interface is attached to a view process in {@link com.opengamma.engine.view.client.ViewResultMode#DELTA_STREAM}
+ * mode, the process passes it the journal it keeps for such listeners. The journal is taken away again if the listener leaves that mode or is detached.
+ */
+public interface DeltaStreamViewResultListener extends ViewResultListener {
+
+  /**
+   * Sets the journal to stream cycle results from.
+   *
+   * @param journal the journal to stream from, or null to stop streaming
+   */
+  void setDeltaJournal(ViewDeltaJournal journal);
+
+}
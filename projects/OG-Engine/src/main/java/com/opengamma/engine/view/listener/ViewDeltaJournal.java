@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.listener;
+
+import com.google.common.base.Function;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewDeltaResultModel;
+import com.opengamma.engine.view.impl.InMemoryViewDeltaResultModel;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A bounded journal of the delta results from the most recent cycles of a view process, shared by all of the clients attached to it in
+ * {@link com.opengamma.engine.view.client.ViewResultMode#DELTA_STREAM} mode. The view process only keeps a journal while a
+ * {@link DeltaStreamViewResultListener} is attached in that mode.
+ * <p>
+ * Each client holds a {@link Cursor} recording the last cycle that was delivered to it. When the client's listener is next invoked it receives the
+ * deltas from every cycle after that point merged into one. A client that falls further behind than the journal's capacity, or that has not yet
+ * received anything, is sent the latest full result instead. The journal holds a single reference to each delta and to the latest full result so the
+ * memory used does not grow with the number of clients. Merged deltas are built on demand and the most recent one is kept so that clients lagging by
+ * the same number of cycles share it.
+ */
+public class ViewDeltaJournal {
+
+  private final ViewDeltaResultModel[] _deltas;
+
+  /**
+   * The sequence number of the latest cycle, zero if there have been none.
+   */
+  private long _head;
+
+  private ViewComputationResultModel _latestResult;
+
+  /**
+   * The sequence number the cached merged delta starts after.
+   */
+  private long _mergedFrom;
+
+  /**
+   * The deltas from {@link #_mergedFrom} to {@link #_head} merged, null if nothing is cached.
+   */
+  private ViewDeltaResultModel _merged;
+
+  /**
+   * Creates a new journal.
+   *
+   * @param capacity the number of cycles to retain deltas for, at least one
+   */
+  public ViewDeltaJournal(final int capacity) {
+    ArgumentChecker.isTrue(capacity > 0, "capacity");
+    _deltas = new ViewDeltaResultModel[capacity];
+  }
+
+  /**
+   * Gets the number of cycles deltas are retained for.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return _deltas.length;
+  }
+
+  /**
+   * Records the results of a completed cycle.
+   *
+   * @param fullResult the full result of the cycle, not null
+   * @param deltaResult the delta from the previous cycle, null if deltas were not calculated
+   * @return the sequence number of the cycle
+   */
+  public synchronized long append(final ViewComputationResultModel fullResult, final ViewDeltaResultModel deltaResult) {
+    ArgumentChecker.notNull(fullResult, "fullResult");
+    _head++;
+    _deltas[(int) (_head % _deltas.length)] = deltaResult;
+    _latestResult = fullResult;
+    _merged = null;
+    return _head;
+  }
+
+  /**
+   * Gets the sequence number of the latest cycle.
+   *
+   * @return the sequence number, zero if no cycles have been recorded
+   */
+  public synchronized long getHead() {
+    return _head;
+  }
+
+  /**
+   * Creates a cursor positioned before the first cycle, so the first read from it will return the latest full result.
+   *
+   * @return the new cursor, not null
+   */
+  public Cursor newCursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Returns the deltas after the given position, merged. The caller must hold the monitor.
+   *
+   * @param from the sequence number of the last cycle already delivered
+   * @return the merged delta, or null if it is not available and the full result must be sent instead
+   */
+  private ViewDeltaResultModel getDelta(final long from) {
+    if ((from <= 0) || (_head - from > _deltas.length)) {
+      return null;
+    }
+    if (from == _head - 1) {
+      return _deltas[(int) (_head % _deltas.length)];
+    }
+    if ((_merged != null) && (_mergedFrom == from)) {
+      return _merged;
+    }
+    final ViewDeltaResultModel first = _deltas[(int) ((from + 1) % _deltas.length)];
+    if (first == null) {
+      return null;
+    }
+    final InMemoryViewDeltaResultModel merged = new InMemoryViewDeltaResultModel(first);
+    for (long i = from + 2; i <= _head; i++) {
+      final ViewDeltaResultModel delta = _deltas[(int) (i % _deltas.length)];
+      if (delta == null) {
+        return null;
+      }
+      merged.update(delta);
+    }
+    // The merged delta is relative to the result before the first one applied
+    merged.setPreviousCalculationTime(first.getPreviousResultTimestamp());
+    _mergedFrom = from;
+    _merged = merged;
+    return merged;
+  }
+
+  /**
+   * Position of a single client within the journal. A cursor can be queued as a call on a {@link ViewResultListener}; applying it delivers whatever
+   * the client has not yet seen and advances the cursor to the latest cycle.
+   */
+  public final class Cursor implements Function<ViewResultListener, Object> {
+
+    private long _position;
+
+    private Cursor() {
+    }
+
+    /**
+     * Gets the sequence number of the last cycle delivered through this cursor.
+     *
+     * @return the sequence number, zero if nothing has been delivered
+     */
+    public long getPosition() {
+      synchronized (ViewDeltaJournal.this) {
+        return _position;
+      }
+    }
+
+    /**
+     * Tests whether there are cycles in the journal that have not been delivered through this cursor.
+     *
+     * @return true if there are undelivered cycles
+     */
+    public boolean isBehind() {
+      synchronized (ViewDeltaJournal.this) {
+        return _position < _head;
+      }
+    }
+
+    @Override
+    public Object apply(final ViewResultListener listener) {
+      final ViewComputationResultModel fullResult;
+      final ViewDeltaResultModel deltaResult;
+      synchronized (ViewDeltaJournal.this) {
+        if (_position >= _head) {
+          return null;
+        }
+        fullResult = _latestResult;
+        deltaResult = getDelta(_position);
+        _position = _head;
+      }
+      listener.cycleCompleted(fullResult, deltaResult);
+      return null;
+    }
+
+    @Override
+    public String toString() {
+      return "DeltaStream[" + getPosition() + "]";
+    }
+
+  }
+
+}
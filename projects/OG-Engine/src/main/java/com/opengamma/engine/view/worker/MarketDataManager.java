@@ -16,6 +16,7 @@ import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -38,6 +39,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.engine.marketdata.CoalescingMarketDataListener;
 import com.opengamma.engine.marketdata.MarketDataListener;
 import com.opengamma.engine.marketdata.availability.MarketDataAvailabilityProvider;
 import com.opengamma.engine.marketdata.resolver.MarketDataProviderResolver;
@@ -118,6 +120,23 @@ public class MarketDataManager implements MarketDataListener, Lifecycle, Subscri
    */
   private final MarketDataChangeListener _marketDataChangeListener;
 
+  /**
+   * The listener registered with the market data provider. This is either the manager itself or a {@link CoalescingMarketDataListener} in front of
+   * it.
+   */
+  private final MarketDataListener _marketDataListener;
+
+  /**
+   * The coalescing listener registered with the market data provider, null if changes are not merged. Its deliveries run on a thread owned by
+   * this manager so that they are not held up by other view processes.
+   */
+  private final CoalescingMarketDataListener _coalescingListener;
+
+  /**
+   * The timer the coalescing listener delivers its changes from, null if changes are not merged. It is shut down when the manager is stopped.
+   */
+  private final ScheduledExecutorService _coalescingTimer;
+
   /**
    * The resolver to be used for market data providers.
    */
@@ -169,11 +188,46 @@ public class MarketDataManager implements MarketDataListener, Lifecycle, Subscri
                            MarketDataProviderResolver marketDataProviderResolver,
                            String viewProcessorName,
                            String viewProcessId) {
+    this(listener, marketDataProviderResolver, viewProcessorName, viewProcessId, 0);
+  }
+
+  /**
+   * Create the manager for the market data, merging market data change notifications that arrive close together.
+   *
+   * @param listener the listener for market data changes, not null
+   * @param marketDataProviderResolver the provider resolver, not null
+   * @param viewProcessorName the view processor name, used for generating
+   * the JMX name. If null, no JMX bean will be registered.
+   * @param viewProcessId the view process id, used for generating
+   * the JMX name. If null, no JMX bean will be registered.
+   * @param coalescingMillis the time in milliseconds for which market data changes are merged into a single notification to the listener,
+   * zero to notify the listener of every change as it arrives
+   */
+  public MarketDataManager(MarketDataChangeListener listener,
+                           MarketDataProviderResolver marketDataProviderResolver,
+                           String viewProcessorName,
+                           String viewProcessId,
+                           long coalescingMillis) {
 
     ArgumentChecker.notNull(listener, "listener");
     ArgumentChecker.notNull(marketDataProviderResolver, "marketDataProviderResolver");
+    ArgumentChecker.notNegative(coalescingMillis, "coalescingMillis");
     _marketDataChangeListener = listener;
     _marketDataProviderResolver = marketDataProviderResolver;
+    if (coalescingMillis > 0) {
+      final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new NamedThreadPoolFactory("Market Data Coalescer", true));
+      // Let the thread end when there is nothing to deliver, rather than keep one per view process alive
+      timer.setKeepAliveTime(1, TimeUnit.MINUTES);
+      timer.allowCoreThreadTimeOut(true);
+      timer.setRemoveOnCancelPolicy(true);
+      _coalescingTimer = timer;
+      _coalescingListener = new CoalescingMarketDataListener(this, timer, coalescingMillis);
+      _marketDataListener = _coalescingListener;
+    } else {
+      _coalescingTimer = null;
+      _coalescingListener = null;
+      _marketDataListener = this;
+    }
 
     _objectName = viewProcessorName != null && viewProcessId != null ?
         createObjectName(viewProcessId) :
@@ -450,7 +504,11 @@ public class MarketDataManager implements MarketDataListener, Lifecycle, Subscri
       }
       removeMarketDataSubscriptions(ImmutableSet.copyOf(_activeSubscriptions.keySet()));
       removeMarketDataSubscriptions(ImmutableSet.copyOf(_pendingSubscriptions.keySet()));
-      _marketDataProvider.removeListener(this);
+      _marketDataProvider.removeListener(_marketDataListener);
+      if (_coalescingListener != null) {
+        // Changes from the old provider must not be delivered once it has been removed
+        _coalescingListener.stop();
+      }
       _marketDataProvider = null;
       _marketDataProviderDirty = true;
     } finally {
@@ -467,7 +525,10 @@ public class MarketDataManager implements MarketDataListener, Lifecycle, Subscri
       _marketDataProvider = null;
     }
     if (_marketDataProvider != null) {
-      _marketDataProvider.addListener(this);
+      if (_coalescingListener != null) {
+        _coalescingListener.start();
+      }
+      _marketDataProvider.addListener(_marketDataListener);
     }
     _marketDataProviderDirty = true;
   }
@@ -651,6 +712,10 @@ public class MarketDataManager implements MarketDataListener, Lifecycle, Subscri
       @Override
       public void run() {
         removeMarketDataProvider();
+        if (_coalescingListener != null) {
+          _coalescingListener.stop();
+          _coalescingTimer.shutdown();
+        }
       }
     });
   }
@@ -5,6 +5,8 @@
  */
 package com.opengamma.engine.view.worker;
 
+import java.io.File;
+import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -78,9 +80,9 @@ import com.opengamma.engine.view.compilation.InvalidTargetDependencyNodeFilter;
 import com.opengamma.engine.view.compilation.PartiallyCompiledGraph;
 import com.opengamma.engine.view.compilation.ViewCompilationServices;
 import com.opengamma.engine.view.compilation.ViewDefinitionCompiler;
+import com.opengamma.engine.view.cycle.CycleTimeline;
 import com.opengamma.engine.view.cycle.DefaultViewCycleMetadata;
 import com.opengamma.engine.view.cycle.SingleComputationCycle;
-import com.opengamma.engine.view.cycle.ViewCycle;
 import com.opengamma.engine.view.cycle.ViewCycleMetadata;
 import com.opengamma.engine.view.cycle.ViewCycleState;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
@@ -283,6 +285,18 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
    * Timer to track full cycle execution time.
    */
   private Timer _fullCycleTimer;
+  /**
+   * Timer to track the time taken to initialise the market data snapshot for a cycle.
+   */
+  private Timer _marketDataSnapshotTimer;
+  /**
+   * Timer to track the time taken to notify the result listeners of a completed cycle.
+   */
+  private Timer _resultDispatchTimer;
+  /**
+   * The directory to append cycle timelines to, null to not record them.
+   */
+  private volatile File _timelineDirectory;
 
   /**
    * An invalidation call is made by the market data layer to request that a full graph rebuild take place on the next cycle. This is to allow for resolutions that might differ because data
@@ -291,6 +305,19 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
   private final AtomicBoolean _forceGraphRebuild = new AtomicBoolean();
 
   public SingleThreadViewProcessWorker(final ViewProcessWorkerContext context, final ViewExecutionOptions executionOptions, final ViewDefinition viewDefinition) {
+    this(context, executionOptions, viewDefinition, 0);
+  }
+
+  /**
+   * Creates a worker which merges market data change notifications arriving within a window before considering whether to trigger a cycle.
+   *
+   * @param context the worker context, not null
+   * @param executionOptions the execution options, not null
+   * @param viewDefinition the view definition, not null
+   * @param marketDataCoalescingMillis the window in milliseconds, zero to consider each notification as it arrives
+   */
+  public SingleThreadViewProcessWorker(final ViewProcessWorkerContext context, final ViewExecutionOptions executionOptions, final ViewDefinition viewDefinition,
+      final long marketDataCoalescingMillis) {
     ArgumentChecker.notNull(context, "context");
     ArgumentChecker.notNull(executionOptions, "executionOptions");
     ArgumentChecker.notNull(viewDefinition, "viewDefinition");
@@ -324,16 +351,31 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     _ignoreCompilationValidity = executionOptions.getFlags().contains(ViewExecutionFlags.IGNORE_COMPILATION_VALIDITY);
     _viewDefinition = viewDefinition;
     _specificMarketDataSelectors = extractSpecificSelectors(viewDefinition);
-    _marketDataManager = createMarketDataManager(context);
+    _marketDataManager = createMarketDataManager(context, marketDataCoalescingMillis);
     _marketDataSelectionGraphManipulator = createMarketDataManipulator(_executionOptions.getDefaultExecutionOptions(), _specificMarketDataSelectors);
     _job = new Job();
     _thread = new BorrowedThread(context.toString(), _job);
     _deltaCycleTimer = OpenGammaMetricRegistry.getSummaryInstance().timer("SingleThreadViewProcessWorker.cycle.delta");
     _fullCycleTimer = OpenGammaMetricRegistry.getSummaryInstance().timer("SingleThreadViewProcessWorker.cycle.full");
+    _marketDataSnapshotTimer = OpenGammaMetricRegistry.getSummaryInstance().timer("SingleThreadViewProcessWorker.marketDataSnapshot");
+    _resultDispatchTimer = OpenGammaMetricRegistry.getSummaryInstance().timer("SingleThreadViewProcessWorker.resultDispatch");
     s_executor.submit(_thread);
   }
 
-  private MarketDataManager createMarketDataManager(ViewProcessWorkerContext context) {
+  /**
+   * Sets the directory to record cycle timelines in. The timeline of each cycle is appended to a file in the directory named after the view process.
+   *
+   * @param timelineDirectory the directory, null to not record timelines
+   */
+  public void setTimelineDirectory(final File timelineDirectory) {
+    _timelineDirectory = timelineDirectory;
+  }
+
+  public File getTimelineDirectory() {
+    return _timelineDirectory;
+  }
+
+  private MarketDataManager createMarketDataManager(ViewProcessWorkerContext context, long coalescingMillis) {
     String processId = context.getProcessContext().getProcessId().getValue();
     AtomicInteger currentEntry = s_mdmCount.putIfAbsent(processId, new AtomicInteger());
     if (currentEntry == null) {
@@ -341,7 +383,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     }
     int newCount = currentEntry.incrementAndGet();
     // TODO - the hardcoded main should really be derived from a view process name if one were available
-    return new MarketDataManager(this, getProcessContext().getMarketDataProviderResolver(), "main", processId + "-" + newCount);
+    return new MarketDataManager(this, getProcessContext().getMarketDataProviderResolver(), "main", processId + "-" + newCount, coalescingMillis);
   }
 
   /**
@@ -550,6 +592,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
         getProcessContext().getLiveDataOverrideInjector().setComputationTargetResolver(
             getProcessContext().getFunctionCompilationService().getFunctionCompilationContext().getRawComputationTargetResolver().atVersionCorrection(versionCorrection));
 
+        final long snapshotStart = System.nanoTime();
         try {
           snapshotManager.addMarketDataRequirements(compiledViewDefinition.getMarketDataRequirements());
           if (getExecutionOptions().getFlags().contains(ViewExecutionFlags.AWAIT_MARKET_DATA)) {
@@ -565,6 +608,8 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
           s_logger.error("Error initializing snapshot {}", snapshotManager);
           cycleExecutionFailed(executionOptions, new OpenGammaRuntimeException("Error initializing snapshot " + snapshotManager, e));
         }
+        final long snapshotEnd = System.nanoTime();
+        _marketDataSnapshotTimer.update(snapshotEnd - snapshotStart, TimeUnit.NANOSECONDS);
 
         if (_executeCycles) {
           EngineResourceReference<SingleComputationCycle> cycleReference;
@@ -574,6 +619,10 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
             s_logger.error("Error creating next view cycle for " + getWorkerContext(), e);
             return;
           }
+          final CycleTimeline timeline = createTimeline(cycleReference.get(), snapshotStart);
+          if (timeline != null) {
+            timeline.record("marketData", null, snapshotStart, snapshotEnd);
+          }
           try {
             try {
               final SingleComputationCycle singleComputationCycle = cycleReference.get();
@@ -660,12 +709,42 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
 
   }
 
-  private void cycleCompleted(final ViewCycle cycle) {
+  private void cycleCompleted(final SingleComputationCycle cycle) {
+    final long start = System.nanoTime();
     try {
       getWorkerContext().cycleCompleted(cycle);
     } catch (final Exception e) {
       s_logger.error("Error notifying " + getWorkerContext() + " of view cycle completion", e);
     }
+    final long end = System.nanoTime();
+    _resultDispatchTimer.update(end - start, TimeUnit.NANOSECONDS);
+    final CycleTimeline timeline = cycle.getTimeline();
+    if (timeline != null) {
+      timeline.record("resultDispatch", null, start, end);
+      writeTimeline(timeline);
+    }
+  }
+
+  private CycleTimeline createTimeline(final SingleComputationCycle cycle, final long originNanos) {
+    if (_timelineDirectory == null) {
+      return null;
+    }
+    final CycleTimeline timeline = new CycleTimeline(cycle.getUniqueId(), originNanos);
+    cycle.setTimeline(timeline);
+    return timeline;
+  }
+
+  private void writeTimeline(final CycleTimeline timeline) {
+    final File directory = _timelineDirectory;
+    if (directory == null) {
+      return;
+    }
+    final File file = new File(directory, getProcessContext().getProcessId().getValue() + ".timeline.csv");
+    try {
+      timeline.appendTo(file);
+    } catch (final IOException e) {
+      s_logger.warn("Couldn't write timeline of cycle {} to {}: {}", new Object[] {timeline.getCycleId(), file, e.getMessage() });
+    }
   }
 
   private void cycleStarted(final ViewCycleMetadata cycleMetadata) {
@@ -829,10 +908,19 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
         s_logger.info("Performing delta computation");
       }
     }
+    final CycleTimeline timeline = cycleReference.get().getTimeline();
+    long start = System.nanoTime();
     boolean continueExecution = cycleReference.get().preExecute(deltaCycle, marketDataSnapshot, _suppressExecutionOnNoMarketData);
+    if (timeline != null) {
+      timeline.record("preExecute", (deltaCycle != null) ? "delta" : "full", start);
+    }
     if (_executeGraphs && continueExecution) {
       try {
+        start = System.nanoTime();
         cycleReference.get().execute();
+        if (timeline != null) {
+          timeline.record("execute", null, start);
+        }
       } catch (final InterruptedException e) {
         Thread.interrupted();
         // In reality this means that the job has been terminated, and it will end as soon as we return from this method.
@@ -847,7 +935,11 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     } else {
       s_logger.debug("Skipping graph execution");
     }
+    start = System.nanoTime();
     cycleReference.get().postExecute();
+    if (timeline != null) {
+      timeline.record("postExecute", null, start);
+    }
     final long durationNanos = cycleReference.get().getDuration().toNanos();
     final Timer timer = deltaCycle != null ? _deltaCycleTimer : _fullCycleTimer;
     if (timer != null) {
@@ -888,7 +980,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
       }
     };
     final SingleComputationCycle cycle = new SingleComputationCycle(cycleId, executionOptions.getName(), streamingResultListener, getProcessContext(), compiledViewDefinition,
-        executionOptions, versionCorrection);
+        executionOptions, versionCorrection, getExecutionOptions().getFlags().contains(ViewExecutionFlags.DIRTY_SUBGRAPH_EXECUTION));
     return getProcessContext().getCycleManager().manage(cycle);
   }
 
@@ -957,7 +1049,107 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     return new PortfolioNodeEquivalenceMapper();
   }
 
-  private void markMappedPositions(final PortfolioNode node, final Map<UniqueId, Position> positions) {
+  private static void indexNodes(final PortfolioNode node, final Map<UniqueId, PortfolioNode> index) {
+    index.put(node.getUniqueId(), node);
+    for (PortfolioNode child : node.getChildNodes()) {
+      indexNodes(child, index);
+    }
+  }
+
+  /**
+   * Identifies the nodes from the old portfolio structure that are not equivalent to any in the new structure but occupy the same place, typically because positions have been added to or removed
+   * from them. Graph nodes on positions that are retained beneath these can be rewritten and reused rather than being resolved again.
+   *
+   * @param mapper the equivalence mapper, not null
+   * @param oldRoot the root of the old portfolio structure, not null
+   * @param newRoot the root of the new portfolio structure, not null
+   * @param mapped the equivalent nodes, not null
+   * @return the changed nodes as a map from the old identifier to the new node, not null
+   */
+  private static Map<UniqueId, PortfolioNode> getChangedNodes(final PortfolioNodeEquivalenceMapper mapper, final PortfolioNode oldRoot, final PortfolioNode newRoot,
+      final Map<UniqueId, UniqueId> mapped) {
+    final Map<UniqueId, UniqueId> changedIds = mapper.getChangedNodes(oldRoot, newRoot, mapped);
+    if (changedIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    final Map<UniqueId, PortfolioNode> newNodes = new HashMap<UniqueId, PortfolioNode>();
+    indexNodes(newRoot, newNodes);
+    final Map<UniqueId, PortfolioNode> changed = Maps.newHashMapWithExpectedSize(changedIds.size());
+    for (Map.Entry<UniqueId, UniqueId> changedId : changedIds.entrySet()) {
+      changed.put(changedId.getKey(), newNodes.get(changedId.getValue()));
+    }
+    return changed;
+  }
+
+  /**
+   * Rewrites the previous graphs for a portfolio that now resolves to a different structure. Nodes that are equivalent in the new structure, or that have only had positions added to or removed from
+   * them, are mapped to their new identifiers so that the graph nodes on their retained positions can be reused. Aggregate nodes on any changed portfolio nodes, and anything on positions or trades
+   * that are no longer in the portfolio, are discarded.
+   *
+   * @param previousGraphs the previous graphs to update, not null
+   * @param compiledViewDefinition the previously compiled view definition, not null
+   * @param newPortfolio the new portfolio, or null if it no longer resolves
+   * @param mapper the portfolio node equivalence mapper, not null
+   * @param invalidIdentifiers the previously resolved identifiers that now resolve differently, not null
+   * @param previousResolutions receives the previous resolutions that are still valid, not null
+   * @return the identifiers of the unchanged portfolio nodes in the new structure, not null
+   */
+  /* package */static Set<UniqueId> remapPortfolio(final Map<String, PartiallyCompiledGraph> previousGraphs, final CompiledViewDefinitionWithGraphs compiledViewDefinition,
+      final Portfolio newPortfolio, final PortfolioNodeEquivalenceMapper mapper, final Map<UniqueId, ComputationTargetSpecification> invalidIdentifiers,
+      final Map<ComputationTargetReference, UniqueId> previousResolutions) {
+    final PortfolioNode oldRoot = compiledViewDefinition.getPortfolio().getRootNode();
+    Map<UniqueId, UniqueId> mapped;
+    final Set<UniqueId> unchangedNodes;
+    final Map<UniqueId, PortfolioNode> changed;
+    // Map any nodes from the old portfolio structure to the new one
+    if (newPortfolio != null) {
+      final PortfolioNode newRoot = newPortfolio.getRootNode();
+      mapped = mapper.getEquivalentNodes(oldRoot, newRoot);
+      unchangedNodes = new HashSet<UniqueId>(mapped.values());
+      // Nodes that have had positions added or removed (and their ancestors) are also mapped, but not to the unchanged set, so that only their
+      // aggregate outputs and the requirements of new positions need resolving
+      changed = getChangedNodes(mapper, oldRoot, newRoot, mapped);
+    } else {
+      mapped = Collections.emptyMap();
+      unchangedNodes = new HashSet<UniqueId>();
+      changed = Collections.emptyMap();
+    }
+    // Build a set of previous resolutions that haven't changed and unmap any modified positions or trades
+    final Set<UniqueId> unmapped = new HashSet<>();
+    for (final Map.Entry<ComputationTargetReference, UniqueId> resolvedIdentifier : compiledViewDefinition.getResolvedIdentifiers().entrySet()) {
+      if (invalidIdentifiers.containsKey(resolvedIdentifier.getValue())) {
+        if (resolvedIdentifier.getKey().getType().isTargetType(ComputationTargetType.POSITION_OR_TRADE)) {
+          unmapped.add(resolvedIdentifier.getValue());
+        }
+      } else {
+        previousResolutions.put(resolvedIdentifier.getKey(), resolvedIdentifier.getValue());
+      }
+    }
+    // Rewrite the graph for the new portfolio structure and identify any defunct positions/trades
+    findUnmappedNodesAndPositions(oldRoot, mapped, changed, unmapped);
+    final Set<UniqueId> unmappedPortfolioNodes = new HashSet<>();
+    if (!changed.isEmpty()) {
+      s_logger.info("Incrementally recompiling {} changed portfolio nodes", changed.size());
+      final Map<UniqueId, UniqueId> remap = Maps.newHashMapWithExpectedSize(mapped.size() + changed.size());
+      remap.putAll(mapped);
+      for (Map.Entry<UniqueId, PortfolioNode> changedNode : changed.entrySet()) {
+        remap.put(changedNode.getKey(), changedNode.getValue().getUniqueId());
+        // The aggregate nodes on the changed node will have been rewritten to the new identifier; they must be discarded
+        unmappedPortfolioNodes.add(changedNode.getValue().getUniqueId());
+      }
+      mapped = remap;
+    }
+    // Remove terminal outputs and rewrite nodes
+    mapAndUnmapNodes(previousGraphs, compiledViewDefinition, mapped, unmapped);
+    // Remove any PORTFOLIO nodes and any unmapped or changed PORTFOLIO_NODE nodes with the filter
+    unmappedPortfolioNodes.addAll(unmapped);
+    filterPreviousGraphs(previousGraphs, new InvalidPortfolioDependencyNodeFilter(unmappedPortfolioNodes), null);
+    // Invalidate any dependency graph nodes on the invalid targets
+    filterPreviousGraphs(previousGraphs, new InvalidTargetDependencyNodeFilter(invalidIdentifiers.keySet()), unchangedNodes);
+    return unchangedNodes;
+  }
+
+  private static void markMappedPositions(final PortfolioNode node, final Map<UniqueId, Position> positions) {
     for (Position position : node.getPositions()) {
       positions.put(position.getUniqueId(), null);
     }
@@ -966,7 +1158,8 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     }
   }
 
-  private void findUnmappedNodesAndPositions(final PortfolioNode node, final Map<UniqueId, UniqueId> mapped, final Set<UniqueId> unmapped, final Map<UniqueId, Position> positions) {
+  private static void findUnmappedNodesAndPositions(final PortfolioNode node, final Map<UniqueId, UniqueId> mapped, final Map<UniqueId, PortfolioNode> changed, final Set<UniqueId> unmapped,
+      final Map<UniqueId, Position> positions) {
     if (mapped.containsKey(node.getUniqueId())) {
       // This node is mapped; as are the nodes underneath it, so just mark the child positions
       markMappedPositions(node, positions);
@@ -974,12 +1167,28 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
       // This node is unmapped - mark it as such and check the nodes underneath it
       unmapped.add(node.getUniqueId());
       for (PortfolioNode child : node.getChildNodes()) {
-        findUnmappedNodesAndPositions(child, mapped, unmapped, positions);
+        findUnmappedNodesAndPositions(child, mapped, changed, unmapped, positions);
       }
-      // Any child positions (and their trades) are unmapped if, and only if, they are not referenced by anything else
-      for (Position position : node.getPositions()) {
-        if (!positions.containsKey(position.getUniqueId())) {
-          positions.put(position.getUniqueId(), position);
+      final PortfolioNode newNode = changed.get(node.getUniqueId());
+      if (newNode != null) {
+        // This node has changed - positions still beneath the new node are mapped along with it, anything else is unmapped unless referenced elsewhere
+        final Set<UniqueId> retained = Sets.newHashSetWithExpectedSize(newNode.getPositions().size());
+        for (Position position : newNode.getPositions()) {
+          retained.add(position.getUniqueId());
+        }
+        for (Position position : node.getPositions()) {
+          if (retained.contains(position.getUniqueId())) {
+            positions.put(position.getUniqueId(), null);
+          } else if (!positions.containsKey(position.getUniqueId())) {
+            positions.put(position.getUniqueId(), position);
+          }
+        }
+      } else {
+        // Any child positions (and their trades) are unmapped if, and only if, they are not referenced by anything else
+        for (Position position : node.getPositions()) {
+          if (!positions.containsKey(position.getUniqueId())) {
+            positions.put(position.getUniqueId(), position);
+          }
         }
       }
     }
@@ -1000,9 +1209,9 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     }
   }
 
-  private void findUnmappedNodesAndPositions(final PortfolioNode node, final Map<UniqueId, UniqueId> mapped, final Set<UniqueId> unmapped) {
+  private static void findUnmappedNodesAndPositions(final PortfolioNode node, final Map<UniqueId, UniqueId> mapped, final Map<UniqueId, PortfolioNode> changed, final Set<UniqueId> unmapped) {
     final Map<UniqueId, Position> positions = new HashMap<UniqueId, Position>();
-    findUnmappedNodesAndPositions(node, mapped, unmapped, positions);
+    findUnmappedNodesAndPositions(node, mapped, changed, unmapped, positions);
     for (Map.Entry<UniqueId, Position> position : positions.entrySet()) {
       if (position.getValue() == null) {
         if (!unmapped.contains(position.getKey())) {
@@ -1130,7 +1339,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
    * @param map the mapping of old unique identifiers to new ones or null/empty if none
    * @param unmap the set of old unique identifiers that might not have portfolio derived terminal outputs, not null
    */
-  private void mapAndUnmapNodes(final Map<String, PartiallyCompiledGraph> previousGraphs, final CompiledViewDefinitionWithGraphs compiledViewDefinition, final Map<UniqueId, UniqueId> map,
+  private static void mapAndUnmapNodes(final Map<String, PartiallyCompiledGraph> previousGraphs, final CompiledViewDefinitionWithGraphs compiledViewDefinition, final Map<UniqueId, UniqueId> map,
       final Set<UniqueId> unmap) {
     if (s_logger.isDebugEnabled()) {
       s_logger.debug("Mapping {} portfolio nodes to new structure, unmapping {} targets", (map != null) ? map.size() : 0, unmap.size());
@@ -1292,7 +1501,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
    * @param filter the filter to identify invalid nodes, not null
    * @param unchangedNodes optional identifiers of unchanged portfolio nodes; any nodes filtered out must be removed from this
    */
-  private void filterPreviousGraphs(final Map<String, PartiallyCompiledGraph> previousGraphs, final RootDiscardingSubgrapher filter, final Set<UniqueId> unchangedNodes) {
+  private static void filterPreviousGraphs(final Map<String, PartiallyCompiledGraph> previousGraphs, final RootDiscardingSubgrapher filter, final Set<UniqueId> unchangedNodes) {
     final Iterator<Map.Entry<String, PartiallyCompiledGraph>> itr = previousGraphs.entrySet().iterator();
     while (itr.hasNext()) {
       final Map.Entry<String, PartiallyCompiledGraph> entry = itr.next();
@@ -1368,38 +1577,19 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
                 if (invalidIdentifiers != null) {
                   previousGraphs = getPreviousGraphs(previousGraphs, compiledViewDefinition);
                   previousResolutions = new ConcurrentHashMap<>(resolvedIdentifiers.size());
-                  final Map<UniqueId, UniqueId> mapped;
-                  final Set<UniqueId> unmapped = new HashSet<>();
-                  if (compiledViewDefinition.getPortfolio() != null) {
-                    final ComputationTargetSpecification newPortfolioSpec = invalidIdentifiers.get(compiledViewDefinition.getPortfolio().getUniqueId());
-                    if (newPortfolioSpec != null) {
-                      // The portfolio resolution is different, invalidate or rewrite PORTFOLIO and PORTFOLIO_NODE nodes in the graph. Note that incremental
-                      // compilation under this circumstance can be flawed if the functions have made notable use of the overall portfolio structure such that
-                      // a full re-compilation will yield a different dependency graph to just rewriting the previous one.
-                      final ComputationTargetResolver resolver = getProcessContext().getFunctionCompilationService().getFunctionCompilationContext().getRawComputationTargetResolver();
-                      final ComputationTarget newPortfolio = resolver.resolve(newPortfolioSpec, versionCorrection);
-                      // Map any nodes from the old portfolio structure to the new one
-                      if (newPortfolio != null) {
-                        mapped = getNodeEquivalenceMapper().getEquivalentNodes(compiledViewDefinition.getPortfolio().getRootNode(), ((Portfolio) newPortfolio.getValue()).getRootNode());
-                        unchangedNodes = new HashSet<UniqueId>(mapped.values());
-                      } else {
-                        mapped = Collections.emptyMap();
-                        unchangedNodes = new HashSet<UniqueId>();
-                      }
-                      // Build a set of previous resolutions that haven't changed and unmap any modified positions or trades
-                      for (final Map.Entry<ComputationTargetReference, UniqueId> resolvedIdentifier : resolvedIdentifiers.entrySet()) {
-                        if (invalidIdentifiers.containsKey(resolvedIdentifier.getValue())) {
-                          if (resolvedIdentifier.getKey().getType().isTargetType(ComputationTargetType.POSITION_OR_TRADE)) {
-                            unmapped.add(resolvedIdentifier.getValue());
-                          }
-                        } else {
-                          previousResolutions.put(resolvedIdentifier.getKey(), resolvedIdentifier.getValue());
-                        }
-                      }
-                      // Rewrite the graph for the new portfolio structure and identify any defunct positions/trades
-                      findUnmappedNodesAndPositions(compiledViewDefinition.getPortfolio().getRootNode(), mapped, unmapped);
-                    } else {
-                      mapped = null;
+                  final Portfolio oldPortfolio = compiledViewDefinition.getPortfolio();
+                  final ComputationTargetSpecification newPortfolioSpec = (oldPortfolio != null) ? invalidIdentifiers.get(oldPortfolio.getUniqueId()) : null;
+                  if (newPortfolioSpec != null) {
+                    // The portfolio resolution is different, invalidate or rewrite PORTFOLIO and PORTFOLIO_NODE nodes in the graph. Note that incremental
+                    // compilation under this circumstance can be flawed if the functions have made notable use of the overall portfolio structure such that
+                    // a full re-compilation will yield a different dependency graph to just rewriting the previous one.
+                    final ComputationTargetResolver resolver = getProcessContext().getFunctionCompilationService().getFunctionCompilationContext().getRawComputationTargetResolver();
+                    final ComputationTarget newPortfolio = resolver.resolve(newPortfolioSpec, versionCorrection);
+                    unchangedNodes = remapPortfolio(previousGraphs, compiledViewDefinition, (newPortfolio != null) ? (Portfolio) newPortfolio.getValue() : null, getNodeEquivalenceMapper(),
+                        invalidIdentifiers, previousResolutions);
+                  } else {
+                    final Set<UniqueId> unmapped = new HashSet<>();
+                    if (oldPortfolio != null) {
                       // Build a set of previous resolutions and mark any changed positions or trades for unmapping
                       for (final Map.Entry<ComputationTargetReference, UniqueId> resolvedIdentifier : resolvedIdentifiers.entrySet()) {
                         if (invalidIdentifiers.containsKey(resolvedIdentifier.getValue())) {
@@ -1420,17 +1610,14 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
                         }
                       }
                       // Identify any defunct trades
-                      findUnmappedTrades(compiledViewDefinition.getPortfolio().getRootNode(), unmapped);
+                      findUnmappedTrades(oldPortfolio.getRootNode(), unmapped);
                     }
-                  } else {
-                    mapped = null;
+                    // Remove terminal outputs, any PORTFOLIO nodes and any unmapped PORTFOLIO_NODE nodes
+                    mapAndUnmapNodes(previousGraphs, compiledViewDefinition, null, unmapped);
+                    filterPreviousGraphs(previousGraphs, new InvalidPortfolioDependencyNodeFilter(unmapped), null);
+                    // Invalidate any dependency graph nodes on the invalid targets
+                    filterPreviousGraphs(previousGraphs, new InvalidTargetDependencyNodeFilter(invalidIdentifiers.keySet()), null);
                   }
-                  // Remove terminal outputs and rewrite nodes
-                  mapAndUnmapNodes(previousGraphs, compiledViewDefinition, mapped, unmapped);
-                  // Remove any PORTFOLIO nodes and any unmapped PORTFOLIO_NODE nodes with the filter
-                  filterPreviousGraphs(previousGraphs, new InvalidPortfolioDependencyNodeFilter(unmapped), null);
-                  // Invalidate any dependency graph nodes on the invalid targets
-                  filterPreviousGraphs(previousGraphs, new InvalidTargetDependencyNodeFilter(invalidIdentifiers.keySet()), unchangedNodes);
                 } else {
                   compiledViewDefinition = compiledViewDefinition.withResolverVersionCorrection(versionCorrection);
                   cacheCompiledViewDefinition(compiledViewDefinition);
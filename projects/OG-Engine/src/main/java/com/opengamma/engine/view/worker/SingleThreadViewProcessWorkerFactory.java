@@ -5,8 +5,11 @@
  */
 package com.opengamma.engine.view.worker;
 
+import java.io.File;
+
 import com.opengamma.engine.view.ViewDefinition;
 import com.opengamma.engine.view.execution.ViewExecutionOptions;
+import com.opengamma.util.ArgumentChecker;
 
 /**
  * Implementation of {@link ViewProcessWorkerFactory} for creating {@link SingleThreadViewProcessWorker} instances. Using this will result in each view process that has an executing view owning a
@@ -17,8 +20,43 @@ import com.opengamma.engine.view.execution.ViewExecutionOptions;
  */
 public class SingleThreadViewProcessWorkerFactory implements ViewProcessWorkerFactory {
 
+  private long _marketDataCoalescingMillis;
+  private File _timelineDirectory;
+
+  /**
+   * Sets the window in milliseconds for which market data change notifications are merged before the worker considers them. With a feed that
+   * ticks in bursts this avoids waking the worker for every tick. The default of zero considers each notification as it arrives.
+   *
+   * @param marketDataCoalescingMillis the window in milliseconds, not negative
+   */
+  public void setMarketDataCoalescingMillis(final long marketDataCoalescingMillis) {
+    ArgumentChecker.notNegative(marketDataCoalescingMillis, "marketDataCoalescingMillis");
+    _marketDataCoalescingMillis = marketDataCoalescingMillis;
+  }
+
+  public long getMarketDataCoalescingMillis() {
+    return _marketDataCoalescingMillis;
+  }
+
+  /**
+   * Sets the directory to record cycle timelines in. Each worker appends the timeline of every cycle, giving when the market data snapshot,
+   * graph planning, job execution and result dispatch happened, to a file in the directory named after its view process. The default of null
+   * records no timelines.
+   *
+   * @param timelineDirectory the directory, null to not record timelines
+   */
+  public void setTimelineDirectory(final File timelineDirectory) {
+    _timelineDirectory = timelineDirectory;
+  }
+
+  public File getTimelineDirectory() {
+    return _timelineDirectory;
+  }
+
   @Override
   public ViewProcessWorker createWorker(ViewProcessWorkerContext context, ViewExecutionOptions executionOptions, ViewDefinition viewDefinition) {
-    return new SingleThreadViewProcessWorker(context, executionOptions, viewDefinition);
+    final SingleThreadViewProcessWorker worker = new SingleThreadViewProcessWorker(context, executionOptions, viewDefinition, getMarketDataCoalescingMillis());
+    worker.setTimelineDirectory(getTimelineDirectory());
+    return worker;
   }
 }
@@ -0,0 +1,599 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.worker.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.threeten.bp.Instant;
+
+import com.google.common.collect.MapMaker;
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetResolver;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyGraphExplorer;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionDefinition;
+import com.opengamma.engine.function.FunctionParameters;
+import com.opengamma.engine.function.FunctionRepository;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.target.ComputationTargetReference;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.engine.view.compilation.CompiledViewCalculationConfiguration;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphs;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
+import com.opengamma.util.VersionUtils;
+
+/**
+ * A {@link ViewExecutionCache} that writes compiled view definitions to local files so that they survive a restart of the engine.
+ * <p>
+ * Each entry is written to its own file, named by a digest of the build version, the function repository fingerprint and the serialized
+ * {@link ViewExecutionCacheKey}, so that the same key finds the same file after a restart of the same build with the same functions. The file is in a
+ * compact binary form: a short header carrying the build version, the function repository fingerprint and the serialized key, which are checked
+ * against the requested ones on reading, followed by a Fudge encoding of the dependency graphs, calculation configurations and resolved identifier mappings. The
+ * view definition and portfolio are stored by unique identifier only and resolved again, at the entry's version/correction, when it is loaded.
+ * <p>
+ * Files are only read when an entry is first requested. An entry is presented with the current function initialization identifier and left for the
+ * view process worker to validate against the current version/correction and market data in the same way as any other cached compilation. Files are
+ * written behind the caller on a background executor so that storing an entry does not delay the compilation that produced it. Files written by
+ * another build or against a different set of functions are deleted from the same executor before the first entry is written.
+ */
+public class FileViewExecutionCache implements ViewExecutionCache {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(FileViewExecutionCache.class);
+
+  private static final int MAGIC = 0x4F475643;
+  private static final int FORMAT_VERSION = 3;
+  private static final String FILE_SUFFIX = ".cvd";
+
+  private static final String VERSION_CORRECTION_FIELD = "versionCorrection";
+  private static final String COMPILATION_IDENTIFIER_FIELD = "compilationId";
+  private static final String VIEW_DEFINITION_FIELD = "viewDefinition";
+  private static final String PORTFOLIO_FIELD = "portfolio";
+  private static final String GRAPH_FIELD = "graph";
+  private static final String CALC_CONFIG_FIELD = "calcConfig";
+  private static final String RESOLUTION_FIELD = "resolution";
+  private static final String REFERENCE_FIELD = "ref";
+  private static final String IDENTIFIER_FIELD = "uid";
+  private static final String VALID_FROM_FIELD = "validFrom";
+  private static final String VALID_TO_FIELD = "validTo";
+
+  private final File _directory;
+  private final FudgeContext _fudgeContext;
+  private final ComputationTargetResolver _targetResolver;
+  private final CompiledFunctionService _functions;
+  private final String _buildVersion;
+  private final Executor _writer;
+  private final ConcurrentMap<ViewExecutionCacheKey, CompiledViewDefinitionWithGraphs> _frontCache = new MapMaker().weakValues().makeMap();
+  private final ConcurrentMap<ViewExecutionCacheKey, CompiledViewDefinitionWithGraphs> _pendingWrites =
+      new ConcurrentHashMap<ViewExecutionCacheKey, CompiledViewDefinitionWithGraphs>();
+  private final AtomicBoolean _purged = new AtomicBoolean();
+  private FunctionRepository _fingerprintRepository;
+  private long _fingerprint;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param directory the folder to hold the cache files, created if it does not exist, not null
+   * @param fudgeContext the Fudge context to encode the entries with, not null
+   * @param cfs the compiled function service, holding the function repository and a computation target resolver, not null
+   */
+  public FileViewExecutionCache(final File directory, final FudgeContext fudgeContext, final CompiledFunctionService cfs) {
+    this(directory, fudgeContext, cfs.getFunctionCompilationContext().getRawComputationTargetResolver(), cfs);
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param directory the folder to hold the cache files, created if it does not exist, not null
+   * @param fudgeContext the Fudge context to encode the entries with, not null
+   * @param targetResolver the target resolver for portfolio and view definition objects, not null
+   * @param cfs the compiled function service, holding the function repository, not null
+   */
+  public FileViewExecutionCache(final File directory, final FudgeContext fudgeContext, final ComputationTargetResolver targetResolver, final CompiledFunctionService cfs) {
+    this(directory, fudgeContext, targetResolver, cfs, getDefaultBuildVersion(), createDefaultWriter());
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param directory the folder to hold the cache files, created if it does not exist, not null
+   * @param fudgeContext the Fudge context to encode the entries with, not null
+   * @param targetResolver the target resolver for portfolio and view definition objects, not null
+   * @param cfs the compiled function service, holding the function repository, not null
+   * @param buildVersion the version of the running build, entries written by any other build are discarded, not null
+   * @param writer the executor to write entries to disk from, not null
+   */
+  public FileViewExecutionCache(final File directory, final FudgeContext fudgeContext, final ComputationTargetResolver targetResolver, final CompiledFunctionService cfs,
+      final String buildVersion, final Executor writer) {
+    ArgumentChecker.notNull(directory, "directory");
+    ArgumentChecker.notNull(fudgeContext, "fudgeContext");
+    ArgumentChecker.notNull(targetResolver, "targetResolver");
+    ArgumentChecker.notNull(cfs, "cfs");
+    ArgumentChecker.notNull(buildVersion, "buildVersion");
+    ArgumentChecker.notNull(writer, "writer");
+    _directory = directory;
+    _fudgeContext = fudgeContext;
+    _targetResolver = targetResolver;
+    _functions = cfs;
+    _buildVersion = buildVersion;
+    _writer = writer;
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      s_logger.warn("Couldn't create cache folder {}", directory);
+    }
+  }
+
+  /**
+   * Returns the version of the running build. The build identifier is used where the manifest has one, as snapshot builds share a version number.
+   * A build without either, for example one run from an IDE, gets a version that is unique to the process so its entries are never reused.
+   *
+   * @return the build version, not null
+   */
+  protected static String getDefaultBuildVersion() {
+    final String build = VersionUtils.deriveBuild();
+    if (build != null) {
+      return build;
+    }
+    final String version = VersionUtils.deriveVersion();
+    if (version != null) {
+      return version;
+    }
+    return VersionUtils.getVersion("og-engine");
+  }
+
+  private static Executor createDefaultWriter() {
+    final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<Runnable>(),
+        new NamedThreadPoolFactory("View Execution Cache Writer", true));
+    // Let the thread end when there is nothing to write
+    writer.allowCoreThreadTimeOut(true);
+    return writer;
+  }
+
+  public File getDirectory() {
+    return _directory;
+  }
+
+  public FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  public ComputationTargetResolver getTargetResolver() {
+    return _targetResolver;
+  }
+
+  /**
+   * For testing only.
+   */
+  /* package */void clearFrontCache() {
+    _frontCache.clear();
+  }
+
+  /**
+   * Returns a fingerprint of the functions available to the engine. Graphs refer to functions by identifier so an entry written against one function
+   * repository cannot be used with another. The parameters the functions were configured with and their default execution parameters are included,
+   * as changing either can change the graph that would be built.
+   *
+   * @return the fingerprint
+   */
+  protected synchronized long getFunctionRepositoryFingerprint() {
+    final FunctionRepository repository = _functions.getInitializedFunctionRepository();
+    if ((repository != _fingerprintRepository) || (repository == null)) {
+      final FunctionRepository rawRepository = _functions.getFunctionRepository();
+      final List<String> functions = new ArrayList<String>();
+      if (repository != null) {
+        for (FunctionDefinition function : repository.getAllFunctions()) {
+          final StringBuilder sb = new StringBuilder();
+          sb.append(function.getUniqueId()).append('=').append(function.getClass().getName());
+          if (rawRepository instanceof InMemoryFunctionRepository) {
+            final List<String> parameters = ((InMemoryFunctionRepository) rawRepository).getConfigurationParameters(function.getUniqueId());
+            if (parameters != null) {
+              sb.append(parameters);
+            }
+          }
+          final FunctionParameters defaultParameters = function.getDefaultParameters();
+          if (defaultParameters != null) {
+            sb.append(';').append(fingerprint(defaultParameters));
+          }
+          functions.add(sb.toString());
+        }
+      }
+      Collections.sort(functions);
+      long hash = 1125899906842597L;
+      for (String function : functions) {
+        for (int i = 0; i < function.length(); i++) {
+          hash = 31 * hash + function.charAt(i);
+        }
+        hash = 31 * hash;
+      }
+      _fingerprintRepository = repository;
+      _fingerprint = hash;
+    }
+    return _fingerprint;
+  }
+
+  private static String fingerprint(final FunctionParameters parameters) {
+    try {
+      return DigestUtils.sha1Hex(serialize(parameters));
+    } catch (IOException e) {
+      // Not everything implementing the marker interface is serializable; fall back to the string form
+      return parameters.getClass().getName() + ":" + parameters;
+    }
+  }
+
+  /**
+   * Returns the file that holds the entry for a key. The name is a digest of the build version, the function repository fingerprint and the serialized
+   * key. The serialized key is used rather than its hash code, as the hint keys from market data providers may hash differently after a restart.
+   *
+   * @param key the key, not null
+   * @return the file, not null
+   */
+  protected File getFile(final ViewExecutionCacheKey key) {
+    try {
+      return getFile(serialize(key), getFunctionRepositoryFingerprint());
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Couldn't serialize " + key, e);
+    }
+  }
+
+  private File getFile(final byte[] keyData, final long fingerprint) throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(baos)) {
+      out.writeUTF(_buildVersion);
+      out.writeLong(fingerprint);
+      out.write(keyData);
+    }
+    return new File(_directory, DigestUtils.sha1Hex(baos.toByteArray()) + FILE_SUFFIX);
+  }
+
+  private static byte[] serialize(final Object object) throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+      oos.writeObject(object);
+    }
+    return baos.toByteArray();
+  }
+
+  private static Object deserializeKey(final byte[] data) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+      return ois.readObject();
+    }
+  }
+
+  protected FudgeMsg toFudgeMsg(final CompiledViewDefinitionWithGraphs viewDef) {
+    final FudgeSerializer serializer = new FudgeSerializer(getFudgeContext());
+    final MutableFudgeMsg msg = serializer.newMessage();
+    serializer.addToMessage(msg, VERSION_CORRECTION_FIELD, null, viewDef.getResolverVersionCorrection());
+    msg.add(COMPILATION_IDENTIFIER_FIELD, viewDef.getCompilationIdentifier());
+    serializer.addToMessage(msg, VIEW_DEFINITION_FIELD, null, viewDef.getViewDefinition().getUniqueId());
+    if (viewDef.getPortfolio() != null) {
+      serializer.addToMessage(msg, PORTFOLIO_FIELD, null, viewDef.getPortfolio().getUniqueId());
+    }
+    for (DependencyGraphExplorer explorer : viewDef.getDependencyGraphExplorers()) {
+      serializer.addToMessage(msg, GRAPH_FIELD, null, explorer.getWholeGraph());
+    }
+    for (CompiledViewCalculationConfiguration calcConfig : viewDef.getCompiledCalculationConfigurations()) {
+      serializer.addToMessage(msg, CALC_CONFIG_FIELD, null, calcConfig);
+    }
+    for (Map.Entry<ComputationTargetReference, UniqueId> resolution : viewDef.getResolvedIdentifiers().entrySet()) {
+      final MutableFudgeMsg submsg = msg.addSubMessage(RESOLUTION_FIELD, null);
+      serializer.addToMessage(submsg, REFERENCE_FIELD, null, resolution.getKey());
+      serializer.addToMessage(submsg, IDENTIFIER_FIELD, null, resolution.getValue());
+    }
+    if (viewDef.getValidFrom() != null) {
+      serializer.addToMessage(msg, VALID_FROM_FIELD, null, viewDef.getValidFrom());
+    }
+    if (viewDef.getValidTo() != null) {
+      serializer.addToMessage(msg, VALID_TO_FIELD, null, viewDef.getValidTo());
+    }
+    return msg;
+  }
+
+  /**
+   * Rebuilds a compiled view definition from its encoded form, resolving the view definition and portfolio.
+   *
+   * @param msg the encoded form, not null
+   * @return the compiled view definition, or null if the view definition or portfolio can no longer be resolved
+   */
+  protected CompiledViewDefinitionWithGraphs fromFudgeMsg(final FudgeMsg msg) {
+    final FudgeDeserializer deserializer = new FudgeDeserializer(getFudgeContext());
+    final VersionCorrection versionCorrection = deserializer.fieldValueToObject(VersionCorrection.class, msg.getByName(VERSION_CORRECTION_FIELD));
+    final String compilationId = msg.getString(COMPILATION_IDENTIFIER_FIELD);
+    final UniqueId viewDefinitionId = deserializer.fieldValueToObject(UniqueId.class, msg.getByName(VIEW_DEFINITION_FIELD));
+    final ComputationTarget viewDefinition = getTargetResolver().resolve(new ComputationTargetSpecification(ComputationTargetType.of(ViewDefinition.class), viewDefinitionId),
+        versionCorrection);
+    if (viewDefinition == null) {
+      s_logger.info("View definition {} no longer available", viewDefinitionId);
+      return null;
+    }
+    Portfolio portfolio = null;
+    FudgeField field = msg.getByName(PORTFOLIO_FIELD);
+    if (field != null) {
+      final UniqueId portfolioId = deserializer.fieldValueToObject(UniqueId.class, field);
+      final ComputationTarget target = getTargetResolver().resolve(new ComputationTargetSpecification(ComputationTargetType.PORTFOLIO, portfolioId), versionCorrection);
+      if (target == null) {
+        s_logger.info("Portfolio {} no longer available", portfolioId);
+        return null;
+      }
+      portfolio = (Portfolio) target.getValue();
+    }
+    final List<FudgeField> graphFields = msg.getAllByName(GRAPH_FIELD);
+    final Collection<DependencyGraph> graphs = new ArrayList<DependencyGraph>(graphFields.size());
+    for (FudgeField graphField : graphFields) {
+      graphs.add(deserializer.fieldValueToObject(DependencyGraph.class, graphField));
+    }
+    final List<FudgeField> calcConfigFields = msg.getAllByName(CALC_CONFIG_FIELD);
+    final Collection<CompiledViewCalculationConfiguration> calcConfigs = new ArrayList<CompiledViewCalculationConfiguration>(calcConfigFields.size());
+    for (FudgeField calcConfigField : calcConfigFields) {
+      calcConfigs.add(deserializer.fieldValueToObject(CompiledViewCalculationConfiguration.class, calcConfigField));
+    }
+    final Map<ComputationTargetReference, UniqueId> resolutions = new HashMap<ComputationTargetReference, UniqueId>();
+    for (FudgeField resolutionField : msg.getAllByName(RESOLUTION_FIELD)) {
+      final FudgeMsg resolution = (FudgeMsg) resolutionField.getValue();
+      resolutions.put(deserializer.fieldValueToObject(ComputationTargetReference.class, resolution.getByName(REFERENCE_FIELD)),
+          deserializer.fieldValueToObject(UniqueId.class, resolution.getByName(IDENTIFIER_FIELD)));
+    }
+    field = msg.getByName(VALID_FROM_FIELD);
+    final Instant validFrom = (field != null) ? deserializer.fieldValueToObject(Instant.class, field) : null;
+    field = msg.getByName(VALID_TO_FIELD);
+    final Instant validTo = (field != null) ? deserializer.fieldValueToObject(Instant.class, field) : null;
+    // The function initialization identifier is not stable across restarts; the fingerprint check has already established that the functions match
+    final Long functionInitId = _functions.getFunctionCompilationContext().getFunctionInitId();
+    return new CompiledViewDefinitionWithGraphsImpl(versionCorrection, compilationId, (ViewDefinition) viewDefinition.getValue(), graphs, resolutions, portfolio,
+        (functionInitId != null) ? functionInitId : 0L, calcConfigs, validFrom, validTo);
+  }
+
+  /**
+   * Reads an entry from disk.
+   *
+   * @param key the key to read, not null
+   * @return the entry, or null if there is no valid entry on disk
+   */
+  protected CompiledViewDefinitionWithGraphs read(final ViewExecutionCacheKey key) {
+    final long fingerprint = getFunctionRepositoryFingerprint();
+    final File file;
+    try {
+      file = getFile(serialize(key), fingerprint);
+    } catch (IOException e) {
+      s_logger.warn("Couldn't serialize {} - {}", key, e.toString());
+      return null;
+    }
+    if (!file.exists()) {
+      return null;
+    }
+    final byte[] body;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (!isCurrent(in, fingerprint)) {
+        s_logger.info("Discarding {} written by a different build or for a different function repository", file);
+        in.close();
+        delete(file);
+        return null;
+      }
+      final byte[] keyData = new byte[in.readInt()];
+      in.readFully(keyData);
+      if (!key.equals(deserializeKey(keyData))) {
+        // Digest collision with a different key; leave it alone and treat this as a miss
+        s_logger.debug("File {} holds a different key to {}", file, key);
+        return null;
+      }
+      body = new byte[in.readInt()];
+      in.readFully(body);
+    } catch (IOException | ClassNotFoundException | RuntimeException e) {
+      s_logger.warn("Couldn't read {} - {}", file, e.toString());
+      delete(file);
+      return null;
+    }
+    try {
+      return fromFudgeMsg(getFudgeContext().deserialize(body).getMessage());
+    } catch (RuntimeException e) {
+      s_logger.warn("Couldn't decode {} - {}", file, e.toString());
+      delete(file);
+      return null;
+    }
+  }
+
+  /**
+   * Reads the header of a file and checks it was written by this build against the current functions.
+   *
+   * @param in the file content, positioned at the start, not null
+   * @param fingerprint the current function repository fingerprint
+   * @return true if the entry can be used, false otherwise
+   * @throws IOException if the header can't be read
+   */
+  private boolean isCurrent(final DataInputStream in, final long fingerprint) throws IOException {
+    return (in.readInt() == MAGIC) && (in.readInt() == FORMAT_VERSION) && _buildVersion.equals(in.readUTF()) && (in.readLong() == fingerprint);
+  }
+
+  /**
+   * Deletes any files which can't be used by this build with the current functions. Their names don't match any key that will be requested, so they
+   * would otherwise never be read or replaced.
+   */
+  protected void purge() {
+    final File[] files = _directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    final long fingerprint = getFunctionRepositoryFingerprint();
+    int count = 0;
+    for (File file : files) {
+      if (!file.getName().endsWith(FILE_SUFFIX)) {
+        continue;
+      }
+      boolean current;
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+        current = isCurrent(in, fingerprint);
+      } catch (IOException | RuntimeException e) {
+        current = false;
+      }
+      if (!current) {
+        delete(file);
+        count++;
+      }
+    }
+    s_logger.info("Deleted {} files from {} not written by this build for the current functions", count, _directory);
+  }
+
+  /**
+   * Writes an entry to disk. The data is written to a temporary file first and then renamed so that a partially written entry is never visible.
+   *
+   * @param key the key to write, not null
+   * @param viewDefinition the entry to write, not null
+   */
+  protected void write(final ViewExecutionCacheKey key, final CompiledViewDefinitionWithGraphs viewDefinition) {
+    File file = null;
+    File temp = null;
+    try {
+      final byte[] keyData = serialize(key);
+      final long fingerprint = getFunctionRepositoryFingerprint();
+      file = getFile(keyData, fingerprint);
+      temp = new File(_directory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+      final byte[] body = getFudgeContext().toByteArray(toFudgeMsg(viewDefinition));
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(_buildVersion);
+        out.writeLong(fingerprint);
+        out.writeInt(keyData.length);
+        out.write(keyData);
+        out.writeInt(body.length);
+        out.write(body);
+      }
+      if (!temp.renameTo(file)) {
+        delete(file);
+        if (!temp.renameTo(file)) {
+          throw new IOException("Couldn't rename " + temp + " to " + file);
+        }
+      }
+      s_logger.debug("Wrote {} bytes to {}", body.length, file);
+    } catch (IOException | RuntimeException e) {
+      s_logger.warn("Couldn't write CompiledViewDefinitionWithGraphs for {} to {} - {}", new Object[] {key, file, e.toString() });
+      if (temp != null) {
+        delete(temp);
+      }
+    }
+  }
+
+  private static void delete(final File file) {
+    if (file.exists() && !file.delete()) {
+      s_logger.warn("Couldn't delete {}", file);
+    }
+  }
+
+  // ViewExecutionCache
+
+  @Override
+  public CompiledViewDefinitionWithGraphs getCompiledViewDefinitionWithGraphs(final ViewExecutionCacheKey key) {
+    CompiledViewDefinitionWithGraphs graphs = _frontCache.get(key);
+    if (graphs != null) {
+      s_logger.debug("Front cache hit CompiledViewDefinitionWithGraphs for {}", key);
+      return graphs;
+    }
+    graphs = _pendingWrites.get(key);
+    if (graphs != null) {
+      s_logger.debug("Pending write hit CompiledViewDefinitionWithGraphs for {}", key);
+      return graphs;
+    }
+    graphs = read(key);
+    if (graphs != null) {
+      s_logger.debug("File cache hit CompiledViewDefinitionWithGraphs for {}", key);
+      final CompiledViewDefinitionWithGraphs existing = _frontCache.putIfAbsent(key, graphs);
+      if (existing != null) {
+        graphs = existing;
+      }
+    } else {
+      s_logger.debug("File cache miss CompiledViewDefinitionWithGraphs for {}", key);
+    }
+    return graphs;
+  }
+
+  @Override
+  public void setCompiledViewDefinitionWithGraphs(final ViewExecutionCacheKey key, final CompiledViewDefinitionWithGraphs viewDefinition) {
+    final CompiledViewDefinitionWithGraphs existing = _frontCache.put(key, viewDefinition);
+    if (existing == viewDefinition) {
+      return;
+    }
+    s_logger.info("Storing CompiledViewDefinitionWithGraphs for {}", key);
+    if (_purged.compareAndSet(false, true)) {
+      _writer.execute(new Runnable() {
+        @Override
+        public void run() {
+          purge();
+        }
+      });
+    }
+    if (_pendingWrites.put(key, viewDefinition) == null) {
+      _writer.execute(new Runnable() {
+        @Override
+        public void run() {
+          // A newer entry stored for the key while this one was being written stays pending and is written next
+          CompiledViewDefinitionWithGraphs pending = _pendingWrites.get(key);
+          while (pending != null) {
+            write(key, pending);
+            if (_pendingWrites.remove(key, pending)) {
+              break;
+            }
+            pending = _pendingWrites.get(key);
+          }
+        }
+      });
+    }
+  }
+
+  @Override
+  public void clear() {
+    _frontCache.clear();
+    _pendingWrites.clear();
+    s_logger.info("Clearing all CompiledViewDefinitionWithGraphs");
+    final File[] files = _directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.getName().endsWith(FILE_SUFFIX)) {
+          delete(file);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link OffHeapBinaryDataStore} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class OffHeapBinaryDataStoreTest {
+
+  private static byte[] data(final int length, final int seed) {
+    final byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) (seed + i);
+    }
+    return data;
+  }
+
+  public void testPutGet() {
+    final OffHeapBinaryDataStoreFactory factory = new OffHeapBinaryDataStoreFactory(1024, 4, null);
+    final BinaryDataStore store = factory.createDataStore(null);
+    assertNull(store.get(1L));
+    store.put(1L, data(10, 1));
+    store.put(2L, data(0, 2));
+    assertEquals(store.get(1L), data(10, 1));
+    assertEquals(store.get(2L), new byte[0]);
+    assertNull(store.get(3L));
+    store.put(1L, data(20, 3));
+    assertEquals(store.get(1L), data(20, 3));
+  }
+
+  public void testSegmentOverflow() {
+    final OffHeapBinaryDataStoreFactory factory = new OffHeapBinaryDataStoreFactory(256, 4, null);
+    final OffHeapBinaryDataStore store = (OffHeapBinaryDataStore) factory.createDataStore(null);
+    final Map<Long, byte[]> values = new HashMap<Long, byte[]>();
+    for (int i = 0; i < 100; i++) {
+      values.put((long) i, data(i * 3, i));
+    }
+    values.put(1000L, data(1000, 7));
+    store.put(values);
+    assertEquals(store.size(), values.size());
+    final Map<Long, byte[]> result = store.get(values.keySet());
+    assertEquals(result.size(), values.size());
+    for (Map.Entry<Long, byte[]> entry : values.entrySet()) {
+      assertEquals(result.get(entry.getKey()), entry.getValue());
+    }
+    assertEquals(store.get(Arrays.asList(5000L)).size(), 0);
+  }
+
+  public void testSegmentReuse() {
+    final OffHeapBinaryDataStoreFactory factory = new OffHeapBinaryDataStoreFactory(256, 2, null);
+    final BinaryDataStore first = factory.createDataStore(null);
+    for (int i = 0; i < 10; i++) {
+      first.put(i, data(100, i));
+    }
+    first.put(100L, data(500, 0));
+    assertEquals(factory.getPooledSegmentCount(), 0);
+    first.delete();
+    assertEquals(factory.getPooledSegmentCount(), 2);
+    final BinaryDataStore second = factory.createDataStore(null);
+    assertNull(second.get(1L));
+    second.put(1L, data(100, 9));
+    assertEquals(factory.getPooledSegmentCount(), 1);
+    assertEquals(second.get(1L), data(100, 9));
+  }
+
+}
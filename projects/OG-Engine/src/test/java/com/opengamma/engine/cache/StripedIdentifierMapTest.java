@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link StripedIdentifierMap} class. The performance tests from the base class can be compared against
+ * {@link InMemoryIdentifierMapTest}.
+ */
+@Test(groups = TestGroup.INTEGRATION)
+public class StripedIdentifierMapTest extends AbstractIdentifierMapTest {
+
+  @Override
+  protected IdentifierMap createIdentifierMap(String testName) {
+    return new StripedIdentifierMap();
+  }
+
+  @Test(groups = TestGroup.UNIT)
+  public void testPageGrowth() {
+    final StripedIdentifierMap idMap = new StripedIdentifierMap(4);
+    final List<ValueSpecification> specs = new ArrayList<ValueSpecification>();
+    for (int i = 0; i < 10000; i++) {
+      specs.add(getValueSpec("value-" + i));
+    }
+    final Object2LongMap<ValueSpecification> identifiers = idMap.getIdentifiers(specs);
+    assertEquals(specs.size(), identifiers.size());
+    assertEquals(specs.size(), idMap.size());
+    for (ValueSpecification spec : specs) {
+      assertEquals(spec, idMap.getValueSpecification(identifiers.getLong(spec)));
+      assertEquals(identifiers.getLong(spec), idMap.getIdentifier(spec));
+    }
+    assertNull(idMap.getValueSpecification(0L));
+    assertNull(idMap.getValueSpecification(1000000L));
+  }
+
+  @Test(groups = TestGroup.UNIT)
+  public void testConcurrentAllocation() throws Exception {
+    final StripedIdentifierMap idMap = new StripedIdentifierMap();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<Object2LongMap<ValueSpecification>>> futures = new ArrayList<Future<Object2LongMap<ValueSpecification>>>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(new Callable<Object2LongMap<ValueSpecification>>() {
+          @Override
+          public Object2LongMap<ValueSpecification> call() {
+            final List<ValueSpecification> specs = new ArrayList<ValueSpecification>();
+            for (int i = 0; i < 5000; i++) {
+              specs.add(getValueSpec("value-" + i));
+            }
+            return idMap.getIdentifiers(specs);
+          }
+        }));
+      }
+      final Object2LongMap<ValueSpecification> first = futures.get(0).get();
+      for (Future<Object2LongMap<ValueSpecification>> future : futures) {
+        assertEquals(first, future.get());
+      }
+      assertEquals(5000, idMap.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
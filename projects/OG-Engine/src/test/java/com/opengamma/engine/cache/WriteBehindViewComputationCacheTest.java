@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.async.AsynchronousExecution;
+import com.opengamma.util.async.AsynchronousOperation;
+import com.opengamma.util.test.TestGroup;
+import com.opengamma.util.test.Timeout;
+
+/**
+ * Tests the {@link WriteBehindViewComputationCache} class.
+ */
+@Test(groups = TestGroup.UNIT, singleThreaded = true)
+public class WriteBehindViewComputationCacheTest {
+
+  private static class RecordingViewComputationCache extends AbstractViewComputationCache {
+
+    private final List<Integer> _writes = new ArrayList<Integer>();
+    private CountDownLatch _entered;
+    private CountDownLatch _release;
+
+    public synchronized List<Integer> getWrites() {
+      return new ArrayList<Integer>(_writes);
+    }
+
+    public void blockFirstWrite() {
+      _entered = new CountDownLatch(1);
+      _release = new CountDownLatch(1);
+    }
+
+    private void write(final int count) {
+      final CountDownLatch entered = _entered;
+      if (entered != null) {
+        _entered = null;
+        entered.countDown();
+        try {
+          _release.await(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          throw new OpenGammaRuntimeException("Interrupted", e);
+        }
+      }
+      synchronized (this) {
+        _writes.add(count);
+      }
+    }
+
+    @Override
+    public Object getValue(final ValueSpecification specification) {
+      return null;
+    }
+
+    @Override
+    public void putSharedValue(final ComputedValue value) {
+      write(1);
+    }
+
+    @Override
+    public void putSharedValues(final Collection<? extends ComputedValue> values) {
+      write(values.size());
+    }
+
+    @Override
+    public void putPrivateValue(final ComputedValue value) {
+      write(1);
+    }
+
+    @Override
+    public void putPrivateValues(final Collection<? extends ComputedValue> values) {
+      write(values.size());
+    }
+
+    @Override
+    public Integer estimateValueSize(final ComputedValue value) {
+      return null;
+    }
+
+  }
+
+  private ExecutorService _executor;
+
+  @BeforeMethod
+  public void setUp() {
+    _executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    _executor.shutdown();
+  }
+
+  private static ComputedValue value(final int i) {
+    return new ComputedValue(new ValueSpecification("Value", new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Test", Integer.toString(i))),
+        ValueProperties.with("Function", "Test").get()), (double) i);
+  }
+
+  private static List<ComputedValue> values(final int first, final int count) {
+    final List<ComputedValue> values = new ArrayList<ComputedValue>(count);
+    for (int i = 0; i < count; i++) {
+      values.add(value(first + i));
+    }
+    return values;
+  }
+
+  private static void flush(final WriteBehindViewComputationCache cache) {
+    try {
+      cache.flush();
+    } catch (AsynchronousExecution e) {
+      AsynchronousOperation.getResult(e);
+    }
+  }
+
+  public void testBatchSizeBound() throws Exception {
+    final RecordingViewComputationCache underlying = new RecordingViewComputationCache();
+    final WriteBehindViewComputationCache cache = new WriteBehindViewComputationCache(underlying, _executor, true, false);
+    cache.setMaxBatchSize(10);
+    underlying.blockFirstWrite();
+    final CountDownLatch entered = underlying._entered;
+    cache.putSharedValue(value(0));
+    assertTrue(entered.await(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS));
+    cache.putSharedValues(values(1, 25));
+    assertEquals(cache.getQueueDepth(), 25);
+    underlying._release.countDown();
+    flush(cache);
+    assertEquals(underlying.getWrites(), Arrays.asList(1, 10, 10, 5));
+    assertEquals(cache.getQueueDepth(), 0);
+  }
+
+  public void testPartialBatchHeldUntilFlush() {
+    final RecordingViewComputationCache underlying = new RecordingViewComputationCache();
+    final WriteBehindViewComputationCache cache = new WriteBehindViewComputationCache(underlying, _executor, true, false);
+    cache.setMaxBatchSize(100);
+    cache.setMaxBatchLatency(1, TimeUnit.HOURS);
+    for (int i = 0; i < 5; i++) {
+      cache.putSharedValue(value(i));
+    }
+    flush(cache);
+    assertEquals(underlying.getWrites(), Arrays.asList(5));
+    assertEquals(cache.getQueueDepth(), 0);
+  }
+
+  public void testPartialBatchWrittenAfterLatency() throws Exception {
+    final RecordingViewComputationCache underlying = new RecordingViewComputationCache();
+    final WriteBehindViewComputationCache cache = new WriteBehindViewComputationCache(underlying, _executor, true, false);
+    cache.setMaxBatchSize(100);
+    cache.setMaxBatchLatency(50, TimeUnit.MILLISECONDS);
+    cache.putSharedValues(values(0, 3));
+    final long deadline = System.currentTimeMillis() + Timeout.standardTimeoutMillis();
+    while (underlying.getWrites().isEmpty()) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+    assertEquals(underlying.getWrites(), Arrays.asList(3));
+  }
+
+  public void testFullBatchNotHeld() {
+    final RecordingViewComputationCache underlying = new RecordingViewComputationCache();
+    final WriteBehindViewComputationCache cache = new WriteBehindViewComputationCache(underlying, _executor, true, false);
+    cache.setMaxBatchSize(10);
+    cache.setMaxBatchLatency(1, TimeUnit.HOURS);
+    cache.putSharedValues(values(0, 20));
+    flush(cache);
+    assertEquals(underlying.getWrites(), Arrays.asList(10, 10));
+  }
+
+}
@@ -62,6 +62,9 @@ public class CalculationJobSpecificationTest {
     assertFalse(spec1.equals(spec2));
     spec2 = new CalculationJobSpecification(UniqueId.of("Test", "ViewCycle"), "config", valuationTime, 2L);
     assertFalse(spec1.equals(spec2));
+    spec2 = new CalculationJobSpecification(UniqueId.of("Test", "ViewProcess"), "config", valuationTime, 1L, "Snapshot");
+    assertFalse(spec1.equals(spec2));
+    assertTrue(spec2.equals(new CalculationJobSpecification(UniqueId.of("Test", "ViewProcess"), "config", valuationTime, 1L, "Snapshot")));
   }
   
   public void fudgeEncoding() {
@@ -75,4 +78,17 @@ public class CalculationJobSpecificationTest {
     assertEquals(spec1, spec2);
   }
 
+  public void fudgeEncodingWithMarketDataSource() {
+    FudgeContext context = OpenGammaFudgeContext.getInstance();
+    CalculationJobSpecification spec1 = new CalculationJobSpecification(UniqueId.of("Test", "ViewCycle"), "config", Instant.now(), 1L, "Snapshot");
+    FudgeSerializer serializationContext = new FudgeSerializer(context);
+    MutableFudgeMsg inMsg = serializationContext.objectToFudgeMsg(spec1);
+    FudgeMsg outMsg = context.deserialize(context.toByteArray(inMsg)).getMessage();
+    FudgeDeserializer deserializationContext = new FudgeDeserializer(context);
+    CalculationJobSpecification spec2 = deserializationContext.fudgeMsgToObject(CalculationJobSpecification.class, outMsg);
+    assertEquals(spec1, spec2);
+    assertEquals("Snapshot", spec2.getMarketDataSource());
+    assertEquals(spec1.withJobId(2L).getMarketDataSource(), "Snapshot");
+  }
+
 }
@@ -6,6 +6,7 @@
 package com.opengamma.engine.calcnode;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
@@ -462,4 +463,118 @@ public class JobDispatcherTest {
     }
   }
 
+  private static CalculationJob createTestJob(final CalculationJob... required) {
+    final long[] requiredJobIds = new long[required.length];
+    for (int i = 0; i < required.length; i++) {
+      requiredJobIds[i] = required[i].getSpecification().getJobId();
+    }
+    return new CalculationJob(createTestJobSpec(), 0L, VersionCorrection.LATEST, requiredJobIds, createTestJobItems(), CacheSelectHint.allPrivate());
+  }
+
+  private CalculationJobResult dispatchAndWait(final JobDispatcher jobDispatcher, final CalculationJob job) {
+    final TestJobResultReceiver result = new TestJobResultReceiver();
+    jobDispatcher.dispatchJob(job, result);
+    final CalculationJobResult jobResult = result.waitForResult(TIMEOUT);
+    assertNotNull(jobResult);
+    assertEquals(job.getSpecification(), jobResult.getSpecification());
+    return jobResult;
+  }
+
+  @Test
+  public void invokeOnPreferredNode() {
+    s_logger.info("invokeOnPreferredNode");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    try {
+      jobDispatcher.setLocalityDelay(TIMEOUT);
+      jobDispatcher.registerJobInvoker(new TestJobInvoker("1"));
+      jobDispatcher.registerJobInvoker(new TestJobInvoker("2"));
+      final CalculationJob job1 = createTestJob();
+      assertEquals("1", dispatchAndWait(jobDispatcher, job1).getComputeNodeId());
+      final CalculationJob job2 = createTestJob();
+      assertEquals("2", dispatchAndWait(jobDispatcher, job2).getComputeNodeId());
+      // Round-robin would pick node 1 then node 2; locality picks the node that ran the inputs
+      assertEquals("2", dispatchAndWait(jobDispatcher, createTestJob(job2)).getComputeNodeId());
+      assertEquals("1", dispatchAndWait(jobDispatcher, createTestJob(job1, job1, job2)).getComputeNodeId());
+    } finally {
+      jobDispatcher.stop();
+    }
+  }
+
+  @Test
+  public void stealFromBusyNode() {
+    s_logger.info("stealFromBusyNode");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    try {
+      jobDispatcher.setLocalityDelay(TIMEOUT / 10);
+      final TestJobInvoker node1 = new TestJobInvoker("1");
+      final TestJobInvoker node2 = new TestJobInvoker("2");
+      jobDispatcher.registerJobInvoker(node1);
+      jobDispatcher.registerJobInvoker(node2);
+      final CalculationJob job1 = createTestJob();
+      assertEquals("1", dispatchAndWait(jobDispatcher, job1).getComputeNodeId());
+      node1._disabled = true;
+      final long start = System.nanoTime();
+      assertEquals("2", dispatchAndWait(jobDispatcher, createTestJob(job1)).getComputeNodeId());
+      // The job must have been held for the preferred node before being taken by the other
+      assertTrue(System.nanoTime() - start >= (TIMEOUT / 10) * 1000000L);
+      assertNotNull(node1._callback);
+    } finally {
+      jobDispatcher.stop();
+    }
+  }
+
+  @Test
+  public void skipPreferredNodeWithoutCapability() {
+    s_logger.info("skipPreferredNodeWithoutCapability");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    try {
+      // Longer than the wait for a result, so a job held for node 1 would not complete in time
+      jobDispatcher.setLocalityDelay(TIMEOUT * 10);
+      final Capability capability = Capability.instanceOf("Node2");
+      jobDispatcher.registerJobInvoker(new TestJobInvoker("1"));
+      jobDispatcher.registerJobInvoker(new TestJobInvoker("2") {
+        @Override
+        public Collection<Capability> getCapabilities() {
+          return Collections.singleton(capability);
+        }
+      });
+      final CalculationJob job1 = createTestJob();
+      assertEquals("1", dispatchAndWait(jobDispatcher, job1).getComputeNodeId());
+      jobDispatcher.setCapabilityRequirementsProvider(new CapabilityRequirementsProvider() {
+        @Override
+        public CapabilityRequirements getCapabilityRequirements(final CalculationJob job) {
+          final CapabilityRequirements requirements = new CapabilityRequirements();
+          requirements.requireCapability(capability);
+          return requirements;
+        }
+      });
+      assertEquals("2", dispatchAndWait(jobDispatcher, createTestJob(job1)).getComputeNodeId());
+    } finally {
+      jobDispatcher.stop();
+    }
+  }
+
+  @Test
+  public void stopReleasesHeldJobs() {
+    s_logger.info("stopReleasesHeldJobs");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    jobDispatcher.setLocalityDelay(TIMEOUT * 10);
+    assertTrue(jobDispatcher.isRunning());
+    final TestJobInvoker node1 = new TestJobInvoker("1");
+    final TestJobInvoker node2 = new TestJobInvoker("2");
+    jobDispatcher.registerJobInvoker(node1);
+    jobDispatcher.registerJobInvoker(node2);
+    final CalculationJob job1 = createTestJob();
+    assertEquals("1", dispatchAndWait(jobDispatcher, job1).getComputeNodeId());
+    node1._disabled = true;
+    final TestJobResultReceiver result = new TestJobResultReceiver();
+    jobDispatcher.dispatchJob(createTestJob(job1), result);
+    jobDispatcher.stop();
+    assertFalse(jobDispatcher.isRunning());
+    assertNull(jobDispatcher.getLocalityExecutor());
+    final CalculationJobResult jobResult = result.waitForResult(TIMEOUT);
+    assertNotNull(jobResult);
+    assertEquals("2", jobResult.getComputeNodeId());
+  }
+
 }
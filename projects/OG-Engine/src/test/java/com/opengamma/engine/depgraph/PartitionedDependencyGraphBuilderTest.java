@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+import org.threeten.bp.Instant;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetResolver;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.MapComputationTargetResolver;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder.NodeBuilder;
+import com.opengamma.engine.depgraph.impl.DependencyGraphImpl;
+import com.opengamma.engine.depgraph.impl.DependencyNodeImpl;
+import com.opengamma.engine.function.CachingFunctionRepositoryCompiler;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.MarketDataSourcingFunction;
+import com.opengamma.engine.function.resolver.CompiledFunctionResolver;
+import com.opengamma.engine.function.resolver.DefaultFunctionResolver;
+import com.opengamma.engine.marketdata.availability.FixedMarketDataAvailabilityProvider;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.test.MockFunction;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.test.TestGroup;
+import com.opengamma.util.test.TestLifecycle;
+
+/**
+ * Tests the {@link PartitionedDependencyGraphBuilder} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class PartitionedDependencyGraphBuilderTest {
+
+  private static final ComputationTargetSpecification CURVE = new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Curve", "USD"));
+
+  private static ComputationTargetSpecification position(final int index) {
+    return new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Position", Integer.toString(index)));
+  }
+
+  /**
+   * Creates a shard graph pricing the given positions off a shared curve.
+   */
+  private static DependencyGraph shard(final int... positions) {
+    final TestDependencyGraphBuilder gb = new TestDependencyGraphBuilder("Default");
+    final NodeBuilder marketData = gb.addNode(MarketDataSourcingFunction.INSTANCE, CURVE);
+    final NodeBuilder curve = gb.addNode("Curve", CURVE);
+    curve.addInput(marketData.addOutput("MarketValue"));
+    final ValueSpecification curveValue = curve.addOutput("Curve");
+    for (final int position : positions) {
+      final NodeBuilder price = gb.addNode("Price", position(position));
+      price.addInput(curveValue);
+      price.addTerminalOutput("Value");
+    }
+    return gb.buildGraph();
+  }
+
+  public void testMergeSharesCommonNodes() {
+    final DependencyGraph graph = PartitionedDependencyGraphBuilder.merge("Default", Arrays.asList(shard(0, 2), shard(1, 3)));
+    assertEquals(graph.getCalculationConfigurationName(), "Default");
+    assertEquals(graph.getSize(), 6);
+    assertEquals(DependencyGraphImpl.getDependencyNodes(graph).size(), 6);
+    assertEquals(graph.getRootCount(), 4);
+    assertEquals(graph.getTerminalOutputs().size(), 4);
+    DependencyNode curve = null;
+    for (final DependencyNode root : DependencyGraphImpl.getRootNodes(graph)) {
+      assertEquals(root.getInputCount(), 1);
+      if (curve == null) {
+        curve = root.getInputNode(0);
+      } else {
+        assertTrue(curve == root.getInputNode(0));
+      }
+    }
+    assertEquals(curve.getTarget(), CURVE);
+    assertEquals(curve.getInputCount(), 1);
+  }
+
+  public void testMergeCombinesOutputs() {
+    final TestDependencyGraphBuilder gb1 = new TestDependencyGraphBuilder("Default");
+    final ValueSpecification a = gb1.addNode("Multi", CURVE).addTerminalOutput("A");
+    final TestDependencyGraphBuilder gb2 = new TestDependencyGraphBuilder("Default");
+    final NodeBuilder node2 = gb2.addNode("Multi", CURVE);
+    node2.addOutput(a);
+    final ValueSpecification b = node2.addTerminalOutput("B");
+    final DependencyGraph graph = PartitionedDependencyGraphBuilder.merge("Default", Arrays.asList(gb1.buildGraph(), gb2.buildGraph()));
+    assertEquals(graph.getSize(), 1);
+    final DependencyNode node = graph.getRootNode(0);
+    assertEquals(DependencyNodeImpl.getOutputValues(node), new HashSet<ValueSpecification>(Arrays.asList(a, b)));
+    assertEquals(graph.getTerminalOutputs().keySet(), new HashSet<ValueSpecification>(Arrays.asList(a, b)));
+  }
+
+  public void testMergeCombinesTerminalRequirements() {
+    final TestDependencyGraphBuilder gb1 = new TestDependencyGraphBuilder("Default");
+    final ValueSpecification value = gb1.addNode("Curve", CURVE).addOutput("Curve");
+    final ValueRequirement req1 = new ValueRequirement("Curve", CURVE);
+    final ValueRequirement req2 = new ValueRequirement("Curve", CURVE, ValueProperties.with("Currency", "USD").get());
+    gb1.addTerminalOutput(value, Collections.singleton(req1));
+    final TestDependencyGraphBuilder gb2 = new TestDependencyGraphBuilder("Default");
+    gb2.addNode("Curve", CURVE).addOutput(value);
+    gb2.addTerminalOutput(value, Collections.singleton(req2));
+    final DependencyGraph graph = PartitionedDependencyGraphBuilder.merge("Default", Arrays.asList(gb1.buildGraph(), gb2.buildGraph()));
+    final Set<ValueRequirement> requirements = graph.getTerminalOutputs().get(value);
+    assertEquals(requirements, new HashSet<ValueRequirement>(Arrays.asList(req1, req2)));
+  }
+
+  @Test(expectedExceptions = OpenGammaRuntimeException.class)
+  public void testMergeInconsistentResolution() {
+    final TestDependencyGraphBuilder gb1 = new TestDependencyGraphBuilder("Default");
+    final ValueSpecification value = gb1.addNode("Curve", CURVE).addTerminalOutput("Curve");
+    final TestDependencyGraphBuilder gb2 = new TestDependencyGraphBuilder("Default");
+    gb2.addNode("OtherCurve", CURVE).addOutput(value);
+    PartitionedDependencyGraphBuilder.merge("Default", Arrays.asList(gb1.buildGraph(), gb2.buildGraph()));
+  }
+
+  public void testShardAssignment() {
+    final PartitionedDependencyGraphBuilder builder = new DependencyGraphBuilderFactory().newPartitionedInstance(4);
+    assertEquals(builder.getPartitions(), 4);
+    assertEquals(builder.getShards().length, 4);
+    final int[] counts = new int[4];
+    for (int i = 0; i < 1000; i++) {
+      final int shard = builder.getShardIndex(new ValueRequirement("Value", position(i)));
+      assertEquals(builder.getShardIndex(new ValueRequirement("Other", position(i))), shard);
+      counts[shard]++;
+    }
+    for (final int count : counts) {
+      assertTrue(count > 100, Arrays.toString(counts));
+    }
+  }
+
+  /**
+   * Describes the nodes of a graph by their function, target, outputs and inputs so that graphs built by different builders can be compared.
+   */
+  private static Set<List<Object>> nodes(final DependencyGraph graph) {
+    final Set<List<Object>> nodes = new HashSet<List<Object>>();
+    final Iterator<DependencyNode> itr = graph.nodeIterator();
+    while (itr.hasNext()) {
+      final DependencyNode node = itr.next();
+      nodes.add(Arrays.<Object>asList(node.getFunction().getFunctionId(), node.getTarget(), DependencyNodeImpl.getOutputValues(node), DependencyNodeImpl.getInputValues(node)));
+    }
+    return nodes;
+  }
+
+  /**
+   * Builds the graph for a set of positions priced off a shared curve with a single builder and with a partitioned builder, and checks that they are
+   * the same.
+   */
+  public void testGraphMatchesSingleBuilder() {
+    TestLifecycle.begin();
+    try {
+      final InMemoryFunctionRepository functions = new InMemoryFunctionRepository();
+      final MockFunction curve = MockFunction.getMockFunction("Curve", new ComputationTarget(ComputationTargetType.PRIMITIVE, CURVE.getUniqueId()), 1d,
+          new ValueRequirement("MarketValue", CURVE));
+      functions.addFunction(curve);
+      final List<ValueRequirement> requirements = new ArrayList<ValueRequirement>();
+      for (int i = 0; i < 50; i++) {
+        final MockFunction price = MockFunction.getMockFunction("Price" + i, new ComputationTarget(ComputationTargetType.PRIMITIVE, position(i).getUniqueId()), 2d, curve);
+        functions.addFunction(price);
+        requirements.add(price.getResultSpec().toRequirementSpecification());
+      }
+      final FixedMarketDataAvailabilityProvider marketData = new FixedMarketDataAvailabilityProvider();
+      marketData.addAvailableData(new ValueSpecification("MarketValue", CURVE, ValueProperties.with(ValuePropertyNames.FUNCTION, "MarketData").get()));
+      final Instant now = Instant.now();
+      final FunctionCompilationContext context = new FunctionCompilationContext();
+      final ComputationTargetResolver targetResolver = new MapComputationTargetResolver();
+      context.setRawComputationTargetResolver(targetResolver);
+      context.setComputationTargetResolver(targetResolver.atVersionCorrection(VersionCorrection.of(now, now)));
+      final CompiledFunctionService compilationService = new CompiledFunctionService(functions, new CachingFunctionRepositoryCompiler(), context);
+      TestLifecycle.register(compilationService);
+      compilationService.initialize();
+      final CompiledFunctionResolver resolver = new DefaultFunctionResolver(compilationService).compile(now);
+      final DependencyGraphBuilderFactory factory = new DependencyGraphBuilderFactory();
+      final DependencyGraphBuilder single = factory.newInstance();
+      single.setCalculationConfigurationName("Default");
+      single.setMarketDataAvailabilityProvider(marketData);
+      single.setFunctionResolver(resolver);
+      single.setCompilationContext(context);
+      single.addTarget(requirements);
+      final DependencyGraph expected = single.getDependencyGraph();
+      final PartitionedDependencyGraphBuilder partitioned = factory.newPartitionedInstance(4);
+      partitioned.setCalculationConfigurationName("Default");
+      partitioned.setMarketDataAvailabilityProvider(marketData);
+      partitioned.setFunctionResolver(resolver);
+      partitioned.setCompilationContext(context);
+      partitioned.addTarget(requirements);
+      final DependencyGraph graph = partitioned.getDependencyGraph();
+      assertEquals(expected.getSize(), 52);
+      assertEquals(graph.getSize(), expected.getSize());
+      assertEquals(graph.getRootCount(), expected.getRootCount());
+      assertEquals(nodes(graph), nodes(expected));
+      assertEquals(graph.getTerminalOutputs(), expected.getTerminalOutputs());
+      assertEquals(partitioned.getValueRequirementMapping(), single.getValueRequirementMapping());
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
+}
@@ -198,4 +198,55 @@ public class DependencyGraphImplTest {
     assertEquals(graphB, graphA);
   }
 
+  public void testDependentNodeIndex() {
+    final TestDependencyGraphBuilder gb = new TestDependencyGraphBuilder("Index");
+    NodeBuilder nb = gb.addNode("Test", ComputationTargetSpecification.NULL);
+    final ValueSpecification spec1 = nb.addOutput("A");
+    final ValueSpecification spec2 = nb.addOutput("B");
+    nb = gb.addNode("Test", ComputationTargetSpecification.NULL);
+    nb.addInput(spec1);
+    nb.addInput(spec2);
+    final ValueSpecification spec3 = nb.addOutput("C");
+    nb = gb.addNode("Test", ComputationTargetSpecification.NULL);
+    nb.addInput(spec1);
+    final ValueSpecification spec4 = nb.addTerminalOutput("D");
+    nb = gb.addNode("Test", ComputationTargetSpecification.NULL);
+    nb.addInput(spec3);
+    final ValueSpecification spec5 = nb.addTerminalOutput("E");
+    final DependencyGraph graph = gb.buildGraph();
+    final DependentNodeIndex index = DependencyGraphImpl.getDependentNodeIndex(graph);
+    assertSame(DependencyGraphImpl.getDependentNodeIndex(graph), index);
+    assertEquals(index.getNodes().length, 4);
+    assertEquals(index.getMarketDataNodes().length, 0);
+    final DependencyNode a = index.getProducer(spec1);
+    final DependencyNode c = index.getProducer(spec3);
+    final DependencyNode d = index.getProducer(spec4);
+    final DependencyNode e = index.getProducer(spec5);
+    assertSame(index.getProducer(spec2), a);
+    assertEquals(ImmutableSet.copyOf(index.getDependents(a)), ImmutableSet.of(c, d));
+    assertEquals(index.getDependents(a).length, 2);
+    assertEquals(index.getDependents(c), new DependencyNode[] {e });
+    assertEquals(index.getDependents(e).length, 0);
+    assertEquals(index.getDependentClosure(Collections.singleton(a)), ImmutableSet.of(a, c, d, e));
+    assertEquals(index.getDependentClosure(Collections.singleton(c)), ImmutableSet.of(c, e));
+    assertEquals(index.getDependentClosure(Collections.<DependencyNode>emptySet()), Collections.emptySet());
+  }
+
+  public void testSubGraph() {
+    final TestDependencyGraphBuilder gb = new TestDependencyGraphBuilder("Sub");
+    NodeBuilder nb = gb.addNode("Test", ComputationTargetSpecification.NULL);
+    final ValueSpecification spec1 = nb.addOutput("A");
+    nb = gb.addNode("Test", ComputationTargetSpecification.NULL);
+    nb.addInput(spec1);
+    final ValueSpecification spec2 = nb.addTerminalOutput("B");
+    final DependencyGraph graph = gb.buildGraph();
+    final DependencyNode b = DependencyGraphImpl.getDependentNodeIndex(graph).getProducer(spec2);
+    final DependencyGraph subGraph = DependencyGraphImpl.subGraph(graph, Collections.singleton(b), 1);
+    assertEquals(subGraph.getCalculationConfigurationName(), "Sub");
+    assertEquals(subGraph.getSize(), 1);
+    assertEquals(subGraph.getRootCount(), 1);
+    assertSame(subGraph.getRootNode(0), b);
+    assertSame(subGraph.getTerminalOutputs(), graph.getTerminalOutputs());
+  }
+
 }
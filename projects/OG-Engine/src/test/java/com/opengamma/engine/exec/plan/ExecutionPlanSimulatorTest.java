@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.exec.plan;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.calcnode.stats.FunctionCosts;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder.NodeBuilder;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link ExecutionPlanSimulator} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class ExecutionPlanSimulatorTest {
+
+  private ValueSpecification _marketData;
+
+  /**
+   * Test graph:
+   *
+   * <pre>
+   *   N1  N2  N3
+   *     \ | /
+   *       N0
+   *       |
+   *      MDS
+   * </pre>
+   */
+  private DependencyGraph graph() {
+    final TestDependencyGraphBuilder graph = new TestDependencyGraphBuilder("Default");
+    NodeBuilder node = graph.addNode("MDS", ComputationTargetSpecification.NULL);
+    _marketData = node.addOutput("x");
+    node = graph.addNode("Mock", ComputationTargetSpecification.NULL);
+    node.addInput(_marketData);
+    final ValueSpecification[] values = new ValueSpecification[] {node.addOutput("1"), node.addOutput("2"), node.addOutput("3") };
+    for (final ValueSpecification value : values) {
+      node = graph.addNode("Mock", ComputationTargetSpecification.NULL);
+      node.addInput(value);
+      node.addTerminalOutput(value.getValueName() + "x");
+    }
+    return graph.buildGraph();
+  }
+
+  private FunctionCosts costs(final double invocationNanos, final double dataBytes) {
+    final FunctionCosts costs = new FunctionCosts();
+    costs.functionInvoked("Default", "Mock", 1, invocationNanos, dataBytes, dataBytes);
+    return costs;
+  }
+
+  private MultipleNodeExecutionPlanner createPlanner(final FunctionCosts costs, final int concurrency, final int calculationNodes) {
+    final MultipleNodeExecutionPlanner planner = new MultipleNodeExecutionPlanner();
+    planner.setMininumJobItems(1);
+    planner.setMaximimJobItems(1);
+    planner.setMaximumConcurrency(concurrency);
+    planner.setCalculationNodes(calculationNodes);
+    planner.setFunctionCosts(costs);
+    return planner;
+  }
+
+  private ExecutionPlanSimulator.Result simulate(final FunctionCosts costs, final GraphExecutionPlanner planner, final int calculationNodes) {
+    final DependencyGraph graph = graph();
+    final Set<ValueSpecification> sharedValues = Collections.singleton(_marketData);
+    return new ExecutionPlanSimulator(costs.getStatistics("Default"), calculationNodes).simulate(planner, graph, sharedValues);
+  }
+
+  public void testSingleJob() {
+    final FunctionCosts costs = costs(1000, 0);
+    final ExecutionPlanSimulator.Result result = simulate(costs, new SingleNodeExecutionPlanner(), 1);
+    assertEquals(result.getJobs(), 1);
+    assertEquals(result.getExecutionTime(), 4000);
+    assertEquals(result.getInvocationCost(), 4000);
+    assertEquals(result.getSharedDataCost(), 0);
+    assertEquals(result.getUtilization(), 1.0, 1e-9);
+  }
+
+  public void testParallelJobs() {
+    final FunctionCosts costs = costs(1000, 0);
+    ExecutionPlanSimulator.Result result = simulate(costs, createPlanner(costs, 0, 0), 1);
+    assertEquals(result.getJobs(), 4);
+    assertEquals(result.getExecutionTime(), 4000);
+    result = simulate(costs, createPlanner(costs, 0, 0), 2);
+    assertEquals(result.getJobs(), 4);
+    assertEquals(result.getExecutionTime(), 3000);
+    result = simulate(costs, createPlanner(costs, 0, 0), 3);
+    assertEquals(result.getJobs(), 4);
+    assertEquals(result.getExecutionTime(), 2000);
+    assertEquals(result.getInvocationCost(), 4000);
+    assertEquals(result.getUtilization(), 4000.0 / (2000.0 * 3.0), 1e-9);
+  }
+
+  public void testTailsAvoidSharedData() {
+    final FunctionCosts costs = costs(1000, 100);
+    final ExecutionPlanSimulator.Result independent = simulate(costs, createPlanner(costs, 0, 1), 1);
+    final ExecutionPlanSimulator.Result tails = simulate(costs, createPlanner(costs, 1, 1), 1);
+    assertEquals(independent.getJobs(), 4);
+    assertEquals(tails.getJobs(), 4);
+    assertEquals(independent.getInvocationCost(), tails.getInvocationCost());
+    assertTrue(tails.getSharedDataCost() < independent.getSharedDataCost());
+    assertTrue(tails.getExecutionTime() < independent.getExecutionTime());
+  }
+
+  /**
+   * Compares the critical path scheduling with the graph coloring. Allowed three concurrent tails, the coloring makes N1, N2 and N3 all tails of N0
+   * so they run one after the other on the node that executed N0. The critical path scheduling only keeps N1 as a tail and spreads N2 and N3 over
+   * the other nodes.
+   */
+  public void testCriticalPathAgainstColouring() {
+    final FunctionCosts costs = costs(1000, 100);
+    ExecutionPlanSimulator.Result colouring = simulate(costs, createPlanner(costs, 3, 0), 3);
+    ExecutionPlanSimulator.Result criticalPath = simulate(costs, createPlanner(costs, 3, 3), 3);
+    assertEquals(colouring.getJobs(), 4);
+    assertEquals(criticalPath.getJobs(), 4);
+    assertEquals(colouring.getExecutionTime(), 4400);
+    assertEquals(criticalPath.getExecutionTime(), 2500);
+    assertEquals(criticalPath.getInvocationCost(), colouring.getInvocationCost());
+    assertTrue(criticalPath.getSharedDataCost() > colouring.getSharedDataCost());
+    // On a single node, keeping everything as tails is best and both find it
+    colouring = simulate(costs, createPlanner(costs, 3, 0), 1);
+    criticalPath = simulate(costs, createPlanner(costs, 3, 1), 1);
+    assertEquals(colouring.getExecutionTime(), 4400);
+    assertEquals(criticalPath.getExecutionTime(), colouring.getExecutionTime());
+    assertEquals(criticalPath.getSharedDataCost(), colouring.getSharedDataCost());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNoNodes() {
+    new ExecutionPlanSimulator(new FunctionCosts().getStatistics("Default"), 0);
+  }
+
+}
@@ -532,4 +532,65 @@ public class MultipleNodeExecutionPlannerTest {
     assertEquals(gatherColours(plan), 3);
   }
 
+  /**
+   * Scheduled on one node, N0 and N1 are tails of N2. N4 has inputs from both N2 and N3 so must be dispatched independently.
+   */
+  public void testCalculationNodes1() {
+    final MultipleNodeExecutionPlanner planner = createPlanner(1, 1, 1);
+    planner.setCalculationNodes(1);
+    final GraphExecutionPlan plan = plan(planner, graphBuilder().buildGraph(), ImmutableSet.of(_testValuex2, _testValuex3));
+    if (PRINT_GRAPHS) {
+      System.out.println("testCalculationNodes1");
+      plan.print();
+    }
+    assertEquals(plan.getLeafJobs().size(), 2);
+    int mask = 0;
+    for (PlannedJob job : plan.getLeafJobs()) {
+      final CacheSelectHint hint = job.getCacheSelectHint();
+      if (matchJob(job, _testValue20)) {
+        mask |= 1;
+        assertEquals(job.getTails().length, 2);
+        for (PlannedJob tail : job.getTails()) {
+          assertTrue(matchJob(tail, _testValue0x) || matchJob(tail, _testValue1x));
+          assertNull(tail.getTails());
+        }
+        assertEquals(job.getDependents().length, 1);
+        assertTrue(matchJob(job.getDependents()[0], _testValue4x));
+        assertTrue(hint.isPrivateValue(_testValue20));
+        assertTrue(hint.isPrivateValue(_testValue21));
+        assertFalse(hint.isPrivateValue(_testValue24));
+      } else if (matchJob(job, _testValue34)) {
+        mask |= 2;
+        assertNull(job.getTails());
+        assertEquals(job.getDependents().length, 1);
+        assertFalse(hint.isPrivateValue(_testValue34));
+      } else {
+        fail();
+      }
+    }
+    assertEquals(mask, 3);
+  }
+
+  /**
+   * Scheduled across nodes without tails, the jobs are the same as {@link #testMax1}.
+   */
+  public void testCalculationNodesNoTails() {
+    final MultipleNodeExecutionPlanner planner = createPlanner(1, 1, 0);
+    planner.setCalculationNodes(2);
+    final GraphExecutionPlan plan = plan(planner, graphBuilder().buildGraph(), ImmutableSet.of(_testValuex2, _testValuex3));
+    assertEquals(plan.getLeafJobs().size(), 2);
+    assertEquals(gatherColours(plan), 5);
+    for (PlannedJob job : plan.getLeafJobs()) {
+      assertNull(job.getTails());
+      for (PlannedJob dependent : job.getDependents()) {
+        assertNull(dependent.getTails());
+      }
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeCalculationNodes() {
+    createPlanner(1, 1, 0).setCalculationNodes(-1);
+  }
+
 }
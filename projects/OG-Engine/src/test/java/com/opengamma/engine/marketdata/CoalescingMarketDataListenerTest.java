@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link CoalescingMarketDataListener} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class CoalescingMarketDataListenerTest {
+
+  private static final ValueSpecification A = spec("A");
+  private static final ValueSpecification B = spec("B");
+  private static final ValueSpecification C = spec("C");
+
+  private ScheduledExecutorService _timer;
+
+  @BeforeClass
+  public void createTimer() {
+    _timer = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterClass
+  public void shutdownTimer() {
+    _timer.shutdown();
+  }
+
+  private static ValueSpecification spec(final String name) {
+    return new ValueSpecification(name, ComputationTargetSpecification.NULL, ValueProperties.with(ValuePropertyNames.FUNCTION, "Test").get());
+  }
+
+  private static class RecordingListener implements MarketDataListener {
+
+    private final List<Object> _events = Collections.synchronizedList(new ArrayList<Object>());
+    private final CountDownLatch _changed = new CountDownLatch(1);
+
+    @Override
+    public void subscriptionsSucceeded(final Collection<ValueSpecification> specifications) {
+      _events.add("Succeeded " + specifications);
+    }
+
+    @Override
+    public void subscriptionFailed(final ValueSpecification specification, final String msg) {
+      _events.add("Failed " + specification);
+    }
+
+    @Override
+    public void subscriptionStopped(final ValueSpecification specification) {
+      _events.add("Stopped " + specification);
+    }
+
+    @Override
+    public void valuesChanged(final Collection<ValueSpecification> specifications) {
+      _events.add(ImmutableSet.copyOf(specifications));
+      _changed.countDown();
+    }
+
+  }
+
+  public void testCoalesce() {
+    final RecordingListener underlying = new RecordingListener();
+    final CoalescingMarketDataListener listener = new CoalescingMarketDataListener(underlying, _timer, TimeUnit.MINUTES.toMillis(1));
+    listener.valuesChanged(ImmutableSet.of(A, B));
+    listener.valuesChanged(ImmutableSet.of(A));
+    listener.valuesChanged(ImmutableSet.of(C));
+    assertTrue(underlying._events.isEmpty());
+    listener.flush();
+    assertEquals(underlying._events, Collections.singletonList(ImmutableSet.of(A, B, C)));
+    listener.flush();
+    assertEquals(underlying._events.size(), 1);
+  }
+
+  public void testMaxBatchSize() {
+    final RecordingListener underlying = new RecordingListener();
+    final CoalescingMarketDataListener listener = new CoalescingMarketDataListener(underlying, _timer, TimeUnit.MINUTES.toMillis(1), 2);
+    listener.valuesChanged(ImmutableSet.of(A));
+    listener.valuesChanged(ImmutableSet.of(A));
+    assertTrue(underlying._events.isEmpty());
+    listener.valuesChanged(ImmutableSet.of(B));
+    assertEquals(underlying._events, Collections.singletonList(ImmutableSet.of(A, B)));
+  }
+
+  public void testSubscriptionsDeliverPendingChanges() {
+    final RecordingListener underlying = new RecordingListener();
+    final CoalescingMarketDataListener listener = new CoalescingMarketDataListener(underlying, _timer, TimeUnit.MINUTES.toMillis(1));
+    listener.valuesChanged(ImmutableSet.of(A));
+    listener.subscriptionsSucceeded(ImmutableSet.of(B));
+    listener.valuesChanged(ImmutableSet.of(B));
+    listener.subscriptionFailed(C, "Test");
+    listener.subscriptionStopped(A);
+    final List<Object> expected = new ArrayList<Object>();
+    expected.add(ImmutableSet.of(A));
+    expected.add("Succeeded " + ImmutableSet.of(B));
+    expected.add(ImmutableSet.of(B));
+    expected.add("Failed " + C);
+    expected.add("Stopped " + A);
+    assertEquals(underlying._events, expected);
+  }
+
+  public void testDeliveredAfterWindow() throws InterruptedException {
+    final RecordingListener underlying = new RecordingListener();
+    final CoalescingMarketDataListener listener = new CoalescingMarketDataListener(underlying, _timer, 10);
+    listener.valuesChanged(ImmutableSet.of(A, B));
+    assertTrue(underlying._changed.await(10, TimeUnit.SECONDS));
+    assertEquals(underlying._events, Collections.singletonList(ImmutableSet.of(A, B)));
+  }
+
+  public void testStopDiscardsPendingChanges() {
+    // The test runs the scheduled delivery itself so that it can fire after the stop
+    final ScheduledExecutorService timer = Mockito.mock(ScheduledExecutorService.class);
+    final ScheduledFuture<?> delivery = Mockito.mock(ScheduledFuture.class);
+    Mockito.doReturn(delivery).when(timer).schedule(Mockito.any(Runnable.class), Mockito.anyLong(), Mockito.any(TimeUnit.class));
+    final RecordingListener underlying = new RecordingListener();
+    final CoalescingMarketDataListener listener = new CoalescingMarketDataListener(underlying, timer, TimeUnit.MINUTES.toMillis(1));
+    listener.valuesChanged(ImmutableSet.of(A, B));
+    final ArgumentCaptor<Runnable> scheduled = ArgumentCaptor.forClass(Runnable.class);
+    Mockito.verify(timer).schedule(scheduled.capture(), Mockito.eq(TimeUnit.MINUTES.toMillis(1)), Mockito.eq(TimeUnit.MILLISECONDS));
+    listener.stop();
+    Mockito.verify(delivery).cancel(false);
+    scheduled.getValue().run();
+    listener.flush();
+    listener.valuesChanged(ImmutableSet.of(C));
+    listener.flush();
+    assertTrue(underlying._events.isEmpty());
+    // Usable again once started, for example after being added to a replacement provider
+    listener.start();
+    listener.valuesChanged(ImmutableSet.of(C));
+    Mockito.verify(timer, Mockito.times(2)).schedule(scheduled.capture(), Mockito.eq(TimeUnit.MINUTES.toMillis(1)), Mockito.eq(TimeUnit.MILLISECONDS));
+    scheduled.getValue().run();
+    assertEquals(underlying._events, Collections.singletonList(ImmutableSet.of(C)));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testZeroWindow() {
+    new CoalescingMarketDataListener(new RecordingListener(), _timer, 0);
+  }
+
+}
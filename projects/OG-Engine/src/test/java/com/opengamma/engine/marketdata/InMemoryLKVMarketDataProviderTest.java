@@ -10,6 +10,8 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Set;
+
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableSet;
@@ -91,4 +93,20 @@ public class InMemoryLKVMarketDataProviderTest {
     assertEquals(snapshot.query(fooNull), "FooValue3");
   }
 
+  public void testSnapshotUnaffectedByRemoval() {
+    final InMemoryLKVMarketDataProvider provider = new InMemoryLKVMarketDataProvider();
+    provider.addValue(new ValueRequirement("Foo", ComputationTargetSpecification.NULL), "FooValue");
+    provider.addValue(new ValueRequirement("Bar", ComputationTargetSpecification.NULL), "BarValue");
+    final InMemoryLKVMarketDataSnapshot snapshot = provider.snapshot(MarketData.live());
+    snapshot.init();
+    final Set<ValueSpecification> keys = provider.getAllValueKeys();
+    provider.removeValue(new ValueRequirement("Foo", ComputationTargetSpecification.NULL));
+    assertEquals(provider.getAllValueKeys().size(), 1);
+    assertEquals(keys.size(), 2);
+    assertEquals(snapshot.getAllValueKeys(), keys);
+    for (final ValueSpecification key : keys) {
+      assertNotNull(snapshot.query(key));
+    }
+  }
+
 }
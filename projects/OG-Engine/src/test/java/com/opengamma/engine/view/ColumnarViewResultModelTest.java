@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
+import org.testng.annotations.Test;
+import org.threeten.bp.Duration;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ColumnarViewCalculationResultModel.Column;
+import com.opengamma.engine.view.impl.InMemoryViewComputationResultModel;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+import com.opengamma.util.test.TestGroup;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Pairs;
+
+/**
+ * Tests the {@link ColumnarViewResultModel} and {@link ColumnarViewCalculationResultModel} classes.
+ */
+@Test(groups = TestGroup.UNIT)
+public class ColumnarViewResultModelTest {
+
+  private static final ValueProperties PROPERTIES = ValueProperties.with(ValuePropertyNames.FUNCTION, "Test").get();
+
+  private static ComputationTargetSpecification target(final int index) {
+    return new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Test", Integer.toString(index)));
+  }
+
+  private static ValueSpecification spec(final String name, final int target) {
+    return new ValueSpecification(name, target(target), PROPERTIES);
+  }
+
+  private static ComputedValueResult value(final String name, final int target, final Object value) {
+    return new ComputedValueResult(spec(name, target), value, AggregatedExecutionLog.EMPTY);
+  }
+
+  private static InMemoryViewComputationResultModel createResults() {
+    final InMemoryViewComputationResultModel results = new InMemoryViewComputationResultModel();
+    results.setViewProcessId(UniqueId.of("Process", "1"));
+    results.setViewCycleId(UniqueId.of("Cycle", "1"));
+    results.setCalculationTime(Instant.ofEpochMilli(500));
+    results.setCalculationDuration(Duration.ofMillis(100));
+    results.setVersionCorrection(VersionCorrection.of(Instant.ofEpochMilli(100), Instant.ofEpochMilli(200)));
+    for (int i = 0; i < 4; i++) {
+      results.addValue("Default", value("PV", i, (double) i));
+    }
+    results.addValue("Default", value("Name", 1, "One"));
+    results.addValue("Default", value("Mixed", 0, 1.5));
+    results.addValue("Default", value("Mixed", 2, "Two"));
+    return results;
+  }
+
+  private static void assertColumns(final ColumnarViewCalculationResultModel calc) {
+    assertEquals(calc.getRowCount(), 4);
+    assertEquals(calc.getColumnCount(), 3);
+    final Column pv = calc.getColumn(calc.getColumnIndex("PV", PROPERTIES));
+    assertTrue(pv.isDouble());
+    assertFalse(pv.isSparse());
+    assertEquals(pv.getValueCount(), 4);
+    for (int i = 0; i < 4; i++) {
+      final int row = calc.getRow(target(i));
+      assertEquals(pv.getDouble(row), (double) i);
+    }
+    final Column name = calc.getColumn(calc.getColumnIndex("Name", PROPERTIES));
+    assertFalse(name.isDouble());
+    assertTrue(name.isSparse());
+    assertEquals(name.getValues().length, 1);
+    assertEquals(name.getValueCount(), 1);
+    assertEquals(name.getValue(calc.getRow(target(1))), "One");
+    assertNull(name.getValue(calc.getRow(target(0))));
+    final Column mixed = calc.getColumn(calc.getColumnIndex("Mixed", PROPERTIES));
+    assertFalse(mixed.isDouble());
+    assertEquals(mixed.getValue(calc.getRow(target(0))), 1.5);
+    assertEquals(mixed.getValue(calc.getRow(target(2))), "Two");
+    assertFalse(mixed.isPresent(calc.getRow(target(1))));
+    assertEquals(calc.getRow(target(9)), -1);
+    assertEquals(calc.getColumnIndex("Missing", PROPERTIES), -1);
+  }
+
+  public void testFromSpecifications() {
+    final ColumnarViewResultModel columnar = ColumnarViewResultModel.of(createResults(), null);
+    assertEquals(columnar.getViewCycleId(), UniqueId.of("Cycle", "1"));
+    assertEquals(columnar.getCalculationConfigurationNames(), Collections.singleton("Default"));
+    assertColumns(columnar.getCalculationResult("Default"));
+  }
+
+  public void testFromValues() {
+    // Values in cache order; the first target seen is the last row of the map based model so the PV column is set out of row order
+    final Collection<Pair<ValueSpecification, Object>> values = new ArrayList<Pair<ValueSpecification, Object>>();
+    values.add(Pairs.<ValueSpecification, Object>of(spec("PV", 3), 3d));
+    values.add(Pairs.<ValueSpecification, Object>of(spec("Mixed", 2), "Two"));
+    for (int i = 0; i < 3; i++) {
+      values.add(Pairs.<ValueSpecification, Object>of(spec("PV", i), (double) i));
+    }
+    values.add(Pairs.<ValueSpecification, Object>of(spec("Mixed", 0), 1.5));
+    values.add(Pairs.<ValueSpecification, Object>of(spec("Name", 1), "One"));
+    values.add(Pairs.<ValueSpecification, Object>of(spec("Missing", 1), null));
+    final ColumnarViewCalculationResultModel calc = ColumnarViewCalculationResultModel.ofValues("Default",
+        Collections.<ValueSpecification, Set<ValueRequirement>>emptyMap(), values);
+    assertEquals(calc.getTarget(0), target(3));
+    assertColumns(calc);
+  }
+
+  public void testSparseDoubles() {
+    final BitSet present = new BitSet();
+    present.set(7);
+    present.set(2);
+    final Column column = Column.ofPresentDoubles("PV", PROPERTIES, 10, present, new double[] {2d, 7d });
+    assertTrue(column.isSparse());
+    assertEquals(column.size(), 10);
+    assertEquals(column.getDouble(2), 2d);
+    assertEquals(column.getDouble(7), 7d);
+    assertEquals(column.getValue(7), 7d);
+    assertNull(column.getValue(3));
+    final Column dense = Column.ofPresentDoubles("PV", PROPERTIES, 3, present.get(0, 3), new double[] {2d });
+    assertFalse(dense.isSparse());
+    assertEquals(dense.getDoubles().length, 3);
+    assertEquals(dense.getDouble(2), 2d);
+  }
+
+  public void testFromRequirements() {
+    final InMemoryViewComputationResultModel results = new InMemoryViewComputationResultModel();
+    final Map<ValueSpecification, Set<ValueRequirement>> terminalOutputs = new HashMap<ValueSpecification, Set<ValueRequirement>>();
+    for (int i = 0; i < 3; i++) {
+      // Each target resolves with different properties but they all satisfy the same column of the view
+      final ValueSpecification spec = new ValueSpecification("PV", target(i), PROPERTIES.copy().with(ValuePropertyNames.CURRENCY, "C" + i).get());
+      results.addValue("Default", new ComputedValueResult(spec, (double) i, AggregatedExecutionLog.EMPTY));
+      terminalOutputs.put(spec, Collections.singleton(new ValueRequirement("PV", target(i))));
+    }
+    final ColumnarViewCalculationResultModel calc = ColumnarViewCalculationResultModel.of("Default", results.getCalculationResult("Default"), terminalOutputs);
+    assertEquals(calc.getColumnCount(), 1);
+    final Column pv = calc.getColumn(0);
+    assertEquals(pv.getValueName(), "PV");
+    assertEquals(pv.getProperties(), ValueProperties.none());
+    assertTrue(pv.isDouble());
+    assertEquals(pv.getValueCount(), 3);
+  }
+
+  public void testFudgeRoundTrip() {
+    final ColumnarViewResultModel columnar = ColumnarViewResultModel.of(createResults(), null);
+    final FudgeSerializer serializer = new FudgeSerializer(OpenGammaFudgeContext.getInstance());
+    final FudgeMsg msg = serializer.objectToFudgeMsg(columnar);
+    final FudgeDeserializer deserializer = new FudgeDeserializer(OpenGammaFudgeContext.getInstance());
+    final ColumnarViewResultModel result = deserializer.fudgeMsgToObject(ColumnarViewResultModel.class, msg);
+    assertEquals(result.getViewProcessId(), columnar.getViewProcessId());
+    assertEquals(result.getViewCycleId(), columnar.getViewCycleId());
+    assertEquals(result.getCalculationTime(), columnar.getCalculationTime());
+    assertEquals(result.getCalculationDuration(), columnar.getCalculationDuration());
+    assertEquals(result.getVersionCorrection(), columnar.getVersionCorrection());
+    assertColumns(result.getCalculationResult("Default"));
+  }
+
+}
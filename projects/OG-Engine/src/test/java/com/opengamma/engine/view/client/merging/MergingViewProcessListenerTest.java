@@ -11,6 +11,8 @@ import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Collections;
+
 import org.mockito.Mockito;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +31,8 @@ import com.opengamma.engine.value.ValueProperties;
 import com.opengamma.engine.value.ValuePropertyNames;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.AggregatedExecutionLog;
+import com.opengamma.engine.view.ColumnarViewCalculationResultModel;
+import com.opengamma.engine.view.ColumnarViewResultModel;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDeltaResultModel;
 import com.opengamma.engine.view.ViewResultModel;
@@ -37,6 +41,7 @@ import com.opengamma.engine.view.cycle.ViewCycleMetadata;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.impl.InMemoryViewComputationResultModel;
 import com.opengamma.engine.view.impl.InMemoryViewDeltaResultModel;
+import com.opengamma.engine.view.listener.ColumnarViewResultListener;
 import com.opengamma.engine.view.listener.CycleCompletedCall;
 import com.opengamma.engine.view.listener.CycleExecutionFailedCall;
 import com.opengamma.engine.view.listener.CycleFragmentCompletedCall;
@@ -45,6 +50,7 @@ import com.opengamma.engine.view.listener.ProcessCompletedCall;
 import com.opengamma.engine.view.listener.ViewDefinitionCompilationFailedCall;
 import com.opengamma.engine.view.listener.ViewDefinitionCompiledCall;
 import com.opengamma.engine.view.listener.ViewResultListener;
+import com.opengamma.id.UniqueId;
 import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.util.test.TestGroup;
 
@@ -212,6 +218,42 @@ public class MergingViewProcessListenerTest {
     Mockito.verifyNoMoreInteractions(underlying);
   }
 
+  private static ColumnarViewResultModel columnarResult(final ViewComputationResultModel fullResult) {
+    return new ColumnarViewResultModel(UniqueId.of("Process", "1"), UniqueId.of("Cycle", fullResult.getCalculationTime().toString()), fullResult.getCalculationTime(), null,
+        null, Collections.<ColumnarViewCalculationResultModel>emptyList());
+  }
+
+  public void testCycleCompleted_columnar() {
+    final ColumnarViewResultListener underlying = Mockito.mock(ColumnarViewResultListener.class);
+    final EngineResourceManagerInternal<?> cycleManager = new EngineResourceManagerImpl<EngineResource>();
+    final MergingViewProcessListener listener = new MergingViewProcessListener(underlying, cycleManager);
+    Mockito.when(underlying.isColumnarResultRequired()).thenReturn(true);
+    assertTrue(listener.isColumnarResultRequired());
+    // Passed straight through in columnar form
+    final ViewComputationResultModel full1 = fullResult("A");
+    final ColumnarViewResultModel columnar1 = columnarResult(full1);
+    listener.cycleCompleted(full1, columnar1, null);
+    Mockito.verify(underlying).cycleCompleted(full1, columnar1, null);
+    // Merged results carry the columnar form of the latest one
+    listener.setPassThrough(false);
+    final ViewComputationResultModel full2 = fullResult("B");
+    listener.cycleCompleted(full2, columnarResult(full2), null);
+    final ViewComputationResultModel full3 = fullResult("C");
+    final ColumnarViewResultModel columnar3 = columnarResult(full3);
+    listener.cycleCompleted(full3, columnar3, null);
+    listener.drain();
+    Mockito.verify(underlying).cycleCompleted(full3, columnar3, null);
+    // A listener that no longer wants columnar results gets the map based form
+    Mockito.when(underlying.isColumnarResultRequired()).thenReturn(false);
+    assertFalse(listener.isColumnarResultRequired());
+    final ViewComputationResultModel full4 = fullResult("D");
+    listener.cycleCompleted(full4, columnarResult(full4), null);
+    listener.drain();
+    Mockito.verify(underlying).cycleCompleted(full4, null);
+    // A plain underlying listener never wants them
+    assertFalse(new MergingViewProcessListener(Mockito.mock(ViewResultListener.class), cycleManager).isColumnarResultRequired());
+  }
+
   public void testCycleFragmentCompleted_passThrough() {
     final ViewResultListener underlying = Mockito.mock(ViewResultListener.class);
     final EngineResourceManagerInternal<?> cycleManager = new EngineResourceManagerImpl<EngineResource>();
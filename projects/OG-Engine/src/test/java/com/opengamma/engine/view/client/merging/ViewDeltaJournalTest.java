@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.client.merging;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.resource.EngineResource;
+import com.opengamma.engine.resource.EngineResourceManagerImpl;
+import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.AggregatedExecutionLog;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewDeltaResultModel;
+import com.opengamma.engine.view.impl.InMemoryViewComputationResultModel;
+import com.opengamma.engine.view.impl.InMemoryViewDeltaResultModel;
+import com.opengamma.engine.view.listener.ViewDeltaJournal;
+import com.opengamma.engine.view.listener.ViewResultListener;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link ViewDeltaJournal} class and its use by {@link MergingViewProcessListener}.
+ */
+@Test(groups = TestGroup.UNIT)
+public class ViewDeltaJournalTest {
+
+  private static ComputationTargetSpecification target(final int target) {
+    return ComputationTargetSpecification.of(UniqueId.of("Test", Integer.toString(target)));
+  }
+
+  private static ViewComputationResultModel full(final int cycle) {
+    final InMemoryViewComputationResultModel result = new InMemoryViewComputationResultModel();
+    result.setCalculationTime(Instant.ofEpochMilli(cycle));
+    result.setViewCycleId(UniqueId.of("Cycle", Integer.toString(cycle)));
+    return result;
+  }
+
+  private static ViewDeltaResultModel delta(final int cycle, final int target) {
+    final InMemoryViewDeltaResultModel result = new InMemoryViewDeltaResultModel();
+    result.setCalculationTime(Instant.ofEpochMilli(cycle));
+    result.setPreviousCalculationTime(Instant.ofEpochMilli(cycle - 1));
+    result.setViewCycleId(UniqueId.of("Cycle", Integer.toString(cycle)));
+    result.addValue("Default", new ComputedValueResult(new ValueSpecification("Value", target(target), ValueProperties.with(ValuePropertyNames.FUNCTION,
+        "Test").get()), (double) cycle, AggregatedExecutionLog.EMPTY));
+    return result;
+  }
+
+  /**
+   * Applies the cursor, checking the full result given and returning the delta.
+   */
+  private static ViewDeltaResultModel read(final ViewDeltaJournal.Cursor cursor, final ViewComputationResultModel expectedFull) {
+    final ViewResultListener listener = Mockito.mock(ViewResultListener.class);
+    cursor.apply(listener);
+    final ArgumentCaptor<ViewDeltaResultModel> delta = ArgumentCaptor.forClass(ViewDeltaResultModel.class);
+    Mockito.verify(listener).cycleCompleted(Mockito.same(expectedFull), delta.capture());
+    return delta.getValue();
+  }
+
+  public void testFirstReadIsFull() {
+    final ViewDeltaJournal journal = new ViewDeltaJournal(4);
+    final ViewComputationResultModel full = full(1);
+    assertEquals(journal.append(full, delta(1, 0)), 1L);
+    final ViewDeltaJournal.Cursor cursor = journal.newCursor();
+    assertTrue(cursor.isBehind());
+    assertNull(read(cursor, full));
+    assertFalse(cursor.isBehind());
+    assertEquals(cursor.getPosition(), 1L);
+    // Nothing new so nothing delivered
+    final ViewResultListener listener = Mockito.mock(ViewResultListener.class);
+    cursor.apply(listener);
+    Mockito.verifyZeroInteractions(listener);
+  }
+
+  public void testSingleDeltaShared() {
+    final ViewDeltaJournal journal = new ViewDeltaJournal(4);
+    journal.append(full(1), delta(1, 0));
+    final ViewDeltaJournal.Cursor a = journal.newCursor();
+    final ViewDeltaJournal.Cursor b = journal.newCursor();
+    a.apply(Mockito.mock(ViewResultListener.class));
+    b.apply(Mockito.mock(ViewResultListener.class));
+    final ViewComputationResultModel full = full(2);
+    final ViewDeltaResultModel delta = delta(2, 1);
+    journal.append(full, delta);
+    assertSame(read(a, full), delta);
+    assertSame(read(b, full), delta);
+  }
+
+  public void testMergedDeltas() {
+    final ViewDeltaJournal journal = new ViewDeltaJournal(4);
+    journal.append(full(1), delta(1, 0));
+    final ViewDeltaJournal.Cursor a = journal.newCursor();
+    final ViewDeltaJournal.Cursor b = journal.newCursor();
+    a.apply(Mockito.mock(ViewResultListener.class));
+    b.apply(Mockito.mock(ViewResultListener.class));
+    journal.append(full(2), delta(2, 1));
+    final ViewComputationResultModel full = full(3);
+    journal.append(full, delta(3, 2));
+    final ViewDeltaResultModel merged = read(a, full);
+    assertEquals(merged.getCalculationTime(), Instant.ofEpochMilli(3));
+    assertEquals(merged.getPreviousResultTimestamp(), Instant.ofEpochMilli(1));
+    assertEquals(merged.getAllTargets().size(), 2);
+    assertTrue(merged.getAllTargets().contains(target(1)));
+    assertTrue(merged.getAllTargets().contains(target(2)));
+    // A second client lagging by the same amount shares the merged delta
+    assertSame(read(b, full), merged);
+  }
+
+  public void testResyncWhenTooFarBehind() {
+    final ViewDeltaJournal journal = new ViewDeltaJournal(2);
+    journal.append(full(1), delta(1, 0));
+    final ViewDeltaJournal.Cursor cursor = journal.newCursor();
+    cursor.apply(Mockito.mock(ViewResultListener.class));
+    journal.append(full(2), delta(2, 1));
+    journal.append(full(3), delta(3, 2));
+    final ViewComputationResultModel full = full(4);
+    journal.append(full, delta(4, 3));
+    assertNull(read(cursor, full));
+    assertEquals(cursor.getPosition(), 4L);
+  }
+
+  public void testResyncWhenNoDelta() {
+    final ViewDeltaJournal journal = new ViewDeltaJournal(4);
+    journal.append(full(1), delta(1, 0));
+    final ViewDeltaJournal.Cursor cursor = journal.newCursor();
+    cursor.apply(Mockito.mock(ViewResultListener.class));
+    final ViewComputationResultModel full = full(2);
+    journal.append(full, null);
+    assertNull(read(cursor, full));
+  }
+
+  public void testMergingListenerStreams() {
+    final ViewResultListener underlying = Mockito.mock(ViewResultListener.class);
+    final MergingViewProcessListener listener = new MergingViewProcessListener(underlying, new EngineResourceManagerImpl<EngineResource>());
+    final ViewDeltaJournal journal = new ViewDeltaJournal(4);
+    listener.setDeltaJournal(journal);
+    listener.setPassThrough(false);
+    final ViewComputationResultModel full1 = full(1);
+    journal.append(full1, delta(1, 0));
+    listener.cycleCompleted(full1, null);
+    listener.drain();
+    Mockito.verify(underlying).cycleCompleted(full1, null);
+    ViewComputationResultModel full = null;
+    for (int i = 2; i <= 4; i++) {
+      full = full(i);
+      final ViewDeltaResultModel delta = delta(i, i);
+      journal.append(full, delta);
+      // The listener's arguments are ignored in favour of the journal
+      listener.cycleCompleted(full, delta);
+    }
+    listener.drain();
+    final ArgumentCaptor<ViewDeltaResultModel> delta = ArgumentCaptor.forClass(ViewDeltaResultModel.class);
+    Mockito.verify(underlying).cycleCompleted(Mockito.same(full), delta.capture());
+    assertEquals(delta.getValue().getAllTargets().size(), 3);
+    assertEquals(delta.getValue().getCalculationTime(), Instant.ofEpochMilli(4));
+  }
+
+}
@@ -313,6 +313,74 @@ public class ViewDefinitionCompilerTest {
     }
   }
 
+  public void testPartitionedCompilation() {
+    TestLifecycle.begin();
+    try {
+      final ExternalId secIdentifier1 = ExternalId.of("SEC", "1");
+      final ExternalId secIdentifier2 = ExternalId.of("SEC", "2");
+      final SimplePosition pos = new SimplePosition(new BigDecimal(1), secIdentifier1);
+      final SimplePortfolioNode pn = new SimplePortfolioNode("node");
+      pn.addPosition(pos);
+      final SimplePortfolio p = new SimplePortfolio(UniqueId.of("FOO", "BAR"), "portfolio");
+      p.setRootNode(pn);
+      final MockPositionSource positionSource = new MockPositionSource();
+      positionSource.addPortfolio(p);
+      final SimpleSecurity sec1 = new SimpleSecurity("My Sec");
+      sec1.addExternalId(secIdentifier1);
+      final SimpleSecurity sec2 = new SimpleSecurity("Your Sec");
+      sec2.addExternalId(secIdentifier2);
+      final InMemorySecuritySource securitySource = new InMemorySecuritySource();
+      securitySource.addSecurity(sec1);
+      securitySource.addSecurity(sec2);
+      final InMemoryFunctionRepository functionRepo = new InMemoryFunctionRepository();
+      final MockFunction fn2 = MockFunction.getMockFunction("fn2", new ComputationTarget(ComputationTargetType.SECURITY, sec2), 14.2);
+      functionRepo.addFunction(fn2);
+      functionRepo.addFunction(MockFunction.getMockFunction("fn1", new ComputationTarget(ComputationTargetType.PORTFOLIO_NODE, pn), 14.2, fn2));
+      final ViewDefinition viewDefinition = new ViewDefinition("My View", UniqueId.of("FOO", "BAR"), "kirk");
+      viewDefinition.getResultModelDefinition().setPositionOutputMode(ResultOutputMode.NONE);
+      final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, "Fibble");
+      calcConfig.addPortfolioRequirementName("My Sec", "OUTPUT");
+      final Set<UniqueId> targets = new HashSet<UniqueId>();
+      targets.add(sec2.getUniqueId());
+      targets.add(pn.getUniqueId());
+      for (int i = 0; i < 10; i++) {
+        // Each primitive shares the security's output with the portfolio node
+        final UniqueId target = UniqueId.of("TestScheme", "t" + i);
+        final MockFunction fn = MockFunction.getMockFunction("t" + i, new ComputationTarget(ComputationTargetType.PRIMITIVE, target), 42, fn2);
+        functionRepo.addFunction(fn);
+        calcConfig.addSpecificRequirement(fn.getResultSpec().toRequirementSpecification());
+        targets.add(target);
+      }
+      viewDefinition.addViewCalculationConfiguration(calcConfig);
+      final FunctionCompilationContext functionCompilationContext = new FunctionCompilationContext();
+      functionCompilationContext.setFunctionInitId(123);
+      final CompiledFunctionService cfs = new CompiledFunctionService(functionRepo, new CachingFunctionRepositoryCompiler(), functionCompilationContext);
+      TestLifecycle.register(cfs);
+      cfs.initialize();
+      final DefaultFunctionResolver functionResolver = new DefaultFunctionResolver(cfs);
+      final DefaultCachingComputationTargetResolver computationTargetResolver = new DefaultCachingComputationTargetResolver(new DefaultComputationTargetResolver(securitySource,
+          positionSource), _cacheManager);
+      functionCompilationContext.setRawComputationTargetResolver(computationTargetResolver);
+      final Instant now = Instant.now();
+      final ViewCompilationServices singleServices = new ViewCompilationServices(new FixedMarketDataAvailabilityProvider(), functionResolver, functionCompilationContext,
+          cfs.getExecutorService(), new DependencyGraphBuilderFactory());
+      final DependencyGraph expected = ViewDefinitionCompiler.compile(viewDefinition, singleServices, now, VersionCorrection.of(now, now)).getDependencyGraphExplorer("Fibble")
+          .getWholeGraph();
+      final DependencyGraphBuilderFactory partitionedFactory = new DependencyGraphBuilderFactory();
+      partitionedFactory.setPartitions(4);
+      final ViewCompilationServices partitionedServices = new ViewCompilationServices(new FixedMarketDataAvailabilityProvider(), functionResolver, functionCompilationContext,
+          cfs.getExecutorService(), partitionedFactory);
+      final CompiledViewDefinitionWithGraphsImpl compiledViewDefinition = ViewDefinitionCompiler.compile(viewDefinition, partitionedServices, now, VersionCorrection.of(now, now));
+      final DependencyGraph graph = compiledViewDefinition.getDependencyGraphExplorer("Fibble").getWholeGraph();
+      assertEquals(12, expected.getSize());
+      assertEquals(expected.getSize(), graph.getSize());
+      assertEquals(expected.getTerminalOutputs(), graph.getTerminalOutputs());
+      assertTargets(compiledViewDefinition, targets.toArray(new UniqueId[targets.size()]));
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
   public void testCancel() throws Exception {
     TestLifecycle.begin();
     try {
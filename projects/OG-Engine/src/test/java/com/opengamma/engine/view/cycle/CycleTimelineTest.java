@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cycle;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link CycleTimeline} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class CycleTimelineTest {
+
+  private static final long MICROS = 1000L;
+
+  private CycleTimeline timeline() {
+    final CycleTimeline timeline = new CycleTimeline(UniqueId.of("Cycle", "1"), 0L);
+    timeline.record("execute", null, 200 * MICROS, 700 * MICROS);
+    timeline.record("plan", "Default", 100 * MICROS, 150 * MICROS);
+    timeline.record("job", "Default", 300 * MICROS, 400 * MICROS);
+    return timeline;
+  }
+
+  public void testEventsInStartOrder() {
+    final List<CycleTimeline.Event> events = timeline().getEvents();
+    assertEquals(events.size(), 3);
+    assertEquals(events.get(0).getPhase(), "plan");
+    assertEquals(events.get(0).getDetail(), "Default");
+    assertEquals(events.get(1).getPhase(), "execute");
+    assertNull(events.get(1).getDetail());
+    assertEquals(events.get(1).getEndNanos() - events.get(1).getStartNanos(), 500 * MICROS);
+    assertEquals(events.get(2).getPhase(), "job");
+  }
+
+  public void testWrite() throws IOException {
+    final StringWriter writer = new StringWriter();
+    timeline().write(writer);
+    assertEquals(writer.toString(), "Cycle~1,plan,Default,100,50\nCycle~1,execute,,200,500\nCycle~1,job,Default,300,100\n");
+  }
+
+  public void testWriteQuotesDetail() throws IOException {
+    final CycleTimeline timeline = new CycleTimeline(UniqueId.of("Cycle", "1"), 0L);
+    timeline.record("execute", "node,\"1\"", 0L, MICROS);
+    final StringWriter writer = new StringWriter();
+    timeline.write(writer);
+    assertEquals(writer.toString(), "Cycle~1,execute,\"node,\"\"1\"\"\",0,1\n");
+  }
+
+  public void testAppendTo() throws IOException {
+    final File file = File.createTempFile("timeline", ".csv");
+    try {
+      timeline().appendTo(file);
+      timeline().appendTo(file);
+      final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+      assertEquals(lines.size(), 7);
+      assertEquals(lines.get(0), CycleTimeline.HEADER);
+      assertEquals(lines.get(1), "Cycle~1,plan,Default,100,50");
+      assertEquals(lines.get(4), "Cycle~1,plan,Default,100,50");
+    } finally {
+      file.delete();
+    }
+  }
+
+}
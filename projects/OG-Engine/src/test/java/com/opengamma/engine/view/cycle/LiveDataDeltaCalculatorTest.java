@@ -185,4 +185,60 @@ public class LiveDataDeltaCalculatorTest {
     assertEquals(Sets.newHashSet(_node[4]), deltaCalculator.getChangedNodes());
   }
 
+  //-------------------------------------------------------------------------
+  private Set<DependencyNode> changedNodesFromIndex(final Set<ValueSpecification> dirtySpecifications) {
+    final LiveDataDeltaCalculator deltaCalculator = deltaCalculator(dirtySpecifications);
+    deltaCalculator.computeChangedNodes(DependencyGraphImpl.getDependentNodeIndex(_graph));
+    return deltaCalculator.getChangedNodes();
+  }
+
+  private Set<DependencyNode> changedNodesFromWalk(final Set<ValueSpecification> dirtySpecifications) {
+    final LiveDataDeltaCalculator deltaCalculator = deltaCalculator(dirtySpecifications);
+    deltaCalculator.computeDelta();
+    return deltaCalculator.getChangedNodes();
+  }
+
+  public void indexNoChange() {
+    put(_cache, 0, 6.0);
+    put(_previousCache, 0, 6.0);
+    assertEquals(Collections.emptySet(), changedNodesFromIndex(Collections.<ValueSpecification>emptySet()));
+  }
+
+  public void indexChangeA() {
+    put(_cache, 0, 6.0);
+    put(_previousCache, 0, 7.0);
+    assertEquals(Sets.newHashSet(_node[0], _node[2], _node[4]), changedNodesFromIndex(Collections.<ValueSpecification>emptySet()));
+  }
+
+  public void indexChangeB() {
+    put(_cache, 1, 6.0);
+    put(_previousCache, 1, 7.0);
+    assertEquals(Sets.newHashSet(_node[1], _node[2], _node[3], _node[4]), changedNodesFromIndex(Collections.<ValueSpecification>emptySet()));
+  }
+
+  public void indexMatchesWalk() {
+    put(_cache, 0, 6.0);
+    put(_previousCache, 0, 6.0);
+    put(_cache, 1, 6.0);
+    put(_previousCache, 1, 7.0);
+    for (int i = 0; i < _value.length; i++) {
+      final Set<ValueSpecification> dirty = Collections.singleton(_value[i]);
+      assertEquals(changedNodesFromWalk(dirty), changedNodesFromIndex(dirty));
+    }
+    assertEquals(changedNodesFromWalk(Collections.<ValueSpecification>emptySet()), changedNodesFromIndex(Collections.<ValueSpecification>emptySet()));
+  }
+
+  public void indexParameterChange() {
+    assertEquals(Sets.newHashSet(_node[3], _node[4]), changedNodesFromIndex(Collections.singleton(_value[3])));
+    // Parameters don't affect the market data leaves
+    assertEquals(Collections.emptySet(), changedNodesFromIndex(Collections.singleton(_value[0])));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void indexUnchangedNodesNotKnown() {
+    final LiveDataDeltaCalculator deltaCalculator = deltaCalculator();
+    deltaCalculator.computeChangedNodes(DependencyGraphImpl.getDependentNodeIndex(_graph));
+    deltaCalculator.getUnchangedNodes();
+  }
+
 }
@@ -5,11 +5,17 @@
  */
 package com.opengamma.engine.view.cycle;
 
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
@@ -19,23 +25,41 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.testng.annotations.Test;
 
+import com.opengamma.engine.ComputationTarget;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.exec.DependencyGraphExecutionFuture;
 import com.opengamma.engine.exec.DependencyGraphExecutor;
 import com.opengamma.engine.exec.DependencyGraphExecutorFactory;
+import com.opengamma.engine.function.FunctionExecutionContext;
+import com.opengamma.engine.function.FunctionInputs;
 import com.opengamma.engine.function.FunctionParameters;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.marketdata.InMemoryLKVMarketDataProvider;
 import com.opengamma.engine.marketdata.spec.MarketData;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.test.MockFunction;
+import com.opengamma.engine.test.TestViewResultListener;
 import com.opengamma.engine.test.ViewProcessorTestEnvironment;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ExecutionLogMode;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewDefinition;
 import com.opengamma.engine.view.client.ViewClient;
+import com.opengamma.engine.view.execution.ExecutionFlags;
 import com.opengamma.engine.view.execution.ExecutionOptions;
 import com.opengamma.engine.view.impl.ViewProcessImpl;
 import com.opengamma.engine.view.impl.ViewProcessorImpl;
 import com.opengamma.engine.view.worker.ViewProcessWorker;
+import com.opengamma.id.UniqueId;
 import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.util.test.TestGroup;
 import com.opengamma.util.test.TestLifecycle;
 import com.opengamma.util.test.Timeout;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Pairs;
 
 /**
  * Tests SingleComputationCycle
@@ -79,6 +103,139 @@ public class SingleComputationCycleTest {
     }
   }
 
+  /**
+   * Function that records its execution and produces the sum of its inputs and a fixed offset.
+   */
+  private static final class SumFunction extends MockFunction {
+
+    private final double _offset;
+    private final Set<String> _executed;
+
+    public SumFunction(final String valueName, final double offset, final Set<String> executed, final ValueRequirement... inputs) {
+      super(valueName, new ComputationTarget(ComputationTargetType.PRIMITIVE, ViewProcessorTestEnvironment.getPrimitiveTarget().getUniqueId()));
+      _offset = offset;
+      _executed = executed;
+      addResult(new ValueSpecification(valueName, ViewProcessorTestEnvironment.getPrimitiveTarget(), createValueProperties().get()), offset);
+      addRequirements(Arrays.asList(inputs));
+    }
+
+    public ValueRequirement getRequirement() {
+      return getResultSpec().toRequirementSpecification();
+    }
+
+    @Override
+    public Set<ComputedValue> execute(final FunctionExecutionContext executionContext, final FunctionInputs inputs, final ComputationTarget target,
+        final Set<ValueRequirement> desiredValues) {
+      _executed.add(getUniqueId());
+      double value = _offset;
+      for (final ComputedValue input : inputs.getAllValues()) {
+        value += ((Number) input.getValue()).doubleValue();
+      }
+      return Collections.singleton(new ComputedValue(getResultSpec(), value));
+    }
+
+  }
+
+  /**
+   * Runs a full cycle and then a delta cycle after the first market data value has changed, returning the functions executed by the delta cycle and its
+   * results.
+   * <p>
+   * The graph is:
+   * 
+   * <pre>
+   *       C       D  E    G
+   *      / \      |  |    |
+   *     A   B     |  |    F
+   *     |    \    |  |   /
+   *    MD1    `---MD2---'
+   * </pre>
+   * 
+   * The delta cycle changes MD1, so A and C must be executed. The log mode of B, E and F is raised before the delta cycle so their results from the full
+   * cycle, which have no log events, cannot be reused. B is then executed because C needs it and E because it is a terminal output. F is not
+   * executed because G is reused.
+   */
+  private Pair<Set<String>, Map<String, Object>> runDeltaCycle(final boolean dirtySubgraphExecution) throws InterruptedException {
+    final ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
+    final ValueRequirement md1 = ViewProcessorTestEnvironment.getPrimitive1();
+    final ValueRequirement md2 = ViewProcessorTestEnvironment.getPrimitive2();
+    final InMemoryLKVMarketDataProvider marketData = new InMemoryLKVMarketDataProvider();
+    marketData.addValue(md1, 1d);
+    marketData.addValue(md2, 2d);
+    env.setMarketDataProvider(marketData);
+    final Set<String> executed = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    final SumFunction a = new SumFunction("A", 10d, executed, md1);
+    final SumFunction b = new SumFunction("B", 20d, executed, md2);
+    final SumFunction c = new SumFunction("C", 0d, executed, a.getRequirement(), b.getRequirement());
+    final SumFunction d = new SumFunction("D", 30d, executed, md2);
+    final SumFunction e = new SumFunction("E", 40d, executed, md2);
+    final SumFunction f = new SumFunction("F", 50d, executed, md2);
+    final SumFunction g = new SumFunction("G", 60d, executed, f.getRequirement());
+    final InMemoryFunctionRepository functions = new InMemoryFunctionRepository();
+    for (final SumFunction function : Arrays.asList(a, b, c, d, e, f, g)) {
+      functions.addFunction(function);
+    }
+    env.setFunctionRepository(functions);
+    final ViewDefinition viewDefinition = new ViewDefinition(UniqueId.of("boo", "far"), ViewProcessorTestEnvironment.TEST_VIEW_DEFINITION_NAME,
+        ViewProcessorTestEnvironment.TEST_USER);
+    final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, ViewProcessorTestEnvironment.TEST_CALC_CONFIG_NAME);
+    for (final SumFunction function : Arrays.asList(c, d, e, g)) {
+      calcConfig.addSpecificRequirement(function.getRequirement());
+    }
+    viewDefinition.addViewCalculationConfiguration(calcConfig);
+    env.setViewDefinition(viewDefinition);
+    env.init();
+    final ViewProcessorImpl vp = env.getViewProcessor();
+    vp.start();
+    final ViewClient client = vp.createViewClient(ViewProcessorTestEnvironment.TEST_USER);
+    final TestViewResultListener resultListener = new TestViewResultListener();
+    client.setResultListener(resultListener);
+    final ExecutionFlags flags = ExecutionFlags.none();
+    if (dirtySubgraphExecution) {
+      flags.dirtySubgraphExecution();
+    }
+    client.attachToViewProcess(viewDefinition.getUniqueId(), ExecutionOptions.infinite(MarketData.live(), flags.get()));
+    resultListener.assertViewDefinitionCompiled(TIMEOUT);
+    final ViewProcessWorker worker = env.getCurrentWorker(env.getViewProcess(vp, client.getUniqueId()));
+    // Full cycle
+    worker.triggerCycle();
+    resultListener.assertCycleCompleted(TIMEOUT);
+    assertEquals(new HashSet<String>(Arrays.asList("A", "B", "C", "D", "E", "F", "G")), executed);
+    // Delta cycle
+    final Set<Pair<String, ValueSpecification>> fullLogging = new HashSet<Pair<String, ValueSpecification>>();
+    for (final SumFunction function : Arrays.asList(b, e, f)) {
+      fullLogging.add(Pairs.of(ViewProcessorTestEnvironment.TEST_CALC_CONFIG_NAME, function.getResultSpec()));
+    }
+    client.setMinimumLogMode(ExecutionLogMode.FULL, fullLogging);
+    executed.clear();
+    marketData.addValue(md1, 5d);
+    worker.triggerCycle();
+    resultListener.assertCycleCompleted(TIMEOUT);
+    final ViewComputationResultModel result = client.getLatestResult();
+    final Map<String, Object> values = new HashMap<String, Object>();
+    for (final ComputedValue value : result.getTargetResult(ViewProcessorTestEnvironment.getPrimitiveTarget()).getAllValues(ViewProcessorTestEnvironment.TEST_CALC_CONFIG_NAME)) {
+      values.put(value.getSpecification().getValueName(), value.getValue());
+    }
+    client.shutdown();
+    return Pairs.<Set<String>, Map<String, Object>>of(new HashSet<String>(executed), values);
+  }
+
+  public void testDirtySubgraphDeltaCycle() throws InterruptedException {
+    TestLifecycle.begin();
+    try {
+      final Pair<Set<String>, Map<String, Object>> normal = runDeltaCycle(false);
+      final Pair<Set<String>, Map<String, Object>> dirtySubgraph = runDeltaCycle(true);
+      assertEquals(new HashSet<String>(Arrays.asList("A", "B", "C", "E")), normal.getFirst());
+      assertEquals(normal.getFirst(), dirtySubgraph.getFirst());
+      assertEquals(37d, normal.getSecond().get("C"));
+      assertEquals(32d, normal.getSecond().get("D"));
+      assertEquals(42d, normal.getSecond().get("E"));
+      assertEquals(112d, normal.getSecond().get("G"));
+      assertEquals(normal.getSecond(), dirtySubgraph.getSecond());
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
   private class BlockingDependencyGraphExecutorFactory implements DependencyGraphExecutorFactory {
 
     private final BlockingDependencyGraphExecutor _instance;
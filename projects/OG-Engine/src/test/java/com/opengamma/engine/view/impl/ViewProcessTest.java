@@ -258,6 +258,38 @@ public class ViewProcessTest {
     }
   }
 
+  public void testDeltaJournalOnlyWhileStreaming() {
+    TestLifecycle.begin();
+    try {
+      final ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
+      env.init();
+      final ViewProcessorImpl vp = env.getViewProcessor();
+      vp.start();
+
+      final ViewClient client1 = vp.createViewClient(ViewProcessorTestEnvironment.TEST_USER);
+      client1.setResultMode(ViewResultMode.FULL_ONLY);
+      client1.attachToViewProcess(env.getViewDefinition().getUniqueId(), ExecutionOptions.infinite(MarketData.live(), ExecutionFlags.none().get()));
+      final ViewProcessImpl viewProcess = env.getViewProcess(vp, client1.getUniqueId());
+      assertFalse(viewProcess.isDeltaJournalled());
+
+      client1.setResultMode(ViewResultMode.DELTA_STREAM);
+      assertTrue(viewProcess.isDeltaJournalled());
+
+      final ViewClient client2 = vp.createViewClient(ViewProcessorTestEnvironment.TEST_USER);
+      client2.setResultMode(ViewResultMode.DELTA_STREAM);
+      client2.attachToViewProcess(viewProcess.getUniqueId());
+      client1.setResultMode(ViewResultMode.FULL_ONLY);
+      assertTrue(viewProcess.isDeltaJournalled());
+
+      client2.detachFromViewProcess();
+      assertFalse(viewProcess.isDeltaJournalled());
+
+      vp.stop();
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
   @Test
   public void testPersistentViewDefinition() throws InterruptedException {
     TestLifecycle.begin();
@@ -8,13 +8,19 @@ package com.opengamma.engine.view.listener;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 
+import java.util.Collections;
+
 import org.mockito.Mockito;
 import org.testng.annotations.Test;
+import org.threeten.bp.Instant;
 
+import com.opengamma.engine.view.ColumnarViewCalculationResultModel;
+import com.opengamma.engine.view.ColumnarViewResultModel;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDeltaResultModel;
 import com.opengamma.engine.view.impl.InMemoryViewComputationResultModel;
 import com.opengamma.engine.view.impl.InMemoryViewDeltaResultModel;
+import com.opengamma.id.UniqueId;
 import com.opengamma.util.test.TestGroup;
 
 /**
@@ -47,4 +53,50 @@ public class CycleCompletedCallTest extends AbstractCompletedResultsCallTest {
     Mockito.verify(mock, Mockito.only()).cycleCompleted(full, delta);
   }
 
+  private static ColumnarViewResultModel columnar(final String cycle) {
+    return new ColumnarViewResultModel(UniqueId.of("Process", "1"), UniqueId.of("Cycle", cycle), null, null, null,
+        Collections.<ColumnarViewCalculationResultModel>emptyList());
+  }
+
+  private static ViewComputationResultModel full(final long time) {
+    final InMemoryViewComputationResultModel full = new InMemoryViewComputationResultModel();
+    full.setCalculationTime(Instant.ofEpochMilli(time));
+    return full;
+  }
+
+  public void testApplyColumnar() {
+    final ViewComputationResultModel full = new InMemoryViewComputationResultModel();
+    final ColumnarViewResultModel columnar = columnar("1");
+    final ViewDeltaResultModel delta = new InMemoryViewDeltaResultModel();
+    final CycleCompletedCall instance = new CycleCompletedCall(full, columnar, delta);
+    assertSame(instance.getColumnarResult(), columnar);
+    final ColumnarViewResultListener mock = Mockito.mock(ColumnarViewResultListener.class);
+    Mockito.when(mock.isColumnarResultRequired()).thenReturn(true);
+    assertNull(instance.apply(mock));
+    Mockito.verify(mock).cycleCompleted(full, columnar, delta);
+    Mockito.when(mock.isColumnarResultRequired()).thenReturn(false);
+    assertNull(instance.apply(mock));
+    Mockito.verify(mock).cycleCompleted(full, delta);
+    final ViewResultListener plain = Mockito.mock(ViewResultListener.class);
+    assertNull(instance.apply(plain));
+    Mockito.verify(plain, Mockito.only()).cycleCompleted(full, delta);
+  }
+
+  public void testUpdateColumnar() {
+    final ColumnarViewResultModel columnar1 = columnar("1");
+    final CycleCompletedCall instance = new CycleCompletedCall(full(1000), columnar1, null);
+    // An older result is ignored along with its columnar form
+    instance.update(full(500), columnar("0"), null);
+    assertSame(instance.getColumnarResult(), columnar1);
+    // A newer result replaces the columnar form
+    final ViewComputationResultModel full2 = full(2000);
+    final ColumnarViewResultModel columnar2 = columnar("2");
+    instance.update(full2, columnar2, null);
+    assertSame(instance.getFullResult(), full2);
+    assertSame(instance.getColumnarResult(), columnar2);
+    // A newer result without a columnar form leaves none rather than a stale one
+    instance.update(full(3000), null, null);
+    assertNull(instance.getColumnarResult());
+  }
+
 }
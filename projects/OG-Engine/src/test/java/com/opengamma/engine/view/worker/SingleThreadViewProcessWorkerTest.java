@@ -6,20 +6,59 @@
 package com.opengamma.engine.view.worker;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
 
+import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.testng.annotations.Test;
 import org.threeten.bp.Duration;
 import org.threeten.bp.Instant;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.opengamma.DataNotFoundException;
 import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.core.change.ChangeManager;
+import com.opengamma.core.change.DummyChangeManager;
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.core.position.PortfolioNode;
+import com.opengamma.core.position.Position;
+import com.opengamma.core.position.PositionSource;
+import com.opengamma.core.position.Trade;
+import com.opengamma.core.position.impl.PortfolioNodeEquivalenceMapper;
+import com.opengamma.core.position.impl.SimplePortfolio;
+import com.opengamma.core.position.impl.SimplePortfolioNode;
+import com.opengamma.core.position.impl.SimplePosition;
+import com.opengamma.core.security.Security;
+import com.opengamma.core.security.impl.SimpleSecurity;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.DefaultComputationTargetResolver;
+import com.opengamma.engine.InMemorySecuritySource;
 import com.opengamma.engine.cache.MissingInput;
 import com.opengamma.engine.cache.MissingOutput;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyGraphBuilderFactory;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.function.AbstractFunction;
+import com.opengamma.engine.function.CachingFunctionRepositoryCompiler;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.FunctionExecutionContext;
+import com.opengamma.engine.function.FunctionInputs;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.resolver.DefaultFunctionResolver;
 import com.opengamma.engine.marketdata.InMemoryLKVMarketDataProvider;
 import com.opengamma.engine.marketdata.MarketDataListener;
 import com.opengamma.engine.marketdata.MarketDataPermissionProvider;
@@ -34,13 +73,23 @@ import com.opengamma.engine.marketdata.resolver.MarketDataProviderResolver;
 import com.opengamma.engine.marketdata.spec.LiveMarketDataSpecification;
 import com.opengamma.engine.marketdata.spec.MarketData;
 import com.opengamma.engine.marketdata.spec.MarketDataSpecification;
+import com.opengamma.engine.target.ComputationTargetReference;
+import com.opengamma.engine.target.ComputationTargetType;
 import com.opengamma.engine.test.TestViewResultListener;
 import com.opengamma.engine.test.ViewProcessorTestEnvironment;
 import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ResultOutputMode;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
 import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewDefinition;
 import com.opengamma.engine.view.ViewTargetResultModel;
 import com.opengamma.engine.view.client.ViewClient;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphs;
+import com.opengamma.engine.view.compilation.PartiallyCompiledGraph;
+import com.opengamma.engine.view.compilation.ViewCompilationServices;
+import com.opengamma.engine.view.compilation.ViewDefinitionCompiler;
 import com.opengamma.engine.view.execution.ArbitraryViewCycleExecutionSequence;
 import com.opengamma.engine.view.execution.ExecutionFlags;
 import com.opengamma.engine.view.execution.ExecutionOptions;
@@ -50,7 +99,10 @@ import com.opengamma.engine.view.execution.ViewExecutionOptions;
 import com.opengamma.engine.view.impl.ViewProcessImpl;
 import com.opengamma.engine.view.impl.ViewProcessorImpl;
 import com.opengamma.engine.view.worker.SingleThreadViewProcessWorker.BorrowedThread;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
 import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.test.TestGroup;
@@ -69,6 +121,10 @@ public class SingleThreadViewProcessWorkerTest {
   private static final String SOURCE_2_NAME = "source2";
   private static final String SOURCE_3_NAME = "source3";
 
+  private static final String CALC_CONFIG_NAME = "Default";
+  private static final String SECURITY_TYPE = "Test";
+  private static final String VALUE_NAME = "Value";
+
   @Test(expectedExceptions = OpenGammaRuntimeException.class)
   public void testAttachToUnknownView() {
     TestLifecycle.begin();
@@ -393,6 +449,77 @@ public class SingleThreadViewProcessWorkerTest {
     }
   }
 
+  @Test
+  public void testRemapChangedPortfolioNode() throws Exception {
+    TestLifecycle.begin();
+    try {
+      final InMemorySecuritySource securitySource = new InMemorySecuritySource();
+      final SimpleSecurity security = new SimpleSecurity(SECURITY_TYPE);
+      security.addExternalId(ExternalId.of("Test", "Security"));
+      securitySource.addSecurity(security);
+      final VersionedPositionSource positionSource = new VersionedPositionSource();
+      final Portfolio oldPortfolio = createPortfolio("1", security, false);
+      final Portfolio newPortfolio = createPortfolio("2", security, true);
+      positionSource.addPortfolio(oldPortfolio);
+      positionSource.addPortfolio(newPortfolio);
+      final InMemoryFunctionRepository functionRepo = new InMemoryFunctionRepository();
+      functionRepo.addFunction(new PositionValueFunction());
+      functionRepo.addFunction(new NodeSumFunction());
+      final FunctionCompilationContext functionCompilationContext = new FunctionCompilationContext();
+      functionCompilationContext.setFunctionInitId(123);
+      functionCompilationContext.setRawComputationTargetResolver(new DefaultComputationTargetResolver(securitySource, positionSource));
+      final CompiledFunctionService cfs = new CompiledFunctionService(functionRepo, new CachingFunctionRepositoryCompiler(), functionCompilationContext);
+      TestLifecycle.register(cfs);
+      cfs.initialize();
+      final ViewCompilationServices vcs = new ViewCompilationServices(new FixedMarketDataAvailabilityProvider(), new DefaultFunctionResolver(cfs), functionCompilationContext,
+          cfs.getExecutorService(), new DependencyGraphBuilderFactory());
+      final ViewDefinition viewDefinition = new ViewDefinition("Test", UniqueId.of("Portfolio", "Test"), "Test");
+      viewDefinition.getResultModelDefinition().setPositionOutputMode(ResultOutputMode.NONE);
+      final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, CALC_CONFIG_NAME);
+      calcConfig.addPortfolioRequirementName(SECURITY_TYPE, VALUE_NAME);
+      viewDefinition.addViewCalculationConfiguration(calcConfig);
+      final Instant now = Instant.now();
+      final VersionCorrection versionCorrection = VersionCorrection.of(now, now);
+      // Compile against the original portfolio
+      positionSource.setPortfolio(oldPortfolio);
+      final CompiledViewDefinitionWithGraphs oldCompilation = ViewDefinitionCompiler.compile(viewDefinition, vcs, now, versionCorrection);
+      final DependencyGraph oldGraph = oldCompilation.getDependencyGraphExplorer(CALC_CONFIG_NAME).getWholeGraph();
+      // Add a position to leaf node B; node A is unaffected but B and the root are changed
+      positionSource.setPortfolio(newPortfolio);
+      final Map<String, PartiallyCompiledGraph> previousGraphs = new HashMap<>();
+      previousGraphs.put(CALC_CONFIG_NAME, new PartiallyCompiledGraph(oldGraph));
+      final ConcurrentMap<ComputationTargetReference, UniqueId> previousResolutions = new ConcurrentHashMap<>();
+      final Set<UniqueId> unchangedNodes = SingleThreadViewProcessWorker.remapPortfolio(previousGraphs, oldCompilation, newPortfolio, new PortfolioNodeEquivalenceMapper(),
+          ImmutableMap.of(oldPortfolio.getUniqueId(), new ComputationTargetSpecification(ComputationTargetType.PORTFOLIO, newPortfolio.getUniqueId())), previousResolutions);
+      assertEquals(ImmutableSet.of(UniqueId.of("Node", "A", "2")), unchangedNodes);
+      final DependencyGraph remappedGraph = previousGraphs.get(CALC_CONFIG_NAME);
+      // The aggregate on the unaffected node is rewritten to the new identifier, reusing the position nodes beneath it
+      final DependencyNode oldNodeA = findNode(oldGraph, UniqueId.of("Node", "A", "1"));
+      final DependencyNode newNodeA = findNode(remappedGraph, UniqueId.of("Node", "A", "2"));
+      assertNotNull(newNodeA);
+      assertEquals(oldNodeA.getInputCount(), newNodeA.getInputCount());
+      for (int i = 0; i < oldNodeA.getInputCount(); i++) {
+        assertSame(oldNodeA.getInputNode(i), newNodeA.getInputNode(i));
+      }
+      // The position retained by the changed node is reused; the aggregates on the changed node and its ancestor are discarded
+      final DependencyNode position3 = findNode(oldGraph, UniqueId.of("Position", "3"));
+      assertSame(position3, findNode(remappedGraph, UniqueId.of("Position", "3")));
+      assertNull(findNode(remappedGraph, UniqueId.of("Node", "B", "1")));
+      assertNull(findNode(remappedGraph, UniqueId.of("Node", "B", "2")));
+      assertNull(findNode(remappedGraph, UniqueId.of("Node", "Root", "1")));
+      assertNull(findNode(remappedGraph, UniqueId.of("Node", "Root", "2")));
+      // Completing the incremental compilation must give the same graph as a full compilation of the new portfolio
+      final DependencyGraph incrementalGraph = ViewDefinitionCompiler.incrementalCompileTask(viewDefinition, vcs, now, versionCorrection, previousGraphs, previousResolutions, null,
+          unchangedNodes).get().getDependencyGraphExplorer(CALC_CONFIG_NAME).getWholeGraph();
+      final DependencyGraph fullGraph = ViewDefinitionCompiler.compile(viewDefinition, vcs, now, versionCorrection).getDependencyGraphExplorer(CALC_CONFIG_NAME).getWholeGraph();
+      assertEquals(fullGraph.getSize(), incrementalGraph.getSize());
+      assertEquals(fullGraph.getTerminalOutputs(), incrementalGraph.getTerminalOutputs());
+      assertEquals(fullGraph, incrementalGraph);
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
   private void assertThreadReachesState(final BorrowedThread recalcThread, final Thread.State state) throws InterruptedException {
     final long startTime = System.currentTimeMillis();
     while (recalcThread.getState() != state) {
@@ -403,6 +530,32 @@ public class SingleThreadViewProcessWorkerTest {
     }
   }
 
+  private static SimplePortfolio createPortfolio(final String version, final Security security, final boolean addPosition) {
+    final SimplePortfolioNode nodeA = new SimplePortfolioNode(UniqueId.of("Node", "A", version), "A");
+    nodeA.addPosition(new SimplePosition(UniqueId.of("Position", "1"), BigDecimal.ONE, security));
+    nodeA.addPosition(new SimplePosition(UniqueId.of("Position", "2"), BigDecimal.ONE, security));
+    final SimplePortfolioNode nodeB = new SimplePortfolioNode(UniqueId.of("Node", "B", version), "B");
+    nodeB.addPosition(new SimplePosition(UniqueId.of("Position", "3"), BigDecimal.ONE, security));
+    if (addPosition) {
+      nodeB.addPosition(new SimplePosition(UniqueId.of("Position", "4"), BigDecimal.ONE, security));
+    }
+    final SimplePortfolioNode root = new SimplePortfolioNode(UniqueId.of("Node", "Root", version), "Root");
+    root.addChildNode(nodeA);
+    root.addChildNode(nodeB);
+    return new SimplePortfolio(UniqueId.of("Portfolio", "Test", version), "Test", root);
+  }
+
+  private static DependencyNode findNode(final DependencyGraph graph, final UniqueId target) {
+    final Iterator<DependencyNode> itr = graph.nodeIterator();
+    while (itr.hasNext()) {
+      final DependencyNode node = itr.next();
+      if (target.equals(node.getTarget().getUniqueId())) {
+        return node;
+      }
+    }
+    return null;
+  }
+
   private Map<String, Object> extractResults(ViewComputationResultModel result) {
     Map<String, Object> resultValues = new HashMap<String, Object>();
     ViewTargetResultModel targetResult = result.getTargetResult(ViewProcessorTestEnvironment.getPrimitiveTarget());
@@ -522,4 +675,146 @@ public class SingleThreadViewProcessWorkerTest {
     }
   }
 
+  /**
+   * Position source holding several versions of a portfolio, the current one of which is returned when resolving by object identifier.
+   */
+  private static class VersionedPositionSource implements PositionSource {
+
+    private final Map<UniqueId, Portfolio> _portfolios = new HashMap<>();
+    private final Map<UniqueId, PortfolioNode> _nodes = new HashMap<>();
+    private final Map<UniqueId, Position> _positions = new HashMap<>();
+    private volatile Portfolio _portfolio;
+
+    public void addPortfolio(final Portfolio portfolio) {
+      _portfolios.put(portfolio.getUniqueId(), portfolio);
+      addNode(portfolio.getRootNode());
+    }
+
+    private void addNode(final PortfolioNode node) {
+      _nodes.put(node.getUniqueId(), node);
+      for (Position position : node.getPositions()) {
+        _positions.put(position.getUniqueId(), position);
+      }
+      for (PortfolioNode child : node.getChildNodes()) {
+        addNode(child);
+      }
+    }
+
+    public void setPortfolio(final Portfolio portfolio) {
+      _portfolio = portfolio;
+    }
+
+    private static <T> T get(final Map<UniqueId, T> map, final UniqueId uniqueId) {
+      final T value = map.get(uniqueId);
+      if (value == null) {
+        throw new DataNotFoundException("Not found: " + uniqueId);
+      }
+      return value;
+    }
+
+    @Override
+    public Portfolio getPortfolio(final UniqueId uniqueId, final VersionCorrection versionCorrection) {
+      return get(_portfolios, uniqueId);
+    }
+
+    @Override
+    public Portfolio getPortfolio(final ObjectId objectId, final VersionCorrection versionCorrection) {
+      final Portfolio portfolio = _portfolio;
+      if ((portfolio == null) || !objectId.equals(portfolio.getUniqueId().getObjectId())) {
+        throw new DataNotFoundException("Not found: " + objectId);
+      }
+      return portfolio;
+    }
+
+    @Override
+    public PortfolioNode getPortfolioNode(final UniqueId uniqueId, final VersionCorrection versionCorrection) {
+      return get(_nodes, uniqueId);
+    }
+
+    @Override
+    public Position getPosition(final UniqueId uniqueId) {
+      return get(_positions, uniqueId);
+    }
+
+    @Override
+    public Position getPosition(final ObjectId objectId, final VersionCorrection versionCorrection) {
+      return get(_positions, objectId.atLatestVersion());
+    }
+
+    @Override
+    public Trade getTrade(final UniqueId uniqueId) {
+      throw new DataNotFoundException("Not found: " + uniqueId);
+    }
+
+    @Override
+    public ChangeManager changeManager() {
+      return DummyChangeManager.INSTANCE;
+    }
+
+  }
+
+  /**
+   * Produces a value on each position without any inputs.
+   */
+  private static class PositionValueFunction extends AbstractFunction.NonCompiledInvoker {
+
+    @Override
+    public ComputationTargetType getTargetType() {
+      return ComputationTargetType.POSITION;
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(final FunctionCompilationContext context, final ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification(VALUE_NAME, target.toSpecification(), createValueProperties().get()));
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(final FunctionCompilationContext context, final ComputationTarget target, final ValueRequirement desiredValue) {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<ComputedValue> execute(final FunctionExecutionContext executionContext, final FunctionInputs inputs, final ComputationTarget target,
+        final Set<ValueRequirement> desiredValues) {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+  /**
+   * Aggregates the values of the positions and child nodes beneath a portfolio node.
+   */
+  private static class NodeSumFunction extends AbstractFunction.NonCompiledInvoker {
+
+    @Override
+    public ComputationTargetType getTargetType() {
+      return ComputationTargetType.PORTFOLIO_NODE;
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(final FunctionCompilationContext context, final ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification(VALUE_NAME, target.toSpecification(), createValueProperties().get()));
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(final FunctionCompilationContext context, final ComputationTarget target, final ValueRequirement desiredValue) {
+      final PortfolioNode node = target.getPortfolioNode();
+      final Set<ValueRequirement> requirements = new HashSet<>();
+      for (Position position : node.getPositions()) {
+        requirements.add(new ValueRequirement(VALUE_NAME, ComputationTargetType.POSITION, position.getUniqueId().toLatest()));
+      }
+      for (PortfolioNode child : node.getChildNodes()) {
+        requirements.add(new ValueRequirement(VALUE_NAME, ComputationTargetType.PORTFOLIO_NODE, child.getUniqueId()));
+      }
+      return requirements;
+    }
+
+    @Override
+    public Set<ComputedValue> execute(final FunctionExecutionContext executionContext, final FunctionInputs inputs, final ComputationTarget target,
+        final Set<ValueRequirement> desiredValues) {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
 }
@@ -0,0 +1,302 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.worker.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.threeten.bp.Instant;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.core.position.impl.SimplePortfolio;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetResolver;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder.NodeBuilder;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.FunctionDefinition;
+import com.opengamma.engine.function.FunctionParameters;
+import com.opengamma.engine.function.FunctionRepository;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.SimpleFunctionParameters;
+import com.opengamma.engine.target.ComputationTargetReference;
+import com.opengamma.engine.target.ComputationTargetRequirement;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.engine.view.compilation.CompiledViewCalculationConfiguration;
+import com.opengamma.engine.view.compilation.CompiledViewCalculationConfigurationImpl;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphs;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link FileViewExecutionCache} class.
+ */
+@Test(groups = TestGroup.UNIT, singleThreaded = true)
+public class FileViewExecutionCacheTest {
+
+  private final Instant _now = Instant.now();
+  private File _directory;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    _directory = Files.createTempDirectory("FileViewExecutionCacheTest").toFile();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    final File[] files = _directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    _directory.delete();
+  }
+
+  private Portfolio createPortfolio() {
+    return new SimplePortfolio(UniqueId.of("Portfolio", "0", "V"), "Portfolio");
+  }
+
+  private ViewDefinition createViewDefinition() {
+    final ViewDefinition viewDefinition = new ViewDefinition("TestView", UniqueId.of("Portfolio", "0"), "TestUser");
+    viewDefinition.setUniqueId(UniqueId.of("View", "0", "V"));
+    return viewDefinition;
+  }
+
+  private DependencyGraph createDependencyGraph() {
+    final TestDependencyGraphBuilder gb = new TestDependencyGraphBuilder("Default");
+    final NodeBuilder n1 = gb.addNode("Foo", ComputationTargetSpecification.NULL);
+    n1.addTerminalOutput("Foo");
+    final NodeBuilder n2 = gb.addNode("Bar", ComputationTargetSpecification.NULL);
+    n1.addInput(n2.addOutput("Bar"));
+    final NodeBuilder n3 = gb.addNode("Cow", ComputationTargetSpecification.NULL);
+    n2.addInput(n3.addOutput("Cow"));
+    return gb.buildGraph();
+  }
+
+  private CompiledViewDefinitionWithGraphs createCompiledViewDefinitionWithGraphs(final long functionInitId) {
+    final Portfolio portfolio = createPortfolio();
+    final ViewDefinition viewDefinition = createViewDefinition();
+    final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, "Default");
+    viewDefinition.addViewCalculationConfiguration(calcConfig);
+    final DependencyGraph graph = createDependencyGraph();
+    final Collection<DependencyGraph> graphs = Collections.singleton(graph);
+    final Collection<CompiledViewCalculationConfiguration> calcConfigs = Collections.<CompiledViewCalculationConfiguration>singleton(CompiledViewCalculationConfigurationImpl.of(graph));
+    final Map<ComputationTargetReference, UniqueId> resolutions = ImmutableMap.<ComputationTargetReference, UniqueId>of(new ComputationTargetRequirement(ComputationTargetType.SECURITY,
+        ExternalId.of("Security", "Foo")), UniqueId.of("Sec", "0"));
+    return new CompiledViewDefinitionWithGraphsImpl(VersionCorrection.of(_now, _now), "", viewDefinition, graphs, resolutions, portfolio, functionInitId, calcConfigs, _now, null);
+  }
+
+  private ComputationTargetResolver createTargetResolver() {
+    final ComputationTargetResolver targetResolver = Mockito.mock(ComputationTargetResolver.class);
+    Mockito.when(targetResolver.resolve(new ComputationTargetSpecification(ComputationTargetType.PORTFOLIO, UniqueId.of("Portfolio", "0", "V")), VersionCorrection.of(_now, _now)))
+        .thenReturn(new ComputationTarget(ComputationTargetType.PORTFOLIO, createPortfolio()));
+    Mockito.when(targetResolver.resolve(new ComputationTargetSpecification(ComputationTargetType.of(ViewDefinition.class), UniqueId.of("View", "0", "V")), VersionCorrection.of(_now, _now)))
+        .thenReturn(new ComputationTarget(ComputationTargetType.of(ViewDefinition.class), createViewDefinition()));
+    return targetResolver;
+  }
+
+  private CompiledFunctionService createFunctions(final long functionInitId, final String... functionIds) {
+    final FunctionRepository repository = Mockito.mock(FunctionRepository.class);
+    final FunctionDefinition[] functions = new FunctionDefinition[functionIds.length];
+    for (int i = 0; i < functionIds.length; i++) {
+      functions[i] = Mockito.mock(FunctionDefinition.class);
+      Mockito.when(functions[i].getUniqueId()).thenReturn(functionIds[i]);
+    }
+    Mockito.when(repository.getAllFunctions()).thenReturn(Arrays.asList(functions));
+    return createFunctions(functionInitId, repository, null);
+  }
+
+  private CompiledFunctionService createFunctions(final long functionInitId, final FunctionRepository repository, final FunctionRepository rawRepository) {
+    final FunctionCompilationContext context = new FunctionCompilationContext();
+    context.setFunctionInitId(functionInitId);
+    final CompiledFunctionService cfs = Mockito.mock(CompiledFunctionService.class);
+    Mockito.when(cfs.getInitializedFunctionRepository()).thenReturn(repository);
+    Mockito.when(cfs.getFunctionRepository()).thenReturn(rawRepository);
+    Mockito.when(cfs.getFunctionCompilationContext()).thenReturn(context);
+    return cfs;
+  }
+
+  private FileViewExecutionCache createCache(final CompiledFunctionService cfs) {
+    return createCache(cfs, "1.0");
+  }
+
+  private FileViewExecutionCache createCache(final CompiledFunctionService cfs, final String buildVersion) {
+    // Write on the calling thread so that the files are there when the store returns
+    return new FileViewExecutionCache(_directory, OpenGammaFudgeContext.getInstance(), createTargetResolver(), cfs, buildVersion, MoreExecutors.sameThreadExecutor());
+  }
+
+  public void testCaching() {
+    final FileViewExecutionCache cache = createCache(createFunctions(1L, "Foo", "Bar", "Cow"));
+    final CompiledViewDefinitionWithGraphs object = createCompiledViewDefinitionWithGraphs(1L);
+    final ViewExecutionCacheKey key = new ViewExecutionCacheKey(UniqueId.of("Key", "1"), "Foo", "No-op");
+    // Miss
+    assertNull(cache.getCompiledViewDefinitionWithGraphs(key));
+    // Store
+    cache.setCompiledViewDefinitionWithGraphs(key, object);
+    // Hit the front cache
+    assertSame(cache.getCompiledViewDefinitionWithGraphs(key), object);
+    // Hit the file
+    cache.clearFrontCache();
+    final CompiledViewDefinitionWithGraphs cachedObject = cache.getCompiledViewDefinitionWithGraphs(key);
+    assertNotNull(cachedObject);
+    assertEquals(cachedObject.getCompiledCalculationConfigurations(), object.getCompiledCalculationConfigurations());
+    assertEquals(cachedObject.getComputationTargets(), object.getComputationTargets());
+    assertEquals(cachedObject.getMarketDataRequirements(), object.getMarketDataRequirements());
+    assertEquals(cachedObject.getPortfolio(), object.getPortfolio());
+    assertEquals(cachedObject.getResolvedIdentifiers(), object.getResolvedIdentifiers());
+    assertEquals(cachedObject.getResolverVersionCorrection(), object.getResolverVersionCorrection());
+    assertEquals(cachedObject.getValidFrom(), object.getValidFrom());
+    assertNull(cachedObject.getValidTo());
+    // Hit the front cache
+    assertSame(cache.getCompiledViewDefinitionWithGraphs(key), cachedObject);
+    // Different key
+    assertNull(cache.getCompiledViewDefinitionWithGraphs(new ViewExecutionCacheKey(UniqueId.of("Key", "1"), "Bar", "No-op")));
+  }
+
+  @SuppressWarnings("deprecation")
+  public void testRestart() {
+    final ViewExecutionCacheKey key = new ViewExecutionCacheKey(UniqueId.of("Key", "1"), "Foo", "No-op");
+    createCache(createFunctions(1L, "Foo", "Bar", "Cow")).setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    // Same functions, new initialization identifier
+    final FileViewExecutionCache cache = createCache(createFunctions(2L, "Cow", "Bar", "Foo"));
+    final CompiledViewDefinitionWithGraphs cachedObject = cache.getCompiledViewDefinitionWithGraphs(key);
+    assertNotNull(cachedObject);
+    assertEquals(((CompiledViewDefinitionWithGraphsImpl) cachedObject).getFunctionInitId(), 2L);
+    assertEquals(cachedObject.getDependencyGraphExplorer("Default").getWholeGraph().getSize(), 3);
+  }
+
+  public void testFunctionRepositoryChanged() {
+    final ViewExecutionCacheKey key = new ViewExecutionCacheKey(UniqueId.of("Key", "1"), "Foo", "No-op");
+    final FileViewExecutionCache oldCache = createCache(createFunctions(1L, "Foo", "Bar", "Cow"));
+    oldCache.setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    final File oldFile = oldCache.getFile(key);
+    assertTrue(oldFile.exists());
+    final FileViewExecutionCache cache = createCache(createFunctions(2L, "Foo", "Bar"));
+    assertFalse(cache.getFile(key).equals(oldFile));
+    assertNull(cache.getCompiledViewDefinitionWithGraphs(key));
+    // The stale file is deleted before the first write
+    cache.setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(2L));
+    assertFalse(oldFile.exists());
+    assertEquals(_directory.listFiles().length, 1);
+  }
+
+  public void testBuildVersionChanged() {
+    final ViewExecutionCacheKey key = new ViewExecutionCacheKey(UniqueId.of("Key", "1"), "Foo", "No-op");
+    createCache(createFunctions(1L, "Foo", "Bar", "Cow"), "1.0").setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    assertNotNull(createCache(createFunctions(2L, "Foo", "Bar", "Cow"), "1.0").getCompiledViewDefinitionWithGraphs(key));
+    final FileViewExecutionCache cache = createCache(createFunctions(3L, "Foo", "Bar", "Cow"), "1.1");
+    assertNull(cache.getCompiledViewDefinitionWithGraphs(key));
+    cache.setCompiledViewDefinitionWithGraphs(new ViewExecutionCacheKey(UniqueId.of("Key", "2"), "Foo", "No-op"), createCompiledViewDefinitionWithGraphs(3L));
+    assertEquals(_directory.listFiles().length, 1);
+    assertNull(createCache(createFunctions(4L, "Foo", "Bar", "Cow"), "1.0").getCompiledViewDefinitionWithGraphs(key));
+  }
+
+  public void testWriteBehind() {
+    final List<Runnable> writes = new ArrayList<Runnable>();
+    final Executor writer = new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        writes.add(command);
+      }
+    };
+    final FileViewExecutionCache cache = new FileViewExecutionCache(_directory, OpenGammaFudgeContext.getInstance(), createTargetResolver(), createFunctions(1L, "Foo"), "1.0",
+        writer);
+    final ViewExecutionCacheKey key = new ViewExecutionCacheKey(UniqueId.of("Key", "1"), "Foo", "No-op");
+    final CompiledViewDefinitionWithGraphs object = createCompiledViewDefinitionWithGraphs(1L);
+    cache.setCompiledViewDefinitionWithGraphs(key, object);
+    // Nothing is written until the executor runs, but the entry is still available
+    assertFalse(cache.getFile(key).exists());
+    cache.clearFrontCache();
+    assertSame(cache.getCompiledViewDefinitionWithGraphs(key), object);
+    for (Runnable write : writes) {
+      write.run();
+    }
+    assertTrue(cache.getFile(key).exists());
+    cache.clearFrontCache();
+    final CompiledViewDefinitionWithGraphs cachedObject = cache.getCompiledViewDefinitionWithGraphs(key);
+    assertNotNull(cachedObject);
+    assertEquals(cachedObject.getResolvedIdentifiers(), object.getResolvedIdentifiers());
+  }
+
+  private CompiledFunctionService createParameterizedFunctions(final long functionInitId, final String parameter, final FunctionParameters defaultParameters) {
+    final FunctionDefinition function = Mockito.mock(FunctionDefinition.class);
+    Mockito.when(function.getUniqueId()).thenReturn("Foo");
+    Mockito.when(function.getDefaultParameters()).thenReturn(defaultParameters);
+    final InMemoryFunctionRepository repository = new InMemoryFunctionRepository();
+    repository.addFunction(function, Collections.singletonList(parameter));
+    return createFunctions(functionInitId, repository, repository);
+  }
+
+  public void testConfigurationParametersChanged() {
+    final ViewExecutionCacheKey key = new ViewExecutionCacheKey(UniqueId.of("Key", "1"), "Foo", "No-op");
+    createCache(createParameterizedFunctions(1L, "A", null)).setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    assertNotNull(createCache(createParameterizedFunctions(2L, "A", null)).getCompiledViewDefinitionWithGraphs(key));
+    assertNull(createCache(createParameterizedFunctions(3L, "B", null)).getCompiledViewDefinitionWithGraphs(key));
+  }
+
+  public void testDefaultParametersChanged() {
+    final ViewExecutionCacheKey key = new ViewExecutionCacheKey(UniqueId.of("Key", "1"), "Foo", "No-op");
+    final SimpleFunctionParameters parameters = new SimpleFunctionParameters();
+    parameters.setValue("Shift", "0.1");
+    createCache(createParameterizedFunctions(1L, "A", parameters)).setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    assertNotNull(createCache(createParameterizedFunctions(2L, "A", parameters)).getCompiledViewDefinitionWithGraphs(key));
+    parameters.setValue("Shift", "0.2");
+    assertNull(createCache(createParameterizedFunctions(3L, "A", parameters)).getCompiledViewDefinitionWithGraphs(key));
+  }
+
+  public void testFileNamedByKeyContent() {
+    // Hint keys such as a class have identity hash codes that change between runs; the file must be found from the key's content
+    final ViewExecutionCacheKey key = new ViewExecutionCacheKey(UniqueId.of("Key", "1"), FileViewExecutionCacheTest.class, "No-op");
+    final FileViewExecutionCache cache = createCache(createFunctions(1L, "Foo"));
+    cache.setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    assertTrue(cache.getFile(key).exists());
+    assertEquals(cache.getFile(key).getName().length(), 40 + ".cvd".length());
+    assertEquals(cache.getFile(new ViewExecutionCacheKey(UniqueId.of("Key", "1"), FileViewExecutionCacheTest.class, "No-op")), cache.getFile(key));
+    assertNotNull(createCache(createFunctions(2L, "Foo")).getCompiledViewDefinitionWithGraphs(key));
+  }
+
+  public void testClear() {
+    final FileViewExecutionCache cache = createCache(createFunctions(1L, "Foo"));
+    final ViewExecutionCacheKey key = new ViewExecutionCacheKey(UniqueId.of("Key", "1"), "Foo", "No-op");
+    cache.setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    assertTrue(_directory.listFiles().length > 0);
+    cache.clear();
+    assertEquals(_directory.listFiles().length, 0);
+    assertNull(cache.getCompiledViewDefinitionWithGraphs(key));
+    assertFalse(cache.getFile(key).exists());
+  }
+
+}
@@ -5,6 +5,8 @@
  */
 package com.opengamma.financial;
 
+import java.util.concurrent.ExecutorService;
+
 import com.opengamma.core.config.ConfigSource;
 import com.opengamma.core.convention.ConventionSource;
 import com.opengamma.core.exchange.ExchangeSource;
@@ -98,6 +100,12 @@ public final class OpenGammaExecutionContext {
    */
   public static final String VIEW_PROCESSOR_NAME = "viewProcessor";
 
+  /**
+   * The name under which an {@link ExecutorService} for calibrating independent units of curves concurrently should be bound. If there is none, curves
+   * are calibrated sequentially.
+   */
+  public static final String CURVE_CALIBRATION_EXECUTOR_NAME = "curveCalibrationExecutor";
+
   private static final String CURRENCY_PAIRS_SOURCE = "currencyPairsSource";
 
   /**
@@ -347,6 +355,14 @@ public final class OpenGammaExecutionContext {
     context.put(VIEW_PROCESSOR_NAME, viewProcessor);
   }
 
+  public static ExecutorService getCurveCalibrationExecutor(final FunctionExecutionContext context) {
+    return (ExecutorService) context.get(CURVE_CALIBRATION_EXECUTOR_NAME);
+  }
+
+  public static void setCurveCalibrationExecutor(final FunctionExecutionContext context, final ExecutorService executor) {
+    context.put(CURVE_CALIBRATION_EXECUTOR_NAME, executor);
+  }
+
   /**
    * @deprecated [PLAT-2782] interim measure to move away from direct use of a config source
    */
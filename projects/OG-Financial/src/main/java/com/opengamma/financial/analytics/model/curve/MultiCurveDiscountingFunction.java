@@ -18,6 +18,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +44,7 @@ import com.opengamma.analytics.financial.provider.curve.CurveBuildingBlockBundle
 import com.opengamma.analytics.financial.provider.curve.MultiCurveBundle;
 import com.opengamma.analytics.financial.provider.curve.SingleCurveBundle;
 import com.opengamma.analytics.financial.provider.curve.multicurve.MulticurveDiscountBuildingRepository;
+import com.opengamma.analytics.financial.provider.curve.multicurve.MulticurveDiscountBuildingState;
 import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderDiscount;
 import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderInterface;
 import com.opengamma.analytics.financial.provider.description.interestrate.ParameterProviderInterface;
@@ -112,6 +116,8 @@ public class MultiCurveDiscountingFunction extends
   private static final ParSpreadMarketQuoteDiscountingCalculator PSMQC = ParSpreadMarketQuoteDiscountingCalculator.getInstance();
   /** The sensitivity calculator */
   private static final ParSpreadMarketQuoteCurveSensitivityDiscountingCalculator PSMQCSC = ParSpreadMarketQuoteCurveSensitivityDiscountingCalculator.getInstance();
+  /** The state of the previous calibration for each curve construction configuration and source of market data, kept across recompilations */
+  private final ConcurrentMap<Pair<String, String>, MulticurveDiscountBuildingState> _buildingStates = new ConcurrentHashMap<>();
 
   /**
    * @param configurationName The configuration name, not null
@@ -133,6 +139,27 @@ public class MultiCurveDiscountingFunction extends
         currencies);
   }
 
+  /**
+   * Gets the state of the previous calibration of the curves of a curve construction configuration, creating an empty one if there is none.
+   * Views running against different market data, for example live data and a snapshot, keep separate states so that they don't replace each
+   * other's calibration on every cycle. The state is not thread safe so the caller must hold its lock while calibrating with it.
+   * @param curveConstructionConfigurationName The curve construction configuration name, not null
+   * @param marketDataSource The description of the market data the curves are calibrated to, null if not known
+   * @return The state, not null
+   */
+  protected MulticurveDiscountBuildingState getBuildingState(final String curveConstructionConfigurationName, final String marketDataSource) {
+    final Pair<String, String> key = Pairs.of(curveConstructionConfigurationName, marketDataSource);
+    MulticurveDiscountBuildingState state = _buildingStates.get(key);
+    if (state == null) {
+      final MulticurveDiscountBuildingState newState = new MulticurveDiscountBuildingState();
+      state = _buildingStates.putIfAbsent(key, newState);
+      if (state == null) {
+        state = newState;
+      }
+    }
+    return state;
+  }
+
   @Override
   protected InstrumentDerivativeVisitor<ParameterProviderInterface, Double> getCalculator() {
     return PSMQC;
@@ -277,8 +304,19 @@ public class MultiCurveDiscountingFunction extends
         curveBundles[i++] = groupBundle;
       } // Group - end
       //TODO this is only in here because the code in analytics doesn't use generics properly
-      final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> temp = builder.makeCurvesFromDerivatives(curveBundles,
-          (MulticurveProviderDiscount) knownData, discountingMap, forwardIborMap, forwardONMap, getCalculator(), getSensitivityCalculator());
+      final ExecutorService executor = OpenGammaExecutionContext.getCurveCalibrationExecutor(context);
+      final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> temp;
+      if ((executor != null) && (nGroups > 1)) {
+        // Opted in through the engine configuration; the units are calibrated from their starting points on the shared, bounded executor
+        temp = builder.makeCurvesFromDerivativesConcurrently(curveBundles, (MulticurveProviderDiscount) knownData, new CurveBuildingBlockBundle(), discountingMap,
+            forwardIborMap, forwardONMap, getCalculator(), getSensitivityCalculator(), executor);
+      } else {
+        final MulticurveDiscountBuildingState state = getBuildingState(_curveConstructionConfiguration.getName(), context.getMarketDataSource());
+        synchronized (state) {
+          temp = builder.makeCurvesFromDerivatives(curveBundles, (MulticurveProviderDiscount) knownData, new CurveBuildingBlockBundle(), discountingMap,
+              forwardIborMap, forwardONMap, getCalculator(), getSensitivityCalculator(), state);
+        }
+      }
       final Pair<ParameterProviderInterface, CurveBuildingBlockBundle> result = Pairs.of((ParameterProviderInterface) temp.getFirst(), temp.getSecond());
       return result;
     }
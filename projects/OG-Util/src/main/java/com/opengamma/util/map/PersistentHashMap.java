@@ -0,0 +1,461 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Immutable hash map where an updated copy shares all but one path of its structure with the original.
+ * <p>
+ * The map is a hash array mapped trie. Each level of the trie consumes 5 bits of the hash, so {@link #with} and {@link #without} copy at most
+ * log<sub>32</sub>(n) small nodes and leave the original untouched. This suits a writer that publishes successive versions of a large map to
+ * readers, each of which holds a consistent version for as long as it likes without copying it. Lookups cost a few array reads more than a
+ * {@link java.util.HashMap}.
+ * <p>
+ * Keys and values may not be null. The {@link Map} mutators throw {@link UnsupportedOperationException}.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final PersistentHashMap<Object, Object> EMPTY = new PersistentHashMap<Object, Object>(null, 0);
+
+  private final Node _root;
+  private final int _size;
+
+  private PersistentHashMap(final Node root, final int size) {
+    _root = root;
+    _size = size;
+  }
+
+  /**
+   * Returns the empty map.
+   *
+   * @param <K> key type
+   * @param <V> value type
+   * @return the empty map, not null
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Returns a map containing the entries of another map.
+   *
+   * @param <K> key type
+   * @param <V> value type
+   * @param map the entries, not null and not containing null keys or values
+   * @return the map, not null
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashMap<K, V> of(final Map<? extends K, ? extends V> map) {
+    ArgumentChecker.notNull(map, "map");
+    if (map instanceof PersistentHashMap) {
+      return (PersistentHashMap<K, V>) map;
+    }
+    PersistentHashMap<K, V> result = empty();
+    for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      result = result.with(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns a map with the given entry added, or replacing any existing entry for the key.
+   *
+   * @param key the key, not null
+   * @param value the value, not null
+   * @return the updated map, this instance if the key is already mapped to the same value
+   */
+  public PersistentHashMap<K, V> with(final K key, final V value) {
+    ArgumentChecker.notNull(key, "key");
+    ArgumentChecker.notNull(value, "value");
+    final int hash = hash(key);
+    final boolean[] added = new boolean[1];
+    final Node root = (_root != null) ? _root.with(0, hash, key, value, added) : BitmapNode.EMPTY.with(0, hash, key, value, added);
+    if (root == _root) {
+      return this;
+    }
+    return new PersistentHashMap<K, V>(root, added[0] ? _size + 1 : _size);
+  }
+
+  /**
+   * Returns a map without the entry for the given key.
+   *
+   * @param key the key, null returns this map
+   * @return the updated map, this instance if the key is not present
+   */
+  public PersistentHashMap<K, V> without(final Object key) {
+    if (key == null || _root == null) {
+      return this;
+    }
+    final Node root = _root.without(0, hash(key), key);
+    if (root == _root) {
+      return this;
+    }
+    if (root == null) {
+      return empty();
+    }
+    return new PersistentHashMap<K, V>(root, _size - 1);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(final Object key) {
+    if (key == null || _root == null) {
+      return null;
+    }
+    return (V) _root.find(0, hash(key), key);
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return _size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<K, V>(_root);
+      }
+
+      @Override
+      public int size() {
+        return _size;
+      }
+
+      @Override
+      public boolean contains(final Object o) {
+        if (!(o instanceof Map.Entry)) {
+          return false;
+        }
+        final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+        final Object value = get(entry.getKey());
+        return (value != null) && value.equals(entry.getValue());
+      }
+
+    };
+  }
+
+  //-------------------------------------------------------------------------
+  private static int hash(final Object key) {
+    final int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static Object[] replace(final Object[] array, final int index, final Object value) {
+    final Object[] copy = array.clone();
+    copy[index] = value;
+    return copy;
+  }
+
+  private static Object[] insertPair(final Object[] array, final int index, final Object key, final Object value) {
+    final Object[] copy = new Object[array.length + 2];
+    System.arraycopy(array, 0, copy, 0, index);
+    copy[index] = key;
+    copy[index + 1] = value;
+    System.arraycopy(array, index, copy, index + 2, array.length - index);
+    return copy;
+  }
+
+  private static Object[] removePair(final Object[] array, final int index) {
+    final Object[] copy = new Object[array.length - 2];
+    System.arraycopy(array, 0, copy, 0, index);
+    System.arraycopy(array, index + 2, copy, index, copy.length - index);
+    return copy;
+  }
+
+  /**
+   * A trie node. The array holds key/value pairs; in a {@link BitmapNode} a null key marks a slot whose value is the child node for the keys
+   * sharing that prefix of the hash.
+   */
+  private abstract static class Node {
+
+    protected final Object[] _array;
+
+    protected Node(final Object[] array) {
+      _array = array;
+    }
+
+    protected boolean isSingleEntry() {
+      return (_array.length == 2) && (_array[0] != null);
+    }
+
+    protected abstract Object find(int shift, int hash, Object key);
+
+    protected abstract Node with(int shift, int hash, Object key, Object value, boolean[] added);
+
+    /**
+     * Removes a key.
+     *
+     * @return this node if the key is not present, null if the node is left empty
+     */
+    protected abstract Node without(int shift, int hash, Object key);
+
+  }
+
+  private static final class BitmapNode extends Node {
+
+    private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private final int _bitmap;
+
+    private BitmapNode(final int bitmap, final Object[] array) {
+      super(array);
+      _bitmap = bitmap;
+    }
+
+    private int index(final int bit) {
+      return Integer.bitCount(_bitmap & (bit - 1)) << 1;
+    }
+
+    @Override
+    protected Object find(final int shift, final int hash, final Object key) {
+      final int bit = 1 << ((hash >>> shift) & MASK);
+      if ((_bitmap & bit) == 0) {
+        return null;
+      }
+      final int index = index(bit);
+      final Object k = _array[index];
+      if (k == null) {
+        return ((Node) _array[index + 1]).find(shift + BITS, hash, key);
+      }
+      return key.equals(k) ? _array[index + 1] : null;
+    }
+
+    @Override
+    protected Node with(final int shift, final int hash, final Object key, final Object value, final boolean[] added) {
+      final int bit = 1 << ((hash >>> shift) & MASK);
+      final int index = index(bit);
+      if ((_bitmap & bit) == 0) {
+        added[0] = true;
+        return new BitmapNode(_bitmap | bit, insertPair(_array, index, key, value));
+      }
+      final Object k = _array[index];
+      final Object v = _array[index + 1];
+      if (k == null) {
+        final Node child = ((Node) v).with(shift + BITS, hash, key, value, added);
+        return (child == v) ? this : new BitmapNode(_bitmap, replace(_array, index + 1, child));
+      }
+      if (key.equals(k)) {
+        return (value == v) ? this : new BitmapNode(_bitmap, replace(_array, index + 1, value));
+      }
+      added[0] = true;
+      final Object[] array = _array.clone();
+      array[index] = null;
+      array[index + 1] = pair(shift + BITS, k, v, hash, key, value);
+      return new BitmapNode(_bitmap, array);
+    }
+
+    private static Node pair(final int shift, final Object key1, final Object value1, final int hash2, final Object key2, final Object value2) {
+      final int hash1 = hash(key1);
+      if (hash1 == hash2) {
+        return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2 });
+      }
+      final boolean[] ignored = new boolean[1];
+      return EMPTY.with(shift, hash1, key1, value1, ignored).with(shift, hash2, key2, value2, ignored);
+    }
+
+    @Override
+    protected Node without(final int shift, final int hash, final Object key) {
+      final int bit = 1 << ((hash >>> shift) & MASK);
+      if ((_bitmap & bit) == 0) {
+        return this;
+      }
+      final int index = index(bit);
+      final Object k = _array[index];
+      if (k == null) {
+        final Node child = (Node) _array[index + 1];
+        final Node updated = child.without(shift + BITS, hash, key);
+        if (updated == child) {
+          return this;
+        }
+        if (updated == null) {
+          return removeSlot(bit, index);
+        }
+        if (updated.isSingleEntry()) {
+          // Pull a lone entry up into this node so the trie stays as shallow as possible
+          final Object[] array = _array.clone();
+          array[index] = updated._array[0];
+          array[index + 1] = updated._array[1];
+          return new BitmapNode(_bitmap, array);
+        }
+        return new BitmapNode(_bitmap, replace(_array, index + 1, updated));
+      }
+      if (key.equals(k)) {
+        return removeSlot(bit, index);
+      }
+      return this;
+    }
+
+    private Node removeSlot(final int bit, final int index) {
+      if (_bitmap == bit) {
+        return null;
+      }
+      return new BitmapNode(_bitmap ^ bit, removePair(_array, index));
+    }
+
+  }
+
+  /**
+   * Node for keys whose hashes are identical in all 32 bits.
+   */
+  private static final class CollisionNode extends Node {
+
+    private final int _hash;
+
+    private CollisionNode(final int hash, final Object[] array) {
+      super(array);
+      _hash = hash;
+    }
+
+    private int indexOf(final Object key) {
+      for (int i = 0; i < _array.length; i += 2) {
+        if (key.equals(_array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    protected Object find(final int shift, final int hash, final Object key) {
+      if (hash != _hash) {
+        return null;
+      }
+      final int index = indexOf(key);
+      return (index < 0) ? null : _array[index + 1];
+    }
+
+    @Override
+    protected Node with(final int shift, final int hash, final Object key, final Object value, final boolean[] added) {
+      if (hash != _hash) {
+        // Push this node down a level below a bitmap node that can tell the two hashes apart
+        final BitmapNode parent = new BitmapNode(1 << ((_hash >>> shift) & MASK), new Object[] {null, this });
+        return parent.with(shift, hash, key, value, added);
+      }
+      final int index = indexOf(key);
+      if (index < 0) {
+        added[0] = true;
+        final Object[] array = Arrays.copyOf(_array, _array.length + 2);
+        array[_array.length] = key;
+        array[_array.length + 1] = value;
+        return new CollisionNode(_hash, array);
+      }
+      return (_array[index + 1] == value) ? this : new CollisionNode(_hash, replace(_array, index + 1, value));
+    }
+
+    @Override
+    protected Node without(final int shift, final int hash, final Object key) {
+      if (hash != _hash) {
+        return this;
+      }
+      final int index = indexOf(key);
+      if (index < 0) {
+        return this;
+      }
+      if (_array.length == 2) {
+        return null;
+      }
+      return new CollisionNode(_hash, removePair(_array, index));
+    }
+
+  }
+
+  /**
+   * Depth-first iterator over the trie. A trie of 32 bit hashes is at most 7 bitmap levels and a collision node deep.
+   */
+  private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+    private final Object[][] _arrays = new Object[8][];
+    private final int[] _indices = new int[8];
+    private int _depth;
+    private Map.Entry<K, V> _next;
+
+    private EntryIterator(final Node root) {
+      if (root != null) {
+        _arrays[0] = root._array;
+        _depth = 1;
+        advance();
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void advance() {
+      while (_depth > 0) {
+        final int level = _depth - 1;
+        final Object[] array = _arrays[level];
+        final int index = _indices[level];
+        if (index >= array.length) {
+          _arrays[level] = null;
+          _depth--;
+          continue;
+        }
+        _indices[level] = index + 2;
+        final Object key = array[index];
+        if (key == null) {
+          _arrays[_depth] = ((Node) array[index + 1])._array;
+          _indices[_depth] = 0;
+          _depth++;
+        } else {
+          _next = new AbstractMap.SimpleImmutableEntry<K, V>((K) key, (V) array[index + 1]);
+          return;
+        }
+      }
+      _next = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return _next != null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (_next == null) {
+        throw new NoSuchElementException();
+      }
+      final Map.Entry<K, V> next = _next;
+      advance();
+      return next;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link PersistentHashMap} implementation.
+ */
+@Test(groups = TestGroup.UNIT)
+public class PersistentHashMapTest {
+
+  /**
+   * Key with a caller-chosen hash code, to force collisions.
+   */
+  private static final class Key {
+
+    private final int _id;
+    private final int _hash;
+
+    private Key(final int id, final int hash) {
+      _id = id;
+      _hash = hash;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return (o instanceof Key) && (((Key) o)._id == _id);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hash;
+    }
+
+    @Override
+    public String toString() {
+      return "Key[" + _id + "]";
+    }
+
+  }
+
+  public void testBasicOperations() {
+    final PersistentHashMap<String, String> empty = PersistentHashMap.empty();
+    assertTrue(empty.isEmpty());
+    assertEquals(empty.size(), 0);
+    final PersistentHashMap<String, String> one = empty.with("A", "Foo");
+    final PersistentHashMap<String, String> two = one.with("B", "Bar");
+    assertEquals(two.size(), 2);
+    assertEquals(two.get("A"), "Foo");
+    assertEquals(two.get("B"), "Bar");
+    assertNull(two.get("C"));
+    assertNull(two.get(null));
+    assertTrue(two.containsKey("A"));
+    assertFalse(two.containsKey("C"));
+    final PersistentHashMap<String, String> replaced = two.with("A", "Baz");
+    assertEquals(replaced.size(), 2);
+    assertEquals(replaced.get("A"), "Baz");
+    final PersistentHashMap<String, String> removed = replaced.without("B");
+    assertEquals(removed.size(), 1);
+    assertNull(removed.get("B"));
+    assertTrue(removed.without("A").isEmpty());
+  }
+
+  public void testEarlierVersionsUnchanged() {
+    final PersistentHashMap<String, String> one = PersistentHashMap.<String, String>empty().with("A", "Foo");
+    final PersistentHashMap<String, String> two = one.with("A", "Bar").with("B", "Baz");
+    two.without("A");
+    assertEquals(one.size(), 1);
+    assertEquals(one.get("A"), "Foo");
+    assertNull(one.get("B"));
+    assertEquals(two.size(), 2);
+    assertEquals(two.get("A"), "Bar");
+  }
+
+  public void testUnchangedReturnsSameInstance() {
+    final String value = "Foo";
+    final PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty().with("A", value);
+    assertSame(map.with("A", value), map);
+    assertSame(map.without("B"), map);
+    assertSame(map.without(null), map);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullKey() {
+    PersistentHashMap.<String, String>empty().with(null, "Foo");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullValue() {
+    PersistentHashMap.<String, String>empty().with("A", null);
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testPut() {
+    PersistentHashMap.<String, String>empty().put("A", "Foo");
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testIteratorRemove() {
+    final Iterator<Map.Entry<String, String>> itr = PersistentHashMap.<String, String>empty().with("A", "Foo").entrySet().iterator();
+    itr.next();
+    itr.remove();
+  }
+
+  public void testMapContract() {
+    final Map<String, Integer> expected = new HashMap<String, Integer>();
+    for (int i = 0; i < 100; i++) {
+      expected.put(Integer.toString(i), i);
+    }
+    final PersistentHashMap<String, Integer> map = PersistentHashMap.of(expected);
+    assertEquals(map, expected);
+    assertEquals(expected, map);
+    assertEquals(map.hashCode(), expected.hashCode());
+    assertEquals(map.keySet(), expected.keySet());
+    assertSame(PersistentHashMap.of(map), map);
+  }
+
+  private void testRandomOperations(final int hashRange) {
+    final Random random = new Random(hashRange);
+    final Map<Key, Integer> expected = new HashMap<Key, Integer>();
+    PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+    for (int i = 0; i < 20000; i++) {
+      final int id = random.nextInt(2000);
+      final Key key = new Key(id, (hashRange > 0) ? (id % hashRange) : id * 0x9E3779B9);
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.without(key);
+      } else {
+        expected.put(key, i);
+        map = map.with(key, i);
+      }
+      assertEquals(map.size(), expected.size());
+    }
+    for (int id = 0; id < 2000; id++) {
+      final Key key = new Key(id, (hashRange > 0) ? (id % hashRange) : id * 0x9E3779B9);
+      assertEquals(map.get(key), expected.get(key));
+    }
+    assertEquals(map, expected);
+    for (final Key key : expected.keySet()) {
+      map = map.without(key);
+    }
+    assertTrue(map.isEmpty());
+  }
+
+  public void testRandomOperations_distinctHashes() {
+    testRandomOperations(0);
+  }
+
+  public void testRandomOperations_someCollisions() {
+    testRandomOperations(500);
+  }
+
+  public void testRandomOperations_manyCollisions() {
+    testRandomOperations(3);
+  }
+
+}
@@ -139,7 +139,7 @@ import com.opengamma.util.ArgumentChecker;
     s_logger.debug("Starting client connection");
     _viewClient.setResultListener(new Listener());
     _viewClient.setViewCycleAccessSupported(true);
-    _viewClient.setResultMode(ViewResultMode.FULL_THEN_DELTA);
+    _viewClient.setResultMode(ViewResultMode.DELTA_STREAM);
     try {
       if (_viewRequest.getViewProcessId() == null) {
         List<MarketDataSpecification> requestedMarketDataSpecs = _viewRequest.getMarketDataSpecs();